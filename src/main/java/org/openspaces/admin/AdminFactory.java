@@ -18,6 +18,7 @@ package org.openspaces.admin;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.jini.rio.boot.BootUtil;
@@ -60,6 +61,7 @@ public class AdminFactory {
     private CredentialsProvider credentialsProvider = null;
     private boolean discoverUnmanagedSpaces = false;
     private AdminFilter adminFilter;
+    private long bulkStatisticsHostTimeout = -1;
 
 	private Class[] discoveryServices;
     
@@ -200,6 +202,20 @@ public class AdminFactory {
         return this;
     }
 
+    /**
+     * Collects the space instances, virtual machines and transports statistics with a single asynchronous
+     * collection per grid service container or agent (JVM), instead of polling each of them separately. The
+     * components of a JVM are still fetched using a remote call each, one after the other. The statistics of
+     * a container or agent that does not answer within the given timeout are reported as not available,
+     * without delaying the statistics of the others.
+     * 
+     * @since 11.0
+     */
+    public AdminFactory bulkStatisticsCollection(long hostTimeout, TimeUnit timeUnit) {
+        this.bulkStatisticsHostTimeout = timeUnit.toMillis(hostTimeout);
+        return this;
+    }
+
     //exposed by InternalAdminFactory
     protected AdminFactory singleThreadedEventListeners() {
         this.singleThreadedEventListeners = true;
@@ -221,6 +237,9 @@ public class AdminFactory {
         admin.setCredentialsProvider(credentialsProvider);
         admin.setAdminFilter(adminFilter);
         admin.setDiscoveryServices(discoveryServices);
+        if (bulkStatisticsHostTimeout > 0) {
+            admin.setBulkStatisticsCollection(bulkStatisticsHostTimeout, TimeUnit.MILLISECONDS);
+        }
         
         for (String group : groups) {
             admin.addGroup(group);
@@ -0,0 +1,331 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.admin.internal.admin;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openspaces.core.util.ConcurrentHistogram;
+import org.openspaces.core.util.StripedCounter;
+
+/**
+ * Dispatches admin events to the event listeners without locking.
+ * 
+ * <p>Events are sharded by their listener, and each shard executes its events one at a time, in the order
+ * they were dispatched, on its own single threaded executor. This keeps the order of the events of each
+ * listener. A shard is drained in batches by a single task submitted to its executor only when the shard
+ * becomes non empty, instead of submitting a task per event.
+ * 
+ * <p>Events can either be raised, executed as soon as possible, or staged, held until the next
+ * {@link #flush()} (or {@link #flushCorrelated()} for schedule monitor correlated events). Staged events are
+ * kept in lock free stacks, and flushing a shard moves them to its ready queue. Flushing is the only
+ * operation taking a lock, per shard, so that once a flush returns the staged events are ahead of any event
+ * raised afterwards.
+ * 
+ * @since 11.0
+ */
+public class AdminEventBus {
+
+    private static final Log logger = LogFactory.getLog(AdminEventBus.class);
+
+    // the number of events a shard executes before resubmitting its drain task
+    private static final int DRAIN_BATCH_SIZE = 256;
+
+    private final Shard[] shards;
+
+    private final ConcurrentHistogram dispatchLatency = new ConcurrentHistogram();
+
+    private final StripedCounter pending = new StripedCounter();
+
+    private final StripedCounter dispatched = new StripedCounter();
+
+    private final StripedCounter dropped = new StripedCounter();
+
+    private volatile boolean closed;
+
+    /**
+     * @param executors the executors of the shards, each must execute a single task at a time
+     */
+    public AdminEventBus(Executor[] executors) {
+        this.shards = new Shard[executors.length];
+        for (int i = 0; i < executors.length; i++) {
+            shards[i] = new Shard(executors[i]);
+        }
+    }
+
+    /**
+     * Dispatches the event to be executed as soon as possible.
+     */
+    public void raise(Object listener, Runnable notifier) {
+        pending.increment();
+        shard(listener).enqueue(new Event(notifier));
+    }
+
+    /**
+     * Stages the event until the next {@link #flush()}.
+     */
+    public void stage(Object listener, Runnable notifier) {
+        pending.increment();
+        push(shard(listener).staged, new Event(notifier));
+    }
+
+    /**
+     * Stages the event until the next {@link #flush()}, ahead of the events already staged.
+     */
+    public void stageFirst(Object listener, Runnable notifier) {
+        pending.increment();
+        push(shard(listener).stagedFirst, new Event(notifier));
+    }
+
+    /**
+     * Stages the event until the next {@link #flushCorrelated()}.
+     */
+    public void stageCorrelated(Object listener, Runnable notifier) {
+        pending.increment();
+        push(shard(listener).stagedCorrelated, new Event(notifier));
+    }
+
+    /**
+     * Dispatches the events staged by {@link #stage(Object, Runnable)} and
+     * {@link #stageFirst(Object, Runnable)}.
+     */
+    public void flush() {
+        for (Shard shard : shards) {
+            shard.flush();
+        }
+    }
+
+    /**
+     * Dispatches the events staged by {@link #stageCorrelated(Object, Runnable)}.
+     */
+    public void flushCorrelated() {
+        for (Shard shard : shards) {
+            shard.flushCorrelated();
+        }
+    }
+
+    /**
+     * Drops the events staged by {@link #stage(Object, Runnable)} and {@link #stageFirst(Object, Runnable)}.
+     */
+    public void clearStaged() {
+        for (Shard shard : shards) {
+            drop(shard.stagedFirst.getAndSet(null));
+            drop(shard.staged.getAndSet(null));
+        }
+    }
+
+    /**
+     * Drops the events staged by {@link #stageCorrelated(Object, Runnable)}.
+     */
+    public void clearStagedCorrelated() {
+        for (Shard shard : shards) {
+            drop(shard.stagedCorrelated.getAndSet(null));
+        }
+    }
+
+    /**
+     * Drops all the pending events. Events dispatched from now on are dropped as well.
+     */
+    public void close() {
+        closed = true;
+        clearStaged();
+        clearStagedCorrelated();
+        for (Shard shard : shards) {
+            shard.clear();
+        }
+    }
+
+    /**
+     * Returns the time events waited to be executed once ready, in microseconds.
+     */
+    public ConcurrentHistogram getDispatchLatency() {
+        return dispatchLatency;
+    }
+
+    /**
+     * Returns the number of events (staged or ready) not executed yet.
+     */
+    public long getQueueDepth() {
+        return pending.get();
+    }
+
+    public long getDispatchedEvents() {
+        return dispatched.get();
+    }
+
+    /**
+     * Returns the number of events dropped, either cleared or dispatched after the bus was closed.
+     */
+    public long getDroppedEvents() {
+        return dropped.get();
+    }
+
+    private Shard shard(Object listener) {
+        return shards[Math.abs(listener.hashCode() % shards.length)];
+    }
+
+    private static void push(AtomicReference<Event> stack, Event event) {
+        Event head;
+        do {
+            head = stack.get();
+            event.next = head;
+        } while (!stack.compareAndSet(head, event));
+    }
+
+    private void drop(Event events) {
+        for (Event event = events; event != null; event = event.next) {
+            pending.decrement();
+            dropped.increment();
+        }
+    }
+
+    private static final class Event {
+
+        final Runnable notifier;
+
+        // the next event of a staged stack
+        Event next;
+
+        long readyNanos;
+
+        Event(Runnable notifier) {
+            this.notifier = notifier;
+        }
+    }
+
+    private final class Shard implements Runnable {
+
+        private final Executor executor;
+
+        private final ConcurrentLinkedQueue<Event> ready = new ConcurrentLinkedQueue<Event>();
+
+        // the number of ready events not executed yet, the drain task is submitted when it becomes non zero
+        private final AtomicInteger readyCount = new AtomicInteger();
+
+        private final AtomicReference<Event> staged = new AtomicReference<Event>();
+
+        private final AtomicReference<Event> stagedFirst = new AtomicReference<Event>();
+
+        private final AtomicReference<Event> stagedCorrelated = new AtomicReference<Event>();
+
+        Shard(Executor executor) {
+            this.executor = executor;
+        }
+
+        void enqueue(Event event) {
+            if (closed) {
+                drop(event);
+                return;
+            }
+            event.readyNanos = System.nanoTime();
+            ready.offer(event);
+            if (readyCount.getAndIncrement() == 0) {
+                schedule();
+            }
+        }
+
+        synchronized void flush() {
+            Event events = staged.getAndSet(null);
+            // events staged as first go ahead of the other staged events, most recent first
+            enqueueAll(stagedFirst.getAndSet(null), false);
+            enqueueAll(events, true);
+        }
+
+        synchronized void flushCorrelated() {
+            enqueueAll(stagedCorrelated.getAndSet(null), true);
+        }
+
+        /**
+         * Enqueues a stack of staged events, either in the order they were staged, or most recent first.
+         */
+        private void enqueueAll(Event stack, boolean stagingOrder) {
+            Event events = stagingOrder ? reverse(stack) : stack;
+            while (events != null) {
+                Event next = events.next;
+                events.next = null;
+                enqueue(events);
+                events = next;
+            }
+        }
+
+        private Event reverse(Event stack) {
+            Event reversed = null;
+            while (stack != null) {
+                Event next = stack.next;
+                stack.next = reversed;
+                reversed = stack;
+                stack = next;
+            }
+            return reversed;
+        }
+
+        private void schedule() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                clear();
+            }
+        }
+
+        void clear() {
+            Event event;
+            while ((event = ready.poll()) != null) {
+                drop(event);
+            }
+        }
+
+        /**
+         * Drains the ready events, resubmitting itself after a batch so other tasks of the executor can run.
+         */
+        public void run() {
+            for (int i = 0; i < DRAIN_BATCH_SIZE; i++) {
+                Event event = ready.poll();
+                if (event == null) {
+                    // cleared, the events were already counted as dropped
+                    readyCount.set(0);
+                    return;
+                }
+                execute(event);
+                if (readyCount.decrementAndGet() == 0) {
+                    return;
+                }
+            }
+            schedule();
+        }
+
+        private void execute(Event event) {
+            pending.decrement();
+            if (closed) {
+                dropped.increment();
+                return;
+            }
+            dispatchLatency.record((System.nanoTime() - event.readyNanos) / 1000);
+            dispatched.increment();
+            try {
+                event.notifier.run();
+            } catch (Throwable t) {
+                logger.error("Failed to execute admin event " + event.notifier, t);
+            }
+        }
+    }
+}
@@ -21,6 +21,7 @@ import java.rmi.RemoteException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -99,6 +100,7 @@ import org.openspaces.admin.internal.gsc.InternalGridServiceContainers;
 import org.openspaces.admin.internal.gsm.DefaultGridServiceManagers;
 import org.openspaces.admin.internal.gsm.InternalGridServiceManager;
 import org.openspaces.admin.internal.gsm.InternalGridServiceManagers;
+import org.openspaces.admin.internal.gsm.PUsDetailsSynchronizer;
 import org.openspaces.admin.internal.lus.DefaultLookupServices;
 import org.openspaces.admin.internal.lus.InternalLookupService;
 import org.openspaces.admin.internal.lus.InternalLookupServices;
@@ -178,7 +180,6 @@ import org.openspaces.security.AdminFilterHelper;
 import com.gigaspaces.grid.gsa.AgentProcessesDetails;
 import com.gigaspaces.grid.gsa.GSA;
 import com.gigaspaces.grid.gsm.PUDetails;
-import com.gigaspaces.grid.gsm.PUsDetails;
 import com.gigaspaces.internal.jvm.JVMDetails;
 import com.gigaspaces.internal.os.OSDetails;
 import com.gigaspaces.internal.utils.StringUtils;
@@ -245,8 +246,11 @@ public class DefaultAdmin implements InternalAdmin {
 
     private final ExecutorService longRunningExecutorService;
     
-    private LinkedList<Runnable>[] eventsQueue;
-    private LinkedList<Runnable>[] scheduleMonitorCorrelatedEventsQueue;
+    private final AdminEventBus eventBus;
+
+    private volatile HostStatisticsCollector statisticsCollector;
+
+    private ExecutorService statisticsCollectorExecutorService;
 
     private volatile long scheduledProcessingUnitMonitorInterval = 1000; // default to one second
 
@@ -310,13 +314,10 @@ public class DefaultAdmin implements InternalAdmin {
         this.scheduledExecutorService = createScheduledThreadPoolExecutor("admin-scheduled-executor-thread",5);
         final int numberOfThreads = singleThreadedEventListeners ? 1 :  DEFAULT_EVENT_LISTENER_THREADS;
         this.eventsExecutorServices = new ExecutorService[numberOfThreads];
-        eventsQueue = new LinkedList[numberOfThreads];
-        scheduleMonitorCorrelatedEventsQueue = new LinkedList[numberOfThreads];
         for (int i = 0; i < numberOfThreads; i++) {
             eventsExecutorServices[i] = createThreadPoolExecutor("admin-event-executor-thread", 1, singleThreadedEventListeners);
-            eventsQueue[i] = new LinkedList<Runnable>();
-            scheduleMonitorCorrelatedEventsQueue[i] = new LinkedList<Runnable>();
         }
+        this.eventBus = new AdminEventBus(eventsExecutorServices);
         
         if (lifecycleLogger.isTraceEnabled()) {
         	lifecycleLogger.trace("Admin created. hashCode=" + this.hashCode() + ". Calling method stack trace:" +  StringUtils.NEW_LINE + StringUtils.getCurrentStackTrace());
@@ -370,6 +371,45 @@ public class DefaultAdmin implements InternalAdmin {
         this.transports.setStatisticsInterval(interval, timeUnit);
         this.operatingSystems.setStatisticsInterval(interval, timeUnit);
         this.processingUnits.setStatisticsInterval(interval, timeUnit);
+        HostStatisticsCollector collector = this.statisticsCollector;
+        if (collector != null) {
+            collector.setInterval(interval, timeUnit);
+        }
+    }
+
+    /**
+     * Collects the space instances, virtual machines and transports statistics per JVM, with a single
+     * asynchronous collection per grid service container or agent every statistics interval, instead of
+     * polling each of them separately (each component is still fetched using its own remote call). A JVM
+     * whose collection takes longer than the given timeout has its statistics reported as not available,
+     * without delaying the collection of the other JVMs.
+     * Call this method before begin()
+     * 
+     * @see HostStatisticsCollector
+     */
+    public synchronized void setBulkStatisticsCollection(long hostTimeout, TimeUnit timeUnit) {
+        if (statisticsCollector != null) {
+            throw new IllegalStateException("Bulk statistics collection is already enabled");
+        }
+        final ClassLoader correctClassLoader = Thread.currentThread().getContextClassLoader();
+        // not bounded on purpose, each host has at most one collection in flight
+        statisticsCollectorExecutorService = Executors.newCachedThreadPool(
+                new GSThreadFactory("admin-statistics-collector-thread", useDaemonThreads) {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = super.newThread(r);
+                        thread.setContextClassLoader(correctClassLoader);
+                        return thread;
+                    }});
+        HostStatisticsCollector collector = new HostStatisticsCollector(scheduledExecutorService,
+                statisticsCollectorExecutorService, statisticsInterval, timeUnit.toMillis(hostTimeout));
+        collector.start();
+        statisticsCollector = collector;
+    }
+
+    @Override
+    public HostStatisticsCollector getStatisticsCollector() {
+        return statisticsCollector;
     }
 
     @Override
@@ -563,6 +603,13 @@ public class DefaultAdmin implements InternalAdmin {
         }
 
         scheduledExecutorService.shutdownNow();
+        synchronized (this) {
+            if (statisticsCollector != null) {
+                statisticsCollector.stop();
+                statisticsCollectorExecutorService.shutdownNow();
+            }
+        }
+        eventBus.close();
         for (ExecutorService executorService : eventsExecutorServices) {
             executorService.shutdownNow();
         }
@@ -713,74 +760,53 @@ public class DefaultAdmin implements InternalAdmin {
     @Override
     public void pushEvent(Object listener, Runnable notifier) {
         assertStateChangesPermitted();
-        synchronized (DefaultAdmin.this) {
-            eventsQueue[Math.abs(listener.hashCode() % eventsExecutorServices.length)].add(toLoggerRunnable(notifier));
-        }
+        eventBus.stage(listener, toLoggerRunnable(notifier));
     }
 
     @Override
     public void pushScheduleMonitorCorrelatedEvent(Object listener, Runnable notifier) {
         assertStateChangesPermitted();
-        synchronized (DefaultAdmin.this) {
-            scheduleMonitorCorrelatedEventsQueue[Math.abs(listener.hashCode() % eventsExecutorServices.length)].add(toLoggerRunnable(notifier));
-        }
+        eventBus.stageCorrelated(listener, toLoggerRunnable(notifier));
     }
 
     @Override
     public void pushEventAsFirst(Object listener, Runnable notifier) {
         assertStateChangesPermitted();
-        synchronized (DefaultAdmin.this) {
-            eventsQueue[Math.abs(listener.hashCode() % eventsExecutorServices.length)].addFirst(toLoggerRunnable(notifier));
-        }
+        eventBus.stageFirst(listener, toLoggerRunnable(notifier));
     }
 
     public void flushEvents() {
         assertStateChangesPermitted();
-        synchronized (DefaultAdmin.this) {
-            if (closeStarted.get()) {
-                //clear all pending events in queue that may have arrived just before closing of the admin.
-                for (LinkedList<Runnable> l : eventsQueue) {
-                    l.clear();
-                }
-                return;
-            }
-            
-            for (int i = 0; i < eventsExecutorServices.length; i++) {
-                for (Runnable notifier : eventsQueue[i]) {
-                    eventsExecutorServices[i].submit(notifier);
-                }
-                eventsQueue[i].clear();
-            }
+        if (closeStarted.get()) {
+            //clear all pending events in queue that may have arrived just before closing of the admin.
+            eventBus.clearStaged();
+            return;
         }
+        eventBus.flush();
     }
 
     public void flushScheduleMonitorCorrelatedEvents() {
         assertStateChangesPermitted();
-        synchronized (DefaultAdmin.this) {
-            if (closeStarted.get()) {
-                //clear all pending events in queue that may have arrived just before closing of the admin.
-                for (LinkedList<Runnable> l : scheduleMonitorCorrelatedEventsQueue) {
-                    l.clear();
-                }
-                return;
-            }
-
-            for (int i = 0; i < eventsExecutorServices.length; i++) {
-                for (Runnable notifier : scheduleMonitorCorrelatedEventsQueue[i]) {
-                    eventsExecutorServices[i].submit(notifier);
-                }
-                scheduleMonitorCorrelatedEventsQueue[i].clear();
-            }
+        if (closeStarted.get()) {
+            //clear all pending events in queue that may have arrived just before closing of the admin.
+            eventBus.clearStagedCorrelated();
+            return;
         }
+        eventBus.flushCorrelated();
     }
 
     @Override
     public void raiseEvent(Object listener, Runnable notifier) {
-        synchronized (DefaultAdmin.this) {
-            // even though we are taking a lock we are not calling #assertStateChangesPermitted()
-            // this is ok since submit() is non-blocking.
-            eventsExecutorServices[Math.abs(listener.hashCode() % eventsExecutorServices.length)].submit(toLoggerRunnable(notifier));
-        }
+        // not calling #assertStateChangesPermitted(), this is ok since dispatching is non-blocking
+        eventBus.raise(listener, toLoggerRunnable(notifier));
+    }
+
+    /**
+     * Returns the event bus dispatching the events to the event listeners, exposing its dispatch latency,
+     * queue depth and dropped events.
+     */
+    public AdminEventBus getEventBus() {
+        return eventBus;
     }
 
     private Runnable toLoggerRunnable(final Runnable command) {
@@ -1715,34 +1741,32 @@ public class DefaultAdmin implements InternalAdmin {
         private Long eventsCursor;
         private String eventsCursorEsmUid;
 
+        // a full sync of the processing units details every so many runs, in case an update was lost
+        private static final int FULL_SYNC_RUNS = 60;
+
         private String lastHoldersStateDescription = "";
+
+        // the processing units details of each GSM, kept up to date from the deltas
+        private final PUsDetailsSynchronizer pusDetailsSynchronizer = new PUsDetailsSynchronizer();
+
+        // handed to the state change thread, replaced instead of modified
+        private Map<String, Holder> holders = new HashMap<String, Holder>();
+
+        private int runsSinceFullSync;
         
         @Override
         public void run() {
             
             final List<Events> eventsFromGSMs = new ArrayList<Events>();
-            final Map<String, Holder> holders = new HashMap<String, Holder>();
+            final boolean fullSync = ++runsSinceFullSync >= FULL_SYNC_RUNS;
+            if (fullSync) {
+                runsSinceFullSync = 0;
+            }
+            Map<String, GridServiceManager> respondingGSMs = new LinkedHashMap<String, GridServiceManager>();
             for (GridServiceManager gsm : gridServiceManagers.getManagersNonFiltered()) {
                 try {
-                    PUsDetails pusDetails = ((InternalGridServiceManager) gsm).getGSM().getPUsDetails();
-                    for (PUDetails detail : pusDetails.getDetails()) {
-                        Holder holder = holders.get(detail.getName());
-                        if (holder == null) {
-                            holder = new Holder();
-                            holder.name = detail.getName();
-                            holders.put(holder.name, holder);
-                        }
-                        if (detail.isManaging()) {
-                            if (logger.isDebugEnabled() && holder.managingGSM != null) {
-                                logger.debug("Detected two managing GSMs for PU" + holder.name +": existing GSM "+ holder.managingGSM.getUid() + " is overridden by " + gsm.getUid());
-                            }
-                            holder.detail = detail;
-                            holder.managingGSM = gsm;
-                        } else {
-                            holder.backupDetail = detail;
-                            holder.backupGSMs.put(gsm.getUid(), gsm);
-                        }
-                    }
+                    pusDetailsSynchronizer.update((InternalGridServiceManager) gsm, fullSync);
+                    respondingGSMs.put(gsm.getUid(), gsm);
                     
                     Events events = ((InternalGridServiceManager) gsm).getEvents(100);
                     eventsFromGSMs.add(events);
@@ -1760,8 +1784,16 @@ public class DefaultAdmin implements InternalAdmin {
                     }
                 }
             }
+
+            // the processing units of GSMs that are gone or did not respond are no longer known
+            final Set<String> changedProcessingUnits = pusDetailsSynchronizer.endRun();
+
+            if (!changedProcessingUnits.isEmpty()) {
+                this.holders = buildHolders(changedProcessingUnits, respondingGSMs);
+            }
+            final Map<String, Holder> holders = this.holders;
             
-            if (logger.isDebugEnabled()) {
+            if (logger.isDebugEnabled() && !changedProcessingUnits.isEmpty()) {
                 String currentHoldersStateDescription = StringUtils.arrayToDelimitedString(
                         holders.values().toArray(new Holder[0]), StringUtils.NEW_LINE);
                 
@@ -1809,12 +1841,49 @@ public class DefaultAdmin implements InternalAdmin {
             DefaultAdmin.this.scheduleNonBlockingStateChange(toLoggerRunnable( new Runnable(){
                 @Override
                 public void run() {
-                    updateState(holders, scaleStrategyEvents, esm);
+                    updateState(holders, changedProcessingUnits, scaleStrategyEvents, esm);
                     processEventsFromGsm(eventsFromGSMs);
                 }}));
         }
 
-        private void updateState(Map<String, Holder> holders, Events scaleStrategyEvents, InternalElasticServiceManager esm) {
+        /**
+         * Returns a copy of the current holders, with the holders of the given processing units rebuilt from
+         * the details of the GSMs.
+         */
+        private Map<String, Holder> buildHolders(Set<String> changedProcessingUnits, Map<String, GridServiceManager> gsms) {
+            Map<String, Holder> newHolders = new HashMap<String, Holder>(this.holders);
+            for (String name : changedProcessingUnits) {
+                newHolders.remove(name);
+            }
+            for (GridServiceManager gsm : gsms.values()) {
+                Map<String, PUDetails> pusDetails = pusDetailsSynchronizer.getPUsDetails(gsm.getUid());
+                for (String name : changedProcessingUnits) {
+                    PUDetails detail = pusDetails.get(name);
+                    if (detail == null) {
+                        continue;
+                    }
+                    Holder holder = newHolders.get(name);
+                    if (holder == null) {
+                        holder = new Holder();
+                        holder.name = name;
+                        newHolders.put(holder.name, holder);
+                    }
+                    if (detail.isManaging()) {
+                        if (logger.isDebugEnabled() && holder.managingGSM != null) {
+                            logger.debug("Detected two managing GSMs for PU" + holder.name +": existing GSM "+ holder.managingGSM.getUid() + " is overridden by " + gsm.getUid());
+                        }
+                        holder.detail = detail;
+                        holder.managingGSM = gsm;
+                    } else {
+                        holder.backupDetail = detail;
+                        holder.backupGSMs.put(gsm.getUid(), gsm);
+                    }
+                }
+            }
+            return newHolders;
+        }
+
+        private void updateState(Map<String, Holder> holders, Set<String> changedProcessingUnits, Events scaleStrategyEvents, InternalElasticServiceManager esm) {
 
             //TODO: Move after pu added event below
             // make sure that admin API events and internal state is updated based on elastic PU scale strategy events
@@ -1861,6 +1930,10 @@ public class DefaultAdmin implements InternalAdmin {
             }
             // now, go over and update what needed to be updated
             for (Holder holder : holders.values()) {
+                if (!PUsDetailsSynchronizer.isUpdateRequired(processingUnits.getProcessingUnit(holder.name),
+                        changedProcessingUnits.contains(holder.name))) {
+                    continue;
+                }
                 PUDetails details = holder.detail;
                 if (details == null) {
                     details = holder.backupDetail;
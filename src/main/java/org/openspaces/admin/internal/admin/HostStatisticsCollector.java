@@ -0,0 +1,335 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.admin.internal.admin;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import com.j_spaces.kernel.time.SystemTime;
+
+/**
+ * Collects the statistics of the admin components per "host", instead of polling each component on its
+ * own schedule. Note, a host here is a single JVM (a grid service container, agent or any other JVM), keyed
+ * by the uid of its virtual machine, not a machine: several JVMs of the same machine are collected
+ * separately.
+ * 
+ * <p>Every interval a single asynchronous collection is started for each host, fetching the statistics of
+ * all the components of that host registered with the collector (its virtual machine, transport and space
+ * instances) one after the other. There is no bulk remote call: each component is fetched using its own
+ * (existing) remote call, so the number of remote calls is the same as when each component polls its own
+ * statistics. Once all of them are fetched, the samples are published together to the components, which
+ * update their statistics and raise their statistics changed events.
+ * 
+ * <p>Each host has at most one collection in flight. A host whose collection does not complete within the
+ * host timeout is considered unavailable: its components are published as not available and it is skipped
+ * until the collection returns, so a slow host never delays the statistics of the other hosts nor piles up
+ * collection threads.
+ * 
+ * @since 11.0
+ */
+public class HostStatisticsCollector {
+
+    private static final Log logger = LogFactory.getLog(HostStatisticsCollector.class);
+
+    /**
+     * A component whose statistics are collected along with the other components of its host.
+     */
+    public static interface StatisticsSource<T> {
+
+        /**
+         * Fetches a statistics sample, usually a remote call. Called on a collection thread, never while
+         * holding a lock. Returns <code>null</code> if there is no sample.
+         */
+        T fetch() throws Exception;
+
+        /**
+         * Updates the statistics of the component from the sample, and raises its statistics changed events.
+         * The sample is <code>null</code> when it could not be fetched, or the host timed out.
+         */
+        void publish(T sample);
+    }
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Executor executor;
+
+    private final long hostTimeout;
+
+    private final ConcurrentMap<Object, Host> hosts = new ConcurrentHashMap<Object, Host>();
+
+    private final AtomicLong collections = new AtomicLong();
+
+    private final AtomicLong timeouts = new AtomicLong();
+
+    private Future<?> scheduledCollection;
+
+    private long interval;
+
+    /**
+     * @param scheduler   the scheduler starting the collections, never blocked by a collection
+     * @param executor    the executor running the collections, should not queue tasks since each task can
+     *                    block up to its remote calls timeout
+     * @param interval    the interval between collections of a host, in milliseconds
+     * @param hostTimeout the time a host collection can take before its host is considered unavailable, in
+     *                    milliseconds
+     */
+    public HostStatisticsCollector(ScheduledExecutorService scheduler, Executor executor, long interval, long hostTimeout) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("interval must be positive, was [" + interval + "]");
+        }
+        if (hostTimeout <= 0) {
+            throw new IllegalArgumentException("hostTimeout must be positive, was [" + hostTimeout + "]");
+        }
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.interval = interval;
+        this.hostTimeout = hostTimeout;
+    }
+
+    public synchronized void start() {
+        if (scheduledCollection != null) {
+            return;
+        }
+        scheduledCollection = scheduler.scheduleWithFixedDelay(new Runnable() {
+            public void run() {
+                collect();
+            }
+        }, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stop() {
+        if (scheduledCollection != null) {
+            scheduledCollection.cancel(false);
+            scheduledCollection = null;
+        }
+    }
+
+    public synchronized void setInterval(long interval, TimeUnit timeUnit) {
+        this.interval = timeUnit.toMillis(interval);
+        if (scheduledCollection != null) {
+            stop();
+            start();
+        }
+    }
+
+    public synchronized long getInterval() {
+        return interval;
+    }
+
+    public long getHostTimeout() {
+        return hostTimeout;
+    }
+
+    /**
+     * Registers a component to be collected along with the other components of the given host (the uid of
+     * the virtual machine of the component).
+     * 
+     * @return a future whose cancellation unregisters the component
+     */
+    public Future<?> register(Object hostKey, StatisticsSource<?> source) {
+        while (true) {
+            Host host = hosts.get(hostKey);
+            if (host == null) {
+                Host newHost = new Host(hostKey);
+                host = hosts.putIfAbsent(hostKey, newHost);
+                if (host == null) {
+                    host = newHost;
+                }
+            }
+            host.sources.add(source);
+            // the host might have been removed by a concurrent unregister of its last component
+            if (hosts.get(hostKey) == host) {
+                return new Registration(host, source);
+            }
+            host.sources.remove(source);
+        }
+    }
+
+    /**
+     * Returns the number of hosts with registered components.
+     */
+    public int getHostCount() {
+        return hosts.size();
+    }
+
+    /**
+     * Returns the number of completed host collections.
+     */
+    public long getCollectionCount() {
+        return collections.get();
+    }
+
+    /**
+     * Returns the number of host collections that did not complete within the host timeout.
+     */
+    public long getTimeoutCount() {
+        return timeouts.get();
+    }
+
+    /**
+     * Starts a collection for each host not already being collected, and times out the hosts whose
+     * collection takes too long.
+     */
+    void collect() {
+        long now = SystemTime.timeMillis();
+        for (Host host : hosts.values()) {
+            host.tick(now);
+        }
+    }
+
+    private void unregister(Host host, StatisticsSource<?> source) {
+        host.sources.remove(source);
+        if (host.sources.isEmpty()) {
+            hosts.remove(host.key, host);
+        }
+    }
+
+    private class Host implements Runnable {
+
+        private final Object key;
+
+        private final CopyOnWriteArraySet<StatisticsSource<?>> sources = new CopyOnWriteArraySet<StatisticsSource<?>>();
+
+        // guarded by this, never held while fetching
+        private boolean running;
+
+        private boolean timedOut;
+
+        private long startTime;
+
+        Host(Object key) {
+            this.key = key;
+        }
+
+        void tick(long now) {
+            synchronized (this) {
+                if (running) {
+                    if (!timedOut && now - startTime > hostTimeout) {
+                        timedOut = true;
+                        timeouts.incrementAndGet();
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("Statistics collection of host [" + key + "] did not complete within ["
+                                    + hostTimeout + "ms], marking its statistics as not available");
+                        }
+                        for (StatisticsSource<?> source : sources) {
+                            publish(source, null);
+                        }
+                    }
+                    return;
+                }
+                running = true;
+                startTime = now;
+            }
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                synchronized (this) {
+                    running = false;
+                }
+            }
+        }
+
+        public void run() {
+            StatisticsSource<?>[] toCollect = sources.toArray(new StatisticsSource<?>[0]);
+            Object[] samples = new Object[toCollect.length];
+            try {
+                for (int i = 0; i < toCollect.length; i++) {
+                    try {
+                        samples[i] = toCollect[i].fetch();
+                    } catch (Exception e) {
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("Failed to fetch statistics of host [" + key + "]", e);
+                        }
+                    }
+                }
+            } finally {
+                synchronized (this) {
+                    for (int i = 0; i < toCollect.length; i++) {
+                        // skip components unregistered while fetching
+                        if (sources.contains(toCollect[i])) {
+                            publish(toCollect[i], samples[i]);
+                        }
+                    }
+                    running = false;
+                    timedOut = false;
+                }
+                collections.incrementAndGet();
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void publish(StatisticsSource<?> source, Object sample) {
+            try {
+                ((StatisticsSource<Object>) source).publish(sample);
+            } catch (Throwable t) {
+                logger.warn("Failed to publish statistics of host [" + key + "]", t);
+            }
+        }
+    }
+
+    private class Registration implements Future<Object> {
+
+        private final Host host;
+
+        private final StatisticsSource<?> source;
+
+        private volatile boolean cancelled;
+
+        Registration(Host host, StatisticsSource<?> source) {
+            this.host = host;
+            this.source = source;
+        }
+
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (cancelled) {
+                return false;
+            }
+            cancelled = true;
+            unregister(host, source);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isDone() {
+            return cancelled;
+        }
+
+        public Object get() throws InterruptedException, ExecutionException {
+            throw new UnsupportedOperationException("A statistics collection registration has no result");
+        }
+
+        public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            throw new UnsupportedOperationException("A statistics collection registration has no result");
+        }
+    }
+}
@@ -53,6 +53,12 @@ public interface InternalAdmin extends Admin {
     
     ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit);
 
+    /**
+     * Returns the collector of the statistics per JVM, or <code>null</code> if each component polls its own
+     * statistics.
+     */
+    HostStatisticsCollector getStatisticsCollector();
+
     long getScheduledSpaceMonitorInterval();
     
     long getDefaultTimeout();
@@ -118,6 +118,8 @@ public class DefaultGridServiceManager extends AbstractAgentGridComponent implem
 
     private long eventsCursor = 0;
 
+    private final PUsDetailsTracker pusDetailsTracker = new PUsDetailsTracker();
+
     public DefaultGridServiceManager(ServiceID serviceID, GSM gsm, InternalAdmin admin, int agentId, String agentUid, JVMDetails jvmDetails)
             throws RemoteException {
         super(admin, agentId, agentUid, jvmDetails);
@@ -956,6 +958,11 @@ public class DefaultGridServiceManager extends AbstractAgentGridComponent implem
         return events;
     }
 
+    @Override
+    public PUsDetailsTracker.Delta getPUsDetails(long cursor) throws RemoteException {
+        return pusDetailsTracker.delta(gsm.getPUsDetails().getDetails(), cursor);
+    }
+
     @Override
     public InternalQuiesceDetails quiesce(ProcessingUnit processingUnit, QuiesceRequest request) {
         try {
@@ -17,6 +17,7 @@
  ******************************************************************************/
 package org.openspaces.admin.internal.gsm;
 
+import java.rmi.RemoteException;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
@@ -93,6 +94,14 @@ public interface InternalGridServiceManager extends GridServiceManager, Internal
     /** @since 8.0.6 */
     Events getEvents(int maxEvents);
 
+    /**
+     * Returns the processing units whose details changed since the given cursor, or all of them when the
+     * cursor is not the last one returned by this grid service manager. The delta is computed by the admin
+     * (see {@link PUsDetailsTracker}), all the details are still fetched from the grid service manager.
+     * @since 11.0
+     */
+    PUsDetailsTracker.Delta getPUsDetails(long cursor) throws RemoteException;
+
     InternalQuiesceDetails quiesce(ProcessingUnit processingUnit, QuiesceRequest request);
 
     void unquiesce(ProcessingUnit processingUnit, QuiesceRequest request);
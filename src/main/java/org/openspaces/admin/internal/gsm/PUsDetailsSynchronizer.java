@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.admin.internal.gsm;
+
+import java.rmi.RemoteException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import org.openspaces.admin.pu.ProcessingUnit;
+import org.openspaces.admin.pu.ProcessingUnitType;
+
+import com.gigaspaces.grid.gsm.PUDetails;
+
+/**
+ * Keeps the processing units details of each grid service manager up to date from the deltas returned by
+ * {@link InternalGridServiceManager#getPUsDetails(long)}, and collects the names of the processing units
+ * whose details changed, so only their state has to be updated.
+ * 
+ * <p>Each run calls {@link #update(InternalGridServiceManager, boolean)} for each grid service manager, and
+ * then {@link #endRun()}. A grid service manager that was not updated during a run (it failed or is gone)
+ * drops its details, and its next update starts with a full sync.
+ * 
+ * @since 11.0
+ */
+public class PUsDetailsSynchronizer {
+
+    private final Map<String, Map<String, PUDetails>> pusDetailsByGsm = new HashMap<String, Map<String, PUDetails>>();
+
+    private final Map<String, Long> cursors = new HashMap<String, Long>();
+
+    private final Set<String> updatedGsms = new HashSet<String>();
+
+    private Set<String> changedProcessingUnits = new HashSet<String>();
+
+    /**
+     * Applies the changes of the given grid service manager since its last update.
+     * 
+     * @param fullSync <code>true</code> to get all the processing units details, even if the grid service
+     *                 manager was updated before
+     */
+    public void update(InternalGridServiceManager gsm, boolean fullSync) throws RemoteException {
+        Long cursor = cursors.get(gsm.getUid());
+        PUsDetailsTracker.Delta delta = gsm.getPUsDetails(fullSync || cursor == null ? 0 : cursor);
+        cursors.put(gsm.getUid(), delta.getNextCursor());
+        Map<String, PUDetails> pusDetails = pusDetailsByGsm.get(gsm.getUid());
+        if (pusDetails == null || delta.isFullSync()) {
+            if (pusDetails != null) {
+                changedProcessingUnits.addAll(pusDetails.keySet());
+            }
+            pusDetails = new HashMap<String, PUDetails>();
+            pusDetailsByGsm.put(gsm.getUid(), pusDetails);
+        }
+        for (PUDetails detail : delta.getChanged()) {
+            pusDetails.put(detail.getName(), detail);
+            changedProcessingUnits.add(detail.getName());
+        }
+        for (String name : delta.getRemoved()) {
+            pusDetails.remove(name);
+            changedProcessingUnits.add(name);
+        }
+        updatedGsms.add(gsm.getUid());
+    }
+
+    /**
+     * Drops the details of the grid service managers that were not updated during the run.
+     * 
+     * @return the names of the processing units whose details changed during the run
+     */
+    public Set<String> endRun() {
+        Iterator<Map.Entry<String, Map<String, PUDetails>>> iterator = pusDetailsByGsm.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Map<String, PUDetails>> entry = iterator.next();
+            if (!updatedGsms.contains(entry.getKey())) {
+                changedProcessingUnits.addAll(entry.getValue().keySet());
+                cursors.remove(entry.getKey());
+                iterator.remove();
+            }
+        }
+        updatedGsms.clear();
+        Set<String> changed = changedProcessingUnits;
+        changedProcessingUnits = new HashSet<String>();
+        return changed;
+    }
+
+    /**
+     * Returns the processing units details of the given grid service manager, by processing unit name.
+     */
+    public Map<String, PUDetails> getPUsDetails(String gsmUid) {
+        Map<String, PUDetails> pusDetails = pusDetailsByGsm.get(gsmUid);
+        if (pusDetails == null) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(pusDetails);
+    }
+
+    /**
+     * Returns <code>true</code> if the state of the given processing unit has to be updated. Unchanged
+     * processing units are skipped, unless they were not added yet (and are retried) or are USM processing
+     * units, whose status depends on their statistics.
+     * 
+     * @param processingUnit the known processing unit, <code>null</code> if it was not added yet
+     */
+    public static boolean isUpdateRequired(ProcessingUnit processingUnit, boolean changed) {
+        return changed || processingUnit == null || ProcessingUnitType.UNIVERSAL.equals(processingUnit.getType());
+    }
+}
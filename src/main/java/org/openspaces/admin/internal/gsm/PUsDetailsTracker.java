@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.admin.internal.gsm;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.gigaspaces.grid.gsm.PUDetails;
+
+/**
+ * Turns the processing units details of a grid service manager into versioned deltas, so the admin only
+ * processes the processing units whose details changed since its last cursor, the same way events are
+ * cursored.
+ * 
+ * <p>Note, the tracker runs in the admin, on top of the details fetched with a single (full) remote call,
+ * since the grid service manager has no versioned call. It saves the admin the processing of the unchanged
+ * processing units, but the load on the grid service manager and the size of the response are unchanged.
+ * 
+ * <p>Each call returns a new cursor, to be passed to the next call. A delta holds the processing units added
+ * or changed, and the names of the ones removed, since the given cursor. When the cursor is not the last one
+ * returned (the first call, a lost response, or a cursor of another grid service manager) a full sync is
+ * returned instead, holding all the processing units.
+ * 
+ * @since 11.0
+ */
+public class PUsDetailsTracker {
+
+    private static final PUDetails[] NO_DETAILS = new PUDetails[0];
+
+    private static final String[] NO_NAMES = new String[0];
+
+    // starts from an arbitrary value, so cursors of another tracker do not match
+    private long version = System.nanoTime() | 1;
+
+    private Map<String, PUDetails> lastDetails = new HashMap<String, PUDetails>();
+
+    /**
+     * Returns the changes since the given cursor, based on the current details of the grid service manager.
+     */
+    public synchronized Delta delta(PUDetails[] details, long cursor) {
+        Map<String, PUDetails> currentDetails = new HashMap<String, PUDetails>(details.length * 2);
+        for (PUDetails detail : details) {
+            currentDetails.put(detail.getName(), detail);
+        }
+        boolean fullSync = cursor != version;
+        Map<String, PUDetails> previousDetails = lastDetails;
+        lastDetails = currentDetails;
+        version++;
+        if (fullSync) {
+            return new Delta(version, true, details, NO_NAMES);
+        }
+        List<PUDetails> changed = null;
+        for (PUDetails detail : details) {
+            PUDetails previous = previousDetails.get(detail.getName());
+            if (previous == null || !previous.equals(detail)) {
+                if (changed == null) {
+                    changed = new ArrayList<PUDetails>();
+                }
+                changed.add(detail);
+            }
+        }
+        List<String> removed = null;
+        for (String name : previousDetails.keySet()) {
+            if (!currentDetails.containsKey(name)) {
+                if (removed == null) {
+                    removed = new ArrayList<String>();
+                }
+                removed.add(name);
+            }
+        }
+        return new Delta(version, false,
+                changed == null ? NO_DETAILS : changed.toArray(new PUDetails[changed.size()]),
+                removed == null ? NO_NAMES : removed.toArray(new String[removed.size()]));
+    }
+
+    public static class Delta {
+
+        private final long cursor;
+
+        private final boolean fullSync;
+
+        private final PUDetails[] changed;
+
+        private final String[] removed;
+
+        Delta(long cursor, boolean fullSync, PUDetails[] changed, String[] removed) {
+            this.cursor = cursor;
+            this.fullSync = fullSync;
+            this.changed = changed;
+            this.removed = removed;
+        }
+
+        /**
+         * Returns the cursor to pass to the next call.
+         */
+        public long getNextCursor() {
+            return cursor;
+        }
+
+        /**
+         * Returns <code>true</code> if {@link #getChanged()} holds all the processing units, and any
+         * processing unit not in it was removed.
+         */
+        public boolean isFullSync() {
+            return fullSync;
+        }
+
+        /**
+         * Returns the processing units added or changed since the cursor, or all of them on a full sync.
+         */
+        public PUDetails[] getChanged() {
+            return changed;
+        }
+
+        /**
+         * Returns the names of the processing units removed since the cursor. Empty on a full sync.
+         */
+        public String[] getRemoved() {
+            return removed;
+        }
+    }
+}
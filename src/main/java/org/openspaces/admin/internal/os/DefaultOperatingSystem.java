@@ -18,17 +18,20 @@
 package org.openspaces.admin.internal.os;
 
 import com.gigaspaces.internal.os.OSDetails;
+import com.gigaspaces.internal.os.OSStatistics;
 
 import org.openspaces.admin.Admin;
 import org.openspaces.admin.StatisticsMonitor;
 import org.openspaces.admin.internal.admin.InternalAdmin;
 import org.openspaces.admin.internal.os.events.DefaultOperatingSystemStatisticsChangedEventManager;
 import org.openspaces.admin.internal.os.events.InternalOperatingSystemStatisticsChangedEventManager;
+import org.openspaces.admin.internal.support.StatisticsHistory;
 import org.openspaces.admin.os.OperatingSystem;
 import org.openspaces.admin.os.OperatingSystemDetails;
 import org.openspaces.admin.os.OperatingSystemStatistics;
 import org.openspaces.admin.os.events.OperatingSystemStatisticsChangedEvent;
 import org.openspaces.admin.os.events.OperatingSystemStatisticsChangedEventManager;
+import org.openspaces.admin.support.StatisticsTimeSeries;
 import org.openspaces.core.util.ConcurrentHashSet;
 
 import java.rmi.RemoteException;
@@ -61,6 +64,9 @@ public class DefaultOperatingSystem implements InternalOperatingSystem {
 
     private OperatingSystemStatistics lastStatistics;
 
+    // replaced when the network interfaces change, guarded by this
+    private StatisticsHistory statisticsHistory = DefaultOperatingSystemStatistics.createHistory(StatisticsMonitor.DEFAULT_HISTORY_SIZE);
+
     private Future scheduledStatisticsMonitor;
     private int scheduledStatisticsRefCount = 0;
 
@@ -153,7 +159,9 @@ public class DefaultOperatingSystem implements InternalOperatingSystem {
         lastStatisticsTimestamp = currentTime;
         for (InternalOperatingSystemInfoProvider provider : operatingSystemInfoProviders) {
             try {
-                lastStatistics = new DefaultOperatingSystemStatistics(provider.getOSStatistics(), getDetails(), previousStats, statisticsHistorySize, timeDelta);
+                OSStatistics stats = provider.getOSStatistics();
+                statisticsHistory = DefaultOperatingSystemStatistics.getHistory(statisticsHistory, stats, statisticsHistorySize);
+                lastStatistics = new DefaultOperatingSystemStatistics(stats, getDetails(), previousStats, statisticsHistory, timeDelta);
                 break;
             } catch (RemoteException e) {
                 // simply try the next one
@@ -162,6 +170,10 @@ public class DefaultOperatingSystem implements InternalOperatingSystem {
         return lastStatistics;
     }
 
+    public synchronized StatisticsTimeSeries getStatisticsTimeSeries(long fromTimestamp) {
+        return statisticsHistory.getTimeSeries(fromTimestamp);
+    }
+
     public synchronized void setStatisticsInterval(long interval, TimeUnit timeUnit) {
         this.statisticsInterval = timeUnit.toMillis(interval);
         if (scheduledStatisticsMonitor != null) {
@@ -172,6 +184,7 @@ public class DefaultOperatingSystem implements InternalOperatingSystem {
 
     public synchronized void setStatisticsHistorySize(int historySize) {
         this.statisticsHistorySize = historySize;
+        statisticsHistory.setCapacity(StatisticsHistory.capacityForHistorySize(historySize));
     }
 
     public synchronized void startStatisticsMonitor() {
@@ -19,6 +19,7 @@ package org.openspaces.admin.internal.os;
 
 import com.gigaspaces.internal.os.OSStatistics;
 
+import org.openspaces.admin.internal.support.StatisticsHistory;
 import org.openspaces.admin.os.OperatingSystemDetails;
 import org.openspaces.admin.os.OperatingSystemStatistics;
 import org.openspaces.admin.support.StatisticsUtils;
@@ -29,44 +30,182 @@ import java.util.List;
 import java.util.Map;
 
 /**
+ * The numeric values, including the ones of the network interfaces, are kept in a {@link StatisticsHistory}
+ * shared by all the statistics of the operating system, and {@link #getPrevious()} returns statistics read
+ * back from it. Since the history holds a fixed set of statistics, a new history is started when the
+ * network interfaces change.
+ *
  * @author kimchy
  */
 public class DefaultOperatingSystemStatistics implements OperatingSystemStatistics {
 
-    private static final OSStatistics NA_STATS = new OSStatistics();
+    static final String[] LONG_STATISTICS = {"freeSwapSpaceSizeInBytes", "freePhysicalMemorySizeInBytes",
+            "actualFreePhysicalMemorySizeInBytes", "actualMemoryUsed"};
+
+    static final String[] DOUBLE_STATISTICS = {"cpuPerc", "physicalMemoryUsedPerc"};
+
+    // kept for each network interface, named network.[interface name].[statistic]
+    static final String[] NETWORK_STATISTICS = {"rxBytes", "txBytes", "rxPackets", "txPackets", "rxErrors",
+            "txErrors", "rxDropped", "txDropped"};
+
+    private static final int FREE_SWAP_SPACE_SIZE = 0;
+    private static final int FREE_PHYSICAL_MEMORY_SIZE = 1;
+    private static final int ACTUAL_FREE_PHYSICAL_MEMORY_SIZE = 2;
+    private static final int ACTUAL_MEMORY_USED = 3;
 
-    private final long timeDelta;
+    private static final int CPU_PERC = 0;
+    private static final int PHYSICAL_MEMORY_USED_PERC = 1;
 
-    private final OSStatistics stats;
+    private static final int RX_BYTES = 0;
+    private static final int TX_BYTES = 1;
+    private static final int RX_PACKETS = 2;
+    private static final int TX_PACKETS = 3;
+    private static final int RX_ERRORS = 4;
+    private static final int TX_ERRORS = 5;
+    private static final int RX_DROPPED = 6;
+    private static final int TX_DROPPED = 7;
+
+    private static final OSStatistics NA_STATS = new OSStatistics();
+
+    private final boolean na;
 
     private final OperatingSystemDetails details;
 
-    private volatile OperatingSystemStatistics previousStats;
+    private final StatisticsHistory history;
+
+    private final long sequence;
+
+    private final long timestamp;
+
+    private final long adminTimestamp;
+
+    // null if there are no network statistics
+    private final String[] networkInterfaceNames;
+
+    private final long[] values;
+
+    private final double[] doubleValues;
+
+    public static StatisticsHistory createHistory(int historySize) {
+        return new StatisticsHistory(LONG_STATISTICS, DOUBLE_STATISTICS, StatisticsHistory.capacityForHistorySize(historySize));
+    }
+
+    /**
+     * Returns the given history if it holds the statistics of the given network interfaces, otherwise a
+     * new history that does.
+     */
+    public static StatisticsHistory getHistory(StatisticsHistory history, OSStatistics stats, int historySize) {
+        if (stats.isNA()) {
+            return history;
+        }
+        String[] longStatistics = longStatistics(networkInterfaceNames(stats));
+        if (history != null && history.hasColumns(longStatistics, DOUBLE_STATISTICS)) {
+            return history;
+        }
+        return new StatisticsHistory(longStatistics, DOUBLE_STATISTICS, StatisticsHistory.capacityForHistorySize(historySize));
+    }
+
+    private static String[] networkInterfaceNames(OSStatistics stats) {
+        if (stats.getNetStats() == null) {
+            return null;
+        }
+        String[] names = new String[stats.getNetStats().length];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = stats.getNetStats()[i].getName();
+        }
+        return names;
+    }
+
+    private static String[] longStatistics(String[] networkInterfaceNames) {
+        if (networkInterfaceNames == null) {
+            return LONG_STATISTICS;
+        }
+        String[] names = new String[LONG_STATISTICS.length + networkInterfaceNames.length * NETWORK_STATISTICS.length];
+        System.arraycopy(LONG_STATISTICS, 0, names, 0, LONG_STATISTICS.length);
+        int index = LONG_STATISTICS.length;
+        for (String networkInterfaceName : networkInterfaceNames) {
+            for (String statistic : NETWORK_STATISTICS) {
+                names[index++] = "network." + networkInterfaceName + "." + statistic;
+            }
+        }
+        return names;
+    }
 
     public DefaultOperatingSystemStatistics() {
-        this(NA_STATS, null, null, 0, -1);
+        this(NA_STATS, null, null, null, -1);
     }
 
+    /**
+     * @param previousStats the statistics returned before these ones, used to make sure the history does
+     *                      not span unavailable statistics
+     * @param history       the history the statistics are appended to, may be <code>null</code>, see
+     *                      {@link #getHistory(StatisticsHistory, OSStatistics, int)}
+     */
     public DefaultOperatingSystemStatistics(OSStatistics stats, OperatingSystemDetails details, OperatingSystemStatistics previousStats,
-                                            int historySize, long timeDelta) {
-        this.stats = stats;
+                                            StatisticsHistory history, long timeDelta) {
+        this.na = stats.isNA();
         this.details = details;
-        this.previousStats = previousStats;
-        this.timeDelta = timeDelta;
-        OperatingSystemStatistics lastStats = previousStats;
-        if (lastStats != null) {
-            for (int i = 0; i < historySize; i++) {
-                if (lastStats.getPrevious() == null) {
-                    break;
-                }
-                lastStats = lastStats.getPrevious();
+        this.history = history;
+        this.timestamp = stats.getTimestamp();
+        if (timestamp != -1 && timeDelta != Integer.MIN_VALUE) {
+            this.adminTimestamp = timestamp + timeDelta;
+        } else {
+            this.adminTimestamp = -1;
+        }
+        this.networkInterfaceNames = networkInterfaceNames(stats);
+        int networkInterfaceCount = networkInterfaceNames == null ? 0 : networkInterfaceNames.length;
+        this.values = new long[LONG_STATISTICS.length + networkInterfaceCount * NETWORK_STATISTICS.length];
+        values[FREE_SWAP_SPACE_SIZE] = stats.getFreeSwapSpaceSize();
+        values[FREE_PHYSICAL_MEMORY_SIZE] = stats.getFreePhysicalMemorySize();
+        values[ACTUAL_FREE_PHYSICAL_MEMORY_SIZE] = stats.getActualFreePhysicalMemorySize();
+        values[ACTUAL_MEMORY_USED] = stats.getActualMemoryUsed();
+        for (int i = 0; i < networkInterfaceCount; i++) {
+            OSStatistics.OSNetInterfaceStats netStats = stats.getNetStats()[i];
+            int offset = LONG_STATISTICS.length + i * NETWORK_STATISTICS.length;
+            values[offset + RX_BYTES] = netStats.getRxBytes();
+            values[offset + TX_BYTES] = netStats.getTxBytes();
+            values[offset + RX_PACKETS] = netStats.getRxPackets();
+            values[offset + TX_PACKETS] = netStats.getTxPackets();
+            values[offset + RX_ERRORS] = netStats.getRxErrors();
+            values[offset + TX_ERRORS] = netStats.getTxErrors();
+            values[offset + RX_DROPPED] = netStats.getRxDropped();
+            values[offset + TX_DROPPED] = netStats.getTxDropped();
+        }
+        this.doubleValues = new double[]{stats.getCpuPerc(), -1};
+        if (!na) {
+            doubleValues[PHYSICAL_MEMORY_USED_PERC] = stats.getUsedMemoryPerc() < 0 ?
+                    StatisticsUtils.computePerc(getDetails().getTotalPhysicalMemorySizeInBytes() - getFreePhysicalMemorySizeInBytes(), getDetails().getTotalPhysicalMemorySizeInBytes()) : stats.getUsedMemoryPerc();
+        }
+
+        DefaultOperatingSystemStatistics previous = (DefaultOperatingSystemStatistics) previousStats;
+        if (history == null) {
+            this.sequence = -1;
+        } else if (na) {
+            history.clear();
+            this.sequence = -1;
+        } else {
+            if (previous == null || previous.isNA() || previous.history != history || !history.contains(previous.sequence)) {
+                history.clear();
             }
-            ((DefaultOperatingSystemStatistics) lastStats).setPreviousStats(null);
+            this.sequence = history.append(timestamp, adminTimestamp, values, doubleValues);
         }
     }
 
+    private DefaultOperatingSystemStatistics(OperatingSystemDetails details, StatisticsHistory history, long sequence,
+                                             String[] networkInterfaceNames, long[] times, long[] values, double[] doubleValues) {
+        this.na = false;
+        this.details = details;
+        this.history = history;
+        this.sequence = sequence;
+        this.timestamp = times[0];
+        this.adminTimestamp = times[1];
+        this.networkInterfaceNames = networkInterfaceNames;
+        this.values = values;
+        this.doubleValues = doubleValues;
+    }
+
     public boolean isNA() {
-        return stats.isNA();
+        return na;
     }
 
     public List<OperatingSystemStatistics> getTimeline() {
@@ -81,14 +220,11 @@ public class DefaultOperatingSystemStatistics implements OperatingSystemStatisti
     }
 
     public long getTimestamp() {
-        return stats.getTimestamp();
+        return timestamp;
     }
 
     public long getAdminTimestamp() {
-        if (stats.getTimestamp() != -1 && timeDelta != Integer.MIN_VALUE) {
-            return stats.getTimestamp() + timeDelta;
-        }
-        return -1;
+        return adminTimestamp;
     }
 
     public OperatingSystemDetails getDetails() {
@@ -96,15 +232,32 @@ public class DefaultOperatingSystemStatistics implements OperatingSystemStatisti
     }
 
     public OperatingSystemStatistics getPrevious() {
-        return this.previousStats;
+        if (history == null || sequence < 1) {
+            return null;
+        }
+        long[] times = new long[2];
+        long[] previousValues = new long[values.length];
+        double[] previousDoubleValues = new double[DOUBLE_STATISTICS.length];
+        if (!history.read(sequence - 1, times, previousValues, previousDoubleValues)) {
+            return null;
+        }
+        return new DefaultOperatingSystemStatistics(details, history, sequence - 1, networkInterfaceNames, times, previousValues, previousDoubleValues);
     }
 
-    public void setPreviousStats(OperatingSystemStatistics previosStats) {
-        this.previousStats = previosStats;
+    private double computePerSecond(int column) {
+        if (history == null || sequence < 1) {
+            return -1;
+        }
+        synchronized (history) {
+            if (!history.contains(sequence - 1)) {
+                return -1;
+            }
+            return StatisticsUtils.computePerSecond(values[column], history.getLongValue(sequence - 1, column), timestamp, history.getTimestamp(sequence - 1));
+        }
     }
 
     public long getFreeSwapSpaceSizeInBytes() {
-        return stats.getFreeSwapSpaceSize();
+        return values[FREE_SWAP_SPACE_SIZE];
     }
 
     public double getFreeSwapSpaceSizeInMB() {
@@ -123,7 +276,7 @@ public class DefaultOperatingSystemStatistics implements OperatingSystemStatisti
     }
 
     public long getFreePhysicalMemorySizeInBytes() {
-        return stats.getFreePhysicalMemorySize();
+        return values[FREE_PHYSICAL_MEMORY_SIZE];
     }
 
     public double getFreePhysicalMemorySizeInMB() {
@@ -135,7 +288,7 @@ public class DefaultOperatingSystemStatistics implements OperatingSystemStatisti
     }
 
     public long getActualFreePhysicalMemorySizeInBytes() {
-        return stats.getActualFreePhysicalMemorySize();
+        return values[ACTUAL_FREE_PHYSICAL_MEMORY_SIZE];
     }
 
     public double getActualFreePhysicalMemorySizeInMB() {
@@ -147,11 +300,7 @@ public class DefaultOperatingSystemStatistics implements OperatingSystemStatisti
     }
 
     public double getPhysicalMemoryUsedPerc() {
-        if (isNA()) {
-            return -1;
-        }
-        return stats.getUsedMemoryPerc() < 0 ?
-                StatisticsUtils.computePerc(getDetails().getTotalPhysicalMemorySizeInBytes() - getFreePhysicalMemorySizeInBytes(), getDetails().getTotalPhysicalMemorySizeInBytes()) : stats.getUsedMemoryPerc();
+        return doubleValues[PHYSICAL_MEMORY_USED_PERC];
     }
 
     public double getActualPhysicalMemoryUsedPerc() {
@@ -162,7 +311,7 @@ public class DefaultOperatingSystemStatistics implements OperatingSystemStatisti
     }
 
     public double getCpuPerc() {
-        return stats.getCpuPerc();
+        return doubleValues[CPU_PERC];
     }
 
     public String getCpuPercFormatted() {
@@ -171,25 +320,21 @@ public class DefaultOperatingSystemStatistics implements OperatingSystemStatisti
 
     @Override
     public long getActualMemoryUsed() {
-        return stats.getActualMemoryUsed();
+        return values[ACTUAL_MEMORY_USED];
     }
 
-    private Map<String, NetworkStatistics> netStats;
+    private volatile Map<String, NetworkStatistics> netStats;
 
     public Map<String, NetworkStatistics> getNetworkStats() {
         if (netStats != null) {
             return netStats;
         }
-        if (stats.getNetStats() == null) {
+        if (networkInterfaceNames == null) {
             return null;
         }
         Map<String, NetworkStatistics> netStats = new HashMap<String, NetworkStatistics>();
-        for (int i = 0; i < stats.getNetStats().length; i++) {
-            NetworkStatistics previousNetStats = null;
-            if (getPrevious() != null) {
-                previousNetStats = getPrevious().getNetworkStats().get(stats.getNetStats()[i].getName());
-            }
-            netStats.put(stats.getNetStats()[i].getName(), new DefaultNetworkStatistics(stats.getNetStats()[i], previousNetStats));
+        for (int i = 0; i < networkInterfaceNames.length; i++) {
+            netStats.put(networkInterfaceNames[i], new DefaultNetworkStatistics(networkInterfaceNames[i], LONG_STATISTICS.length + i * NETWORK_STATISTICS.length));
         }
         this.netStats = netStats;
         return netStats;
@@ -197,81 +342,74 @@ public class DefaultOperatingSystemStatistics implements OperatingSystemStatisti
 
     private class DefaultNetworkStatistics implements NetworkStatistics {
 
-        private final OSStatistics.OSNetInterfaceStats netStats;
+        private final String name;
 
-        private final NetworkStatistics prevNetStats;
+        // the index of the first statistic of the network interface
+        private final int offset;
 
-        private DefaultNetworkStatistics(OSStatistics.OSNetInterfaceStats netStats, NetworkStatistics prevNetStats) {
-            this.netStats = netStats;
-            this.prevNetStats = prevNetStats;
+        private DefaultNetworkStatistics(String name, int offset) {
+            this.name = name;
+            this.offset = offset;
         }
 
         public NetworkStatistics getPrevious() {
-            return prevNetStats;
+            OperatingSystemStatistics previousStats = DefaultOperatingSystemStatistics.this.getPrevious();
+            if (previousStats == null || previousStats.getNetworkStats() == null) {
+                return null;
+            }
+            return previousStats.getNetworkStats().get(name);
         }
 
         public String getName() {
-            return netStats.getName();
+            return name;
         }
 
         public long getRxBytes() {
-            return netStats.getRxBytes();
+            return values[offset + RX_BYTES];
         }
 
         public double getRxBytesPerSecond() {
-            if (prevNetStats == null || previousStats == null) {
-                return -1;
-            }
-            return StatisticsUtils.computePerSecond(getRxBytes(), prevNetStats.getRxBytes(), getTimestamp(), previousStats.getTimestamp());
+            return computePerSecond(offset + RX_BYTES);
         }
 
         public long getTxBytes() {
-            return netStats.getTxBytes();
+            return values[offset + TX_BYTES];
         }
 
         public double getTxBytesPerSecond() {
-            if (prevNetStats == null || previousStats == null) {
-                return -1;
-            }
-            return StatisticsUtils.computePerSecond(getTxBytes(), prevNetStats.getTxBytes(), getTimestamp(), previousStats.getTimestamp());
+            return computePerSecond(offset + TX_BYTES);
         }
 
         public long getRxPackets() {
-            return netStats.getRxPackets();
+            return values[offset + RX_PACKETS];
         }
 
         public double getRxPacketsPerSecond() {
-            if (prevNetStats == null || previousStats == null) {
-                return -1;
-            }
-            return StatisticsUtils.computePerSecond(getRxPackets(), prevNetStats.getRxPackets(), getTimestamp(), previousStats.getTimestamp());
+            return computePerSecond(offset + RX_PACKETS);
         }
 
         public long getTxPackets() {
-            return netStats.getTxPackets();
+            return values[offset + TX_PACKETS];
         }
 
         public double getTxPacketsPerSecond() {
-            if (prevNetStats == null || previousStats == null) {
-                return -1;
-            }
-            return StatisticsUtils.computePerSecond(getTxPackets(), prevNetStats.getTxPackets(), getTimestamp(), previousStats.getTimestamp());
+            return computePerSecond(offset + TX_PACKETS);
         }
 
         public long getRxErrors() {
-            return netStats.getRxErrors();
+            return values[offset + RX_ERRORS];
         }
 
         public long getTxErrors() {
-            return netStats.getTxErrors();
+            return values[offset + TX_ERRORS];
         }
 
         public long getRxDropped() {
-            return netStats.getRxDropped();
+            return values[offset + RX_DROPPED];
         }
 
         public long getTxDropped() {
-            return netStats.getTxDropped();
+            return values[offset + TX_DROPPED];
         }
     }
 }
@@ -46,6 +46,7 @@ import org.openspaces.admin.internal.pu.dependency.DefaultProcessingUnitDependen
 import org.openspaces.admin.internal.pu.dependency.InternalProcessingUnitDependencies;
 import org.openspaces.admin.internal.pu.dependency.InternalProcessingUnitDependency;
 import org.openspaces.admin.internal.pu.events.*;
+import org.openspaces.admin.internal.pu.statistics.IncrementalTimeWindowStatisticsCalculator;
 import org.openspaces.admin.internal.pu.statistics.InternalProcessingUnitStatistics;
 import org.openspaces.admin.pu.*;
 import org.openspaces.admin.pu.dependency.ProcessingUnitDependencies;
@@ -159,6 +160,9 @@ public class DefaultProcessingUnit implements InternalProcessingUnit {
 
     private volatile ProcessingUnitStatistics lastStatistics;
     private long lastStatisticsTimestamp;
+    // guarded by this, same as lastStatistics
+    private final IncrementalTimeWindowStatisticsCalculator timeWindowStatisticsCalculator =
+            new IncrementalTimeWindowStatisticsCalculator(StatisticsMonitor.DEFAULT_HISTORY_SIZE);
     private int scheduledStatisticsRefCount = 0;
 
     private final ConcurrentHashSet<ProcessingUnitStatisticsId> statisticsIds;
@@ -811,6 +815,9 @@ public class DefaultProcessingUnit implements InternalProcessingUnit {
     @Override
     public void setStatisticsHistorySize(int historySize) {
         this.statisticsHistorySize = historySize;
+        synchronized (this) {
+            timeWindowStatisticsCalculator.setHistorySize(historySize);
+        }
         for (ProcessingUnitInstance processingUnitInstance : processingUnitInstances.values()) {
             processingUnitInstance.setStatisticsHistorySize(historySize);
         }
@@ -1108,7 +1115,7 @@ public class DefaultProcessingUnit implements InternalProcessingUnit {
         lastStatisticsTimestamp = currentTime;
         
         InternalProcessingUnitStatistics statistics = 
-                new DefaultProcessingUnitStatistics(currentTime, lastStatistics, statisticsHistorySize);
+                new DefaultProcessingUnitStatistics(currentTime, lastStatistics, statisticsHistorySize, timeWindowStatisticsCalculator);
         Map<String,ProcessingUnitInstance> instancesSnapshot = new HashMap<String, ProcessingUnitInstance>(processingUnitInstances);
         
         Set<ProcessingUnitStatisticsId> statisticsIdsSnapshot = new HashSet<ProcessingUnitStatisticsId>(statisticsIds);
@@ -63,7 +63,7 @@ public class DefaultProcessingUnitStatistics implements InternalProcessingUnitSt
     
     private final Map<ProcessingUnitStatisticsId, Object> statistics;
 
-    private final InternalProcessingUnitStatisticsCalculator timeWindowStatisticsCalculator = new TimeWindowStatisticsCalculator();
+    private final InternalProcessingUnitStatisticsCalculator timeWindowStatisticsCalculator;
     private final InternalProcessingUnitStatisticsCalculator instancesStatisticsCalculator = new InstancesStatisticsCalculator();
     private final InternalProcessingUnitStatisticsCalculator zoneStatisticsCalculator = new ZoneStatisticsCalculator();
 
@@ -73,7 +73,21 @@ public class DefaultProcessingUnitStatistics implements InternalProcessingUnitSt
             long adminTimestamp, 
             ProcessingUnitStatistics lastStatistics,
             int historySize) {
+        this(adminTimestamp, lastStatistics, historySize, new TimeWindowStatisticsCalculator());
+    }
+
+    /**
+     * @param timeWindowStatisticsCalculator - calculates the time window statistics. Since an
+     *        {@link org.openspaces.admin.internal.pu.statistics.IncrementalTimeWindowStatisticsCalculator} keeps state
+     *        between calculations, the same instance should be passed to consecutive statistics.
+     */
+    public DefaultProcessingUnitStatistics(
+            long adminTimestamp, 
+            ProcessingUnitStatistics lastStatistics,
+            int historySize,
+            InternalProcessingUnitStatisticsCalculator timeWindowStatisticsCalculator) {
     
+        this.timeWindowStatisticsCalculator = timeWindowStatisticsCalculator;
         this.statistics = new HashMap<ProcessingUnitStatisticsId, Object>();
         this.adminTimestamp = adminTimestamp;
         this.previous = lastStatistics;
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.openspaces.admin.internal.pu.statistics;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openspaces.admin.internal.pu.ProcessingUnitStatistics;
+import org.openspaces.admin.pu.statistics.AbstractTimeWindowStatisticsConfig;
+import org.openspaces.admin.pu.statistics.LastSampleTimeWindowStatisticsConfig;
+import org.openspaces.admin.pu.statistics.ProcessingUnitStatisticsId;
+import org.openspaces.admin.pu.statistics.SingleInstanceStatisticsConfig;
+import org.openspaces.admin.pu.statistics.TimeWindowStatisticsConfig;
+
+/**
+ * Aggregates samples from a certain time window using different functions defined by {@link TimeWindowStatisticsConfig}
+ * that is stored in {@link ProcessingUnitStatisticsId}s, producing the same results as {@link TimeWindowStatisticsCalculator}.
+ * 
+ * Instead of walking the {@link ProcessingUnitStatistics#getPrevious()} history and regrouping the statistics ids on each
+ * calculation, the samples of each metric are kept in a {@link SampleHistory} ring buffer, and each time window is a
+ * {@link SlidingTimeWindow} updated as samples are added and evicted. The history is only walked when a metric is first
+ * requested.
+ * 
+ * Since it keeps state between calculations, an instance should only be used for consecutive statistics of a single
+ * processing unit. This class is not thread safe.
+ * 
+ * @since 11.0
+ */
+public class IncrementalTimeWindowStatisticsCalculator implements InternalProcessingUnitStatisticsCalculator {
+
+    private final Log logger = LogFactory.getLog(this.getClass());
+
+    private int historySize;
+
+    private Map<ProcessingUnitStatisticsId, Binding> bindings = new HashMap<ProcessingUnitStatisticsId, Binding>();
+
+    // key is the statisticsId of the raw samples (with LastSampleTimeWindowStatisticsConfig)
+    private Map<ProcessingUnitStatisticsId, SampleHistory> histories = new HashMap<ProcessingUnitStatisticsId, SampleHistory>();
+
+    /**
+     * @param historySize - the number of previous statistics kept by each {@link ProcessingUnitStatistics}
+     */
+    public IncrementalTimeWindowStatisticsCalculator(int historySize) {
+        this.historySize = historySize;
+    }
+
+    /**
+     * Changes the number of previous statistics kept by each {@link ProcessingUnitStatistics}
+     */
+    public void setHistorySize(int historySize) {
+        this.historySize = historySize;
+        for (SampleHistory history : histories.values()) {
+            history.setCapacity(getCapacity());
+        }
+    }
+
+    @Override
+    public void calculateNewStatistics(
+            final InternalProcessingUnitStatistics processingUnitStatistics,
+            final Collection<ProcessingUnitStatisticsId> statisticsIds) {
+
+        if (processingUnitStatistics == null) {
+            throw new IllegalArgumentException("processingUnitStatistics cannot be null");
+        }
+        if (logger.isTraceEnabled()) {
+            logger.trace("calculateNewStatistics(processingUnitStatistics="+processingUnitStatistics+" , statisticsIds="+ statisticsIds);
+        }
+
+        final long timestamp = processingUnitStatistics.getAdminTimestamp();
+        final Map<ProcessingUnitStatisticsId, Object> samples = processingUnitStatistics.getStatistics();
+        final Map<ProcessingUnitStatisticsId, Binding> newBindings = new HashMap<ProcessingUnitStatisticsId, Binding>();
+        final Map<ProcessingUnitStatisticsId, SampleHistory> newHistories = new HashMap<ProcessingUnitStatisticsId, SampleHistory>();
+        final Map<ProcessingUnitStatisticsId, Object> newValues = new HashMap<ProcessingUnitStatisticsId, Object>();
+
+        for (final ProcessingUnitStatisticsId statisticsId : statisticsIds) {
+
+            if (!(statisticsId.getTimeWindowStatistics() instanceof AbstractTimeWindowStatisticsConfig)) {
+                continue;
+            }
+
+            Binding binding = bindings.get(statisticsId);
+            if (binding == null) {
+                binding = new Binding(statisticsId);
+            }
+            newBindings.put(statisticsId, binding);
+
+            SampleHistory history = newHistories.get(binding.rawStatisticsId);
+            if (history == null) {
+                history = histories.get(binding.rawStatisticsId);
+                if (history == null) {
+                    history = createHistory(processingUnitStatistics, binding.rawStatisticsId);
+                }
+                else if (history.getLastTimestamp() < timestamp) {
+                    history.add(timestamp, samples.get(binding.rawStatisticsId));
+                }
+                newHistories.put(binding.rawStatisticsId, history);
+            }
+
+            final SlidingTimeWindow window = history.getWindow(
+                    binding.timeWindowMilliSeconds, binding.minTimeWindowMilliSeconds, binding.maxTimeWindowMilliSeconds);
+            if (binding.function != null && window.isValid(timestamp)) {
+                newValues.put(statisticsId, binding.function.calc(window));
+            }
+        }
+
+        for (SampleHistory history : newHistories.values()) {
+            history.removeUnusedWindows();
+        }
+        // forget statistics which are no longer requested
+        bindings = newBindings;
+        histories = newHistories;
+
+        for (Map.Entry<ProcessingUnitStatisticsId, Object> pair : newValues.entrySet()) {
+            processingUnitStatistics.addStatistics(pair.getKey(), pair.getValue());
+        }
+    }
+
+    /**
+     * Creates the history of a newly requested metric from the {@link ProcessingUnitStatistics#getPrevious()} history
+     */
+    private SampleHistory createHistory(ProcessingUnitStatistics processingUnitStatistics, ProcessingUnitStatisticsId rawStatisticsId) {
+        final int capacity = getCapacity();
+        final ProcessingUnitStatistics[] previous = new ProcessingUnitStatistics[capacity];
+        int count = 0;
+        for (ProcessingUnitStatistics statistics = processingUnitStatistics;
+             statistics != null && count < capacity;
+             statistics = statistics.getPrevious()) {
+            if (statistics.getStatistics().get(rawStatisticsId) == null) {
+                break;
+            }
+            previous[count++] = statistics;
+        }
+        final SampleHistory history = new SampleHistory(capacity);
+        for (int i = count - 1; i >= 0; i--) {
+            history.add(previous[i].getAdminTimestamp(), previous[i].getStatistics().get(rawStatisticsId));
+        }
+        if (count == 0) {
+            history.add(processingUnitStatistics.getAdminTimestamp(), null);
+        }
+        return history;
+    }
+
+    /**
+     * The number of samples a {@link ProcessingUnitStatistics} history holds: the statistics itself, the last statistics, and
+     * historySize statistics before it.
+     */
+    private int getCapacity() {
+        return Math.max(historySize, 0) + 2;
+    }
+
+    /**
+     * The calculation details of a requested statisticsId, computed once
+     */
+    private static class Binding {
+
+        private final ProcessingUnitStatisticsId rawStatisticsId;
+        private final StatisticsObjectListFunction function;
+        private final long timeWindowMilliSeconds;
+        private final long minTimeWindowMilliSeconds;
+        private final long maxTimeWindowMilliSeconds;
+
+        Binding(ProcessingUnitStatisticsId statisticsId) {
+
+            statisticsId.validate();
+
+            if (!(statisticsId.getInstancesStatistics() instanceof SingleInstanceStatisticsConfig)) {
+                throw new IllegalArgumentException("Unsupported statisticsId. Only "+SingleInstanceStatisticsConfig.class.getName() +" is supported. Offending id="+statisticsId);
+            }
+
+            final TimeWindowStatisticsConfig timeWindowStatistics = statisticsId.getTimeWindowStatistics();
+            // validate the time window the same way TimeWindowStatisticsCalculator does
+            final ErasedTimeWindowStatisticsConfig erased =
+                    new ErasedTimeWindowStatisticsConfig((AbstractTimeWindowStatisticsConfig) timeWindowStatistics);
+            erased.validate();
+
+            this.function = timeWindowStatistics instanceof StatisticsObjectListFunction ?
+                    (StatisticsObjectListFunction) timeWindowStatistics : null;
+            this.timeWindowMilliSeconds = TimeUnit.SECONDS.toMillis(erased.getTimeWindowSeconds());
+            this.minTimeWindowMilliSeconds = TimeUnit.SECONDS.toMillis(erased.getMinimumTimeWindowSeconds());
+            this.maxTimeWindowMilliSeconds = TimeUnit.SECONDS.toMillis(erased.getMaximumTimeWindowSeconds());
+
+            this.rawStatisticsId = statisticsId.shallowClone();
+            this.rawStatisticsId.setTimeWindowStatistics(new LastSampleTimeWindowStatisticsConfig());
+        }
+    }
+}
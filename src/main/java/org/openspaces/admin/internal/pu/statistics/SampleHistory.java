@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.openspaces.admin.internal.pu.statistics;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A ring buffer holding the consecutive samples of a single metric, oldest first, and the
+ * {@link SlidingTimeWindow}s defined over them. Each sample is identified by a sequence number which
+ * keeps growing as samples are added, so windows can refer to samples regardless of their position in
+ * the buffer. A missing sample breaks the history (same as {@link TimeWindowStatisticsCalculator}
+ * stops at the first sample without a value), so the buffer and its windows are cleared.
+ *
+ * @since 11.0
+ * @see IncrementalTimeWindowStatisticsCalculator
+ */
+class SampleHistory {
+
+    private long[] timestamps;
+    private Object[] values;
+    private long firstSequence;
+    private long endSequence;
+    private long lastTimestamp = Long.MIN_VALUE;
+    private final List<SlidingTimeWindow> windows = new ArrayList<SlidingTimeWindow>();
+
+    SampleHistory(int capacity) {
+        this.timestamps = new long[capacity];
+        this.values = new Object[capacity];
+    }
+
+    int size() {
+        return (int) (endSequence - firstSequence);
+    }
+
+    long getFirstSequence() {
+        return firstSequence;
+    }
+
+    long getEndSequence() {
+        return endSequence;
+    }
+
+    /**
+     * @return the timestamp of the last added sample, or {@link Long#MIN_VALUE} if no sample was added
+     */
+    long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    long getTimestamp(long sequence) {
+        return timestamps[index(sequence)];
+    }
+
+    Object getValue(long sequence) {
+        return values[index(sequence)];
+    }
+
+    /**
+     * Adds the newest sample, evicting the oldest one if the buffer is full.
+     * A <code>null</code> value clears the history.
+     */
+    void add(long timestamp, Object value) {
+        lastTimestamp = timestamp;
+        if (value == null) {
+            clear();
+            return;
+        }
+        if (size() == values.length) {
+            removeOldest();
+        }
+        int index = index(endSequence);
+        timestamps[index] = timestamp;
+        values[index] = value;
+        endSequence++;
+        for (SlidingTimeWindow window : windows) {
+            window.addNewest(endSequence - 1);
+            window.slide(timestamp);
+        }
+    }
+
+    /**
+     * Changes the maximum number of samples, evicting the oldest samples if needed.
+     */
+    void setCapacity(int capacity) {
+        if (capacity == values.length) {
+            return;
+        }
+        while (size() > capacity) {
+            removeOldest();
+        }
+        long[] newTimestamps = new long[capacity];
+        Object[] newValues = new Object[capacity];
+        for (long sequence = firstSequence; sequence < endSequence; sequence++) {
+            newTimestamps[(int) (sequence % capacity)] = getTimestamp(sequence);
+            newValues[(int) (sequence % capacity)] = getValue(sequence);
+        }
+        timestamps = newTimestamps;
+        values = newValues;
+    }
+
+    /**
+     * Returns the window with the specified bounds, creating it from the existing samples if needed.
+     */
+    SlidingTimeWindow getWindow(long timeWindowMillis, long minimumTimeWindowMillis, long maximumTimeWindowMillis) {
+        for (SlidingTimeWindow window : windows) {
+            if (window.hasBounds(timeWindowMillis, minimumTimeWindowMillis, maximumTimeWindowMillis)) {
+                window.setUsed(true);
+                return window;
+            }
+        }
+        SlidingTimeWindow window = new SlidingTimeWindow(this, timeWindowMillis, minimumTimeWindowMillis, maximumTimeWindowMillis);
+        for (long sequence = firstSequence; sequence < endSequence; sequence++) {
+            window.addNewest(sequence);
+        }
+        window.slide(lastTimestamp);
+        window.setUsed(true);
+        windows.add(window);
+        return window;
+    }
+
+    /**
+     * Removes the windows which were not returned by {@link #getWindow(long, long, long)} since the last call
+     * to this method.
+     */
+    void removeUnusedWindows() {
+        for (Iterator<SlidingTimeWindow> iterator = windows.iterator(); iterator.hasNext();) {
+            SlidingTimeWindow window = iterator.next();
+            if (!window.isUsed()) {
+                iterator.remove();
+            }
+            window.setUsed(false);
+        }
+    }
+
+    private void removeOldest() {
+        for (SlidingTimeWindow window : windows) {
+            if (window.size() > 0 && window.getFirstSequence() == firstSequence) {
+                window.removeOldest();
+            }
+        }
+        values[index(firstSequence)] = null;
+        firstSequence++;
+    }
+
+    private void clear() {
+        for (long sequence = firstSequence; sequence < endSequence; sequence++) {
+            values[index(sequence)] = null;
+        }
+        firstSequence = endSequence;
+        for (SlidingTimeWindow window : windows) {
+            window.clear();
+        }
+    }
+
+    private int index(long sequence) {
+        return (int) (sequence % values.length);
+    }
+}
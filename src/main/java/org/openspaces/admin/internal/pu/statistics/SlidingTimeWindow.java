@@ -0,0 +1,304 @@
+/*******************************************************************************
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.openspaces.admin.internal.pu.statistics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A time window over the samples of a {@link SampleHistory}, updated incrementally as samples are added
+ * and evicted, instead of being rebuilt from the samples history on every calculation.
+ *
+ * <p>The window holds the samples that were taken less than the time window ago, and the newest sample
+ * which was taken at least the time window ago (as long as it is within the maximum time window). This
+ * is the same set of samples {@link TimeWindowStatisticsCalculator} collects, and the results are the
+ * same as those of a {@link StatisticsObjectList} holding these samples (newest first):
+ * <ul>
+ * <li>The sum of the values is maintained with compensated summation, for the average.</li>
+ * <li>The minimum and maximum are maintained with monotonic queues.</li>
+ * <li>The values are kept sorted (a sample is inserted and removed with a binary search), for the
+ * percentiles.</li>
+ * </ul>
+ *
+ * @since 11.0
+ */
+class SlidingTimeWindow extends StatisticsObjectList {
+
+    private final SampleHistory history;
+    private final long timeWindowMillis;
+    private final long minimumTimeWindowMillis;
+    private final long maximumTimeWindowMillis;
+
+    private long firstSequence;
+    private int size;
+    private boolean used;
+
+    private double sum;
+    private double sumCompensation;
+    private int notNumberCount;
+    private Class<?> notNumberClass;
+    private int notComparableCount;
+    private Class<?> notComparableClass;
+
+    // sequence numbers of the candidates for the minimum (maximum), oldest first.
+    private final LinkedList<Long> minimumCandidates = new LinkedList<Long>();
+    private final LinkedList<Long> maximumCandidates = new LinkedList<Long>();
+
+    private final List<Comparable<Object>> sortedValues = new ArrayList<Comparable<Object>>();
+
+    SlidingTimeWindow(SampleHistory history, long timeWindowMillis, long minimumTimeWindowMillis, long maximumTimeWindowMillis) {
+        this.history = history;
+        this.timeWindowMillis = timeWindowMillis;
+        this.minimumTimeWindowMillis = minimumTimeWindowMillis;
+        this.maximumTimeWindowMillis = maximumTimeWindowMillis;
+        this.firstSequence = history.getEndSequence();
+    }
+
+    boolean hasBounds(long timeWindowMillis, long minimumTimeWindowMillis, long maximumTimeWindowMillis) {
+        return this.timeWindowMillis == timeWindowMillis &&
+               this.minimumTimeWindowMillis == minimumTimeWindowMillis &&
+               this.maximumTimeWindowMillis == maximumTimeWindowMillis;
+    }
+
+    boolean isUsed() {
+        return used;
+    }
+
+    void setUsed(boolean used) {
+        this.used = used;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getFirstSequence() {
+        return firstSequence;
+    }
+
+    /**
+     * @return true if the window spans at least the minimum time window, ending at the specified time
+     */
+    boolean isValid(long timestamp) {
+        return size > 0 && timestamp - history.getTimestamp(firstSequence) >= minimumTimeWindowMillis;
+    }
+
+    /**
+     * This window is maintained by its {@link SampleHistory}
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public void add(Object value, long timeStampMillis) {
+        throw new UnsupportedOperationException("Samples are added to the window by its history");
+    }
+
+    /**
+     * Adds the specified sample of the history, which must be the sample following the newest sample of this window
+     */
+    @SuppressWarnings("unchecked")
+    void addNewest(long sequence) {
+        if (size == 0) {
+            firstSequence = sequence;
+        }
+        size++;
+        Object value = history.getValue(sequence);
+        if (value instanceof Number) {
+            addToSum(((Number) value).doubleValue());
+        } else {
+            notNumberCount++;
+            notNumberClass = value.getClass();
+        }
+        if (value instanceof Comparable<?>) {
+            Comparable<Object> comparable = (Comparable<Object>) value;
+            while (!minimumCandidates.isEmpty() && comparable.compareTo(history.getValue(minimumCandidates.getLast())) < 0) {
+                minimumCandidates.removeLast();
+            }
+            minimumCandidates.addLast(sequence);
+            while (!maximumCandidates.isEmpty() && comparable.compareTo(history.getValue(maximumCandidates.getLast())) > 0) {
+                maximumCandidates.removeLast();
+            }
+            maximumCandidates.addLast(sequence);
+            int index = Collections.binarySearch(sortedValues, comparable);
+            sortedValues.add(index < 0 ? -index - 1 : index, comparable);
+        } else {
+            notComparableCount++;
+            notComparableClass = value.getClass();
+        }
+    }
+
+    /**
+     * Evicts the samples which are no longer part of the time window ending at the specified time
+     */
+    void slide(long timestamp) {
+        // the oldest sample is not needed if the next one already covers the time window
+        while (size > 1 && timestamp - history.getTimestamp(firstSequence + 1) >= timeWindowMillis) {
+            removeOldest();
+        }
+        if (size > 0 && timestamp - history.getTimestamp(firstSequence) > maximumTimeWindowMillis) {
+            removeOldest();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    void removeOldest() {
+        Object value = history.getValue(firstSequence);
+        if (value instanceof Number) {
+            addToSum(-((Number) value).doubleValue());
+        } else {
+            notNumberCount--;
+        }
+        if (value instanceof Comparable<?>) {
+            if (minimumCandidates.getFirst() == firstSequence) {
+                minimumCandidates.removeFirst();
+            }
+            if (maximumCandidates.getFirst() == firstSequence) {
+                maximumCandidates.removeFirst();
+            }
+            sortedValues.remove(Collections.binarySearch(sortedValues, (Comparable<Object>) value));
+        } else {
+            notComparableCount--;
+        }
+        firstSequence++;
+        size--;
+        if (size == 0) {
+            // start over, rather than accumulating rounding errors
+            sum = 0;
+            sumCompensation = 0;
+        }
+    }
+
+    void clear() {
+        firstSequence = history.getEndSequence();
+        size = 0;
+        sum = 0;
+        sumCompensation = 0;
+        notNumberCount = 0;
+        notComparableCount = 0;
+        minimumCandidates.clear();
+        maximumCandidates.clear();
+        sortedValues.clear();
+    }
+
+    /**
+     * Neumaier's variant of Kahan summation, so evicted values leave (almost) no trace in the sum
+     */
+    private void addToSum(double value) {
+        double total = sum + value;
+        if (Math.abs(sum) >= Math.abs(value)) {
+            sumCompensation += (sum - total) + value;
+        } else {
+            sumCompensation += (value - total) + sum;
+        }
+        sum = total;
+    }
+
+    @Override
+    public Double getAverage() {
+        if (notNumberCount > 0) {
+            throw new ClassCastException(notNumberClass + " cannot be cast to a Number");
+        }
+        if (size == 0) {
+            return null;
+        }
+        return (sum + sumCompensation) / size;
+    }
+
+    @Override
+    public Object getMinimum() {
+        if (notComparableCount > 0) {
+            throw new ClassCastException(notComparableClass + " cannot be cast to a Comparable");
+        }
+        return minimumCandidates.isEmpty() ? null : history.getValue(minimumCandidates.getFirst());
+    }
+
+    @Override
+    public Object getMaximum() {
+        if (notComparableCount > 0) {
+            throw new ClassCastException(notComparableClass + " cannot be cast to a Comparable");
+        }
+        return maximumCandidates.isEmpty() ? null : history.getValue(maximumCandidates.getFirst());
+    }
+
+    /**
+     * @return the oldest sample in the window (samples are ordered newest first, same as
+     * {@link TimeWindowStatisticsCalculator} adds them) or null if the window is empty.
+     */
+    @Override
+    public Object getLast() {
+        return size == 0 ? null : history.getValue(firstSequence);
+    }
+
+    @Override
+    public Object getPercentile(double percentile) {
+        if (percentile < 0) {
+            throw new IllegalArgumentException("percentile ("+percentile+") must be between 0 and 100.");
+        }
+        if (percentile > 100) {
+            throw new IllegalArgumentException("percentile ("+percentile+") must be between 0 and 100");
+        }
+        if (notComparableCount > 0) {
+            throw new ClassCastException(notComparableClass + " cannot be cast to a Comparable");
+        }
+        if (size == 0) {
+            return null;
+        }
+        int index = (int) (Math.round((size-1)*percentile/100));
+        return sortedValues.get(index);
+    }
+
+    @Override
+    public Double getDeltaValuePerNanoSecond() {
+        return getDeltaPerTimeunit(TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public Double getDeltaValuePerMilliSecond() {
+        return getDeltaPerTimeunit(TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Double getDeltaValuePerSecond() {
+        return getDeltaPerTimeunit(TimeUnit.SECONDS);
+    }
+
+    private Double getDeltaPerTimeunit(TimeUnit timeUnit) {
+        if (notNumberCount > 0) {
+            throw new ClassCastException(notNumberClass + " cannot be cast to a Number");
+        }
+        if (size < 2) {
+            return null;
+        }
+        // same computation as StatisticsObjectList, where the first sample is the newest one
+        long newestSequence = firstSequence + size - 1;
+        Long timeWindowInTimeunit = timeUnit.convert(
+                history.getTimestamp(firstSequence) - history.getTimestamp(newestSequence), TimeUnit.MILLISECONDS);
+        double lastValue = ((Number) history.getValue(firstSequence)).doubleValue();
+        double firstValue = ((Number) history.getValue(newestSequence)).doubleValue();
+        return (lastValue-firstValue)/timeWindowInTimeunit;
+    }
+
+    @Override
+    public String toString() {
+        List<Object> values = new ArrayList<Object>(size);
+        for (long sequence = firstSequence + size - 1; sequence >= firstSequence; sequence--) {
+            values.add(history.getValue(sequence));
+        }
+        return values.toString();
+    }
+}
@@ -30,6 +30,7 @@ import net.jini.core.lookup.ServiceID;
 
 import org.openspaces.admin.AdminException;
 import org.openspaces.admin.StatisticsMonitor;
+import org.openspaces.admin.internal.admin.HostStatisticsCollector;
 import org.openspaces.admin.internal.admin.InternalAdmin;
 import org.openspaces.admin.internal.space.events.DefaultReplicationStatusChangedEventManager;
 import org.openspaces.admin.internal.space.events.DefaultSpaceInstanceStatisticsChangedEventManager;
@@ -38,10 +39,10 @@ import org.openspaces.admin.internal.space.events.InternalReplicationStatusChang
 import org.openspaces.admin.internal.space.events.InternalSpaceInstanceStatisticsChangedEventManager;
 import org.openspaces.admin.internal.space.events.InternalSpaceModeChangedEventManager;
 import org.openspaces.admin.internal.support.AbstractGridComponent;
+import org.openspaces.admin.internal.support.StatisticsHistory;
 import org.openspaces.admin.internal.utils.NameUtils;
 import org.openspaces.admin.space.ReplicationTarget;
 import org.openspaces.admin.space.Space;
-import org.openspaces.admin.space.SpaceInstance;
 import org.openspaces.admin.space.SpaceInstanceRuntimeDetails;
 import org.openspaces.admin.space.SpaceInstanceStatistics;
 import org.openspaces.admin.space.SpacePartition;
@@ -52,6 +53,7 @@ import org.openspaces.admin.space.events.SpaceInstanceStatisticsChangedEventMana
 import org.openspaces.admin.space.events.SpaceModeChangedEvent;
 import org.openspaces.admin.space.events.SpaceModeChangedEventListener;
 import org.openspaces.admin.space.events.SpaceModeChangedEventManager;
+import org.openspaces.admin.support.StatisticsTimeSeries;
 import org.openspaces.core.GigaSpace;
 import org.openspaces.core.GigaSpaceConfigurer;
 import org.openspaces.core.space.SpaceServiceDetails;
@@ -131,11 +133,11 @@ public class DefaultSpaceInstance extends AbstractGridComponent implements Inter
 
     private long statisticsInterval = StatisticsMonitor.DEFAULT_MONITOR_INTERVAL;
 
-    private int statisticsHistorySize = StatisticsMonitor.DEFAULT_HISTORY_SIZE;
-
     private long lastStatisticsTimestamp = 0;
 
     private SpaceInstanceStatistics lastStatistics;
+
+    private final StatisticsHistory statisticsHistory = DefaultSpaceInstanceStatistics.createHistory(StatisticsMonitor.DEFAULT_HISTORY_SIZE);
     
     private final SpaceInstanceRuntimeDetails spaceInstanceRuntimeDetails;
 
@@ -254,7 +256,7 @@ public class DefaultSpaceInstance extends AbstractGridComponent implements Inter
     }
 
     public void setStatisticsHistorySize(int historySize) {
-        this.statisticsHistorySize = historySize;
+        statisticsHistory.setCapacity(StatisticsHistory.capacityForHistorySize(historySize));
     }
 
     public synchronized void startStatisticsMonitor() {
@@ -263,18 +265,34 @@ public class DefaultSpaceInstance extends AbstractGridComponent implements Inter
         if (scheduledStatisticsMonitor != null) {
             scheduledStatisticsMonitor.cancel(false);
         }
-        final SpaceInstance spaceInstance = this;
+        HostStatisticsCollector collector = ((InternalAdmin) getAdmin()).getStatisticsCollector();
+        if (collector != null) {
+            Object hostKey = getVirtualMachine() != null ? getVirtualMachine().getUid() : getUid();
+            scheduledStatisticsMonitor = collector.register(hostKey, new HostStatisticsCollector.StatisticsSource<StatisticsHolder>() {
+                public StatisticsHolder fetch() throws Exception {
+                    return fetchStatisticsHolder();
+                }
+
+                public void publish(StatisticsHolder holder) {
+                    raiseStatisticsChangedEvent(updateStatistics(holder));
+                }
+            });
+            return;
+        }
         scheduledStatisticsMonitor = ((InternalAdmin) getAdmin()).scheduleWithFixedDelay(new Runnable() {
             public void run() {
-                SpaceInstanceStatistics stats = spaceInstance.getStatistics();
-                SpaceInstanceStatisticsChangedEvent event = new SpaceInstanceStatisticsChangedEvent(spaceInstance, stats);
-                statisticsChangedEventManager.spaceInstanceStatisticsChanged(event);
-                ((InternalSpaceInstanceStatisticsChangedEventManager) space.getInstanceStatisticsChanged()).spaceInstanceStatisticsChanged(event);
-                ((InternalSpaceInstanceStatisticsChangedEventManager) space.getSpaces().getSpaceInstanceStatisticsChanged()).spaceInstanceStatisticsChanged(event);
+                raiseStatisticsChangedEvent(getStatistics());
             }
         }, 0, statisticsInterval, TimeUnit.MILLISECONDS);
     }
 
+    private void raiseStatisticsChangedEvent(SpaceInstanceStatistics stats) {
+        SpaceInstanceStatisticsChangedEvent event = new SpaceInstanceStatisticsChangedEvent(this, stats);
+        statisticsChangedEventManager.spaceInstanceStatisticsChanged(event);
+        ((InternalSpaceInstanceStatisticsChangedEventManager) space.getInstanceStatisticsChanged()).spaceInstanceStatisticsChanged(event);
+        ((InternalSpaceInstanceStatisticsChangedEventManager) space.getSpaces().getSpaceInstanceStatisticsChanged()).spaceInstanceStatisticsChanged(event);
+    }
+
     public synchronized void stopStatisticsMonitor() {
         if (scheduledStatisticsRefCount!=0 && --scheduledStatisticsRefCount > 0) return;
         
@@ -418,24 +436,53 @@ public class DefaultSpaceInstance extends AbstractGridComponent implements Inter
         }
     }
 
-    private static final SpaceInstanceStatistics NA_STATISTICS = new DefaultSpaceInstanceStatistics(new StatisticsHolder(new long[]{-1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1}), null, 0, -1);
+    private static final SpaceInstanceStatistics NA_STATISTICS = new DefaultSpaceInstanceStatistics(new StatisticsHolder(new long[]{-1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1}), null, null, -1);
 
-    public synchronized SpaceInstanceStatistics getStatistics() {
-        long currentTime = SystemTime.timeMillis();
-        if ((currentTime - lastStatisticsTimestamp) < statisticsInterval) {
-            return lastStatistics;
+    public SpaceInstanceStatistics getStatistics() {
+        synchronized (this) {
+            long currentTime = SystemTime.timeMillis();
+            if ((currentTime - lastStatisticsTimestamp) < statisticsInterval) {
+                return lastStatistics != null ? lastStatistics : NA_STATISTICS;
+            }
+            // claim the fetch, concurrent callers get the last statistics instead of waiting on the remote call
+            lastStatisticsTimestamp = currentTime;
         }
-        lastStatisticsTimestamp = currentTime;
+        StatisticsHolder holder;
         try {
-            if (getVirtualMachine().getMachine() == null) return NA_STATISTICS; //machine has not yet been set
-
-            StatisticsHolder holder = getStatisticsHolder();
-            lastStatistics = new DefaultSpaceInstanceStatistics(holder, lastStatistics, statisticsHistorySize, getVirtualMachine().getMachine().getOperatingSystem().getTimeDelta());
+            holder = fetchStatisticsHolder();
         } catch (RemoteException e) {
+            holder = null;
+        }
+        return updateStatistics(holder);
+    }
+
+    /**
+     * Returns the statistics holder of this space instance, or <code>null</code> if the machine has not yet
+     * been set. Does not hold the space instance lock during the remote call.
+     */
+    private StatisticsHolder fetchStatisticsHolder() throws RemoteException {
+        if (getVirtualMachine().getMachine() == null) {
+            return null; //machine has not yet been set
+        }
+        return getStatisticsHolder();
+    }
+
+    /**
+     * Updates the statistics from the given holder, or to not available if it is <code>null</code>.
+     */
+    private synchronized SpaceInstanceStatistics updateStatistics(StatisticsHolder holder) {
+        lastStatisticsTimestamp = SystemTime.timeMillis();
+        if (holder == null) {
             lastStatistics = NA_STATISTICS;
+        } else {
+            lastStatistics = new DefaultSpaceInstanceStatistics(holder, lastStatistics, statisticsHistory, getVirtualMachine().getMachine().getOperatingSystem().getTimeDelta());
         }
         return lastStatistics;
     }
+
+    public StatisticsTimeSeries getStatisticsTimeSeries(long fromTimestamp) {
+        return statisticsHistory.getTimeSeries(fromTimestamp);
+    }
     
     public SpaceInstanceRuntimeDetails getRuntimeDetails() {
         return spaceInstanceRuntimeDetails;
@@ -18,8 +18,10 @@
 package org.openspaces.admin.internal.space;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import org.openspaces.admin.internal.support.StatisticsHistory;
 import org.openspaces.admin.space.SpaceInstanceStatistics;
 import org.openspaces.admin.support.StatisticsUtils;
 
@@ -28,224 +30,298 @@ import com.j_spaces.core.filters.ReplicationStatistics;
 import com.j_spaces.core.filters.StatisticsHolder;
 
 /**
+ * The numeric values are kept in a {@link StatisticsHistory} shared by all the statistics of the space
+ * instance, and {@link #getPrevious()} returns statistics read back from it. The replication and mirror
+ * statistics are not kept in the history, and are <code>null</code> for previous statistics.
+ *
  * @author kimchy
  */
 public class DefaultSpaceInstanceStatistics implements SpaceInstanceStatistics {
 
-    private final long timeDelta;
+    static final String[] LONG_STATISTICS = {"writeCount", "readCount", "takeCount", "notifyRegistrationCount", "cleanCount", "updateCount",
+            "notifyTriggerCount", "notifyAckCount", "executeCount", "removeCount", "changeCount",
+            "processorQueueSize", "notifierQueueSize", "objectCount", "notifyTemplateCount",
+            "activeConnectionCount", "activeTransactionCount"};
 
-    private final StatisticsHolder statisticsHolder;
+    static final String[] DOUBLE_STATISTICS = {};
 
-    private volatile SpaceInstanceStatistics previousStats;
+    private static final int WRITE_COUNT = 0;
+    private static final int READ_COUNT = 1;
+    private static final int TAKE_COUNT = 2;
+    private static final int NOTIFY_REGISTRATION_COUNT = 3;
+    private static final int CLEAN_COUNT = 4;
+    private static final int UPDATE_COUNT = 5;
+    private static final int NOTIFY_TRIGGER_COUNT = 6;
+    private static final int NOTIFY_ACK_COUNT = 7;
+    private static final int EXECUTE_COUNT = 8;
+    private static final int REMOVE_COUNT = 9;
+    private static final int CHANGE_COUNT = 10;
+    private static final int PROCESSOR_QUEUE_SIZE = 11;
+    private static final int NOTIFIER_QUEUE_SIZE = 12;
+    private static final int OBJECT_COUNT = 13;
+    private static final int NOTIFY_TEMPLATE_COUNT = 14;
+    private static final int ACTIVE_CONNECTION_COUNT = 15;
+    private static final int ACTIVE_TRANSACTION_COUNT = 16;
 
-    public DefaultSpaceInstanceStatistics(StatisticsHolder statisticsHolder, SpaceInstanceStatistics previousStats, int historySize, long timeDelta) {
-        this.statisticsHolder = statisticsHolder;
-        this.previousStats = previousStats;
-        this.timeDelta = timeDelta;
+    private final boolean na;
 
-        SpaceInstanceStatistics lastStats = previousStats;
-        if (lastStats != null) {
-            for (int i = 0; i < historySize; i++) {
-                if (lastStats.getPrevious() == null) {
-                    break;
-                }
-                lastStats = lastStats.getPrevious();
+    private final StatisticsHistory history;
+
+    private final long sequence;
+
+    private final long timestamp;
+
+    private final long adminTimestamp;
+
+    private final long[] values;
+
+    private final ReplicationStatistics replicationStatistics;
+
+    private final MirrorStatistics mirrorStatistics;
+
+    public static StatisticsHistory createHistory(int historySize) {
+        return new StatisticsHistory(LONG_STATISTICS, DOUBLE_STATISTICS, StatisticsHistory.capacityForHistorySize(historySize));
+    }
+
+    /**
+     * @param previousStats the statistics returned before these ones, used to make sure the history does
+     *                      not span unavailable statistics
+     * @param history       the history the statistics are appended to, may be <code>null</code>
+     */
+    public DefaultSpaceInstanceStatistics(StatisticsHolder statisticsHolder, SpaceInstanceStatistics previousStats,
+                                          StatisticsHistory history, long timeDelta) {
+        this.na = statisticsHolder.getOperationsCount()[0] == -1;
+        this.history = history;
+        this.timestamp = statisticsHolder.getTimestamp();
+        if (timestamp != -1 && timeDelta != Integer.MIN_VALUE) {
+            this.adminTimestamp = timestamp + timeDelta;
+        } else {
+            this.adminTimestamp = -1;
+        }
+        if (na) {
+            // the statistics used when the space instance is not available only hold the operations count
+            this.values = new long[LONG_STATISTICS.length];
+            Arrays.fill(values, -1);
+        } else {
+            // read and read multiple, take and take multiple
+            this.values = new long[]{
+                    statisticsHolder.getWriteCount(),
+                    statisticsHolder.getReadCount() + statisticsHolder.getReadMultipleCount(),
+                    statisticsHolder.getTakeCount() + statisticsHolder.getTakeMultipleCount(),
+                    statisticsHolder.getNotificationsRegistrationsCount(),
+                    statisticsHolder.getCleanCount(),
+                    statisticsHolder.getUpdateCount(),
+                    statisticsHolder.getNotificationsTriggeredCount(),
+                    statisticsHolder.getNotificationsAcksCount(),
+                    statisticsHolder.getTaskExecutionsCount(),
+                    statisticsHolder.getLeaseExpiredOrCanceledCount(),
+                    statisticsHolder.getChangeCount(),
+                    statisticsHolder.getProcessorQueueSize(),
+                    statisticsHolder.getNotifierQueueSize(),
+                    statisticsHolder.getRuntimeStatisticsHolder().getObjectCount(),
+                    statisticsHolder.getRuntimeStatisticsHolder().getNotifyTemplateCount(),
+                    statisticsHolder.getRuntimeStatisticsHolder().getActiveConnectionCount(),
+                    statisticsHolder.getRuntimeStatisticsHolder().getActiveTransactionCount()};
+        }
+        this.replicationStatistics = statisticsHolder.getReplicationStatistics();
+        this.mirrorStatistics = statisticsHolder.getMirrorStatistics();
+
+        DefaultSpaceInstanceStatistics previous = (DefaultSpaceInstanceStatistics) previousStats;
+        if (history == null) {
+            this.sequence = -1;
+        } else if (na) {
+            history.clear();
+            this.sequence = -1;
+        } else {
+            if (previous == null || previous.isNA() || previous.history != history || !history.contains(previous.sequence)) {
+                history.clear();
             }
-            ((DefaultSpaceInstanceStatistics) lastStats).setPreviousStats(null);
+            this.sequence = history.append(timestamp, adminTimestamp, values, new double[0]);
         }
     }
 
+    private DefaultSpaceInstanceStatistics(StatisticsHistory history, long sequence, long[] times, long[] values) {
+        this.na = false;
+        this.history = history;
+        this.sequence = sequence;
+        this.timestamp = times[0];
+        this.adminTimestamp = times[1];
+        this.values = values;
+        this.replicationStatistics = null;
+        this.mirrorStatistics = null;
+    }
+
     public boolean isNA() {
-        return statisticsHolder.getOperationsCount()[0] == -1;
+        return na;
     }
 
     public long getTimestamp() {
-        return statisticsHolder.getTimestamp();
+        return timestamp;
     }
 
     public long getAdminTimestamp() {
-        if (statisticsHolder.getTimestamp() != -1 && timeDelta != Integer.MIN_VALUE) {
-            return statisticsHolder.getTimestamp() + timeDelta;
-        }
-        return -1;
+        return adminTimestamp;
     }
 
     public long getPreviousTimestamp() {
-        if (previousStats == null) {
+        if (history == null || sequence < 1) {
             return -1;
         }
-        return previousStats.getTimestamp();
+        return history.getTimestamp(sequence - 1);
     }
 
     public SpaceInstanceStatistics getPrevious() {
-        return previousStats;
+        if (history == null || sequence < 1) {
+            return null;
+        }
+        long[] times = new long[2];
+        long[] previousValues = new long[LONG_STATISTICS.length];
+        if (!history.read(sequence - 1, times, previousValues, new double[0])) {
+            return null;
+        }
+        return new DefaultSpaceInstanceStatistics(history, sequence - 1, times, previousValues);
     }
 
-    public void setPreviousStats(SpaceInstanceStatistics previousStats) {
-        this.previousStats = previousStats;
+    private double computePerSecond(int column) {
+        if (history == null || sequence < 1) {
+            return -1;
+        }
+        synchronized (history) {
+            if (!history.contains(sequence - 1)) {
+                return -1;
+            }
+            return StatisticsUtils.computePerSecond(values[column], history.getLongValue(sequence - 1, column), timestamp, history.getTimestamp(sequence - 1));
+        }
     }
 
     public long getWriteCount() {
-        return statisticsHolder.getWriteCount();
+        return values[WRITE_COUNT];
     }
 
     public double getWritePerSecond() {
-        if (previousStats == null) {
-            return -1;
-        }
-        return StatisticsUtils.computePerSecond(getWriteCount(), getPrevious().getWriteCount(), getTimestamp(), getPreviousTimestamp());
+        return computePerSecond(WRITE_COUNT);
     }
 
     public long getReadCount() {
         // read and read multiple
-        return statisticsHolder.getReadCount() + statisticsHolder.getReadMultipleCount();
+        return values[READ_COUNT];
     }
 
     public double getReadPerSecond() {
-        if (previousStats == null) {
-            return -1;
-        }
-        return StatisticsUtils.computePerSecond(getReadCount(), getPrevious().getReadCount(), getTimestamp(), getPreviousTimestamp());
+        return computePerSecond(READ_COUNT);
     }
 
     public long getTakeCount() {
         // take and take multiple
-        return statisticsHolder.getTakeCount() + statisticsHolder.getTakeMultipleCount();
+        return values[TAKE_COUNT];
     }
 
     public double getTakePerSecond() {
-        if (previousStats == null) {
-            return -1;
-        }
-        return StatisticsUtils.computePerSecond(getTakeCount(), getPrevious().getTakeCount(), getTimestamp(), getPreviousTimestamp());
+        return computePerSecond(TAKE_COUNT);
     }
 
     public long getNotifyRegistrationCount() {
-        return statisticsHolder.getNotificationsRegistrationsCount();
+        return values[NOTIFY_REGISTRATION_COUNT];
     }
 
     public double getNotifyRegistrationPerSecond() {
-        if (previousStats == null) {
-            return -1;
-        }
-        return StatisticsUtils.computePerSecond(getNotifyRegistrationCount(), getPrevious().getNotifyRegistrationCount(), getTimestamp(), getPreviousTimestamp());
+        return computePerSecond(NOTIFY_REGISTRATION_COUNT);
     }
 
     public long getCleanCount() {
-        return statisticsHolder.getCleanCount();
+        return values[CLEAN_COUNT];
     }
 
     public double getCleanPerSecond() {
-        if (previousStats == null) {
-            return -1;
-        }
-        return StatisticsUtils.computePerSecond(getCleanCount(), getPrevious().getCleanCount(), getTimestamp(), getPreviousTimestamp());
+        return computePerSecond(CLEAN_COUNT);
     }
 
     public long getUpdateCount() {
-        return statisticsHolder.getUpdateCount();
+        return values[UPDATE_COUNT];
     }
 
     public double getUpdatePerSecond() {
-        if (previousStats == null) {
-            return -1;
-        }
-        return StatisticsUtils.computePerSecond(getUpdateCount(), getPrevious().getUpdateCount(), getTimestamp(), getPreviousTimestamp());
+        return computePerSecond(UPDATE_COUNT);
     }
 
     public long getNotifyTriggerCount() {
-        return statisticsHolder.getNotificationsTriggeredCount();
+        return values[NOTIFY_TRIGGER_COUNT];
     }
 
     public double getNotifyTriggerPerSecond() {
-        if (previousStats == null) {
-            return -1;
-        }
-        return StatisticsUtils.computePerSecond(getNotifyTriggerCount(), getPrevious().getNotifyTriggerCount(), getTimestamp(), getPreviousTimestamp());
+        return computePerSecond(NOTIFY_TRIGGER_COUNT);
     }
 
     public long getNotifyAckCount() {
-        return statisticsHolder.getNotificationsAcksCount();
+        return values[NOTIFY_ACK_COUNT];
     }
 
     public double getNotifyAckPerSecond() {
-        if (previousStats == null) {
-            return -1;
-        }
-        return StatisticsUtils.computePerSecond(getNotifyAckCount(), getPrevious().getNotifyAckCount(), getTimestamp(), getPreviousTimestamp());
+        return computePerSecond(NOTIFY_ACK_COUNT);
     }
 
     public long getExecuteCount() {
-        return statisticsHolder.getTaskExecutionsCount();
+        return values[EXECUTE_COUNT];
     }
 
     public double getExecutePerSecond() {
-        if (previousStats == null) {
-            return -1;
-        }
-        return StatisticsUtils.computePerSecond(getExecuteCount(), getPrevious().getExecuteCount(), getTimestamp(), getPreviousTimestamp());
+        return computePerSecond(EXECUTE_COUNT);
     }
 
     /**
      * Remove happens when an entry is removed due to lease expiration or lease cancel.
      */
     public long getRemoveCount() {
-        return statisticsHolder.getLeaseExpiredOrCanceledCount();
+        return values[REMOVE_COUNT];
     }
 
     public double getRemovePerSecond() {
-        if (previousStats == null) {
-            return -1;
-        }
-        return StatisticsUtils.computePerSecond(getRemoveCount(), getPrevious().getRemoveCount(), getTimestamp(), getPreviousTimestamp());
+        return computePerSecond(REMOVE_COUNT);
     }
     
     @Override
     public long getChangeCount() {
-        return statisticsHolder.getChangeCount();
+        return values[CHANGE_COUNT];
     }
     
     @Override
     public double getChangePerSecond() {
-        if (previousStats == null) {
-            return -1;
-        }
-        return StatisticsUtils.computePerSecond(getChangeCount(), getPrevious().getChangeCount(), getTimestamp(), getPreviousTimestamp());
+        return computePerSecond(CHANGE_COUNT);
     }
 
     public ReplicationStatistics getReplicationStatistics() {
-        return statisticsHolder.getReplicationStatistics();
+        return replicationStatistics;
     }
     public MirrorStatistics getMirrorStatistics() {
-        return statisticsHolder.getMirrorStatistics();
+        return mirrorStatistics;
     }
     
     public int getProcessorQueueSize() {
-        return statisticsHolder.getProcessorQueueSize();
+        return (int) values[PROCESSOR_QUEUE_SIZE];
     }
     
     public int getNotifierQueueSize() {
-        return statisticsHolder.getNotifierQueueSize();
+        return (int) values[NOTIFIER_QUEUE_SIZE];
     }
 
     @Override
     public long getObjectCount() {
-        return statisticsHolder.getRuntimeStatisticsHolder().getObjectCount();
+        return values[OBJECT_COUNT];
     }
 
     @Override
     public long getNotifyTemplateCount() {
-        return statisticsHolder.getRuntimeStatisticsHolder().getNotifyTemplateCount();
+        return values[NOTIFY_TEMPLATE_COUNT];
     }
 
     @Override
     public long getActiveConnectionCount() {
-        return statisticsHolder.getRuntimeStatisticsHolder().getActiveConnectionCount();
+        return values[ACTIVE_CONNECTION_COUNT];
     }
 
     @Override
     public long getActiveTransactionCount() {
-        return statisticsHolder.getRuntimeStatisticsHolder().getActiveTransactionCount();
+        return values[ACTIVE_TRANSACTION_COUNT];
     }
 
 	@Override
@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.admin.internal.support;
+
+import java.util.Arrays;
+
+import org.openspaces.admin.support.StatisticsTimeSeries;
+
+/**
+ * Keeps the numeric values of the last statistics samples of a component in a ring of primitive arrays,
+ * one array per statistic, instead of a chain of statistics objects. Samples are identified by an ever
+ * increasing sequence number, once the history is full, appending a sample evicts the oldest one.
+ *
+ * <p>The arrays grow on demand up to the capacity, so components that are rarely sampled do not pay for
+ * the full history.
+ *
+ * @since 11.0
+ */
+public class StatisticsHistory {
+
+    private static final int INITIAL_LENGTH = 8;
+
+    private final String[] longNames;
+
+    private final String[] doubleNames;
+
+    private int capacity;
+
+    private long[] timestamps;
+
+    private long[] adminTimestamps;
+
+    private long[][] longValues;
+
+    private double[][] doubleValues;
+
+    // the sequence of the oldest sample kept
+    private long firstSequence;
+
+    // the sequence of the next sample to be appended
+    private long endSequence;
+
+    /**
+     * @param longNames   the names of the statistics with integral values
+     * @param doubleNames the names of the statistics with floating point values
+     * @param capacity    the maximum number of samples kept
+     */
+    public StatisticsHistory(String[] longNames, String[] doubleNames, int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive, was [" + capacity + "]");
+        }
+        this.longNames = longNames;
+        this.doubleNames = doubleNames;
+        this.capacity = capacity;
+        allocate(Math.min(capacity, INITIAL_LENGTH));
+    }
+
+    /**
+     * Returns the capacity keeping as many samples as the chains of statistics objects used to keep for
+     * the given history size, the current sample and up to <code>historySize + 1</code> previous ones.
+     */
+    public static int capacityForHistorySize(int historySize) {
+        return historySize + 2;
+    }
+
+    public int getLongColumnCount() {
+        return longNames.length;
+    }
+
+    public int getDoubleColumnCount() {
+        return doubleNames.length;
+    }
+
+    /**
+     * Returns <code>true</code> if this history keeps the given statistics.
+     */
+    public boolean hasColumns(String[] longNames, String[] doubleNames) {
+        return Arrays.equals(this.longNames, longNames) && Arrays.equals(this.doubleNames, doubleNames);
+    }
+
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Changes the maximum number of samples kept, evicting the oldest samples if needed.
+     */
+    public synchronized void setCapacity(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive, was [" + capacity + "]");
+        }
+        this.capacity = capacity;
+        firstSequence = Math.max(firstSequence, endSequence - capacity);
+        relayout(Math.min(capacity, Math.max(size(), INITIAL_LENGTH)));
+    }
+
+    /**
+     * Returns the number of samples kept.
+     */
+    public synchronized int size() {
+        return (int) (endSequence - firstSequence);
+    }
+
+    /**
+     * Appends a sample, evicting the oldest one if the history is full.
+     *
+     * @return the sequence of the appended sample
+     */
+    public synchronized long append(long timestamp, long adminTimestamp, long[] longs, double[] doubles) {
+        int size = size();
+        if (size == capacity) {
+            firstSequence++;
+        } else if (size == timestamps.length) {
+            relayout(Math.min(capacity, timestamps.length * 2));
+        }
+        int slot = slot(endSequence);
+        timestamps[slot] = timestamp;
+        adminTimestamps[slot] = adminTimestamp;
+        for (int i = 0; i < longValues.length; i++) {
+            longValues[i][slot] = longs[i];
+        }
+        for (int i = 0; i < doubleValues.length; i++) {
+            doubleValues[i][slot] = doubles[i];
+        }
+        return endSequence++;
+    }
+
+    /**
+     * Removes all the samples. Sequences of removed samples are never reused.
+     */
+    public synchronized void clear() {
+        firstSequence = endSequence;
+    }
+
+    public synchronized boolean contains(long sequence) {
+        return sequence >= firstSequence && sequence < endSequence;
+    }
+
+    /**
+     * Copies the given sample into the given arrays. <code>times</code> receives the timestamp and the
+     * admin timestamp.
+     *
+     * @return <code>false</code> if the sample is no longer kept
+     */
+    public synchronized boolean read(long sequence, long[] times, long[] longs, double[] doubles) {
+        if (!contains(sequence)) {
+            return false;
+        }
+        int slot = slot(sequence);
+        times[0] = timestamps[slot];
+        times[1] = adminTimestamps[slot];
+        for (int i = 0; i < longValues.length; i++) {
+            longs[i] = longValues[i][slot];
+        }
+        for (int i = 0; i < doubleValues.length; i++) {
+            doubles[i] = doubleValues[i][slot];
+        }
+        return true;
+    }
+
+    /**
+     * Returns the timestamp of the given sample, or <code>-1</code> if it is no longer kept.
+     */
+    public synchronized long getTimestamp(long sequence) {
+        if (!contains(sequence)) {
+            return -1;
+        }
+        return timestamps[slot(sequence)];
+    }
+
+    /**
+     * Returns the value of the given integral statistic of the given sample, or <code>-1</code> if it is
+     * no longer kept.
+     */
+    public synchronized long getLongValue(long sequence, int column) {
+        if (!contains(sequence)) {
+            return -1;
+        }
+        return longValues[column][slot(sequence)];
+    }
+
+    /**
+     * Returns the value of the given floating point statistic of the given sample, or <code>-1</code> if
+     * it is no longer kept.
+     */
+    public synchronized double getDoubleValue(long sequence, int column) {
+        if (!contains(sequence)) {
+            return -1;
+        }
+        return doubleValues[column][slot(sequence)];
+    }
+
+    /**
+     * Copies the samples taken after the given timestamp (not included), from the oldest to the newest.
+     */
+    public synchronized StatisticsTimeSeries getTimeSeries(long fromTimestamp) {
+        int count = 0;
+        for (long sequence = firstSequence; sequence < endSequence; sequence++) {
+            if (timestamps[slot(sequence)] > fromTimestamp) {
+                count++;
+            }
+        }
+        long[] seriesTimestamps = new long[count];
+        long[] seriesAdminTimestamps = new long[count];
+        long[][] seriesLongValues = new long[longValues.length][count];
+        double[][] seriesDoubleValues = new double[doubleValues.length][count];
+        int index = 0;
+        for (long sequence = firstSequence; sequence < endSequence; sequence++) {
+            int slot = slot(sequence);
+            if (timestamps[slot] <= fromTimestamp) {
+                continue;
+            }
+            seriesTimestamps[index] = timestamps[slot];
+            seriesAdminTimestamps[index] = adminTimestamps[slot];
+            for (int i = 0; i < longValues.length; i++) {
+                seriesLongValues[i][index] = longValues[i][slot];
+            }
+            for (int i = 0; i < doubleValues.length; i++) {
+                seriesDoubleValues[i][index] = doubleValues[i][slot];
+            }
+            index++;
+        }
+        return new StatisticsTimeSeries(seriesTimestamps, seriesAdminTimestamps, longNames.clone(), seriesLongValues,
+                doubleNames.clone(), seriesDoubleValues);
+    }
+
+    private int slot(long sequence) {
+        return (int) (sequence % timestamps.length);
+    }
+
+    private void allocate(int length) {
+        timestamps = new long[length];
+        adminTimestamps = new long[length];
+        longValues = new long[longNames.length][length];
+        doubleValues = new double[doubleNames.length][length];
+    }
+
+    // moves the kept samples to arrays of the given length, the slot of a sample depends on the length
+    private void relayout(int length) {
+        long[] oldTimestamps = timestamps;
+        long[] oldAdminTimestamps = adminTimestamps;
+        long[][] oldLongValues = longValues;
+        double[][] oldDoubleValues = doubleValues;
+        allocate(length);
+        for (long sequence = firstSequence; sequence < endSequence; sequence++) {
+            int oldSlot = (int) (sequence % oldTimestamps.length);
+            int slot = slot(sequence);
+            timestamps[slot] = oldTimestamps[oldSlot];
+            adminTimestamps[slot] = oldAdminTimestamps[oldSlot];
+            for (int i = 0; i < longValues.length; i++) {
+                longValues[i][slot] = oldLongValues[i][oldSlot];
+            }
+            for (int i = 0; i < doubleValues.length; i++) {
+                doubleValues[i][slot] = oldDoubleValues[i][oldSlot];
+            }
+        }
+    }
+}
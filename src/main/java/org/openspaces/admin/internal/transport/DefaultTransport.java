@@ -24,10 +24,12 @@ import java.util.concurrent.TimeUnit;
 
 import org.openspaces.admin.AdminException;
 import org.openspaces.admin.StatisticsMonitor;
+import org.openspaces.admin.internal.admin.HostStatisticsCollector;
 import org.openspaces.admin.internal.admin.InternalAdmin;
 import org.openspaces.admin.internal.transport.events.DefaultTransportStatisticsChangedEventManager;
+import org.openspaces.admin.internal.support.StatisticsHistory;
 import org.openspaces.admin.internal.transport.events.InternalTransportStatisticsChangedEventManager;
-import org.openspaces.admin.transport.Transport;
+import org.openspaces.admin.support.StatisticsTimeSeries;
 import org.openspaces.admin.transport.TransportDetails;
 import org.openspaces.admin.transport.TransportLRMIMonitoring;
 import org.openspaces.admin.transport.TransportStatistics;
@@ -42,6 +44,7 @@ import com.gigaspaces.lrmi.LRMIOutboundMonitoringDetails;
 import com.gigaspaces.lrmi.LRMIProxyMonitoringDetails;
 import com.gigaspaces.lrmi.LRMIServiceMonitoringDetails;
 import com.gigaspaces.lrmi.nio.info.NIODetails;
+import com.gigaspaces.lrmi.nio.info.NIOStatistics;
 import com.j_spaces.kernel.time.SystemTime;
 
 /**
@@ -63,12 +66,12 @@ public class DefaultTransport implements InternalTransport, TransportLRMIMonitor
 
     private long statisticsInterval = StatisticsMonitor.DEFAULT_MONITOR_INTERVAL;
 
-    private int statisticsHistorySize = StatisticsMonitor.DEFAULT_HISTORY_SIZE;
-
     private long lastStatisticsTimestamp = 0;
 
     private TransportStatistics lastStatistics;
 
+    private final StatisticsHistory statisticsHistory = DefaultTransportStatistics.createHistory(StatisticsMonitor.DEFAULT_HISTORY_SIZE);
+
     private Future scheduledStatisticsMonitor;
     
     private int scheduledStatisticsRefCount = 0;
@@ -137,27 +140,53 @@ public class DefaultTransport implements InternalTransport, TransportLRMIMonitor
 
     private static final TransportStatistics NA_TRANSPORT_STATS = new DefaultTransportStatistics();
 
-    public synchronized TransportStatistics getStatistics() {
-        long currentTime = SystemTime.timeMillis();
-        if ((currentTime - lastStatisticsTimestamp) < statisticsInterval) {
-            return lastStatistics;
+    public TransportStatistics getStatistics() {
+        synchronized (this) {
+            long currentTime = SystemTime.timeMillis();
+            if ((currentTime - lastStatisticsTimestamp) < statisticsInterval) {
+                return lastStatistics;
+            }
+            // claim the fetch, concurrent callers get the last statistics instead of waiting on the remote call
+            lastStatisticsTimestamp = currentTime;
+        }
+        return updateStatistics(fetchNIOStatistics());
+    }
+
+    /**
+     * Returns the statistics of this transport from the first provider that answers, or <code>null</code>
+     * if none did. Does not hold the transport lock during the remote calls.
+     */
+    private NIOStatistics fetchNIOStatistics() {
+        if (getVirtualMachine().getMachine() == null) {
+            return null; //machine has not yet been set
         }
-        TransportStatistics previousStats = lastStatistics;
-        lastStatistics = NA_TRANSPORT_STATS;
-        lastStatisticsTimestamp = currentTime;
         for (InternalTransportInfoProvider provider : transportInfoProviders) {
             try {
-                if (getVirtualMachine().getMachine() == null) 
-                    continue; //machine has not yet been set
-                lastStatistics = new DefaultTransportStatistics(provider.getNIOStatistics(), previousStats, getDetails(), statisticsHistorySize, getVirtualMachine().getMachine().getOperatingSystem().getTimeDelta());
-                break;
+                return provider.getNIOStatistics();
             } catch (RemoteException e) {
                 // failed to get it, try next one
             }
         }
+        return null;
+    }
+
+    /**
+     * Updates the statistics from the given sample, or to not available if it is <code>null</code>.
+     */
+    private synchronized TransportStatistics updateStatistics(NIOStatistics nioStatistics) {
+        lastStatisticsTimestamp = SystemTime.timeMillis();
+        if (nioStatistics == null || getVirtualMachine().getMachine() == null) {
+            lastStatistics = NA_TRANSPORT_STATS;
+        } else {
+            lastStatistics = new DefaultTransportStatistics(nioStatistics, lastStatistics, getDetails(), statisticsHistory, getVirtualMachine().getMachine().getOperatingSystem().getTimeDelta());
+        }
         return lastStatistics;
     }
 
+    public StatisticsTimeSeries getStatisticsTimeSeries(long fromTimestamp) {
+        return statisticsHistory.getTimeSeries(fromTimestamp);
+    }
+
     public synchronized void setStatisticsInterval(long interval, TimeUnit timeUnit) {
         this.statisticsInterval = timeUnit.toMillis(interval);
         if (scheduledStatisticsMonitor != null) {
@@ -167,7 +196,7 @@ public class DefaultTransport implements InternalTransport, TransportLRMIMonitor
     }
 
     public synchronized void setStatisticsHistorySize(int historySize) {
-        this.statisticsHistorySize = historySize;
+        statisticsHistory.setCapacity(StatisticsHistory.capacityForHistorySize(historySize));
     }
 
     public synchronized void startStatisticsMonitor() {
@@ -176,17 +205,33 @@ public class DefaultTransport implements InternalTransport, TransportLRMIMonitor
         if (scheduledStatisticsMonitor != null) {
             scheduledStatisticsMonitor.cancel(false);
         }
-        final Transport transport = this;
+        HostStatisticsCollector collector = admin.getStatisticsCollector();
+        if (collector != null) {
+            Object hostKey = getVirtualMachine() != null ? getVirtualMachine().getUid() : getUid();
+            scheduledStatisticsMonitor = collector.register(hostKey, new HostStatisticsCollector.StatisticsSource<NIOStatistics>() {
+                public NIOStatistics fetch() {
+                    return fetchNIOStatistics();
+                }
+
+                public void publish(NIOStatistics nioStatistics) {
+                    raiseStatisticsChangedEvent(updateStatistics(nioStatistics));
+                }
+            });
+            return;
+        }
         scheduledStatisticsMonitor = admin.scheduleWithFixedDelay(new Runnable() {
             public void run() {
-                TransportStatistics stats = transport.getStatistics();
-                TransportStatisticsChangedEvent event = new TransportStatisticsChangedEvent(transport, stats);
-                statisticsChangedEventManager.transportStatisticsChanged(event);
-                ((InternalTransportStatisticsChangedEventManager) transports.getTransportStatisticsChanged()).transportStatisticsChanged(event);
+                raiseStatisticsChangedEvent(getStatistics());
             }
         }, 0, statisticsInterval, TimeUnit.MILLISECONDS);
     }
 
+    private void raiseStatisticsChangedEvent(TransportStatistics stats) {
+        TransportStatisticsChangedEvent event = new TransportStatisticsChangedEvent(this, stats);
+        statisticsChangedEventManager.transportStatisticsChanged(event);
+        ((InternalTransportStatisticsChangedEventManager) transports.getTransportStatisticsChanged()).transportStatisticsChanged(event);
+    }
+
     public synchronized void stopStatisticsMonitor() {
         if (scheduledStatisticsRefCount!=0 && --scheduledStatisticsRefCount > 0) return;
         
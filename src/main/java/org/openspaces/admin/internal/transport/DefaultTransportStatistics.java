@@ -18,60 +18,103 @@
 package org.openspaces.admin.internal.transport;
 
 import com.gigaspaces.lrmi.nio.info.NIOStatistics;
+import org.openspaces.admin.internal.support.StatisticsHistory;
 import org.openspaces.admin.support.StatisticsUtils;
 import org.openspaces.admin.transport.TransportDetails;
 import org.openspaces.admin.transport.TransportStatistics;
 
 /**
+ * The numeric values are kept in a {@link StatisticsHistory} shared by all the statistics of the
+ * transport, and {@link #getPrevious()} returns statistics read back from it.
+ *
  * @author kimchy
  */
 public class DefaultTransportStatistics implements TransportStatistics {
 
-    private final static NIOStatistics NA_STATS = new NIOStatistics();
+    static final String[] LONG_STATISTICS = {"completedTaskCount", "activeThreadsCount", "queueSize"};
+
+    static final String[] DOUBLE_STATISTICS = {};
 
-    private final long timeDelta;
+    private static final int COMPLETED_TASK_COUNT = 0;
+    private static final int ACTIVE_THREADS_COUNT = 1;
+    private static final int QUEUE_SIZE = 2;
 
-    private final NIOStatistics stats;
+    private final static NIOStatistics NA_STATS = new NIOStatistics();
 
-    private volatile TransportStatistics previousStats;
+    private final boolean na;
 
     private final TransportDetails details;
 
+    private final StatisticsHistory history;
+
+    private final long sequence;
+
+    private final long timestamp;
+
+    private final long adminTimestamp;
+
+    private final long[] values;
+
+    public static StatisticsHistory createHistory(int historySize) {
+        return new StatisticsHistory(LONG_STATISTICS, DOUBLE_STATISTICS, StatisticsHistory.capacityForHistorySize(historySize));
+    }
+
     public DefaultTransportStatistics() {
-        this(NA_STATS, null, null, 0, -1);
+        this(NA_STATS, null, null, null, -1);
     }
 
-    public DefaultTransportStatistics(NIOStatistics stats, TransportStatistics previousStats, TransportDetails details, int historySize, long timeDelta) {
-        this.stats = stats;
-        this.previousStats = previousStats;
+    /**
+     * @param previousStats the statistics returned before these ones, used to make sure the history does
+     *                      not span unavailable statistics
+     * @param history       the history the statistics are appended to, may be <code>null</code>
+     */
+    public DefaultTransportStatistics(NIOStatistics stats, TransportStatistics previousStats, TransportDetails details,
+                                      StatisticsHistory history, long timeDelta) {
+        this.na = stats.isNA();
         this.details = details;
-        this.timeDelta = timeDelta;
-
-        TransportStatistics lastStats = previousStats;
-        if (lastStats != null) {
-            for (int i = 0; i < historySize; i++) {
-                if (lastStats.getPrevious() == null) {
-                    break;
-                }
-                lastStats = lastStats.getPrevious();
+        this.history = history;
+        this.timestamp = stats.getTimestamp();
+        if (timestamp != -1 && timeDelta != Integer.MIN_VALUE) {
+            this.adminTimestamp = timestamp + timeDelta;
+        } else {
+            this.adminTimestamp = -1;
+        }
+        this.values = new long[]{stats.getCompletedTaskCount(), stats.getActiveThreadsCount(), stats.getQueueSize()};
+
+        DefaultTransportStatistics previous = (DefaultTransportStatistics) previousStats;
+        if (history == null) {
+            this.sequence = -1;
+        } else if (na) {
+            history.clear();
+            this.sequence = -1;
+        } else {
+            if (previous == null || previous.isNA() || previous.history != history || !history.contains(previous.sequence)) {
+                history.clear();
             }
-            ((DefaultTransportStatistics) lastStats).setPreviousStats(null);
+            this.sequence = history.append(timestamp, adminTimestamp, values, new double[0]);
         }
     }
 
+    private DefaultTransportStatistics(TransportDetails details, StatisticsHistory history, long sequence, long[] times, long[] values) {
+        this.na = false;
+        this.details = details;
+        this.history = history;
+        this.sequence = sequence;
+        this.timestamp = times[0];
+        this.adminTimestamp = times[1];
+        this.values = values;
+    }
+
     public boolean isNA() {
-        return stats.isNA();
+        return na;
     }
 
     public long getTimestamp() {
-        return stats.getTimestamp();
+        return timestamp;
     }
 
     public long getAdminTimestamp() {
-        if (stats.getTimestamp() != -1 && timeDelta != Integer.MIN_VALUE) {
-            return stats.getTimestamp() + timeDelta;
-        }
-        return -1;
+        return adminTimestamp;
     }
     
     public TransportDetails getDetails() {
@@ -79,33 +122,43 @@ public class DefaultTransportStatistics implements TransportStatistics {
     }
 
     public long getPreviousTimestamp() {
-        if (previousStats == null) {
+        if (history == null || sequence < 1) {
             return -1;
         }
-        return previousStats.getTimestamp();
+        return history.getTimestamp(sequence - 1);
     }
 
     public TransportStatistics getPrevious() {
-        return this.previousStats;
-    }
-
-    public void setPreviousStats(TransportStatistics previousStats) {
-        this.previousStats = previousStats;
+        if (history == null || sequence < 1) {
+            return null;
+        }
+        long[] times = new long[2];
+        long[] previousValues = new long[LONG_STATISTICS.length];
+        if (!history.read(sequence - 1, times, previousValues, new double[0])) {
+            return null;
+        }
+        return new DefaultTransportStatistics(details, history, sequence - 1, times, previousValues);
     }
 
     public long getCompletedTaskCount() {
-        return stats.getCompletedTaskCount();
+        return values[COMPLETED_TASK_COUNT];
     }
 
     public double getCompletedTaskPerSecond() {
-        if (previousStats == null) {
+        if (history == null || sequence < 1) {
             return -1;
         }
-        return StatisticsUtils.computePerSecond(getCompletedTaskCount(), getPrevious().getCompletedTaskCount(), getTimestamp(), getPreviousTimestamp());
+        synchronized (history) {
+            if (!history.contains(sequence - 1)) {
+                return -1;
+            }
+            return StatisticsUtils.computePerSecond(getCompletedTaskCount(), history.getLongValue(sequence - 1, COMPLETED_TASK_COUNT),
+                    getTimestamp(), history.getTimestamp(sequence - 1));
+        }
     }
 
     public int getActiveThreadsCount() {
-        return stats.getActiveThreadsCount();
+        return (int) values[ACTIVE_THREADS_COUNT];
     }
 
     public double getActiveThreadsPerc() {
@@ -113,6 +166,6 @@ public class DefaultTransportStatistics implements TransportStatistics {
     }
 
     public int getQueueSize() {
-        return stats.getQueueSize();
+        return (int) values[QUEUE_SIZE];
     }
 }
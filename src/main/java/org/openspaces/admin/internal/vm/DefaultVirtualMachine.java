@@ -18,6 +18,7 @@
 package org.openspaces.admin.internal.vm;
 
 import com.gigaspaces.internal.jvm.JVMDetails;
+import com.gigaspaces.internal.jvm.JVMStatistics;
 import com.j_spaces.kernel.SizeConcurrentHashMap;
 import com.j_spaces.kernel.time.SystemTime;
 import org.openspaces.admin.StatisticsMonitor;
@@ -29,6 +30,7 @@ import org.openspaces.admin.gsc.GridServiceContainer;
 import org.openspaces.admin.gsc.GridServiceContainers;
 import org.openspaces.admin.gsm.GridServiceManager;
 import org.openspaces.admin.gsm.GridServiceManagers;
+import org.openspaces.admin.internal.admin.HostStatisticsCollector;
 import org.openspaces.admin.internal.admin.InternalAdmin;
 import org.openspaces.admin.internal.esm.DefaultElasticServiceManagers;
 import org.openspaces.admin.internal.esm.InternalElasticServiceManagers;
@@ -44,6 +46,7 @@ import org.openspaces.admin.internal.pu.DefaultProcessingUnitInstances;
 import org.openspaces.admin.internal.pu.InternalProcessingUnitInstances;
 import org.openspaces.admin.internal.space.DefaultSpaceInstances;
 import org.openspaces.admin.internal.space.InternalSpaceInstances;
+import org.openspaces.admin.internal.support.StatisticsHistory;
 import org.openspaces.admin.internal.vm.events.DefaultVirtualMachineStatisticsChangedEventManager;
 import org.openspaces.admin.internal.vm.events.InternalVirtualMachineStatisticsChangedEventManager;
 import org.openspaces.admin.lus.LookupService;
@@ -57,7 +60,7 @@ import org.openspaces.admin.space.SpaceInstance;
 import org.openspaces.admin.space.events.SpaceInstanceAddedEventManager;
 import org.openspaces.admin.space.events.SpaceInstanceLifecycleEventListener;
 import org.openspaces.admin.space.events.SpaceInstanceRemovedEventManager;
-import org.openspaces.admin.vm.VirtualMachine;
+import org.openspaces.admin.support.StatisticsTimeSeries;
 import org.openspaces.admin.vm.VirtualMachineDetails;
 import org.openspaces.admin.vm.VirtualMachineStatistics;
 import org.openspaces.admin.vm.events.VirtualMachineStatisticsChangedEvent;
@@ -104,12 +107,12 @@ public class DefaultVirtualMachine implements InternalVirtualMachine {
 
     private long statisticsInterval = StatisticsMonitor.DEFAULT_MONITOR_INTERVAL;
 
-    private int statisticsHistorySize = StatisticsMonitor.DEFAULT_HISTORY_SIZE;
-
     private long lastStatisticsTimestamp = 0;
 
     private VirtualMachineStatistics lastStatistics;
 
+    private final StatisticsHistory statisticsHistory = DefaultVirtualMachineStatistics.createHistory(StatisticsMonitor.DEFAULT_HISTORY_SIZE);
+
     private Future scheduledStatisticsMonitor;
     
     private int scheduledStatisticsRefCount = 0;
@@ -296,27 +299,54 @@ public class DefaultVirtualMachine implements InternalVirtualMachine {
 
     private static final VirtualMachineStatistics NA_STATS = new DefaultVirtualMachineStatistics();
 
-    public synchronized VirtualMachineStatistics getStatistics() {
-        long currentTime = SystemTime.timeMillis();
-        if ((currentTime - lastStatisticsTimestamp) < statisticsInterval) {
-            return lastStatistics;
+    public VirtualMachineStatistics getStatistics() {
+        synchronized (this) {
+            long currentTime = SystemTime.timeMillis();
+            if ((currentTime - lastStatisticsTimestamp) < statisticsInterval) {
+                return lastStatistics;
+            }
+            // claim the fetch, concurrent callers get the last statistics instead of waiting on the remote call
+            lastStatisticsTimestamp = currentTime;
+        }
+        return updateStatistics(fetchJVMStatistics());
+    }
+
+    /**
+     * Returns the statistics of this virtual machine from the first provider that answers, or
+     * <code>null</code> if none did. Does not hold the virtual machine lock during the remote calls.
+     */
+    private JVMStatistics fetchJVMStatistics() {
+        if (getMachine() == null) {
+            return null; //machine has not yet been set
         }
-        VirtualMachineStatistics previousStatistics = lastStatistics;
-        lastStatistics = NA_STATS;
-        lastStatisticsTimestamp = currentTime;
         Collection<InternalVirtualMachineInfoProvider> virtualMachineInfoProviders = virtualMachineInfoProvidersByUID.values();
         for (InternalVirtualMachineInfoProvider provider : virtualMachineInfoProviders) {
             try {
-                if (getMachine() == null) continue; //machine has not yet been set
-                lastStatistics = new DefaultVirtualMachineStatistics(provider.getJVMStatistics(), previousStatistics, getDetails(), statisticsHistorySize, getMachine().getOperatingSystem().getTimeDelta());
-                break;
+                return provider.getJVMStatistics();
             } catch (RemoteException e) {
                 // continue to the next one
             }
         }
+        return null;
+    }
+
+    /**
+     * Updates the statistics from the given sample, or to not available if it is <code>null</code>.
+     */
+    private synchronized VirtualMachineStatistics updateStatistics(JVMStatistics jvmStatistics) {
+        lastStatisticsTimestamp = SystemTime.timeMillis();
+        if (jvmStatistics == null || getMachine() == null) {
+            lastStatistics = NA_STATS;
+        } else {
+            lastStatistics = new DefaultVirtualMachineStatistics(jvmStatistics, lastStatistics, getDetails(), statisticsHistory, getMachine().getOperatingSystem().getTimeDelta());
+        }
         return lastStatistics;
     }
 
+    public StatisticsTimeSeries getStatisticsTimeSeries(long fromTimestamp) {
+        return statisticsHistory.getTimeSeries(fromTimestamp);
+    }
+
     public synchronized void setStatisticsInterval(long interval, TimeUnit timeUnit) {
         this.statisticsInterval = timeUnit.toMillis(interval);
         if (scheduledStatisticsMonitor != null) {
@@ -326,7 +356,7 @@ public class DefaultVirtualMachine implements InternalVirtualMachine {
     }
 
     public synchronized void setStatisticsHistorySize(int historySize) {
-        this.statisticsHistorySize = historySize;
+        statisticsHistory.setCapacity(StatisticsHistory.capacityForHistorySize(historySize));
     }
 
     public synchronized void startStatisticsMonitor() {
@@ -335,17 +365,32 @@ public class DefaultVirtualMachine implements InternalVirtualMachine {
         if (scheduledStatisticsMonitor != null) {
             scheduledStatisticsMonitor.cancel(false);
         }
-        final VirtualMachine virtualMachine = this;
+        HostStatisticsCollector collector = admin.getStatisticsCollector();
+        if (collector != null) {
+            scheduledStatisticsMonitor = collector.register(getUid(), new HostStatisticsCollector.StatisticsSource<JVMStatistics>() {
+                public JVMStatistics fetch() {
+                    return fetchJVMStatistics();
+                }
+
+                public void publish(JVMStatistics jvmStatistics) {
+                    raiseStatisticsChangedEvent(updateStatistics(jvmStatistics));
+                }
+            });
+            return;
+        }
         scheduledStatisticsMonitor = admin.scheduleWithFixedDelay(new Runnable() {
             public void run() {
-                VirtualMachineStatistics stats = virtualMachine.getStatistics();
-                VirtualMachineStatisticsChangedEvent event = new VirtualMachineStatisticsChangedEvent(virtualMachine, stats);
-                statisticsChangedEventManager.virtualMachineStatisticsChanged(event);
-                ((InternalVirtualMachineStatisticsChangedEventManager) virtualMachines.getVirtualMachineStatisticsChanged()).virtualMachineStatisticsChanged(event);
+                raiseStatisticsChangedEvent(getStatistics());
             }
         }, 0, statisticsInterval, TimeUnit.MILLISECONDS);
     }
 
+    private void raiseStatisticsChangedEvent(VirtualMachineStatistics stats) {
+        VirtualMachineStatisticsChangedEvent event = new VirtualMachineStatisticsChangedEvent(this, stats);
+        statisticsChangedEventManager.virtualMachineStatisticsChanged(event);
+        ((InternalVirtualMachineStatisticsChangedEventManager) virtualMachines.getVirtualMachineStatisticsChanged()).virtualMachineStatisticsChanged(event);
+    }
+
     public synchronized void stopStatisticsMonitor() {
         if (scheduledStatisticsRefCount!=0 && --scheduledStatisticsRefCount > 0) return;
         
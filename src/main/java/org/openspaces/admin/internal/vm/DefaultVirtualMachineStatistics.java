@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+import org.openspaces.admin.internal.support.StatisticsHistory;
 import org.openspaces.admin.support.StatisticsUtils;
 import org.openspaces.admin.vm.VirtualMachineDetails;
 import org.openspaces.admin.vm.VirtualMachineStatistics;
@@ -28,72 +29,127 @@ import org.openspaces.admin.vm.VirtualMachineStatistics;
 import com.gigaspaces.internal.jvm.JVMStatistics;
 
 /**
+ * The numeric values are kept in a {@link StatisticsHistory} shared by all the statistics of the virtual
+ * machine, and {@link #getPrevious()} returns statistics read back from it.
+ *
  * @author kimchy
  */
 public class DefaultVirtualMachineStatistics implements VirtualMachineStatistics {
 
-    private static final JVMStatistics NA_STATS = new JVMStatistics();
+    static final String[] LONG_STATISTICS = {"uptime", "memoryHeapCommittedInBytes", "memoryHeapUsedInBytes",
+            "memoryNonHeapCommittedInBytes", "memoryNonHeapUsedInBytes", "threadCount", "peakThreadCount",
+            "gcCollectionCount", "gcCollectionTime"};
+
+    static final String[] DOUBLE_STATISTICS = {"cpuPerc", "gcCollectionPerc"};
+
+    private static final int UPTIME = 0;
+    private static final int MEMORY_HEAP_COMMITTED = 1;
+    private static final int MEMORY_HEAP_USED = 2;
+    private static final int MEMORY_NON_HEAP_COMMITTED = 3;
+    private static final int MEMORY_NON_HEAP_USED = 4;
+    private static final int THREAD_COUNT = 5;
+    private static final int PEAK_THREAD_COUNT = 6;
+    private static final int GC_COLLECTION_COUNT = 7;
+    private static final int GC_COLLECTION_TIME = 8;
 
-    private final long timeDelta;
+    private static final int CPU_PERC = 0;
+    private static final int GC_COLLECTION_PERC = 1;
 
+    private static final JVMStatistics NA_STATS = new JVMStatistics();
+
+    // null for statistics read back from the history
     private final JVMStatistics stats;
 
     private final VirtualMachineDetails details;
 
-    private volatile VirtualMachineStatistics previousStats;
+    private final StatisticsHistory history;
+
+    private final long sequence;
+
+    private final long timestamp;
+
+    private final long adminTimestamp;
 
-    private final double cpuPerc;
-    
-    private final double gcCollectionPerc;
-    
     private final long previousTimeStamp;
-    
+
+    private final long[] values;
+
+    private final double[] doubleValues;
+
+    public static StatisticsHistory createHistory(int historySize) {
+        return new StatisticsHistory(LONG_STATISTICS, DOUBLE_STATISTICS, StatisticsHistory.capacityForHistorySize(historySize));
+    }
+
     public DefaultVirtualMachineStatistics() {
-        this(NA_STATS, null, null, 0, -1);
+        this(NA_STATS, null, null, null, -1);
     }
 
-    public DefaultVirtualMachineStatistics(JVMStatistics stats, VirtualMachineStatistics previousStats, VirtualMachineDetails details, int historySize, long timeDelta) {
+    /**
+     * @param previousStats the statistics returned before these ones, used to compute the cpu and gc
+     *                      percentages, and to make sure the history does not span unavailable statistics
+     * @param history       the history the statistics are appended to, may be <code>null</code>
+     */
+    public DefaultVirtualMachineStatistics(JVMStatistics stats, VirtualMachineStatistics previousStats, VirtualMachineDetails details,
+                                           StatisticsHistory history, long timeDelta) {
         this.stats = stats;
-        this.previousStats = previousStats;
         this.details = details;
-        this.timeDelta = timeDelta;
+        this.history = history;
+        this.timestamp = stats.getTimestamp();
+        if (timestamp != -1 && timeDelta != Integer.MIN_VALUE) {
+            this.adminTimestamp = timestamp + timeDelta;
+        } else {
+            this.adminTimestamp = -1;
+        }
+        this.values = new long[]{stats.getUptime(), stats.getMemoryHeapCommitted(), stats.getMemoryHeapUsed(),
+                stats.getMemoryNonHeapCommitted(), stats.getMemoryNonHeapUsed(), stats.getThreadCount(),
+                stats.getPeakThreadCount(), stats.getGcCollectionCount(), stats.getGcCollectionTime()};
+        this.doubleValues = new double[]{-1, -1};
 
-        if (previousStats == null) {
-            this.cpuPerc = -1;
-            this.gcCollectionPerc = -1;
+        DefaultVirtualMachineStatistics previous = (DefaultVirtualMachineStatistics) previousStats;
+        if (previous == null || previous.isNA()) {
             this.previousTimeStamp = -1;
-        } else { 
-            this.cpuPerc = stats.computeCpuPerc(((DefaultVirtualMachineStatistics)previousStats).stats);
-            this.previousTimeStamp = previousStats.getTimestamp();
-            this.gcCollectionPerc = StatisticsUtils.computePercByTime(getGcCollectionTime(), previousStats.getGcCollectionTime(), getTimestamp(), previousTimeStamp);
+        } else {
+            this.doubleValues[CPU_PERC] = stats.computeCpuPerc(previous.stats);
+            this.previousTimeStamp = previous.getTimestamp();
+            this.doubleValues[GC_COLLECTION_PERC] = StatisticsUtils.computePercByTime(getGcCollectionTime(), previous.getGcCollectionTime(), getTimestamp(), previousTimeStamp);
         }
-        
-        VirtualMachineStatistics lastStats = previousStats;
-        
-        if (lastStats != null) {
-            for (int i = 0; i < historySize; i++) {
-                if (lastStats.getPrevious() == null) {
-                    break;
-                }
-                lastStats = lastStats.getPrevious();
+
+        if (history == null) {
+            this.sequence = -1;
+        } else if (isNA()) {
+            history.clear();
+            this.sequence = -1;
+        } else {
+            if (previousTimeStamp == -1 || previous.history != history || !history.contains(previous.sequence)) {
+                history.clear();
             }
-            ((DefaultVirtualMachineStatistics) lastStats).setPreviousStats(null);
+            this.sequence = history.append(timestamp, adminTimestamp, values, doubleValues);
         }
     }
 
+    private DefaultVirtualMachineStatistics(VirtualMachineDetails details, StatisticsHistory history, long sequence,
+                                            long[] times, long[] values, double[] doubleValues) {
+        this.stats = null;
+        this.details = details;
+        this.history = history;
+        this.sequence = sequence;
+        this.timestamp = times[0];
+        this.adminTimestamp = times[1];
+        this.previousTimeStamp = history.getTimestamp(sequence - 1);
+        this.values = values;
+        this.doubleValues = doubleValues;
+    }
+
     public boolean isNA() {
-        return stats.isNA();
+        return stats != null && stats.isNA();
     }
 
     public long getTimestamp() {
-        return stats.getTimestamp();
+        return timestamp;
     }
 
     public long getAdminTimestamp() {
-        if (stats.getTimestamp() != -1 && timeDelta != Integer.MIN_VALUE) {
-            return stats.getTimestamp() + timeDelta;
-        }
-        return -1;
+        return adminTimestamp;
     }
 
     public VirtualMachineDetails getDetails() {
@@ -112,11 +168,16 @@ public class DefaultVirtualMachineStatistics implements VirtualMachineStatistics
     }
 
     public VirtualMachineStatistics getPrevious() {
-        return previousStats;
-    }
-
-    public void setPreviousStats(VirtualMachineStatistics previousStats) {
-        this.previousStats = previousStats;
+        if (history == null || sequence < 1) {
+            return null;
+        }
+        long[] times = new long[2];
+        long[] previousValues = new long[LONG_STATISTICS.length];
+        double[] previousDoubleValues = new double[DOUBLE_STATISTICS.length];
+        if (!history.read(sequence - 1, times, previousValues, previousDoubleValues)) {
+            return null;
+        }
+        return new DefaultVirtualMachineStatistics(details, history, sequence - 1, times, previousValues, previousDoubleValues);
     }
 
     public long getPreviousTimestamp() {
@@ -124,11 +185,11 @@ public class DefaultVirtualMachineStatistics implements VirtualMachineStatistics
     }
 
     public long getUptime() {
-        return stats.getUptime();
+        return values[UPTIME];
     }
 
     public long getMemoryHeapCommittedInBytes() {
-        return stats.getMemoryHeapCommitted();
+        return values[MEMORY_HEAP_COMMITTED];
     }
 
     public double getMemoryHeapCommittedInMB() {
@@ -140,7 +201,7 @@ public class DefaultVirtualMachineStatistics implements VirtualMachineStatistics
     }
 
     public long getMemoryHeapUsedInBytes() {
-        return stats.getMemoryHeapUsed();
+        return values[MEMORY_HEAP_USED];
     }
 
     public double getMemoryHeapUsedInMB() {
@@ -164,7 +225,7 @@ public class DefaultVirtualMachineStatistics implements VirtualMachineStatistics
     }
 
     public long getMemoryNonHeapCommittedInBytes() {
-        return stats.getMemoryNonHeapCommitted();
+        return values[MEMORY_NON_HEAP_COMMITTED];
     }
 
     public double getMemoryNonHeapCommittedInMB() {
@@ -176,7 +237,7 @@ public class DefaultVirtualMachineStatistics implements VirtualMachineStatistics
     }
 
     public long getMemoryNonHeapUsedInBytes() {
-        return stats.getMemoryNonHeapUsed();
+        return values[MEMORY_NON_HEAP_USED];
     }
 
     public double getMemoryNonHeapUsedInMB() {
@@ -200,31 +261,36 @@ public class DefaultVirtualMachineStatistics implements VirtualMachineStatistics
     }
 
     public int getThreadCount() {
-        return stats.getThreadCount();
+        return (int) values[THREAD_COUNT];
     }
 
     public int getPeakThreadCount() {
-        return stats.getPeakThreadCount();
+        return (int) values[PEAK_THREAD_COUNT];
     }
 
     public long getGcCollectionCount() {
-        return stats.getGcCollectionCount();
+        return values[GC_COLLECTION_COUNT];
     }
 
     public long getGcCollectionTime() {
-        return stats.getGcCollectionTime();
+        return values[GC_COLLECTION_TIME];
     }
 
     @Override
     public double getGcCollectionPerc() {
-       return gcCollectionPerc;
+       return doubleValues[GC_COLLECTION_PERC];
     }
 
     @Override
     public double getCpuPerc() {
-        return cpuPerc;
+        return doubleValues[CPU_PERC];
     }
 
+    /**
+     * Each sample in the history holds the cpu percentage over the interval since the sample before it,
+     * so the cpu percentage since an older sample is the average of the intervals in between, weighted
+     * by their duration.
+     */
     public double getCpuPercAverage(long requestedTotalTime, TimeUnit timeUnit) {
         if (requestedTotalTime <= 0) {
             throw new IllegalArgumentException("Total time has to be positive");
@@ -232,50 +298,43 @@ public class DefaultVirtualMachineStatistics implements VirtualMachineStatistics
         
         long requestedTotalTimeMillis = TimeUnit.MILLISECONDS.convert(requestedTotalTime, timeUnit);
 
-        long endTimeStamp = stats.getTimestamp();
-        
-        DefaultVirtualMachineStatistics start = (DefaultVirtualMachineStatistics)getPrevious();
-        
-        if (start == null) {
+        if (history == null || sequence < 0) {
             return -1;
         }
-        
-        DefaultVirtualMachineStatistics previousStart = null;
-
-        long duration = endTimeStamp - start.getTimestamp();
-        long previousDuration = 0;
-        while (duration < requestedTotalTimeMillis) {
-            previousStart = start;
-            previousDuration = duration;
-            
-            start = (DefaultVirtualMachineStatistics)previousStart.getPrevious();
-            
-            if (start == null) {
-                return -1;
+
+        synchronized (history) {
+            long endTimeStamp = timestamp;
+            long start = sequence;
+            long duration = 0;
+            double cpuTime = 0;
+            long previousDuration;
+            double previousCpuTime;
+            do {
+                if (!history.contains(start - 1)) {
+                    return -1;
+                }
+                previousDuration = duration;
+                previousCpuTime = cpuTime;
+
+                long intervalStartTimeStamp = history.getTimestamp(start - 1);
+                long intervalEndTimeStamp = (start == sequence) ? timestamp : history.getTimestamp(start);
+                cpuTime += history.getDoubleValue(start, CPU_PERC) * (intervalEndTimeStamp - intervalStartTimeStamp);
+                start--;
+
+                duration = endTimeStamp - intervalStartTimeStamp;
+            } while (duration < requestedTotalTimeMillis);
+
+            if (previousDuration == 0) {
+                return cpuTime / duration;
             }
-            
-            duration = endTimeStamp - start.getTimestamp();
-        }
-        
-        if (duration == previousDuration) {
-            throw new IllegalStateException("This can never happen");
-        } 
-        
-        double result;
-        
-        if (previousDuration == 0) {
-            result = stats.computeCpuPerc(start.stats);
-        } else {
             // weighted average of duration and previousDuration to get a precise average based on the requestedTotalTime
             long timeSlot = duration - previousDuration;
             double rightWeight = (double)(requestedTotalTimeMillis - previousDuration) / timeSlot;
             double leftWeight = (double)(duration - requestedTotalTimeMillis) / timeSlot;
-            
-            result = rightWeight * stats.computeCpuPerc(start.stats) +
-                     leftWeight  * stats.computeCpuPerc(previousStart.stats);
-        }
 
-        return result;
+            return rightWeight * (cpuTime / duration) +
+                   leftWeight  * (previousCpuTime / previousDuration);
+        }
     }
     
     public String getCpuPercFormatted() {
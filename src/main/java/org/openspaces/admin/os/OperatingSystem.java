@@ -19,6 +19,7 @@ package org.openspaces.admin.os;
 import org.openspaces.admin.AdminAware;
 import org.openspaces.admin.StatisticsMonitor;
 import org.openspaces.admin.os.events.OperatingSystemStatisticsChangedEventManager;
+import org.openspaces.admin.support.StatisticsTimeSeries;
 
 /**
  * An operating system is a virtual entity that container information about the operating system one
@@ -55,6 +56,14 @@ public interface OperatingSystem extends AdminAware, StatisticsMonitor {
      */
     OperatingSystemStatistics getStatistics();
 
+    /**
+     * Returns the statistics history of the operating system taken after the given timestamp (not included),
+     * as one array per statistic, from the oldest to the newest. Holds the statistics already collected,
+     * up to the statistics history size.
+     * @since 11.0
+     */
+    StatisticsTimeSeries getStatisticsTimeSeries(long fromTimestamp);
+
     /**
      * Allows to register for {@link org.openspaces.admin.os.events.OperatingSystemStatisticsChangedEventListener}s.
      *
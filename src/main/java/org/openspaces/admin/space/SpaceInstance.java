@@ -39,6 +39,7 @@ import org.openspaces.admin.StatisticsMonitor;
 import org.openspaces.admin.space.events.ReplicationStatusChangedEventManager;
 import org.openspaces.admin.space.events.SpaceInstanceStatisticsChangedEventManager;
 import org.openspaces.admin.space.events.SpaceModeChangedEventManager;
+import org.openspaces.admin.support.StatisticsTimeSeries;
 import org.openspaces.core.GigaSpace;
 
 import java.util.concurrent.TimeUnit;
@@ -93,6 +94,14 @@ public interface SpaceInstance extends GridComponent, StatisticsMonitor {
      * Returns the space instance statistics.
      */
     SpaceInstanceStatistics getStatistics();
+
+    /**
+     * Returns the statistics history of the space instance taken after the given timestamp (not included),
+     * as one array per statistic, from the oldest to the newest. Holds the statistics already collected,
+     * up to the statistics history size.
+     * @since 11.0
+     */
+    StatisticsTimeSeries getStatisticsTimeSeries(long fromTimestamp);
     
     /**
      * Returns the space runtime information.
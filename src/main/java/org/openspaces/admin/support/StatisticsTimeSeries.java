@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.admin.support;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A bulk, column oriented, copy of the statistics history of a component. Each statistic is returned
+ * as a primitive array holding one value per sample, ordered from the oldest sample to the newest one,
+ * aligned with {@link #getTimestamps()}.
+ *
+ * <p>Statistics are named after the getter of the corresponding statistics interface (for example,
+ * <code>memoryHeapUsedInBytes</code> for {@link org.openspaces.admin.vm.VirtualMachineStatistics#getMemoryHeapUsedInBytes()}).
+ *
+ * <p>The returned arrays are owned by this time series and are not copied on each call, they should
+ * not be modified.
+ *
+ * @since 11.0
+ */
+public class StatisticsTimeSeries {
+
+    private final long[] timestamps;
+
+    private final long[] adminTimestamps;
+
+    private final String[] longNames;
+
+    private final long[][] longValues;
+
+    private final String[] doubleNames;
+
+    private final double[][] doubleValues;
+
+    public StatisticsTimeSeries(long[] timestamps, long[] adminTimestamps, String[] longNames, long[][] longValues,
+                                String[] doubleNames, double[][] doubleValues) {
+        this.timestamps = timestamps;
+        this.adminTimestamps = adminTimestamps;
+        this.longNames = longNames;
+        this.longValues = longValues;
+        this.doubleNames = doubleNames;
+        this.doubleValues = doubleValues;
+    }
+
+    /**
+     * Returns the number of samples.
+     */
+    public int size() {
+        return timestamps.length;
+    }
+
+    /**
+     * Returns the timestamps of the samples, as taken on the monitored component.
+     */
+    public long[] getTimestamps() {
+        return timestamps;
+    }
+
+    /**
+     * Returns the timestamps of the samples, adjusted to the admin clock, or <code>-1</code> where not
+     * available.
+     */
+    public long[] getAdminTimestamps() {
+        return adminTimestamps;
+    }
+
+    /**
+     * Returns the names of the statistics with integral values.
+     */
+    public List<String> getLongStatisticsNames() {
+        return Collections.unmodifiableList(Arrays.asList(longNames));
+    }
+
+    /**
+     * Returns the names of the statistics with floating point values.
+     */
+    public List<String> getDoubleStatisticsNames() {
+        return Collections.unmodifiableList(Arrays.asList(doubleNames));
+    }
+
+    /**
+     * Returns the values of the given integral statistic.
+     *
+     * @throws IllegalArgumentException if there is no integral statistic with the given name
+     */
+    public long[] getLongValues(String name) {
+        return longValues[indexOf(longNames, name)];
+    }
+
+    /**
+     * Returns the values of the given floating point statistic.
+     *
+     * @throws IllegalArgumentException if there is no floating point statistic with the given name
+     */
+    public double[] getDoubleValues(String name) {
+        return doubleValues[indexOf(doubleNames, name)];
+    }
+
+    private static int indexOf(String[] names, String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("No statistic named [" + name + "]");
+    }
+}
@@ -17,6 +17,7 @@
 package org.openspaces.admin.transport;
 
 import org.openspaces.admin.StatisticsMonitor;
+import org.openspaces.admin.support.StatisticsTimeSeries;
 import org.openspaces.admin.transport.events.TransportStatisticsChangedEventManager;
 import org.openspaces.admin.vm.VirtualMachineAware;
 
@@ -68,6 +69,14 @@ public interface Transport extends VirtualMachineAware, StatisticsMonitor {
      */
     TransportStatistics getStatistics();
 
+    /**
+     * Returns the statistics history of the transport taken after the given timestamp (not included),
+     * as one array per statistic, from the oldest to the newest. Holds the statistics already collected,
+     * up to the statistics history size.
+     * @since 11.0
+     */
+    StatisticsTimeSeries getStatisticsTimeSeries(long fromTimestamp);
+
     /**
      * Allows to register for {@link org.openspaces.admin.transport.events.TransportStatisticsChangedEvent}s.
      *
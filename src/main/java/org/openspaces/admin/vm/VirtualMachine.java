@@ -31,6 +31,7 @@ import org.openspaces.admin.space.SpaceInstance;
 import org.openspaces.admin.space.events.SpaceInstanceAddedEventManager;
 import org.openspaces.admin.space.events.SpaceInstanceLifecycleEventListener;
 import org.openspaces.admin.space.events.SpaceInstanceRemovedEventManager;
+import org.openspaces.admin.support.StatisticsTimeSeries;
 import org.openspaces.admin.vm.events.VirtualMachineStatisticsChangedEventManager;
 
 /**
@@ -55,6 +56,14 @@ public interface VirtualMachine extends MachineAware, StatisticsMonitor {
      */
     VirtualMachineStatistics getStatistics();
 
+    /**
+     * Returns the statistics history of the virtual machine taken after the given timestamp (not included),
+     * as one array per statistic, from the oldest to the newest. Holds the statistics already collected,
+     * up to the statistics history size.
+     * @since 11.0
+     */
+    StatisticsTimeSeries getStatisticsTimeSeries(long fromTimestamp);
+
     /**
      * Runs GC on the virtual machine.
      */
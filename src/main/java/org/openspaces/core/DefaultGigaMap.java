@@ -23,6 +23,7 @@ import com.j_spaces.javax.cache.CacheListener;
 import com.j_spaces.map.IMap;
 import net.jini.core.transaction.Transaction;
 import org.openspaces.core.exception.ExceptionTranslator;
+import org.openspaces.core.map.LeaseLockManager;
 import org.openspaces.core.map.LockHandle;
 import org.openspaces.core.map.LockManager;
 import org.openspaces.core.transaction.TransactionProvider;
@@ -75,8 +76,23 @@ public class DefaultGigaMap implements GigaMap {
      */
     public DefaultGigaMap(IMap map, TransactionProvider txProvider, ExceptionTranslator exTranslator,
                           int defaultIsolationLevel) {
+        this(map, txProvider, exTranslator, defaultIsolationLevel, false);
+    }
+
+    /**
+     * Constructs a new DefaultGigaMap implementation.
+     *
+     * @param map          The map implementation to delegate operations to
+     * @param txProvider   The transaction provider for declarative transaction ex.
+     * @param exTranslator Exception translator to translate low level exceptions into GigaSpaces runtime
+     *                     exception
+     * @param leaseLocks   <code>true</code> to use lease based locks (see {@link LeaseLockManager}) instead
+     *                     of transaction based locks
+     */
+    public DefaultGigaMap(IMap map, TransactionProvider txProvider, ExceptionTranslator exTranslator,
+                          int defaultIsolationLevel, boolean leaseLocks) {
         this.map = map;
-        this.lockManager = new LockManager(map);
+        this.lockManager = leaseLocks ? new LeaseLockManager(map) : new LockManager(map);
         this.txProvider = txProvider;
         this.exTranslator = exTranslator;
         // set the default read take modifiers according to the default isolation level
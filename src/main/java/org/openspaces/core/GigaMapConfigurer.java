@@ -98,6 +98,14 @@ public class GigaMapConfigurer {
         return this;
     }
 
+    /**
+     * @see org.openspaces.core.GigaMapFactoryBean#setLeaseLocks(boolean)
+     */
+    public GigaMapConfigurer leaseLocks(boolean leaseLocks) {
+        gigaMapFactoryBean.setLeaseLocks(leaseLocks);
+        return this;
+    }
+
     /**
      * @see org.openspaces.core.GigaMapFactoryBean#setDefaultIsolationLevel(int)
      */
@@ -66,6 +66,8 @@ public class GigaMapFactoryBean implements InitializingBean, DisposableBean, Fac
 
     private int defaultIsolationLevel = TransactionDefinition.ISOLATION_DEFAULT;
 
+    private boolean leaseLocks = false;
+
     private String beanName;
 
     private DefaultGigaMap gigaMap;
@@ -130,6 +132,17 @@ public class GigaMapFactoryBean implements InitializingBean, DisposableBean, Fac
         this.defaultWaitingForLockTimeout = defaultWaitingForLockTimeout;
     }
 
+    /**
+     * Sets if locks are represented by leased lock entries instead of a distributed transaction per lock.
+     * Lease based locks are much cheaper, and support renewal and batched unlock, but are advisory: they
+     * do not block map operations performed without locking the key. Defaults to <code>false</code>.
+     *
+     * @see org.openspaces.core.map.LeaseLockManager
+     */
+    public void setLeaseLocks(boolean leaseLocks) {
+        this.leaseLocks = leaseLocks;
+    }
+
     /**
      * Set the default isolation level by the name of the corresponding constant in
      * TransactionDefinition, e.g. "ISOLATION_DEFAULT".
@@ -191,7 +204,7 @@ public class GigaMapFactoryBean implements InitializingBean, DisposableBean, Fac
             defaultTxProvider = new DefaultTransactionProvider(transactionalContext, transactionManager);
             txProvider = defaultTxProvider;
         }
-        gigaMap = new DefaultGigaMap(map, txProvider, exTranslator, defaultIsolationLevel);
+        gigaMap = new DefaultGigaMap(map, txProvider, exTranslator, defaultIsolationLevel, leaseLocks);
         gigaMap.setDefaultTimeToLive(defaultTimeToLive);
         gigaMap.setDefaultWaitForResponse(defaultWaitForResponse);
         gigaMap.setDefaultLockTimeToLive(defaultLockTimeToLive);
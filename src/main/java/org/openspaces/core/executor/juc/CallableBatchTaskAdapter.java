@@ -0,0 +1,228 @@
+/*
+ * Copyright 2006-2007 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.core.executor.juc;
+
+import com.j_spaces.kernel.threadpool.DynamicExecutors;
+import org.openspaces.core.executor.Task;
+import org.openspaces.core.executor.support.ProcessObjectsProvider;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An adapter allowing to execute several {@link Callable}s as a single Space task. All the callables are
+ * executed on the node the task is routed to, up to "parallelism" of them at the same time (by default, the
+ * number of processors available to the JVM executing the task), and the result (or exception) of each
+ * callable is returned in a {@link Results}.
+ *
+ * <p>The callables are executed by the thread executing the task, helped by a pool of daemon threads
+ * shared by all the batch tasks executed in the JVM (sized to the number of available processors). The
+ * helper threads run the callables with the context class loader of the thread executing the task, and
+ * are stopped once idle for {@link #HELPER_KEEP_ALIVE} milliseconds, so the pool holds no threads (and no
+ * class loaders) while no batch task is executed. An <code>Error</code> thrown by a callable fails the
+ * whole task once all the other callables completed.
+ *
+ * @see DefaultTaskExecutorService#setBatchInvokeAll(boolean)
+ */
+public class CallableBatchTaskAdapter implements Task<CallableBatchTaskAdapter.Results>, ProcessObjectsProvider, Externalizable {
+
+    private static final long serialVersionUID = 4326171845123465590L;
+
+    /**
+     * The parallelism used when none is set, the number of processors available to the JVM executing the
+     * task.
+     */
+    public static final int DEFAULT_PARALLELISM = 0;
+
+    /**
+     * The time (in milliseconds) an idle helper thread is kept before it is stopped.
+     */
+    public static final long HELPER_KEEP_ALIVE = 60000;
+
+    private static final ThreadPoolExecutor sharedExecutor = createSharedExecutor();
+
+    private Callable<?>[] callables;
+
+    private int parallelism;
+
+    /**
+     * Here just for externalizable.
+     */
+    public CallableBatchTaskAdapter() {
+    }
+
+    /**
+     * Constructs a new batch task adapter.
+     *
+     * @param callables   the callables to <code>call</code>
+     * @param parallelism the maximum number of callables executed at the same time, or
+     *                    {@link #DEFAULT_PARALLELISM} for the number of processors available to the JVM
+     *                    executing the task
+     */
+    public CallableBatchTaskAdapter(List<? extends Callable<?>> callables, int parallelism) {
+        this.callables = callables.toArray(new Callable<?>[callables.size()]);
+        this.parallelism = parallelism;
+    }
+
+    public Results execute() throws Exception {
+        final Results results = new Results(callables.length);
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicReference<Error> error = new AtomicReference<Error>();
+        // counts the completed callables, so helpers which did not start yet are not waited for
+        final CountDownLatch done = new CountDownLatch(callables.length);
+        int effectiveParallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        int helpers = Math.min(effectiveParallelism, callables.length) - 1;
+        if (helpers > 0) {
+            final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            for (int i = 0; i < helpers; i++) {
+                sharedExecutor.execute(new Runnable() {
+                    public void run() {
+                        Thread thread = Thread.currentThread();
+                        ClassLoader origClassLoader = thread.getContextClassLoader();
+                        thread.setContextClassLoader(classLoader);
+                        try {
+                            callAll(next, results, error, done);
+                        } finally {
+                            thread.setContextClassLoader(origClassLoader);
+                        }
+                    }
+                });
+            }
+        }
+        callAll(next, results, error, done);
+        done.await();
+        if (error.get() != null) {
+            throw error.get();
+        }
+        return results;
+    }
+
+    private void callAll(AtomicInteger next, Results results, AtomicReference<Error> error, CountDownLatch done) {
+        int index;
+        while ((index = next.getAndIncrement()) < callables.length) {
+            try {
+                results.values[index] = callables[index].call();
+            } catch (Exception e) {
+                results.exceptions[index] = e;
+            } catch (Error e) {
+                error.compareAndSet(null, e);
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+
+    /**
+     * Returns the callables passed so they will be processed on the node they are executed on as well.
+     */
+    public Object[] getObjectsToProcess() {
+        return callables;
+    }
+
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(parallelism);
+        out.writeInt(callables.length);
+        for (Callable<?> callable : callables) {
+            out.writeObject(callable);
+        }
+    }
+
+    public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        parallelism = in.readInt();
+        callables = new Callable<?>[in.readInt()];
+        for (int i = 0; i < callables.length; i++) {
+            callables[i] = (Callable<?>) in.readObject();
+        }
+    }
+
+    private static ThreadPoolExecutor createSharedExecutor() {
+        int size = Runtime.getRuntime().availableProcessors();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(size, size, HELPER_KEEP_ALIVE, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), DynamicExecutors.daemonThreadFactory("GS-batch-task"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * The results of the callables of a batch task, in the order of the callables.
+     */
+    public static class Results implements Externalizable {
+
+        private static final long serialVersionUID = -1808455591271040211L;
+
+        private Object[] values;
+
+        private Exception[] exceptions;
+
+        /**
+         * Here just for externalizable.
+         */
+        public Results() {
+        }
+
+        Results(int size) {
+            this.values = new Object[size];
+            this.exceptions = new Exception[size];
+        }
+
+        public int size() {
+            return values.length;
+        }
+
+        /**
+         * Returns the result of the callable at the given index, <code>null</code> if it failed.
+         */
+        public Object getResult(int index) {
+            return values[index];
+        }
+
+        /**
+         * Returns the exception thrown by the callable at the given index, <code>null</code> if it succeeded.
+         */
+        public Exception getException(int index) {
+            return exceptions[index];
+        }
+
+        public void writeExternal(ObjectOutput out) throws IOException {
+            out.writeInt(values.length);
+            for (int i = 0; i < values.length; i++) {
+                out.writeObject(values[i]);
+                out.writeObject(exceptions[i]);
+            }
+        }
+
+        public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+            int size = in.readInt();
+            values = new Object[size];
+            exceptions = new Exception[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = in.readObject();
+                exceptions[i] = (Exception) in.readObject();
+            }
+        }
+    }
+}
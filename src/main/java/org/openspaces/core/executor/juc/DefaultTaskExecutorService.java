@@ -17,8 +17,13 @@
 package org.openspaces.core.executor.juc;
 
 import com.gigaspaces.async.AsyncFuture;
+import com.gigaspaces.async.AsyncFutureListener;
+import com.gigaspaces.async.AsyncResult;
 import com.gigaspaces.async.AsyncResultsReducer;
+import com.gigaspaces.async.internal.DefaultAsyncResult;
 import org.openspaces.core.GigaSpace;
+import org.openspaces.core.executor.DistributedTask;
+import org.openspaces.core.executor.internal.ExecutorMetaDataProvider;
 import org.openspaces.core.executor.support.WaitForAllListener;
 import org.openspaces.core.executor.support.WaitForAnyListener;
 
@@ -26,10 +31,13 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -37,6 +45,14 @@ import java.util.concurrent.TimeoutException;
  * An implementation of an {@link java.util.concurrent.ExecutorService} that uses the executors support
  * implemented in {@link org.openspaces.core.GigaSpace}.
  *
+ * <p>By default, {@link #invokeAll(java.util.Collection)} executes each callable as a separate Space task.
+ * When {@link #setBatchInvokeAll(boolean) batching} is enabled, the callables are grouped by the partition
+ * their routing (see {@link org.openspaces.core.executor.TaskRoutingProvider} and
+ * {@link com.gigaspaces.annotation.pojo.SpaceRouting}) is mapped to, and each group is executed as a single
+ * {@link CallableBatchTaskAdapter} task on its partition. Callables with no routing are spread evenly
+ * between the partitions, and callables implementing {@link com.gigaspaces.async.AsyncResultsReducer}
+ * are still executed as separate (distributed) tasks.
+ *
  * @author kimchy
  */
 public class DefaultTaskExecutorService implements TaskExecutorService {
@@ -45,10 +61,45 @@ public class DefaultTaskExecutorService implements TaskExecutorService {
 
     private volatile boolean shutdown = false;
 
+    private final ExecutorMetaDataProvider executorMetaDataProvider = new ExecutorMetaDataProvider();
+
+    private boolean batchInvokeAll = false;
+
+    private int batchParallelism = CallableBatchTaskAdapter.DEFAULT_PARALLELISM;
+
+    private volatile int numberOfPartitions;
+
     public DefaultTaskExecutorService(GigaSpace gigaSpace) {
         this.gigaSpace = gigaSpace;
     }
 
+    /**
+     * Sets if {@link #invokeAll(java.util.Collection)} should execute the callables routed to the same
+     * partition as a single task. Defaults to <code>false</code>.
+     */
+    public void setBatchInvokeAll(boolean batchInvokeAll) {
+        this.batchInvokeAll = batchInvokeAll;
+    }
+
+    /**
+     * Sets the maximum number of callables of a single batch executed at the same time on the partition.
+     * Defaults to the number of processors available to the JVM hosting the partition.
+     */
+    public void setBatchParallelism(int batchParallelism) {
+        if (batchParallelism < 1) {
+            throw new IllegalArgumentException("batchParallelism must be positive, was [" + batchParallelism + "]");
+        }
+        this.batchParallelism = batchParallelism;
+    }
+
+    /**
+     * Sets the number of partitions of the Space, used to group the callables when batching. If not set,
+     * it is found using a broadcast task the first time a batch is submitted.
+     */
+    public void setNumberOfPartitions(int numberOfPartitions) {
+        this.numberOfPartitions = numberOfPartitions;
+    }
+
     public void execute(Runnable command) {
         if (command instanceof AsyncResultsReducer) {
             gigaSpace.execute(new RunnableDistributedTaskAdapter(command));
@@ -96,6 +147,9 @@ public class DefaultTaskExecutorService implements TaskExecutorService {
     }
 
     public <T> List<Future<T>> invokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException {
+        if (batchInvokeAll) {
+            return batchInvokeAll(tasks, timeout, unit);
+        }
         WaitForAllListener<T> listener = new WaitForAllListener<T>(tasks.size());
         ArrayList<AsyncFuture<T>> results = new ArrayList<AsyncFuture<T>>(tasks.size());
         for (Callable<T> task : tasks) {
@@ -117,6 +171,99 @@ public class DefaultTaskExecutorService implements TaskExecutorService {
         return Arrays.asList(result);
     }
 
+    private <T> List<Future<T>> batchInvokeAll(Collection<? extends Callable<T>> tasks, long timeout, TimeUnit unit) throws InterruptedException {
+        final WaitForAllListener<T> listener = new WaitForAllListener<T>(tasks.size());
+        ArrayList<AsyncFuture<?>> results = new ArrayList<AsyncFuture<?>>();
+        int partitions = getNumberOfPartitions();
+        // keyed by partition, the routing of the first callable of each partition is used for the whole batch
+        Map<Integer, List<Callable<T>>> batches = new LinkedHashMap<Integer, List<Callable<T>>>();
+        Map<Integer, Object> batchRoutings = new LinkedHashMap<Integer, Object>();
+        int unroutedCount = 0;
+        for (Callable<T> task : tasks) {
+            if (task instanceof AsyncResultsReducer) {
+                AsyncFuture<T> result = gigaSpace.execute(new CallableDistributedTaskAdapter(task));
+                result.setListener(listener);
+                results.add(result);
+                continue;
+            }
+            Object routing = executorMetaDataProvider.findRouting(task);
+            int partition;
+            if (routing == null) {
+                partition = unroutedCount++ % partitions;
+                routing = partition;
+            } else {
+                partition = safeAbs(routing.hashCode()) % partitions;
+            }
+            List<Callable<T>> batch = batches.get(partition);
+            if (batch == null) {
+                batch = new ArrayList<Callable<T>>();
+                batches.put(partition, batch);
+                batchRoutings.put(partition, routing);
+            }
+            batch.add(task);
+        }
+        for (Map.Entry<Integer, List<Callable<T>>> entry : batches.entrySet()) {
+            final int batchSize = entry.getValue().size();
+            AsyncFuture<CallableBatchTaskAdapter.Results> result = gigaSpace.execute(
+                    new CallableBatchTaskAdapter(entry.getValue(), batchParallelism), batchRoutings.get(entry.getKey()));
+            result.setListener(new AsyncFutureListener<CallableBatchTaskAdapter.Results>() {
+                public void onResult(AsyncResult<CallableBatchTaskAdapter.Results> result) {
+                    CallableBatchTaskAdapter.Results batchResults = result.getResult();
+                    for (int i = 0; i < batchSize; i++) {
+                        if (result.getException() != null) {
+                            listener.onResult(new DefaultAsyncResult<T>(null, result.getException()));
+                        } else {
+                            listener.onResult(new DefaultAsyncResult<T>((T) batchResults.getResult(i), batchResults.getException(i)));
+                        }
+                    }
+                }
+            });
+            results.add(result);
+        }
+        Future<T>[] result = listener.waitForResult(timeout, unit);
+        for (AsyncFuture<?> future : results) {
+            if (!future.isDone()) {
+                future.cancel(false);
+            }
+        }
+        return Arrays.asList(result);
+    }
+
+    private int getNumberOfPartitions() throws InterruptedException {
+        int partitions = numberOfPartitions;
+        if (partitions > 0) {
+            return partitions;
+        }
+        try {
+            partitions = gigaSpace.execute(new PartitionCountTask()).get();
+        } catch (ExecutionException e) {
+            throw new RejectedExecutionException("Failed to find the number of partitions", e.getCause());
+        }
+        numberOfPartitions = partitions;
+        return partitions;
+    }
+
+    // routing values are mapped to partitions by the absolute value of their hash code, same as the Space proxy
+    private static int safeAbs(int value) {
+        return value == Integer.MIN_VALUE ? Integer.MAX_VALUE : Math.abs(value);
+    }
+
+    /**
+     * Broadcast to all the partitions, counting the results.
+     */
+    private static class PartitionCountTask implements DistributedTask<Integer, Integer> {
+
+        private static final long serialVersionUID = -2410633851290917341L;
+
+        public Integer execute() throws Exception {
+            return 1;
+        }
+
+        public Integer reduce(List<AsyncResult<Integer>> results) throws Exception {
+            return results.size();
+        }
+    }
+
     public <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
         try {
             return invokeAny(tasks, -1, TimeUnit.MILLISECONDS);
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2006-2007 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.core.map;
+
+import com.gigaspaces.annotation.pojo.SpaceClass;
+import com.gigaspaces.annotation.pojo.SpaceId;
+import com.gigaspaces.annotation.pojo.SpaceRouting;
+
+import java.io.Serializable;
+
+/**
+ * A space entry representing a lease based lock on a key of a map. The entry exists as long as the
+ * lock is held, and is written with the lock time to live as its lease, so the space removes it if the
+ * lock owner fails to unlock or renew it.
+ *
+ * @see LeaseLockManager
+ */
+@SpaceClass
+public class LeaseLockEntry implements Serializable {
+
+    private static final long serialVersionUID = -2216407593302736219L;
+
+    private String lockKey;
+
+    private Object routing;
+
+    private String owner;
+
+    private Long fence;
+
+    public LeaseLockEntry() {
+    }
+
+    public LeaseLockEntry(String lockKey, Object routing, String owner, Long fence) {
+        this.lockKey = lockKey;
+        this.routing = routing;
+        this.owner = owner;
+        this.fence = fence;
+    }
+
+    /**
+     * The locked key (as a string, same as the uid of the map entry).
+     */
+    @SpaceId(autoGenerate = false)
+    public String getLockKey() {
+        return lockKey;
+    }
+
+    public void setLockKey(String lockKey) {
+        this.lockKey = lockKey;
+    }
+
+    /**
+     * The locked key itself, so the lock is routed to the same partition as the map entry.
+     */
+    @SpaceRouting
+    public Object getRouting() {
+        return routing;
+    }
+
+    public void setRouting(Object routing) {
+        this.routing = routing;
+    }
+
+    /**
+     * The id of the {@link LeaseLockManager} holding the lock.
+     */
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * The fencing token assigned to the lock when it was acquired.
+     */
+    public Long getFence() {
+        return fence;
+    }
+
+    public void setFence(Long fence) {
+        this.fence = fence;
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2006-2007 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.core.map;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.GigaSpaceConfigurer;
+import org.openspaces.core.SpaceTimeoutException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+
+import com.gigaspaces.client.ChangeSet;
+import com.j_spaces.core.IJSpace;
+import com.j_spaces.core.client.EntryAlreadyInSpaceException;
+import com.j_spaces.core.client.UpdateModifiers;
+import com.j_spaces.map.IMap;
+
+/**
+ * A lock manager that represents each lock by a {@link LeaseLockEntry} written to the space with the
+ * lock time to live as its lease, instead of a distributed transaction per lock. Locking a key is a single
+ * write only operation (which fails while another owner holds the lock), and unlocking it removes the entry,
+ * so no transaction is involved. The lock entry is routed by the key, so it is kept in the same partition as
+ * the map entry it locks.
+ *
+ * <p>Each lock is tagged with the id of the lock manager owning it and a fencing token, which is greater
+ * than the tokens of the locks previously handed out by this manager (and, as long as the clocks of the
+ * clients are roughly synchronized, by other managers). All the operations on a held lock match the lock
+ * entry by owner and token, so a holder whose lock expired can not renew, release or put under a newer lock
+ * of the same key. Long running holders can extend the lock using {@link #renew(LockHandle, long)}.
+ *
+ * <p>Note, unlike transaction based locks, lease based locks are advisory: they exclude other lockers of
+ * the same key, but do not block map operations performed without locking the key.
+ */
+public class LeaseLockManager extends LockManager {
+
+    private static final Log logger = LogFactory.getLog(LeaseLockManager.class);
+
+    private static final long MAX_LOCK_RETRY_INTERVAL = 50;
+
+    // the low bits of a fencing token, allowing several locks to be handed out within the same millisecond
+    private static final int FENCE_SEQUENCE_BITS = 10;
+
+    // the lock is kept for at least this long once putAndUnlock checked it, so it can not expire during the put
+    private static final long PUT_AND_UNLOCK_LEASE = 60000;
+
+    private final IMap map;
+
+    private final IJSpace masterSpace;
+
+    private final GigaSpace gigaSpace;
+
+    private final String ownerId = UUID.randomUUID().toString();
+
+    private final AtomicLong lastFence = new AtomicLong();
+
+    // the fencing tokens of the locks held by this manager, by lock key
+    private final ConcurrentHashMap<String, Long> heldLocks = new ConcurrentHashMap<String, Long>();
+
+    /**
+     * Creates a new lease based Lock Manager based on the {@link com.j_spaces.map.IMap}.
+     */
+    public LeaseLockManager(IMap map) {
+        super(map, false);
+        this.map = map;
+        this.masterSpace = map.getMasterSpace();
+        this.gigaSpace = new GigaSpaceConfigurer(masterSpace).gigaSpace();
+    }
+
+    /**
+     * Locks the given key, retrying while it is locked by another owner.
+     *
+     * @param key                   The key to lock
+     * @param lockTimeToLive        The lock time to live (in milliseconds)
+     * @param timeoutWaitingForLock The time to wait for an already locked lock
+     * @return LockHandle that can be used to unlock or renew the lock
+     * @throws SpaceTimeoutException if the key is still locked after waiting for the given timeout
+     */
+    @Override
+    public LockHandle lock(Object key, long lockTimeToLive, long timeoutWaitingForLock) {
+        String uid = String.valueOf(key);
+        long deadline = System.currentTimeMillis() + timeoutWaitingForLock;
+        long retryInterval = 1;
+        while (true) {
+            long fence = nextFence();
+            try {
+                masterSpace.write(new LeaseLockEntry(uid, key, ownerId, fence), null, lockTimeToLive, 0, UpdateModifiers.WRITE_ONLY);
+                heldLocks.put(uid, fence);
+                return new LockHandle(this, key, fence);
+            } catch (EntryAlreadyInSpaceException e) {
+                // locked by someone else, retry below
+            } catch (Exception e) {
+                throw new DataAccessResourceFailureException("Failed to obtain lock for key [" + key + "]", e);
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new SpaceTimeoutException("Failed to obtain lock for key [" + key + "] within ["
+                        + timeoutWaitingForLock + "ms]");
+            }
+            try {
+                Thread.sleep(Math.min(retryInterval, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DataAccessResourceFailureException("Interrupted while waiting for lock for key [" + key + "]", e);
+            }
+            retryInterval = Math.min(retryInterval * 2, MAX_LOCK_RETRY_INTERVAL);
+        }
+    }
+
+    /**
+     * Puts the given value and unlocks the key, provided the lock acquired by this manager was not lost
+     * in the meantime. If the key is not locked by this manager, simply puts the value.
+     *
+     * <p>The lease of the lock entry is first extended, in a single operation matching the owner and the
+     * fencing token of the lock, so the value is only put if the lock is still held and the lock can not
+     * expire (and be acquired by another owner) before the put completes. All the operations are routed to
+     * the partition of the key, and no transaction is used.
+     *
+     * @throws PessimisticLockingFailureException if the lock expired (the value is not put)
+     */
+    @Override
+    public void putAndUnlock(Object key, Object value) {
+        String uid = String.valueOf(key);
+        Long fence = heldLocks.remove(uid);
+        if (fence == null) {
+            map.put(key, value, null, Integer.MAX_VALUE);
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        if (!extend(key, fence, PUT_AND_UNLOCK_LEASE)) {
+            throw new PessimisticLockingFailureException("Lock for key [" + key + "] expired, value was not put");
+        }
+        try {
+            map.put(key, value, null, Integer.MAX_VALUE);
+        } finally {
+            release(key, fence);
+        }
+        if (System.currentTimeMillis() - startTime > PUT_AND_UNLOCK_LEASE) {
+            logger.warn("Putting the value of key [" + key + "] took longer than the lock was extended for, "
+                    + "another owner might have locked the key meanwhile");
+        }
+    }
+
+    @Override
+    public boolean islocked(Object key) {
+        String uid = String.valueOf(key);
+        if (heldLocks.containsKey(uid)) {
+            return true;
+        }
+        try {
+            return masterSpace.readIfExists(new LeaseLockEntry(uid, key, null, null), null, 0) != null;
+        } catch (Exception e) {
+            throw new DataAccessResourceFailureException("Failed to check lock for key [" + key + "]", e);
+        }
+    }
+
+    @Override
+    public void unlock(Object key) {
+        Long fence = heldLocks.remove(String.valueOf(key));
+        if (fence == null) {
+            return;
+        }
+        release(key, fence);
+    }
+
+    /**
+     * Extends the lease of the given lock, provided it is still held by this manager under the same
+     * fencing token.
+     */
+    @Override
+    public boolean renew(LockHandle lockHandle, long lockTimeToLive) {
+        String uid = String.valueOf(lockHandle.getKey());
+        Long fence = heldLocks.get(uid);
+        if (fence == null || fence != lockHandle.getFence()) {
+            return false;
+        }
+        if (!extend(lockHandle.getKey(), fence, lockTimeToLive)) {
+            heldLocks.remove(uid, fence);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sets the lease of the lock entry, only if it is still held by this manager under the given token (a
+     * lease renewal would extend whichever lock entry of the key is in the space).
+     */
+    private boolean extend(Object key, long fence, long lockTimeToLive) {
+        try {
+            return gigaSpace.change(new LeaseLockEntry(String.valueOf(key), key, ownerId, fence),
+                    new ChangeSet().lease(lockTimeToLive)).getNumberOfChangedEntries() > 0;
+        } catch (Exception e) {
+            throw new DataAccessResourceFailureException("Failed to extend lock for key [" + key + "]", e);
+        }
+    }
+
+    /**
+     * Removes the lock entry, only if it is still held by this manager under the given token.
+     */
+    private void release(Object key, long fence) {
+        try {
+            masterSpace.clear(new LeaseLockEntry(String.valueOf(key), key, ownerId, fence), null);
+        } catch (Exception e) {
+            logger.warn("Failed to unlock key [" + key + "], ignoring (the lock will expire)", e);
+        }
+    }
+
+    private long nextFence() {
+        while (true) {
+            long last = lastFence.get();
+            long next = Math.max(last + 1, System.currentTimeMillis() << FENCE_SEQUENCE_BITS);
+            if (lastFence.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+}
@@ -26,7 +26,8 @@ import java.io.ObjectOutput;
 /**
  * A lock handle allowing to perform map operations when the key is locked. Internally
  * holds the transaction representing the lock and it can be accessed to be passed to
- * any operation that needs to be performed under the same lock.
+ * any operation that needs to be performed under the same lock. Lease based locks (see
+ * {@link LeaseLockManager}) have no transaction.
  *
  * <p>With {@link org.openspaces.core.GigaMap} this is done automatically by just passing
  * the lock handle to an operation.
@@ -43,6 +44,8 @@ public class LockHandle implements Externalizable {
 
     private Object key;
 
+    private transient long fence;
+
     public LockHandle() {
         
     }
@@ -56,6 +59,15 @@ public class LockHandle implements Externalizable {
         this.key = key;
     }
 
+    /**
+     * Constructs a new Lock Handle for a lock that is not held by a transaction
+     */
+    LockHandle(LockManager lockManager, Object key, long fence) {
+        this.lockManager = lockManager;
+        this.key = key;
+        this.fence = fence;
+    }
+
     /**
      * Unlocks the given key.
      */
@@ -63,6 +75,16 @@ public class LockHandle implements Externalizable {
         lockManager.unlock(key);
     }
 
+    /**
+     * Extends the time to live of the lock, see {@link LeaseLockManager#renew(LockHandle, long)}.
+     *
+     * @param lockTimeToLive The new lock time to live (in milliseconds), starting now
+     * @return <code>true</code> if the lock was renewed, <code>false</code> if it is no longer held
+     */
+    public boolean renew(long lockTimeToLive) {
+        return lockManager.renew(this, lockTimeToLive);
+    }
+
     /**
      * Returns the transaction representing the lock on the given key.
      */
@@ -77,6 +99,17 @@ public class LockHandle implements Externalizable {
         return key;
     }
 
+    /**
+     * Returns the fencing token of a lease based lock, <code>0</code> for transaction based locks. Each
+     * time a key is locked it is assigned a new, greater, fencing token, allowing to detect operations
+     * performed by a previous holder of the lock after the lock expired.
+     *
+     * @see LeaseLockManager
+     */
+    public long getFence() {
+        return fence;
+    }
+
     public void writeExternal(ObjectOutput out) throws IOException {
         out.writeObject(tx);
         out.writeObject(key);
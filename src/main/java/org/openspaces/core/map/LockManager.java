@@ -42,6 +42,9 @@ import com.j_spaces.map.SpaceMapEntry;
  * The lock manager is built on top of {@link IMap} and supports the ability to lock and unlock
  * certain keys within the map.
  *
+ * <p>Each lock is held by a distributed transaction, under which the locked value is read with an
+ * exclusive read lock. See {@link LeaseLockManager} for a lighter alternative.
+ *
  * @author kimchy
  */
 public class LockManager {
@@ -72,8 +75,21 @@ public class LockManager {
      * Creates a new Lock Manager based on the {@link com.j_spaces.map.IMap}.
      */
     public LockManager(IMap map) {
+        this(map, true);
+    }
+
+    /**
+     * Creates a new Lock Manager, without the transactional resources if the locks are implemented
+     * by a subclass without using transactions.
+     */
+    LockManager(IMap map, boolean transactional) {
         this.map = map;
         this.masterSpace = map.getMasterSpace();
+        if (!transactional) {
+            transactionManagerProvider = null;
+            templatePool = new ArrayBlockingQueue<SpaceMapEntry>(1);
+            return;
+        }
         try {
             transactionManagerProvider = new DistributedTransactionManagerProvider();
         } catch (TransactionException e) {
@@ -216,6 +232,19 @@ public class LockManager {
         }
     }
 
+    /**
+     * Extends the time to live of the lock represented by the given handle. Transaction based locks
+     * can not be renewed, so this always returns <code>false</code>, see
+     * {@link LeaseLockManager#renew(LockHandle, long)}.
+     *
+     * @param lockHandle     The lock to renew
+     * @param lockTimeToLive The new lock time to live (in milliseconds), starting now
+     * @return <code>true</code> if the lock was renewed, <code>false</code> if it was not
+     */
+    public boolean renew(LockHandle lockHandle, long lockTimeToLive) {
+        return false;
+    }
+
     private Transaction getTransaction(long timeout) throws CannotCreateTransactionException {
         Transaction.Created tCreated;
         try {
@@ -0,0 +1,155 @@
+/*******************************************************************************
+ *
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.openspaces.core.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed memory, thread safe histogram of non negative <code>long</code> values.
+ *
+ * <p>Values are counted in log-linear buckets: each power of two range is divided into
+ * <code>2^precisionBits</code> equal sub buckets, so a reported value is never more than
+ * <code>1 / 2^precisionBits</code> above the recorded one (about 3% with the default precision of 5 bits),
+ * regardless of the magnitude of the values. Recording a value is a couple of atomic increments, and the
+ * total count and sum are {@link StripedCounter}s, so concurrent recorders rarely contend.
+ *
+ * <p>Readings are not a consistent snapshot while values are being recorded, which is fine for
+ * statistics.
+ */
+public class ConcurrentHistogram {
+
+    public static final int DEFAULT_PRECISION_BITS = 5;
+
+    private final int precisionBits;
+
+    private final int subBucketCount;
+
+    private final AtomicLongArray counts;
+
+    private final StripedCounter totalCount = new StripedCounter();
+
+    private final StripedCounter totalSum = new StripedCounter();
+
+    private final AtomicLong max = new AtomicLong();
+
+    public ConcurrentHistogram() {
+        this(DEFAULT_PRECISION_BITS);
+    }
+
+    /**
+     * @param precisionBits the number of bits used to divide each power of two range, between 1 and 16
+     */
+    public ConcurrentHistogram(int precisionBits) {
+        if (precisionBits < 1 || precisionBits > 16) {
+            throw new IllegalArgumentException("precisionBits must be between 1 and 16, was [" + precisionBits + "]");
+        }
+        this.precisionBits = precisionBits;
+        this.subBucketCount = 1 << precisionBits;
+        this.counts = new AtomicLongArray((64 - precisionBits) * subBucketCount);
+    }
+
+    /**
+     * Records the given value, negative values are recorded as <code>0</code>.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts.incrementAndGet(indexOf(value));
+        totalCount.increment();
+        totalSum.add(value);
+        long currentMax;
+        while (value > (currentMax = max.get())) {
+            if (max.compareAndSet(currentMax, value)) {
+                break;
+            }
+        }
+    }
+
+    public long getCount() {
+        return totalCount.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long count = totalCount.get();
+        return count == 0 ? 0 : (double) totalSum.get() / count;
+    }
+
+    /**
+     * Returns the value below (or at) which the given percentage of the recorded values fall, for example
+     * <code>99.9</code>. Returns <code>0</code> if no values were recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = totalCount.get();
+        if (count == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * count);
+        if (target == 0) {
+            target = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestValueOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Clears all the recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        totalCount.reset();
+        totalSum.reset();
+        max.set(0);
+    }
+
+    int indexOf(long value) {
+        if (value < subBucketCount) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - precisionBits;
+        return shift * subBucketCount + (int) (value >>> shift);
+    }
+
+    long highestValueOf(int index) {
+        if (index < subBucketCount) {
+            return index;
+        }
+        int shift = index / subBucketCount - 1;
+        long mantissa = index - shift * subBucketCount;
+        return ((mantissa + 1) << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "count[" + getCount() + "], mean[" + getMean() + "], p50[" + getValueAtPercentile(50) + "], p99["
+                + getValueAtPercentile(99) + "], max[" + getMax() + "]";
+    }
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.core.util;
+
+/**
+ * A {@link ConcurrentHistogram} that reports the values recorded during the last interval instead of all the
+ * values recorded since it was created, so the reported percentiles follow the current behavior.
+ *
+ * <p>Values are recorded into an active histogram. Reading the {@link #getIntervalHistogram() interval
+ * histogram} once the interval has passed completes the interval: the active histogram becomes the reported
+ * one, and the previously reported one is cleared and becomes the active one. Readings within the same
+ * interval see the same values, so several metrics read together are consistent. An interval lasts until
+ * the first reading after the interval length, so it can be longer when the values are not read.
+ *
+ * <p>Values recorded concurrently with the end of an interval may be counted in the completed interval.
+ */
+public class IntervalHistogram {
+
+    public static final long DEFAULT_INTERVAL = 60000;
+
+    private final long interval;
+
+    private volatile ConcurrentHistogram active;
+
+    private volatile ConcurrentHistogram completed;
+
+    private long intervalStart;
+
+    public IntervalHistogram() {
+        this(DEFAULT_INTERVAL);
+    }
+
+    /**
+     * @param interval the minimum length of an interval, in milliseconds
+     */
+    public IntervalHistogram(long interval) {
+        this(interval, ConcurrentHistogram.DEFAULT_PRECISION_BITS);
+    }
+
+    /**
+     * @param interval      the minimum length of an interval, in milliseconds
+     * @param precisionBits see {@link ConcurrentHistogram#ConcurrentHistogram(int)}
+     */
+    public IntervalHistogram(long interval, int precisionBits) {
+        this.interval = interval;
+        this.active = new ConcurrentHistogram(precisionBits);
+        this.completed = new ConcurrentHistogram(precisionBits);
+        this.intervalStart = System.currentTimeMillis();
+    }
+
+    public void record(long value) {
+        active.record(value);
+    }
+
+    /**
+     * Returns the values recorded during the last completed interval, completing the current interval first
+     * if its length has passed.
+     */
+    public synchronized ConcurrentHistogram getIntervalHistogram() {
+        long now = System.currentTimeMillis();
+        if (now - intervalStart >= interval) {
+            ConcurrentHistogram recycled = completed;
+            recycled.reset();
+            completed = active;
+            active = recycled;
+            intervalStart = now;
+        }
+        return completed;
+    }
+
+    @Override
+    public String toString() {
+        return completed.toString();
+    }
+}
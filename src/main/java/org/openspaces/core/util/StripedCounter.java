@@ -0,0 +1,98 @@
+/*******************************************************************************
+ *
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.openspaces.core.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A thread safe <code>long</code> counter for values updated by many threads and read rarely, such as
+ * statistics. Updates are spread over several cells, picked by the updating thread, so concurrent
+ * updates rarely contend on the same memory location, and reading sums all the cells.
+ *
+ * <p>Readings are not a consistent snapshot while the counter is being updated, which is fine for
+ * statistics.
+ */
+public class StripedCounter {
+
+    // each cell is padded to its own cache line, so updates to different cells do not contend
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray cells;
+
+    private final int mask;
+
+    public StripedCounter() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * @param stripes the number of cells updates are spread over, rounded up to a power of two
+     */
+    public StripedCounter(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("stripes must be positive, was [" + stripes + "]");
+        }
+        int size = Integer.highestOneBit(stripes);
+        if (size < stripes) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.cells = new AtomicLongArray(size * PADDING);
+    }
+
+    public void add(long delta) {
+        cells.addAndGet(cellIndex(), delta);
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    public void decrement() {
+        add(-1);
+    }
+
+    public long get() {
+        long sum = 0;
+        for (int i = 0; i < cells.length(); i += PADDING) {
+            sum += cells.get(i);
+        }
+        return sum;
+    }
+
+    /**
+     * Resets the counter to <code>0</code>. Updates made while resetting may be lost.
+     */
+    public void reset() {
+        for (int i = 0; i < cells.length(); i += PADDING) {
+            cells.set(i, 0);
+        }
+    }
+
+    private int cellIndex() {
+        long id = Thread.currentThread().getId();
+        // spread consecutive thread ids over the cells
+        int hash = (int) (id * 0x9E3779B97F4A7C15L >>> 32);
+        return (hash & mask) * PADDING;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(get());
+    }
+}
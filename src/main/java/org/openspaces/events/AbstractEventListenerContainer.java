@@ -25,7 +25,9 @@ import com.gigaspaces.internal.dump.InternalDump;
 import com.gigaspaces.internal.dump.InternalDumpProcessor;
 import com.gigaspaces.internal.dump.InternalDumpProcessorFailedException;
 import com.gigaspaces.metrics.BeanMetricManager;
+import com.gigaspaces.metrics.Gauge;
 import com.gigaspaces.metrics.LongCounter;
+import com.gigaspaces.metrics.Metric;
 import com.j_spaces.core.IJSpace;
 import com.j_spaces.core.admin.IInternalRemoteJSpaceAdmin;
 import org.apache.commons.logging.Log;
@@ -35,6 +37,7 @@ import org.openspaces.core.GigaSpace;
 import org.openspaces.core.space.mode.AfterSpaceModeChangeEvent;
 import org.openspaces.core.space.mode.BeforeSpaceModeChangeEvent;
 import org.openspaces.core.transaction.manager.JiniPlatformTransactionManager;
+import org.openspaces.core.util.IntervalHistogram;
 import org.openspaces.core.util.SpaceUtils;
 import org.openspaces.events.adapter.EventListenerAdapter;
 import org.openspaces.events.support.AnnotationProcessorUtils;
@@ -672,6 +675,33 @@ public abstract class AbstractEventListenerContainer implements ApplicationConte
         processedEvents.inc();
     }
 
+    /**
+     * Invokes the given {@link org.openspaces.events.SpaceDataBatchEventListener} with a batch of events.
+     * Same as {@link #invokeListener(SpaceDataEventListener, Object, org.springframework.transaction.TransactionStatus, Object)},
+     * with the list of event data objects passed to the exception handler, and each event of the batch
+     * counted as processed.
+     *
+     * @param eventData The event data objects of the batch
+     * @param txStatus  An optional transaction status allowing to rollback a transaction programmatically
+     * @param source    An optional source (or additional event information)
+     */
+    protected void invokeBatchListener(SpaceDataBatchEventListener eventListener, List<?> eventData, TransactionStatus txStatus, Object source) throws Throwable {
+        if (exceptionHandler != null) {
+            try {
+                eventListener.onBatch(eventData, getGigaSpace(), txStatus, source);
+                exceptionHandler.onSuccess(eventData, getGigaSpace(), txStatus, source);
+            } catch (Throwable e) {
+                if (!(e instanceof ListenerExecutionFailedException)) {
+                    e = new ListenerExecutionFailedException(e.getMessage(), e);
+                }
+                exceptionHandler.onException((ListenerExecutionFailedException) e, eventData, getGigaSpace(), txStatus, source);
+            }
+        } else {
+            eventListener.onBatch(eventData, getGigaSpace(), txStatus, source);
+        }
+        processedEvents.inc(eventData.size());
+    }
+
     /**
      * Handles exception that occurs during the event listening process. Currently simply logs it.
      *
@@ -916,6 +946,47 @@ public abstract class AbstractEventListenerContainer implements ApplicationConte
         }
     }
 
+    /**
+     * Registers an additional metric of this container. Should be called from {@link #registerMetrics()}.
+     */
+    protected void registerMetric(String name, Metric metric) {
+        if (beanMetricManager != null) {
+            beanMetricManager.register(name, metric);
+        }
+    }
+
+    /**
+     * Registers the mean, median, 99th and 99.9th percentiles and max of the last interval of the given
+     * histogram as metrics named <code>name-mean</code>, <code>name-p50</code>, <code>name-p99</code>,
+     * <code>name-p999</code> and <code>name-max</code>. Should be called from {@link #registerMetrics()}.
+     */
+    protected void registerHistogramMetrics(String name, final IntervalHistogram histogram) {
+        registerMetric(name + "-mean", new Gauge<Double>() {
+            @Override
+            public Double getValue() throws Exception {
+                return histogram.getIntervalHistogram().getMean();
+            }
+        });
+        registerPercentileMetric(name + "-p50", histogram, 50);
+        registerPercentileMetric(name + "-p99", histogram, 99);
+        registerPercentileMetric(name + "-p999", histogram, 99.9);
+        registerMetric(name + "-max", new Gauge<Long>() {
+            @Override
+            public Long getValue() throws Exception {
+                return histogram.getIntervalHistogram().getMax();
+            }
+        });
+    }
+
+    private void registerPercentileMetric(String name, final IntervalHistogram histogram, final double percentile) {
+        registerMetric(name, new Gauge<Long>() {
+            @Override
+            public Long getValue() throws Exception {
+                return histogram.getIntervalHistogram().getValueAtPercentile(percentile);
+            }
+        });
+    }
+
     protected void unregisterMetrics() {
         if (beanMetricManager!= null)
             beanMetricManager.clear();
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2006-2007 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.events;
+
+import org.openspaces.core.GigaSpace;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.List;
+
+/**
+ * A Space data event listener that can receive a batch of events in a single callback. Containers that
+ * receive events in batches (for example, a notify container with batching enabled) hand the whole batch
+ * to {@link #onBatch(java.util.List, org.openspaces.core.GigaSpace, org.springframework.transaction.TransactionStatus, Object)}
+ * instead of calling {@link #onEvent(Object, org.openspaces.core.GigaSpace, org.springframework.transaction.TransactionStatus, Object)}
+ * for each event, allowing the listener to process the batch as a whole (for example, performing a
+ * single downstream write). Events that are not received as part of a batch are still delivered to
+ * {@link #onEvent(Object, org.openspaces.core.GigaSpace, org.springframework.transaction.TransactionStatus, Object)}.
+ *
+ * @see org.openspaces.events.notify.SimpleNotifyEventListenerContainer
+ */
+public interface SpaceDataBatchEventListener<T> extends SpaceDataEventListener<T> {
+
+    /**
+     * An event callback with the data objects of a batch of events, in the order they were received.
+     *
+     * @param data
+     *            The data objects of the batch events
+     * @param gigaSpace
+     *            A GigaSpace instance that can be used to perform additional operations against the
+     *            space
+     * @param txStatus
+     *            An optional transaction status allowing to rollback a transaction programmatically
+     * @param source
+     *            Optional additional data or the actual source batch event (where relevant)
+     */
+    void onBatch(List<T> data, GigaSpace gigaSpace, TransactionStatus txStatus, Object source);
+}
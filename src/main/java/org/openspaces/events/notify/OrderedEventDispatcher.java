@@ -0,0 +1,197 @@
+/*
+ * Copyright 2006-2007 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.events.notify;
+
+import com.j_spaces.kernel.threadpool.DynamicExecutors;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands off tasks from the thread delivering the events to a fixed number of worker threads, while
+ * keeping the order of the tasks of each key. Each worker owns a bounded queue, and all the tasks of a
+ * key are executed by the same worker, in the order they were dispatched. When the queue of a worker is
+ * full, {@link #dispatch(Object, Runnable)} blocks until there is room, slowing down the event delivery
+ * instead of buffering without limit.
+ *
+ * @see SimpleNotifyEventListenerContainer#setDispatchWorkers(int)
+ */
+public class OrderedEventDispatcher {
+
+    private static final Log logger = LogFactory.getLog(OrderedEventDispatcher.class);
+
+    private static final long SHUTDOWN_CHECK_INTERVAL = 100;
+
+    private final BlockingQueue<Runnable>[] queues;
+
+    private final Thread[] workers;
+
+    private volatile boolean shutdown;
+
+    /**
+     * @param name          the name prefix of the worker threads
+     * @param workerCount   the number of worker threads
+     * @param queueCapacity the maximum number of pending tasks of each worker
+     */
+    @SuppressWarnings("unchecked")
+    public OrderedEventDispatcher(String name, int workerCount, int queueCapacity) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("workerCount must be positive, was [" + workerCount + "]");
+        }
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("queueCapacity must be positive, was [" + queueCapacity + "]");
+        }
+        ThreadFactory threadFactory = DynamicExecutors.daemonThreadFactory(name);
+        this.queues = new BlockingQueue[workerCount];
+        this.workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            queues[i] = new ArrayBlockingQueue<Runnable>(queueCapacity);
+            workers[i] = threadFactory.newThread(new Worker(queues[i]));
+            workers[i].start();
+        }
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    /**
+     * Returns the worker executing the tasks of the given key. A <code>null</code> key is handled by the
+     * first worker.
+     */
+    public int getWorkerIndex(Object key) {
+        if (key == null) {
+            return 0;
+        }
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return (hash & Integer.MAX_VALUE) % workers.length;
+    }
+
+    /**
+     * Dispatches the given task to the worker of the given key, blocking while its queue is full.
+     *
+     * @throws IllegalStateException if the dispatcher was shut down
+     */
+    public void dispatch(Object key, Runnable task) throws InterruptedException {
+        dispatchToWorker(getWorkerIndex(key), task);
+    }
+
+    /**
+     * Dispatches the given task to the given worker, blocking while its queue is full.
+     *
+     * @throws IllegalStateException if the dispatcher was shut down
+     */
+    public void dispatchToWorker(int workerIndex, Runnable task) throws InterruptedException {
+        BlockingQueue<Runnable> queue = queues[workerIndex];
+        while (!queue.offer(task, SHUTDOWN_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+            if (shutdown) {
+                throw new IllegalStateException("Dispatcher was shut down");
+            }
+        }
+        // the worker might have already exited, make sure the task is not silently lost
+        if (shutdown && queue.remove(task)) {
+            throw new IllegalStateException("Dispatcher was shut down");
+        }
+    }
+
+    /**
+     * Returns the number of tasks waiting to be executed by all the workers.
+     */
+    public int getPendingTasks() {
+        int pending = 0;
+        for (BlockingQueue<Runnable> queue : queues) {
+            pending += queue.size();
+        }
+        return pending;
+    }
+
+    /**
+     * Stops accepting new tasks. The workers exit once they have executed the tasks already dispatched.
+     */
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    /**
+     * Waits for the workers to exit after {@link #shutdown()}, up to the given timeout in milliseconds.
+     *
+     * @return <code>true</code> if all the workers exited
+     */
+    public boolean awaitTermination(long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        for (Thread worker : workers) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            worker.join(remaining);
+            if (worker.isAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Waits for the given worker to exit after {@link #shutdown()}, up to the given timeout in milliseconds.
+     * Once it exited, all the tasks dispatched to it were executed.
+     *
+     * @return <code>true</code> if the worker exited
+     */
+    public boolean awaitWorkerTermination(int workerIndex, long timeout) throws InterruptedException {
+        Thread worker = workers[workerIndex];
+        worker.join(timeout);
+        return !worker.isAlive();
+    }
+
+    private class Worker implements Runnable {
+
+        private final BlockingQueue<Runnable> queue;
+
+        Worker(BlockingQueue<Runnable> queue) {
+            this.queue = queue;
+        }
+
+        public void run() {
+            while (true) {
+                Runnable task;
+                try {
+                    task = queue.poll(SHUTDOWN_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (task == null) {
+                    if (shutdown) {
+                        return;
+                    }
+                    continue;
+                }
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    logger.error("Failed to execute dispatched task", t);
+                }
+            }
+        }
+    }
+}
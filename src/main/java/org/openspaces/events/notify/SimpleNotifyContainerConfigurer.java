@@ -118,6 +118,30 @@ public class SimpleNotifyContainerConfigurer {
         return this;
     }
 
+    /**
+     * @see org.openspaces.events.notify.SimpleNotifyEventListenerContainer#setCoalesceEventsById(boolean)
+     */
+    public SimpleNotifyContainerConfigurer coalesceEventsById(boolean coalesceEventsById) {
+        notifyEventListenerContainer.setCoalesceEventsById(coalesceEventsById);
+        return this;
+    }
+
+    /**
+     * @see org.openspaces.events.notify.SimpleNotifyEventListenerContainer#setDispatchWorkers(int)
+     */
+    public SimpleNotifyContainerConfigurer dispatchWorkers(int dispatchWorkers) {
+        notifyEventListenerContainer.setDispatchWorkers(dispatchWorkers);
+        return this;
+    }
+
+    /**
+     * @see org.openspaces.events.notify.SimpleNotifyEventListenerContainer#setDispatchQueueCapacity(int)
+     */
+    public SimpleNotifyContainerConfigurer dispatchQueueCapacity(int dispatchQueueCapacity) {
+        notifyEventListenerContainer.setDispatchQueueCapacity(dispatchQueueCapacity);
+        return this;
+    }
+
     /**
      * @see org.openspaces.events.notify.SimpleNotifyEventListenerContainer#setBatchSize(Integer)
      */
@@ -23,6 +23,8 @@ import com.gigaspaces.events.NotifyActionType;
 import com.gigaspaces.events.batching.BatchRemoteEvent;
 import com.gigaspaces.events.batching.BatchRemoteEventListener;
 import com.gigaspaces.internal.events.IInternalEventSessionAdmin;
+import com.gigaspaces.metrics.Gauge;
+import com.gigaspaces.metrics.LongCounter;
 import com.j_spaces.core.client.EntryArrivedRemoteEvent;
 
 import com.j_spaces.core.client.INotifyDelegatorFilter;
@@ -36,6 +38,7 @@ import org.openspaces.core.GigaSpace;
 import org.openspaces.core.UnusableEntryException;
 import org.openspaces.core.util.SpaceUtils;
 import org.openspaces.events.AbstractEventListenerContainer;
+import org.openspaces.events.SpaceDataBatchEventListener;
 import org.openspaces.pu.service.ServiceDetails;
 import org.openspaces.pu.service.ServiceMonitors;
 import org.springframework.core.Constants;
@@ -48,6 +51,7 @@ import java.io.PrintWriter;
 import java.io.Serializable;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * A simple notification based container allowing to register a
@@ -61,6 +65,12 @@ import java.util.ArrayList;
  * can control of the event will be propagated to the event listener if the take operation returned
  * null.
  *
+ * <p>When batching is enabled and the listener implements {@link org.openspaces.events.SpaceDataBatchEventListener},
+ * each batch is passed to the listener as a whole. Within a batch, the events can be coalesced so only the
+ * latest event of each space id is delivered ({@link #setCoalesceEventsById(boolean)}). The listener can
+ * also be invoked by a fixed number of workers instead of the thread delivering the notifications
+ * ({@link #setDispatchWorkers(int)}), keeping the order of the events of each routing value.
+ *
  * @author kimchy
  */
 public class SimpleNotifyEventListenerContainer extends AbstractEventListenerContainer {
@@ -92,6 +102,17 @@ public class SimpleNotifyEventListenerContainer extends AbstractEventListenerCon
     @Deprecated
     public static final int COM_TYPE_MULTICAST = 2;
 
+    /**
+     * The default maximum number of pending dispatched tasks of each dispatch worker: 1000.
+     */
+    public static final int DEFAULT_DISPATCH_QUEUE_CAPACITY = 1000;
+
+    /**
+     * The time to wait for the dispatch workers to execute the pending tasks when the container stops:
+     * 5000 ms = 5 seconds.
+     */
+    private static final long DISPATCH_SHUTDOWN_TIMEOUT = 5000;
+
     protected static final Constants constants = new Constants(SimpleNotifyEventListenerContainer.class);
 
     private int comType = COM_TYPE_MULTIPLEX;
@@ -150,6 +171,18 @@ public class SimpleNotifyEventListenerContainer extends AbstractEventListenerCon
 
     private boolean ignoreEventOnNullTake = false;
 
+    private boolean coalesceEventsById = false;
+
+    private int dispatchWorkers = 0;
+
+    private int dispatchQueueCapacity = DEFAULT_DISPATCH_QUEUE_CAPACITY;
+
+    private final LongCounter coalescedEvents = new LongCounter();
+
+    private SpaceEventKeyResolver eventKeyResolver;
+
+    private volatile OrderedEventDispatcher eventDispatcher;
+
     private DataEventSession dataEventSession;
 
     private EventRegistration eventRegistration;
@@ -637,6 +670,72 @@ public class SimpleNotifyEventListenerContainer extends AbstractEventListenerCon
         this.ignoreEventOnNullTake = ignoreEventOnNullTake;
     }
 
+    /**
+     * When batching is turned on, should only the latest event of each space id within a batch be
+     * delivered to the listener. Useful when the listener only cares about the latest state of each
+     * entry (for example, frequently updated prices). Defaults to <code>false</code>.
+     */
+    public void setCoalesceEventsById(boolean coalesceEventsById) {
+        this.coalesceEventsById = coalesceEventsById;
+    }
+
+    protected boolean isCoalesceEventsById() {
+        return coalesceEventsById;
+    }
+
+    /**
+     * Sets the number of worker threads the events are handed off to. When set, the thread delivering
+     * the notifications only queues the events, and the listener is invoked by the workers. The events
+     * of each routing value (the space id if the type has no routing property) are always handled by the
+     * same worker, keeping their order. Defaults to <code>0</code>, which means the listener is invoked
+     * by the thread delivering the notifications.
+     *
+     * @see #setDispatchQueueCapacity(int)
+     */
+    public void setDispatchWorkers(int dispatchWorkers) {
+        this.dispatchWorkers = dispatchWorkers;
+    }
+
+    protected int getDispatchWorkers() {
+        return dispatchWorkers;
+    }
+
+    /**
+     * Sets the maximum number of pending tasks (single events or parts of a batch) of each dispatch worker.
+     * When the queue of a worker is full, the thread delivering the notifications waits until there is
+     * room. Only applies when {@link #setDispatchWorkers(int)} is set. Defaults to
+     * {@link #DEFAULT_DISPATCH_QUEUE_CAPACITY}.
+     */
+    public void setDispatchQueueCapacity(int dispatchQueueCapacity) {
+        this.dispatchQueueCapacity = dispatchQueueCapacity;
+    }
+
+    protected int getDispatchQueueCapacity() {
+        return dispatchQueueCapacity;
+    }
+
+    /**
+     * Returns the number of events dropped by coalescing.
+     */
+    public long getCoalescedEvents() {
+        return coalescedEvents.getCount();
+    }
+
+    /**
+     * Returns the configured listener if it can receive a whole batch of events, <code>null</code>
+     * otherwise.
+     */
+    protected SpaceDataBatchEventListener getBatchEventListener() {
+        if (getEventListener() instanceof SpaceDataBatchEventListener) {
+            return (SpaceDataBatchEventListener) getEventListener();
+        }
+        Object actualEventListener = getActualEventListener();
+        if (actualEventListener instanceof SpaceDataBatchEventListener) {
+            return (SpaceDataBatchEventListener) actualEventListener;
+        }
+        return null;
+    }
+
     @Override
     protected void validateConfiguration() {
         super.validateConfiguration();
@@ -648,6 +747,12 @@ public class SimpleNotifyEventListenerContainer extends AbstractEventListenerCon
             throw new IllegalArgumentException("batchSize has value [" + batchSize
                     + "] which enables batching. batchTime must have a value as well");
         }
+        if (dispatchWorkers < 0) {
+            throw new IllegalArgumentException("dispatchWorkers must not be negative, was [" + dispatchWorkers + "]");
+        }
+        if (dispatchQueueCapacity < 1) {
+            throw new IllegalArgumentException("dispatchQueueCapacity must be positive, was [" + dispatchQueueCapacity + "]");
+        }
     }
 
     @Override
@@ -710,16 +815,19 @@ public class SimpleNotifyEventListenerContainer extends AbstractEventListenerCon
 
     @Override
     protected void doInitialize() throws DataAccessException {
+        eventKeyResolver = new SpaceEventKeyResolver(getGigaSpace());
     }
 
     @Override
     protected void doShutdown() throws DataAccessException {
         closeSession();
+        stopDispatcher();
     }
 
     @Override
     protected void doAfterStart() throws DataAccessException {
         super.doAfterStart();
+        startDispatcher();
         registerListener();
         if (logger.isDebugEnabled()) {
             StringBuilder sb = new StringBuilder();
@@ -764,6 +872,7 @@ public class SimpleNotifyEventListenerContainer extends AbstractEventListenerCon
     protected void doBeforeStop() throws DataAccessException {
         super.doBeforeStop();
         closeSession();
+        stopDispatcher();
         if (logger.isDebugEnabled()) {
             logger.debug("Stopped notify event container");
         }
@@ -793,6 +902,29 @@ public class SimpleNotifyEventListenerContainer extends AbstractEventListenerCon
         }
     }
 
+    protected void startDispatcher() {
+        if (dispatchWorkers > 0 && eventDispatcher == null) {
+            eventDispatcher = new OrderedEventDispatcher(getBeanName() + "-dispatcher", dispatchWorkers, dispatchQueueCapacity);
+        }
+    }
+
+    protected void stopDispatcher() {
+        OrderedEventDispatcher dispatcher = eventDispatcher;
+        if (dispatcher == null) {
+            return;
+        }
+        eventDispatcher = null;
+        dispatcher.shutdown();
+        try {
+            if (!dispatcher.awaitTermination(DISPATCH_SHUTDOWN_TIMEOUT) && logger.isWarnEnabled()) {
+                logger.warn(message("Dispatch workers did not complete the pending events within ["
+                        + DISPATCH_SHUTDOWN_TIMEOUT + "ms]"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     protected void closeSession() {
         if (dataEventSession != null) {
             try {
@@ -862,6 +994,11 @@ public class SimpleNotifyEventListenerContainer extends AbstractEventListenerCon
         writer.println("Perform Snapshot      : [" + isPerformSnapshot() + "]");
         writer.println("Pass Array            : [" + isPassArrayAsIs() + "]");
         writer.println("Durable               : [" + isDurable() + "]");
+        writer.println("Batch Listener        : [" + (getBatchEventListener() != null) + "]");
+        writer.println("Coalesce By Id        : [" + isCoalesceEventsById() + "], Coalesced [" + getCoalescedEvents() + "]");
+        OrderedEventDispatcher dispatcher = eventDispatcher;
+        writer.println("Dispatch Workers      : [" + getDispatchWorkers() + "], Queue Capacity [" + getDispatchQueueCapacity()
+                + "], Pending [" + (dispatcher == null ? 0 : dispatcher.getPendingTasks()) + "]");
 
         if (isDurable() &&
                 eventRegistration != null &&
@@ -959,8 +1096,84 @@ public class SimpleNotifyEventListenerContainer extends AbstractEventListenerCon
         }
     }
 
-    protected void invokeListenerWithTransaction(BatchRemoteEvent batchRemoteEvent, boolean performTakeOnNotify,
-                                                 boolean ignoreEventOnNullTake) throws DataAccessException {
+    /**
+     * Handles a batch of events. The events are optionally coalesced by their space id
+     * ({@link #setCoalesceEventsById(boolean)}) and then either processed by the calling thread, or split
+     * by their routing value and handed off to the dispatch workers ({@link #setDispatchWorkers(int)}).
+     *
+     * @see #invokeListenerWithTransaction(Object[], net.jini.core.event.RemoteEvent[], Object, boolean, boolean)
+     */
+    protected void invokeListenerWithTransaction(final BatchRemoteEvent batchRemoteEvent, final boolean performTakeOnNotify,
+                                                 final boolean ignoreEventOnNullTake) throws DataAccessException {
+        RemoteEvent[] events = batchRemoteEvent.getEvents();
+        Object[] eventData = new Object[events.length];
+        for (int i = 0; i < events.length; i++) {
+            eventData[i] = getEventData(events[i]);
+        }
+        if (coalesceEventsById && events.length > 1) {
+            Object[] ids = new Object[events.length];
+            for (int i = 0; i < events.length; i++) {
+                ids[i] = eventKeyResolver.getId(eventData[i]);
+            }
+            int[] latest = SpaceEventKeyResolver.indexesOfLatest(ids);
+            if (latest.length < events.length) {
+                coalescedEvents.inc(events.length - latest.length);
+                RemoteEvent[] coalescedRemoteEvents = new RemoteEvent[latest.length];
+                Object[] coalescedEventData = new Object[latest.length];
+                for (int i = 0; i < latest.length; i++) {
+                    coalescedRemoteEvents[i] = events[latest[i]];
+                    coalescedEventData[i] = eventData[latest[i]];
+                }
+                events = coalescedRemoteEvents;
+                eventData = coalescedEventData;
+            }
+        }
+        OrderedEventDispatcher dispatcher = eventDispatcher;
+        if (dispatcher == null) {
+            invokeListenerWithTransaction(eventData, events, batchRemoteEvent, performTakeOnNotify, ignoreEventOnNullTake);
+            return;
+        }
+        // split the batch by worker, keeping the order of the events within each part
+        int[] workerIndexes = new int[events.length];
+        int[] workerEventCounts = new int[dispatcher.getWorkerCount()];
+        for (int i = 0; i < events.length; i++) {
+            workerIndexes[i] = dispatcher.getWorkerIndex(eventKeyResolver.getRoutingKey(eventData[i]));
+            workerEventCounts[workerIndexes[i]]++;
+        }
+        for (int worker = 0; worker < workerEventCounts.length; worker++) {
+            if (workerEventCounts[worker] == 0) {
+                continue;
+            }
+            final RemoteEvent[] workerEvents = new RemoteEvent[workerEventCounts[worker]];
+            final Object[] workerEventData = new Object[workerEventCounts[worker]];
+            for (int i = 0, j = 0; i < events.length; i++) {
+                if (workerIndexes[i] == worker) {
+                    workerEvents[j] = events[i];
+                    workerEventData[j++] = eventData[i];
+                }
+            }
+            dispatch(dispatcher, worker, new Runnable() {
+                public void run() {
+                    invokeListenerWithTransaction(workerEventData, workerEvents, batchRemoteEvent, performTakeOnNotify, ignoreEventOnNullTake);
+                }
+            });
+        }
+    }
+
+    /**
+     * Executes the listener with a batch of events, within a single transaction if a
+     * {@link #setTransactionManager(org.springframework.transaction.PlatformTransactionManager)} is provided.
+     * The whole batch is passed to the listener if it is a {@link org.openspaces.events.SpaceDataBatchEventListener},
+     * or as an <code>Object[]</code> if {@link #setPassArrayAsIs(boolean)} is set, otherwise the listener
+     * is invoked for each event.
+     *
+     * @param eventData           The event data objects
+     * @param events              The remote events of the event data objects
+     * @param source              The remote batch event
+     * @param performTakeOnNotify A flag indicating whether to perform take operation with the given event data
+     */
+    protected void invokeListenerWithTransaction(Object[] eventData, RemoteEvent[] events, Object source,
+                                                 boolean performTakeOnNotify, boolean ignoreEventOnNullTake) throws DataAccessException {
 
         boolean invokeListener = true;
         TransactionStatus status = null;
@@ -968,20 +1181,9 @@ public class SimpleNotifyEventListenerContainer extends AbstractEventListenerCon
             // Execute receive within transaction.
             status = this.getTransactionManager().getTransaction(this.getTransactionDefinition());
         }
-        if (passArrayAsIs) {
-            RemoteEvent[] events = batchRemoteEvent.getEvents();
-            Object[] eventData = new Object[events.length];
+        SpaceDataBatchEventListener batchEventListener = getBatchEventListener();
+        if (batchEventListener != null || passArrayAsIs) {
             try {
-                for (int i = 0; i < events.length; i++) {
-                    try {
-                        eventData[i] = ((EntryArrivedRemoteEvent) events[i]).getObject();
-                    } catch (net.jini.core.entry.UnusableEntryException e) {
-                        throw new UnusableEntryException("Failure to get object from event [" + events[i] + "]", e);
-                    }
-                    if (logger.isTraceEnabled()) {
-                        logger.trace(message("Received event [" + eventData[i] + "]"));
-                    }
-                }
                 if (performTakeOnNotify) {
                     if (ignoreEventOnNullTake) {
                         ArrayList<Object> tempEventData = new ArrayList<Object>(eventData.length);
@@ -1004,7 +1206,11 @@ public class SimpleNotifyEventListenerContainer extends AbstractEventListenerCon
                 }
                 try {
                     if (invokeListener) {
-                        invokeListener(getEventListener(), eventData, status, batchRemoteEvent);
+                        if (batchEventListener != null) {
+                            invokeBatchListener(batchEventListener, Arrays.asList(eventData), status, source);
+                        } else {
+                            invokeListener(getEventListener(), eventData, status, source);
+                        }
                     }
                 } catch (Throwable t) {
                     if (logger.isTraceEnabled()) {
@@ -1027,19 +1233,10 @@ public class SimpleNotifyEventListenerContainer extends AbstractEventListenerCon
                 throw err;
             }
         } else {
-            for (RemoteEvent remoteEvent : batchRemoteEvent.getEvents()) {
-                Object eventData;
+            for (int i = 0; i < eventData.length; i++) {
                 try {
-                    try {
-                        eventData = ((EntryArrivedRemoteEvent) remoteEvent).getObject();
-                    } catch (net.jini.core.entry.UnusableEntryException e) {
-                        throw new UnusableEntryException("Failure to get object from event [" + remoteEvent + "]", e);
-                    }
-                    if (logger.isTraceEnabled()) {
-                        logger.trace(message("Received event [" + eventData + "]"));
-                    }
                     if (performTakeOnNotify) {
-                        Object takeVal = getGigaSpace().take(eventData, 0);
+                        Object takeVal = getGigaSpace().take(eventData[i], 0);
                         if (ignoreEventOnNullTake && takeVal == null) {
                             invokeListener = false;
                         }
@@ -1049,7 +1246,7 @@ public class SimpleNotifyEventListenerContainer extends AbstractEventListenerCon
                     }
                     try {
                         if (invokeListener) {
-                            invokeListener(getEventListener(), eventData, status, remoteEvent);
+                            invokeListener(getEventListener(), eventData[i], status, events[i]);
                         }
                     } catch (Throwable t) {
                         if (logger.isTraceEnabled()) {
@@ -1177,6 +1374,92 @@ public class SimpleNotifyEventListenerContainer extends AbstractEventListenerCon
         }
     }
 
+    /**
+     * Returns the event data object of the given remote event.
+     */
+    protected Object getEventData(RemoteEvent remoteEvent) throws UnusableEntryException {
+        Object eventData;
+        try {
+            eventData = ((EntryArrivedRemoteEvent) remoteEvent).getObject();
+        } catch (net.jini.core.entry.UnusableEntryException e) {
+            throw new UnusableEntryException("Failure to get object from event [" + remoteEvent + "]", e);
+        }
+        if (logger.isTraceEnabled()) {
+            logger.trace(message("Received event [" + eventData + "]"));
+        }
+        return eventData;
+    }
+
+    /**
+     * Handles a single event, either by the calling thread or by the dispatch worker of its routing value.
+     */
+    protected void handleEvent(final Object eventData, final RemoteEvent remoteEvent) {
+        OrderedEventDispatcher dispatcher = eventDispatcher;
+        if (dispatcher == null) {
+            invokeListenerWithTransaction(eventData, remoteEvent, performTakeOnNotify, ignoreEventOnNullTake);
+            return;
+        }
+        dispatch(dispatcher, dispatcher.getWorkerIndex(eventKeyResolver.getRoutingKey(eventData)), new Runnable() {
+            public void run() {
+                invokeListenerWithTransaction(eventData, remoteEvent, performTakeOnNotify, ignoreEventOnNullTake);
+            }
+        });
+    }
+
+    /**
+     * Hands off the given task to the given worker. The task is never executed by the calling thread before
+     * the tasks already queued for the worker, which would break the order of the events of their keys.
+     */
+    private void dispatch(OrderedEventDispatcher dispatcher, int worker, Runnable task) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    dispatcher.dispatchToWorker(worker, task);
+                    return;
+                } catch (InterruptedException e) {
+                    // keep waiting for room, the interrupt is restored once the task is dispatched
+                    interrupted = true;
+                } catch (IllegalStateException e) {
+                    // the dispatcher was stopped while the event was delivered, process the event with the
+                    // calling thread once the worker executed the events already queued
+                    try {
+                        if (dispatcher.awaitWorkerTermination(worker, DISPATCH_SHUTDOWN_TIMEOUT)) {
+                            task.run();
+                            return;
+                        }
+                    } catch (InterruptedException e1) {
+                        interrupted = true;
+                    }
+                    handleListenerException(new IllegalStateException("Event was not processed, dispatch worker [" + worker
+                            + "] did not complete its pending events after the dispatcher was stopped"));
+                    return;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    protected void registerMetrics() {
+        super.registerMetrics();
+        if (coalesceEventsById) {
+            registerMetric("coalesced-events", coalescedEvents);
+        }
+        if (dispatchWorkers > 0) {
+            registerMetric("dispatch-pending-events", new Gauge<Integer>() {
+                @Override
+                public Integer getValue() throws Exception {
+                    OrderedEventDispatcher dispatcher = eventDispatcher;
+                    return dispatcher == null ? 0 : dispatcher.getPendingTasks();
+                }
+            });
+        }
+    }
+
     /**
      * A simple remote listener delegate that delegates remote events to invocations of the
      * registered
@@ -1194,16 +1477,7 @@ public class SimpleNotifyEventListenerContainer extends AbstractEventListenerCon
 //            if (!isRunning()) {
 //                return;
 //            }
-            Object eventData;
-            try {
-                eventData = ((EntryArrivedRemoteEvent) remoteEvent).getObject();
-            } catch (net.jini.core.entry.UnusableEntryException e) {
-                throw new UnusableEntryException("Failure to get object from event [" + remoteEvent + "]", e);
-            }
-            if (logger.isTraceEnabled()) {
-                logger.trace(message("Received event [" + eventData + "]"));
-            }
-            invokeListenerWithTransaction(eventData, remoteEvent, performTakeOnNotify, ignoreEventOnNullTake);
+            handleEvent(getEventData(remoteEvent), remoteEvent);
         }
     }
 
@@ -1220,16 +1494,7 @@ public class SimpleNotifyEventListenerContainer extends AbstractEventListenerCon
 //            if (!isRunning()) {
 //                return;
 //            }
-            Object eventData;
-            try {
-                eventData = ((EntryArrivedRemoteEvent) remoteEvent).getObject();
-            } catch (net.jini.core.entry.UnusableEntryException e) {
-                throw new UnusableEntryException("Failure to get object from event [" + remoteEvent + "]", e);
-            }
-            if (logger.isTraceEnabled()) {
-                logger.trace(message("Received event [" + eventData + "]"));
-            }
-            invokeListenerWithTransaction(eventData, remoteEvent, performTakeOnNotify, ignoreEventOnNullTake);
+            handleEvent(getEventData(remoteEvent), remoteEvent);
         }
     }
 }
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2006-2007 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.events.notify;
+
+import com.gigaspaces.document.SpaceDocument;
+import com.gigaspaces.metadata.SpaceTypeDescriptor;
+import org.openspaces.core.GigaSpace;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Resolves the space id and routing values of event data objects (POJOs or
+ * {@link com.gigaspaces.document.SpaceDocument}s) based on their space type descriptor. The
+ * descriptor and the property accessors of each type are looked up once and cached.
+ *
+ * @see SimpleNotifyEventListenerContainer#setCoalesceEventsById(boolean)
+ * @see SimpleNotifyEventListenerContainer#setDispatchWorkers(int)
+ */
+public class SpaceEventKeyResolver {
+
+    private final GigaSpace gigaSpace;
+
+    private final ConcurrentMap<Object, TypeKeys> typeKeys = new ConcurrentHashMap<Object, TypeKeys>();
+
+    public SpaceEventKeyResolver(GigaSpace gigaSpace) {
+        this.gigaSpace = gigaSpace;
+    }
+
+    /**
+     * Returns the space id of the given event data, or <code>null</code> if the type has no id property.
+     */
+    public Object getId(Object eventData) {
+        return getTypeKeys(eventData).getId(eventData);
+    }
+
+    /**
+     * Returns the routing value of the given event data, which is the id if the type does not declare a
+     * routing property. Returns <code>null</code> if neither is available.
+     */
+    public Object getRoutingKey(Object eventData) {
+        return getTypeKeys(eventData).getRouting(eventData);
+    }
+
+    /**
+     * Returns the indexes of the entries that remain once the entries are coalesced by the given keys:
+     * only the last entry of each key is kept, in the order of the last occurrences. Entries with a
+     * <code>null</code> key are always kept.
+     */
+    public static int[] indexesOfLatest(Object[] keys) {
+        Map<Object, Integer> lastIndexes = new HashMap<Object, Integer>(keys.length * 2);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                lastIndexes.put(keys[i], i);
+            }
+        }
+        int[] indexes = new int[keys.length];
+        int count = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == null || lastIndexes.get(keys[i]) == i) {
+                indexes[count++] = i;
+            }
+        }
+        if (count == keys.length) {
+            return indexes;
+        }
+        int[] result = new int[count];
+        System.arraycopy(indexes, 0, result, 0, count);
+        return result;
+    }
+
+    private TypeKeys getTypeKeys(Object eventData) {
+        Object typeKey = eventData instanceof SpaceDocument ? ((SpaceDocument) eventData).getTypeName() : eventData.getClass();
+        TypeKeys keys = typeKeys.get(typeKey);
+        if (keys == null) {
+            keys = createTypeKeys(eventData);
+            TypeKeys existing = typeKeys.putIfAbsent(typeKey, keys);
+            if (existing != null) {
+                keys = existing;
+            }
+        }
+        return keys;
+    }
+
+    private TypeKeys createTypeKeys(Object eventData) {
+        SpaceTypeDescriptor typeDescriptor;
+        if (eventData instanceof SpaceDocument) {
+            typeDescriptor = gigaSpace.getTypeManager().getTypeDescriptor(((SpaceDocument) eventData).getTypeName());
+        } else {
+            typeDescriptor = gigaSpace.getTypeManager().getTypeDescriptor(eventData.getClass());
+        }
+        String idProperty = typeDescriptor == null ? null : typeDescriptor.getIdPropertyName();
+        String routingProperty = typeDescriptor == null ? null : typeDescriptor.getRoutingPropertyName();
+        if (routingProperty == null) {
+            routingProperty = idProperty;
+        }
+        if (eventData instanceof SpaceDocument) {
+            return new DocumentTypeKeys(idProperty, routingProperty);
+        }
+        return new PojoTypeKeys(readMethod(eventData.getClass(), idProperty), readMethod(eventData.getClass(), routingProperty));
+    }
+
+    private static Method readMethod(Class<?> type, String property) {
+        if (property == null) {
+            return null;
+        }
+        PropertyDescriptor propertyDescriptor = BeanUtils.getPropertyDescriptor(type, property);
+        if (propertyDescriptor == null || propertyDescriptor.getReadMethod() == null) {
+            return null;
+        }
+        Method method = propertyDescriptor.getReadMethod();
+        ReflectionUtils.makeAccessible(method);
+        return method;
+    }
+
+    private static interface TypeKeys {
+
+        Object getId(Object eventData);
+
+        Object getRouting(Object eventData);
+    }
+
+    private static class DocumentTypeKeys implements TypeKeys {
+
+        private final String idProperty;
+
+        private final String routingProperty;
+
+        DocumentTypeKeys(String idProperty, String routingProperty) {
+            this.idProperty = idProperty;
+            this.routingProperty = routingProperty;
+        }
+
+        public Object getId(Object eventData) {
+            return idProperty == null ? null : ((SpaceDocument) eventData).getProperty(idProperty);
+        }
+
+        public Object getRouting(Object eventData) {
+            return routingProperty == null ? null : ((SpaceDocument) eventData).getProperty(routingProperty);
+        }
+    }
+
+    private static class PojoTypeKeys implements TypeKeys {
+
+        private final Method idMethod;
+
+        private final Method routingMethod;
+
+        PojoTypeKeys(Method idMethod, Method routingMethod) {
+            this.idMethod = idMethod;
+            this.routingMethod = routingMethod;
+        }
+
+        public Object getId(Object eventData) {
+            return idMethod == null ? null : ReflectionUtils.invokeMethod(idMethod, eventData);
+        }
+
+        public Object getRouting(Object eventData) {
+            return routingMethod == null ? null : ReflectionUtils.invokeMethod(routingMethod, eventData);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2006-2007 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.events.polling;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Computes the number of events received by a single receive operation of a polling container
+ * based on the observed backlog and listener latency.
+ *
+ * <p>After each batch is processed:
+ * <ul>
+ * <li>If the listener took longer than the latency target, the batch size is reduced to the number of
+ * events the listener is expected to process within the target.</li>
+ * <li>Otherwise, if a full batch was received (meaning more events are probably waiting), the batch size
+ * is doubled, as long as the listener is expected to process it within the target.</li>
+ * <li>Otherwise (no backlog), the batch size slowly decays towards the number of received events.</li>
+ * </ul>
+ *
+ * <p>The batch size is shared by all the consumers of the container and updated without locking, a lost
+ * update only delays the adaptation by a single batch.
+ */
+public class AdaptiveBatchSize {
+
+    private final int minBatchSize;
+
+    private final int maxBatchSize;
+
+    private final long latencyTargetNanos;
+
+    private final AtomicInteger batchSize;
+
+    /**
+     * @param initialBatchSize   the batch size used until the first batch is processed
+     * @param minBatchSize       the minimum batch size
+     * @param maxBatchSize       the maximum batch size
+     * @param latencyTargetNanos the maximum time the listener should spend processing a single batch
+     */
+    public AdaptiveBatchSize(int initialBatchSize, int minBatchSize, int maxBatchSize, long latencyTargetNanos) {
+        if (minBatchSize < 1 || maxBatchSize < minBatchSize) {
+            throw new IllegalArgumentException("Illegal batch size range [" + minBatchSize + ", " + maxBatchSize + "]");
+        }
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.latencyTargetNanos = latencyTargetNanos;
+        this.batchSize = new AtomicInteger(bound(initialBatchSize));
+    }
+
+    /**
+     * Returns the number of events to receive in the next receive operation.
+     */
+    public int getBatchSize() {
+        return batchSize.get();
+    }
+
+    /**
+     * Updates the batch size after a batch was processed.
+     *
+     * @param receivedEvents the number of events received
+     * @param listenerNanos  the time the listener spent processing the received events
+     */
+    public void update(int receivedEvents, long listenerNanos) {
+        if (receivedEvents <= 0) {
+            return;
+        }
+        int current = batchSize.get();
+        long nanosPerEvent = Math.max(1, listenerNanos / receivedEvents);
+        // the number of events that can be processed within the latency target
+        long affordable = latencyTargetNanos / nanosPerEvent;
+        int next;
+        if (listenerNanos > latencyTargetNanos) {
+            next = (int) Math.min(current - 1, affordable);
+        } else if (receivedEvents >= current) {
+            next = (int) Math.min((long) current * 2, Math.max(affordable, current));
+        } else {
+            next = Math.max(receivedEvents, current - Math.max(1, current / 4));
+        }
+        batchSize.compareAndSet(current, bound(next));
+    }
+
+    private int bound(int value) {
+        return Math.max(minBatchSize, Math.min(maxBatchSize, value));
+    }
+
+    @Override
+    public String toString() {
+        return "batchSize[" + getBatchSize() + "], minBatchSize[" + minBatchSize + "], maxBatchSize[" + maxBatchSize
+                + "], latencyTarget[" + (latencyTargetNanos / 1000000) + "ms]";
+    }
+}
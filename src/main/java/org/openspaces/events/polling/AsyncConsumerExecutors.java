@@ -0,0 +1,85 @@
+/*
+ * Copyright 2006-2007 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.events.polling;
+
+import com.j_spaces.kernel.threadpool.DynamicExecutors;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Holds the executors shared by all the polling containers of the JVM running with async consumers.
+ *
+ * <p>When the JVM supports virtual threads (Java 21 and above), a virtual thread per task executor is
+ * used, otherwise a fixed pool of daemon threads, sized to four times the number of available
+ * processors.
+ *
+ * @see SimplePollingEventListenerContainer#setAsyncConsumers(boolean)
+ */
+final class AsyncConsumerExecutors {
+
+    private static final Object mutex = new Object();
+
+    private static final Method newVirtualThreadPerTaskExecutor = findNewVirtualThreadPerTaskExecutor();
+
+    private static ExecutorService virtualThreadExecutor;
+
+    private static ExecutorService platformThreadExecutor;
+
+    private AsyncConsumerExecutors() {
+    }
+
+    /**
+     * Returns <code>true</code> if the JVM supports virtual threads.
+     */
+    static boolean isVirtualThreadsSupported() {
+        return newVirtualThreadPerTaskExecutor != null;
+    }
+
+    /**
+     * Returns the shared executor, using virtual threads if requested and supported.
+     */
+    static Executor getSharedExecutor(boolean useVirtualThreads) {
+        synchronized (mutex) {
+            if (useVirtualThreads && isVirtualThreadsSupported()) {
+                if (virtualThreadExecutor == null) {
+                    try {
+                        virtualThreadExecutor = (ExecutorService) newVirtualThreadPerTaskExecutor.invoke(null);
+                    } catch (Exception e) {
+                        throw new IllegalStateException("Failed to create virtual threads executor", e);
+                    }
+                }
+                return virtualThreadExecutor;
+            }
+            if (platformThreadExecutor == null) {
+                platformThreadExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 4,
+                        DynamicExecutors.daemonThreadFactory("GS-polling-async-consumer"));
+            }
+            return platformThreadExecutor;
+        }
+    }
+
+    private static Method findNewVirtualThreadPerTaskExecutor() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -24,6 +24,7 @@ import org.openspaces.events.adapter.AnnotationDynamicEventTemplateProviderAdapt
 import org.openspaces.events.adapter.AnnotationEventListenerAdapter;
 import org.openspaces.events.adapter.MethodEventListenerAdapter;
 import org.openspaces.events.adapter.MethodDynamicEventTemplateProviderAdapter;
+import org.openspaces.events.asyncpolling.receive.AsyncOperationHandler;
 import org.openspaces.events.polling.receive.ReceiveOperationHandler;
 import org.openspaces.events.polling.trigger.TriggerOperationHandler;
 import org.springframework.core.task.TaskExecutor;
@@ -124,6 +125,78 @@ public class SimplePollingContainerConfigurer {
         return this;
     }
 
+    /**
+     * @see org.openspaces.events.polling.SimplePollingEventListenerContainer#setAdaptiveBatchSize(boolean)
+     */
+    public SimplePollingContainerConfigurer adaptiveBatchSize(boolean adaptiveBatchSize) {
+        pollingEventListenerContainer.setAdaptiveBatchSize(adaptiveBatchSize);
+        return this;
+    }
+
+    /**
+     * @see org.openspaces.events.polling.SimplePollingEventListenerContainer#setMinBatchSize(int)
+     */
+    public SimplePollingContainerConfigurer minBatchSize(int minBatchSize) {
+        pollingEventListenerContainer.setMinBatchSize(minBatchSize);
+        return this;
+    }
+
+    /**
+     * @see org.openspaces.events.polling.SimplePollingEventListenerContainer#setMaxBatchSize(int)
+     */
+    public SimplePollingContainerConfigurer maxBatchSize(int maxBatchSize) {
+        pollingEventListenerContainer.setMaxBatchSize(maxBatchSize);
+        return this;
+    }
+
+    /**
+     * @see org.openspaces.events.polling.SimplePollingEventListenerContainer#setBatchLatencyTarget(long)
+     */
+    public SimplePollingContainerConfigurer batchLatencyTarget(long batchLatencyTarget) {
+        pollingEventListenerContainer.setBatchLatencyTarget(batchLatencyTarget);
+        return this;
+    }
+
+    /**
+     * @see org.openspaces.events.polling.SimplePollingEventListenerContainer#setRecordHistograms(boolean)
+     */
+    public SimplePollingContainerConfigurer recordHistograms(boolean recordHistograms) {
+        pollingEventListenerContainer.setRecordHistograms(recordHistograms);
+        return this;
+    }
+
+    /**
+     * @see org.openspaces.events.polling.SimplePollingEventListenerContainer#setHistogramsInterval(long)
+     */
+    public SimplePollingContainerConfigurer histogramsInterval(long histogramsInterval) {
+        pollingEventListenerContainer.setHistogramsInterval(histogramsInterval);
+        return this;
+    }
+
+    /**
+     * @see org.openspaces.events.polling.SimplePollingEventListenerContainer#setAsyncConsumers(boolean)
+     */
+    public SimplePollingContainerConfigurer asyncConsumers(boolean asyncConsumers) {
+        pollingEventListenerContainer.setAsyncConsumers(asyncConsumers);
+        return this;
+    }
+
+    /**
+     * @see org.openspaces.events.polling.SimplePollingEventListenerContainer#setUseVirtualThreads(boolean)
+     */
+    public SimplePollingContainerConfigurer useVirtualThreads(boolean useVirtualThreads) {
+        pollingEventListenerContainer.setUseVirtualThreads(useVirtualThreads);
+        return this;
+    }
+
+    /**
+     * @see org.openspaces.events.polling.SimplePollingEventListenerContainer#setAsyncWaitOperationHandler(org.openspaces.events.asyncpolling.receive.AsyncOperationHandler)
+     */
+    public SimplePollingContainerConfigurer asyncWaitOperationHandler(AsyncOperationHandler asyncWaitOperationHandler) {
+        pollingEventListenerContainer.setAsyncWaitOperationHandler(asyncWaitOperationHandler);
+        return this;
+    }
+
     /**
      * @see org.openspaces.events.polling.SimplePollingEventListenerContainer#setReceiveTimeout(long)
      */
@@ -22,11 +22,20 @@ import java.lang.reflect.Array;
 import java.lang.reflect.Method;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
+import com.gigaspaces.async.AsyncFutureListener;
+import com.gigaspaces.async.AsyncResult;
+import com.gigaspaces.metrics.Gauge;
 import org.openspaces.core.SpaceInterruptedException;
+import org.openspaces.core.util.IntervalHistogram;
 import org.openspaces.events.AbstractEventListenerContainer;
 import org.openspaces.events.SpaceDataEventListener;
+import org.openspaces.events.asyncpolling.receive.AsyncOperationHandler;
+import org.openspaces.events.asyncpolling.receive.SingleReadAsyncOperationHandler;
+import org.openspaces.events.polling.receive.BatchReceiveOperationHandler;
 import org.openspaces.events.polling.receive.ReceiveOperationHandler;
 import org.openspaces.events.polling.receive.SingleTakeReceiveOperationHandler;
 import org.openspaces.events.polling.trigger.TriggerOperationHandler;
@@ -78,6 +87,18 @@ import org.springframework.util.ReflectionUtils;
  * might break fifo behavior if fifo is configured by the space or the specific class type, however, this is not
  * the case when using fifo grouping.
  *
+ * <p>
+ * When using a receive operation handler that receives several events at once (such as
+ * {@link org.openspaces.events.polling.receive.MultiTakeReceiveOperationHandler}), the number of events
+ * received at once can be adapted at runtime to the backlog and the listener latency by enabling
+ * {@link #setAdaptiveBatchSize "adaptiveBatchSize"}.
+ *
+ * <p>
+ * Containers that are idle most of the time can enable {@link #setAsyncConsumers "asyncConsumers"}, in
+ * which case no thread is kept blocked waiting for events. Instead, each consumer waits using an async
+ * read operation, and events are received and processed on an executor shared by all the containers of
+ * the JVM (using virtual threads when available).
+ *
  * @author kimchy
  */
 public class SimplePollingEventListenerContainer extends AbstractEventListenerContainer {
@@ -98,6 +119,22 @@ public class SimplePollingEventListenerContainer extends AbstractEventListenerCo
      */
     public static final long DEFAULT_RECEIVE_TIMEOUT = 60000;
 
+    /**
+     * The default maximum batch size when using adaptive batch size: 1000.
+     */
+    public static final int DEFAULT_MAX_BATCH_SIZE = 1000;
+
+    /**
+     * The default listener latency target of a single batch when using adaptive batch size: 100 ms.
+     */
+    public static final long DEFAULT_BATCH_LATENCY_TARGET = 100;
+
+    /**
+     * The number of receive operations in a row an async consumer performs before yielding the shared
+     * executor: 10.
+     */
+    public static final int ASYNC_CONSUMER_RECEIVE_LIMIT = 10;
+
     private boolean passArrayAsIs = false;
     private long receiveTimeout = DEFAULT_RECEIVE_TIMEOUT;
     private ReceiveOperationHandler receiveOperationHandler;
@@ -107,9 +144,9 @@ public class SimplePollingEventListenerContainer extends AbstractEventListenerCo
 
     private long recoveryInterval = DEFAULT_RECOVERY_INTERVAL;
 
-    private int concurrentConsumers = 1;
+    private volatile int concurrentConsumers = 1;
 
-    private int maxConcurrentConsumers = 1;
+    private volatile int maxConcurrentConsumers = 1;
 
     private int maxEventsPerTask = Integer.MIN_VALUE;
 
@@ -121,10 +158,45 @@ public class SimplePollingEventListenerContainer extends AbstractEventListenerCo
 
     private final Object activeInvokerMonitor = new Object();
 
-    private Object currentRecoveryMarker = new Object();
+    private volatile Object currentRecoveryMarker = new Object();
 
     private final Object recoveryMonitor = new Object();
 
+    private boolean adaptiveBatchSize = false;
+
+    private int minBatchSize = 1;
+
+    private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+    private long batchLatencyTarget = DEFAULT_BATCH_LATENCY_TARGET;
+
+    private volatile AdaptiveBatchSize batchSizeController;
+
+    private boolean recordHistograms = false;
+
+    private long histogramsInterval = IntervalHistogram.DEFAULT_INTERVAL;
+
+    private IntervalHistogram batchSizeHistogram;
+
+    private IntervalHistogram receiveLatencyHistogram;
+
+    private IntervalHistogram listenerLatencyHistogram;
+
+    private boolean asyncConsumers = false;
+
+    private boolean useVirtualThreads = true;
+
+    private AsyncOperationHandler asyncWaitOperationHandler;
+
+    private Executor asyncConsumerExecutor;
+
+    private int asyncConsumerCount = 0;
+
+    /**
+     * Set while an async consumer receives events, so the receive operations do not block the shared executor
+     */
+    private final ThreadLocal<Boolean> nonBlockingReceive = new ThreadLocal<Boolean>();
+
     /* (non-Javadoc)
      * @see org.openspaces.events.AbstractTransactionalEventListenerContainer#validateConfiguration()
     */
@@ -203,6 +275,129 @@ public class SimplePollingEventListenerContainer extends AbstractEventListenerCo
         return this.triggerOperationHandler;
     }
 
+    /**
+     * If set to <code>true</code>, the number of events received at once is adapted to the observed
+     * backlog and listener latency: it grows while full batches are received and processed within the
+     * {@link #setBatchLatencyTarget(long) batchLatencyTarget}, and shrinks when processing a batch takes
+     * longer than the target. Starts with the max entries of the receive operation handler. Requires a
+     * {@link org.openspaces.events.polling.receive.BatchReceiveOperationHandler}, such as
+     * {@link org.openspaces.events.polling.receive.MultiTakeReceiveOperationHandler}, and is ignored
+     * otherwise. Defaults to <code>false</code>.
+     */
+    public void setAdaptiveBatchSize(boolean adaptiveBatchSize) {
+        this.adaptiveBatchSize = adaptiveBatchSize;
+    }
+
+    protected boolean isAdaptiveBatchSize() {
+        return adaptiveBatchSize;
+    }
+
+    /**
+     * Sets the minimum number of events received at once when using adaptive batch size. Defaults to
+     * <code>1</code>.
+     */
+    public void setMinBatchSize(int minBatchSize) {
+        Assert.isTrue(minBatchSize > 0, "'minBatchSize' must be 1 or higher");
+        this.minBatchSize = minBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of events received at once when using adaptive batch size. Defaults to
+     * <code>1000</code>.
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        Assert.isTrue(maxBatchSize > 0, "'maxBatchSize' must be 1 or higher");
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Sets the maximum time, in <b>milliseconds</b>, the listener should spend processing a single batch
+     * when using adaptive batch size. Note that when working with transactions, this also bounds the time
+     * the received events are locked under the transaction. Defaults to <code>100</code> ms.
+     */
+    public void setBatchLatencyTarget(long batchLatencyTarget) {
+        Assert.isTrue(batchLatencyTarget > 0, "'batchLatencyTarget' must be positive");
+        this.batchLatencyTarget = batchLatencyTarget;
+    }
+
+    /**
+     * If set to <code>true</code>, the number of events received at once, the latency of receive operations that
+     * returned events and the latency of the listener are recorded in histograms, and their mean, percentiles and
+     * max over the last {@link #setHistogramsInterval(long) histogramsInterval} are published as metrics.
+     * Recording costs a couple of clock readings and atomic increments per batch. Defaults to <code>false</code>.
+     */
+    public void setRecordHistograms(boolean recordHistograms) {
+        this.recordHistograms = recordHistograms;
+    }
+
+    protected boolean isRecordHistograms() {
+        return recordHistograms;
+    }
+
+    /**
+     * Sets the length, in <b>milliseconds</b>, of the intervals the recorded histograms are reported for. Each
+     * reported value only reflects the events of the last interval. Defaults to <code>60000</code> ms.
+     */
+    public void setHistogramsInterval(long histogramsInterval) {
+        Assert.isTrue(histogramsInterval > 0, "'histogramsInterval' must be positive");
+        this.histogramsInterval = histogramsInterval;
+    }
+
+    /**
+     * If set to <code>true</code>, consumers do not block a thread while waiting for events. Each consumer
+     * waits for an event using an async operation (see {@link #setAsyncWaitOperationHandler(AsyncOperationHandler)}),
+     * and once notified, receives and processes events on a shared executor using non blocking receive
+     * operations (with the configured receive operation handler, trigger handler and transaction manager) until
+     * no more events are available, and then goes back to waiting.
+     *
+     * <p>The number of consumers is driven by the backlog: a consumer that keeps receiving events starts another
+     * consumer, up to "maxConcurrentConsumers", and consumers above "concurrentConsumers" stop after
+     * "idleTaskExecutionLimit" async waits that timed out.
+     *
+     * <p>Events are processed using the configured {@link #setTaskExecutor(TaskExecutor) taskExecutor}, or if
+     * none is configured, by an executor shared by all the polling containers in the JVM. Defaults to
+     * <code>false</code>.
+     *
+     * @see #setUseVirtualThreads(boolean)
+     */
+    public void setAsyncConsumers(boolean asyncConsumers) {
+        this.asyncConsumers = asyncConsumers;
+    }
+
+    protected boolean isAsyncConsumers() {
+        return asyncConsumers;
+    }
+
+    /**
+     * Sets if the shared executor used by async consumers should use virtual threads when the JVM supports them.
+     * Defaults to <code>true</code>.
+     *
+     * @see #setAsyncConsumers(boolean)
+     */
+    public void setUseVirtualThreads(boolean useVirtualThreads) {
+        this.useVirtualThreads = useVirtualThreads;
+    }
+
+    /**
+     * Sets the async operation async consumers use to wait for events. The operation must not remove the
+     * event from the space, since the event is received by the receive operation handler once the wait
+     * completes. Defaults to {@link org.openspaces.events.asyncpolling.receive.SingleReadAsyncOperationHandler}.
+     *
+     * @see #setAsyncConsumers(boolean)
+     */
+    public void setAsyncWaitOperationHandler(AsyncOperationHandler asyncWaitOperationHandler) {
+        this.asyncWaitOperationHandler = asyncWaitOperationHandler;
+    }
+
+    /**
+     * Returns the current number of events received at once, or <code>-1</code> if adaptive batch size
+     * is not used.
+     */
+    public int getCurrentBatchSize() {
+        AdaptiveBatchSize controller = batchSizeController;
+        return controller == null ? -1 : controller.getBatchSize();
+    }
+
     /**
      * Set the Spring {@link org.springframework.core.task.TaskExecutor} to use for running the
      * listener threads. Default is {@link org.springframework.core.task.SimpleAsyncTaskExecutor},
@@ -399,7 +594,13 @@ public class SimplePollingEventListenerContainer extends AbstractEventListenerCo
     public void initialize() {
         // Prepare taskExecutor and maxEventsPerTask.
         synchronized (this.activeInvokerMonitor) {
-            if (this.taskExecutor == null) {
+            if (this.asyncConsumers) {
+                this.asyncConsumerExecutor = this.taskExecutor != null ? this.taskExecutor
+                        : AsyncConsumerExecutors.getSharedExecutor(this.useVirtualThreads);
+                if (this.asyncWaitOperationHandler == null) {
+                    this.asyncWaitOperationHandler = new SingleReadAsyncOperationHandler();
+                }
+            } else if (this.taskExecutor == null) {
                 this.taskExecutor = createDefaultTaskExecutor();
             } else if (this.taskExecutor instanceof SchedulingTaskExecutor
                     && ((SchedulingTaskExecutor) this.taskExecutor).prefersShortLivedTasks()
@@ -413,13 +614,19 @@ public class SimplePollingEventListenerContainer extends AbstractEventListenerCo
 
         initReceiveOperationHandler();
         initTriggerOperationHandler();
+        initAdaptiveBatchSize();
+        initHistograms();
         // Proceed with actual listener initialization.
         super.initialize();
 
         // now, start the scheduled threads
         synchronized (this.activeInvokerMonitor) {
             for (int i = 0; i < this.concurrentConsumers; i++) {
-                scheduleNewInvoker();
+                if (this.asyncConsumers) {
+                    scheduleNewAsyncConsumer();
+                } else {
+                    scheduleNewInvoker();
+                }
             }
         }
     }
@@ -472,6 +679,28 @@ public class SimplePollingEventListenerContainer extends AbstractEventListenerCo
         }
     }
 
+    private void initAdaptiveBatchSize() {
+        if (!adaptiveBatchSize) {
+            return;
+        }
+        if (!(receiveOperationHandler instanceof BatchReceiveOperationHandler)) {
+            logger.warn(message("Adaptive batch size is ignored since receive operation handler [" + receiveOperationHandler
+                    + "] does not receive batches"));
+            return;
+        }
+        int initialBatchSize = ((BatchReceiveOperationHandler) receiveOperationHandler).getMaxEntries();
+        batchSizeController = new AdaptiveBatchSize(initialBatchSize, minBatchSize, Math.max(minBatchSize, maxBatchSize),
+                TimeUnit.MILLISECONDS.toNanos(batchLatencyTarget));
+    }
+
+    private void initHistograms() {
+        if (recordHistograms) {
+            batchSizeHistogram = new IntervalHistogram(histogramsInterval);
+            receiveLatencyHistogram = new IntervalHistogram(histogramsInterval);
+            listenerLatencyHistogram = new IntervalHistogram(histogramsInterval);
+        }
+    }
+
     @Override
     protected void doAfterStart() throws DataAccessException {
         super.doAfterStart();
@@ -492,6 +721,12 @@ public class SimplePollingEventListenerContainer extends AbstractEventListenerCo
             if (maxConcurrentConsumers != concurrentConsumers) {
                 sb.append(", maxConcurrentConsumers [").append(maxConcurrentConsumers).append("]");
             }
+            if (batchSizeController != null) {
+                sb.append(", adaptive ").append(batchSizeController);
+            }
+            if (asyncConsumers) {
+                sb.append(", async consumers");
+            }
             logger.debug(sb.toString());
         }
     }
@@ -527,7 +762,11 @@ public class SimplePollingEventListenerContainer extends AbstractEventListenerCo
      */
     @Override
     protected void doRescheduleTask(Object task) {
-        this.taskExecutor.execute((Runnable) task);
+        if (task instanceof AsyncEventConsumer) {
+            this.asyncConsumerExecutor.execute((Runnable) task);
+        } else {
+            this.taskExecutor.execute((Runnable) task);
+        }
     }
 
     /**
@@ -553,6 +792,11 @@ public class SimplePollingEventListenerContainer extends AbstractEventListenerCo
      * @see #getMaxConcurrentConsumers()
      */
     protected void scheduleNewInvokerIfAppropriate() {
+        if (this.maxConcurrentConsumers <= this.concurrentConsumers || this.asyncConsumers) {
+            // no dynamic scaling (or scaling driven by the async consumers backlog), avoid acquiring
+            // the monitor for every received event
+            return;
+        }
         if (isRunning()) {
             synchronized (this.activeInvokerMonitor) {
                 if (this.scheduledInvokers.size() < this.maxConcurrentConsumers && !hasIdleInvokers()) {
@@ -576,6 +820,55 @@ public class SimplePollingEventListenerContainer extends AbstractEventListenerCo
         this.activeInvokerMonitor.notifyAll();
     }
 
+    /**
+     * Schedule a new async consumer, increasing the total number of async consumers for this listener
+     * container. Must be called while holding the invoker monitor.
+     */
+    private void scheduleNewAsyncConsumer() {
+        this.asyncConsumerCount++;
+        AsyncEventConsumer consumer = new AsyncEventConsumer();
+        if (!rescheduleTaskIfNecessary(consumer)) {
+            this.asyncConsumerCount--;
+        }
+        this.activeInvokerMonitor.notifyAll();
+    }
+
+    /**
+     * Schedule a new async consumer in case of a backlog, if the "maxConcurrentConsumers" limit has not been
+     * reached yet.
+     */
+    private void scheduleNewAsyncConsumerIfAppropriate() {
+        if (this.maxConcurrentConsumers <= this.concurrentConsumers || !isRunning()) {
+            return;
+        }
+        synchronized (this.activeInvokerMonitor) {
+            if (this.asyncConsumerCount < this.maxConcurrentConsumers) {
+                scheduleNewAsyncConsumer();
+                if (logger.isDebugEnabled()) {
+                    logger.debug(message("Raised async consumer count [" + asyncConsumerCount + "]"));
+                }
+            }
+        }
+    }
+
+    /**
+     * Determine whether an async consumer that has been idle for the given number of async waits in a row
+     * should stop, and if so, lowers the async consumers count.
+     */
+    private boolean shouldStopAsyncConsumer(int idleWaitCount) {
+        synchronized (this.activeInvokerMonitor) {
+            if (isActive() && (idleWaitCount < this.idleTaskExecutionLimit || this.asyncConsumerCount <= this.concurrentConsumers)) {
+                return false;
+            }
+            this.asyncConsumerCount--;
+            if (logger.isDebugEnabled()) {
+                logger.debug(message("Lowered async consumer count [" + asyncConsumerCount + "]"));
+            }
+            this.activeInvokerMonitor.notifyAll();
+            return true;
+        }
+    }
+
     /**
      * Determine whether this listener container currently has any idle instances among its
      * scheduled invokers.
@@ -617,7 +910,7 @@ public class SimplePollingEventListenerContainer extends AbstractEventListenerCo
      */
     public final int getScheduledConsumerCount() {
         synchronized (this.activeInvokerMonitor) {
-            return this.scheduledInvokers.size();
+            return this.scheduledInvokers.size() + this.asyncConsumerCount;
         }
     }
 
@@ -766,6 +1059,35 @@ public class SimplePollingEventListenerContainer extends AbstractEventListenerCo
         writer.println("Consumers             : [" + getConcurrentConsumers() + "]");
         writer.println("Max Consumers         : [" + getMaxConcurrentConsumers() + "]");
         writer.println("Pass Array            : [" + isPassArrayAsIs() + "]");
+        if (asyncConsumers) {
+            writer.println("Async Consumers       : [" + getScheduledConsumerCount() + "], wait handler [" + asyncWaitOperationHandler + "]");
+        }
+        if (batchSizeController != null) {
+            writer.println("Adaptive Batch Size   : [" + batchSizeController + "]");
+        }
+        if (batchSizeHistogram != null) {
+            writer.println("Batch Size            : [" + batchSizeHistogram + "]");
+            writer.println("Receive Latency (us)  : [" + receiveLatencyHistogram + "]");
+            writer.println("Listener Latency (us) : [" + listenerLatencyHistogram + "]");
+        }
+    }
+
+    @Override
+    protected void registerMetrics() {
+        super.registerMetrics();
+        if (batchSizeHistogram != null) {
+            registerHistogramMetrics("batch-size", batchSizeHistogram);
+            registerHistogramMetrics("receive-latency-micros", receiveLatencyHistogram);
+            registerHistogramMetrics("listener-latency-micros", listenerLatencyHistogram);
+        }
+        if (adaptiveBatchSize) {
+            registerMetric("adaptive-batch-size", new Gauge<Integer>() {
+                @Override
+                public Integer getValue() throws Exception {
+                    return getCurrentBatchSize();
+                }
+            });
+        }
     }
 
     // -------------------------------------------------------------------------
@@ -872,9 +1194,8 @@ public class SimplePollingEventListenerContainer extends AbstractEventListenerCo
         }
 
         private void updateRecoveryMarker() {
-            synchronized (recoveryMonitor) {
-                this.lastRecoveryMarker = currentRecoveryMarker;
-            }
+            // the marker is only replaced under the recovery monitor, reading the volatile reference is enough
+            this.lastRecoveryMarker = currentRecoveryMarker;
         }
 
         private void clearResources() {
@@ -895,6 +1216,110 @@ public class SimplePollingEventListenerContainer extends AbstractEventListenerCo
         }
     }
 
+    /**
+     * A consumer that does not hold a thread while waiting for events. Waits using an async operation,
+     * and once an event is available, receives and processes events on the async consumer executor until
+     * no more events are available.
+     */
+    private class AsyncEventConsumer implements Runnable, AsyncFutureListener<Object> {
+
+        private SpaceDataEventListener eventListener;
+
+        private int idleWaitCount = 0;
+
+        private boolean lastReceiveSucceeded = true;
+
+        private volatile boolean waitFailed = false;
+
+        public void run() {
+            synchronized (activeInvokerMonitor) {
+                activeInvokerCount++;
+            }
+            boolean backlog = false;
+            try {
+                if (waitFailed) {
+                    waitFailed = false;
+                    sleepInbetweenRecoveryAttempts();
+                }
+                if (eventListener == null) {
+                    eventListener = getEventListener();
+                }
+                int receiveCount = 0;
+                nonBlockingReceive.set(Boolean.TRUE);
+                try {
+                    while (isRunning() && receiveAndExecute(eventListener)) {
+                        if (++receiveCount >= ASYNC_CONSUMER_RECEIVE_LIMIT) {
+                            backlog = true;
+                            break;
+                        }
+                    }
+                } finally {
+                    nonBlockingReceive.remove();
+                }
+                lastReceiveSucceeded = true;
+            } catch (Throwable ex) {
+                if (!lastReceiveSucceeded) {
+                    // failed more than once in a row, back off before waiting again
+                    sleepInbetweenRecoveryAttempts();
+                }
+                lastReceiveSucceeded = false;
+                handleListenerSetupFailure(ex, false);
+            } finally {
+                synchronized (activeInvokerMonitor) {
+                    activeInvokerCount--;
+                    activeInvokerMonitor.notifyAll();
+                }
+            }
+            if (backlog) {
+                // more events are probably waiting, yield the executor to other consumers and scale up
+                scheduleNewAsyncConsumerIfAppropriate();
+                if (!rescheduleTaskIfNecessary(this)) {
+                    shouldStopAsyncConsumer(Integer.MAX_VALUE);
+                }
+            } else {
+                waitForEvent();
+            }
+        }
+
+        private void waitForEvent() {
+            if (!isActive()) {
+                shouldStopAsyncConsumer(Integer.MAX_VALUE);
+                return;
+            }
+            try {
+                asyncWaitOperationHandler.asyncReceive(getReceiveTemplate(), getGigaSpace(), getReceiveTimeout(), this);
+            } catch (RuntimeException ex) {
+                handleListenerSetupFailure(ex, false);
+                // retry on the executor, backing off for the recovery interval
+                waitFailed = true;
+                if (!rescheduleTaskIfNecessary(this)) {
+                    shouldStopAsyncConsumer(Integer.MAX_VALUE);
+                }
+            }
+        }
+
+        public void onResult(AsyncResult<Object> result) {
+            if (result.getException() != null) {
+                if (logger.isWarnEnabled()) {
+                    logger.warn(message("Async consumer wait operation failed"), result.getException());
+                }
+                waitFailed = true;
+                if (!rescheduleTaskIfNecessary(this)) {
+                    shouldStopAsyncConsumer(Integer.MAX_VALUE);
+                }
+            } else if (result.getResult() == null) {
+                if (!shouldStopAsyncConsumer(++idleWaitCount)) {
+                    waitForEvent();
+                }
+            } else {
+                idleWaitCount = 0;
+                if (!rescheduleTaskIfNecessary(this)) {
+                    shouldStopAsyncConsumer(Integer.MAX_VALUE);
+                }
+            }
+        }
+    }
+
     /**
      * Execute the listener for a message received from the given consumer, wrapping the entire
      * operation in an external transaction if demanded.
@@ -907,7 +1332,7 @@ public class SimplePollingEventListenerContainer extends AbstractEventListenerCo
         if (triggerOperationHandler != null) {
             Object trigger;
             try {
-                trigger = triggerOperationHandler.triggerReceive(template, getGigaSpace(), receiveTimeout);
+                trigger = triggerOperationHandler.triggerReceive(template, getGigaSpace(), getCurrentReceiveTimeout());
             } catch (SpaceInterruptedException e) {
                 return false;
             }
@@ -952,56 +1377,81 @@ public class SimplePollingEventListenerContainer extends AbstractEventListenerCo
     protected boolean doReceiveAndExecute(SpaceDataEventListener eventListener, Object template, TransactionStatus status) {
         Object dataEvent = receiveEvent(template);
         if (dataEvent != null) {
-            if (dataEvent instanceof Object[] && !passArrayAsIs) {
-                Object[] dataEvents = (Object[]) dataEvent;
-                for (Object dataEvent1 : dataEvents) {
-                    if (logger.isTraceEnabled()) {
-                        logger.trace(message("Received event [" + dataEvent + "]"));
-                    }
-                    eventReceived(dataEvent1);
-                    try {
-                        invokeListener(eventListener, dataEvent1, status, null);
-                    } catch (Throwable ex) {
-                        if (status != null) {
-                            // in case of an exception, we rollback the transaction and return
-                            // (since we rolled back)
-                            if (logger.isTraceEnabled()) {
-                                logger.trace(message("Rolling back transaction because of listener exception thrown: " + ex));
-                            }
-                            status.setRollbackOnly();
-                            handleListenerException(ex);
-                            return true;
-                        }
-                        // in case we do not work within a transaction, just handle the
-                        // exception and continue
-                        handleListenerException(ex);
-                    }
-                }
-            } else {
+            if (batchSizeHistogram == null && batchSizeController == null) {
+                processEvents(eventListener, dataEvent, status);
+                return true;
+            }
+            int receivedEvents = dataEvent instanceof Object[] ? ((Object[]) dataEvent).length : 1;
+            long listenerStartTime = System.nanoTime();
+            try {
+                processEvents(eventListener, dataEvent, status);
+            } finally {
+                batchExecuted(receivedEvents, System.nanoTime() - listenerStartTime);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void processEvents(SpaceDataEventListener eventListener, Object dataEvent, TransactionStatus status) {
+        if (dataEvent instanceof Object[] && !passArrayAsIs) {
+            Object[] dataEvents = (Object[]) dataEvent;
+            for (Object dataEvent1 : dataEvents) {
                 if (logger.isTraceEnabled()) {
                     logger.trace(message("Received event [" + dataEvent + "]"));
                 }
-                if (passArrayAsIs && !(dataEvent instanceof Object[])) {
-                    Object dataEventArr = Array.newInstance(dataEvent.getClass(), 1);
-                    Array.set(dataEventArr, 0, dataEvent);
-                    dataEvent = dataEventArr;
-                }
-                eventReceived(dataEvent);
+                eventReceived(dataEvent1);
                 try {
-                    invokeListener(eventListener, dataEvent, status, null);
+                    invokeListener(eventListener, dataEvent1, status, null);
                 } catch (Throwable ex) {
                     if (status != null) {
+                        // in case of an exception, we rollback the transaction and return
+                        // (since we rolled back)
                         if (logger.isTraceEnabled()) {
                             logger.trace(message("Rolling back transaction because of listener exception thrown: " + ex));
                         }
                         status.setRollbackOnly();
+                        handleListenerException(ex);
+                        return;
                     }
+                    // in case we do not work within a transaction, just handle the
+                    // exception and continue
                     handleListenerException(ex);
                 }
             }
-            return true;
+        } else {
+            if (logger.isTraceEnabled()) {
+                logger.trace(message("Received event [" + dataEvent + "]"));
+            }
+            if (passArrayAsIs && !(dataEvent instanceof Object[])) {
+                Object dataEventArr = Array.newInstance(dataEvent.getClass(), 1);
+                Array.set(dataEventArr, 0, dataEvent);
+                dataEvent = dataEventArr;
+            }
+            eventReceived(dataEvent);
+            try {
+                invokeListener(eventListener, dataEvent, status, null);
+            } catch (Throwable ex) {
+                if (status != null) {
+                    if (logger.isTraceEnabled()) {
+                        logger.trace(message("Rolling back transaction because of listener exception thrown: " + ex));
+                    }
+                    status.setRollbackOnly();
+                }
+                handleListenerException(ex);
+            }
+        }
+    }
+
+    private void batchExecuted(int receivedEvents, long listenerNanos) {
+        if (batchSizeHistogram != null) {
+            batchSizeHistogram.record(receivedEvents);
+            listenerLatencyHistogram.record(TimeUnit.NANOSECONDS.toMicros(listenerNanos));
+        }
+        AdaptiveBatchSize controller = batchSizeController;
+        if (controller != null) {
+            controller.update(receivedEvents, listenerNanos);
         }
-        return false;
     }
 
     /**
@@ -1023,12 +1473,35 @@ public class SimplePollingEventListenerContainer extends AbstractEventListenerCo
         }
     }
 
+    /**
+     * Returns the timeout the receive operations of the current thread should use, which is the
+     * {@link #setReceiveTimeout(long) receiveTimeout}, or <code>0</code> for an async consumer.
+     */
+    protected long getCurrentReceiveTimeout() {
+        return nonBlockingReceive.get() != null ? 0 : getReceiveTimeout();
+    }
+
     /**
      * Receive an event
      */
     protected Object receiveEvent(Object template) throws DataAccessException {
+        long receiveTimeout = getCurrentReceiveTimeout();
         try {
-            return receiveOperationHandler.receive(template, getGigaSpace(), getReceiveTimeout());
+            IntervalHistogram receiveLatencyHistogram = this.receiveLatencyHistogram;
+            long startTime = receiveLatencyHistogram != null ? System.nanoTime() : 0;
+            Object event;
+            AdaptiveBatchSize controller = batchSizeController;
+            if (controller != null) {
+                event = ((BatchReceiveOperationHandler) receiveOperationHandler).receive(template, getGigaSpace(), receiveTimeout,
+                        controller.getBatchSize());
+            } else {
+                event = receiveOperationHandler.receive(template, getGigaSpace(), receiveTimeout);
+            }
+            if (event != null && receiveLatencyHistogram != null) {
+                // receive operations that timed out only measure the idle time, so are not recorded
+                receiveLatencyHistogram.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime));
+            }
+            return event;
         } catch (SpaceInterruptedException e) {
             // we got an interrupted exception, it means no receive operation so return null.
             return null;
@@ -56,12 +56,21 @@ public abstract class AbstractNonBlockingReceiveOperationHandler implements Rece
      * operations within the receive timeout (default factor is 10).
      */
     public Object receive(Object template, GigaSpace gigaSpace, long receiveTimeout) throws DataAccessException {
+        return receive(template, gigaSpace, receiveTimeout, -1);
+    }
+
+    /**
+     * Performs the receive operation same as {@link #receive(Object, org.openspaces.core.GigaSpace, long)},
+     * passing the given max entries to handlers that receive several events at once. A negative value means
+     * the handler should use its configured max entries.
+     */
+    protected Object receive(Object template, GigaSpace gigaSpace, long receiveTimeout, int maxEntries) throws DataAccessException {
         if (!nonBlocking) {
-            return doReceiveBlocking(template, gigaSpace, receiveTimeout);
+            return doReceiveBlocking(template, gigaSpace, receiveTimeout, maxEntries);
         }
         long sleepTime = receiveTimeout / nonBlockingFactor;
         for (int i = 0; i < nonBlockingFactor; i++) {
-            Object event = doReceiveNonBlocking(template, gigaSpace);
+            Object event = doReceiveNonBlocking(template, gigaSpace, maxEntries);
             if (event != null) {
                 return event;
             }
@@ -83,4 +92,20 @@ public abstract class AbstractNonBlockingReceiveOperationHandler implements Rece
      * Performs a receive operations in a non blocking manner.
      */
     protected abstract Object doReceiveNonBlocking(Object template, GigaSpace gigaSpace) throws DataAccessException;
+
+    /**
+     * Performs a receive operation in a blocking manner, receiving at most the given max entries. Defaults
+     * to {@link #doReceiveBlocking(Object, org.openspaces.core.GigaSpace, long)}.
+     */
+    protected Object doReceiveBlocking(Object template, GigaSpace gigaSpace, long receiveTimeout, int maxEntries) throws DataAccessException {
+        return doReceiveBlocking(template, gigaSpace, receiveTimeout);
+    }
+
+    /**
+     * Performs a receive operation in a non blocking manner, receiving at most the given max entries. Defaults
+     * to {@link #doReceiveNonBlocking(Object, org.openspaces.core.GigaSpace)}.
+     */
+    protected Object doReceiveNonBlocking(Object template, GigaSpace gigaSpace, int maxEntries) throws DataAccessException {
+        return doReceiveNonBlocking(template, gigaSpace);
+    }
 }
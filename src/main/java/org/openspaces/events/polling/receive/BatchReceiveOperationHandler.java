@@ -0,0 +1,42 @@
+/*
+ * Copyright 2006-2007 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.events.polling.receive;
+
+import org.openspaces.core.GigaSpace;
+import org.springframework.dao.DataAccessException;
+
+/**
+ * A receive operation handler that receives a batch of events at once, and allows the caller to
+ * control the size of the batch on each receive operation. Used by
+ * {@link org.openspaces.events.polling.SimplePollingEventListenerContainer} when working with an
+ * adaptive batch size.
+ *
+ * @see org.openspaces.events.polling.SimplePollingEventListenerContainer#setAdaptiveBatchSize(boolean)
+ */
+public interface BatchReceiveOperationHandler extends ReceiveOperationHandler {
+
+    /**
+     * Returns the configured max entries received by a single receive operation.
+     */
+    int getMaxEntries();
+
+    /**
+     * Performs the receive operation, same as {@link #receive(Object, org.openspaces.core.GigaSpace, long)},
+     * receiving at most <code>maxEntries</code> events instead of the configured max entries.
+     */
+    Object receive(Object template, GigaSpace gigaSpace, long receiveTimeout, int maxEntries) throws DataAccessException;
+}
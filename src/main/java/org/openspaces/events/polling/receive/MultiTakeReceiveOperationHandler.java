@@ -29,7 +29,7 @@ import com.j_spaces.core.client.TakeModifiers;
  * 
  * @author kimchy
  */
-public class MultiTakeReceiveOperationHandler extends AbstractFifoGroupingReceiveOperationHandler {
+public class MultiTakeReceiveOperationHandler extends AbstractFifoGroupingReceiveOperationHandler implements BatchReceiveOperationHandler {
 
     private static final int DEFAULT_MAX_ENTRIES = 50;
 
@@ -42,6 +42,15 @@ public class MultiTakeReceiveOperationHandler extends AbstractFifoGroupingReceiv
         this.maxEntries = maxEntries;
     }
 
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    @Override
+    public Object receive(Object template, GigaSpace gigaSpace, long receiveTimeout, int maxEntries) throws DataAccessException {
+        return super.receive(template, gigaSpace, receiveTimeout, maxEntries);
+    }
+
     /**
      * First tries and perform a {@link org.openspaces.core.GigaSpace#takeMultiple(Object,int,int)}
      * using the provided template, the configured maxEntries (defaults to <code>50</code>) and the configured fifoGroups (default to <code>false</code>). 
@@ -50,6 +59,14 @@ public class MultiTakeReceiveOperationHandler extends AbstractFifoGroupingReceiv
      */
     @Override
     protected Object doReceiveBlocking(Object template, GigaSpace gigaSpace, long receiveTimeout) throws DataAccessException {
+        return doReceiveBlocking(template, gigaSpace, receiveTimeout, maxEntries);
+    }
+
+    @Override
+    protected Object doReceiveBlocking(Object template, GigaSpace gigaSpace, long receiveTimeout, int maxEntries) throws DataAccessException {
+        if (maxEntries < 0) {
+            maxEntries = this.maxEntries;
+        }
         int modifiers = gigaSpace.getSpace().getReadModifiers();
         if(useFifoGrouping)
             modifiers |= TakeModifiers.FIFO_GROUPING_POLL;
@@ -69,6 +86,14 @@ public class MultiTakeReceiveOperationHandler extends AbstractFifoGroupingReceiv
      */
     @Override
     protected Object doReceiveNonBlocking(Object template, GigaSpace gigaSpace) throws DataAccessException {
+        return doReceiveNonBlocking(template, gigaSpace, maxEntries);
+    }
+
+    @Override
+    protected Object doReceiveNonBlocking(Object template, GigaSpace gigaSpace, int maxEntries) throws DataAccessException {
+        if (maxEntries < 0) {
+            maxEntries = this.maxEntries;
+        }
         int modifiers = gigaSpace.getSpace().getReadModifiers();
         if(useFifoGrouping)
             modifiers |= TakeModifiers.FIFO_GROUPING_POLL;
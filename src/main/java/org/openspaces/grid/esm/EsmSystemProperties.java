@@ -56,5 +56,13 @@ public class EsmSystemProperties {
     public static final String ESM_BACKUP_INTERVAL_MILLISECONDS = "org.openspaces.grid.state-backup-to-space-interval-milliseconds";
     public static final Long ESM_BACKUP_INTERVAL_MILLISECONDS_DEFAULT = 1000L;
     
+    public static final String ESM_REBALANCING_PLANNER_ENABLED = "org.openspaces.grid.rebalancing-planner-enabled"; //default is false
+
+    public static final String ESM_REBALANCING_REPLICATION_BYTES_PER_MACHINE = "org.openspaces.grid.rebalancing-replication-bytes-per-machine";
+    public static final long ESM_REBALANCING_REPLICATION_BYTES_PER_MACHINE_DEFAULT = 0L; //no limit
+
+    public static final String ESM_REBALANCING_MEMORY_IMBALANCE_PERCENT = "org.openspaces.grid.rebalancing-memory-imbalance-percent";
+    public static final long ESM_REBALANCING_MEMORY_IMBALANCE_PERCENT_DEFAULT = 0L; //balance only the number of instances. used only when the rebalancing planner is enabled
+
     public static final String ESM_BACKUP_MACHINES_STATE_TO_SPACE_FLAG = "org.openspaces.grid.backup-machines-state-to-cloudify-management-space"; //default is false
 }
@@ -83,7 +83,7 @@ abstract class AbstractCapacityRequirementsPerKey {
         }
         
         AbstractCapacityRequirementsPerKey sum = newZeroInstance();
-        sum.addAllInternal(this);
+        sum.copyInternal(this);
         sum.addAllInternal(other);
         return sum;
     }
@@ -92,7 +92,7 @@ abstract class AbstractCapacityRequirementsPerKey {
             AbstractCapacityRequirementsPerKey other) {
 
         AbstractCapacityRequirementsPerKey diff = newZeroInstance();
-        diff.addAllInternal(this);
+        diff.copyInternal(this);
         diff.subtractAllInternal(other);
         return diff;
     }
@@ -101,7 +101,7 @@ abstract class AbstractCapacityRequirementsPerKey {
     
     protected AbstractCapacityRequirementsPerKey set(String key, CapacityRequirements capacity) {
         AbstractCapacityRequirementsPerKey sum = newZeroInstance();
-        sum.addAllInternal(this);
+        sum.copyInternal(this);
         sum.setInternal(key,capacity);
         return sum;
     }
@@ -119,7 +119,7 @@ abstract class AbstractCapacityRequirementsPerKey {
         }
         
         AbstractCapacityRequirementsPerKey sum = newZeroInstance();
-        sum.addAllInternal(this);
+        sum.copyInternal(this);
         sum.addInternal(key,capacity);
         return sum;
         
@@ -130,7 +130,7 @@ abstract class AbstractCapacityRequirementsPerKey {
             CapacityRequirements capacity) {
         
         AbstractCapacityRequirementsPerKey remaining = newZeroInstance();
-        remaining.addAllInternal(this);
+        remaining.copyInternal(this);
         remaining.subtractInternal(key,capacity);
         return remaining;
     }
@@ -146,7 +146,7 @@ abstract class AbstractCapacityRequirementsPerKey {
            String key, CapacityRequirements capacity) {
         
         AbstractCapacityRequirementsPerKey remaining = newZeroInstance();
-        remaining.addAllInternal(this);
+        remaining.copyInternal(this);
         remaining.subtractOrZeroInternal(key,capacity);
         return remaining;
     }
@@ -169,6 +169,16 @@ abstract class AbstractCapacityRequirementsPerKey {
         }
     }
 
+    /**
+     * Copies the capacity of an empty instance from the specified instance.
+     * Same as {@link #addAllInternal(AbstractCapacityRequirementsPerKey)} without recalculating the total,
+     * since each copy would otherwise cost an addition per key.
+     */
+    private void copyInternal(AbstractCapacityRequirementsPerKey other) {
+        capacityPerKey.putAll(other.capacityPerKey);
+        totalCapacity = other.totalCapacity;
+    }
+
     private void addAllInternal(AbstractCapacityRequirementsPerKey clusterCapacityRequirements) {
         for (String key : clusterCapacityRequirements.capacityPerKey.keySet()) {
             CapacityRequirements capacity = clusterCapacityRequirements.capacityPerKey.get(key);
@@ -46,12 +46,14 @@ public class BinPackingSolver {
     private long maxMemoryCapacityInMB;
     private int minimumNumberOfMachines;
     private HashMap<String, Long> agentPriority;
+    private HashMap<String, Long> usedMemoryPerAgentInMB;
     private long maxMemoryCapacityPerMachineInMB;
     private boolean allowMoreThanAverageMemoryPerMachine = false;
 
     public BinPackingSolver() {
         debugTrace ="";
         agentPriority = new HashMap<String, Long>();
+        usedMemoryPerAgentInMB = new HashMap<String, Long>();
         allocatedCapacityResult = new CapacityRequirementsPerAgent();
         deallocatedCapacityResult = new CapacityRequirementsPerAgent();
     }
@@ -102,6 +104,18 @@ public class BinPackingSolver {
         this.agentPriority = new HashMap<String,Long>(agentPriority);
     }
     
+    /**
+     * Sets the memory actually used by the PU on each agent (for example the heap used by its containers).
+     * On scale in, containers are removed first from agents that use the least memory per container, and among
+     * agents of the same priority the agents that use the least memory are evacuated first, so less data is relocated.
+     * Only the scale in order is affected: the capacity goals and the scale out allocation are still based on the
+     * allocated capacity.
+     * @param usedMemoryPerAgentInMB - a map between agent UID and the memory used by the PU on it
+     */
+    public void setUsedMemoryPerAgentInMB(Map<String, Long> usedMemoryPerAgentInMB) {
+        this.usedMemoryPerAgentInMB = new HashMap<String,Long>(usedMemoryPerAgentInMB);
+    }
+    
     /**
      * Sets the currently allocated capacity of PU
      */
@@ -258,7 +272,7 @@ public class BinPackingSolver {
         boolean retry;
         do {
             retry = false;
-            for (String agentUid : allocatedCapacityForPu.getAgentUids()) {               
+            for (String agentUid : sortAgentUidsByUsedMemoryPerContainer(allocatedCapacityForPu.getAgentUids())) {               
         
                 if (!allocatedCapacityForPu.getTotalAllocatedCapacity().subtractOrZero(oneContainer).greaterOrEquals(goalCapacity)) {
                     // cannot remove any container without breaching goal
@@ -410,7 +424,12 @@ public class BinPackingSolver {
                 Collections.sort(sortedAgentUids, new Comparator<String>() {
 
                     public int compare(String agentUid1, String agentUid2) {
-                        return Long.valueOf(getAgentPriority(agentUid1)).compareTo(getAgentPriority(agentUid2));
+                        int diff = Long.valueOf(getAgentPriority(agentUid1)).compareTo(getAgentPriority(agentUid2));
+                        if (diff == 0) {
+                            // evacuate first machines with less data to relocate
+                            diff = Long.valueOf(getUsedMemoryInMB(agentUid1)).compareTo(getUsedMemoryInMB(agentUid2));
+                        }
+                        return diff;
                     }
 
                     private long getAgentPriority(String agentUid) {
@@ -435,6 +454,32 @@ public class BinPackingSolver {
         return success;
     }
 
+    /**
+     * Sorts agents by the memory used per container, in ascending order.
+     * Agents with the same usage (or unknown usage) keep their original order.
+     */
+    private List<String> sortAgentUidsByUsedMemoryPerContainer(Collection<String> agentUids) {
+        List<String> sortedAgentUids = new ArrayList<String>(agentUids);
+        if (usedMemoryPerAgentInMB.isEmpty()) {
+            return sortedAgentUids;
+        }
+        final Map<String, Long> usedMemoryPerContainer = new HashMap<String, Long>();
+        for (String agentUid : sortedAgentUids) {
+            usedMemoryPerContainer.put(agentUid, getUsedMemoryInMB(agentUid) / Math.max(1, getNumberOfContainers(agentUid)));
+        }
+        Collections.sort(sortedAgentUids, new Comparator<String>() {
+            public int compare(String agentUid1, String agentUid2) {
+                return usedMemoryPerContainer.get(agentUid1).compareTo(usedMemoryPerContainer.get(agentUid2));
+            }
+        });
+        return sortedAgentUids;
+    }
+
+    private long getUsedMemoryInMB(String agentUid) {
+        Long usedMemoryInMB = usedMemoryPerAgentInMB.get(agentUid);
+        return usedMemoryInMB == null ? 0 : usedMemoryInMB;
+    }
+
     private boolean removeExcessMachineStep(String sourceAgentUid, CapacityRequirements excessCapacity, CapacityRequirements goalCapacity) {
         
         boolean retry = false;
@@ -543,10 +588,11 @@ public class BinPackingSolver {
             memoryToAllocateOnMachine = 0;
             
             //filter agents that have unallocated capacity but not unallocated memory.
-            CapacityRequirementsPerAgent unallocatedMemory = unallocatedCapacity;
-            for (String agentUid: unallocatedMemory.getAgentUids()) {
-                if (getMemoryInMB(unallocatedMemory.getAgentCapacity(agentUid)) == 0) {
-                    unallocatedMemory = unallocatedMemory.subtractAgent(agentUid);
+            //(a list rather than subtracting agents one by one, each subtraction copies all the agents)
+            List<String> unallocatedMemoryAgentUids = new ArrayList<String>();
+            for (String agentUid: unallocatedCapacity.getAgentUids()) {
+                if (getMemoryInMB(unallocatedCapacity.getAgentCapacity(agentUid)) != 0) {
+                    unallocatedMemoryAgentUids.add(agentUid);
                 }
             }
 
@@ -556,17 +602,17 @@ public class BinPackingSolver {
             if (memoryShortage < 0) {
                 throw new IllegalStateException ("memoryShortage cannot be negative");
             }
-            if (memoryShortage == 0 || unallocatedMemory.equalsZero()) {
+            if (memoryShortage == 0 || unallocatedMemoryAgentUids.isEmpty()) {
                 // nothing to do
                 break;
             }
-            if (unallocatedMemory.getAgentUids().size() > 1 &&
+            if (unallocatedMemoryAgentUids.size() > 1 &&
                 memoryShortage > containerMemoryCapacityInMB) {
             
                 // we need to allocate memory on two different machines at the same time
                 // otherwise we might violate the limitation of one machine having more than 50% of the total memory
-                for (String agentUid1 : unallocatedMemory.getAgentUids()) {
-                    for (String agentUid2 : unallocatedMemory.getAgentUids()) {
+                for (String agentUid1 : unallocatedMemoryAgentUids) {
+                    for (String agentUid2 : unallocatedMemoryAgentUids) {
                         if (agentUid1.equals(agentUid2)) {
                             continue;
                         }
@@ -599,7 +645,7 @@ public class BinPackingSolver {
             if (memoryToAllocateOnMachine == 0) {
                 
                 // try allocate memory on a single machine
-                for (String agentUid : unallocatedMemory.getAgentUids()) {
+                for (String agentUid : unallocatedMemoryAgentUids) {
                     
                     memoryToAllocateOnMachine = 
                         calculateMemoryToAllocateOnSingleMachine(agentUid, memoryShortage);
@@ -1376,6 +1422,7 @@ public class BinPackingSolver {
                 ", maxMemoryCapacityInMB=" + maxMemoryCapacityInMB +
                 ", minimumNumberOfMachines=" + minimumNumberOfMachines +
                 ", agentPriority=" + agentPriority +
+                ", usedMemoryPerAgentInMB=" + usedMemoryPerAgentInMB +
                 ", maxMemoryCapacityPerMachineInMB=" + maxMemoryCapacityPerMachineInMB +
                 ", allowMoreThanAverageMemoryPerMachine=" + allowMoreThanAverageMemoryPerMachine +
                 '}';
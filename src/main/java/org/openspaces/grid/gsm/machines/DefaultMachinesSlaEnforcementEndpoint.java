@@ -28,6 +28,7 @@ import org.openspaces.admin.internal.gsa.InternalGridServiceAgent;
 import org.openspaces.admin.internal.pu.elastic.GridServiceAgentFailureDetectionConfig;
 import org.openspaces.admin.pu.ProcessingUnit;
 import org.openspaces.admin.pu.ProcessingUnitInstance;
+import org.openspaces.admin.vm.VirtualMachineStatistics;
 import org.openspaces.admin.zone.config.ExactZonesConfig;
 import org.openspaces.admin.zone.config.ExactZonesConfigurer;
 import org.openspaces.admin.zone.config.ZonesConfig;
@@ -1532,9 +1533,35 @@ class DefaultMachinesSlaEnforcementEndpoint implements MachinesSlaEnforcementEnd
             scaleInPriorityPerAgentUid.put(agentUid, agentOrderToDeallocateContainers);
         }
         solver.setAgentAllocationPriority(scaleInPriorityPerAgentUid);
+        solver.setUsedMemoryPerAgentInMB(getUsedMemoryPerAgentInMB());
         logger.debug("BinPackingSolver created : " + solver);
         return solver;
     }
+
+    /**
+     * Calculates the heap used by the containers of the PU on each agent. 
+     * Partitions are not necessarily the same size, so this is the live weight of each machine, as opposed to its allocated memory.
+     * It only affects the order in which containers and machines are removed on scale in.
+     */
+    private Map<String,Long> getUsedMemoryPerAgentInMB() {
+        Map<String,Long> usedMemoryPerAgentInMB = new HashMap<String,Long>();
+        Set<GridServiceContainer> containers = new HashSet<GridServiceContainer>();
+        for (ProcessingUnitInstance instance : pu.getInstances()) {
+            GridServiceContainer container = instance.getGridServiceContainer();
+            if (!containers.add(container)) {
+                continue;
+            }
+            GridServiceAgent agent = container.getGridServiceAgent();
+            VirtualMachineStatistics statistics = container.getVirtualMachine().getStatistics();
+            if (agent == null || statistics.isNA()) {
+                continue;
+            }
+            Long usedMemoryInMB = usedMemoryPerAgentInMB.get(agent.getUid());
+            usedMemoryPerAgentInMB.put(agent.getUid(), 
+                    (usedMemoryInMB == null ? 0 : usedMemoryInMB) + (long) statistics.getMemoryHeapUsedInMB());
+        }
+        return usedMemoryPerAgentInMB;
+    }
         
     /**
      * Calculates the total unused capacity (memory / CPU) on machines (that some of its capacity is already allocated by some PU). 
@@ -28,6 +28,8 @@ import org.openspaces.admin.internal.pu.InternalProcessingUnit;
 import org.openspaces.admin.machine.Machine;
 import org.openspaces.admin.pu.ProcessingUnit;
 import org.openspaces.admin.pu.ProcessingUnitInstance;
+import org.openspaces.admin.space.SpaceInstance;
+import org.openspaces.admin.space.SpaceInstanceStatistics;
 import org.openspaces.core.internal.commons.math.fraction.Fraction;
 import org.openspaces.grid.esm.EsmSystemProperties;
 import org.openspaces.grid.gsm.LogPerProcessingUnit;
@@ -58,6 +60,9 @@ class DefaultRebalancingSlaEnforcementEndpoint implements RebalancingSlaEnforcem
     private static final long STATELESS_DEPLOYMENT_TIMEOUT_SECONDS = Long.getLong(EsmSystemProperties.ESM_STATELESS_DEPLOYMENT_TIMEOUT_SECONDS, EsmSystemProperties.ESM_STATELESS_DEPLOYMENT_TIMEOUT_SECONDS_DEFAULT);
     private static final long STATEFUL_DEPLOYMENT_FAILURE_FORGET_SECONDS = Long.getLong(EsmSystemProperties.ESM_STATEFUL_DEPLOYMENT_FAILURE_FORGET_SECONDS, EsmSystemProperties.ESM_STATEFUL_DEPLOYMENT_FAILURE_FORGET_SECONDS_DEFAULT);
     private static final long STATELESS_DEPLOYMENT_FAILURE_FORGET_SECONDS = Long.getLong(EsmSystemProperties.ESM_STATELESS_DEPLOYMENT_FAILURE_FORGET_SECONDS, EsmSystemProperties.ESM_STATELESS_DEPLOYMENT_FAILURE_FORGET_SECONDS_DEFAULT);
+    private static final boolean REBALANCING_PLANNER_ENABLED = Boolean.getBoolean(EsmSystemProperties.ESM_REBALANCING_PLANNER_ENABLED);
+    private static final long REBALANCING_REPLICATION_BYTES_PER_MACHINE = Long.getLong(EsmSystemProperties.ESM_REBALANCING_REPLICATION_BYTES_PER_MACHINE, EsmSystemProperties.ESM_REBALANCING_REPLICATION_BYTES_PER_MACHINE_DEFAULT);
+    private static final long REBALANCING_MEMORY_IMBALANCE_PERCENT = Long.getLong(EsmSystemProperties.ESM_REBALANCING_MEMORY_IMBALANCE_PERCENT, EsmSystemProperties.ESM_REBALANCING_MEMORY_IMBALANCE_PERCENT_DEFAULT);
 
     private final ProcessingUnit pu;
     private final RebalancingSlaEnforcementState state;
@@ -341,6 +346,12 @@ class DefaultRebalancingSlaEnforcementEndpoint implements RebalancingSlaEnforcem
         }
         
         GridServiceContainer[] containers = sla.getContainers();
+        if (REBALANCING_PLANNER_ENABLED && !sla.ignoreCpuRebalancing()) {
+            // relocate and restart instances in parallel waves towards a placement planned up front.
+            // falls through to the stages below when there is nothing left the plan can do.
+            rebalanceByPlan(containers, sla);
+        }
+
         if (pu.getNumberOfBackups() == 1) {
             // stage 1 : relocate backups so number of instances per container is balanced
             rebalanceNumberOfInstancesPerContainer(containers, sla, true);
@@ -397,6 +408,159 @@ class DefaultRebalancingSlaEnforcementEndpoint implements RebalancingSlaEnforcem
         }
     }
 
+    /**
+     * Plans the placement of all instances with a {@link RebalancingPlanner} and starts the first wave of moves.
+     * The plan is computed again (from the actual placement) once the wave is done, so a failed or a timed out
+     * move is simply planned again.
+     * 
+     * @throws RebalancingSlaEnforcementInProgressException
+     *             - a wave of moves is in progress.
+     */
+    private void rebalanceByPlan(GridServiceContainer[] containers, RebalancingSlaPolicy sla)
+            throws RebalancingSlaEnforcementInProgressException {
+
+        if (state.getNumberOfFutureDeployments(pu) > 0) {
+            throw new ProcessingUnitIsNotEvenlyDistributedAcrossContainersException("Instances deployment is in progress", pu, containers);
+        }
+
+        RebalancingPlanner planner = new RebalancingPlanner();
+        planner.setMaxInstancesPerMachine(pu.getMaxInstancesPerMachine());
+        planner.setMaxInstancesPerContainer(pu.getMaxInstancesPerVM());
+        planner.setMaximumNumberOfConcurrentRelocationsPerMachine(sla.getMaximumNumberOfConcurrentRelocationsPerMachine());
+        planner.setAtMostOneConcurrentRelocation(sla.isAtMostOneConcurrentRelocation());
+        planner.setMaximumReplicationBytesPerMachine(REBALANCING_REPLICATION_BYTES_PER_MACHINE);
+        planner.setBalancePrimaries(pu.getNumberOfBackups() == 1);
+        planner.setMemoryImbalanceTolerance(REBALANCING_MEMORY_IMBALANCE_PERCENT / 100.0);
+
+        Set<GridServiceContainer> approvedContainers = new HashSet<GridServiceContainer>(Arrays.asList(containers));
+        Set<Machine> approvedMachines = new HashSet<Machine>(Arrays.asList(RebalancingUtils.getMachinesHostingContainers(containers)));
+        Map<String, GridServiceContainer> containersByUid = new HashMap<String, GridServiceContainer>();
+        Set<Machine> machines = new HashSet<Machine>();
+        for (GridServiceContainer container : containers) {
+            containersByUid.put(container.getUid(), container);
+        }
+        for (ProcessingUnitInstance instance : pu.getInstances()) {
+            containersByUid.put(instance.getGridServiceContainer().getUid(), instance.getGridServiceContainer());
+        }
+        for (GridServiceContainer container : containersByUid.values()) {
+            Machine machine = container.getMachine();
+            if (machines.add(machine)) {
+                double cpuCores = approvedMachines.contains(machine) ? 
+                        RebalancingUtils.getNumberOfCpuCores(machine, sla.getAllocatedCapacity()).doubleValue() : 0;
+                planner.addMachine(machine.getUid(), cpuCores);
+            }
+            planner.addContainer(container.getUid(), machine.getUid(), approvedContainers.contains(container));
+        }
+        Map<ProcessingUnitInstance, Long> estimatedSizesInBytes = getEstimatedSizesInBytes();
+        for (ProcessingUnitInstance instance : pu.getInstances()) {
+            Long estimatedSizeInBytes = estimatedSizesInBytes.get(instance);
+            planner.addInstance(instance.getInstanceId(), instance.getBackupId(),
+                    instance.getSpaceInstance() != null && instance.getSpaceInstance().getMode() == SpaceMode.PRIMARY,
+                    instance.getGridServiceContainer().getUid(), estimatedSizeInBytes == null ? 0 : estimatedSizeInBytes);
+        }
+
+        RebalancingPlan plan = planner.plan();
+        if (plan.isEmpty()) {
+            return;
+        }
+        logger.info("Rebalancing plan has " + plan.getNumberOfRelocations() + " relocations and "
+                + plan.getNumberOfRestarts() + " restarts in " + plan.getWaves().size() + " waves. "
+                + "Starting the first wave: " + plan.getWaves().get(0));
+
+        for (RebalancingPlan.Move move : plan.getWaves().get(0)) {
+            ProcessingUnitInstance instance = getInstance(move.getInstanceId(), move.getBackupId());
+            GridServiceContainer target = containersByUid.get(move.getTargetContainerId());
+            if (instance == null || target == null ||
+                !instance.getGridServiceContainer().getUid().equals(move.getSourceContainerId())) {
+                // placement changed since it was planned
+                continue;
+            }
+            if (move.getType() == RebalancingPlan.MoveType.RESTART) {
+                logger.info("Restarting " + RebalancingUtils.puInstanceToString(instance) + " as planned");
+                state.addFutureStatefulDeployment(RebalancingUtils.restartProcessingUnitInstanceAsync(
+                        instance, logger, STATEFUL_DEPLOYMENT_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            } else {
+                logger.info("Relocating " + RebalancingUtils.puInstanceToString(instance) + " "
+                        + "to " + RebalancingUtils.gscToString(target) + " as planned");
+                state.addFutureStatefulDeployment(RebalancingUtils.relocateProcessingUnitInstanceAsync(
+                        target, instance, logger, STATEFUL_DEPLOYMENT_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+            }
+        }
+
+        if (state.getNumberOfFutureDeployments(pu) > 0) {
+            throw new ProcessingUnitIsNotEvenlyDistributedAcrossContainersException("Instances deployment is in progress", pu, containers);
+        }
+    }
+
+    private ProcessingUnitInstance getInstance(int instanceId, int backupId) {
+        for (ProcessingUnitInstance instance : pu.getInstances()) {
+            if (instance.getInstanceId() == instanceId && instance.getBackupId() == backupId) {
+                return instance;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Estimates the size of the state of each instance of the processing unit, see
+     * {@link #addEstimatedSizesInBytes(GridServiceContainer, Map)}. The statistics of each container and each
+     * instance are read once.
+     */
+    private Map<ProcessingUnitInstance, Long> getEstimatedSizesInBytes() {
+        Map<ProcessingUnitInstance, Long> estimatedSizesInBytes = new HashMap<ProcessingUnitInstance, Long>();
+        Set<GridServiceContainer> containers = new HashSet<GridServiceContainer>();
+        for (ProcessingUnitInstance instance : pu.getInstances()) {
+            GridServiceContainer container = instance.getGridServiceContainer();
+            if (containers.add(container)) {
+                addEstimatedSizesInBytes(container, estimatedSizesInBytes);
+            }
+        }
+        return estimatedSizesInBytes;
+    }
+
+    /**
+     * Estimates the size of the state of each instance in the container as its share of the heap used by the
+     * container, in proportion to the number of space objects of each instance in the container. Partitions with
+     * hot routing keys hold more objects, so their share is larger. The heap is split evenly when the space
+     * statistics are not available.
+     */
+    private static void addEstimatedSizesInBytes(GridServiceContainer container, Map<ProcessingUnitInstance, Long> estimatedSizesInBytes) {
+        long heapUsed = Math.max(0, container.getVirtualMachine().getStatistics().getMemoryHeapUsedInBytes());
+        ProcessingUnitInstance[] instances = container.getProcessingUnitInstances();
+        if (instances.length == 0) {
+            return;
+        }
+        long[] objectCounts = new long[instances.length];
+        long totalObjectCount = 0;
+        for (int i = 0; i < instances.length; i++) {
+            objectCounts[i] = instances.length == 1 ? 0 : getObjectCount(instances[i]);
+            if (objectCounts[i] < 0) {
+                totalObjectCount = 0;
+                break;
+            }
+            totalObjectCount += objectCounts[i];
+        }
+        for (int i = 0; i < instances.length; i++) {
+            estimatedSizesInBytes.put(instances[i], totalObjectCount == 0 ? heapUsed / instances.length
+                    : (long) (heapUsed * ((double) objectCounts[i] / totalObjectCount)));
+        }
+    }
+
+    /**
+     * @return the number of objects in the space of the instance, or -1 if not available
+     */
+    private static long getObjectCount(ProcessingUnitInstance instance) {
+        SpaceInstance spaceInstance = instance.getSpaceInstance();
+        if (spaceInstance == null) {
+            return -1;
+        }
+        SpaceInstanceStatistics statistics = spaceInstance.getStatistics();
+        if (statistics.isNA()) {
+            return -1;
+        }
+        return statistics.getObjectCount();
+    }
+
     /**
      * Invokes multiple relocation operations to balance number of pu instances per container.
      * 
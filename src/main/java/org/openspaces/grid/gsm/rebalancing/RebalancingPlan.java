@@ -0,0 +1,194 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.grid.gsm.rebalancing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The moves computed by {@link RebalancingPlanner}, grouped in waves. The moves of a wave can run in parallel,
+ * and a wave starts once all the moves of the previous wave completed.
+ * 
+ * @since 11.0
+ */
+public class RebalancingPlan {
+
+    public static enum MoveType {
+        /** Relocates an instance to another container, its state is replicated from its partition */
+        RELOCATE,
+        /** Restarts a primary instance in place, so a backup on another machine becomes primary */
+        RESTART
+    }
+
+    public static class Move {
+
+        private final MoveType type;
+        private final int instanceId;
+        private final int backupId;
+        private final String sourceContainerId;
+        private final String targetContainerId;
+        private final String sourceMachineId;
+        private final String targetMachineId;
+        private final String replicationSourceMachineId;
+        private final long bytes;
+
+        Move(MoveType type, int instanceId, int backupId, String sourceContainerId, String targetContainerId,
+                String sourceMachineId, String targetMachineId, String replicationSourceMachineId, long bytes) {
+            this.type = type;
+            this.instanceId = instanceId;
+            this.backupId = backupId;
+            this.sourceContainerId = sourceContainerId;
+            this.targetContainerId = targetContainerId;
+            this.sourceMachineId = sourceMachineId;
+            this.targetMachineId = targetMachineId;
+            this.replicationSourceMachineId = replicationSourceMachineId;
+            this.bytes = bytes;
+        }
+
+        public MoveType getType() {
+            return type;
+        }
+
+        /**
+         * Returns the partition of the moved instance (1 based, as {@link org.openspaces.admin.pu.ProcessingUnitInstance#getInstanceId()}).
+         */
+        public int getInstanceId() {
+            return instanceId;
+        }
+
+        /**
+         * Returns the backup id of the moved instance, as it was when the plan was computed.
+         */
+        public int getBackupId() {
+            return backupId;
+        }
+
+        public String getSourceContainerId() {
+            return sourceContainerId;
+        }
+
+        public String getTargetContainerId() {
+            return targetContainerId;
+        }
+
+        public String getSourceMachineId() {
+            return sourceMachineId;
+        }
+
+        public String getTargetMachineId() {
+            return targetMachineId;
+        }
+
+        /**
+         * Returns the machine the state of the moved instance is replicated from.
+         */
+        public String getReplicationSourceMachineId() {
+            return replicationSourceMachineId;
+        }
+
+        /**
+         * Returns the estimated number of bytes replicated by this move.
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        @Override
+        public String toString() {
+            return type + "[" + instanceId + "_" + (backupId + 1) + " " + sourceContainerId + "->" + targetContainerId + "]";
+        }
+    }
+
+    private final List<List<Move>> waves;
+
+    private final int unplacedInstances;
+
+    private final int unbalancedMachines;
+
+    RebalancingPlan(List<List<Move>> waves, int unplacedInstances, int unbalancedMachines) {
+        this.waves = waves;
+        this.unplacedInstances = unplacedInstances;
+        this.unbalancedMachines = unbalancedMachines;
+    }
+
+    public List<List<Move>> getWaves() {
+        return Collections.unmodifiableList(waves);
+    }
+
+    public List<Move> getMoves() {
+        List<Move> moves = new ArrayList<Move>();
+        for (List<Move> wave : waves) {
+            moves.addAll(wave);
+        }
+        return moves;
+    }
+
+    public boolean isEmpty() {
+        return waves.isEmpty();
+    }
+
+    public int getNumberOfRelocations() {
+        return count(MoveType.RELOCATE);
+    }
+
+    public int getNumberOfRestarts() {
+        return count(MoveType.RESTART);
+    }
+
+    /**
+     * Returns the number of instances that could not be placed in a container below its planned number of
+     * instances, because of the instances per machine or per container limits.
+     */
+    public int getNumberOfUnplacedInstances() {
+        return unplacedInstances;
+    }
+
+    /**
+     * Returns the number of machines whose number of primary instances stays above their share of the CPU.
+     */
+    public int getNumberOfUnbalancedMachines() {
+        return unbalancedMachines;
+    }
+
+    /**
+     * Returns <code>true</code> if executing the plan reaches the target placement.
+     */
+    public boolean isComplete() {
+        return unplacedInstances == 0 && unbalancedMachines == 0;
+    }
+
+    private int count(MoveType type) {
+        int count = 0;
+        for (List<Move> wave : waves) {
+            for (Move move : wave) {
+                if (move.getType() == type) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "RebalancingPlan{waves=" + waves.size() + ", relocations=" + getNumberOfRelocations() + ", restarts="
+                + getNumberOfRestarts() + ", unplacedInstances=" + unplacedInstances + ", unbalancedMachines="
+                + unbalancedMachines + "}";
+    }
+}
@@ -0,0 +1,872 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.grid.gsm.rebalancing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.openspaces.grid.gsm.rebalancing.RebalancingPlan.Move;
+import org.openspaces.grid.gsm.rebalancing.RebalancingPlan.MoveType;
+
+/**
+ * Computes the target placement of the instances of a stateful processing unit up front, and the moves that
+ * reach it, instead of picking one source and target pair at a time.
+ * 
+ * <p>The target placement has the same goals as the stages of {@link DefaultRebalancingSlaEnforcementEndpoint}:
+ * each approved container hosts the floor or the ceiling of the average number of instances per container
+ * (see {@link RebalancingUtils#getPlannedMinimumNumberOfInstancesForContainer}), and each machine hosts a number
+ * of primary instances proportional to its CPU cores. Containers keep as many of their instances as they can
+ * (preferring to give away backups and small instances), so each instance is relocated at most once and the
+ * number of relocations is the number of instances above the planned number of each container, unless the
+ * instances per machine or per container limits require swapping an instance out of a balanced container.
+ * A container gives away a primary (instead of a backup) when that fails over its partition from a machine with
+ * too many primaries to a machine with too few. The remaining primaries are then balanced by restarting primaries
+ * whose backup is on a machine with too few primaries.
+ * 
+ * <p>Instances of the same processing unit are not necessarily of the same size, partitions with hot routing keys
+ * hold more data. With {@link #setMemoryImbalanceTolerance(double)} the planner also balances the memory of the
+ * containers, by swapping large instances of the heaviest containers with small instances of the lightest ones,
+ * until no container holds more than the tolerance above the average.
+ * 
+ * <p>The moves are grouped in waves that run in parallel. A machine takes part in at most
+ * {@link #setMaximumNumberOfConcurrentRelocationsPerMachine(int)} moves of a wave, either as the target or the
+ * replication source of a move (same as the machines counted by the endpoint for moves in progress), and
+ * replicates at most {@link #setMaximumReplicationBytesPerMachine(long)} bytes per wave. The moves of the same
+ * partition are in different waves.
+ * 
+ * <p>The planner works on a snapshot of the deployment, identified by container and machine ids, and does not
+ * access the admin API.
+ * 
+ * @since 11.0
+ */
+public class RebalancingPlanner {
+
+    private final Map<String, MachineNode> machines = new LinkedHashMap<String, MachineNode>();
+
+    private final Map<String, ContainerNode> containers = new LinkedHashMap<String, ContainerNode>();
+
+    private final Map<Integer, List<InstanceNode>> partitions = new TreeMap<Integer, List<InstanceNode>>();
+
+    private int maxInstancesPerMachine;
+
+    private int maxInstancesPerContainer;
+
+    private int maxConcurrentRelocationsPerMachine = 1;
+
+    private boolean atMostOneConcurrentRelocation;
+
+    private long maxReplicationBytesPerMachine;
+
+    private boolean balancePrimaries = true;
+
+    private double memoryImbalanceTolerance;
+
+    public void addMachine(String machineId, double cpuCores) {
+        if (machines.containsKey(machineId)) {
+            throw new IllegalArgumentException("Machine " + machineId + " was already added");
+        }
+        machines.put(machineId, new MachineNode(machineId, cpuCores));
+    }
+
+    /**
+     * @param approved <code>true</code> if the container is approved for deployment, instances are moved out of
+     *                 containers that are not
+     */
+    public void addContainer(String containerId, String machineId, boolean approved) {
+        MachineNode machine = machines.get(machineId);
+        if (machine == null) {
+            throw new IllegalArgumentException("Unknown machine " + machineId);
+        }
+        if (containers.containsKey(containerId)) {
+            throw new IllegalArgumentException("Container " + containerId + " was already added");
+        }
+        containers.put(containerId, new ContainerNode(containerId, machine, approved));
+    }
+
+    /**
+     * @param instanceId the partition of the instance, 1 based
+     * @param backupId   the backup id of the instance
+     * @param primary    <code>true</code> if the instance is currently primary
+     * @param bytes      the estimated size of the instance state, replicated when it is relocated or restarted
+     */
+    public void addInstance(int instanceId, int backupId, boolean primary, String containerId, long bytes) {
+        ContainerNode container = containers.get(containerId);
+        if (container == null) {
+            throw new IllegalArgumentException("Unknown container " + containerId);
+        }
+        InstanceNode instance = new InstanceNode(instanceId, backupId, primary, container, bytes);
+        container.instances.add(instance);
+        List<InstanceNode> partition = partitions.get(instanceId);
+        if (partition == null) {
+            partition = new ArrayList<InstanceNode>();
+            partitions.put(instanceId, partition);
+        }
+        partition.add(instance);
+    }
+
+    /**
+     * Sets the maximum number of instances of the same partition on a machine, 0 for no limit.
+     */
+    public void setMaxInstancesPerMachine(int maxInstancesPerMachine) {
+        this.maxInstancesPerMachine = maxInstancesPerMachine;
+    }
+
+    /**
+     * Sets the maximum number of instances of the same partition in a container, 0 for no limit.
+     */
+    public void setMaxInstancesPerContainer(int maxInstancesPerContainer) {
+        this.maxInstancesPerContainer = maxInstancesPerContainer;
+    }
+
+    /**
+     * Sets the maximum number of moves of a wave on each machine, 0 for no limit. Defaults to 1.
+     */
+    public void setMaximumNumberOfConcurrentRelocationsPerMachine(int maxConcurrentRelocationsPerMachine) {
+        this.maxConcurrentRelocationsPerMachine = maxConcurrentRelocationsPerMachine;
+    }
+
+    public void setAtMostOneConcurrentRelocation(boolean atMostOneConcurrentRelocation) {
+        this.atMostOneConcurrentRelocation = atMostOneConcurrentRelocation;
+    }
+
+    /**
+     * Sets the replication budget of a machine in a wave, as the source or the target of the replication, 0
+     * for no limit. A move larger than the budget runs in a wave of its own on its machines.
+     */
+    public void setMaximumReplicationBytesPerMachine(long maxReplicationBytesPerMachine) {
+        this.maxReplicationBytesPerMachine = maxReplicationBytesPerMachine;
+    }
+
+    /**
+     * Sets whether primary instances are balanced across machines by CPU cores, defaults to <code>true</code>.
+     */
+    public void setBalancePrimaries(boolean balancePrimaries) {
+        this.balancePrimaries = balancePrimaries;
+    }
+
+    /**
+     * Sets how much memory (the sum of the instance sizes) a container may hold above the average of the approved
+     * containers, as a fraction of the average. For example 0.1 swaps instances until no container holds more than
+     * 110% of the average. 0 (the default) balances only the number of instances per container.
+     */
+    public void setMemoryImbalanceTolerance(double memoryImbalanceTolerance) {
+        if (memoryImbalanceTolerance < 0) {
+            throw new IllegalArgumentException("memoryImbalanceTolerance cannot be negative");
+        }
+        this.memoryImbalanceTolerance = memoryImbalanceTolerance;
+    }
+
+    public RebalancingPlan plan() {
+        for (ContainerNode container : containers.values()) {
+            container.planned = new ArrayList<InstanceNode>(container.instances);
+            container.quota = 0;
+        }
+        for (List<InstanceNode> partition : partitions.values()) {
+            for (InstanceNode instance : partition) {
+                instance.planned = instance.container;
+                instance.plannedPrimary = instance.primary;
+                instance.moved = false;
+            }
+        }
+        Map<MachineNode, Integer> primaryTargets = balancePrimaries ? 
+                getPlannedNumberOfPrimaries() : new HashMap<MachineNode, Integer>();
+        List<PlannedMove> moves = new ArrayList<PlannedMove>();
+        int unplacedInstances = placeInstances(primaryTargets, moves);
+        if (memoryImbalanceTolerance > 0 && unplacedInstances == 0) {
+            balanceMemory(moves);
+        }
+        int unbalancedMachines = balancePrimaries ? balancePrimaries(primaryTargets, moves) : 0;
+        return new RebalancingPlan(schedule(moves), unplacedInstances, unbalancedMachines);
+    }
+
+    /**
+     * Relocates the instances above the planned number of instances of their container.
+     * 
+     * @return the number of instances that could not be placed
+     */
+    private int placeInstances(Map<MachineNode, Integer> primaryTargets, List<PlannedMove> moves) {
+        List<ContainerNode> approved = new ArrayList<ContainerNode>();
+        int totalInstances = 0;
+        for (ContainerNode container : containers.values()) {
+            if (container.approved) {
+                approved.add(container);
+            }
+            totalInstances += container.instances.size();
+        }
+        if (approved.isEmpty()) {
+            return totalInstances;
+        }
+
+        // the containers that already host the most instances get the ceiling of the average
+        Collections.sort(approved, new Comparator<ContainerNode>() {
+            public int compare(ContainerNode c1, ContainerNode c2) {
+                int diff = c2.instances.size() - c1.instances.size();
+                return diff != 0 ? diff : c1.id.compareTo(c2.id);
+            }
+        });
+        int minimum = totalInstances / approved.size();
+        int remainder = totalInstances % approved.size();
+        for (int i = 0; i < approved.size(); i++) {
+            approved.get(i).quota = i < remainder ? minimum + 1 : minimum;
+        }
+
+        Map<MachineNode, Integer> primaries = getNumberOfPlannedPrimaries();
+        List<InstanceNode> excess = new ArrayList<InstanceNode>();
+        for (ContainerNode container : containers.values()) {
+            List<InstanceNode> candidates = new ArrayList<InstanceNode>(container.planned);
+            for (int i = container.quota; i < container.planned.size(); i++) {
+                InstanceNode evicted = null;
+                int evictedRank = 0;
+                for (InstanceNode candidate : candidates) {
+                    int rank = getEvictionRank(candidate, primaries, primaryTargets);
+                    if (evicted == null || rank < evictedRank || (rank == evictedRank && 
+                            (candidate.bytes < evicted.bytes || (candidate.bytes == evicted.bytes && candidate.compareTo(evicted) < 0)))) {
+                        evicted = candidate;
+                        evictedRank = rank;
+                    }
+                }
+                candidates.remove(evicted);
+                excess.add(evicted);
+                InstanceNode newPrimary = evicted.plannedPrimary ? getFailoverInstance(evicted) : null;
+                if (newPrimary != null) {
+                    increment(primaries, evicted.planned.machine, -1);
+                    increment(primaries, newPrimary.planned.machine, 1);
+                }
+            }
+        }
+        // large instances first, while there is the most choice of targets
+        Collections.sort(excess, new Comparator<InstanceNode>() {
+            public int compare(InstanceNode i1, InstanceNode i2) {
+                if (i1.bytes != i2.bytes) {
+                    return i1.bytes > i2.bytes ? -1 : 1;
+                }
+                return i1.compareTo(i2);
+            }
+        });
+
+        primaries = getNumberOfPlannedPrimaries();
+        Map<MachineNode, Long> incomingBytes = new HashMap<MachineNode, Long>();
+        int unplacedInstances = 0;
+        for (InstanceNode instance : excess) {
+            ContainerNode target = null;
+            long targetIncomingBytes = 0;
+            int targetMissingPrimaries = 0;
+            for (ContainerNode candidate : approved) {
+                if (candidate.planned.size() >= candidate.quota || !canHost(candidate, instance)) {
+                    continue;
+                }
+                // spread the replication over the target machines, then prefer machines with too few primaries,
+                // the relocated instance becomes primary if the rest of its partition is relocated after it
+                long candidateIncomingBytes = incomingBytes.containsKey(candidate.machine) ? incomingBytes.get(candidate.machine) : 0;
+                int candidateMissingPrimaries = target(primaryTargets, candidate.machine) - primaries.get(candidate.machine);
+                if (target == null || candidateIncomingBytes < targetIncomingBytes || 
+                        (candidateIncomingBytes == targetIncomingBytes && candidateMissingPrimaries > targetMissingPrimaries)) {
+                    target = candidate;
+                    targetIncomingBytes = candidateIncomingBytes;
+                    targetMissingPrimaries = candidateMissingPrimaries;
+                }
+            }
+            if (target != null) {
+                InstanceNode newPrimary = instance.plannedPrimary ? getFailoverInstance(instance) : null;
+                if (newPrimary != null) {
+                    increment(primaries, instance.planned.machine, -1);
+                    increment(primaries, newPrimary.planned.machine, 1);
+                }
+                moves.add(relocate(instance, target, null));
+                incomingBytes.put(target.machine, targetIncomingBytes + instance.bytes);
+            } else if (!swap(instance, approved, moves)) {
+                unplacedInstances++;
+            }
+        }
+        return unplacedInstances;
+    }
+
+    /**
+     * Swaps instances between the containers with the most and the least memory, until no container holds more
+     * than {@link #setMemoryImbalanceTolerance(double)} above the average. Each swap narrows the gap between the
+     * two containers, so the total imbalance decreases and the loop ends. Instances that were already relocated
+     * are not moved again.
+     */
+    private void balanceMemory(List<PlannedMove> moves) {
+        List<ContainerNode> approved = new ArrayList<ContainerNode>();
+        long totalBytes = 0;
+        for (ContainerNode container : containers.values()) {
+            if (container.approved) {
+                approved.add(container);
+                totalBytes += container.getPlannedBytes();
+            }
+        }
+        if (approved.size() < 2 || totalBytes == 0) {
+            return;
+        }
+        final double maximumBytes = (1 + memoryImbalanceTolerance) * totalBytes / approved.size();
+        final Map<ContainerNode, Long> bytes = new HashMap<ContainerNode, Long>();
+        for (ContainerNode container : approved) {
+            bytes.put(container, container.getPlannedBytes());
+        }
+        Comparator<ContainerNode> heaviestFirst = new Comparator<ContainerNode>() {
+            public int compare(ContainerNode c1, ContainerNode c2) {
+                int diff = bytes.get(c2).compareTo(bytes.get(c1));
+                return diff != 0 ? diff : c1.id.compareTo(c2.id);
+            }
+        };
+        boolean swapped = true;
+        while (swapped) {
+            swapped = false;
+            Collections.sort(approved, heaviestFirst);
+            for (int i = 0; !swapped && i < approved.size() && bytes.get(approved.get(i)) > maximumBytes; i++) {
+                ContainerNode heavy = approved.get(i);
+                for (int j = approved.size() - 1; !swapped && j > i; j--) {
+                    ContainerNode light = approved.get(j);
+                    swapped = swapToBalanceMemory(heavy, light, bytes.get(heavy) - bytes.get(light), moves);
+                    if (swapped) {
+                        bytes.put(heavy, heavy.getPlannedBytes());
+                        bytes.put(light, light.getPlannedBytes());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves memory from the heavy container to the light one, by relocating a large instance of the heavy container
+     * to the light one and a small instance back, or only the large instance if the heavy container may host one
+     * instance less than the light one. Picks the pair that brings both containers closest to each other.
+     * 
+     * @return <code>false</code> if there is no move that narrows the gap between the containers
+     */
+    private boolean swapToBalanceMemory(ContainerNode heavy, ContainerNode light, long gap, List<PlannedMove> moves) {
+        InstanceNode bestLarge = null;
+        InstanceNode bestSmall = null;
+        long bestDistance = gap;
+        for (InstanceNode large : heavy.planned) {
+            if (large.moved || !canHost(light, large)) {
+                continue;
+            }
+            if (heavy.quota > light.quota) {
+                // the heavy container can take the lower quota instead of a small instance
+                long distance = Math.abs(gap - 2 * large.bytes);
+                if (large.bytes > 0 && distance < bestDistance) {
+                    bestLarge = large;
+                    bestSmall = null;
+                    bestDistance = distance;
+                }
+            }
+            for (InstanceNode small : light.planned) {
+                if (small.moved || small.instanceId == large.instanceId || !canHost(heavy, small)) {
+                    continue;
+                }
+                long delta = large.bytes - small.bytes;
+                long distance = Math.abs(gap - 2 * delta);
+                if (delta > 0 && (distance < bestDistance || 
+                        (distance == bestDistance && bestLarge != null && !large.plannedPrimary && bestLarge.plannedPrimary))) {
+                    bestLarge = large;
+                    bestSmall = small;
+                    bestDistance = distance;
+                }
+            }
+        }
+        if (bestLarge == null) {
+            return false;
+        }
+        PlannedMove makeRoom = relocate(bestLarge, light, null);
+        moves.add(makeRoom);
+        if (bestSmall != null) {
+            // after the large instance left, so the heavy container never hosts more instances than planned
+            moves.add(relocate(bestSmall, heavy, makeRoom));
+        } else {
+            int quota = heavy.quota;
+            heavy.quota = light.quota;
+            light.quota = quota;
+        }
+        return true;
+    }
+
+    /**
+     * Ranks the instances a container gives away, lowest first: a primary that fails over to a machine with too
+     * few primaries, then a backup, then any other primary. Relocating a primary fails over its partition.
+     */
+    private int getEvictionRank(InstanceNode instance, Map<MachineNode, Integer> primaries, Map<MachineNode, Integer> primaryTargets) {
+        if (!instance.plannedPrimary) {
+            return 1;
+        }
+        InstanceNode newPrimary = getFailoverInstance(instance);
+        if (newPrimary != null
+                && primaries.get(instance.planned.machine) > target(primaryTargets, instance.planned.machine)
+                && primaries.get(newPrimary.planned.machine) < target(primaryTargets, newPrimary.planned.machine)) {
+            return 0;
+        }
+        return 2;
+    }
+
+    /**
+     * Returns the instance that becomes primary when the given primary instance is stopped, the one with the
+     * lowest backup id, or <code>null</code> if the partition has no other instance.
+     */
+    private InstanceNode getFailoverInstance(InstanceNode primary) {
+        InstanceNode newPrimary = null;
+        for (InstanceNode sibling : partitions.get(primary.instanceId)) {
+            if (sibling != primary && (newPrimary == null || sibling.backupId < newPrimary.backupId)) {
+                newPrimary = sibling;
+            }
+        }
+        return newPrimary;
+    }
+
+    /**
+     * Places an instance that no container with room can host, by moving an instance of a balanced container
+     * to a container with room, and the instance in its place.
+     */
+    private boolean swap(InstanceNode instance, List<ContainerNode> approved, List<PlannedMove> moves) {
+        for (ContainerNode withRoom : approved) {
+            if (withRoom.planned.size() >= withRoom.quota) {
+                continue;
+            }
+            for (ContainerNode balanced : approved) {
+                if (balanced == withRoom || balanced == instance.planned || balanced.planned.size() > balanced.quota
+                        || !canHost(balanced, instance)) {
+                    continue;
+                }
+                for (InstanceNode other : balanced.planned) {
+                    if (other.moved || other.instanceId == instance.instanceId || !canHost(withRoom, other)) {
+                        continue;
+                    }
+                    PlannedMove makeRoom = relocate(other, withRoom, null);
+                    moves.add(makeRoom);
+                    // after the other instance left, so the container never hosts more than planned
+                    moves.add(relocate(instance, balanced, makeRoom));
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean canHost(ContainerNode container, InstanceNode instance) {
+        if (maxInstancesPerMachine <= 0 && maxInstancesPerContainer <= 0) {
+            return true;
+        }
+        int inMachine = 0;
+        int inContainer = 0;
+        for (InstanceNode sibling : partitions.get(instance.instanceId)) {
+            if (sibling == instance) {
+                continue;
+            }
+            if (sibling.planned.machine == container.machine) {
+                inMachine++;
+            }
+            if (sibling.planned == container) {
+                inContainer++;
+            }
+        }
+        return (maxInstancesPerMachine <= 0 || inMachine < maxInstancesPerMachine)
+                && (maxInstancesPerContainer <= 0 || inContainer < maxInstancesPerContainer);
+    }
+
+    private PlannedMove relocate(InstanceNode instance, ContainerNode target, PlannedMove after) {
+        ContainerNode source = instance.planned;
+        MachineNode replicationSource;
+        if (instance.plannedPrimary) {
+            // relocating a primary fails over to another instance of the partition, which replicates to it
+            InstanceNode newPrimary = getFailoverInstance(instance);
+            if (newPrimary != null) {
+                instance.plannedPrimary = false;
+                newPrimary.plannedPrimary = true;
+                replicationSource = newPrimary.planned.machine;
+            } else {
+                replicationSource = source.machine;
+            }
+        } else {
+            InstanceNode primary = getPlannedPrimary(instance.instanceId);
+            replicationSource = primary != null ? primary.planned.machine : source.machine;
+        }
+        source.planned.remove(instance);
+        target.planned.add(instance);
+        instance.planned = target;
+        instance.moved = true;
+        return new PlannedMove(new Move(MoveType.RELOCATE, instance.instanceId, instance.backupId, source.id, target.id,
+                source.machine.id, target.machine.id, replicationSource.id, instance.bytes), after);
+    }
+
+    private InstanceNode getPlannedPrimary(int instanceId) {
+        for (InstanceNode instance : partitions.get(instanceId)) {
+            if (instance.plannedPrimary) {
+                return instance;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of primaries each machine should host, its share of the partitions by CPU cores
+     * (largest remainder). Machines without approved containers or without CPU cores host none.
+     */
+    private Map<MachineNode, Integer> getPlannedNumberOfPrimaries() {
+        Map<MachineNode, Integer> targets = new HashMap<MachineNode, Integer>();
+        List<MachineNode> candidates = new ArrayList<MachineNode>();
+        double totalCpuCores = 0;
+        for (MachineNode machine : machines.values()) {
+            if (machine.cpuCores > 0 && hostsApprovedContainer(machine)) {
+                candidates.add(machine);
+                totalCpuCores += machine.cpuCores;
+            }
+        }
+        int numberOfPartitions = 0;
+        for (Integer instanceId : partitions.keySet()) {
+            if (getPlannedPrimary(instanceId) != null) {
+                numberOfPartitions++;
+            }
+        }
+        if (candidates.isEmpty() || numberOfPartitions == 0) {
+            return targets;
+        }
+
+        final Map<MachineNode, Double> remainders = new HashMap<MachineNode, Double>();
+        int assigned = 0;
+        for (MachineNode machine : candidates) {
+            double share = numberOfPartitions * machine.cpuCores / totalCpuCores;
+            int target = (int) Math.floor(share);
+            targets.put(machine, target);
+            remainders.put(machine, share - target);
+            assigned += target;
+        }
+        List<MachineNode> byRemainder = new ArrayList<MachineNode>(candidates);
+        Collections.sort(byRemainder, new Comparator<MachineNode>() {
+            public int compare(MachineNode m1, MachineNode m2) {
+                int diff = Double.compare(remainders.get(m2), remainders.get(m1));
+                return diff != 0 ? diff : m1.id.compareTo(m2.id);
+            }
+        });
+        for (int i = 0; i < numberOfPartitions - assigned; i++) {
+            MachineNode machine = byRemainder.get(i % byRemainder.size());
+            targets.put(machine, targets.get(machine) + 1);
+        }
+        return targets;
+    }
+
+    private Map<MachineNode, Integer> getNumberOfPlannedPrimaries() {
+        Map<MachineNode, Integer> primaries = new HashMap<MachineNode, Integer>();
+        for (MachineNode machine : machines.values()) {
+            primaries.put(machine, 0);
+        }
+        for (Integer instanceId : partitions.keySet()) {
+            InstanceNode primary = getPlannedPrimary(instanceId);
+            if (primary != null) {
+                increment(primaries, primary.planned.machine, 1);
+            }
+        }
+        return primaries;
+    }
+
+    private static void increment(Map<MachineNode, Integer> counts, MachineNode machine, int delta) {
+        counts.put(machine, counts.get(machine) + delta);
+    }
+
+    /**
+     * Restarts primaries on machines with more primaries than their share of the CPU cores, whose backup is on a
+     * machine with less.
+     * 
+     * @return the number of machines left with more primaries than their share
+     */
+    private int balancePrimaries(Map<MachineNode, Integer> targets, List<PlannedMove> moves) {
+        if (targets.isEmpty()) {
+            return 0;
+        }
+        Map<MachineNode, Integer> primaries = getNumberOfPlannedPrimaries();
+
+        while (true) {
+            List<InstanceNode> restarts = findRestarts(targets, primaries);
+            if (restarts == null) {
+                break;
+            }
+            for (InstanceNode primary : restarts) {
+                InstanceNode backup = getFailoverInstance(primary);
+                MachineNode machine = primary.planned.machine;
+                moves.add(new PlannedMove(new Move(MoveType.RESTART, primary.instanceId, primary.backupId,
+                        primary.planned.id, primary.planned.id, machine.id, machine.id,
+                        backup.planned.machine.id, primary.bytes), null));
+                primary.plannedPrimary = false;
+                backup.plannedPrimary = true;
+                increment(primaries, machine, -1);
+                increment(primaries, backup.planned.machine, 1);
+            }
+        }
+
+        int unbalancedMachines = 0;
+        for (MachineNode machine : machines.values()) {
+            if (primaries.get(machine) > target(targets, machine)) {
+                unbalancedMachines++;
+            }
+        }
+        return unbalancedMachines;
+    }
+
+    /**
+     * Finds the shortest chain of restarts that moves one primary from a machine with too many primaries to a
+     * machine with too few. A restarted primary fails over to its backup, so each restart in the chain moves a
+     * primary one machine further, and the machines in the middle keep their number of primaries.
+     * 
+     * @return the primaries to restart, or <code>null</code> if there is no such chain
+     */
+    private List<InstanceNode> findRestarts(Map<MachineNode, Integer> targets, Map<MachineNode, Integer> primaries) {
+        Map<MachineNode, List<InstanceNode>> primariesByMachine = new HashMap<MachineNode, List<InstanceNode>>();
+        for (Integer instanceId : partitions.keySet()) {
+            InstanceNode primary = getPlannedPrimary(instanceId);
+            InstanceNode backup = primary != null ? getFailoverInstance(primary) : null;
+            if (backup == null || backup.planned.machine == primary.planned.machine) {
+                continue;
+            }
+            List<InstanceNode> machinePrimaries = primariesByMachine.get(primary.planned.machine);
+            if (machinePrimaries == null) {
+                machinePrimaries = new ArrayList<InstanceNode>();
+                primariesByMachine.put(primary.planned.machine, machinePrimaries);
+            }
+            machinePrimaries.add(primary);
+        }
+
+        // breadth first search from all the machines with too many primaries
+        Map<MachineNode, InstanceNode> reachedBy = new HashMap<MachineNode, InstanceNode>();
+        List<MachineNode> queue = new ArrayList<MachineNode>();
+        for (MachineNode machine : machines.values()) {
+            if (primaries.get(machine) > target(targets, machine)) {
+                reachedBy.put(machine, null);
+                queue.add(machine);
+            }
+        }
+        for (int i = 0; i < queue.size(); i++) {
+            List<InstanceNode> machinePrimaries = primariesByMachine.get(queue.get(i));
+            if (machinePrimaries == null) {
+                continue;
+            }
+            for (InstanceNode primary : machinePrimaries) {
+                MachineNode next = getFailoverInstance(primary).planned.machine;
+                if (reachedBy.containsKey(next)) {
+                    continue;
+                }
+                reachedBy.put(next, primary);
+                if (primaries.get(next) < target(targets, next)) {
+                    List<InstanceNode> restarts = new ArrayList<InstanceNode>();
+                    for (InstanceNode restart = primary; restart != null; restart = reachedBy.get(restart.planned.machine)) {
+                        restarts.add(0, restart);
+                    }
+                    return restarts;
+                }
+                queue.add(next);
+            }
+        }
+        return null;
+    }
+
+    private static int target(Map<MachineNode, Integer> targets, MachineNode machine) {
+        Integer target = targets.get(machine);
+        return target != null ? target : 0;
+    }
+
+    private boolean hostsApprovedContainer(MachineNode machine) {
+        for (ContainerNode container : containers.values()) {
+            if (container.approved && container.machine == machine) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Assigns each move to the earliest wave after the previous move of its partition (and the move it waits
+     * for) in which its machines have room for it.
+     */
+    private List<List<Move>> schedule(List<PlannedMove> moves) {
+        List<Wave> waves = new ArrayList<Wave>();
+        Map<Integer, Integer> lastWaveOfPartition = new HashMap<Integer, Integer>();
+        for (PlannedMove plannedMove : moves) {
+            Move move = plannedMove.move;
+            int waveIndex = 0;
+            Integer lastWave = lastWaveOfPartition.get(move.getInstanceId());
+            if (lastWave != null) {
+                waveIndex = lastWave + 1;
+            }
+            if (plannedMove.after != null) {
+                waveIndex = Math.max(waveIndex, plannedMove.after.wave + 1);
+            }
+            while (true) {
+                if (waveIndex == waves.size()) {
+                    waves.add(new Wave());
+                }
+                if (waves.get(waveIndex).fits(move)) {
+                    break;
+                }
+                waveIndex++;
+            }
+            waves.get(waveIndex).add(move);
+            plannedMove.wave = waveIndex;
+            lastWaveOfPartition.put(move.getInstanceId(), waveIndex);
+        }
+        List<List<Move>> result = new ArrayList<List<Move>>(waves.size());
+        for (Wave wave : waves) {
+            result.add(wave.moves);
+        }
+        return result;
+    }
+
+    private class Wave {
+
+        final List<Move> moves = new ArrayList<Move>();
+
+        final Map<String, Integer> movesPerMachine = new HashMap<String, Integer>();
+
+        final Map<String, Long> bytesPerMachine = new HashMap<String, Long>();
+
+        boolean fits(Move move) {
+            if (atMostOneConcurrentRelocation && !moves.isEmpty()) {
+                return false;
+            }
+            for (String machineId : getBusyMachines(move)) {
+                Integer numberOfMoves = movesPerMachine.get(machineId);
+                if (maxConcurrentRelocationsPerMachine > 0 && numberOfMoves != null && numberOfMoves >= maxConcurrentRelocationsPerMachine) {
+                    return false;
+                }
+            }
+            if (maxReplicationBytesPerMachine > 0) {
+                for (String machineId : getBusyMachines(move)) {
+                    Long bytes = bytesPerMachine.get(machineId);
+                    if (bytes != null && bytes > 0 && bytes + move.getBytes() > maxReplicationBytesPerMachine) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        void add(Move move) {
+            moves.add(move);
+            for (String machineId : getBusyMachines(move)) {
+                Integer numberOfMoves = movesPerMachine.get(machineId);
+                movesPerMachine.put(machineId, numberOfMoves == null ? 1 : numberOfMoves + 1);
+                Long bytes = bytesPerMachine.get(machineId);
+                bytesPerMachine.put(machineId, bytes == null ? move.getBytes() : bytes + move.getBytes());
+            }
+        }
+    }
+
+    /**
+     * Returns the machines that replicate the instance state, the source machine only stops the instance.
+     */
+    private static Set<String> getBusyMachines(Move move) {
+        Set<String> machineIds = new HashSet<String>(4);
+        machineIds.add(move.getTargetMachineId());
+        machineIds.add(move.getReplicationSourceMachineId());
+        return machineIds;
+    }
+
+    private static class PlannedMove {
+
+        final Move move;
+
+        final PlannedMove after;
+
+        int wave;
+
+        PlannedMove(Move move, PlannedMove after) {
+            this.move = move;
+            this.after = after;
+        }
+    }
+
+    private static class MachineNode {
+
+        final String id;
+
+        final double cpuCores;
+
+        MachineNode(String id, double cpuCores) {
+            this.id = id;
+            this.cpuCores = cpuCores;
+        }
+    }
+
+    private static class ContainerNode {
+
+        final String id;
+
+        final MachineNode machine;
+
+        final boolean approved;
+
+        final List<InstanceNode> instances = new ArrayList<InstanceNode>();
+
+        List<InstanceNode> planned;
+
+        int quota;
+
+        ContainerNode(String id, MachineNode machine, boolean approved) {
+            this.id = id;
+            this.machine = machine;
+            this.approved = approved;
+        }
+
+        long getPlannedBytes() {
+            long bytes = 0;
+            for (InstanceNode instance : planned) {
+                bytes += instance.bytes;
+            }
+            return bytes;
+        }
+    }
+
+    private static class InstanceNode implements Comparable<InstanceNode> {
+
+        final int instanceId;
+
+        final int backupId;
+
+        final boolean primary;
+
+        final ContainerNode container;
+
+        final long bytes;
+
+        ContainerNode planned;
+
+        boolean plannedPrimary;
+
+        boolean moved;
+
+        InstanceNode(int instanceId, int backupId, boolean primary, ContainerNode container, long bytes) {
+            this.instanceId = instanceId;
+            this.backupId = backupId;
+            this.primary = primary;
+            this.container = container;
+            this.bytes = bytes;
+        }
+
+        public int compareTo(InstanceNode other) {
+            if (instanceId != other.instanceId) {
+                return instanceId < other.instanceId ? -1 : 1;
+            }
+            return backupId < other.backupId ? -1 : (backupId == other.backupId ? 0 : 1);
+        }
+    }
+}
@@ -64,7 +64,9 @@ public class StoreManagerQuery extends ExpressionStoreQuery {
     {
         final JpaQueryExecutor executor = JpaQueryExecutorFactory.newExecutor(expressions[0], classMetaData, parameters); 
         try {
-            return executor.execute(_store);
+            // the range (setFirstResult/setMaxResults) is applied by the executor
+            final int fetchSize = getContext().getFetchConfiguration().getFetchBatchSize();
+            return executor.execute(_store, range.start, range.end, fetchSize);
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage(), e);
         }        
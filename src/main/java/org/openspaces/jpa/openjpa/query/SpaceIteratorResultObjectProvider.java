@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.jpa.openjpa.query;
+
+import java.util.Collections;
+
+import org.apache.commons.lang.exception.NestableRuntimeException;
+import org.apache.openjpa.lib.rop.ResultObjectProvider;
+import org.apache.openjpa.meta.ClassMetaData;
+import org.openspaces.jpa.StoreManager;
+
+import com.gigaspaces.client.iterator.GSIteratorConfig;
+import com.gigaspaces.client.iterator.IteratorScope;
+import com.gigaspaces.internal.client.spaceproxy.ISpaceProxy;
+import com.gigaspaces.internal.client.spaceproxy.metadata.ObjectType;
+import com.j_spaces.core.client.GSIterator;
+import com.j_spaces.core.client.SQLQuery;
+
+/**
+ * A streaming alternative to {@link SpaceResultObjectProvider}, iterating over the query results using
+ * a space iterator, so only a single buffer of entries is held in memory at any given time.
+ * Results before the start index are skipped, and iteration stops at the end index.
+ * 
+ * <p>Note, the space iterator neither supports transactions nor ORDER BY, such queries should use
+ * {@link SpaceResultObjectProvider}.
+ * 
+ * @since 11.0
+ */
+public class SpaceIteratorResultObjectProvider implements ResultObjectProvider {
+    //
+    public static final int DEFAULT_BUFFER_SIZE = 100;
+    
+    private final ClassMetaData _classMetaData;
+    private final SQLQuery<?> _query;
+    private final StoreManager _store;
+    private final long _startIndex;
+    private final long _endIndex;
+    private final int _bufferSize;
+    private GSIterator _iterator;
+    private Object _current;
+    private long _index;
+    
+    /**
+     * @param startIndex The index of the first result to return.
+     * @param endIndex The index after the last result to return (<code>Long.MAX_VALUE</code> for no limit).
+     * @param bufferSize The number of entries to fetch from the space at once, or a non positive value
+     * for the default.
+     */
+    public SpaceIteratorResultObjectProvider(ClassMetaData classMetaData, SQLQuery<?> query, StoreManager store,
+            long startIndex, long endIndex, int bufferSize) {
+        _classMetaData = classMetaData;
+        _query = query;
+        _store = store;
+        _startIndex = startIndex;
+        _endIndex = endIndex;
+        _bufferSize = bufferSize > 0 ? bufferSize : DEFAULT_BUFFER_SIZE;
+    }
+    
+    public void open() throws Exception {
+        final GSIteratorConfig config = new GSIteratorConfig();
+        config.setIteratorScope(IteratorScope.EXISTING);
+        // no point in fetching more entries than requested, skipped entries are fetched as well
+        config.setBufferSize((int) Math.max(1, Math.min(_bufferSize, _endIndex)));
+        _iterator = new GSIterator(_store.getConfiguration().getSpace(), Collections.singletonList(_query), config);
+        _index = 0;
+        _current = null;
+        while (_index < _startIndex && _iterator.hasNext()) {
+            _iterator.next();
+            _index++;
+        }
+    }
+
+    public boolean next() throws Exception {
+        if (_iterator == null)
+            open();
+        if (_index >= _endIndex || !_iterator.hasNext()) {
+            _current = null;
+            return false;
+        }
+        _current = _iterator.next();
+        _index++;
+        return true;
+    }
+
+    /**
+     * Gets the current result as a Pojo initiated with a state manager.
+     */
+    public Object getResultObject() throws Exception {
+        final ISpaceProxy proxy = (ISpaceProxy) _store.getConfiguration().getSpace();
+        return _store.loadObject(_classMetaData, proxy.getDirectProxy().getTypeManager().getEntryPacketFromObject(
+                _current, ObjectType.POJO));
+    }
+
+    public boolean absolute(int pos) throws Exception {
+        throw new UnsupportedOperationException("Random access is not supported");
+    }
+
+    public boolean supportsRandomAccess() {
+        return false;
+    }
+
+    /**
+     * The number of results is unknown until the iteration is done.
+     */
+    public int size() throws Exception {
+        return Integer.MAX_VALUE;
+    }
+
+    public void reset() throws Exception {
+        close();
+        open();
+    }
+
+    public void close() throws Exception {
+        if (_iterator != null) {
+            try {
+                _iterator.cancel();
+            } finally {
+                _iterator = null;
+                _current = null;
+            }
+        }
+    }
+
+    public void handleCheckedException(Exception e) {
+        // openjpa: shouldn't ever happen
+        throw new NestableRuntimeException(e);
+    }
+
+}
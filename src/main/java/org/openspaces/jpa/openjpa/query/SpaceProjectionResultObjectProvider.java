@@ -31,15 +31,26 @@ import org.apache.openjpa.lib.rop.ResultObjectProvider;
 public class SpaceProjectionResultObjectProvider implements ResultObjectProvider {
     //
     private Object[][] _result;
+    private int _startIndex;
+    private int _endIndex;
     private int _currentIndex;
     
     public SpaceProjectionResultObjectProvider(Object[][] result) {
+        this(result, 0, result.length);
+    }
+    
+    /**
+     * Wraps the [startIndex, endIndex) range of the result set without copying it.
+     */
+    public SpaceProjectionResultObjectProvider(Object[][] result, int startIndex, int endIndex) {
         _result = result;
+        _startIndex = startIndex;
+        _endIndex = Math.max(startIndex, endIndex);
         _currentIndex = -1;
     }
     
     public boolean absolute(int pos) throws Exception {
-        if (pos >= 0 && pos < _result.length) {
+        if (pos >= 0 && pos < size()) {
             _currentIndex = pos;
             return true;
         }
@@ -54,7 +65,7 @@ public class SpaceProjectionResultObjectProvider implements ResultObjectProvider
      * Gets the current result as a Pojo initiated with a state manager.
      */
     public Object getResultObject() throws Exception {
-        return _result[_currentIndex];
+        return _result[_startIndex + _currentIndex];
     }
 
     public void handleCheckedException(Exception e) {
@@ -74,7 +85,7 @@ public class SpaceProjectionResultObjectProvider implements ResultObjectProvider
     }
 
     public int size() throws Exception {
-        return _result.length;
+        return _endIndex - _startIndex;
     }
 
     public boolean supportsRandomAccess() {
@@ -48,7 +48,16 @@ abstract class AbstractJpaQueryExecutor implements JpaQueryExecutor {
      * Execute query.
      * @throws Exception 
      */
-    public abstract ResultObjectProvider execute(StoreManager store) throws Exception;
+    public ResultObjectProvider execute(StoreManager store) throws Exception {
+        return execute(store, 0, Long.MAX_VALUE, -1);
+    }
+    
+    /**
+     * Execute query, returning only the results within the given range.
+     * @throws Exception 
+     */
+    public abstract ResultObjectProvider execute(StoreManager store, long startIndex, long endIndex, int fetchSize)
+            throws Exception;
     
     /**
      * Build query for execution.
@@ -64,7 +73,14 @@ abstract class AbstractJpaQueryExecutor implements JpaQueryExecutor {
      * Append WHERE clause to the SQL string builder.
      */
     protected void appendWhereSql() {
-        ((ExpressionNode) _expression.filter).appendSql(_sql);        
+        appendWhereSql(_sql);
+    }
+    
+    /**
+     * Append the WHERE condition (without the WHERE keyword) to the given SQL string builder.
+     */
+    protected void appendWhereSql(StringBuilder sql) {
+        ((ExpressionNode) _expression.filter).appendSql(sql);        
     }
     
     /**
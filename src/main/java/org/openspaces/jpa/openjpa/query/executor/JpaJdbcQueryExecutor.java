@@ -20,18 +20,27 @@ package org.openspaces.jpa.openjpa.query.executor;
 import java.sql.PreparedStatement;
 
 import org.apache.openjpa.kernel.exps.QueryExpressions;
+import org.apache.openjpa.kernel.exps.Value;
 import org.apache.openjpa.lib.rop.ResultObjectProvider;
 import org.apache.openjpa.meta.ClassMetaData;
 import org.openspaces.jpa.StoreManager;
+import org.openspaces.jpa.openjpa.query.AggregationFunction;
 import org.openspaces.jpa.openjpa.query.ExpressionNode;
 import org.openspaces.jpa.openjpa.query.ExpressionNode.NodeType;
 import org.openspaces.jpa.openjpa.query.SpaceProjectionResultObjectProvider;
 
+import com.gigaspaces.internal.client.spaceproxy.ISpaceProxy;
+import com.gigaspaces.query.aggregators.AggregationResult;
+import com.gigaspaces.query.aggregators.AggregationSet;
+import com.j_spaces.core.client.ReadModifiers;
+import com.j_spaces.core.client.SQLQuery;
 import com.j_spaces.jdbc.driver.GConnection;
 import com.j_spaces.jdbc.driver.GResultSet;
 
 /**
  * Executes JPA's translated expression tree as a JDBC query.
+ * Queries whose projections are all aggregation functions (without GROUP BY) are executed using
+ * the space aggregation API instead, so only the aggregated values are sent back to the client.
  * 
  * @author idan
  * @since 8.0
@@ -44,7 +53,13 @@ public class JpaJdbcQueryExecutor extends AbstractJpaQueryExecutor {
     }
 
     @Override
-    public ResultObjectProvider execute(StoreManager store) throws Exception {
+    public ResultObjectProvider execute(StoreManager store, long startIndex, long endIndex, int fetchSize) throws Exception {
+        if (isAggregationOnly()) {
+            // An aggregation query yields a single row - no need to aggregate if it is out of range
+            if (startIndex > 0 || endIndex < 1)
+                return new SpaceProjectionResultObjectProvider(new Object[0][]);
+            return new SpaceProjectionResultObjectProvider(new Object[][] { executeAggregation(store) });
+        }
         GConnection conn = store.getJdbcConnection();
         if (store.getCurrentTransaction() == null) {
             conn.setAutoCommit(true);
@@ -56,8 +71,77 @@ public class JpaJdbcQueryExecutor extends AbstractJpaQueryExecutor {
         for (int i = 0; i < _parameters.length; i++) {
             pstmt.setObject(i+1, _parameters[i]);
         }
+        // Rows are fetched in query order so the range end can be pushed to the space,
+        // unless the rows are sorted or aggregated after being fetched
+        if (endIndex < Long.MAX_VALUE && isRowLimitSupported())
+            pstmt.setMaxRows((int) Math.min(endIndex, Integer.MAX_VALUE));
         GResultSet rs = (GResultSet) pstmt.executeQuery();
-        return new SpaceProjectionResultObjectProvider(rs.getResult().getFieldValues());
+        Object[][] rows = rs.getResult().getFieldValues();
+        return new SpaceProjectionResultObjectProvider(rows, (int) Math.min(startIndex, rows.length),
+                (int) Math.min(endIndex, rows.length));
+    }
+    
+    private boolean isRowLimitSupported() {
+        if (_expression.ordering.length > 0 || _expression.grouping.length > 0)
+            return false;
+        for (Value projection : _expression.projections) {
+            if (projection instanceof AggregationFunction)
+                return false;
+        }
+        return true;
+    }
+    
+    private boolean isAggregationOnly() {
+        if (_expression.grouping.length > 0)
+            return false;
+        for (Value projection : _expression.projections) {
+            if (!(projection instanceof AggregationFunction))
+                return false;
+        }
+        return true;
+    }
+    
+    private Object[] executeAggregation(StoreManager store) throws Exception {
+        final StringBuilder where = new StringBuilder();
+        super.appendWhereSql(where);
+        final SQLQuery<Object> query = new SQLQuery<Object>(_classMetaData.getDescribedType().getName(), where.toString());
+        for (int i = 0; i < _parameters.length; i++) {
+            query.setParameter(i + 1, _parameters[i]);
+        }
+        final AggregationSet aggregationSet = new AggregationSet();
+        for (Value projection : _expression.projections) {
+            final AggregationFunction function = (AggregationFunction) projection;
+            final String path = function.getPath().getName();
+            switch (function.getAggregationType()) {
+                case COUNT:
+                    if (path.length() == 0)
+                        aggregationSet.count();
+                    else
+                        aggregationSet.count(path);
+                    break;
+                case SUM:
+                    aggregationSet.sum(path);
+                    break;
+                case AVERAGE:
+                    aggregationSet.average(path);
+                    break;
+                case MINIMUM:
+                    aggregationSet.minValue(path);
+                    break;
+                case MAXIMUM:
+                    aggregationSet.maxValue(path);
+                    break;
+            }
+        }
+        final ISpaceProxy proxy = (ISpaceProxy) store.getConfiguration().getSpace();
+        final int readModifier = (store.getCurrentTransaction() != null) ? store.getConfiguration().getReadModifier()
+                : ReadModifiers.REPEATABLE_READ;
+        final AggregationResult result = proxy.aggregate(query, aggregationSet, store.getCurrentTransaction(), readModifier);
+        final Object[] row = new Object[_expression.projections.length];
+        for (int i = 0; i < row.length; i++) {
+            row[i] = result.get(i);
+        }
+        return row;
     }
 
     @Override
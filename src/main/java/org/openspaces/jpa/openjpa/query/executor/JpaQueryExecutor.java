@@ -36,6 +36,18 @@ public interface JpaQueryExecutor {
      */
     public ResultObjectProvider execute(StoreManager store) throws Exception;
     
+    /**
+     * Execute the JPA translated expression tree, returning only the results within the given range.
+     * @param store The store manager.
+     * @param startIndex The index of the first result to return.
+     * @param endIndex The index after the last result to return (<code>Long.MAX_VALUE</code> for no limit).
+     * @param fetchSize The number of entries to fetch from the space at once, or a non positive value
+     * for the default.
+     * @return Read entries from space.
+     * @throws Exception
+     */
+    public ResultObjectProvider execute(StoreManager store, long startIndex, long endIndex, int fetchSize) throws Exception;
+    
     /**
      * Gets the executor's generated SQL buffer.
      */
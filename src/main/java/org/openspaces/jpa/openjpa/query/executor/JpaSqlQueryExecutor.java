@@ -21,6 +21,7 @@ import org.apache.openjpa.kernel.exps.QueryExpressions;
 import org.apache.openjpa.lib.rop.ResultObjectProvider;
 import org.apache.openjpa.meta.ClassMetaData;
 import org.openspaces.jpa.StoreManager;
+import org.openspaces.jpa.openjpa.query.SpaceIteratorResultObjectProvider;
 import org.openspaces.jpa.openjpa.query.SpaceResultObjectProvider;
 
 import com.gigaspaces.internal.client.spaceproxy.ISpaceProxy;
@@ -43,13 +44,23 @@ class JpaSqlQueryExecutor extends AbstractJpaQueryExecutor {
         super(expression, cm, parameters);
     }
 
+    /**
+     * Queries without ORDER BY (or GROUP BY) which are not executed under a transaction are streamed using
+     * a space iterator. Otherwise, the query is executed using readMultiple (the space applies the ordering)
+     * limited to the requested end index.
+     */
     @Override
-    public ResultObjectProvider execute(StoreManager store) throws Exception {
+    public ResultObjectProvider execute(StoreManager store, long startIndex, long endIndex, int fetchSize) throws Exception {
+        if (store.getCurrentTransaction() == null && _expression.ordering.length == 0 && _expression.grouping.length == 0) {
+            return new SpaceIteratorResultObjectProvider(_classMetaData, _sqlQuery, store, startIndex, endIndex, fetchSize);
+        }
         final ISpaceProxy proxy = (ISpaceProxy) store.getConfiguration().getSpace();        
-        final Object[] result = proxy.readMultiple(_sqlQuery, store.getCurrentTransaction(), Integer.MAX_VALUE);            
-        final IEntryPacket[] entries = new IEntryPacket[result.length];
-        for (int i = 0; i < result.length; i++) {
-            entries[i] = proxy.getDirectProxy().getTypeManager().getEntryPacketFromObject(result[i],
+        final int maxEntries = (int) Math.min(endIndex, Integer.MAX_VALUE);
+        final Object[] result = proxy.readMultiple(_sqlQuery, store.getCurrentTransaction(), maxEntries);            
+        final int start = (int) Math.min(startIndex, result.length);
+        final IEntryPacket[] entries = new IEntryPacket[result.length - start];
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = proxy.getDirectProxy().getTypeManager().getEntryPacketFromObject(result[start + i],
                     ObjectType.POJO);
         }
         return new SpaceResultObjectProvider(_classMetaData, entries, store);
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.memcached;
+
+import com.gigaspaces.client.CustomChangeOperation;
+import com.gigaspaces.server.MutableServerEntry;
+
+/**
+ * A change operation that appends (or prepends) the given bytes to the value of a
+ * {@link MemcachedEntry}. Only the bytes to concatenate are sent to the space, the
+ * concatenation itself is performed on the space side.
+ */
+public class ConcatValueOperation extends CustomChangeOperation {
+
+    private static final long serialVersionUID = 3351946302290147571L;
+
+    private final byte[] data;
+
+    private final boolean prepend;
+
+    public ConcatValueOperation(byte[] data, boolean prepend) {
+        this.data = data;
+        this.prepend = prepend;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public boolean isPrepend() {
+        return prepend;
+    }
+
+    @Override
+    public String getName() {
+        return prepend ? "memcached-prepend" : "memcached-append";
+    }
+
+    @Override
+    public Object change(MutableServerEntry entry) {
+        byte[] value = (byte[]) entry.getPathValue(MemcachedEntry.VALUE_PROPERTY);
+        if (value == null) {
+            value = new byte[0];
+        }
+        byte[] newData = new byte[value.length + data.length];
+        if (prepend) {
+            System.arraycopy(data, 0, newData, 0, data.length);
+            System.arraycopy(value, 0, newData, data.length, value.length);
+        } else {
+            System.arraycopy(value, 0, newData, 0, value.length);
+            System.arraycopy(data, 0, newData, value.length, data.length);
+        }
+        entry.setPathValue(MemcachedEntry.VALUE_PROPERTY, newData);
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return "ConcatValueOperation[" + getName() + ", length=" + data.length + "]";
+    }
+}
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.memcached;
+
+import com.gigaspaces.client.CustomChangeOperation;
+import com.gigaspaces.server.MutableServerEntry;
+import org.openspaces.memcached.util.BufferUtils;
+
+/**
+ * A change operation that treats the value of a {@link MemcachedEntry} as an ASCII decimal number
+ * and adds the given delta to it (a negative delta decrements). Follows memcached semantics where
+ * a decrement never goes below <code>0</code>.
+ *
+ * <p>The operation is applied on the space side, so an incr/decr command costs a single round trip
+ * and does not need to be retried on optimistic locking failures. The new value is returned as the
+ * change operation result.
+ */
+public class IncrementValueOperation extends CustomChangeOperation {
+
+    private static final long serialVersionUID = -2474219447632087253L;
+
+    private final int delta;
+
+    public IncrementValueOperation(int delta) {
+        this.delta = delta;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    @Override
+    public String getName() {
+        return "memcached-increment";
+    }
+
+    @Override
+    public Object change(MutableServerEntry entry) {
+        byte[] value = (byte[]) entry.getPathValue(MemcachedEntry.VALUE_PROPERTY);
+        int val = BufferUtils.atoi(value) + delta;
+        if (val < 0) {
+            val = 0;
+        } // check for underflow
+        entry.setPathValue(MemcachedEntry.VALUE_PROPERTY, BufferUtils.itoa(val));
+        return val;
+    }
+
+    @Override
+    public String toString() {
+        return "IncrementValueOperation[delta=" + delta + "]";
+    }
+}
@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.memcached;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the memcached items, their size and their access order, so that the number of items and
+ * bytes can be reported without counting the space and the least recently used items can be evicted once a
+ * memory limit is reached.
+ *
+ * <p>The tracked items are split into segments, each guarded by its own lock and ordered by access. Every
+ * access is stamped from a global clock, and eviction always takes the eldest item of the segment whose
+ * eldest item was accessed first, so items are evicted in global LRU order without a global lock (up to
+ * accesses that race with the eviction).
+ *
+ * <p>The size of an item is the length of its key and value, the same as memcached reports.
+ */
+public class LruItemTracker {
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments;
+
+    private final AtomicLong items = new AtomicLong();
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    public LruItemTracker() {
+        segments = new Segment[SEGMENTS];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    public static long sizeOf(Key key, int valueLength) {
+        return key.bytes.length + valueLength;
+    }
+
+    /**
+     * Records that the item was written with a value of the given length, replacing any previous value.
+     */
+    public void put(Key key, int valueLength) {
+        segmentFor(key).put(key, sizeOf(key, valueLength));
+    }
+
+    /**
+     * Records that the given number of bytes were appended to (or prepended to) the value of the item.
+     * Ignored if the item is not tracked, since its total size is unknown.
+     */
+    public void grow(Key key, int delta) {
+        segmentFor(key).grow(key, delta);
+    }
+
+    /**
+     * Marks the item as recently used.
+     */
+    public void touch(Key key) {
+        segmentFor(key).touch(key);
+    }
+
+    public void remove(Key key) {
+        segmentFor(key).remove(key);
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Stops tracking the least recently used items until at least the given number of bytes is freed (or no
+     * items are left), and returns their keys so they can be removed from the space.
+     */
+    public List<Key> evict(long bytesToFree) {
+        List<Key> victims = new ArrayList<Key>();
+        long freed = 0;
+        while (freed < bytesToFree) {
+            Segment eldestSegment = null;
+            long eldestAccess = Long.MAX_VALUE;
+            for (Segment segment : segments) {
+                long access = segment.eldestAccess();
+                if (access < eldestAccess) {
+                    eldestAccess = access;
+                    eldestSegment = segment;
+                }
+            }
+            if (eldestSegment == null) {
+                break;
+            }
+            long size = eldestSegment.evictEldest(victims);
+            if (size > 0) {
+                freed += size;
+            }
+        }
+        return victims;
+    }
+
+    public long getItems() {
+        return items.get();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    private Segment segmentFor(Key key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (SEGMENTS - 1)];
+    }
+
+    private static final class Item {
+        long size;
+        long access;
+
+        Item(long size, long access) {
+            this.size = size;
+            this.access = access;
+        }
+    }
+
+    private final class Segment {
+
+        private final LinkedHashMap<Key, Item> entries = new LinkedHashMap<Key, Item>(16, 0.75f, true);
+
+        synchronized void put(Key key, long size) {
+            Item item = entries.get(key);
+            if (item == null) {
+                entries.put(key, new Item(size, clock.incrementAndGet()));
+                items.incrementAndGet();
+                bytes.addAndGet(size);
+            } else {
+                bytes.addAndGet(size - item.size);
+                item.size = size;
+                item.access = clock.incrementAndGet();
+            }
+        }
+
+        synchronized void grow(Key key, int delta) {
+            Item item = entries.get(key);
+            if (item != null) {
+                item.size += delta;
+                item.access = clock.incrementAndGet();
+                bytes.addAndGet(delta);
+            }
+        }
+
+        synchronized void touch(Key key) {
+            Item item = entries.get(key);
+            if (item != null) {
+                item.access = clock.incrementAndGet();
+            }
+        }
+
+        synchronized void remove(Key key) {
+            Item item = entries.remove(key);
+            if (item != null) {
+                items.decrementAndGet();
+                bytes.addAndGet(-item.size);
+            }
+        }
+
+        synchronized void clear() {
+            long size = 0;
+            for (Item item : entries.values()) {
+                size += item.size;
+            }
+            items.addAndGet(-entries.size());
+            bytes.addAndGet(-size);
+            entries.clear();
+        }
+
+        /**
+         * @return the access stamp of the least recently used item, or <code>Long.MAX_VALUE</code> if the segment is empty
+         */
+        synchronized long eldestAccess() {
+            Iterator<Item> it = entries.values().iterator();
+            return it.hasNext() ? it.next().access : Long.MAX_VALUE;
+        }
+
+        /**
+         * @return the size of the evicted item, or <code>-1</code> if the segment is empty
+         */
+        synchronized long evictEldest(List<Key> victims) {
+            Iterator<Map.Entry<Key, Item>> it = entries.entrySet().iterator();
+            if (!it.hasNext()) {
+                return -1;
+            }
+            Map.Entry<Key, Item> eldest = it.next();
+            it.remove();
+            victims.add(eldest.getKey());
+            items.decrementAndGet();
+            bytes.addAndGet(-eldest.getValue().size);
+            return eldest.getValue().size;
+        }
+    }
+}
@@ -17,6 +17,8 @@
  ******************************************************************************/
 package org.openspaces.memcached;
 
+import com.j_spaces.core.client.SQLQuery;
+import com.j_spaces.kernel.threadpool.DynamicExecutors;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.jboss.netty.bootstrap.ServerBootstrap;
@@ -29,6 +31,10 @@ import org.jboss.netty.channel.group.DefaultChannelGroup;
 import org.jboss.netty.channel.socket.ServerSocketChannelFactory;
 import org.jboss.netty.channel.socket.nio.NioServerSocketChannelFactory;
 import org.openspaces.core.GigaSpace;
+import org.openspaces.events.SpaceDataEventListener;
+import org.openspaces.events.notify.SimpleNotifyContainerConfigurer;
+import org.openspaces.events.notify.SimpleNotifyEventListenerContainer;
+import org.openspaces.memcached.protocol.CommandExecutionHandler;
 import org.openspaces.memcached.protocol.UnifiedProtocolDecoder;
 import org.openspaces.memcached.protocol.binary.MemcachedBinaryPipelineFactory;
 import org.openspaces.memcached.protocol.text.MemcachedPipelineFactory;
@@ -39,6 +45,7 @@ import org.openspaces.pu.service.ServiceMonitorsProvider;
 import org.springframework.beans.factory.BeanNameAware;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.transaction.TransactionStatus;
 
 import java.io.IOException;
 import java.net.InetAddress;
@@ -68,11 +75,34 @@ public class MemCacheDaemon implements InitializingBean, DisposableBean, BeanNam
 
     private boolean threaded = true;
 
+    private int ioWorkerCount = Runtime.getRuntime().availableProcessors() * 2;
+
+    private int executorThreads = CommandExecutionHandler.DEFAULT_THREADS;
+
+    private int maxPendingCommands = CommandExecutionHandler.DEFAULT_MAX_PENDING_COMMANDS;
+
+    private int maxPendingCommandsPerConnection = CommandExecutionHandler.DEFAULT_MAX_PENDING_COMMANDS_PER_CONNECTION;
+
     private int frameSize = 32768 * 1024;
     private int idleTime;
 
+    private int batchSize = 64;
+
+    private long batchTimeMicros = 200;
+
+    private long maxBytes = -1;
+
+    private long nearCacheMaxBytes;
+
+    private long nearCacheTimeToLive = 10000;
+
+    private SimpleNotifyEventListenerContainer spaceWritesContainer;
+
+    private SimpleNotifyEventListenerContainer spaceRemovalsContainer;
+
     private int boundedPort;
     private ServerSocketChannelFactory channelFactory;
+    private CommandExecutionHandler executionHandler;
     private DefaultChannelGroup allChannels;
     private SpaceCache cache;
 
@@ -100,13 +130,107 @@ public class MemCacheDaemon implements InitializingBean, DisposableBean, BeanNam
         this.protocol = protocol;
     }
 
+    /**
+     * Sets if commands are executed by a dedicated worker pool instead of the network I/O threads.
+     * Defaults to <code>true</code>.
+     */
     public void setThreaded(boolean threaded) {
         this.threaded = threaded;
     }
 
+    /**
+     * Sets the number of network I/O threads. Defaults to twice the number of available processors.
+     */
+    public void setIoWorkerCount(int ioWorkerCount) {
+        this.ioWorkerCount = ioWorkerCount;
+    }
+
+    /**
+     * Sets the number of threads executing commands against the space when running <code>threaded</code>.
+     * Commands of a single connection are always executed in order. Defaults to <code>32</code>.
+     */
+    public void setExecutorThreads(int executorThreads) {
+        this.executorThreads = executorThreads;
+    }
+
+    /**
+     * Sets the maximum number of commands waiting for execution across all connections. Reading from
+     * connections is suspended as the limit is approached, and commands received beyond it are answered
+     * with a busy error. Defaults to <code>10000</code>.
+     */
+    public void setMaxPendingCommands(int maxPendingCommands) {
+        this.maxPendingCommands = maxPendingCommands;
+    }
+
+    /**
+     * Sets the maximum number of commands waiting for execution on a single connection before reading from
+     * it is suspended. Defaults to <code>128</code>.
+     */
+    public void setMaxPendingCommandsPerConnection(int maxPendingCommandsPerConnection) {
+        this.maxPendingCommandsPerConnection = maxPendingCommandsPerConnection;
+    }
+
+    /**
+     * Sets the maximum number of consecutive get/set commands received on a connection that are
+     * executed against the space as a single operation. Set to <code>1</code> or less to disable
+     * batching. Defaults to <code>64</code>.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Sets the maximum time (in microseconds) a pipelined command waits for following commands to
+     * be batched with it. A batch is always executed at the end of a network read, so this only
+     * bounds the delay for connections that keep streaming commands. Defaults to <code>200</code>.
+     */
+    public void setBatchTimeMicros(long batchTimeMicros) {
+        this.batchTimeMicros = batchTimeMicros;
+    }
+
+    /**
+     * Sets the maximum number of bytes (keys and values) stored in the space. Once exceeded by a write through
+     * this memcached instance, the least recently used entries are evicted from the space. Entries written by
+     * other instances sharing the space are accounted using space notifications, their accesses are not.
+     * Defaults to <code>-1</code> which means no limit.
+     */
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Sets the maximum number of bytes used by a local cache of hot entries kept in front of the space.
+     * Defaults to <code>0</code> which disables the local cache.
+     *
+     * @see NearCache
+     */
+    public void setNearCacheMaxBytes(long nearCacheMaxBytes) {
+        this.nearCacheMaxBytes = nearCacheMaxBytes;
+    }
+
+    /**
+     * Sets the maximum time (in milliseconds) an entry is kept in the local cache. Entries are invalidated
+     * using space notifications, this caps the staleness if a notification is missed. Defaults to
+     * <code>10000</code>, <code>0</code> means no limit.
+     */
+    public void setNearCacheTimeToLive(long nearCacheTimeToLive) {
+        this.nearCacheTimeToLive = nearCacheTimeToLive;
+    }
+
     public void afterPropertiesSet() throws Exception {
-        cache = new SpaceCache(space);
-        channelFactory = new NioServerSocketChannelFactory(Executors.newCachedThreadPool(), Executors.newCachedThreadPool());
+        NearCache nearCache = null;
+        if (nearCacheMaxBytes > 0) {
+            nearCache = new NearCache(nearCacheMaxBytes, nearCacheTimeToLive);
+        }
+        cache = new SpaceCache(space, nearCache);
+        cache.setLimitMaxBytes(maxBytes);
+        spaceWritesContainer = createSpaceWritesContainer(cache);
+        spaceRemovalsContainer = createSpaceRemovalsContainer(cache);
+        channelFactory = new NioServerSocketChannelFactory(Executors.newCachedThreadPool(DynamicExecutors.daemonThreadFactory("memcached-boss")),
+                Executors.newCachedThreadPool(DynamicExecutors.daemonThreadFactory("memcached-io")), ioWorkerCount);
+        if (threaded) {
+            executionHandler = new CommandExecutionHandler(executorThreads, maxPendingCommands, maxPendingCommandsPerConnection);
+        }
 
         allChannels = new DefaultChannelGroup("memcachedChannelGroup");
 
@@ -114,7 +238,7 @@ public class MemCacheDaemon implements InitializingBean, DisposableBean, BeanNam
 
         ChannelPipelineFactory pipelineFactory = new ChannelPipelineFactory() {
             public ChannelPipeline getPipeline() throws Exception {
-                return Channels.pipeline(new UnifiedProtocolDecoder(cache, allChannels, memcachedVersion, idleTime, false, threaded));
+                return Channels.pipeline(new UnifiedProtocolDecoder(cache, allChannels, memcachedVersion, idleTime, false, executionHandler, batchSize, batchTimeMicros));
             }
         };
         if ("binary".equalsIgnoreCase(protocol)) {
@@ -152,14 +276,50 @@ public class MemCacheDaemon implements InitializingBean, DisposableBean, BeanNam
         logger.info("memcached started on port [" + boundedPort + "]");
     }
 
+    /**
+     * Keeps the items tracked by the cache and its near cache in line with entries written or updated in the
+     * space, including by other memcached instances sharing it.
+     */
+    protected SimpleNotifyEventListenerContainer createSpaceWritesContainer(final SpaceCache cache) {
+        return new SimpleNotifyContainerConfigurer(space)
+                .name(beanName + "-writes")
+                // an empty query matches all the entries, a MemcachedEntry template would only match flags 0
+                .template(new SQLQuery<MemcachedEntry>(MemcachedEntry.class, ""))
+                .notifyWrite(true)
+                .notifyUpdate(true)
+                .eventListener(new SpaceDataEventListener<MemcachedEntry>() {
+                    public void onEvent(MemcachedEntry data, GigaSpace gigaSpace, TransactionStatus txStatus, Object source) {
+                        cache.entryWritten(data);
+                    }
+                }).notifyContainer();
+    }
+
+    /**
+     * Keeps the items tracked by the cache and its near cache in line with entries taken from the space or
+     * expired, including by other memcached instances sharing it.
+     */
+    protected SimpleNotifyEventListenerContainer createSpaceRemovalsContainer(final SpaceCache cache) {
+        return new SimpleNotifyContainerConfigurer(space)
+                .name(beanName + "-removals")
+                .template(new SQLQuery<MemcachedEntry>(MemcachedEntry.class, ""))
+                .notifyWrite(false)
+                .notifyTake(true)
+                .notifyLeaseExpire(true)
+                .eventListener(new SpaceDataEventListener<MemcachedEntry>() {
+                    public void onEvent(MemcachedEntry data, GigaSpace gigaSpace, TransactionStatus txStatus, Object source) {
+                        cache.entryRemoved(data.getKey());
+                    }
+                }).notifyContainer();
+    }
+
     protected ChannelPipelineFactory createMemcachedBinaryPipelineFactory(
             SpaceCache cache, String memcachedVersion, boolean verbose, int idleTime, DefaultChannelGroup allChannels) {
-        return new MemcachedBinaryPipelineFactory(cache, memcachedVersion, verbose, idleTime, allChannels);
+        return new MemcachedBinaryPipelineFactory(cache, memcachedVersion, verbose, idleTime, allChannels, executionHandler, batchSize, batchTimeMicros);
     }
 
     protected ChannelPipelineFactory createMemcachedPipelineFactory(
             SpaceCache cache, String memcachedVersion, boolean verbose, int idleTime, int receiveBufferSize, DefaultChannelGroup allChannels) {
-        return new MemcachedPipelineFactory(cache, memcachedVersion, verbose, idleTime, receiveBufferSize, allChannels);
+        return new MemcachedPipelineFactory(cache, memcachedVersion, verbose, idleTime, receiveBufferSize, allChannels, executionHandler, batchSize, batchTimeMicros);
     }
 
     public void destroy() throws Exception {
@@ -174,6 +334,15 @@ public class MemCacheDaemon implements InitializingBean, DisposableBean, BeanNam
             throw new RuntimeException("exception while closing storage", e);
         }
         channelFactory.releaseExternalResources();
+        if (executionHandler != null) {
+            executionHandler.releaseExternalResources();
+        }
+        if (spaceWritesContainer != null) {
+            spaceWritesContainer.destroy();
+        }
+        if (spaceRemovalsContainer != null) {
+            spaceRemovalsContainer.destroy();
+        }
         logger.info("memcached destroyed");
     }
 
@@ -182,6 +351,17 @@ public class MemCacheDaemon implements InitializingBean, DisposableBean, BeanNam
     }
 
     public ServiceMonitors[] getServicesMonitors() {
-        return new ServiceMonitors[]{new MemcachedServiceMonitors(beanName, cache.getGetCmds(), cache.getSetCmds(), cache.getGetHits(), cache.getGetMisses())};
+        NearCache nearCache = cache.getNearCache();
+        MemcachedServiceMonitors monitors;
+        if (nearCache == null) {
+            monitors = new MemcachedServiceMonitors(beanName, cache.getGetCmds(), cache.getSetCmds(), cache.getGetHits(), cache.getGetMisses());
+        } else {
+            monitors = new MemcachedServiceMonitors(beanName, cache.getGetCmds(), cache.getSetCmds(), cache.getGetHits(), cache.getGetMisses(),
+                    nearCache.getHits(), nearCache.getMisses(), nearCache.getEvictions());
+        }
+        if (executionHandler != null) {
+            monitors.withCommandExecutorStatistics(executionHandler.getPendingCommands(), executionHandler.getRejectedCommands());
+        }
+        return new ServiceMonitors[]{monitors};
     }
 }
@@ -34,6 +34,11 @@ import java.io.ObjectOutput;
 public class MemcachedEntry implements Externalizable {
 
     private static final long serialVersionUID = 7080552232191270155L;
+
+    /**
+     * The name of the value property, used as the path for change operations.
+     */
+    public static final String VALUE_PROPERTY = "value";
     
     private Key key;
 
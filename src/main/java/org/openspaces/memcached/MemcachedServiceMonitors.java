@@ -31,6 +31,11 @@ public class MemcachedServiceMonitors extends PlainServiceMonitors {
         public static final String SET_CMDS = "set-cmds";
         public static final String GET_HITS = "get-hits";
         public static final String GET_MISSES = "get-misses";
+        public static final String NEAR_CACHE_HITS = "near-cache-hits";
+        public static final String NEAR_CACHE_MISSES = "near-cache-misses";
+        public static final String NEAR_CACHE_EVICTIONS = "near-cache-evictions";
+        public static final String PENDING_COMMANDS = "pending-cmds";
+        public static final String REJECTED_COMMANDS = "rejected-cmds";
     }
 
     public MemcachedServiceMonitors() {
@@ -45,6 +50,23 @@ public class MemcachedServiceMonitors extends PlainServiceMonitors {
         getMonitors().put(Attributes.GET_MISSES, getMisses);
     }
 
+    public MemcachedServiceMonitors(String id, long getCmds, long setCmds, long getHits, long getMisses,
+                                    long nearCacheHits, long nearCacheMisses, long nearCacheEvictions) {
+        this(id, getCmds, setCmds, getHits, getMisses);
+        getMonitors().put(Attributes.NEAR_CACHE_HITS, nearCacheHits);
+        getMonitors().put(Attributes.NEAR_CACHE_MISSES, nearCacheMisses);
+        getMonitors().put(Attributes.NEAR_CACHE_EVICTIONS, nearCacheEvictions);
+    }
+
+    /**
+     * Adds the statistics of the worker pool executing the memcached commands.
+     */
+    public MemcachedServiceMonitors withCommandExecutorStatistics(long pendingCommands, long rejectedCommands) {
+        getMonitors().put(Attributes.PENDING_COMMANDS, pendingCommands);
+        getMonitors().put(Attributes.REJECTED_COMMANDS, rejectedCommands);
+        return this;
+    }
+
     public long getGetCmds() {
         return (Long) getMonitors().get(Attributes.GET_CMDS);
     }
@@ -60,4 +82,29 @@ public class MemcachedServiceMonitors extends PlainServiceMonitors {
     public long getGetMisses() {
         return (Long) getMonitors().get(Attributes.GET_MISSES);
     }
+
+    public long getNearCacheHits() {
+        return getLong(Attributes.NEAR_CACHE_HITS);
+    }
+
+    public long getNearCacheMisses() {
+        return getLong(Attributes.NEAR_CACHE_MISSES);
+    }
+
+    public long getNearCacheEvictions() {
+        return getLong(Attributes.NEAR_CACHE_EVICTIONS);
+    }
+
+    public long getPendingCommands() {
+        return getLong(Attributes.PENDING_COMMANDS);
+    }
+
+    public long getRejectedCommands() {
+        return getLong(Attributes.REJECTED_COMMANDS);
+    }
+
+    private long getLong(String attribute) {
+        Long value = (Long) getMonitors().get(attribute);
+        return value == null ? 0 : value;
+    }
 }
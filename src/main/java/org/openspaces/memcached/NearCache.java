@@ -0,0 +1,248 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.memcached;
+
+import org.openspaces.memcached.util.FrequencySketch;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, size aware local cache of hot memcached entries kept in front of the space by the
+ * {@link SpaceCache}.
+ *
+ * <p>Entries are kept in a compact form (the value bytes, flags and version) and the cache is split
+ * into segments, each guarded by its own lock and evicting in LRU order once its share of the maximum
+ * bytes is reached. New entries are only admitted when they are accessed more frequently than each of
+ * the entries they would evict (TinyLFU, see {@link FrequencySketch}), and nothing is evicted for an
+ * entry that is not admitted, so a scan of cold keys does not flush the hot ones.
+ *
+ * <p>Entries are invalidated when the entry is changed through this gateway, by space notifications
+ * for changes done by others, and expire after the configured time to live at the latest. A read that
+ * raced with an invalidation is not cached, see {@link #stamp(Key)}.
+ */
+public class NearCache {
+
+    /**
+     * Estimated memory used by a cached entry on top of its key and value bytes.
+     */
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments;
+
+    private final long timeToLive;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maxBytes   the maximum number of bytes (keys, values and estimated overhead) to cache
+     * @param timeToLive the maximum time (in milliseconds) an entry is cached, <code>0</code> for no limit
+     */
+    public NearCache(long maxBytes, long timeToLive) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        this.timeToLive = timeToLive;
+        this.segments = new Segment[SEGMENTS];
+        long segmentMaxBytes = Math.max(1, maxBytes / SEGMENTS);
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment(segmentMaxBytes);
+        }
+    }
+
+    /**
+     * Returns the cached element for the given key, or <code>null</code> if it is not cached.
+     */
+    public LocalCacheElement get(Key key) {
+        Entry entry = segmentFor(key).get(key);
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        LocalCacheElement element = new LocalCacheElement(key, entry.flags, -1 /* not relevant, not sent back */, entry.version);
+        element.setData(entry.value);
+        return element;
+    }
+
+    /**
+     * Returns a stamp that must be taken before reading the key from the space and passed to
+     * {@link #put(MemcachedEntry, long)}. If the key (or any other key in the same segment) was
+     * invalidated since, the read value might be stale and is not cached.
+     */
+    public long stamp(Key key) {
+        return segmentFor(key).invalidations;
+    }
+
+    public void put(MemcachedEntry entry, long stamp) {
+        if (entry.getValue() == null) {
+            return;
+        }
+        long expireAt = timeToLive > 0 ? System.currentTimeMillis() + timeToLive : Long.MAX_VALUE;
+        segmentFor(entry.getKey()).put(entry.getKey(), new Entry(entry.getValue(), entry.getFlags(), entry.getVersion(), expireAt), stamp);
+    }
+
+    public void invalidate(Key key) {
+        segmentFor(key).invalidate(key);
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getCurrentBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                bytes += segment.bytes;
+            }
+        }
+        return bytes;
+    }
+
+    private Segment segmentFor(Key key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & (SEGMENTS - 1)];
+    }
+
+    private static int weight(Key key, Entry entry) {
+        return key.bytes.length + entry.value.length + ENTRY_OVERHEAD;
+    }
+
+    private static final class Entry {
+        final byte[] value;
+        final int flags;
+        final int version;
+        final long expireAt;
+
+        Entry(byte[] value, int flags, int version, long expireAt) {
+            this.value = value;
+            this.flags = flags;
+            this.version = version;
+            this.expireAt = expireAt;
+        }
+    }
+
+    private final class Segment {
+
+        private final long maxBytes;
+
+        private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+
+        private final FrequencySketch sketch;
+
+        private long bytes;
+
+        private volatile long invalidations;
+
+        Segment(long maxBytes) {
+            this.maxBytes = maxBytes;
+            this.sketch = new FrequencySketch((int) Math.min(Integer.MAX_VALUE, maxBytes / ENTRY_OVERHEAD));
+        }
+
+        synchronized Entry get(Key key) {
+            sketch.increment(key.hashCode());
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expireAt < System.currentTimeMillis()) {
+                entries.remove(key);
+                bytes -= weight(key, entry);
+                return null;
+            }
+            return entry;
+        }
+
+        synchronized void put(Key key, Entry entry, long stamp) {
+            if (stamp != invalidations) {
+                return;
+            }
+            int weight = weight(key, entry);
+            if (weight > maxBytes) {
+                return;
+            }
+            Entry previous = entries.get(key);
+            long available = maxBytes - bytes + (previous != null ? weight(key, previous) : 0);
+            // find the victims first and only evict them once the candidate is admitted
+            int victims = 0;
+            if (weight > available) {
+                int frequency = sketch.frequency(key.hashCode());
+                for (Map.Entry<Key, Entry> victim : entries.entrySet()) {
+                    if (weight <= available) {
+                        break;
+                    }
+                    if (victim.getKey().equals(key)) {
+                        continue;
+                    }
+                    if (previous == null && sketch.frequency(victim.getKey().hashCode()) >= frequency) {
+                        // the candidate is not more popular than the least recently used entries, do not admit it
+                        return;
+                    }
+                    available += weight(victim.getKey(), victim.getValue());
+                    victims++;
+                }
+            }
+            if (previous != null) {
+                entries.remove(key);
+                bytes -= weight(key, previous);
+            }
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            for (int i = 0; i < victims; i++) {
+                Map.Entry<Key, Entry> victim = it.next();
+                it.remove();
+                bytes -= weight(victim.getKey(), victim.getValue());
+                evictions.incrementAndGet();
+            }
+            entries.put(key, entry);
+            bytes += weight;
+        }
+
+        synchronized void invalidate(Key key) {
+            invalidations++;
+            Entry entry = entries.remove(key);
+            if (entry != null) {
+                bytes -= weight(key, entry);
+            }
+        }
+
+        synchronized void clear() {
+            invalidations++;
+            entries.clear();
+            bytes = 0;
+        }
+    }
+}
@@ -17,20 +17,35 @@
  ******************************************************************************/
 package org.openspaces.memcached;
 
+import com.gigaspaces.client.ChangeModifiers;
+import com.gigaspaces.client.ChangeResult;
+import com.gigaspaces.client.ChangeSet;
 import com.gigaspaces.client.ReadByIdsResult;
+import com.gigaspaces.client.WriteModifiers;
+import com.gigaspaces.client.WriteMultipleException.IWriteResult;
+import com.gigaspaces.query.IdQuery;
+import com.j_spaces.core.client.SQLQuery;
 import com.j_spaces.core.client.UpdateModifiers;
+import com.j_spaces.kernel.threadpool.DynamicExecutors;
 import org.openspaces.core.EntryAlreadyInSpaceException;
 import org.openspaces.core.EntryNotInSpaceException;
 import org.openspaces.core.GigaSpace;
 import org.openspaces.core.SpaceOptimisticLockingFailureException;
+import org.openspaces.core.WriteMultipleException;
+import org.openspaces.extensions.ChangeExtension;
 import org.openspaces.memcached.util.BufferUtils;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static java.lang.String.valueOf;
@@ -59,17 +74,47 @@ public class SpaceCache {
 
     private final GigaSpace space;
 
+    private final NearCache nearCache;
+
+    private final LruItemTracker itemTracker = new LruItemTracker();
+
+    private volatile long limitMaxBytes = -1;
+
+    private ScheduledExecutorService flushScheduler;
+
     protected final AtomicLong started = new AtomicLong();
     protected final AtomicLong getCmds = new AtomicLong();
     protected final AtomicLong setCmds = new AtomicLong();
     protected final AtomicLong getHits = new AtomicLong();
     protected final AtomicLong getMisses = new AtomicLong();
+    protected final AtomicLong evictions = new AtomicLong();
 
     public SpaceCache(GigaSpace space) {
+        this(space, null);
+    }
+
+    /**
+     * @param space     the space storing the memcached entries
+     * @param nearCache an optional local cache of hot entries, <code>null</code> to always read from the space
+     */
+    public SpaceCache(GigaSpace space, NearCache nearCache) {
         this.space = space;
+        this.nearCache = nearCache;
         started.set(System.currentTimeMillis());
     }
 
+    public NearCache getNearCache() {
+        return nearCache;
+    }
+
+    /**
+     * Sets the maximum number of bytes (keys and values) stored through this cache. Once exceeded, the least
+     * recently used entries are removed from the space. <code>-1</code> (the default) means no limit.
+     */
+    public void setLimitMaxBytes(long limitMaxBytes) {
+        this.limitMaxBytes = limitMaxBytes;
+    }
+
     public DeleteResponse delete(Key key, int time) {
         if (time > 0) {
             // expire it later, removed from memcached, buts lets do it anyhow (but we do not block it!)
@@ -78,9 +123,11 @@ public class SpaceCache {
                 return DeleteResponse.NOT_FOUND;
             }
             space.write(entry, time);
+            invalidate(key);
             return DeleteResponse.DELETED;
         } 
         MemcachedEntry entry = space.takeById(MemcachedEntry.class, key);
+        removed(key);
         return entry == null ? DeleteResponse.NOT_FOUND : DeleteResponse.DELETED;
     }
 
@@ -89,6 +136,7 @@ public class SpaceCache {
             MemcachedEntry entry = new MemcachedEntry(e.getKey(), e.getData());
             entry.setFlags(e.getFlags());
             space.write(entry, e.getExpire(), 0, UpdateModifiers.WRITE_ONLY);
+            stored(e.getKey(), e.getData().length);
             return StoreResponse.STORED;
         } catch (EntryAlreadyInSpaceException e1) {
             return StoreResponse.EXISTS;
@@ -100,6 +148,7 @@ public class SpaceCache {
             MemcachedEntry entry = new MemcachedEntry(e.getKey(), e.getData());
             entry.setFlags(e.getFlags());
             space.write(entry, e.getExpire(), 0, UpdateModifiers.UPDATE_ONLY);
+            stored(e.getKey(), e.getData().length);
             return StoreResponse.STORED;
         } catch (EntryNotInSpaceException e1) {
             return StoreResponse.NOT_FOUND;
@@ -107,45 +156,26 @@ public class SpaceCache {
     }
 
     public StoreResponse append(LocalCacheElement cacheElement) {
-        // binary protocol allows to pass cas value, take it into account?
-        while (true) {
-            MemcachedEntry entry = space.readById(MemcachedEntry.class, cacheElement.getKey());
-            if (entry == null) {
-                getMisses.incrementAndGet();
-                return StoreResponse.NOT_FOUND;
-            }
-            byte[] newData = new byte[entry.getValue().length + cacheElement.getData().length];
-            System.arraycopy(entry.getValue(), 0, newData, 0, entry.getValue().length);
-            System.arraycopy(cacheElement.getData(), 0, newData, entry.getValue().length, cacheElement.getData().length);
-            entry.setValue(newData);
-            try {
-                space.write(entry);
-            } catch (SpaceOptimisticLockingFailureException e) {
-                continue;
-            }
-            return StoreResponse.STORED;
-        }
+        return concat(cacheElement, false);
     }
 
     public StoreResponse prepend(LocalCacheElement cacheElement) {
+        return concat(cacheElement, true);
+    }
+
+    private StoreResponse concat(LocalCacheElement cacheElement, boolean prepend) {
         // binary protocol allows to pass cas value, take it into account?
-        while (true) {
-            MemcachedEntry entry = space.readById(MemcachedEntry.class, cacheElement.getKey());
-            if (entry == null) {
-                getMisses.incrementAndGet();
-                return StoreResponse.NOT_FOUND;
-            }
-            byte[] newData = new byte[entry.getValue().length + cacheElement.getData().length];
-            System.arraycopy(cacheElement.getData(), 0, newData, 0, cacheElement.getData().length);
-            System.arraycopy(entry.getValue(), 0, newData, cacheElement.getData().length, entry.getValue().length);
-            entry.setValue(newData);
-            try {
-                space.write(entry);
-            } catch (SpaceOptimisticLockingFailureException e) {
-                continue;
-            }
-            return StoreResponse.STORED;
+        ChangeResult<MemcachedEntry> result = space.change(idQuery(cacheElement.getKey()),
+                new ChangeSet().custom(new ConcatValueOperation(cacheElement.getData(), prepend)));
+        invalidate(cacheElement.getKey());
+        if (result.getNumberOfChangedEntries() == 0) {
+            getMisses.incrementAndGet();
+            itemTracker.remove(cacheElement.getKey());
+            return StoreResponse.NOT_FOUND;
         }
+        itemTracker.grow(cacheElement.getKey(), cacheElement.getData().length);
+        evictIfNeeded();
+        return StoreResponse.STORED;
     }
 
     public StoreResponse set(LocalCacheElement e) {
@@ -153,15 +183,74 @@ public class SpaceCache {
         MemcachedEntry entry = new MemcachedEntry(e.getKey(), e.getData());
         entry.setFlags(e.getFlags());
         space.write(entry, e.getExpire());
+        stored(e.getKey(), e.getData().length);
         return StoreResponse.STORED;
     }
 
+    /**
+     * Stores the given (pipelined) elements using a single space operation. Elements the space failed to write
+     * are reported as {@link StoreResponse#NOT_STORED} without failing the rest of the batch.
+     *
+     * <p>The order of the writes within the operation is unspecified, so when a key is set more than once only
+     * its last element is written, as if the elements were set one after the other. The earlier elements of
+     * the key get the response of the last one.
+     */
+    public StoreResponse[] setMultiple(LocalCacheElement[] elements) {
+        setCmds.addAndGet(elements.length);//update stats
+        // the index of the last element of each key
+        Map<Key, Integer> lastIndexes = new HashMap<Key, Integer>(elements.length * 2);
+        for (int i = 0; i < elements.length; i++) {
+            lastIndexes.put(elements[i].getKey(), i);
+        }
+        int[] written = new int[lastIndexes.size()];
+        int count = 0;
+        for (int i = 0; i < elements.length; i++) {
+            if (lastIndexes.get(elements[i].getKey()) == i) {
+                written[count++] = i;
+            }
+        }
+        MemcachedEntry[] entries = new MemcachedEntry[count];
+        long[] leases = new long[count];
+        for (int j = 0; j < count; j++) {
+            LocalCacheElement element = elements[written[j]];
+            entries[j] = new MemcachedEntry(element.getKey(), element.getData());
+            entries[j].setFlags(element.getFlags());
+            leases[j] = element.getExpire();
+        }
+        StoreResponse[] responses = new StoreResponse[elements.length];
+        Arrays.fill(responses, StoreResponse.STORED);
+        try {
+            space.writeMultiple(entries, leases, WriteModifiers.UPDATE_OR_WRITE);
+        } catch (WriteMultipleException e) {
+            // partial failure, fail only the keys that were not written
+            IWriteResult[] results = e.getResults();
+            for (int j = 0; j < count; j++) {
+                if (results[j].isError()) {
+                    responses[written[j]] = StoreResponse.NOT_STORED;
+                }
+            }
+        }
+        for (int i = 0; i < elements.length; i++) {
+            responses[i] = responses[lastIndexes.get(elements[i].getKey())];
+        }
+        for (int j = 0; j < count; j++) {
+            LocalCacheElement element = elements[written[j]];
+            invalidate(element.getKey());
+            if (responses[written[j]] == StoreResponse.STORED) {
+                itemTracker.put(element.getKey(), element.getData().length);
+            }
+        }
+        evictIfNeeded();
+        return responses;
+    }
+
     public StoreResponse cas(Long cas_key, LocalCacheElement e) {
         try {
             MemcachedEntry entry = new MemcachedEntry(e.getKey(), e.getData());
             entry.setFlags(e.getFlags());
             entry.setVersion(cas_key.intValue());
             space.write(entry, e.getExpire(), 0, UpdateModifiers.UPDATE_ONLY);
+            stored(e.getKey(), e.getData().length);
             return StoreResponse.STORED;
         } catch (SpaceOptimisticLockingFailureException e1) {
             return StoreResponse.EXISTS;
@@ -172,53 +261,79 @@ public class SpaceCache {
     }
 
     public Integer get_add(Key key, int mod) {
-        while (true) {
-            MemcachedEntry entry = space.readById(MemcachedEntry.class, key);
-            if (entry == null) {
-                getMisses.incrementAndGet();
-                return null;
-            }
-            int val = BufferUtils.atoi(entry.getValue()) + mod; // change value
-            if (val < 0) {
-                val = 0;
-
-            } // check for underflow
-
-            entry.setValue(BufferUtils.itoa(val));
-
-            try {
-                space.write(entry);
-            } catch (SpaceOptimisticLockingFailureException e) {
-                continue;
-            }
-            return val;
+        ChangeResult<MemcachedEntry> result = space.change(idQuery(key), new ChangeSet().custom(new IncrementValueOperation(mod)),
+                ChangeModifiers.RETURN_DETAILED_RESULTS);
+        invalidate(key);
+        Integer val = ChangeExtension.getSingleChangeOperationResult(result);
+        if (val == null) {
+            getMisses.incrementAndGet();
+            itemTracker.remove(key);
+        } else {
+            itemTracker.put(key, BufferUtils.itoa(val).length);
         }
+        return val;
     }
 
     public LocalCacheElement[] get(Key... keys) {
-        getCmds.incrementAndGet();//updates stats
+        return get(1, keys);
+    }
+
+    /**
+     * Reads the keys of one or more (pipelined) get commands using a single space operation.
+     *
+     * @param commands the number of get commands the keys belong to, used for stats
+     * @param keys     the keys to read
+     * @return the elements in the order of the keys, with <code>null</code> for a miss
+     */
+    public LocalCacheElement[] get(int commands, Key... keys) {
+        getCmds.addAndGet(commands);//updates stats
         try {
-            if (keys.length == 1) {
-                MemcachedEntry entry = space.readById(MemcachedEntry.class, keys[0]);
-                if (entry == null) {
-                    getMisses.incrementAndGet();
-                    return new LocalCacheElement[]{null};
+            LocalCacheElement[] retVal = new LocalCacheElement[keys.length];
+            // positions of the keys that need to be read from the space
+            int[] pending = new int[keys.length];
+            int pendingCount = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (nearCache != null) {
+                    retVal[i] = nearCache.get(keys[i]);
                 }
-                getHits.incrementAndGet();
-                return new LocalCacheElement[]{convert(entry)};
-            } 
-            int hits = 0;
+                if (retVal[i] == null) {
+                    pending[pendingCount++] = i;
+                }
+            }
+            int hits = keys.length - pendingCount;
+            for (Key key : keys) {
+                itemTracker.touch(key);
+            }
             int misses = 0;
-            LocalCacheElement[] retVal = new LocalCacheElement[keys.length];
-            ReadByIdsResult<MemcachedEntry> result = space.readByIds(MemcachedEntry.class, keys);
-            for (int i = 0; i < result.getResultsArray().length; i++) {
-                MemcachedEntry entry = result.getResultsArray()[i];
-                if (entry == null) {
-                    misses++;
-                    retVal[i] = null;
+            if (pendingCount > 0) {
+                long[] stamps = new long[pendingCount];
+                Key[] ids = new Key[pendingCount];
+                for (int j = 0; j < pendingCount; j++) {
+                    ids[j] = keys[pending[j]];
+                    if (nearCache != null) {
+                        stamps[j] = nearCache.stamp(ids[j]);
+                    }
+                }
+                MemcachedEntry[] entries;
+                if (pendingCount == 1) {
+                    entries = new MemcachedEntry[]{space.readById(MemcachedEntry.class, ids[0])};
                 } else {
-                    hits++;
-                    retVal[i] = convert(entry);
+                    ReadByIdsResult<MemcachedEntry> result = space.readByIds(MemcachedEntry.class, ids);
+                    entries = result.getResultsArray();
+                }
+                for (int j = 0; j < entries.length; j++) {
+                    MemcachedEntry entry = entries[j];
+                    if (entry == null) {
+                        misses++;
+                        // expired or removed by others, no longer accounted
+                        itemTracker.remove(ids[j]);
+                    } else {
+                        hits++;
+                        retVal[pending[j]] = convert(entry);
+                        if (nearCache != null) {
+                            nearCache.put(entry, stamps[j]);
+                        }
+                    }
                 }
             }
             getMisses.addAndGet(misses);
@@ -230,26 +345,61 @@ public class SpaceCache {
     }
 
     public boolean flush_all() {
-        return false;
+        return flush_all(0);
     }
 
+    /**
+     * Removes all the entries, either immediately or after the given delay (in seconds).
+     */
     public boolean flush_all(int expire) {
-        return false;
+        if (expire <= 0) {
+            flush();
+            return true;
+        }
+        synchronized (this) {
+            if (flushScheduler == null) {
+                flushScheduler = Executors.newSingleThreadScheduledExecutor(DynamicExecutors.daemonThreadFactory("memcached-flush"));
+            }
+            flushScheduler.schedule(new Runnable() {
+                public void run() {
+                    flush();
+                }
+            }, expire, TimeUnit.SECONDS);
+        }
+        return true;
     }
 
-    public void close() throws IOException {
+    private void flush() {
+        // a single clear operation removes all the entries on the space side, without returning them. An empty
+        // query matches all the entries, a MemcachedEntry template would only match the ones with flags 0
+        space.clear(new SQLQuery<MemcachedEntry>(MemcachedEntry.class, ""));
+        itemTracker.clear();
+        if (nearCache != null) {
+            nearCache.clear();
+        }
+    }
+
+    public synchronized void close() throws IOException {
+        if (flushScheduler != null) {
+            flushScheduler.shutdownNow();
+            flushScheduler = null;
+        }
     }
 
     public long getCurrentItems() {
-        return space.count(new MemcachedEntry());
+        return itemTracker.getItems();
     }
 
     public long getLimitMaxBytes() {
-        return -1;
+        return limitMaxBytes;
     }
 
     public long getCurrentBytes() {
-        return -1;
+        return itemTracker.getBytes();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
     }
 
     public long getGetCmds() {
@@ -282,6 +432,7 @@ public class SpaceCache {
         multiSet(result, "cur_items", valueOf(this.getCurrentItems()));
         multiSet(result, "limit_maxbytes", valueOf(this.getLimitMaxBytes()));
         multiSet(result, "current_bytes", valueOf(this.getCurrentBytes()));
+        multiSet(result, "evictions", valueOf(this.getEvictions()));
         multiSet(result, "free_bytes", valueOf(Runtime.getRuntime().freeMemory()));
 
         // Not really the same thing precisely, but meaningful nonetheless. potentially this should be renamed
@@ -308,10 +459,70 @@ public class SpaceCache {
         map.put(key, cur);
     }
 
+    /**
+     * Called for entries written or updated in the space, including by other gateways sharing it, so the
+     * tracked items and the near cache follow the space and not only the changes done through this cache.
+     * The gateway that wrote the entry is the one enforcing the memory limit.
+     */
+    public void entryWritten(MemcachedEntry entry) {
+        invalidate(entry.getKey());
+        if (entry.getValue() != null) {
+            itemTracker.put(entry.getKey(), entry.getValue().length);
+        }
+    }
+
+    /**
+     * Called for entries taken from the space or expired, including by other gateways sharing it.
+     */
+    public void entryRemoved(Key key) {
+        removed(key);
+    }
+
     public void asyncEventPing() {
         // nothing to do here
     }
 
+    private void stored(Key key, int valueLength) {
+        invalidate(key);
+        itemTracker.put(key, valueLength);
+        evictIfNeeded();
+    }
+
+    private void removed(Key key) {
+        invalidate(key);
+        itemTracker.remove(key);
+    }
+
+    private void evictIfNeeded() {
+        long limit = limitMaxBytes;
+        if (limit < 0) {
+            return;
+        }
+        long overflow = itemTracker.getBytes() - limit;
+        if (overflow <= 0) {
+            return;
+        }
+        List<Key> victims = itemTracker.evict(overflow);
+        if (victims.isEmpty()) {
+            return;
+        }
+        space.takeByIds(MemcachedEntry.class, victims.toArray());
+        for (Key victim : victims) {
+            invalidate(victim);
+        }
+        evictions.addAndGet(victims.size());
+    }
+
+    private void invalidate(Key key) {
+        if (nearCache != null) {
+            nearCache.invalidate(key);
+        }
+    }
+
+    private static IdQuery<MemcachedEntry> idQuery(Key key) {
+        return new IdQuery<MemcachedEntry>(MemcachedEntry.class, key, key);
+    }
+
     private LocalCacheElement convert(MemcachedEntry entry) throws UnsupportedEncodingException {
         LocalCacheElement element = new LocalCacheElement(entry.getKey(), entry.getFlags(), -1 /* not relevant, not sent back */, entry.getVersion());
         element.setData(entry.getValue());
@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.memcached.protocol;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A group of consecutive {@link CommandMessage}s received on the same connection, collected by the
+ * {@link CommandBatchHandler} so they can be executed against the space with a single round trip.
+ * Responses for the commands are written back in the order of the commands.
+ */
+public final class CommandBatch implements Serializable {
+
+    private static final long serialVersionUID = -5296393104271412402L;
+
+    private final List<CommandMessage> commands;
+
+    public CommandBatch(List<CommandMessage> commands) {
+        this.commands = commands;
+    }
+
+    public List<CommandMessage> getCommands() {
+        return commands;
+    }
+
+    public int size() {
+        return commands.size();
+    }
+}
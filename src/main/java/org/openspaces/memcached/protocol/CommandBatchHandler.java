@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.memcached.protocol;
+
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.ChannelUpstreamHandler;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects consecutive get/set {@link CommandMessage}s decoded from a single connection into a
+ * {@link CommandBatch}, so pipelined requests (quiet binary gets, several text <code>get</code> lines
+ * in one packet) are executed by the {@link MemcachedCommandHandler} with one space call instead of one
+ * per command.
+ *
+ * <p>A batch is handed over when it reaches the maximum number of commands, when a command that can not
+ * be batched arrives (the batch is handed over first, so ordering is kept), when the time budget since the
+ * first batched command is exhausted, and at the end of every network read (see {@link #getReadBoundaryHandler()}),
+ * so a batch never waits for more data to arrive.
+ *
+ * <p>Holds per connection state and must not be shared between pipelines. All events of a connection are
+ * processed by its I/O thread, so no synchronization is required.
+ */
+public class CommandBatchHandler extends SimpleChannelUpstreamHandler {
+
+    private final int maxCommands;
+
+    private final long maxDelayNanos;
+
+    private final List<CommandMessage> batch = new ArrayList<CommandMessage>();
+
+    private long batchStartTime;
+
+    private ChannelHandlerContext context;
+
+    private final ChannelUpstreamHandler readBoundaryHandler = new SimpleChannelUpstreamHandler() {
+        @Override
+        public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+            ctx.sendUpstream(e);
+            // all the commands decoded from this read were already received by the batch handler
+            flush();
+        }
+    };
+
+    /**
+     * @param maxCommands    the maximum number of commands in a single batch
+     * @param maxDelayMicros the maximum time (in microseconds) a command may wait in the batch for following commands
+     */
+    public CommandBatchHandler(int maxCommands, long maxDelayMicros) {
+        this.maxCommands = maxCommands;
+        this.maxDelayNanos = maxDelayMicros * 1000;
+    }
+
+    /**
+     * Returns a handler that should be placed at the head of the pipeline (before the frame decoders). It
+     * hands over the current batch once all the commands decoded from a single network read were processed.
+     */
+    public ChannelUpstreamHandler getReadBoundaryHandler() {
+        return readBoundaryHandler;
+    }
+
+    public static boolean isBatchable(CommandMessage command) {
+        return command.op == Op.GET || command.op == Op.GETS || command.op == Op.SET;
+    }
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+        context = ctx;
+        if (!(e.getMessage() instanceof CommandMessage) || !isBatchable((CommandMessage) e.getMessage())) {
+            flush();
+            ctx.sendUpstream(e);
+            return;
+        }
+        if (batch.isEmpty()) {
+            batchStartTime = System.nanoTime();
+        }
+        batch.add((CommandMessage) e.getMessage());
+        if (batch.size() >= maxCommands || System.nanoTime() - batchStartTime >= maxDelayNanos) {
+            flush();
+        }
+    }
+
+    @Override
+    public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+        batch.clear();
+        ctx.sendUpstream(e);
+    }
+
+    /**
+     * Hands over the commands collected so far to the next handler. A single command is passed as is.
+     */
+    public void flush() {
+        if (batch.isEmpty()) {
+            return;
+        }
+        Object message = batch.size() == 1 ? batch.get(0) : new CommandBatch(new ArrayList<CommandMessage>(batch));
+        batch.clear();
+        Channels.fireMessageReceived(context, message, context.getChannel().getRemoteAddress());
+    }
+}
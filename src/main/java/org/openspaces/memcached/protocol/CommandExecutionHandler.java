@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.memcached.protocol;
+
+import com.j_spaces.kernel.threadpool.DynamicExecutors;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelEvent;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelHandler;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelUpstreamHandler;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.util.ExternalResourceReleasable;
+import org.openspaces.memcached.protocol.exceptions.ServerBusyException;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves the execution of commands (and the blocking space calls they perform) off the network I/O threads
+ * onto a fixed size pool, while keeping the events of each connection in order.
+ *
+ * <p>The number of pending commands is bounded:
+ * <ul>
+ * <li>A connection with <code>maxPendingCommandsPerConnection</code> pending commands stops being read
+ * until half of them were executed.</li>
+ * <li>Once three quarters of <code>maxPendingCommands</code> are pending, connections that send more
+ * commands stop being read until the pending commands drop to half of the limit.</li>
+ * <li>A command received while <code>maxPendingCommands</code> are pending is rejected with a server
+ * error response.</li>
+ * </ul>
+ *
+ * <p>A {@link CommandBatch} counts as the number of commands it holds, both for the limit of its connection
+ * and for the global limit. A batch is accepted as long as the global limit is not reached, so the pending
+ * commands may exceed it by at most the size of one batch.
+ *
+ * <p>Suspended connections are only checked when a watermark is crossed: a connection when its own pending
+ * commands drop to half of its limit, and all the suspended connections when the total pending commands
+ * drop to half of the global limit.
+ *
+ * <p>One instance is shared among all the pipelines of the daemon.
+ */
+@ChannelHandler.Sharable
+public class CommandExecutionHandler implements ChannelUpstreamHandler, ExternalResourceReleasable {
+
+    public static final int DEFAULT_THREADS = 32;
+
+    public static final int DEFAULT_MAX_PENDING_COMMANDS = 10000;
+
+    public static final int DEFAULT_MAX_PENDING_COMMANDS_PER_CONNECTION = 128;
+
+    private final ExecutorService executor;
+
+    private final int maxPendingCommands;
+
+    private final int maxPendingCommandsPerConnection;
+
+    private final int lowWatermark;
+
+    private final int highWatermark;
+
+    private final int connectionLowWatermark;
+
+    private final AtomicInteger pendingCommands = new AtomicInteger();
+
+    private final AtomicLong rejectedCommands = new AtomicLong();
+
+    private final Queue<ConnectionQueue> suspendedConnections = new ConcurrentLinkedQueue<ConnectionQueue>();
+
+    /**
+     * @param threads                         the number of threads executing commands
+     * @param maxPendingCommands              the maximum number of commands pending execution, after which commands are rejected
+     * @param maxPendingCommandsPerConnection the maximum number of pending commands of a single connection before reading from it is suspended
+     */
+    public CommandExecutionHandler(int threads, int maxPendingCommands, int maxPendingCommandsPerConnection) {
+        this.executor = Executors.newFixedThreadPool(threads, DynamicExecutors.daemonThreadFactory("memcached"));
+        this.maxPendingCommands = maxPendingCommands;
+        this.maxPendingCommandsPerConnection = maxPendingCommandsPerConnection;
+        this.lowWatermark = maxPendingCommands / 2;
+        // above the low watermark, so every suspension is followed by a crossing of the low watermark
+        this.highWatermark = Math.max(maxPendingCommands / 4 * 3, lowWatermark + 1);
+        this.connectionLowWatermark = maxPendingCommandsPerConnection / 2;
+    }
+
+    public int getPendingCommands() {
+        return pendingCommands.get();
+    }
+
+    public long getRejectedCommands() {
+        return rejectedCommands.get();
+    }
+
+    public void handleUpstream(ChannelHandlerContext ctx, ChannelEvent e) throws Exception {
+        ConnectionQueue queue = (ConnectionQueue) ctx.getAttachment();
+        if (queue == null) {
+            // events of a channel are handled by its single I/O thread
+            queue = new ConnectionQueue(ctx);
+            ctx.setAttachment(queue);
+        }
+        if (!(e instanceof MessageEvent)) {
+            queue.add(e, 0);
+            return;
+        }
+        int commands = commandCount((MessageEvent) e);
+        int pending = pendingCommands.get();
+        if (pending >= maxPendingCommands) {
+            rejectedCommands.addAndGet(commands);
+            queue.suspend();
+            // reported through the connection queue so it is ordered with the responses of the previous commands
+            queue.add(new RejectedCommandEvent((MessageEvent) e), 0);
+            return;
+        }
+        pendingCommands.addAndGet(commands);
+        if (queue.add(e, commands) >= maxPendingCommandsPerConnection || pending >= highWatermark) {
+            queue.suspend();
+        }
+    }
+
+    private static int commandCount(MessageEvent e) {
+        Object message = e.getMessage();
+        return message instanceof CommandBatch ? Math.max(1, ((CommandBatch) message).size()) : 1;
+    }
+
+    public void releaseExternalResources() {
+        executor.shutdownNow();
+    }
+
+    private void commandsExecuted(int commands) {
+        if (crossedDown(pendingCommands.addAndGet(-commands), commands, lowWatermark)) {
+            // crossed the low watermark. connections that can not be resumed yet are added back, so only go over the current ones
+            for (int i = suspendedConnections.size(); i > 0; i--) {
+                ConnectionQueue queue = suspendedConnections.poll();
+                if (queue == null) {
+                    break;
+                }
+                queue.resumeIfPossible();
+            }
+        }
+    }
+
+    /**
+     * @return <code>true</code> if decrementing by <code>delta</code> to <code>count</code> reached the watermark
+     */
+    private static boolean crossedDown(int count, int delta, int watermark) {
+        return count <= watermark && count + delta > watermark;
+    }
+
+    private static class RejectedCommandEvent implements ChannelEvent {
+
+        private final MessageEvent event;
+
+        RejectedCommandEvent(MessageEvent event) {
+            this.event = event;
+        }
+
+        public Channel getChannel() {
+            return event.getChannel();
+        }
+
+        public ChannelFuture getFuture() {
+            return event.getFuture();
+        }
+    }
+
+    /**
+     * The pending events of a single connection, executed one at a time and in order.
+     */
+    private class ConnectionQueue implements Runnable {
+
+        private final ChannelHandlerContext ctx;
+
+        private final Queue<ChannelEvent> events = new ConcurrentLinkedQueue<ChannelEvent>();
+
+        private final AtomicInteger pendingCommands = new AtomicInteger();
+
+        private final AtomicBoolean running = new AtomicBoolean();
+
+        private final AtomicBoolean suspended = new AtomicBoolean();
+
+        ConnectionQueue(ChannelHandlerContext ctx) {
+            this.ctx = ctx;
+        }
+
+        /**
+         * @param commands the number of commands the event holds, <code>0</code> for other events
+         * @return the number of pending commands of the connection
+         */
+        int add(ChannelEvent event, int commands) {
+            int pending = commands > 0 ? pendingCommands.addAndGet(commands) : pendingCommands.get();
+            events.add(event);
+            schedule();
+            return pending;
+        }
+
+        private void schedule() {
+            if (running.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        void suspend() {
+            if (suspended.compareAndSet(false, true)) {
+                ctx.getChannel().setReadable(false);
+                suspendedConnections.add(this);
+                // both watermarks might have been crossed before the connection was added
+                if (CommandExecutionHandler.this.pendingCommands.get() <= lowWatermark && pendingCommands.get() <= connectionLowWatermark) {
+                    suspendedConnections.remove(this);
+                    resume();
+                }
+            }
+        }
+
+        /**
+         * Called for a suspended connection once the total pending commands crossed the low watermark.
+         */
+        void resumeIfPossible() {
+            if (!suspended.get() || !ctx.getChannel().isOpen()) {
+                // already resumed by its own commands, or closed
+                return;
+            }
+            if (pendingCommands.get() > connectionLowWatermark) {
+                // will be resumed once enough of its own commands are executed
+                suspendedConnections.add(this);
+                return;
+            }
+            resume();
+        }
+
+        /**
+         * Called once the pending commands of this connection crossed its low watermark.
+         */
+        private void connectionCommandsDrained() {
+            if (!suspended.get() || CommandExecutionHandler.this.pendingCommands.get() > lowWatermark) {
+                // if suspended, will be resumed once the total pending commands crossed the low watermark
+                return;
+            }
+            suspendedConnections.remove(this);
+            resume();
+        }
+
+        private void resume() {
+            if (suspended.compareAndSet(true, false)) {
+                ctx.getChannel().setReadable(true);
+            }
+        }
+
+        public void run() {
+            try {
+                ChannelEvent event;
+                while ((event = events.poll()) != null) {
+                    if (event instanceof RejectedCommandEvent) {
+                        Channels.fireExceptionCaught(ctx, new ServerBusyException("too many pending commands"));
+                        continue;
+                    }
+                    try {
+                        ctx.sendUpstream(event);
+                    } finally {
+                        if (event instanceof MessageEvent) {
+                            // the connection count is decremented first, so a concurrent watermark check of the
+                            // total count either sees it drained or the connection sees the total drained
+                            int commands = commandCount((MessageEvent) event);
+                            boolean drained = crossedDown(pendingCommands.addAndGet(-commands), commands, connectionLowWatermark);
+                            commandsExecuted(commands);
+                            if (drained) {
+                                connectionCommandsDrained();
+                            }
+                        }
+                    }
+                }
+            } finally {
+                running.set(false);
+            }
+            // an event might have been added after the queue was drained but before running was cleared
+            if (!events.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
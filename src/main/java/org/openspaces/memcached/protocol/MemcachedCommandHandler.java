@@ -23,10 +23,10 @@ import org.jboss.netty.channel.group.DefaultChannelGroup;
 import org.openspaces.memcached.*;
 import org.openspaces.memcached.protocol.exceptions.UnknownCommandException;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
-// TODO implement flush_all delay
-
 /**
  * The actual command handler, which is responsible for processing the CommandMessage instances
  * that are inbound from the protocol decoders.
@@ -124,6 +124,11 @@ public final class MemcachedCommandHandler extends SimpleChannelUpstreamHandler
 
     @Override
     public void messageReceived(ChannelHandlerContext channelHandlerContext, MessageEvent messageEvent) throws Exception {
+        if (messageEvent.getMessage() instanceof CommandBatch) {
+            cache.asyncEventPing();
+            handleBatch(channelHandlerContext, (CommandBatch) messageEvent.getMessage(), messageEvent.getChannel());
+            return;
+        }
         if (!(messageEvent.getMessage() instanceof CommandMessage)) {
             // Ignore what this encoder can't encode.
             channelHandlerContext.sendUpstream(messageEvent);
@@ -139,15 +144,7 @@ public final class MemcachedCommandHandler extends SimpleChannelUpstreamHandler
 
         // now do the real work
         if (this.verbose) {
-            StringBuilder log = new StringBuilder();
-            log.append(cmd);
-            if (command.element != null) {
-                log.append(" ").append(command.element.getKey());
-            }
-            for (int i = 0; i < cmdKeysSize; i++) {
-                log.append(" ").append(command.keys.get(i));
-            }
-            logger.info(log.toString());
+            logCommand(command);
         }
 
         Channel channel = messageEvent.getChannel();
@@ -192,6 +189,71 @@ public final class MemcachedCommandHandler extends SimpleChannelUpstreamHandler
 
     }
 
+    private void logCommand(CommandMessage command) {
+        StringBuilder log = new StringBuilder();
+        log.append(command.op);
+        if (command.element != null) {
+            log.append(" ").append(command.element.getKey());
+        }
+        for (int i = 0; i < command.keys.size(); i++) {
+            log.append(" ").append(command.keys.get(i));
+        }
+        logger.info(log.toString());
+    }
+
+    /**
+     * Executes a batch of pipelined get/set commands. Consecutive gets are executed as a single read by ids
+     * and consecutive sets as a single write multiple, responses are fired in the order of the commands.
+     */
+    protected void handleBatch(ChannelHandlerContext channelHandlerContext, CommandBatch batch, Channel channel) {
+        List<CommandMessage> commands = batch.getCommands();
+        if (this.verbose) {
+            for (CommandMessage command : commands) {
+                logCommand(command);
+            }
+        }
+        int start = 0;
+        while (start < commands.size()) {
+            boolean set = commands.get(start).op == Op.SET;
+            int end = start + 1;
+            while (end < commands.size() && (commands.get(end).op == Op.SET) == set) {
+                end++;
+            }
+            if (set) {
+                handleSets(channelHandlerContext, commands.subList(start, end), channel);
+            } else {
+                handleGets(channelHandlerContext, commands.subList(start, end), channel);
+            }
+            start = end;
+        }
+    }
+
+    protected void handleGets(ChannelHandlerContext channelHandlerContext, List<CommandMessage> commands, Channel channel) {
+        List<Key> keys = new ArrayList<Key>();
+        for (CommandMessage command : commands) {
+            keys.addAll(command.keys);
+        }
+        LocalCacheElement[] results = cache.get(commands.size(), keys.toArray(new Key[keys.size()]));
+        int offset = 0;
+        for (CommandMessage command : commands) {
+            LocalCacheElement[] elements = new LocalCacheElement[command.keys.size()];
+            System.arraycopy(results, offset, elements, 0, elements.length);
+            offset += elements.length;
+            Channels.fireMessageReceived(channelHandlerContext, new ResponseMessage(command).withElements(elements), channel.getRemoteAddress());
+        }
+    }
+
+    protected void handleSets(ChannelHandlerContext channelHandlerContext, List<CommandMessage> commands, Channel channel) {
+        LocalCacheElement[] elements = new LocalCacheElement[commands.size()];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = commands.get(i).element;
+        }
+        SpaceCache.StoreResponse[] responses = cache.setMultiple(elements);
+        for (int i = 0; i < responses.length; i++) {
+            Channels.fireMessageReceived(channelHandlerContext, new ResponseMessage(commands.get(i)).withResponse(responses[i]), channel.getRemoteAddress());
+        }
+    }
+
     protected void handleNoOp(ChannelHandlerContext channelHandlerContext, CommandMessage command) {
         Channels.fireMessageReceived(channelHandlerContext, new ResponseMessage(command));
     }
@@ -17,14 +17,14 @@
  ******************************************************************************/
 package org.openspaces.memcached.protocol;
 
-import com.j_spaces.kernel.threadpool.DynamicExecutors;
 import org.jboss.netty.buffer.ChannelBuffer;
 import org.jboss.netty.channel.Channel;
 import org.jboss.netty.channel.ChannelHandlerContext;
 import org.jboss.netty.channel.ChannelPipeline;
+import org.jboss.netty.channel.ChannelUpstreamHandler;
+import org.jboss.netty.channel.MessageEvent;
 import org.jboss.netty.channel.group.DefaultChannelGroup;
 import org.jboss.netty.handler.codec.frame.FrameDecoder;
-import org.jboss.netty.handler.execution.ExecutionHandler;
 import org.openspaces.memcached.SpaceCache;
 import org.openspaces.memcached.protocol.binary.MemcachedBinaryCommandDecoder;
 import org.openspaces.memcached.protocol.binary.MemcachedBinaryResponseEncoder;
@@ -32,8 +32,6 @@ import org.openspaces.memcached.protocol.text.MemcachedCommandDecoder;
 import org.openspaces.memcached.protocol.text.MemcachedFrameDecoder;
 import org.openspaces.memcached.protocol.text.MemcachedResponseEncoder;
 
-import java.util.concurrent.Executors;
-
 /**
  * @author kimchy (shay.banon)
  */
@@ -47,16 +45,50 @@ public class UnifiedProtocolDecoder extends FrameDecoder {
     public final int idle_limit;
     public final boolean verbose;
 
-    private final boolean threaded;
+    private final ChannelUpstreamHandler executionHandler;
+
+    private final int batchSize;
+
+    private final long batchTimeMicros;
 
+    private CommandBatchHandler batchHandler;
+
+    /**
+     * @param threaded <code>true</code> to execute the commands on a bounded pool shared by all the decoders created
+     *                 with this constructor, <code>false</code> to execute the commands on the I/O threads
+     * @deprecated since 11.0, pass a (shared) {@link CommandExecutionHandler} instead
+     */
+    @Deprecated
     public UnifiedProtocolDecoder(SpaceCache cache, DefaultChannelGroup channelGroup, String version, int idle_limit, boolean verbose,
                                   boolean threaded) {
+        this(cache, channelGroup, version, idle_limit, verbose, threaded ? SharedExecutionHandlerHolder.INSTANCE : null, 0, 0);
+    }
+
+    /**
+     * @param executionHandler the (shared) handler executing the commands off the I/O threads, or <code>null</code> to
+     *                         execute the commands on the I/O threads
+     * @param batchSize        the maximum number of pipelined get/set commands executed together, <code>1</code> or less disables batching
+     * @param batchTimeMicros  the maximum time (in microseconds) a command waits for following commands to be batched with
+     */
+    public UnifiedProtocolDecoder(SpaceCache cache, DefaultChannelGroup channelGroup, String version, int idle_limit, boolean verbose,
+                                  ChannelUpstreamHandler executionHandler, int batchSize, long batchTimeMicros) {
         this.cache = cache;
         this.channelGroup = channelGroup;
         this.version = version;
         this.idle_limit = idle_limit;
         this.verbose = verbose;
-        this.threaded = threaded;
+        this.executionHandler = executionHandler;
+        this.batchSize = batchSize;
+        this.batchTimeMicros = batchTimeMicros;
+    }
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+        super.messageReceived(ctx, e);
+        // the first read was forwarded before the read boundary handler was added, flush it here
+        if (batchHandler != null) {
+            batchHandler.flush();
+        }
     }
 
     @Override
@@ -70,9 +102,8 @@ public class UnifiedProtocolDecoder extends FrameDecoder {
             // binary protocol
             ChannelPipeline p = ctx.getPipeline();
             p.addLast("decoder", new MemcachedBinaryCommandDecoder());
-            if (threaded) {
-                p.addLast("executor", new ExecutionHandler(Executors.newCachedThreadPool(DynamicExecutors.daemonThreadFactory("memcached"))));
-            }
+            addBatchHandler(p);
+            addExecutionHandler(p);
             p.addLast("handler", new MemcachedCommandHandler(cache, version, verbose, idle_limit, channelGroup));
             p.addLast("encoder", new MemcachedBinaryResponseEncoder());
             p.remove(this);
@@ -81,9 +112,8 @@ public class UnifiedProtocolDecoder extends FrameDecoder {
             ChannelPipeline p = ctx.getPipeline();
             p.addLast("frame", new MemcachedFrameDecoder(status, 32768 * 1024));
             p.addLast("decoder", new MemcachedCommandDecoder(status));
-            if (threaded) {
-                p.addLast("executor", new ExecutionHandler(Executors.newCachedThreadPool(DynamicExecutors.daemonThreadFactory("memcached"))));
-            }
+            addBatchHandler(p);
+            addExecutionHandler(p);
             p.addLast("handler", new MemcachedCommandHandler(cache, version, verbose, idle_limit, channelGroup));
             p.addLast("encoder", new MemcachedResponseEncoder());
             p.remove(this);
@@ -91,4 +121,27 @@ public class UnifiedProtocolDecoder extends FrameDecoder {
         // Forward the current read buffer as is to the new handlers.
         return buffer.readBytes(buffer.readableBytes());
     }
+
+    private void addExecutionHandler(ChannelPipeline p) {
+        if (executionHandler != null) {
+            p.addLast("executor", executionHandler);
+        }
+    }
+
+    private void addBatchHandler(ChannelPipeline p) {
+        if (batchSize <= 1) {
+            return;
+        }
+        batchHandler = new CommandBatchHandler(batchSize, batchTimeMicros);
+        p.addFirst("batchBoundary", batchHandler.getReadBoundaryHandler());
+        p.addLast("batcher", batchHandler);
+    }
+
+    /**
+     * Lazily creates the execution handler of the decoders created with the deprecated <code>threaded</code> flag.
+     */
+    private static class SharedExecutionHandlerHolder {
+        static final CommandExecutionHandler INSTANCE = new CommandExecutionHandler(CommandExecutionHandler.DEFAULT_THREADS,
+                CommandExecutionHandler.DEFAULT_MAX_PENDING_COMMANDS, CommandExecutionHandler.DEFAULT_MAX_PENDING_COMMANDS_PER_CONNECTION);
+    }
 }
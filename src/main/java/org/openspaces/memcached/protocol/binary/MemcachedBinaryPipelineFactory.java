@@ -19,9 +19,11 @@ package org.openspaces.memcached.protocol.binary;
 
 import org.jboss.netty.channel.ChannelPipeline;
 import org.jboss.netty.channel.ChannelPipelineFactory;
+import org.jboss.netty.channel.ChannelUpstreamHandler;
 import org.jboss.netty.channel.Channels;
 import org.jboss.netty.channel.group.DefaultChannelGroup;
 import org.openspaces.memcached.SpaceCache;
+import org.openspaces.memcached.protocol.CommandBatchHandler;
 import org.openspaces.memcached.protocol.MemcachedCommandHandler;
 
 
@@ -31,15 +33,38 @@ public class MemcachedBinaryPipelineFactory implements ChannelPipelineFactory {
     private final MemcachedCommandHandler memcachedCommandHandler;
     private final MemcachedBinaryResponseEncoder memcachedBinaryResponseEncoder = new MemcachedBinaryResponseEncoder();
 
+    private final ChannelUpstreamHandler executionHandler;
+    private final int batchSize;
+    private final long batchTimeMicros;
+
     public MemcachedBinaryPipelineFactory(SpaceCache cache, String version, boolean verbose, int idleTime, DefaultChannelGroup channelGroup) {
+        this(cache, version, verbose, idleTime, channelGroup, null, 0, 0);
+    }
+
+    public MemcachedBinaryPipelineFactory(SpaceCache cache, String version, boolean verbose, int idleTime, DefaultChannelGroup channelGroup,
+                                          ChannelUpstreamHandler executionHandler, int batchSize, long batchTimeMicros) {
+        this.executionHandler = executionHandler;
         memcachedCommandHandler = new MemcachedCommandHandler(cache, version, verbose, idleTime, channelGroup);
+        this.batchSize = batchSize;
+        this.batchTimeMicros = batchTimeMicros;
     }
 
     public ChannelPipeline getPipeline() throws Exception {
-        return Channels.pipeline(
-                decoder,
-                memcachedCommandHandler,
-                memcachedBinaryResponseEncoder
-        );
+        ChannelPipeline pipeline = Channels.pipeline();
+        CommandBatchHandler batchHandler = null;
+        if (batchSize > 1) {
+            batchHandler = new CommandBatchHandler(batchSize, batchTimeMicros);
+            pipeline.addLast("batchBoundary", batchHandler.getReadBoundaryHandler());
+        }
+        pipeline.addLast("decoder", decoder);
+        if (batchHandler != null) {
+            pipeline.addLast("batcher", batchHandler);
+        }
+        if (executionHandler != null) {
+            pipeline.addLast("executor", executionHandler);
+        }
+        pipeline.addLast("handler", memcachedCommandHandler);
+        pipeline.addLast("encoder", memcachedBinaryResponseEncoder);
+        return pipeline;
     }
 }
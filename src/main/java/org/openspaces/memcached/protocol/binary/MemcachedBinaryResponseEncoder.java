@@ -25,6 +25,7 @@ import org.jboss.netty.channel.*;
 import org.openspaces.memcached.LocalCacheElement;
 import org.openspaces.memcached.protocol.Op;
 import org.openspaces.memcached.protocol.ResponseMessage;
+import org.openspaces.memcached.protocol.exceptions.ServerBusyException;
 import org.openspaces.memcached.protocol.exceptions.UnknownCommandException;
 
 import java.nio.ByteOrder;
@@ -51,7 +52,8 @@ public class MemcachedBinaryResponseEncoder extends SimpleChannelUpstreamHandler
         INVARG(0x0004),
         NOT_STORED(0x0005),
         UNKNOWN(0x0081),
-        OOM(0x00082);
+        OOM(0x00082),
+        BUSY(0x0085);
 
         public short code;
 
@@ -144,6 +146,9 @@ public class MemcachedBinaryResponseEncoder extends SimpleChannelUpstreamHandler
         } catch (UnknownCommandException unknownCommand) {
             if (ctx.getChannel().isOpen())
                 ctx.getChannel().write(constructHeader(MemcachedBinaryCommandDecoder.BinaryOp.Noop, null, null, null, (short) 0x0081, 0, 0));
+        } catch (ServerBusyException serverBusy) {
+            if (ctx.getChannel().isOpen())
+                ctx.getChannel().write(constructHeader(MemcachedBinaryCommandDecoder.BinaryOp.Noop, null, null, null, ResponseCode.BUSY.code, 0, 0));
         } catch (Throwable err) {
             logger.error("error", err);
             if (ctx.getChannel().isOpen())
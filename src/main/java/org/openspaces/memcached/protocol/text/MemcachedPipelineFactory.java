@@ -19,9 +19,11 @@ package org.openspaces.memcached.protocol.text;
 
 import org.jboss.netty.channel.ChannelPipeline;
 import org.jboss.netty.channel.ChannelPipelineFactory;
+import org.jboss.netty.channel.ChannelUpstreamHandler;
 import org.jboss.netty.channel.Channels;
 import org.jboss.netty.channel.group.DefaultChannelGroup;
 import org.openspaces.memcached.SpaceCache;
+import org.openspaces.memcached.protocol.CommandBatchHandler;
 import org.openspaces.memcached.protocol.MemcachedCommandHandler;
 import org.openspaces.memcached.protocol.SessionStatus;
 
@@ -43,8 +45,20 @@ public final class MemcachedPipelineFactory implements ChannelPipelineFactory {
 
     private final MemcachedCommandHandler memcachedCommandHandler;
 
+    private final ChannelUpstreamHandler executionHandler;
+    private final int batchSize;
+    private final long batchTimeMicros;
+
 
     public MemcachedPipelineFactory(SpaceCache cache, String version, boolean verbose, int idleTime, int frameSize, DefaultChannelGroup channelGroup) {
+        this(cache, version, verbose, idleTime, frameSize, channelGroup, null, 0, 0);
+    }
+
+    public MemcachedPipelineFactory(SpaceCache cache, String version, boolean verbose, int idleTime, int frameSize, DefaultChannelGroup channelGroup,
+                                    ChannelUpstreamHandler executionHandler, int batchSize, long batchTimeMicros) {
+        this.executionHandler = executionHandler;
+        this.batchSize = batchSize;
+        this.batchTimeMicros = batchTimeMicros;
         this.cache = cache;
         this.version = version;
         this.verbose = verbose;
@@ -57,13 +71,22 @@ public final class MemcachedPipelineFactory implements ChannelPipelineFactory {
     public final ChannelPipeline getPipeline() throws Exception {
         SessionStatus status = new SessionStatus().ready();
 
-        return Channels.pipeline(
-                new MemcachedFrameDecoder(status, frameSize),
-                new MemcachedCommandDecoder(status),
-                memcachedCommandHandler,
-                memcachedResponseEncoder);
+        ChannelPipeline pipeline = Channels.pipeline();
+        CommandBatchHandler batchHandler = null;
+        if (batchSize > 1) {
+            batchHandler = new CommandBatchHandler(batchSize, batchTimeMicros);
+            pipeline.addLast("batchBoundary", batchHandler.getReadBoundaryHandler());
+        }
+        pipeline.addLast("frame", new MemcachedFrameDecoder(status, frameSize));
+        pipeline.addLast("decoder", new MemcachedCommandDecoder(status));
+        if (batchHandler != null) {
+            pipeline.addLast("batcher", batchHandler);
+        }
+        if (executionHandler != null) {
+            pipeline.addLast("executor", executionHandler);
+        }
+        pipeline.addLast("handler", memcachedCommandHandler);
+        pipeline.addLast("encoder", memcachedResponseEncoder);
+        return pipeline;
     }
-
-
-
 }
@@ -27,6 +27,7 @@ import org.openspaces.memcached.SpaceCache;
 import org.openspaces.memcached.protocol.Op;
 import org.openspaces.memcached.protocol.ResponseMessage;
 import org.openspaces.memcached.protocol.exceptions.ClientException;
+import org.openspaces.memcached.protocol.exceptions.ServerBusyException;
 import org.openspaces.memcached.util.BufferUtils;
 
 import java.util.Map;
@@ -54,6 +55,7 @@ public final class MemcachedResponseEncoder extends SimpleChannelUpstreamHandler
     private static final ChannelBuffer OK = ChannelBuffers.copiedBuffer("OK\r\n", USASCII);
     private static final ChannelBuffer ERROR = ChannelBuffers.copiedBuffer("ERROR\r\n", USASCII);
     private static final ChannelBuffer CLIENT_ERROR = ChannelBuffers.copiedBuffer("CLIENT_ERROR\r\n", USASCII);
+    private static final ChannelBuffer SERVER_BUSY = ChannelBuffers.copiedBuffer("SERVER_ERROR busy\r\n", USASCII);
 
     /**
      * Handle exceptions in protocol processing. Exceptions are either client or internal errors.  Report accordingly.
@@ -69,6 +71,9 @@ public final class MemcachedResponseEncoder extends SimpleChannelUpstreamHandler
         } catch (ClientException ce) {
             if (ctx.getChannel().isOpen())
                 ctx.getChannel().write(CLIENT_ERROR);
+        } catch (ServerBusyException sbe) {
+            if (ctx.getChannel().isOpen())
+                ctx.getChannel().write(SERVER_BUSY.duplicate());
         } catch (Throwable tr) {
             logger.error("error", tr);
             if (ctx.getChannel().isOpen())
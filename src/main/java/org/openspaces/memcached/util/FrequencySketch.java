@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.memcached.util;
+
+/**
+ * A compact count-min sketch of 4 bit saturating counters used to estimate the access frequency
+ * of keys (TinyLFU). All counters are halved once the number of recorded accesses reaches the
+ * sample size, so the estimates reflect recent popularity.
+ *
+ * <p>Not thread safe, callers are expected to guard it.
+ */
+public class FrequencySketch {
+
+    private static final int DEPTH = 4;
+
+    private static final int MAX_COUNT = 15;
+
+    private static final int[] SEEDS = {0x97cb3127, 0x5c5d1e5d, 0x2f1a7c0b, 0x7ed55d16};
+
+    private final byte[][] table;
+
+    private final int mask;
+
+    private final int sampleSize;
+
+    private int additions;
+
+    /**
+     * @param expectedEntries the expected number of distinct entries tracked, used to size the sketch
+     */
+    public FrequencySketch(int expectedEntries) {
+        int width = 256;
+        while (width < expectedEntries && width < (1 << 24)) {
+            width <<= 1;
+        }
+        this.table = new byte[DEPTH][width];
+        this.mask = width - 1;
+        this.sampleSize = width * 10;
+    }
+
+    public void increment(int hash) {
+        for (int i = 0; i < DEPTH; i++) {
+            int index = index(hash, i);
+            if (table[i][index] < MAX_COUNT) {
+                table[i][index]++;
+            }
+        }
+        if (++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    public int frequency(int hash) {
+        int frequency = MAX_COUNT;
+        for (int i = 0; i < DEPTH; i++) {
+            frequency = Math.min(frequency, table[i][index(hash, i)]);
+        }
+        return frequency;
+    }
+
+    private int index(int hash, int i) {
+        int h = (hash ^ SEEDS[i]) * 0x9e3779b9;
+        h ^= h >>> 16;
+        return h & mask;
+    }
+
+    private void reset() {
+        for (byte[] row : table) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = (byte) (row[i] >>> 1);
+            }
+        }
+        additions /= 2;
+    }
+}
@@ -27,7 +27,7 @@ import org.hibernate.metadata.ClassMetadata;
 import org.hibernate.persister.entity.AbstractEntityPersister;
 import org.openspaces.persistency.hibernate.iterator.HibernateProxyRemoverIterator;
 import org.openspaces.persistency.patterns.ManagedDataSourceEntriesProvider;
-import org.openspaces.persistency.support.ConcurrentMultiDataIterator;
+import org.openspaces.persistency.support.BatchingConcurrentMultiDataIterator;
 
 import java.util.*;
 
@@ -58,6 +58,10 @@ public abstract class AbstractHibernateExternalDataSource implements ManagedData
 
     private int initialLoadChunkSize = 100000;
 
+    private int initialLoadBatchSize = BatchingConcurrentMultiDataIterator.DEFAULT_BATCH_SIZE;
+
+    private int initialLoadMaxBufferedObjects = BatchingConcurrentMultiDataIterator.DEFAULT_MAX_BUFFERED_OBJECTS;
+
     private boolean performOrderById = true;
 
     private boolean createdSessionFactory = true;
@@ -195,7 +199,7 @@ public abstract class AbstractHibernateExternalDataSource implements ManagedData
     }
 
     /**
-     * The initial load operation uses the {@link org.openspaces.persistency.support.ConcurrentMultiDataIterator}.
+     * The initial load operation uses the {@link org.openspaces.persistency.support.BatchingConcurrentMultiDataIterator}.
      * This property allows to control the thread pool size of the concurrent multi data iterator. Defaults to
      * <code>10</code>.
      *
@@ -205,6 +209,23 @@ public abstract class AbstractHibernateExternalDataSource implements ManagedData
         this.initialLoadThreadPoolSize = initialLoadThreadPoolSize;
     }
 
+    /**
+     * The number of objects the initial load threads hand off to the consuming thread at once. Defaults to
+     * <code>256</code>.
+     */
+    public void setInitialLoadBatchSize(int initialLoadBatchSize) {
+        this.initialLoadBatchSize = initialLoadBatchSize;
+    }
+
+    /**
+     * The maximum number of objects loaded by the initial load threads and not yet consumed. The loading threads
+     * block once it is reached. Note, this is an object count, not a memory size: the memory held by the loaded
+     * objects depends on their size. Defaults to <code>65536</code>.
+     */
+    public void setInitialLoadMaxBufferedObjects(int initialLoadMaxBufferedObjects) {
+        this.initialLoadMaxBufferedObjects = initialLoadMaxBufferedObjects;
+    }
+
     /**
      * By default, the initial load process will chunk large tables and will iterate over the table (entity) per
      * chunk (concurrently). This setting allows to control the chunk size to split the table by. By default, set
@@ -321,11 +342,13 @@ public abstract class AbstractHibernateExternalDataSource implements ManagedData
     }
 
     /**
-     * A helper method that creates the initial load iterator using the {@link org.openspaces.persistency.support.ConcurrentMultiDataIterator}
-     * with the provided {@link #setInitialLoadThreadPoolSize(int)} thread pool size.
+     * A helper method that creates the initial load iterator using the {@link org.openspaces.persistency.support.BatchingConcurrentMultiDataIterator}
+     * with the provided {@link #setInitialLoadThreadPoolSize(int)} thread pool size, {@link #setInitialLoadBatchSize(int)}
+     * batch size and {@link #setInitialLoadMaxBufferedObjects(int)} maximum number of buffered objects.
      */
     protected DataIterator createInitialLoadIterator(DataIterator[] iterators) {
-        return new HibernateProxyRemoverIterator(new ConcurrentMultiDataIterator(iterators, initialLoadThreadPoolSize));
+        return new HibernateProxyRemoverIterator(new BatchingConcurrentMultiDataIterator(iterators, initialLoadThreadPoolSize,
+                initialLoadBatchSize, initialLoadMaxBufferedObjects));
     }
 
     protected boolean isManaged(BulkItem bulkItem) {
@@ -28,7 +28,7 @@ import org.hibernate.persister.entity.AbstractEntityPersister;
 import org.openspaces.core.cluster.ClusterInfo;
 import org.openspaces.persistency.hibernate.iterator.HibernateProxyRemoverIterator;
 import org.openspaces.persistency.patterns.ManagedEntriesSpaceDataSource;
-import org.openspaces.persistency.support.ConcurrentMultiDataIterator;
+import org.openspaces.persistency.support.BatchingConcurrentMultiDataIterator;
 
 import java.util.*;
 
@@ -47,6 +47,8 @@ public abstract class AbstractHibernateSpaceDataSource extends ManagedEntriesSpa
     private final Set<String> initialLoadEntries = new HashSet<String>();
     private final int initialLoadThreadPoolSize;
     private final int initialLoadChunkSize;
+    private final int initialLoadBatchSize;
+    private final int initialLoadMaxBufferedObjects;
     private final boolean useScrollableResultSet;
     private final ManagedEntitiesContainer sessionManager;
     private final SessionFactory sessionFactory;
@@ -60,12 +62,28 @@ public abstract class AbstractHibernateSpaceDataSource extends ManagedEntriesSpa
                                             String[] initialLoadQueryScanningBasePackages,
                                             boolean augmentInitialLoadEntries,
 											ClusterInfo clusterInfo) {
+        this(sessionFactory, managedEntries, fetchSize, performOrderById, initialLoadEntries, initialLoadThreadPoolSize,
+                initialLoadChunkSize, useScrollableResultSet, initialLoadQueryScanningBasePackages, augmentInitialLoadEntries,
+                clusterInfo, BatchingConcurrentMultiDataIterator.DEFAULT_BATCH_SIZE,
+                BatchingConcurrentMultiDataIterator.DEFAULT_MAX_BUFFERED_OBJECTS);
+    }
+
+    public AbstractHibernateSpaceDataSource(SessionFactory sessionFactory, Set<String> managedEntries, int fetchSize,
+                                            boolean performOrderById, String[] initialLoadEntries,
+                                            int initialLoadThreadPoolSize, int initialLoadChunkSize,
+                                            boolean useScrollableResultSet,
+                                            String[] initialLoadQueryScanningBasePackages,
+                                            boolean augmentInitialLoadEntries,
+											ClusterInfo clusterInfo,
+                                            int initialLoadBatchSize, int initialLoadMaxBufferedObjects) {
         this.sessionFactory = sessionFactory;
         this.fetchSize = fetchSize;
         this.performOrderById = performOrderById;
         this.initialLoadEntries.addAll(createInitialLoadEntries(initialLoadEntries, sessionFactory));
         this.initialLoadThreadPoolSize = initialLoadThreadPoolSize;
         this.initialLoadChunkSize = initialLoadChunkSize;
+        this.initialLoadBatchSize = initialLoadBatchSize;
+        this.initialLoadMaxBufferedObjects = initialLoadMaxBufferedObjects;
         this.useScrollableResultSet = useScrollableResultSet;
         this.sessionManager = new ManagedEntitiesContainer(sessionFactory, managedEntries);
         this.initialLoadQueryScanningBasePackages = initialLoadQueryScanningBasePackages;
@@ -132,11 +150,12 @@ public abstract class AbstractHibernateSpaceDataSource extends ManagedEntriesSpa
     }
 
     /**
-     * A helper method that creates the initial load iterator using the {@link org.openspaces.persistency.support.ConcurrentMultiDataIterator}
-     * with the provided {@link #setInitialLoadThreadPoolSize(int)} thread pool size.
+     * A helper method that creates the initial load iterator using the {@link org.openspaces.persistency.support.BatchingConcurrentMultiDataIterator}
+     * with the provided thread pool size, batch size and maximum number of buffered objects.
      */
     protected DataIterator createInitialLoadIterator(DataIterator[] iterators) {
-        return new HibernateProxyRemoverIterator(new ConcurrentMultiDataIterator(iterators, initialLoadThreadPoolSize));
+        return new HibernateProxyRemoverIterator(new BatchingConcurrentMultiDataIterator(iterators, initialLoadThreadPoolSize,
+                initialLoadBatchSize, initialLoadMaxBufferedObjects));
     }
 
     /**
@@ -27,6 +27,7 @@ import org.openspaces.core.cluster.ClusterInfo;
 import org.openspaces.persistency.hibernate.iterator.DefaultCriteriaByExampleDataIterator;
 import org.openspaces.persistency.hibernate.iterator.HibernateIteratorUtils;
 import org.openspaces.persistency.hibernate.iterator.HibernateProxyRemoverIterator;
+import org.openspaces.persistency.support.BatchingConcurrentMultiDataIterator;
 
 import java.io.Serializable;
 import java.util.Set;
@@ -43,9 +44,20 @@ public class CriteriaHibernateSpaceDataSource extends DefaultHibernateSpaceDataS
             boolean performOrderById, String[] initialLoadEntries, int initialLoadThreadPoolSize,
             int initialLoadChunkSize, boolean useScrollableResultSet, String[] initialLoadQueryScanningBasePackages,
             boolean augmentInitialLoadEntries, ClusterInfo clusterInfo) {
-        super(sessionFactory, managedEntries, fetchSize, performOrderById, initialLoadEntries,
-                initialLoadThreadPoolSize, initialLoadChunkSize, useScrollableResultSet, initialLoadQueryScanningBasePackages,
-                augmentInitialLoadEntries,clusterInfo);
+        this(sessionFactory, managedEntries, fetchSize, performOrderById, initialLoadEntries, initialLoadThreadPoolSize,
+                initialLoadChunkSize, useScrollableResultSet, initialLoadQueryScanningBasePackages, augmentInitialLoadEntries,
+                clusterInfo, BatchingConcurrentMultiDataIterator.DEFAULT_BATCH_SIZE,
+                BatchingConcurrentMultiDataIterator.DEFAULT_MAX_BUFFERED_OBJECTS);
+    }
+
+    public CriteriaHibernateSpaceDataSource(SessionFactory sessionFactory, Set<String> managedEntries, int fetchSize,
+            boolean performOrderById, String[] initialLoadEntries, int initialLoadThreadPoolSize,
+            int initialLoadChunkSize, boolean useScrollableResultSet, String[] initialLoadQueryScanningBasePackages,
+            boolean augmentInitialLoadEntries, ClusterInfo clusterInfo,
+            int initialLoadBatchSize, int initialLoadMaxBufferedObjects) {
+        super(sessionFactory, managedEntries, fetchSize, performOrderById, initialLoadEntries, initialLoadThreadPoolSize,
+                initialLoadChunkSize, useScrollableResultSet, initialLoadQueryScanningBasePackages, augmentInitialLoadEntries,
+                clusterInfo, initialLoadBatchSize, initialLoadMaxBufferedObjects);
     }
     
     /* (non-Javadoc)
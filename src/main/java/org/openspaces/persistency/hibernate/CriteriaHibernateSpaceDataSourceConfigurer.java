@@ -19,6 +19,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hibernate.SessionFactory;
 import org.openspaces.core.cluster.ClusterInfo;
+import org.openspaces.persistency.support.BatchingConcurrentMultiDataIterator;
 
 import java.util.Arrays;
 import java.util.HashSet;
@@ -44,6 +45,10 @@ public class CriteriaHibernateSpaceDataSourceConfigurer {
 
     private int initialLoadChunkSize = 100000;
 
+    private int initialLoadBatchSize = BatchingConcurrentMultiDataIterator.DEFAULT_BATCH_SIZE;
+
+    private int initialLoadMaxBufferedObjects = BatchingConcurrentMultiDataIterator.DEFAULT_MAX_BUFFERED_OBJECTS;
+
     private boolean performOrderById = true;
 
     private boolean useScrollableResultSet = true;
@@ -113,7 +118,7 @@ public class CriteriaHibernateSpaceDataSourceConfigurer {
     }
 
     /**
-     * The initial load operation uses the {@link org.openspaces.persistency.support.ConcurrentMultiDataIterator}.
+     * The initial load operation uses the {@link org.openspaces.persistency.support.BatchingConcurrentMultiDataIterator}.
      * This property allows to control the thread pool size of the concurrent multi data iterator. Defaults to
      * <code>10</code>.
      *
@@ -134,6 +139,25 @@ public class CriteriaHibernateSpaceDataSourceConfigurer {
         return this;
     }
 
+    /**
+     * The number of objects the initial load threads hand off to the consuming thread at once. Defaults to
+     * <code>256</code>.
+     */
+    public CriteriaHibernateSpaceDataSourceConfigurer initialLoadBatchSize(int initialLoadBatchSize) {
+        this.initialLoadBatchSize = initialLoadBatchSize;
+        return this;
+    }
+
+    /**
+     * The maximum number of objects loaded by the initial load threads and not yet consumed. The loading threads
+     * block once it is reached. Note, this is an object count, not a memory size: the memory held by the loaded
+     * objects depends on their size. Defaults to <code>65536</code>.
+     */
+    public CriteriaHibernateSpaceDataSourceConfigurer initialLoadMaxBufferedObjects(int initialLoadMaxBufferedObjects) {
+        this.initialLoadMaxBufferedObjects = initialLoadMaxBufferedObjects;
+        return this;
+    }
+
     /**
      * Controls if scrollable result sets will be used with initial load operation. Defaults to <code>true</code>.
      */
@@ -177,7 +201,7 @@ public class CriteriaHibernateSpaceDataSourceConfigurer {
         return new CriteriaHibernateSpaceDataSource(sessionFactory,
                 managedEntries, fetchSize, performOrderById, initialLoadEntries, initialLoadThreadPoolSize,
                 initialLoadChunkSize, useScrollableResultSet, initialLoadQueryScanningBasePackages,
-                augmentInitialLoadEntries, clusterInfo);
+                augmentInitialLoadEntries, clusterInfo, initialLoadBatchSize, initialLoadMaxBufferedObjects);
     }
 
 }
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.openspaces.persistency.hibernate;
+
+import com.gigaspaces.sync.DataSyncOperation;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Groups the operations of a single batch by their kind, so operations of the same kind on the same type
+ * are executed one after the other (allowing Hibernate to batch the generated JDBC statements).
+ *
+ * <p>Only consecutive operations of the same type are grouped: the operations of different types are kept
+ * in the order they were added, since they might depend on each other (for example, through foreign keys).
+ * Within such a run, operations on different ids might be reordered, operations on the same id are always
+ * executed in the order they were added. Consecutive writes/updates of the same id are collapsed into the
+ * latest one. An operation without an id acts as a barrier, no later operation is moved before it.
+ *
+ * @since 11.0
+ */
+final class DataSyncOperationGroups {
+
+    enum Kind {
+        SAVE, PARTIAL_UPDATE, REMOVE
+    }
+
+    static final class Group {
+
+        private final String typeName;
+
+        private final Kind kind;
+
+        private final List<DataSyncOperation> operations = new ArrayList<DataSyncOperation>();
+
+        Group(String typeName, Kind kind) {
+            this.typeName = typeName;
+            this.kind = kind;
+        }
+
+        String getTypeName() {
+            return typeName;
+        }
+
+        Kind getKind() {
+            return kind;
+        }
+
+        List<DataSyncOperation> getOperations() {
+            return operations;
+        }
+    }
+
+    private final List<Group> groups = new ArrayList<Group>();
+
+    // the last group created for each type and kind, the only one later operations might join
+    private final Map<String, Integer> lastGroupByTypeAndKind = new HashMap<String, Integer>();
+
+    // the group of the latest operation of each id
+    private final Map<Object, Integer> lastGroupById = new HashMap<Object, Integer>();
+
+    // the position of the latest save operation of each id within its group
+    private final Map<Object, Integer> savePositionById = new HashMap<Object, Integer>();
+
+    private int barrier;
+
+    private String lastTypeName;
+
+    private int collapsed;
+
+    /**
+     * Adds the given operation, the id might be <code>null</code> if it is unknown.
+     */
+    void add(DataSyncOperation operation, String typeName, Kind kind, Object id) {
+        if (lastTypeName != null && !lastTypeName.equals(typeName)) {
+            // a new run of operations, none of them is moved before the operations of the previous types
+            barrier = groups.size();
+        }
+        lastTypeName = typeName;
+
+        int minGroup = barrier;
+        Integer previousGroup = null;
+        if (id == null) {
+            minGroup = Math.max(minGroup, groups.size() - 1);
+        } else {
+            previousGroup = lastGroupById.get(id);
+            if (previousGroup != null) {
+                minGroup = Math.max(minGroup, previousGroup);
+            }
+        }
+
+        String groupKey = typeName + '#' + kind;
+        Integer groupIndex = lastGroupByTypeAndKind.get(groupKey);
+        if (kind == Kind.SAVE && previousGroup != null && previousGroup >= barrier
+                && savePositionById.containsKey(id) && groups.get(previousGroup).typeName.equals(typeName)) {
+            // the previous operation of this id is a save (possibly in an older group), the latest state wins
+            groupIndex = previousGroup;
+        } else if (groupIndex == null || groupIndex < minGroup) {
+            groupIndex = groups.size();
+            groups.add(new Group(typeName, kind));
+            lastGroupByTypeAndKind.put(groupKey, groupIndex);
+        }
+        Group group = groups.get(groupIndex);
+
+        if (id == null) {
+            group.operations.add(operation);
+            barrier = groupIndex;
+            return;
+        }
+
+        if (kind == Kind.SAVE && groupIndex.equals(previousGroup)) {
+            Integer position = savePositionById.get(id);
+            if (position != null) {
+                group.operations.set(position, operation);
+                collapsed++;
+                return;
+            }
+        }
+
+        if (kind == Kind.SAVE) {
+            savePositionById.put(id, group.operations.size());
+        } else {
+            savePositionById.remove(id);
+        }
+        group.operations.add(operation);
+        lastGroupById.put(id, groupIndex);
+    }
+
+    /**
+     * Returns the groups, in the order they should be executed.
+     */
+    List<Group> getGroups() {
+        return groups;
+    }
+
+    /**
+     * Returns the number of operations which were collapsed into a later operation of the same id.
+     */
+    int getCollapsedCount() {
+        return collapsed;
+    }
+}
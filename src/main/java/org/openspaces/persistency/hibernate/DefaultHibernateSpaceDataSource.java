@@ -23,6 +23,7 @@ import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.openspaces.core.cluster.ClusterInfo;
 import org.openspaces.persistency.hibernate.iterator.*;
+import org.openspaces.persistency.support.BatchingConcurrentMultiDataIterator;
 
 import java.util.*;
 
@@ -37,9 +38,20 @@ public class DefaultHibernateSpaceDataSource extends AbstractHibernateSpaceDataS
                                            boolean performOrderById, String[] initialLoadEntries, int initialLoadThreadPoolSize,
                                            int initialLoadChunkSize, boolean useScrollableResultSet, String[] initialLoadQueryScanningBasePackages,
 										   boolean augmentInitialLoadEntries, ClusterInfo clusterInfo) {
-        super(sessionFactory, managedEntries, fetchSize, performOrderById, initialLoadEntries, initialLoadThreadPoolSize,initialLoadChunkSize,
-				useScrollableResultSet, initialLoadQueryScanningBasePackages, augmentInitialLoadEntries, clusterInfo);
-        
+        this(sessionFactory, managedEntries, fetchSize, performOrderById, initialLoadEntries, initialLoadThreadPoolSize,
+                initialLoadChunkSize, useScrollableResultSet, initialLoadQueryScanningBasePackages, augmentInitialLoadEntries,
+                clusterInfo, BatchingConcurrentMultiDataIterator.DEFAULT_BATCH_SIZE,
+                BatchingConcurrentMultiDataIterator.DEFAULT_MAX_BUFFERED_OBJECTS);
+    }
+
+    public DefaultHibernateSpaceDataSource(SessionFactory sessionFactory, Set<String> managedEntries, int fetchSize,
+                                           boolean performOrderById, String[] initialLoadEntries, int initialLoadThreadPoolSize,
+                                           int initialLoadChunkSize, boolean useScrollableResultSet, String[] initialLoadQueryScanningBasePackages,
+										   boolean augmentInitialLoadEntries, ClusterInfo clusterInfo,
+                                           int initialLoadBatchSize, int initialLoadMaxBufferedObjects) {
+        super(sessionFactory, managedEntries, fetchSize, performOrderById, initialLoadEntries, initialLoadThreadPoolSize,
+                initialLoadChunkSize, useScrollableResultSet, initialLoadQueryScanningBasePackages, augmentInitialLoadEntries,
+                clusterInfo, initialLoadBatchSize, initialLoadMaxBufferedObjects);
     }
     
     /**
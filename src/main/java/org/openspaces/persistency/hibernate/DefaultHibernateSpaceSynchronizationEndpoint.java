@@ -20,8 +20,13 @@ import com.gigaspaces.document.SpaceDocument;
 import com.gigaspaces.metadata.SpaceTypeDescriptor;
 import com.gigaspaces.sync.*;
 import org.hibernate.*;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metadata.ClassMetadata;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -34,11 +39,28 @@ public class DefaultHibernateSpaceSynchronizationEndpoint extends AbstractHibern
     
     private final boolean useMerge;
     private final boolean deleteById;
+    private final int batchSize;
     
     public DefaultHibernateSpaceSynchronizationEndpoint(SessionFactory sessionFactory, Set<String> managedEntries, boolean useMerge, boolean deleteById) {
+        this(sessionFactory, managedEntries, useMerge, deleteById, 0);
+    }
+
+    /**
+     * @param batchSize if positive, consecutive operations of the same type are grouped by kind and
+     *                  the session is flushed every <code>batchSize</code> operations. See
+     *                  {@link DefaultHibernateSpaceSynchronizationEndpointConfigurer#batchSize(int)}.
+     */
+    public DefaultHibernateSpaceSynchronizationEndpoint(SessionFactory sessionFactory, Set<String> managedEntries, boolean useMerge, boolean deleteById,
+            int batchSize) {
         super(sessionFactory, managedEntries);
         this.useMerge = useMerge;
         this.deleteById = deleteById;
+        this.batchSize = batchSize;
+        if (batchSize > 0 && sessionFactory instanceof SessionFactoryImplementor
+                && ((SessionFactoryImplementor) sessionFactory).getSettings().getJdbcBatchSize() <= 0) {
+            logger.info("Batch size is set to [" + batchSize + "] but JDBC batching is disabled, set the ["
+                    + "hibernate.jdbc.batch_size] property of the session factory to send the statements in batches");
+        }
     }
     
     /**
@@ -66,6 +88,10 @@ public class DefaultHibernateSpaceSynchronizationEndpoint extends AbstractHibern
     }
     
     private void executeDataSyncOperations(DataSyncOperation[] dataSyncOperations) {
+        if (batchSize > 0) {
+            executeBatchedDataSyncOperations(dataSyncOperations);
+            return;
+        }
         Session session = getSessionFactory().openSession();
         Transaction tr = session.beginTransaction();
         Object latest = null;
@@ -102,6 +128,170 @@ public class DefaultHibernateSpaceSynchronizationEndpoint extends AbstractHibern
         }
     }
     
+    /**
+     * Executes the operations grouped by type and kind (see {@link DataSyncOperationGroups}). The session is
+     * flushed (and cleared) every <code>batchSize</code> operations and at the end of each group, so the
+     * statements of a group are sent together (in JDBC batches, when <code>hibernate.jdbc.batch_size</code>
+     * is set) and the persistence context does not grow with the size of the transaction.
+     *
+     * <p>Partial updates are applied to the entities loaded into the session (a single query per flush), so
+     * they are written by the session as regular (batched) updates, and the partial updates of the same id
+     * before a flush are merged into a single update.
+     */
+    private void executeBatchedDataSyncOperations(DataSyncOperation[] dataSyncOperations) {
+        Session session = getSessionFactory().openSession();
+        Transaction tr = session.beginTransaction();
+        Object latest = null;
+        try {
+            DataSyncOperationGroups groups = new DataSyncOperationGroups();
+            for (DataSyncOperation dataSyncOperation : dataSyncOperations) {
+                if (!isManaged(dataSyncOperation))
+                    continue;
+
+                DataSyncOperationGroups.Kind kind;
+                switch (dataSyncOperation.getDataSyncOperationType()) {
+                    case REMOVE:
+                        kind = DataSyncOperationGroups.Kind.REMOVE;
+                        break;
+                    case WRITE:
+                    case UPDATE:
+                        kind = DataSyncOperationGroups.Kind.SAVE;
+                        break;
+                    case PARTIAL_UPDATE:
+                        kind = DataSyncOperationGroups.Kind.PARTIAL_UPDATE;
+                        break;
+                    default:
+                        continue;
+                }
+                groups.add(dataSyncOperation, dataSyncOperation.getTypeDescriptor().getTypeName(), kind,
+                        getOperationId(dataSyncOperation));
+            }
+            if (logger.isTraceEnabled()) {
+                logger.trace("Executing [" + groups.getGroups().size() + "] operation groups, collapsed ["
+                        + groups.getCollapsedCount() + "] operations");
+            }
+
+            int pending = 0;
+            for (DataSyncOperationGroups.Group group : groups.getGroups()) {
+                List<DataSyncOperation> operations = group.getOperations();
+                for (int i = 0; i < operations.size(); i++) {
+                    DataSyncOperation dataSyncOperation = operations.get(i);
+                    if (group.getKind() == DataSyncOperationGroups.Kind.PARTIAL_UPDATE && pending == 0) {
+                        loadEntities(session, group.getTypeName(),
+                                operations.subList(i, Math.min(i + batchSize, operations.size())));
+                    }
+                    latest = dataSyncOperation;
+                    switch (group.getKind()) {
+                        case REMOVE:
+                            executeRemove(session, dataSyncOperation);
+                            break;
+                        case SAVE:
+                            executeUpdate(session, dataSyncOperation);
+                            break;
+                        case PARTIAL_UPDATE:
+                            executeBatchedPartialUpdate(session, dataSyncOperation);
+                            break;
+                    }
+                    if (++pending == batchSize) {
+                        flushAndClear(session);
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    flushAndClear(session);
+                    pending = 0;
+                }
+            }
+            tr.commit();
+        } catch (Exception e) {
+            rollbackTx(tr);
+            throw new SpaceSynchronizationEndpointException("Failed to execute bulk operation, latest object [" + latest + "]", e);
+        } finally {
+            closeSession(session);
+        }
+    }
+
+    private void flushAndClear(Session session) {
+        session.flush();
+        session.clear();
+    }
+
+    /**
+     * Returns the id of the entry of the given operation, or <code>null</code> if it is not available.
+     */
+    private Object getOperationId(DataSyncOperation dataSyncOperation) {
+        if (dataSyncOperation.supportsGetSpaceId()) {
+            Object id = dataSyncOperation.getSpaceId();
+            if (id != null)
+                return id;
+        }
+        if (dataSyncOperation.supportsDataAsObject()) {
+            Object entry = dataSyncOperation.getDataAsObject();
+            if (entry != null && getSessionFactory().getClassMetadata(entry.getClass()) != null)
+                return getIdentifier(entry);
+        }
+        if (dataSyncOperation.supportsDataAsDocument()) {
+            String idPropertyName = dataSyncOperation.getTypeDescriptor().getIdPropertyName();
+            if (idPropertyName != null)
+                return dataSyncOperation.getDataAsDocument().getProperty(idPropertyName);
+        }
+        return null;
+    }
+
+    /**
+     * Loads the entities of the given partial updates into the session, using a single query.
+     */
+    private void loadEntities(Session session, String typeName, List<DataSyncOperation> dataSyncOperations) {
+        ClassMetadata classMetadata = getSessionFactory().getClassMetadata(typeName);
+        if (classMetadata == null)
+            return;
+
+        List<Object> ids = new ArrayList<Object>(dataSyncOperations.size());
+        for (DataSyncOperation dataSyncOperation : dataSyncOperations) {
+            Object id = getOperationId(dataSyncOperation);
+            if (id != null)
+                ids.add(id);
+        }
+        if (!ids.isEmpty()) {
+            session.createCriteria(typeName).add(Restrictions.in(classMetadata.getIdentifierPropertyName(), ids)).list();
+        }
+    }
+
+    /**
+     * Applies the updated properties to the entity, which is then updated by the session when it is flushed.
+     * Falls back to an HQL update if the type is not mapped as an entity.
+     */
+    private void executeBatchedPartialUpdate(Session session, DataSyncOperation dataSyncOperation) {
+        if (!dataSyncOperation.supportsDataAsDocument() || !dataSyncOperation.supportsGetTypeDescriptor())
+            return;
+
+        final SpaceTypeDescriptor typeDescriptor = dataSyncOperation.getTypeDescriptor();
+        final String typeName = typeDescriptor.getTypeName();
+        ClassMetadata classMetadata = getSessionFactory().getClassMetadata(typeName);
+        if (classMetadata == null) {
+            executePartialUpdate(session, dataSyncOperation);
+            return;
+        }
+
+        if (logger.isTraceEnabled()) {
+            logger.trace("Partial Update Entry [" + dataSyncOperation.toString() + ']');
+        }
+
+        SpaceDocument spaceDocument = dataSyncOperation.getDataAsDocument();
+        Serializable id = (Serializable) spaceDocument.getProperty(typeDescriptor.getIdPropertyName());
+        Object entity = id == null ? null : session.get(typeName, id);
+        if (entity == null) {
+            // same as an HQL update which matches no row
+            if (logger.isTraceEnabled()) {
+                logger.trace("Partial Update Entry ignored, no entity with id [" + id + ']');
+            }
+            return;
+        }
+        for (Map.Entry<String, Object> updateEntry : filterItemValue(typeName, spaceDocument.getProperties()).entrySet()) {
+            classMetadata.setPropertyValue(entity, updateEntry.getKey(), updateEntry.getValue());
+        }
+    }
+
     private void executePartialUpdate(Session session, DataSyncOperation dataSyncOperation) {
         if (!dataSyncOperation.supportsDataAsDocument() || !dataSyncOperation.supportsGetTypeDescriptor())
             return;
@@ -35,6 +35,8 @@ public class DefaultHibernateSpaceSynchronizationEndpointConfigurer {
     private boolean useMerge = false;
     
     private boolean deleteById = true;
+
+    private int batchSize = 0;
     
 
     /**
@@ -60,6 +62,23 @@ public class DefaultHibernateSpaceSynchronizationEndpointConfigurer {
         return this;
     }
     
+    /**
+     * If set to a positive value, consecutive operations of the same type within each transaction/batch are
+     * grouped by their kind (keeping the order of the operations of each id), repeated writes/updates of the
+     * same id are collapsed, partial updates are applied through the session (so they are batched as well),
+     * and the session is flushed every <code>batchSize</code> operations. For the statements to be sent in
+     * JDBC batches, the <code>hibernate.jdbc.batch_size</code> property of the session factory should be set
+     * as well (usually to the same value). Defaults to <code>0</code> (disabled).
+     *
+     * <p>Note, the operations of different types are kept in their original order. Interleaved operations of
+     * several types can be reordered by Hibernate itself, using the <code>hibernate.order_inserts</code> and
+     * <code>hibernate.order_updates</code> properties.
+     */
+    public DefaultHibernateSpaceSynchronizationEndpointConfigurer batchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
     /**
      * Injects the Hibernate SessionFactory to be used with this synchronization endpoint interceptor.
      */
@@ -86,6 +105,6 @@ public class DefaultHibernateSpaceSynchronizationEndpointConfigurer {
      * Creates a {@link DefaultHibernateSpaceSynchronizationEndpoint} with the setup configuration.
      */
     public DefaultHibernateSpaceSynchronizationEndpoint create(){
-        return new DefaultHibernateSpaceSynchronizationEndpoint(sessionFactory, managedEntries, useMerge, deleteById);
+        return new DefaultHibernateSpaceSynchronizationEndpoint(sessionFactory, managedEntries, useMerge, deleteById, batchSize);
     }
 }
@@ -57,6 +57,16 @@ public class DefaultHibernateSpaceSynchronizationEndpointFactoryBean implements
         synchronizationEndpointInterceptorConfigurer.deleteById(deleteById);
     }
     
+    /**
+     * If set to a positive value, consecutive operations of the same type within each transaction/batch are
+     * grouped by their kind, and the session is flushed every <code>batchSize</code> operations. Defaults to <code>0</code>
+     * (disabled).
+     * @see DefaultHibernateSpaceSynchronizationEndpointConfigurer#batchSize(int)
+     */
+    public void setBatchSize(int batchSize) {
+        synchronizationEndpointInterceptorConfigurer.batchSize(batchSize);
+    }
+
     /**
      * Injects the Hibernate SessionFactory to be used with this synchronization endpoint interceptor.
      */
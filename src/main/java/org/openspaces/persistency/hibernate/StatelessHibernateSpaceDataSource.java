@@ -22,6 +22,7 @@ import com.gigaspaces.datasource.SpaceDataSource;
 import org.hibernate.SessionFactory;
 import org.openspaces.core.cluster.ClusterInfo;
 import org.openspaces.persistency.hibernate.iterator.*;
+import org.openspaces.persistency.support.BatchingConcurrentMultiDataIterator;
 
 import java.util.Set;
 
@@ -41,8 +42,20 @@ public class StatelessHibernateSpaceDataSource extends AbstractHibernateSpaceDat
                                              boolean performOrderById, String[] initialLoadEntries, int initialLoadThreadPoolSize,
                                              int initialLoadChunkSize, boolean useScrollableResultSet, String[] initialLoadQueryScanningBasePackages,
 											 boolean augmentInitialLoadEntries, ClusterInfo clusterInfo) {
+        this(sessionFactory, managedEntries, fetchSize, performOrderById, initialLoadEntries, initialLoadThreadPoolSize,
+                initialLoadChunkSize, useScrollableResultSet, initialLoadQueryScanningBasePackages, augmentInitialLoadEntries,
+                clusterInfo, BatchingConcurrentMultiDataIterator.DEFAULT_BATCH_SIZE,
+                BatchingConcurrentMultiDataIterator.DEFAULT_MAX_BUFFERED_OBJECTS);
+    }
+
+    public StatelessHibernateSpaceDataSource(SessionFactory sessionFactory, Set<String> managedEntries, int fetchSize,
+                                             boolean performOrderById, String[] initialLoadEntries, int initialLoadThreadPoolSize,
+                                             int initialLoadChunkSize, boolean useScrollableResultSet, String[] initialLoadQueryScanningBasePackages,
+											 boolean augmentInitialLoadEntries, ClusterInfo clusterInfo,
+                                             int initialLoadBatchSize, int initialLoadMaxBufferedObjects) {
         super(sessionFactory, managedEntries, fetchSize, performOrderById, initialLoadEntries, initialLoadThreadPoolSize,
-                initialLoadChunkSize, useScrollableResultSet, initialLoadQueryScanningBasePackages, augmentInitialLoadEntries, clusterInfo);
+                initialLoadChunkSize, useScrollableResultSet, initialLoadQueryScanningBasePackages, augmentInitialLoadEntries,
+                clusterInfo, initialLoadBatchSize, initialLoadMaxBufferedObjects);
     }
     
     /**
@@ -91,7 +91,7 @@ public class StatelessHibernateSpaceDataSourceFactoryBean implements FactoryBean
     }
 
     /**
-     * The initial load operation uses the {@link org.openspaces.persistency.support.ConcurrentMultiDataIterator}.
+     * The initial load operation uses the {@link org.openspaces.persistency.support.BatchingConcurrentMultiDataIterator}.
      * This property allows to control the thread pool size of the concurrent multi data iterator. Defaults to
      * <code>10</code>.
      *
@@ -110,6 +110,23 @@ public class StatelessHibernateSpaceDataSourceFactoryBean implements FactoryBean
         dataSourceConfigurer.initialLoadChunkSize(initalLoadChunkSize);
     }
 
+    /**
+     * The number of objects the initial load threads hand off to the consuming thread at once. Defaults to
+     * <code>256</code>.
+     */
+    public void setInitialLoadBatchSize(int initialLoadBatchSize) {
+        dataSourceConfigurer.initialLoadBatchSize(initialLoadBatchSize);
+    }
+
+    /**
+     * The maximum number of objects loaded by the initial load threads and not yet consumed. The loading threads
+     * block once it is reached. Note, this is an object count, not a memory size: the memory held by the loaded
+     * objects depends on their size. Defaults to <code>65536</code>.
+     */
+    public void setInitialLoadMaxBufferedObjects(int initialLoadMaxBufferedObjects) {
+        dataSourceConfigurer.initialLoadMaxBufferedObjects(initialLoadMaxBufferedObjects);
+    }
+
     /**
      * Controls if scrollable result sets will be used with initial load operation. Defaults to <code>true</code>.
      */
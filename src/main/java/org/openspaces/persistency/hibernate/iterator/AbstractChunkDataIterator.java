@@ -20,17 +20,26 @@ import com.gigaspaces.datasource.DataIterator;
 import com.j_spaces.core.client.SQLQuery;
 import org.hibernate.*;
 import org.hibernate.criterion.Projections;
-import org.openspaces.persistency.support.ConcurrentMultiDataIterator;
+import org.hibernate.metadata.ClassMetadata;
+import org.openspaces.persistency.support.BatchingConcurrentMultiDataIterator;
 import org.openspaces.persistency.support.MultiDataIterator;
 import org.openspaces.persistency.support.SerialMultiDataIterator;
 
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A base class that accepts a batch size and will create several iterators on the given
  * entity by chunking it into batch size chuncks, each iterator will iterate only on the given
  * chunk.
  *
+ * <p>When the entity (or the type of the <code>SQLQuery</code>) has an integral identifier, the chunks are
+ * id ranges: the min/max ids and the row count are sampled once (applying the <code>SQLQuery</code>
+ * criteria, for example the partition <code>MOD</code> criteria of the initial load), and each chunk iterates
+ * using <code>id &gt;= ? AND id &lt; ?</code>. This avoids offset pagination (where each chunk makes the
+ * database skip all the rows of the chunks before it), at the price of uneven chunks when the ids are
+ * sparse. Otherwise, chunks are created using first/max results.
+ *
  * @author kimchy
  */
 public abstract class AbstractChunkDataIterator implements MultiDataIterator {
@@ -120,7 +129,7 @@ public abstract class AbstractChunkDataIterator implements MultiDataIterator {
             if (iterators.length == 1) {
                 multiDataIterator = new SerialMultiDataIterator(iterators);
             } else {
-                multiDataIterator = new ConcurrentMultiDataIterator(iterators, 10);
+                multiDataIterator = new BatchingConcurrentMultiDataIterator(iterators, 10);
             }
         }
         return multiDataIterator.hasNext();
@@ -150,6 +159,14 @@ public abstract class AbstractChunkDataIterator implements MultiDataIterator {
             Session session = sessionFactory.openSession();
             Transaction transaction = session.beginTransaction();
             try {
+                List<SQLQuery> idRangeQueries = createIdRangeQueries(session);
+                if (idRangeQueries != null) {
+                    for (SQLQuery idRangeQuery : idRangeQueries) {
+                        itList.add(createIteratorBySQLQuery(idRangeQuery, sessionFactory, fetchSize, perfromOrderById, -1, -1));
+                    }
+                    iterators = itList.toArray(new DataIterator[itList.size()]);
+                    return;
+                }
                 int count = -1;
                 if (entityName != null) {
                     Criteria criteria = session.createCriteria(entityName);
@@ -193,6 +210,95 @@ public abstract class AbstractChunkDataIterator implements MultiDataIterator {
         }
     }
 
+    /**
+     * Returns the queries of the id range chunks, or <code>null</code> if the identifier of the entity is not
+     * integral (or could not be sampled).
+     */
+    private List<SQLQuery> createIdRangeQueries(Session session) {
+        String typeName = entityName != null ? entityName : (sqlQuery != null ? sqlQuery.getTypeName() : null);
+        if (typeName == null || chunkSize <= 0) {
+            return null;
+        }
+        ClassMetadata metadata = sessionFactory.getClassMetadata(typeName);
+        if (metadata == null || metadata.getIdentifierPropertyName() == null) {
+            return null;
+        }
+        Class<?> idType = metadata.getIdentifierType().getReturnedClass();
+        if (!isIntegral(idType)) {
+            return null;
+        }
+        String idName = metadata.getIdentifierPropertyName();
+        String criteria = sqlQuery != null && sqlQuery.getQuery() != null && sqlQuery.getQuery().trim().length() > 0 ?
+                sqlQuery.getQuery() : null;
+        Object[] parameters = sqlQuery != null ? sqlQuery.getParameters() : null;
+
+        Object[] bounds;
+        try {
+            Query query = session.createQuery("select min(" + idName + "), max(" + idName + "), count(*) from " + typeName
+                    + (criteria != null ? " where " + criteria : ""));
+            if (parameters != null) {
+                for (int i = 0; i < parameters.length; i++) {
+                    query.setParameter(i, parameters[i]);
+                }
+            }
+            query.setReadOnly(true);
+            bounds = (Object[]) query.uniqueResult();
+        } catch (HibernateException e) {
+            return null;
+        }
+        List<SQLQuery> queries = new ArrayList<SQLQuery>();
+        if (bounds == null || bounds[0] == null || bounds[1] == null || ((Number) bounds[2]).longValue() == 0) {
+            return queries;
+        }
+        long min = ((Number) bounds[0]).longValue();
+        long max = ((Number) bounds[1]).longValue();
+        long count = ((Number) bounds[2]).longValue();
+        long span = max - min + 1;
+        if (span <= 0) {
+            // the id range overflows a long
+            return null;
+        }
+        long chunks = (count + chunkSize - 1) / chunkSize;
+        long width = Math.max(1, (span + chunks - 1) / chunks);
+
+        String prefix = criteria != null ? "(" + criteria + ") AND " : "";
+        for (long lower = min; lower <= max; lower += width) {
+            boolean last = max - lower < width;
+            SQLQuery<?> rangeQuery = new SQLQuery<Object>(typeName, prefix + idName + " >= ?"
+                    + (last ? "" : " AND " + idName + " < ?"));
+            int index = 1;
+            if (parameters != null) {
+                for (Object parameter : parameters) {
+                    rangeQuery.setParameter(index++, parameter);
+                }
+            }
+            rangeQuery.setParameter(index++, toIdValue(lower, idType));
+            if (!last) {
+                rangeQuery.setParameter(index, toIdValue(lower + width, idType));
+            }
+            queries.add(rangeQuery);
+            if (last) {
+                break;
+            }
+        }
+        return queries;
+    }
+
+    private static boolean isIntegral(Class<?> type) {
+        return type == Long.class || type == Integer.class || type == Short.class
+                || type == long.class || type == int.class || type == short.class;
+    }
+
+    private static Object toIdValue(long value, Class<?> idType) {
+        if (idType == Integer.class || idType == int.class) {
+            return (int) value;
+        }
+        if (idType == Short.class || idType == short.class) {
+            return (short) value;
+        }
+        return value;
+    }
+
     protected abstract DataIterator createIteratorByEntityName(String entityName, SessionFactory sessionFactory, int fetchSize, boolean performOrderById, int from, int size);
 
     protected abstract DataIterator createIteratorBySQLQuery(SQLQuery sqlQuery, SessionFactory sessionFactory, int fetchSize, boolean performOrderById, int from, int size);
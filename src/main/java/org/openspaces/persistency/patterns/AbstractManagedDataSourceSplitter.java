@@ -19,7 +19,7 @@ package org.openspaces.persistency.patterns;
 import com.gigaspaces.datasource.DataIterator;
 import com.gigaspaces.datasource.DataSourceException;
 import com.gigaspaces.datasource.ManagedDataSource;
-import org.openspaces.persistency.support.ConcurrentMultiDataIterator;
+import org.openspaces.persistency.support.BatchingConcurrentMultiDataIterator;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -40,6 +40,10 @@ public class AbstractManagedDataSourceSplitter implements ManagedDataSource {
 
     private int initalLoadThreadPoolSize = 10;
 
+    private int initialLoadBatchSize = BatchingConcurrentMultiDataIterator.DEFAULT_BATCH_SIZE;
+
+    private int initialLoadMaxBufferedObjects = BatchingConcurrentMultiDataIterator.DEFAULT_MAX_BUFFERED_OBJECTS;
+
     private Map<String, ManagedDataSource> entriesToDataSource = new HashMap<String, ManagedDataSource>();
 
     public AbstractManagedDataSourceSplitter(ManagedDataSourceEntriesProvider[] dataSources) {
@@ -55,6 +59,22 @@ public class AbstractManagedDataSourceSplitter implements ManagedDataSource {
         this.initalLoadThreadPoolSize = initalLoadThreadPoolSize;
     }
 
+    /**
+     * Sets the number of objects the initial load threads hand off to the consuming thread at once.
+     * Defaults to <code>256</code>.
+     */
+    public void setInitialLoadBatchSize(int initialLoadBatchSize) {
+        this.initialLoadBatchSize = initialLoadBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of objects loaded by the initial load threads and not yet consumed.
+     * Defaults to <code>65536</code>.
+     */
+    public void setInitialLoadMaxBufferedObjects(int initialLoadMaxBufferedObjects) {
+        this.initialLoadMaxBufferedObjects = initialLoadMaxBufferedObjects;
+    }
+
     /**
      * Iterates through all the given data sources and calls {@link com.gigaspaces.datasource.ManagedDataSource#init(java.util.Properties)}
      * on them.
@@ -67,7 +87,7 @@ public class AbstractManagedDataSourceSplitter implements ManagedDataSource {
 
     /**
      * Iterates through all the given data sources and assembles their respective {@link com.gigaspaces.datasource.DataIterator}s
-     * from {@link com.gigaspaces.datasource.ManagedDataSource#initialLoad()}. Constructs a {@link org.openspaces.persistency.support.ConcurrentMultiDataIterator}
+     * from {@link com.gigaspaces.datasource.ManagedDataSource#initialLoad()}. Constructs a {@link org.openspaces.persistency.support.BatchingConcurrentMultiDataIterator}
      * on top of them.
      */
     public DataIterator initialLoad() throws DataSourceException {
@@ -75,7 +95,8 @@ public class AbstractManagedDataSourceSplitter implements ManagedDataSource {
         for (ManagedDataSource dataSource : dataSources) {
             iterators.add(dataSource.initialLoad());
         }
-        return new ConcurrentMultiDataIterator(iterators.toArray(new DataIterator[iterators.size()]), initalLoadThreadPoolSize);
+        return new BatchingConcurrentMultiDataIterator(iterators.toArray(new DataIterator[iterators.size()]), initalLoadThreadPoolSize,
+                initialLoadBatchSize, initialLoadMaxBufferedObjects);
     }
 
     public void shutdown() throws DataSourceException {
@@ -19,7 +19,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
-import org.openspaces.persistency.support.ConcurrentMultiDataIterator;
+import org.openspaces.persistency.support.BatchingConcurrentMultiDataIterator;
 import org.openspaces.persistency.support.SerialMultiDataIterator;
 
 import com.gigaspaces.datasource.DataIterator;
@@ -43,6 +43,10 @@ public class SpaceDataSourceSplitter extends SpaceDataSource {
     
     private int initalLoadThreadPoolSize = 10;
 
+    private int initialLoadBatchSize = BatchingConcurrentMultiDataIterator.DEFAULT_BATCH_SIZE;
+
+    private int initialLoadMaxBufferedObjects = BatchingConcurrentMultiDataIterator.DEFAULT_MAX_BUFFERED_OBJECTS;
+
     public SpaceDataSourceSplitter(ManagedEntriesSpaceDataSource[] dataSources) {
         this.dataSources = dataSources;
         for (ManagedEntriesSpaceDataSource dataSource : dataSources) {
@@ -55,6 +59,22 @@ public class SpaceDataSourceSplitter extends SpaceDataSource {
     public void setInitalLoadThreadPoolSize(int initalLoadThreadPoolSize) {
         this.initalLoadThreadPoolSize = initalLoadThreadPoolSize;
     }
+
+    /**
+     * Sets the number of objects the initial load threads hand off to the consuming thread at once.
+     * Defaults to <code>256</code>.
+     */
+    public void setInitialLoadBatchSize(int initialLoadBatchSize) {
+        this.initialLoadBatchSize = initialLoadBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of objects loaded by the initial load threads and not yet consumed.
+     * Defaults to <code>65536</code>.
+     */
+    public void setInitialLoadMaxBufferedObjects(int initialLoadMaxBufferedObjects) {
+        this.initialLoadMaxBufferedObjects = initialLoadMaxBufferedObjects;
+    }
     
     
     protected SpaceDataSource getDataSource(String entry) {
@@ -63,7 +83,7 @@ public class SpaceDataSourceSplitter extends SpaceDataSource {
     
     /**
      * Iterates through all the given data sources and assembles their respective {@link com.gigaspaces.datasource.DataIterator}s
-     * from {@link com.gigaspaces.datasource.SpaceDataSource#initialDataLoad()}. Constructs a {@link org.openspaces.persistency.support.ConcurrentMultiDataIterator}
+     * from {@link com.gigaspaces.datasource.SpaceDataSource#initialDataLoad()}. Constructs a {@link org.openspaces.persistency.support.BatchingConcurrentMultiDataIterator}
      * on top of them.
      */
     @SuppressWarnings("unchecked")
@@ -75,7 +95,8 @@ public class SpaceDataSourceSplitter extends SpaceDataSource {
             if (iterator != null)
                 iterators.add(iterator);
         }
-        return new ConcurrentMultiDataIterator(iterators.toArray(new DataIterator[iterators.size()]), initalLoadThreadPoolSize);
+        return new BatchingConcurrentMultiDataIterator(iterators.toArray(new DataIterator[iterators.size()]), initalLoadThreadPoolSize,
+                initialLoadBatchSize, initialLoadMaxBufferedObjects);
     }
     
     /**
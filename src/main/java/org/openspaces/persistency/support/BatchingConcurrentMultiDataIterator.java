@@ -0,0 +1,401 @@
+/*
+ * Copyright 2006-2007 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.persistency.support;
+
+import com.gigaspaces.datasource.DataIterator;
+import com.j_spaces.kernel.threadpool.DynamicExecutors;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Wraps several iterators and exposes them as a single iterator, iterating over the wrapped iterators
+ * concurrently using a fixed size thread pool. If a given iterator is a {@link MultiDataIterator} it will
+ * flatten it by getting its respective list of iterators.
+ *
+ * <p>Unlike {@link ConcurrentMultiDataIterator}, objects are handed off to the consuming thread in batches:
+ * each wrapped iterator fills a batch and publishes it to its own bounded queue, and the consuming thread
+ * takes batches from the queues in a round robin manner, so producers hardly contend with each other or
+ * with the consumer. The number of objects loaded but not yet consumed is bounded by
+ * <code>maxBufferedObjects</code>; once it is reached, the loading threads block until the consumer catches
+ * up. Note, the limit is a number of objects, not bytes, so the memory it bounds depends on the size of the
+ * loaded objects.
+ *
+ * <p>Any exception or error thrown by a wrapped iterator stops the iteration and is rethrown to the consuming
+ * thread by {@link #hasNext()} (checked exceptions are wrapped in a <code>RuntimeException</code>).
+ *
+ * <p>The number of objects each wrapped iterator produced and the time it spent loading and waiting for
+ * the consumer are available using {@link #getIteratorStatistics()}.
+ *
+ * <p>Note, this implementation assumes that {@link #hasNext()} is called before {@link #next()} is called.
+ * And that {@link #next()} is called only when {@link #hasNext()} returns <code>true</code>.
+ */
+public class BatchingConcurrentMultiDataIterator implements MultiDataIterator {
+
+    private static final Log logger = LogFactory.getLog(BatchingConcurrentMultiDataIterator.class);
+
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    public static final int DEFAULT_MAX_BUFFERED_OBJECTS = 64 * 1024;
+
+    // the number of batches each producer might publish before the consumer takes the first one
+    private static final int QUEUE_CAPACITY = 4;
+
+    private static final long POLL_INTERVAL = 100;
+
+    private volatile boolean closed = false;
+
+    private final int threadPoolSize;
+
+    private final int batchSize;
+
+    private final DataIterator[] iterators;
+
+    private final Producer[] producers;
+
+    // limits the number of objects published to the queues and not yet taken by the consumer
+    private final Semaphore bufferedObjects;
+
+    // the number of published batches not yet taken by the consumer
+    private final Semaphore publishedBatches = new Semaphore(0);
+
+    private final AtomicInteger finishedProducers = new AtomicInteger();
+
+    private ExecutorService executor;
+
+    private int nextProducer;
+
+    private Object[] currentBatch;
+
+    private int currentIndex;
+
+    private volatile Throwable exception;
+
+    public BatchingConcurrentMultiDataIterator(DataIterator[] iterators, int threadPoolSize) {
+        this(iterators, threadPoolSize, DEFAULT_BATCH_SIZE, DEFAULT_MAX_BUFFERED_OBJECTS);
+    }
+
+    /**
+     * @param iterators          the iterators to iterate over
+     * @param threadPoolSize     the number of threads iterating over the given iterators
+     * @param batchSize          the number of objects handed off to the consumer at once
+     * @param maxBufferedObjects the maximum number of objects (not bytes) loaded by the given iterators and
+     *                           not yet consumed
+     */
+    public BatchingConcurrentMultiDataIterator(DataIterator[] iterators, int threadPoolSize, int batchSize, int maxBufferedObjects) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive, was [" + batchSize + "]");
+        }
+        if (maxBufferedObjects < 1) {
+            throw new IllegalArgumentException("maxBufferedObjects must be positive, was [" + maxBufferedObjects + "]");
+        }
+        ArrayList<DataIterator> itList = new ArrayList<DataIterator>();
+        for (DataIterator iterator : iterators) {
+            if (iterator instanceof MultiDataIterator) {
+                itList.addAll(Arrays.asList(((MultiDataIterator) iterator).iterators()));
+            } else {
+                itList.add(iterator);
+            }
+        }
+        this.iterators = itList.toArray(new DataIterator[itList.size()]);
+        this.threadPoolSize = threadPoolSize;
+        // a batch larger than the budget could never be published
+        this.batchSize = Math.min(batchSize, maxBufferedObjects);
+        this.bufferedObjects = new Semaphore(maxBufferedObjects);
+        this.producers = new Producer[this.iterators.length];
+        for (int i = 0; i < this.iterators.length; i++) {
+            producers[i] = new Producer(this.iterators[i]);
+        }
+    }
+
+    public DataIterator[] iterators() {
+        return this.iterators;
+    }
+
+    public boolean hasNext() {
+        if (executor == null) {
+            start();
+        }
+        if (currentBatch != null) {
+            if (currentIndex < currentBatch.length) {
+                return true;
+            }
+            currentBatch = null;
+        }
+        while (true) {
+            checkForExceptions();
+            // read before polling, once all the producers are done no more batches will be published
+            boolean finished = finishedProducers.get() == producers.length;
+            try {
+                if (publishedBatches.tryAcquire(finished ? 0 : POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+                    currentBatch = takeBatch();
+                    currentIndex = 0;
+                    bufferedObjects.release(currentBatch.length);
+                    return true;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new RuntimeException("Interrupted while waiting for loaded objects", e);
+            }
+            if (finished) {
+                checkForExceptions();
+                return false;
+            }
+        }
+    }
+
+    public Object next() {
+        Object next = currentBatch[currentIndex];
+        currentBatch[currentIndex++] = null;
+        return next;
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("remove not supported");
+    }
+
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Producer producer : producers) {
+            producer.stop();
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        if (logger.isDebugEnabled()) {
+            for (IteratorStatistics statistics : getIteratorStatistics()) {
+                logger.debug(statistics);
+            }
+        }
+    }
+
+    /**
+     * Returns a snapshot of the statistics of each of the wrapped iterators, in the order of
+     * {@link #iterators()}.
+     */
+    public IteratorStatistics[] getIteratorStatistics() {
+        IteratorStatistics[] statistics = new IteratorStatistics[producers.length];
+        for (int i = 0; i < producers.length; i++) {
+            Producer producer = producers[i];
+            statistics[i] = new IteratorStatistics(producer.iterator, producer.objects, producer.loadNanos,
+                    producer.blockedNanos, producer.finished);
+        }
+        return statistics;
+    }
+
+    private void start() {
+        executor = Executors.newFixedThreadPool(Math.max(1, threadPoolSize),
+                DynamicExecutors.daemonThreadFactory("GS-concurrent-data-iterator"));
+        for (Producer producer : producers) {
+            executor.execute(producer);
+        }
+    }
+
+    /**
+     * Takes a published batch, starting from the producer after the one the previous batch was taken from.
+     * Must be called only after a published batch permit was acquired.
+     */
+    private Object[] takeBatch() {
+        while (true) {
+            for (int i = 0; i < producers.length; i++) {
+                int index = nextProducer;
+                nextProducer = (nextProducer + 1) % producers.length;
+                Object[] batch = producers[index].queue.poll();
+                if (batch != null) {
+                    return batch;
+                }
+            }
+            // the permit is released right after the batch is queued, the batch is about to be visible
+            Thread.yield();
+        }
+    }
+
+    private void checkForExceptions() {
+        Throwable t = exception;
+        if (t != null) {
+            close();
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            }
+            if (t instanceof Error) {
+                throw (Error) t;
+            }
+            throw new RuntimeException(t);
+        }
+    }
+
+    /**
+     * The statistics of a single wrapped iterator.
+     */
+    public static class IteratorStatistics {
+
+        private final DataIterator iterator;
+
+        private final long objects;
+
+        private final long loadNanos;
+
+        private final long blockedNanos;
+
+        private final boolean finished;
+
+        IteratorStatistics(DataIterator iterator, long objects, long loadNanos, long blockedNanos, boolean finished) {
+            this.iterator = iterator;
+            this.objects = objects;
+            this.loadNanos = loadNanos;
+            this.blockedNanos = blockedNanos;
+            this.finished = finished;
+        }
+
+        public DataIterator getIterator() {
+            return iterator;
+        }
+
+        /**
+         * Returns the number of objects produced by the iterator.
+         */
+        public long getObjects() {
+            return objects;
+        }
+
+        /**
+         * Returns the time spent in the iterator itself, in nanoseconds.
+         */
+        public long getLoadNanos() {
+            return loadNanos;
+        }
+
+        /**
+         * Returns the time spent waiting for the consumer to take the loaded objects, in nanoseconds.
+         */
+        public long getBlockedNanos() {
+            return blockedNanos;
+        }
+
+        /**
+         * Returns the number of objects produced per second of load time.
+         */
+        public double getThroughput() {
+            return loadNanos == 0 ? 0 : objects * 1000000000.0 / loadNanos;
+        }
+
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public String toString() {
+            return "iterator[" + iterator + "], objects[" + objects + "], load[" + (loadNanos / 1000000) + "ms], blocked["
+                    + (blockedNanos / 1000000) + "ms], throughput[" + (long) getThroughput() + "/sec], finished[" + finished + "]";
+        }
+    }
+
+    private class Producer implements Runnable {
+
+        private volatile boolean running = true;
+
+        private final DataIterator iterator;
+
+        private final BlockingQueue<Object[]> queue = new ArrayBlockingQueue<Object[]>(QUEUE_CAPACITY);
+
+        // written only by the producing thread
+        private volatile long objects;
+
+        private volatile long loadNanos;
+
+        private volatile long blockedNanos;
+
+        private volatile boolean finished;
+
+        private Producer(DataIterator iterator) {
+            this.iterator = iterator;
+        }
+
+        public void run() {
+            try {
+                Object[] batch = new Object[batchSize];
+                int size = 0;
+                long start = System.nanoTime();
+                while (running && iterator.hasNext()) {
+                    batch[size++] = iterator.next();
+                    if (size == batch.length) {
+                        long now = System.nanoTime();
+                        loadNanos += now - start;
+                        objects += size;
+                        publish(batch);
+                        batch = new Object[batchSize];
+                        size = 0;
+                        start = System.nanoTime();
+                    }
+                }
+                loadNanos += System.nanoTime() - start;
+                if (size > 0 && running) {
+                    objects += size;
+                    publish(Arrays.copyOf(batch, size));
+                }
+            } catch (InterruptedException e) {
+                if (running) {
+                    exception = new RuntimeException(e);
+                }
+            } catch (Throwable t) {
+                // errors as well, otherwise the consumer would not know the loaded data is incomplete
+                exception = t;
+            } finally {
+                finished = true;
+                finishedProducers.incrementAndGet();
+                iterator.close();
+            }
+        }
+
+        private void publish(Object[] batch) throws InterruptedException {
+            long start = System.nanoTime();
+            try {
+                while (!bufferedObjects.tryAcquire(batch.length, POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+                    if (!running) {
+                        return;
+                    }
+                }
+                while (!queue.offer(batch, POLL_INTERVAL, TimeUnit.MILLISECONDS)) {
+                    if (!running) {
+                        bufferedObjects.release(batch.length);
+                        return;
+                    }
+                }
+                publishedBatches.release();
+            } finally {
+                blockedNanos += System.nanoTime() - start;
+            }
+        }
+
+        public void stop() {
+            this.running = false;
+        }
+    }
+}
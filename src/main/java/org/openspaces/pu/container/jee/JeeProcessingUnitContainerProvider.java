@@ -61,6 +61,12 @@ public abstract class JeeProcessingUnitContainerProvider extends ApplicationCont
 
     public static final String DEFAULT_JEE_CONTAINER = "jetty";
 
+    /**
+     * When set to <code>true</code>, the request statistics filter added to the web application runs in
+     * high resolution mode, see {@link org.openspaces.pu.container.jee.stats.RequestStatisticsFilter}.
+     */
+    public static final String REQUEST_STATISTICS_HIGH_RESOLUTION_PROPERTY_NAME = "jee.requestStatistics.highResolution";
+
     private ClassLoader classLoader;
 
     private File deployPath;
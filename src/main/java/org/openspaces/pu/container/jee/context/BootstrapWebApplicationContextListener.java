@@ -279,6 +279,12 @@ public class BootstrapWebApplicationContextListener implements ServletContextLis
                 writer.println("<filter>");
                 writer.println("    <filter-name>gs-request-statistics</filter-name>");
                 writer.println("    <filter-class>" + RequestStatisticsFilter.class.getName() + "</filter-class>");
+                if (beanLevelProperties != null && Boolean.parseBoolean(beanLevelProperties.getContextProperties().getProperty(JeeProcessingUnitContainerProvider.REQUEST_STATISTICS_HIGH_RESOLUTION_PROPERTY_NAME))) {
+                    writer.println("    <init-param>");
+                    writer.println("        <param-name>" + RequestStatisticsFilter.HIGH_RESOLUTION_PARAM + "</param-name>");
+                    writer.println("        <param-value>true</param-value>");
+                    writer.println("    </init-param>");
+                }
                 writer.println("</filter>");
                 writer.println("<filter-mapping>");
                 writer.println("    <filter-name>gs-request-statistics</filter-name>");
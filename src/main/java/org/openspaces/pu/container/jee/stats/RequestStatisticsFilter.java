@@ -21,6 +21,8 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.jini.rio.boot.SharedServiceData;
 import org.openspaces.core.cluster.ClusterInfo;
+import org.openspaces.core.util.ConcurrentHistogram;
+import org.openspaces.core.util.StripedCounter;
 import org.openspaces.pu.container.jee.JeeProcessingUnitContainerProvider;
 import org.openspaces.pu.container.jee.JeeServiceDetails;
 import org.openspaces.pu.service.ServiceMonitors;
@@ -34,29 +36,90 @@ import javax.servlet.FilterConfig;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * A simple statistics filter that counts the total processed and failed (i.e. resulted in an exception) requests,
  * as well as the number of active requests.
  *
+ * <p>When the {@link #HIGH_RESOLUTION_PARAM} init parameter is set to <code>true</code>, requests are timed
+ * in nanoseconds and recorded in a latency histogram, and the responses are counted per status code (read
+ * using the {@link HttpResponseStatus} set by the {@link #HTTP_RESPONSE_STATUS_PARAM} init parameter). The
+ * latency percentiles are computed over the last complete window of {@link #LATENCY_WINDOW_PARAM} seconds,
+ * or over the current one until the first window completes. Windows are started as requests are recorded,
+ * so the reported window does not depend on how often the statistics are polled.
+ *
  * @author kimchy
  */
 public class RequestStatisticsFilter implements Filter, ServiceMonitorsProvider {
 
+    /**
+     * The init parameter enabling the high resolution mode, <code>false</code> by default.
+     */
+    public static final String HIGH_RESOLUTION_PARAM = "highResolution";
+
+    /**
+     * The init parameter holding the class name of the {@link HttpResponseStatus} used in high resolution
+     * mode, {@link ServletHttpResponseStatus} by default.
+     */
+    public static final String HTTP_RESPONSE_STATUS_PARAM = "httpResponseStatus";
+
+    /**
+     * The init parameter holding the length (in seconds) of the windows the latency percentiles are
+     * computed over, <code>60</code> by default.
+     */
+    public static final String LATENCY_WINDOW_PARAM = "latencyWindowSeconds";
+
+    private static final int MAX_STATUS = 600;
+
     private static Log logger = LogFactory.getLog(RequestStatisticsFilter.class);
 
-    private AtomicLong requests;
+    private StripedCounter requests;
+
+    private StripedCounter reqeustsActive;
+    private StripedCounter requestsDurationTotal;
 
-    private AtomicLong reqeustsActive;
-    private AtomicLong requestsDurationTotal;
+    private boolean highResolution;
+
+    // null if the status codes are not counted
+    private volatile HttpResponseStatus httpResponseStatus;
+
+    private AtomicLongArray statusCounts;
+
+    private long latencyWindowNanos;
+
+    private volatile LatencyWindow currentLatencyWindow;
+
+    private LatencyWindow lastLatencyWindow;
 
     public void init(FilterConfig filterConfig) throws ServletException {
-        requests = new AtomicLong();
-        reqeustsActive = new AtomicLong();
-        requestsDurationTotal = new AtomicLong();
+        requests = new StripedCounter();
+        reqeustsActive = new StripedCounter();
+        requestsDurationTotal = new StripedCounter();
+
+        highResolution = Boolean.parseBoolean(filterConfig.getInitParameter(HIGH_RESOLUTION_PARAM));
+        if (highResolution) {
+            String httpResponseStatusClass = filterConfig.getInitParameter(HTTP_RESPONSE_STATUS_PARAM);
+            if (httpResponseStatusClass == null) {
+                httpResponseStatus = new ServletHttpResponseStatus();
+            } else {
+                try {
+                    httpResponseStatus = (HttpResponseStatus) Class.forName(httpResponseStatusClass, true, Thread.currentThread().getContextClassLoader()).newInstance();
+                } catch (Exception e) {
+                    throw new ServletException("Failed to create http response status [" + httpResponseStatusClass + "]", e);
+                }
+            }
+            statusCounts = new AtomicLongArray(MAX_STATUS);
+            String latencyWindow = filterConfig.getInitParameter(LATENCY_WINDOW_PARAM);
+            latencyWindowNanos = TimeUnit.SECONDS.toNanos(latencyWindow == null ? 60 : Long.parseLong(latencyWindow));
+            currentLatencyWindow = new LatencyWindow(System.nanoTime());
+        }
 
         ClusterInfo clusterInfo = (ClusterInfo) filterConfig.getServletContext().getAttribute(JeeProcessingUnitContainerProvider.CLUSTER_INFO_CONTEXT);
         if (clusterInfo == null) {
@@ -71,15 +134,60 @@ public class RequestStatisticsFilter implements Filter, ServiceMonitorsProvider
     }
 
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws IOException, ServletException {
+        if (highResolution) {
+            doFilterHighResolution(servletRequest, servletResponse, filterChain);
+            return;
+        }
         long now = SystemTime.timeMillis();
         try {
-            reqeustsActive.incrementAndGet();
+            reqeustsActive.increment();
             filterChain.doFilter(servletRequest, servletResponse);
         } finally {
-            reqeustsActive.decrementAndGet();
+            reqeustsActive.decrement();
             long requestDuration = SystemTime.timeMillis() - now;
-            requestsDurationTotal.getAndAdd(requestDuration);
-            requests.incrementAndGet();
+            requestsDurationTotal.add(requestDuration);
+            requests.increment();
+        }
+    }
+
+    private void doFilterHighResolution(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws IOException, ServletException {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            reqeustsActive.increment();
+            filterChain.doFilter(servletRequest, servletResponse);
+            failed = false;
+        } finally {
+            reqeustsActive.decrement();
+            long end = System.nanoTime();
+            long requestDuration = end - start;
+            // kept in nanoseconds, reported in milliseconds
+            requestsDurationTotal.add(requestDuration);
+            requests.increment();
+            latencyWindow(end).histogram.record(requestDuration);
+            // the container responds with an internal error to exceptions thrown by the chain
+            countStatus(failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : getStatus(servletResponse));
+        }
+    }
+
+    private int getStatus(ServletResponse servletResponse) {
+        HttpResponseStatus httpResponseStatus = this.httpResponseStatus;
+        if (httpResponseStatus == null) {
+            return -1;
+        }
+        try {
+            return httpResponseStatus.getStatus(servletResponse);
+        } catch (LinkageError e) {
+            // for example, a Servlet 2.5 container with the default ServletHttpResponseStatus
+            logger.warn("Failed to read the response status, responses will not be counted per status code", e);
+            this.httpResponseStatus = null;
+            return -1;
+        }
+    }
+
+    private void countStatus(int status) {
+        if (status >= 0 && status < MAX_STATUS) {
+            statusCounts.incrementAndGet(status);
         }
     }
 
@@ -87,6 +195,62 @@ public class RequestStatisticsFilter implements Filter, ServiceMonitorsProvider
     }
 
     public ServiceMonitors[] getServicesMonitors() {
-        return new ServiceMonitors[]{new WebRequestsServiceMonitors(JeeServiceDetails.ID, requests.get(), reqeustsActive.get(), requestsDurationTotal.get())};
+        if (!highResolution) {
+            return new ServiceMonitors[]{new WebRequestsServiceMonitors(JeeServiceDetails.ID, requests.get(), reqeustsActive.get(), requestsDurationTotal.get())};
+        }
+        ConcurrentHistogram histogram = latencyWindowToReport().histogram;
+        Map<Integer, Long> statusCounts = new TreeMap<Integer, Long>();
+        for (int status = 0; status < MAX_STATUS; status++) {
+            long count = this.statusCounts.get(status);
+            if (count > 0) {
+                statusCounts.put(status, count);
+            }
+        }
+        return new ServiceMonitors[]{new WebRequestsServiceMonitors(JeeServiceDetails.ID, requests.get(), reqeustsActive.get(),
+                TimeUnit.NANOSECONDS.toMillis(requestsDurationTotal.get()),
+                toMillis(histogram.getValueAtPercentile(50)), toMillis(histogram.getValueAtPercentile(99)),
+                toMillis(histogram.getValueAtPercentile(99.9)), toMillis(histogram.getMax()), statusCounts)};
+    }
+
+    private synchronized LatencyWindow latencyWindowToReport() {
+        LatencyWindow current = latencyWindow(System.nanoTime());
+        return lastLatencyWindow != null ? lastLatencyWindow : current;
+    }
+
+    // returns the window the given time falls in, starting a new window if the current one is complete
+    private LatencyWindow latencyWindow(long nanos) {
+        LatencyWindow current = currentLatencyWindow;
+        if (nanos - current.startNanos < latencyWindowNanos) {
+            return current;
+        }
+        return startLatencyWindow(nanos);
+    }
+
+    private synchronized LatencyWindow startLatencyWindow(long nanos) {
+        LatencyWindow current = currentLatencyWindow;
+        long completedWindows = (nanos - current.startNanos) / latencyWindowNanos;
+        if (completedWindows > 0) {
+            long startNanos = current.startNanos + completedWindows * latencyWindowNanos;
+            // the window right before the new one, empty if no request was recorded during it
+            lastLatencyWindow = completedWindows == 1 ? current : new LatencyWindow(startNanos - latencyWindowNanos);
+            current = new LatencyWindow(startNanos);
+            currentLatencyWindow = current;
+        }
+        return current;
+    }
+
+    private static float toMillis(long nanos) {
+        return nanos / 1000000f;
+    }
+
+    private static class LatencyWindow {
+
+        final long startNanos;
+
+        final ConcurrentHistogram histogram = new ConcurrentHistogram();
+
+        LatencyWindow(long startNanos) {
+            this.startNanos = startNanos;
+        }
     }
 }
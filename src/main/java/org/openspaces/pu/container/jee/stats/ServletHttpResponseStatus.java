@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.pu.container.jee.stats;
+
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Reads the status using {@link HttpServletResponse#getStatus()}, available since Servlet 3.0.
+ * Returns <code>-1</code> for non HTTP responses.
+ *
+ * @since 11.0
+ */
+public class ServletHttpResponseStatus implements HttpResponseStatus {
+
+    public int getStatus(ServletResponse response) {
+        if (response instanceof HttpServletResponse) {
+            return ((HttpServletResponse) response).getStatus();
+        }
+        return -1;
+    }
+}
@@ -22,6 +22,8 @@ import org.openspaces.pu.service.PlainServiceMonitors;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Statistics monitor information for JEE servlet requests.
@@ -38,6 +40,15 @@ public class WebRequestsServiceMonitors extends PlainServiceMonitors {
         public static final String TOTAL_DURATION = "duration-total";
         public static final String REQUESTS_THROUGHPUT = "requests-throughput";
         public static final String AVERAGE_REQUESTS_LATENCY = "average-requests-latency";
+        public static final String LATENCY_P50 = "latency-p50";
+        public static final String LATENCY_P99 = "latency-p99";
+        public static final String LATENCY_P999 = "latency-p999";
+        public static final String LATENCY_MAX = "latency-max";
+        /**
+         * The prefix of the attributes holding the number of responses of each status code, for example
+         * <code>status-404</code>.
+         */
+        public static final String STATUS_PREFIX = "status-";
     }
     
     public WebRequestsServiceMonitors() {
@@ -51,6 +62,29 @@ public class WebRequestsServiceMonitors extends PlainServiceMonitors {
         getMonitors().put( Attributes.REQUESTS_THROUGHPUT, -1f );
         getMonitors().put( Attributes.AVERAGE_REQUESTS_LATENCY, -1f );
     }
+
+    /**
+     * Used by the high resolution mode of {@link RequestStatisticsFilter}.
+     *
+     * @param latencyP50   the median latency (in milliseconds)
+     * @param latencyP99   the 99th percentile latency (in milliseconds)
+     * @param latencyP999  the 99.9th percentile latency (in milliseconds)
+     * @param latencyMax   the maximum latency (in milliseconds)
+     * @param statusCounts the number of responses of each status code
+     * @since 11.0
+     */
+    public WebRequestsServiceMonitors(String id, long requests, long requestsActive, long requestsDurationTotal,
+                                      float latencyP50, float latencyP99, float latencyP999, float latencyMax,
+                                      Map<Integer, Long> statusCounts) {
+        this(id, requests, requestsActive, requestsDurationTotal);
+        getMonitors().put(Attributes.LATENCY_P50, latencyP50);
+        getMonitors().put(Attributes.LATENCY_P99, latencyP99);
+        getMonitors().put(Attributes.LATENCY_P999, latencyP999);
+        getMonitors().put(Attributes.LATENCY_MAX, latencyMax);
+        for (Map.Entry<Integer, Long> entry : statusCounts.entrySet()) {
+            getMonitors().put(Attributes.STATUS_PREFIX + entry.getKey(), entry.getValue());
+        }
+    }
     
     public void setPrevious(WebRequestsServiceMonitors previous, long timeout) {
         
@@ -65,8 +99,8 @@ public class WebRequestsServiceMonitors extends PlainServiceMonitors {
             //calculate average requests latency
             long requestsDelta = getTotal() - previous.getTotal();
             long durationDelta = getTotalDuration() - previous.getTotalDuration();
-            if( durationDelta != 0 ){
-                averageRequetsLatency = (float)requestsDelta/durationDelta;
+            if( requestsDelta != 0 ){
+                averageRequetsLatency = (float)durationDelta/requestsDelta;
             }
         }
 
@@ -109,6 +143,62 @@ public class WebRequestsServiceMonitors extends PlainServiceMonitors {
         return (Float)getMonitors().get(Attributes.AVERAGE_REQUESTS_LATENCY);
     }    
 
+    /**
+     * Returns the median requests latency ( ms ), or <code>-1</code> if the high resolution mode of
+     * {@link RequestStatisticsFilter} is not enabled.
+     * @since 11.0
+     */
+    public float getLatencyP50() {
+        return getFloat(Attributes.LATENCY_P50);
+    }
+
+    /**
+     * Returns the 99th percentile requests latency ( ms ), or <code>-1</code> if the high resolution mode
+     * of {@link RequestStatisticsFilter} is not enabled.
+     * @since 11.0
+     */
+    public float getLatencyP99() {
+        return getFloat(Attributes.LATENCY_P99);
+    }
+
+    /**
+     * Returns the 99.9th percentile requests latency ( ms ), or <code>-1</code> if the high resolution
+     * mode of {@link RequestStatisticsFilter} is not enabled.
+     * @since 11.0
+     */
+    public float getLatencyP999() {
+        return getFloat(Attributes.LATENCY_P999);
+    }
+
+    /**
+     * Returns the maximum requests latency ( ms ), or <code>-1</code> if the high resolution mode of
+     * {@link RequestStatisticsFilter} is not enabled.
+     * @since 11.0
+     */
+    public float getLatencyMax() {
+        return getFloat(Attributes.LATENCY_MAX);
+    }
+
+    /**
+     * Returns the number of responses of each status code. Empty if the high resolution mode of
+     * {@link RequestStatisticsFilter} is not enabled.
+     * @since 11.0
+     */
+    public Map<Integer, Long> getStatusCounts() {
+        Map<Integer, Long> statusCounts = new TreeMap<Integer, Long>();
+        for (Map.Entry<String, Object> entry : getMonitors().entrySet()) {
+            if (entry.getKey().startsWith(Attributes.STATUS_PREFIX)) {
+                statusCounts.put(Integer.valueOf(entry.getKey().substring(Attributes.STATUS_PREFIX.length())), (Long) entry.getValue());
+            }
+        }
+        return statusCounts;
+    }
+
+    private float getFloat(String attribute) {
+        Float value = (Float) getMonitors().get(attribute);
+        return value == null ? -1 : value;
+    }
+
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
         super.writeExternal(out);
@@ -0,0 +1,329 @@
+/*
+ * Copyright 2006-2007 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.remoting;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The built-in {@link RemotingArgumentCodec}. Writes a single type tag followed by a compact binary
+ * form of the value for primitives wrappers, Strings, primitive arrays, String arrays, and
+ * <code>Object[]</code> and <code>ArrayList</code> instances whose elements are encoded recursively.
+ * <code>int</code> and <code>long</code> values, as well as lengths, are written as variable length
+ * (zig-zag) integers. Any other value falls back to <code>writeObject</code>.
+ */
+public class CompactRemotingArgumentCodec implements RemotingArgumentCodec {
+
+    private static final byte NULL = 0;
+    private static final byte OBJECT = 1;
+    private static final byte TRUE = 2;
+    private static final byte FALSE = 3;
+    private static final byte BYTE = 4;
+    private static final byte SHORT = 5;
+    private static final byte INT = 6;
+    private static final byte LONG = 7;
+    private static final byte FLOAT = 8;
+    private static final byte DOUBLE = 9;
+    private static final byte CHAR = 10;
+    private static final byte STRING = 11;
+    private static final byte BYTE_ARRAY = 12;
+    private static final byte SHORT_ARRAY = 13;
+    private static final byte INT_ARRAY = 14;
+    private static final byte LONG_ARRAY = 15;
+    private static final byte FLOAT_ARRAY = 16;
+    private static final byte DOUBLE_ARRAY = 17;
+    private static final byte CHAR_ARRAY = 18;
+    private static final byte BOOLEAN_ARRAY = 19;
+    private static final byte STRING_ARRAY = 20;
+    private static final byte OBJECT_ARRAY = 21;
+    private static final byte ARRAY_LIST = 22;
+
+    // the maximum length of a string that always fits writeUTF (each char takes up to 3 bytes)
+    private static final int MAX_UTF_LENGTH = 65535 / 3;
+
+    public void writeValue(ObjectOutput out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+            return;
+        }
+        Class<?> type = value.getClass();
+        if (type == String.class) {
+            String s = (String) value;
+            if (s.length() <= MAX_UTF_LENGTH) {
+                out.writeByte(STRING);
+                out.writeUTF(s);
+            } else {
+                out.writeByte(OBJECT);
+                out.writeObject(s);
+            }
+        } else if (type == Integer.class) {
+            out.writeByte(INT);
+            writeVarInt(out, (Integer) value);
+        } else if (type == Long.class) {
+            out.writeByte(LONG);
+            writeVarLong(out, (Long) value);
+        } else if (type == Boolean.class) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (type == Double.class) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (type == Float.class) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (type == Short.class) {
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if (type == Byte.class) {
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if (type == Character.class) {
+            out.writeByte(CHAR);
+            out.writeChar((Character) value);
+        } else if (type == byte[].class) {
+            byte[] array = (byte[]) value;
+            out.writeByte(BYTE_ARRAY);
+            writeVarInt(out, array.length);
+            out.write(array);
+        } else if (type == int[].class) {
+            int[] array = (int[]) value;
+            out.writeByte(INT_ARRAY);
+            writeVarInt(out, array.length);
+            for (int element : array) {
+                writeVarInt(out, element);
+            }
+        } else if (type == long[].class) {
+            long[] array = (long[]) value;
+            out.writeByte(LONG_ARRAY);
+            writeVarInt(out, array.length);
+            for (long element : array) {
+                writeVarLong(out, element);
+            }
+        } else if (type == double[].class) {
+            double[] array = (double[]) value;
+            out.writeByte(DOUBLE_ARRAY);
+            writeVarInt(out, array.length);
+            for (double element : array) {
+                out.writeDouble(element);
+            }
+        } else if (type == float[].class) {
+            float[] array = (float[]) value;
+            out.writeByte(FLOAT_ARRAY);
+            writeVarInt(out, array.length);
+            for (float element : array) {
+                out.writeFloat(element);
+            }
+        } else if (type == short[].class) {
+            short[] array = (short[]) value;
+            out.writeByte(SHORT_ARRAY);
+            writeVarInt(out, array.length);
+            for (short element : array) {
+                out.writeShort(element);
+            }
+        } else if (type == char[].class) {
+            char[] array = (char[]) value;
+            out.writeByte(CHAR_ARRAY);
+            writeVarInt(out, array.length);
+            for (char element : array) {
+                out.writeChar(element);
+            }
+        } else if (type == boolean[].class) {
+            boolean[] array = (boolean[]) value;
+            out.writeByte(BOOLEAN_ARRAY);
+            writeVarInt(out, array.length);
+            for (boolean element : array) {
+                out.writeBoolean(element);
+            }
+        } else if (type == String[].class) {
+            String[] array = (String[]) value;
+            out.writeByte(STRING_ARRAY);
+            writeVarInt(out, array.length);
+            for (String element : array) {
+                writeValue(out, element);
+            }
+        } else if (type == Object[].class) {
+            Object[] array = (Object[]) value;
+            out.writeByte(OBJECT_ARRAY);
+            writeVarInt(out, array.length);
+            for (Object element : array) {
+                writeValue(out, element);
+            }
+        } else if (type == ArrayList.class) {
+            List<?> list = (List<?>) value;
+            out.writeByte(ARRAY_LIST);
+            writeVarInt(out, list.size());
+            for (int i = 0; i < list.size(); i++) {
+                writeValue(out, list.get(i));
+            }
+        } else {
+            out.writeByte(OBJECT);
+            out.writeObject(value);
+        }
+    }
+
+    public Object readValue(ObjectInput in) throws IOException, ClassNotFoundException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case OBJECT:
+                return in.readObject();
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case BYTE:
+                return in.readByte();
+            case SHORT:
+                return in.readShort();
+            case INT:
+                return readVarInt(in);
+            case LONG:
+                return readVarLong(in);
+            case FLOAT:
+                return in.readFloat();
+            case DOUBLE:
+                return in.readDouble();
+            case CHAR:
+                return in.readChar();
+            case STRING:
+                return in.readUTF();
+            case BYTE_ARRAY: {
+                byte[] array = new byte[readVarInt(in)];
+                in.readFully(array);
+                return array;
+            }
+            case SHORT_ARRAY: {
+                short[] array = new short[readVarInt(in)];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = in.readShort();
+                }
+                return array;
+            }
+            case INT_ARRAY: {
+                int[] array = new int[readVarInt(in)];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = readVarInt(in);
+                }
+                return array;
+            }
+            case LONG_ARRAY: {
+                long[] array = new long[readVarInt(in)];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = readVarLong(in);
+                }
+                return array;
+            }
+            case FLOAT_ARRAY: {
+                float[] array = new float[readVarInt(in)];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = in.readFloat();
+                }
+                return array;
+            }
+            case DOUBLE_ARRAY: {
+                double[] array = new double[readVarInt(in)];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = in.readDouble();
+                }
+                return array;
+            }
+            case CHAR_ARRAY: {
+                char[] array = new char[readVarInt(in)];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = in.readChar();
+                }
+                return array;
+            }
+            case BOOLEAN_ARRAY: {
+                boolean[] array = new boolean[readVarInt(in)];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = in.readBoolean();
+                }
+                return array;
+            }
+            case STRING_ARRAY: {
+                String[] array = new String[readVarInt(in)];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = (String) readValue(in);
+                }
+                return array;
+            }
+            case OBJECT_ARRAY: {
+                Object[] array = new Object[readVarInt(in)];
+                for (int i = 0; i < array.length; i++) {
+                    array[i] = readValue(in);
+                }
+                return array;
+            }
+            case ARRAY_LIST: {
+                int size = readVarInt(in);
+                ArrayList<Object> list = new ArrayList<Object>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                return list;
+            }
+            default:
+                throw new IOException("Unknown remoting argument type tag [" + tag + "]");
+        }
+    }
+
+    private static void writeVarInt(ObjectOutput out, int value) throws IOException {
+        int zigZag = (value << 1) ^ (value >> 31);
+        while ((zigZag & ~0x7F) != 0) {
+            out.writeByte((zigZag & 0x7F) | 0x80);
+            zigZag >>>= 7;
+        }
+        out.writeByte(zigZag);
+    }
+
+    private static int readVarInt(ObjectInput in) throws IOException {
+        int zigZag = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = in.readByte();
+            zigZag |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+        }
+        throw new IOException("Malformed variable length int");
+    }
+
+    private static void writeVarLong(ObjectOutput out, long value) throws IOException {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.writeByte((int) zigZag);
+    }
+
+    private static long readVarLong(ObjectInput in) throws IOException {
+        long zigZag = 0;
+        for (int shift = 0; shift < 70; shift += 7) {
+            byte b = in.readByte();
+            zigZag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return (zigZag >>> 1) ^ -(zigZag & 1);
+            }
+        }
+        throw new IOException("Malformed variable length long");
+    }
+}
@@ -46,6 +46,7 @@ public class EventDrivenSpaceRemotingEntry extends MetaDataEntry implements Spac
     private static final int RESULT_BIT_MASK = 1 << bitIndexCounter++;
     private static final int EX_BIT_MASK = 1 << bitIndexCounter++;
     private static final int INSTANCE_ID_BIT_MASK = 1 << bitIndexCounter++;
+    private static final int CODEC_BIT_MASK = 1 << bitIndexCounter++;
 
 
     public Boolean isInvocation;
@@ -68,6 +69,8 @@ public class EventDrivenSpaceRemotingEntry extends MetaDataEntry implements Spac
 
     public Integer instanceId;
 
+    private transient RemotingArgumentCodec argumentCodec;
+
     /**
      * Constructs a new Async remoting entry. By default a transient one witn that does not
      * return a lease. Also, by default, this is an invocation entry.
@@ -147,6 +150,15 @@ public class EventDrivenSpaceRemotingEntry extends MetaDataEntry implements Spac
         this.instanceId = instanceId;
     }
 
+    /**
+     * Encodes the arguments and the result of this entry using the given codec.
+     *
+     * @see RemotingCodec
+     */
+    void setArgumentCodec(RemotingArgumentCodec argumentCodec) {
+        this.argumentCodec = argumentCodec;
+    }
+
     public static String[] __getSpaceIndexedFields() {
         return new String[]{"routing"};
     }
@@ -162,6 +174,7 @@ public class EventDrivenSpaceRemotingEntry extends MetaDataEntry implements Spac
     }
 
     public SpaceRemotingEntry buildResultTemplate() {
+        argumentCodec = null;
         clearInvocationData();
         clearResultData();
         buildResultUID();
@@ -170,6 +183,7 @@ public class EventDrivenSpaceRemotingEntry extends MetaDataEntry implements Spac
     }
 
     public SpaceRemotingEntry buildResult(Throwable e) {
+        argumentCodec = null;
         clearInvocationData();
         buildResultUID();
         setInvocation(Boolean.FALSE);
@@ -214,6 +228,9 @@ public class EventDrivenSpaceRemotingEntry extends MetaDataEntry implements Spac
         short nullableFieldsBitMask = getNullableFieldsBitMask();
         out.writeShort(nullableFieldsBitMask);
         out.writeBoolean(isInvocation);
+        if (argumentCodec != null) {
+            RemotingCodecs.writeCodec(out, argumentCodec);
+        }
 
         if (isInvocation) {
             if (lookupName != null) {
@@ -235,7 +252,11 @@ public class EventDrivenSpaceRemotingEntry extends MetaDataEntry implements Spac
             if (arguments != null && arguments.length != 0) {
                 out.writeInt(arguments.length);
                 for (Object argument : arguments) {
-                    out.writeObject(argument);
+                    if (argumentCodec != null) {
+                        argumentCodec.writeValue(out, argument);
+                    } else {
+                        out.writeObject(argument);
+                    }
                 }
             }
             if (metaArguments != null && metaArguments.length != 0) {
@@ -246,7 +267,11 @@ public class EventDrivenSpaceRemotingEntry extends MetaDataEntry implements Spac
             }
         } else {
             if (result != null) {
-                out.writeObject(result);
+                if (argumentCodec != null) {
+                    argumentCodec.writeValue(out, result);
+                } else {
+                    out.writeObject(result);
+                }
             }
             if (ex != null) {
                 out.writeObject(ex);
@@ -264,6 +289,9 @@ public class EventDrivenSpaceRemotingEntry extends MetaDataEntry implements Spac
         super._readExternal(in);
         short bitMask = in.readShort();
         isInvocation = in.readBoolean();
+        if (!isFieldNull(bitMask, CODEC_BIT_MASK)) {
+            argumentCodec = RemotingCodecs.readCodec(in);
+        }
         if (isInvocation) {
             if (!isFieldNull(bitMask, LOOKUP_NAME_BIT_MASK)) {
                 lookupName = in.readUTF();
@@ -282,7 +310,7 @@ public class EventDrivenSpaceRemotingEntry extends MetaDataEntry implements Spac
                 int argumentNumber = in.readInt();
                 arguments = new Object[argumentNumber];
                 for (int i = 0; i < argumentNumber; i++) {
-                    arguments[i] = in.readObject();
+                    arguments[i] = argumentCodec != null ? argumentCodec.readValue(in) : in.readObject();
                 }
             }
 
@@ -295,7 +323,7 @@ public class EventDrivenSpaceRemotingEntry extends MetaDataEntry implements Spac
             }
         } else {
             if (!isFieldNull(bitMask, RESULT_BIT_MASK)) {
-                result = in.readObject();
+                result = argumentCodec != null ? argumentCodec.readValue(in) : in.readObject();
             }
             if (!isFieldNull(bitMask, EX_BIT_MASK)) {
                 ex = (Throwable) in.readObject();
@@ -347,6 +375,7 @@ public class EventDrivenSpaceRemotingEntry extends MetaDataEntry implements Spac
         bitMask = ((result != null) ? bitMask | RESULT_BIT_MASK : bitMask);
         bitMask = ((ex != null) ? bitMask | EX_BIT_MASK : bitMask);
         bitMask = ((instanceId != null) ? bitMask | INSTANCE_ID_BIT_MASK : bitMask);
+        bitMask = ((argumentCodec != null) ? bitMask | CODEC_BIT_MASK : bitMask);
         return (short) bitMask;
     }
 
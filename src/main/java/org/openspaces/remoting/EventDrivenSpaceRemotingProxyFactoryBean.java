@@ -112,6 +112,12 @@ public class EventDrivenSpaceRemotingProxyFactoryBean extends RemoteAccessor imp
 
     private Map<Method, RemotingUtils.MethodHash> methodHashLookup;
 
+    private RemotingArgumentCodec argumentCodec;
+
+    private long interfaceFingerprint;
+
+    private Map<Method, Integer> methodIndexLookup;
+
     private ApplicationContext applicationContext;
 
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
@@ -202,6 +208,17 @@ public class EventDrivenSpaceRemotingProxyFactoryBean extends RemoteAccessor imp
         Assert.notNull(gigaSpace, "gigaSpace property is required");
         this.serviceProxy = ProxyFactory.getProxy(getServiceInterface(), this);
         this.methodHashLookup = RemotingUtils.buildMethodToHashLookupForInterface(getServiceInterface(), asyncMethodPrefix);
+        this.argumentCodec = RemotingCodecs.getCodec(getServiceInterface());
+        if (argumentCodec != null) {
+            RemotingUtils.MethodIndex methodIndex = RemotingUtils.buildMethodIndexForInterface(getServiceInterface(), asyncMethodPrefix);
+            this.interfaceFingerprint = methodIndex.getFingerprint();
+            this.methodIndexLookup = methodIndex.buildMethodLookup(getServiceInterface(), asyncMethodPrefix);
+        }
+    }
+
+    private int getMethodIndex(Method method) {
+        Integer methodIndex = methodIndexLookup.get(method);
+        return methodIndex != null ? methodIndex : -1;
     }
 
     public Object getObject() {
@@ -287,6 +304,10 @@ public class EventDrivenSpaceRemotingProxyFactoryBean extends RemoteAccessor imp
 
         SpaceRemotingEntry remotingEntry = remotingEntryFactory.createHashEntry().buildInvocation(lookupName, methodName,
                 methodHashLookup.get(methodInvocation.getMethod()), methodInvocation.getArguments());
+        if (argumentCodec != null && remotingEntry instanceof HashedEventDrivenSpaceRemotingEntry) {
+            ((HashedEventDrivenSpaceRemotingEntry) remotingEntry).setCompactEncoding(argumentCodec, interfaceFingerprint,
+                    getMethodIndex(methodInvocation.getMethod()));
+        }
 
         remotingEntry.setRouting(RemotingProxyUtils.computeRouting(remotingEntry, localRoutingHandler, methodInvocation));
 
@@ -51,6 +51,15 @@ public class ExecutorRemotingTask<T extends Serializable> implements Distributed
     
     private final static transient Log logger = LogFactory.getLog(ExecutorRemotingTask.class);
 
+    // written instead of the number of arguments, marks a task using the compact encoding
+    private static final int COMPACT_FORMAT = -1;
+
+    private static final byte NO_METHOD_KEY = 0;
+
+    private static final byte METHOD_HASH_KEY = 1;
+
+    private static final byte METHOD_INDEX_KEY = 2;
+
     private String lookupName;
 
     private String methodName;
@@ -63,6 +72,12 @@ public class ExecutorRemotingTask<T extends Serializable> implements Distributed
 
     private Integer routing;
 
+    private long interfaceFingerprint;
+
+    private int methodIndex = -1;
+
+    private transient RemotingArgumentCodec argumentCodec;
+
     private transient ApplicationContext applicationContext;
 
     private transient Integer instanceId;
@@ -97,7 +112,7 @@ public class ExecutorRemotingTask<T extends Serializable> implements Distributed
     public InternalExecutorResult<T> execute() throws Exception {
         try {
             Object result = serviceExporter.invokeExecutor(this);
-            return new InternalExecutorResult<T>((T) result, instanceId);
+            return new InternalExecutorResult<T>((T) result, instanceId, argumentCodec);
         } catch (Throwable e) {
             throw new InternalExecutorException(e, instanceId, lookupName, methodName);
         }
@@ -155,9 +170,40 @@ public class ExecutorRemotingTask<T extends Serializable> implements Distributed
         this.metaArguments = metaArguments;
     }
 
+    /**
+     * Returns the index of the method within the {@link RemotingUtils.MethodIndex} of the service interface,
+     * or <code>-1</code> if the method is identified by its hash.
+     */
+    public int getMethodIndex() {
+        return methodIndex;
+    }
+
+    /**
+     * Returns the fingerprint of the {@link RemotingUtils.MethodIndex} the method index refers to.
+     */
+    public long getInterfaceFingerprint() {
+        return interfaceFingerprint;
+    }
+
+    /**
+     * Encodes this task (and its result) using the given codec, identifying the method by its index (if
+     * not negative) instead of its hash.
+     *
+     * @see RemotingCodec
+     */
+    void setCompactEncoding(RemotingArgumentCodec argumentCodec, long interfaceFingerprint, int methodIndex) {
+        this.argumentCodec = argumentCodec;
+        this.interfaceFingerprint = interfaceFingerprint;
+        this.methodIndex = methodIndex;
+    }
+
     public void writeExternal(ObjectOutput out) throws IOException {
         out.writeUTF(lookupName);
         out.writeUTF(methodName);
+        if (argumentCodec != null) {
+            writeCompactExternal(out);
+            return;
+        }
         if (arguments == null) {
             out.writeInt(0);
         } else {
@@ -182,6 +228,10 @@ public class ExecutorRemotingTask<T extends Serializable> implements Distributed
         lookupName = in.readUTF();
         methodName = in.readUTF();
         int size = in.readInt();
+        if (size == COMPACT_FORMAT) {
+            readCompactExternal(in);
+            return;
+        }
         if (size > 0) {
             arguments = new Object[size];
             for (int i = 0; i < size; i++) {
@@ -200,17 +250,71 @@ public class ExecutorRemotingTask<T extends Serializable> implements Distributed
         methodHash.readExternal(in);
     }
 
+    private void writeCompactExternal(ObjectOutput out) throws IOException {
+        out.writeInt(COMPACT_FORMAT);
+        RemotingCodecs.writeCodec(out, argumentCodec);
+        if (methodIndex >= 0) {
+            out.writeByte(METHOD_INDEX_KEY);
+            out.writeLong(interfaceFingerprint);
+            // sent instead of the method hash, see SpaceRemotingServiceExporter for fingerprint mismatches
+            out.writeShort(methodIndex);
+        } else if (methodHash != null) {
+            out.writeByte(METHOD_HASH_KEY);
+            methodHash.writeExternal(out);
+        } else {
+            out.writeByte(NO_METHOD_KEY);
+        }
+        RemotingCodecs.writeValues(out, argumentCodec, arguments);
+        if (metaArguments == null) {
+            out.writeInt(0);
+        } else {
+            out.writeInt(metaArguments.length);
+            for (Object arg : metaArguments) {
+                out.writeObject(arg);
+            }
+        }
+    }
+
+    private void readCompactExternal(ObjectInput in) throws IOException, ClassNotFoundException {
+        argumentCodec = RemotingCodecs.readCodec(in);
+        byte methodKey = in.readByte();
+        if (methodKey == METHOD_INDEX_KEY) {
+            interfaceFingerprint = in.readLong();
+            methodIndex = in.readUnsignedShort();
+        } else if (methodKey == METHOD_HASH_KEY) {
+            methodHash = new RemotingUtils.MethodHash();
+            methodHash.readExternal(in);
+        }
+        arguments = RemotingCodecs.readValues(in, argumentCodec);
+        int size = in.readInt();
+        if (size > 0) {
+            metaArguments = new Object[size];
+            for (int i = 0; i < size; i++) {
+                metaArguments[i] = in.readObject();
+            }
+        }
+    }
+
     /**
      * A wrapper executor result that holds more information on the exception, such as the instance id.
      */
     public static class InternalExecutorResult<T extends Serializable> implements Externalizable {
 
         private static final long serialVersionUID = -5336727166040169828L;
+
+        // same as the boolean written by older versions for a null / serialized result
+        private static final byte NO_RESULT = 0;
+
+        private static final byte SERIALIZED_RESULT = 1;
+
+        private static final byte ENCODED_RESULT = 2;
         
         private T result;
 
         private Integer instanceId;
 
+        private transient RemotingArgumentCodec resultCodec;
+
         public InternalExecutorResult() {
         }
 
@@ -219,6 +323,15 @@ public class ExecutorRemotingTask<T extends Serializable> implements Distributed
             this.instanceId = instanceId;
         }
 
+        /**
+         * Constructs a result that is encoded using the given codec (if not <code>null</code>).
+         */
+        public InternalExecutorResult(T result, Integer instanceId, RemotingArgumentCodec resultCodec) {
+            this.result = result;
+            this.instanceId = instanceId;
+            this.resultCodec = resultCodec;
+        }
+
         public T getResult() {
             return result;
         }
@@ -229,10 +342,14 @@ public class ExecutorRemotingTask<T extends Serializable> implements Distributed
 
         public void writeExternal(ObjectOutput out) throws IOException {
             if (result == null) {
-                out.writeBoolean(false);
-            } else {
-                out.writeBoolean(true);
+                out.writeByte(NO_RESULT);
+            } else if (resultCodec == null) {
+                out.writeByte(SERIALIZED_RESULT);
                 out.writeObject(result);
+            } else {
+                out.writeByte(ENCODED_RESULT);
+                RemotingCodecs.writeCodec(out, resultCodec);
+                resultCodec.writeValue(out, result);
             }
             if (instanceId == null) {
                 out.writeBoolean(false);
@@ -243,8 +360,12 @@ public class ExecutorRemotingTask<T extends Serializable> implements Distributed
         }
 
         public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
-            if (in.readBoolean()) {
+            byte resultType = in.readByte();
+            if (resultType == SERIALIZED_RESULT) {
                 result = (T) in.readObject();
+            } else if (resultType == ENCODED_RESULT) {
+                resultCodec = RemotingCodecs.readCodec(in);
+                result = (T) resultCodec.readValue(in);
             }
             if (in.readBoolean()) {
                 instanceId = in.readInt();
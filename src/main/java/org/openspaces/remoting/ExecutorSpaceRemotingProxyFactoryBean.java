@@ -119,6 +119,12 @@ public class ExecutorSpaceRemotingProxyFactoryBean extends RemoteAccessor implem
 
     private Map<Method, RemotingUtils.MethodHash> methodHashLookup;
 
+    private RemotingArgumentCodec argumentCodec;
+
+    private long interfaceFingerprint;
+
+    private Map<Method, Integer> methodIndexLookup;
+
     private ApplicationContext applicationContext;
 
     /**
@@ -197,6 +203,17 @@ public class ExecutorSpaceRemotingProxyFactoryBean extends RemoteAccessor implem
         Assert.notNull(gigaSpace, "gigaSpace property is required");
         this.serviceProxy = ProxyFactory.getProxy(getServiceInterface(), this);
         this.methodHashLookup = buildMethodToHashLookupForInterface(getServiceInterface(), asyncMethodPrefix);
+        this.argumentCodec = RemotingCodecs.getCodec(getServiceInterface());
+        if (argumentCodec != null) {
+            RemotingUtils.MethodIndex methodIndex = RemotingUtils.buildMethodIndexForInterface(getServiceInterface(), asyncMethodPrefix);
+            this.interfaceFingerprint = methodIndex.getFingerprint();
+            this.methodIndexLookup = methodIndex.buildMethodLookup(getServiceInterface(), asyncMethodPrefix);
+        }
+    }
+
+    private int getMethodIndex(Method method) {
+        Integer methodIndex = methodIndexLookup.get(method);
+        return methodIndex != null ? methodIndex : -1;
     }
 
     public Object getObject() {
@@ -244,6 +261,9 @@ public class ExecutorSpaceRemotingProxyFactoryBean extends RemoteAccessor implem
         }
 
         ExecutorRemotingTask task = new ExecutorRemotingTask(lookupName, methodName, methodHashLookup.get(methodInvocation.getMethod()), methodInvocation.getArguments());
+        if (argumentCodec != null) {
+            task.setCompactEncoding(argumentCodec, interfaceFingerprint, getMethodIndex(methodInvocation.getMethod()));
+        }
 
         BroadcastIndicator broadcastIndicator = null;
         RemoteResultReducer localRemoteResultReducer = null;
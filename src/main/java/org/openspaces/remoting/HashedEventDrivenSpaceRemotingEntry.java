@@ -31,12 +31,50 @@ public class HashedEventDrivenSpaceRemotingEntry extends EventDrivenSpaceRemotin
     
     private static final long serialVersionUID = -6752531933557296453L;
 
+    // the first two are the same as the boolean written by older versions
+    private static final byte NO_METHOD_KEY = 0;
+
+    private static final byte METHOD_HASH_KEY = 1;
+
+    private static final byte METHOD_INDEX_KEY = 2;
+
     public RemotingUtils.MethodHash methodHash;
 
+    private transient long interfaceFingerprint;
+
+    private transient int methodIndex = -1;
+
     public RemotingUtils.MethodHash getMethodHash() {
         return methodHash;
     }
 
+    /**
+     * Returns the index of the method within the {@link RemotingUtils.MethodIndex} of the service interface,
+     * or <code>-1</code> if the method is identified by its hash.
+     */
+    public int getMethodIndex() {
+        return methodIndex;
+    }
+
+    /**
+     * Returns the fingerprint of the {@link RemotingUtils.MethodIndex} the method index refers to.
+     */
+    public long getInterfaceFingerprint() {
+        return interfaceFingerprint;
+    }
+
+    /**
+     * Encodes the arguments and the result using the given codec, identifying the method by its index
+     * (if not negative) instead of its hash.
+     *
+     * @see RemotingCodec
+     */
+    void setCompactEncoding(RemotingArgumentCodec argumentCodec, long interfaceFingerprint, int methodIndex) {
+        setArgumentCodec(argumentCodec);
+        this.interfaceFingerprint = interfaceFingerprint;
+        this.methodIndex = methodIndex;
+    }
+
     public HashedSpaceRemotingEntry buildInvocation(String lookupName, String methodName, RemotingUtils.MethodHash methodHash, Object[] arguments) {
         setResult(null);
         setException(null);
@@ -44,6 +82,7 @@ public class HashedEventDrivenSpaceRemotingEntry extends EventDrivenSpaceRemotin
         setLookupName(lookupName);
         setMethodName(methodName);
         this.methodHash = methodHash;
+        this.methodIndex = -1;
         setArguments(arguments);
         return this;
     }
@@ -51,18 +90,21 @@ public class HashedEventDrivenSpaceRemotingEntry extends EventDrivenSpaceRemotin
     @Override
     public SpaceRemotingEntry buildResultTemplate() {
         methodHash = null;
+        methodIndex = -1;
         return super.buildResultTemplate();
     }
 
     @Override
     public SpaceRemotingEntry buildResult(Throwable e) {
         methodHash = null;
+        methodIndex = -1;
         return super.buildResult(e);
     }
 
     @Override
     public HashedSpaceRemotingEntry buildResult(Object result) {
         methodHash = null;
+        methodIndex = -1;
         return (HashedSpaceRemotingEntry) super.buildResult(result);
     }
 
@@ -70,19 +112,28 @@ public class HashedEventDrivenSpaceRemotingEntry extends EventDrivenSpaceRemotin
     @Override
     public void readExternal(ObjectInput in) throws IOException, ClassNotFoundException {
         super.readExternal(in);
-        if (in.readBoolean()) {
+        byte methodKey = in.readByte();
+        if (methodKey == METHOD_HASH_KEY) {
             methodHash = new RemotingUtils.MethodHash();
             methodHash.readExternal(in);
+        } else if (methodKey == METHOD_INDEX_KEY) {
+            interfaceFingerprint = in.readLong();
+            methodIndex = in.readUnsignedShort();
         }
     }
     
     @Override
     public void writeExternal(ObjectOutput out) throws IOException {
         super.writeExternal(out);
-        if (methodHash == null) {
-            out.writeBoolean(false);
+        if (methodIndex >= 0) {
+            out.writeByte(METHOD_INDEX_KEY);
+            out.writeLong(interfaceFingerprint);
+            // no method hash, the fingerprint tells the service whether the index can be trusted
+            out.writeShort(methodIndex);
+        } else if (methodHash == null) {
+            out.writeByte(NO_METHOD_KEY);
         } else {
-            out.writeBoolean(true);
+            out.writeByte(METHOD_HASH_KEY);
             methodHash.writeExternal(out);
         }
     }
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2006-2007 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.remoting;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Encodes the arguments and the result of remote invocations of services whose interface is annotated
+ * with {@link RemotingCodec}, instead of serializing each of them using <code>writeObject</code>.
+ *
+ * <p>The codec is created on the receiving side by its class name, so implementations must have a public
+ * no arg constructor, and must be thread safe.
+ *
+ * @see CompactRemotingArgumentCodec
+ */
+public interface RemotingArgumentCodec {
+
+    /**
+     * Writes the given value (which might be <code>null</code>).
+     */
+    void writeValue(ObjectOutput out, Object value) throws IOException;
+
+    /**
+     * Reads a value written by {@link #writeValue(java.io.ObjectOutput, Object)}.
+     */
+    Object readValue(ObjectInput in) throws IOException, ClassNotFoundException;
+}
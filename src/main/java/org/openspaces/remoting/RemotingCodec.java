@@ -0,0 +1,44 @@
+/*
+ * Copyright 2006-2007 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.remoting;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * An annotation, placed on a remoting service interface, enabling the compact encoding of its remote
+ * invocations by both executor and event driven proxies. The arguments and the result are encoded
+ * using the configured {@link RemotingArgumentCodec}, and the method is identified by its
+ * {@link RemotingUtils.MethodIndex index} within the interface instead of its MD5 hash.
+ *
+ * <p>Note, the compact encoding can only be read by clients and services that support it, so all
+ * of them should be upgraded before annotating an interface. The index is only meaningful for the
+ * same version of the interface, so an invocation from a client whose interface differs from the one
+ * of the service (its fingerprint does not match) fails with a
+ * {@link org.springframework.remoting.RemoteLookupFailureException}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RemotingCodec {
+
+    /**
+     * The codec used to encode the arguments and the result of the invocations.
+     */
+    Class<? extends RemotingArgumentCodec> value() default CompactRemotingArgumentCodec.class;
+}
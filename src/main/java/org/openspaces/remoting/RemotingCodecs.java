@@ -0,0 +1,123 @@
+/*
+ * Copyright 2006-2007 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.remoting;
+
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Creates and caches {@link RemotingArgumentCodec} instances, and writes them to the stream so the
+ * receiving side can decode the values using the same codec. The built-in codec is written as a
+ * single byte, a custom codec is written using its class name.
+ */
+final class RemotingCodecs {
+
+    private static final byte BUILT_IN_CODEC = 1;
+
+    private static final byte CUSTOM_CODEC = 2;
+
+    private static final CompactRemotingArgumentCodec builtInCodec = new CompactRemotingArgumentCodec();
+
+    private static final ConcurrentMap<String, RemotingArgumentCodec> customCodecs = new ConcurrentHashMap<String, RemotingArgumentCodec>();
+
+    private RemotingCodecs() {
+    }
+
+    /**
+     * Returns the codec configured using {@link RemotingCodec} on the given service interface (or one of its
+     * super interfaces), or <code>null</code> if the interface is not annotated.
+     */
+    static RemotingArgumentCodec getCodec(Class<?> serviceInterface) {
+        RemotingCodec remotingCodec = AnnotationUtils.findAnnotation(serviceInterface, RemotingCodec.class);
+        if (remotingCodec == null) {
+            return null;
+        }
+        if (remotingCodec.value() == CompactRemotingArgumentCodec.class) {
+            return builtInCodec;
+        }
+        return getCustomCodec(remotingCodec.value().getName());
+    }
+
+    static void writeCodec(ObjectOutput out, RemotingArgumentCodec codec) throws IOException {
+        if (codec.getClass() == CompactRemotingArgumentCodec.class) {
+            out.writeByte(BUILT_IN_CODEC);
+        } else {
+            out.writeByte(CUSTOM_CODEC);
+            out.writeUTF(codec.getClass().getName());
+        }
+    }
+
+    static RemotingArgumentCodec readCodec(ObjectInput in) throws IOException {
+        byte codecType = in.readByte();
+        if (codecType == BUILT_IN_CODEC) {
+            return builtInCodec;
+        }
+        if (codecType == CUSTOM_CODEC) {
+            String className = in.readUTF();
+            try {
+                return getCustomCodec(className);
+            } catch (IllegalStateException e) {
+                throw new IOException("Failed to create remoting codec [" + className + "]", e);
+            }
+        }
+        throw new IOException("Unknown remoting codec type [" + codecType + "]");
+    }
+
+    static void writeValues(ObjectOutput out, RemotingArgumentCodec codec, Object[] values) throws IOException {
+        if (values == null) {
+            out.writeInt(0);
+            return;
+        }
+        out.writeInt(values.length);
+        for (Object value : values) {
+            codec.writeValue(out, value);
+        }
+    }
+
+    static Object[] readValues(ObjectInput in, RemotingArgumentCodec codec) throws IOException, ClassNotFoundException {
+        int size = in.readInt();
+        if (size == 0) {
+            return null;
+        }
+        Object[] values = new Object[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = codec.readValue(in);
+        }
+        return values;
+    }
+
+    private static RemotingArgumentCodec getCustomCodec(String className) {
+        RemotingArgumentCodec codec = customCodecs.get(className);
+        if (codec != null) {
+            return codec;
+        }
+        try {
+            Class<?> codecClass = ClassUtils.forName(className, Thread.currentThread().getContextClassLoader());
+            codec = (RemotingArgumentCodec) codecClass.newInstance();
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to create remoting codec [" + className + "]", e);
+        }
+        RemotingArgumentCodec existing = customCodecs.putIfAbsent(className, codec);
+        return existing != null ? existing : codec;
+    }
+}
@@ -41,6 +41,9 @@ public class RemotingUtils {
         
         private byte[] hash;
 
+        // lazily computed, since the hash is used as a lookup key on every remote invocation
+        private transient int hashCode;
+
         public MethodHash() {
         }
 
@@ -76,8 +79,152 @@ public class RemotingUtils {
 
         @Override
         public int hashCode() {
-            return hash != null ? Arrays.hashCode(hash) : 0;
+            int result = hashCode;
+            if (result == 0 && hash != null) {
+                result = Arrays.hashCode(hash);
+                hashCode = result;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * A compact alternative to {@link MethodHash}. The methods of a service interface (including the ones
+     * of its super interfaces, and <code>Object.toString</code>) are sorted by their signature, and each
+     * method is identified by its position. Both ends build the index independently from their copy of the
+     * interface, and the fingerprint (computed over all the signatures) is sent along with the position, so
+     * the position is only trusted when both ends agree on the exact same set of methods.
+     */
+    public static class MethodIndex {
+
+        private final long fingerprint;
+
+        private final Method[] methods;
+
+        private final Map<String, Integer> indexBySignature;
+
+        private MethodIndex(long fingerprint, Method[] methods, Map<String, Integer> indexBySignature) {
+            this.fingerprint = fingerprint;
+            this.methods = methods;
+            this.indexBySignature = indexBySignature;
+        }
+
+        public long getFingerprint() {
+            return fingerprint;
+        }
+
+        public int size() {
+            return methods.length;
+        }
+
+        public Method getMethod(int index) {
+            return methods[index];
+        }
+
+        /**
+         * Returns the index of the method with the given name and parameter types, or <code>-1</code>
+         * if there is no such method.
+         */
+        public int indexOf(String methodName, Class[] parameterTypes) {
+            Integer index = indexBySignature.get(signature(methodName, parameterTypes));
+            return index != null ? index : -1;
+        }
+
+        /**
+         * Builds a lookup from the methods of the (client side) service interface to their index. Async
+         * methods are mapped to the index of their non async counterpart, same as
+         * {@link RemotingUtils#buildMethodToHashLookupForInterface(Class, String)}.
+         */
+        public Map<Method, Integer> buildMethodLookup(Class service, String asyncPrefix) {
+            Map<Method, Integer> map = new HashMap<Method, Integer>();
+            for (Class inf : getAllInterfacesForInterface(service)) {
+                for (Method method : inf.getMethods()) {
+                    int index = indexOf(syncMethodName(method, asyncPrefix), method.getParameterTypes());
+                    if (index >= 0) {
+                        map.put(method, index);
+                    }
+                }
+            }
+            try {
+                Method toStringMethod = Object.class.getMethod("toString");
+                if (!map.containsKey(toStringMethod)) {
+                    map.put(toStringMethod, indexOf(toStringMethod.getName(), toStringMethod.getParameterTypes()));
+                }
+            } catch (NoSuchMethodException e) {
+                throw new RuntimeException("Failed to build method index lookup", e);
+            }
+            return map;
+        }
+    }
+
+    public static MethodIndex buildMethodIndexForInterface(Class service) {
+        return buildMethodIndexForInterface(service, null);
+    }
+
+    /**
+     * Builds the method index of the given interface, indexing async methods (starting with the given
+     * prefix) under the signature of their non async counterpart. An async interface used by the client
+     * thus ends up with the same methods (and fingerprint) as the service interface it is invoked against.
+     */
+    public static MethodIndex buildMethodIndexForInterface(Class service, String asyncPrefix) {
+        try {
+            TreeMap<String, Method> methodsBySignature = new TreeMap<String, Method>();
+            for (Class inf : getAllInterfacesForInterface(service)) {
+                for (Method method : inf.getMethods()) {
+                    String methodName = syncMethodName(method, asyncPrefix);
+                    String signature = signature(methodName, method.getParameterTypes());
+                    // prefer the non async method, if both are declared
+                    if (!methodsBySignature.containsKey(signature) || methodName.equals(method.getName())) {
+                        methodsBySignature.put(signature, method);
+                    }
+                }
+            }
+            //if toString exists in service interface it will be invoked instead
+            Method toStringMethod = Object.class.getMethod("toString");
+            String toStringSignature = signature(toStringMethod.getName(), toStringMethod.getParameterTypes());
+            if (!methodsBySignature.containsKey(toStringSignature)) {
+                methodsBySignature.put(toStringSignature, toStringMethod);
+            }
+
+            MessageDigest digest = MessageDigest.getInstance("MD5");
+            Method[] methods = new Method[methodsBySignature.size()];
+            Map<String, Integer> indexBySignature = new HashMap<String, Integer>();
+            int index = 0;
+            for (Map.Entry<String, Method> entry : methodsBySignature.entrySet()) {
+                digest.update(entry.getKey().getBytes("UTF-8"));
+                digest.update((byte) 0);
+                methods[index] = entry.getValue();
+                indexBySignature.put(entry.getKey(), index);
+                index++;
+            }
+            byte[] hash = digest.digest();
+            long fingerprint = 0;
+            for (int i = 0; i < 8; i++) {
+                fingerprint = (fingerprint << 8) | (hash[i] & 0xFF);
+            }
+            return new MethodIndex(fingerprint, methods, indexBySignature);
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to build method index", e);
+        }
+    }
+
+    private static String syncMethodName(Method method, String asyncPrefix) {
+        String methodName = method.getName();
+        if (asyncPrefix != null && methodName.startsWith(asyncPrefix)) {
+            return StringUtils.uncapitalize(methodName.substring(asyncPrefix.length()));
+        }
+        return methodName;
+    }
+
+    private static String signature(String methodName, Class[] parameterTypes) {
+        StringBuilder sb = new StringBuilder(methodName).append('(');
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(parameterTypes[i].getName());
         }
+        return sb.append(')').toString();
     }
 
     public static Object createByClassOrFindByName(ApplicationContext applicationContext, String name, Class clazz) throws NoSuchBeanDefinitionException {
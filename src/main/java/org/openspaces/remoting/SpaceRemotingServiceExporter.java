@@ -19,11 +19,14 @@ package org.openspaces.remoting;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -114,7 +117,10 @@ public class SpaceRemotingServiceExporter implements SpaceDataEventListener<Spac
 
     private String beanName;
 
-    final private Map<String, Object> interfaceToService = new HashMap<String, Object>();
+    final private ConcurrentMap<String, ServiceInvoker> serviceInvokers = new ConcurrentHashMap<String, ServiceInvoker>();
+
+    // method lookups of non singleton beans looked up by name, the bean itself is fetched on every invocation
+    final private ConcurrentMap<String, ServiceInvoker> beanMethodInvokers = new ConcurrentHashMap<String, ServiceInvoker>();
 
     private String asyncInterfaceSuffix = DEFAULT_ASYNC_INTERFACE_SUFFIX;
 
@@ -128,11 +134,6 @@ public class SpaceRemotingServiceExporter implements SpaceDataEventListener<Spac
 
     private ClusterInfo clusterInfo;
 
-    private Map<String, Map<RemotingUtils.MethodHash, IMethod>> methodInvocationLookup;
-
-    // for backward comp
-    final private MethodInvocationCache methodInvocationCache = new MethodInvocationCache();
-
     private volatile boolean initialized = false;
 
     final private CountDownLatch initializationLatch = new CountDownLatch(1);
@@ -255,14 +256,14 @@ public class SpaceRemotingServiceExporter implements SpaceDataEventListener<Spac
                         this.servicesInfo.add(new ServiceInfo("NA" + (++naCounter), service.getClass().getName(), service));
                     }
                 }
-                methodInvocationLookup = new HashMap<String, Map<RemotingUtils.MethodHash, IMethod>>();
                 for (ServiceInfo serviceInfo : servicesInfo) {
                     Set<Class> interfaces = ReflectionUtil.getAllInterfacesForClassAsSet(serviceInfo.getService().getClass());
+                    // for backward comp
+                    MethodsCacheEntry methodsByName = new MethodsCacheEntry(serviceInfo.getService().getClass(), useFastReflection);
                     for (Class<?> anInterface : interfaces) {
-                        interfaceToService.put(anInterface.getName(), serviceInfo.getService());
-                        methodInvocationLookup.put(anInterface.getName(), RemotingUtils.buildHashToMethodLookupForInterface(anInterface, useFastReflection));
-                        // for backward comp
-                        methodInvocationCache.addService(anInterface, serviceInfo.getService(), useFastReflection);
+                        serviceInvokers.put(anInterface.getName(), new ServiceInvoker(serviceInfo,
+                                RemotingUtils.buildHashToMethodLookupForInterface(anInterface, useFastReflection),
+                                buildMethodIndex(anInterface), methodsByName, useFastReflection));
                     }
 
                     serviceToServiceInfoMap.put(serviceInfo.getService(), serviceInfo);
@@ -324,38 +325,31 @@ public class SpaceRemotingServiceExporter implements SpaceDataEventListener<Spac
 
         waitTillInitialized();
 
-        String lookupName = remotingEntry.getLookupName();
-        if (lookupName.endsWith(asyncInterfaceSuffix)) {
-            lookupName = lookupName.substring(0, lookupName.length() - asyncInterfaceSuffix.length());
-        }
-
-        Object service = interfaceToService.get(lookupName);
-        if (service == null) {
-            // we did not get an interface, maybe it is a bean name?
-            try {
-                service = applicationContext.getBean(lookupName);
-            } catch (NoSuchBeanDefinitionException e) {
-                // do nothing, write back a proper exception
-            }
-            if (service == null) {
-                writeResponse(gigaSpace, remotingEntry, new RemoteLookupFailureException(
-                        "Failed to find service for lookup [" + remotingEntry.getLookupName() + "]"));
-                return;
-            }
+        ServiceInvoker serviceInvoker = findServiceInvoker(remotingEntry.getLookupName());
+        if (serviceInvoker == null) {
+            writeResponse(gigaSpace, remotingEntry, new RemoteLookupFailureException(
+                    "Failed to find service for lookup [" + remotingEntry.getLookupName() + "]"));
+            return;
         }
+        Object service = serviceInvoker.getService();
 
-        autowireArguments(service, remotingEntry.getArguments());
+        autowireArguments(serviceInvoker, remotingEntry.getArguments());
 
-        IMethod method = null;
+        IMethod method;
         try {
-            if (remotingEntry instanceof HashedSpaceRemotingEntry && ((HashedSpaceRemotingEntry) remotingEntry).getMethodHash() != null) {
-                method = methodInvocationLookup.get(lookupName).get(((HashedSpaceRemotingEntry) remotingEntry).getMethodHash());
+            RemotingUtils.MethodHash methodHash = null;
+            if (remotingEntry instanceof HashedSpaceRemotingEntry) {
+                methodHash = ((HashedSpaceRemotingEntry) remotingEntry).getMethodHash();
             }
-            if (method == null) {
-                method = methodInvocationCache.findMethod(lookupName, service, remotingEntry.getMethodName(), remotingEntry.getArguments());
+            if (remotingEntry instanceof HashedEventDrivenSpaceRemotingEntry
+                    && ((HashedEventDrivenSpaceRemotingEntry) remotingEntry).getMethodIndex() >= 0) {
+                HashedEventDrivenSpaceRemotingEntry hashedEntry = (HashedEventDrivenSpaceRemotingEntry) remotingEntry;
+                method = serviceInvoker.findMethod(hashedEntry.getInterfaceFingerprint(), hashedEntry.getMethodIndex());
+            } else {
+                method = serviceInvoker.findMethod(methodHash, remotingEntry.getMethodName(), remotingEntry.getArguments());
             }
         } catch (Exception e) {
-            failedExecution(service);
+            failedExecution(serviceInvoker);
             writeResponse(gigaSpace, remotingEntry, new RemoteLookupFailureException("Failed to find method ["
                     + remotingEntry.getMethodName() + "] for lookup [" + remotingEntry.getLookupName() + "]", e));
             return;
@@ -368,16 +362,16 @@ public class SpaceRemotingServiceExporter implements SpaceDataEventListener<Spac
                 retVal = method.invoke(service, remotingEntry.getArguments());
             }
             writeResponse(gigaSpace, remotingEntry, retVal);
-            processedExecution(service);
+            processedExecution(serviceInvoker);
         } catch (InvocationTargetException e) {
-            failedExecution(service);
+            failedExecution(serviceInvoker);
             writeResponse(gigaSpace, remotingEntry, e.getTargetException());
         } catch (IllegalAccessException e) {
-            failedExecution(service);
+            failedExecution(serviceInvoker);
             writeResponse(gigaSpace, remotingEntry, new RemoteLookupFailureException("Failed to access method ["
                     + remotingEntry.getMethodName() + "] for lookup [" + remotingEntry.getLookupName() + "]", e));
         } catch (Throwable e) {
-            failedExecution(service);
+            failedExecution(serviceInvoker);
             writeResponse(gigaSpace, remotingEntry, e);
         }
     }
@@ -406,14 +400,14 @@ public class SpaceRemotingServiceExporter implements SpaceDataEventListener<Spac
         }
     }
 
-    private void autowireArguments(Object service, Object[] args) {
+    private void autowireArguments(ServiceInvoker serviceInvoker, Object[] args) {
         if (disableAutowiredArguments) {
             return;
         }
         if (args == null) {
             return;
         }
-        if (shouldAutowire(service)) {
+        if (serviceInvoker.isAutowireArguments()) {
             for (Object arg : args) {
                 if (arg == null) {
                     continue;
@@ -425,7 +419,7 @@ public class SpaceRemotingServiceExporter implements SpaceDataEventListener<Spac
         }
     }
 
-    private boolean shouldAutowire(Object service) {
+    private static boolean shouldAutowire(Object service) {
         if (service instanceof AutowireArgumentsMarker) {
             return true;
         }
@@ -444,37 +438,24 @@ public class SpaceRemotingServiceExporter implements SpaceDataEventListener<Spac
 
     public Object invokeExecutor(ExecutorRemotingTask task) throws Throwable {
         waitTillInitialized();
-        String lookupName = task.getLookupName();
-        if (lookupName.endsWith(asyncInterfaceSuffix)) {
-            lookupName = lookupName.substring(0, lookupName.length() - asyncInterfaceSuffix.length());
-        }
 
-        Object service = interfaceToService.get(lookupName);
-        if (service == null) {
-            // we did not get an interface, maybe it is a bean name?
-            try {
-                service = applicationContext.getBean(lookupName);
-            } catch (NoSuchBeanDefinitionException e) {
-                // do nothing, write back a proper exception
-                throw new RemoteLookupFailureException("Failed to find service for lookup [" + lookupName + "]", e);
-            }
-            if (service == null) {
-                throw new RemoteLookupFailureException("Failed to find service for lookup [" + lookupName + "]");
-            }
+        ServiceInvoker serviceInvoker = findServiceInvoker(task.getLookupName());
+        if (serviceInvoker == null) {
+            throw new RemoteLookupFailureException("Failed to find service for lookup [" + task.getLookupName() + "]");
         }
+        Object service = serviceInvoker.getService();
 
-        autowireArguments(service, task.getArguments());
+        autowireArguments(serviceInvoker, task.getArguments());
 
-        IMethod method = null;
+        IMethod method;
         try {
-            if (task.getMethodHash() != null) {
-                method = methodInvocationLookup.get(lookupName).get(task.getMethodHash());
-            }
-            if (method == null) {
-                method = methodInvocationCache.findMethod(lookupName, service, task.getMethodName(), task.getArguments());
+            if (task.getMethodIndex() >= 0) {
+                method = serviceInvoker.findMethod(task.getInterfaceFingerprint(), task.getMethodIndex());
+            } else {
+                method = serviceInvoker.findMethod(task.getMethodHash(), task.getMethodName(), task.getArguments());
             }
         } catch (Exception e) {
-            failedExecution(service);
+            failedExecution(serviceInvoker);
             throw new RemoteLookupFailureException("Failed to find method [" + task.getMethodName() + "] for lookup [" + task.getLookupName() + "]", e);
         }
         try {
@@ -484,25 +465,87 @@ public class SpaceRemotingServiceExporter implements SpaceDataEventListener<Spac
             } else {
                 retVal = method.invoke(service, task.getArguments());
             }
-            processedExecution(service);
+            processedExecution(serviceInvoker);
             return retVal;
         } catch (InvocationTargetException e) {
-            failedExecution(service);
+            failedExecution(serviceInvoker);
             throw e.getTargetException();
         } catch (IllegalAccessException e) {
-            failedExecution(service);
+            failedExecution(serviceInvoker);
             throw new RemoteLookupFailureException("Failed to access method [" + task.getMethodName() + "] for lookup [" + task.getLookupName() + "]");
         }
     }
 
-    private void processedExecution(Object service) {
+    /**
+     * Returns the invoker of the service registered against the given lookup name (stripping the async interface
+     * suffix), or of the bean named after it. Returns <code>null</code> if there is no such service.
+     *
+     * <p>Invokers of singleton beans are cached. Other beans (prototype, request scoped, ...) are fetched from
+     * the application context on every invocation, and only their method lookups are cached.
+     */
+    private ServiceInvoker findServiceInvoker(String lookupName) {
+        if (lookupName.endsWith(asyncInterfaceSuffix)) {
+            lookupName = lookupName.substring(0, lookupName.length() - asyncInterfaceSuffix.length());
+        }
+        ServiceInvoker serviceInvoker = serviceInvokers.get(lookupName);
+        if (serviceInvoker != null) {
+            return serviceInvoker;
+        }
+        // we did not get an interface, maybe it is a bean name?
+        Object service;
+        try {
+            service = applicationContext.getBean(lookupName);
+        } catch (NoSuchBeanDefinitionException e) {
+            return null;
+        }
+        if (service == null) {
+            return null;
+        }
+        ServiceInfo serviceInfo = serviceToServiceInfoMap.get(service);
+        if (serviceInfo == null) {
+            serviceInfo = new ServiceInfo(lookupName, service.getClass().getName(), service);
+        }
+        boolean singleton = applicationContext.isSingleton(lookupName);
+        if (!singleton) {
+            ServiceInvoker beanMethodInvoker = beanMethodInvokers.get(lookupName);
+            if (beanMethodInvoker != null && beanMethodInvoker.getService().getClass() == service.getClass()) {
+                return new ServiceInvoker(beanMethodInvoker, serviceInfo);
+            }
+        }
+        Map<RemotingUtils.MethodHash, IMethod> methodsByHash = new HashMap<RemotingUtils.MethodHash, IMethod>();
+        for (Class<?> anInterface : ReflectionUtil.getAllInterfacesForClassAsSet(service.getClass())) {
+            methodsByHash.putAll(RemotingUtils.buildHashToMethodLookupForInterface(anInterface, useFastReflection));
+        }
+        // a bean may implement several interfaces, so method indexes (which are per interface) are not used
+        serviceInvoker = new ServiceInvoker(serviceInfo, methodsByHash, null, new MethodsCacheEntry(service.getClass(), useFastReflection),
+                useFastReflection);
+        if (!singleton) {
+            beanMethodInvokers.put(lookupName, serviceInvoker);
+            return serviceInvoker;
+        }
+        ServiceInvoker existing = serviceInvokers.putIfAbsent(lookupName, serviceInvoker);
+        return existing != null ? existing : serviceInvoker;
+    }
+
+    /**
+     * Returns the method index of the given interface if it is annotated with {@link RemotingCodec}
+     * (clients only send method indexes for such interfaces), <code>null</code> otherwise.
+     */
+    private static RemotingUtils.MethodIndex buildMethodIndex(Class<?> anInterface) {
+        if (RemotingCodecs.getCodec(anInterface) == null) {
+            return null;
+        }
+        return RemotingUtils.buildMethodIndexForInterface(anInterface);
+    }
+
+    private void processedExecution(ServiceInvoker serviceInvoker) {
         processed.incrementAndGet();
-        serviceToServiceInfoMap.get(service).getProcessed().incrementAndGet();
+        serviceInvoker.getServiceInfo().getProcessed().incrementAndGet();
     }
 
-    private void failedExecution(Object service) {
+    private void failedExecution(ServiceInvoker serviceInvoker) {
         failed.incrementAndGet();
-        serviceToServiceInfoMap.get(service).getFailures().incrementAndGet();
+        serviceInvoker.getServiceInfo().getFailures().incrementAndGet();
     }
 
     private void waitTillInitialized() throws RemoteLookupFailureException {
@@ -520,99 +563,206 @@ public class SpaceRemotingServiceExporter implements SpaceDataEventListener<Spac
     }
 
     /**
-     * Holds a cache of method reflection information per service (interface). If there is a single method
-     * within the interface with the same name and number of parameters, then the cached version will be used.
+     * Invokes the methods of a single exported service. Everything needed to dispatch an invocation is
+     * resolved once, when the invoker is created: the service instance and its statistics, whether its
+     * arguments should be autowired, and its methods keyed by {@link RemotingUtils.MethodHash} (backed by
+     * generated accessors when using fast reflection), so dispatching a hashed invocation is a single map
+     * lookup followed by a direct call.
+     *
+     * <p>Invocations of interfaces annotated with {@link RemotingCodec} identify the method by its
+     * {@link RemotingUtils.MethodIndex index}, which is resolved using an array lookup as long as the
+     * interface fingerprint sent by the client matches the one of the service. Invocations with a method
+     * index of a different version of the interface fail, since the index does not identify the method.
+     *
+     * <p>Invocations without a method hash (for backward comp), or with a hash unknown to the service,
+     * are resolved by method name and number of parameters, see {@link MethodsCacheEntry}.
+     */
+    private static class ServiceInvoker {
+
+        private final ServiceInfo serviceInfo;
+
+        private final boolean autowireArguments;
+
+        private final Map<RemotingUtils.MethodHash, IMethod> methodsByHash;
+
+        private final long interfaceFingerprint;
+
+        private final IMethod[] methodsByIndex;
+
+        private final MethodsCacheEntry methodsByName;
+
+        private ServiceInvoker(ServiceInfo serviceInfo, Map<RemotingUtils.MethodHash, IMethod> methodsByHash,
+                               RemotingUtils.MethodIndex methodIndex, MethodsCacheEntry methodsByName, boolean useFastReflection) {
+            this.serviceInfo = serviceInfo;
+            this.autowireArguments = shouldAutowire(serviceInfo.getService());
+            this.methodsByHash = methodsByHash;
+            this.methodsByName = methodsByName;
+            if (methodIndex == null) {
+                this.interfaceFingerprint = 0;
+                this.methodsByIndex = new IMethod[0];
+            } else {
+                this.interfaceFingerprint = methodIndex.getFingerprint();
+                this.methodsByIndex = new IMethod[methodIndex.size()];
+                for (int i = 0; i < methodsByIndex.length; i++) {
+                    Method method = methodIndex.getMethod(i);
+                    methodsByIndex[i] = useFastReflection ? ReflectionUtil.createMethod(method) : new StandardMethod(method);
+                }
+            }
+        }
+
+        /**
+         * Creates an invoker of another instance of the same service class, sharing the method lookups.
+         */
+        private ServiceInvoker(ServiceInvoker invoker, ServiceInfo serviceInfo) {
+            this.serviceInfo = serviceInfo;
+            this.autowireArguments = invoker.autowireArguments;
+            this.methodsByHash = invoker.methodsByHash;
+            this.methodsByName = invoker.methodsByName;
+            this.interfaceFingerprint = invoker.interfaceFingerprint;
+            this.methodsByIndex = invoker.methodsByIndex;
+        }
+
+        public Object getService() {
+            return serviceInfo.getService();
+        }
+
+        public ServiceInfo getServiceInfo() {
+            return serviceInfo;
+        }
+
+        public boolean isAutowireArguments() {
+            return autowireArguments;
+        }
+
+        public IMethod findMethod(RemotingUtils.MethodHash methodHash, String methodName, Object[] arguments) throws NoSuchMethodException {
+            if (methodHash != null) {
+                IMethod method = methodsByHash.get(methodHash);
+                if (method != null) {
+                    return method;
+                }
+            }
+            return methodsByName.findMethod(getService(), methodName, arguments);
+        }
+
+        public IMethod findMethod(long interfaceFingerprint, int methodIndex) throws NoSuchMethodException {
+            if (interfaceFingerprint != this.interfaceFingerprint || methodIndex >= methodsByIndex.length) {
+                throw new NoSuchMethodException("Method index [" + methodIndex + "] of interface fingerprint [" + interfaceFingerprint
+                        + "] does not match the service interface (fingerprint [" + this.interfaceFingerprint
+                        + "]), the client and the service should use the same version of the interface");
+            }
+            return methodsByIndex[methodIndex];
+        }
+    }
+
+    /**
+     * Holds a cache of method reflection information per service. If there is a single method
+     * within the service with the same name and number of parameters, then the cached version will be used.
      * If there are more than one method with the name and number of parameteres, then the Java reflection
-     * <code>getMethod</code> will be used.
+     * <code>getMethod</code> will be used, and its result cached by the argument types.
      *
      * <p>Note, as a side effect, if we are using cached methods, we support executing interfaces that declare
      * a super type as a parameter, and invocation will be done using a sub type. This does not work with
      * Java reflection getMethod as it only returns exact match for argument types.
      *
-     * <p>Also note, this cache is *not* thread safe. The idea here is that this cache is initlaized at startup
-     * and then never updated.
+     * <p>Also note, the method name cache is *not* thread safe. The idea here is that this cache is initlaized
+     * at startup and then never updated.
      */
-    private static class MethodInvocationCache {
+    private static class MethodsCacheEntry {
+
+        private final Map<String, MethodCacheEntry> methodNameMap = new HashMap<String, MethodCacheEntry>();
 
-        private final Map<String, MethodsCacheEntry> serviceToMethodCacheMap = new HashMap<String, MethodsCacheEntry>();
+        private final ConcurrentMap<MethodSignature, IMethod> resolvedMethods = new ConcurrentHashMap<MethodSignature, IMethod>();
+
+        public MethodsCacheEntry(Class service, boolean useFastReflection) {
+            Method[] methods = service.getMethods();
+            for (Method method : methods) {
+                MethodCacheEntry methodCacheEntry = methodNameMap.get(method.getName());
+                if (methodCacheEntry == null) {
+                    methodCacheEntry = new MethodCacheEntry();
+                    methodNameMap.put(method.getName(), methodCacheEntry);
+                }
+                methodCacheEntry.addMethod(method, useFastReflection);
+            }
+        }
 
-        public IMethod findMethod(String lookupName, Object service, String methodName, Object[] arguments) throws NoSuchMethodException {
+        public IMethod findMethod(Object service, String methodName, Object[] arguments) throws NoSuchMethodException {
             int numberOfParameters = 0;
             if (arguments != null) {
                 numberOfParameters = arguments.length;
             }
-            IMethod invocationMethod;
-            IMethod[] methods = serviceToMethodCacheMap.get(lookupName).getMethodCacheEntry(methodName).getMethod(numberOfParameters);
+            MethodCacheEntry methodCacheEntry = methodNameMap.get(methodName);
+            if (methodCacheEntry == null) {
+                throw new NoSuchMethodException(service.getClass().getName() + "." + methodName);
+            }
+            IMethod[] methods = methodCacheEntry.getMethod(numberOfParameters);
             if (methods != null && methods.length == 1) {
                 //we can do caching
-                invocationMethod = methods[0];
-            } else {
-                if (arguments == null) {
-                    arguments = new Object[0];
-                }
-                Class<?>[] argumentTypes = new Class<?>[arguments.length];
-                for (int i = 0; i < arguments.length; i++) {
-                    argumentTypes[i] = (arguments[i] != null ? arguments[i].getClass() : Object.class);
-                }
-
+                return methods[0];
+            }
+            Class<?>[] argumentTypes = new Class<?>[numberOfParameters];
+            for (int i = 0; i < numberOfParameters; i++) {
+                argumentTypes[i] = (arguments[i] != null ? arguments[i].getClass() : Object.class);
+            }
+            MethodSignature signature = new MethodSignature(methodName, argumentTypes);
+            IMethod invocationMethod = resolvedMethods.get(signature);
+            if (invocationMethod == null) {
                 invocationMethod = new StandardMethod(service.getClass().getMethod(methodName, argumentTypes));
+                resolvedMethods.putIfAbsent(signature, invocationMethod);
             }
             return invocationMethod;
         }
+    }
 
-        public void addService(Class serviceInterface, Object service, boolean useFastReflection) {
-            MethodsCacheEntry methodsCacheEntry = new MethodsCacheEntry();
-            serviceToMethodCacheMap.put(serviceInterface.getName(), methodsCacheEntry);
-            methodsCacheEntry.addService(service.getClass(), useFastReflection);
-        }
+    private static class MethodCacheEntry {
 
-        private static class MethodsCacheEntry {
+        private Map<Integer, IMethod[]> parametersPerMethodMap = new HashMap<Integer, IMethod[]>();
 
-            private Map<String, MethodCacheEntry> methodNameMap = new HashMap<String, MethodCacheEntry>();
+        public IMethod[] getMethod(int numberOfParams) {
+            return parametersPerMethodMap.get(numberOfParams);
+        }
 
-            public MethodCacheEntry getMethodCacheEntry(String methodName) {
-                return methodNameMap.get(methodName);
+        public void addMethod(Method method, boolean useFastReflection) {
+            IMethod fastMethod;
+            if (useFastReflection) {
+                fastMethod = ReflectionUtil.createMethod(method);
+            } else {
+                fastMethod = new StandardMethod(method);
             }
-
-            public void addService(Class service, boolean useFastReflection) {
-                Method[] methods = service.getMethods();
-                for (Method method : methods) {
-                    MethodCacheEntry methodCacheEntry = methodNameMap.get(method.getName());
-                    if (methodCacheEntry == null) {
-                        methodCacheEntry = new MethodCacheEntry();
-                        methodNameMap.put(method.getName(), methodCacheEntry);
-                    }
-                    methodCacheEntry.addMethod(method, useFastReflection);
-                }
+            IMethod[] list = parametersPerMethodMap.get(method.getParameterTypes().length);
+            if (list == null) {
+                list = new IMethod[]{fastMethod};
+            } else {
+                IMethod[] tempList = new IMethod[list.length + 1];
+                System.arraycopy(list, 0, tempList, 0, list.length);
+                tempList[list.length] = fastMethod;
+                list = tempList;
             }
+            parametersPerMethodMap.put(method.getParameterTypes().length, list);
         }
+    }
 
-        private static class MethodCacheEntry {
+    private static class MethodSignature {
 
-            private Map<Integer, IMethod[]> parametersPerMethodMap = new HashMap<Integer, IMethod[]>();
+        private final String methodName;
 
-            public IMethod[] getMethod(int numberOfParams) {
-                return parametersPerMethodMap.get(numberOfParams);
-            }
+        private final Class<?>[] argumentTypes;
 
-            public void addMethod(Method method, boolean useFastReflection) {
-                IMethod fastMethod;
-                if (useFastReflection) {
-                    fastMethod = ReflectionUtil.createMethod(method);
-                } else {
-                    fastMethod = new StandardMethod(method);
-                }
-                IMethod[] list = parametersPerMethodMap.get(method.getParameterTypes().length);
-                if (list == null) {
-                    list = new IMethod[]{fastMethod};
-                } else {
-                    IMethod[] tempList = new IMethod[list.length + 1];
-                    System.arraycopy(list, 0, tempList, 0, list.length);
-                    tempList[list.length] = fastMethod;
-                    list = tempList;
-                }
-                parametersPerMethodMap.put(method.getParameterTypes().length, list);
-            }
+        private MethodSignature(String methodName, Class<?>[] argumentTypes) {
+            this.methodName = methodName;
+            this.argumentTypes = argumentTypes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MethodSignature)) return false;
+            MethodSignature that = (MethodSignature) o;
+            return methodName.equals(that.methodName) && Arrays.equals(argumentTypes, that.argumentTypes);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * methodName.hashCode() + Arrays.hashCode(argumentTypes);
         }
     }
 
@@ -22,8 +22,8 @@ import org.openspaces.core.GigaSpace;
 import org.openspaces.core.cluster.ClusterInfo;
 import org.openspaces.core.cluster.ClusterInfoAware;
 import org.openspaces.remoting.scripting.cache.CompiledScriptCache;
-import org.openspaces.remoting.scripting.cache.LRUNonThreadSafeCompiledScriptCache;
-import org.openspaces.remoting.scripting.cache.LRUThreadSafeCompiledScriptCache;
+import org.openspaces.remoting.scripting.cache.ConcurrentNonThreadSafeCompiledScriptCache;
+import org.openspaces.remoting.scripting.cache.ConcurrentThreadSafeCompiledScriptCache;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.ApplicationContext;
@@ -127,7 +127,7 @@ public class DefaultScriptingExecutor implements ScriptingExecutor, ApplicationC
 
     /**
      * Sets a compiled script cache for compiled scripts taht are thread safe (the same script can
-     * be executed by different threads). Defaults to {@link LRUThreadSafeCompiledScriptCache}.
+     * be executed by different threads). Defaults to {@link ConcurrentThreadSafeCompiledScriptCache}.
      *
      * @see LocalScriptExecutor#isThreadSafe()
      */
@@ -137,7 +137,7 @@ public class DefaultScriptingExecutor implements ScriptingExecutor, ApplicationC
 
     /**
      * Sets a compiled script cache for compiled scripts taht are not thread safe (the same script can not
-     * be executed by different threads). Defaults to {@link LRUNonThreadSafeCompiledScriptCache}.
+     * be executed by different threads). Defaults to {@link ConcurrentNonThreadSafeCompiledScriptCache}.
      *
      * @see LocalScriptExecutor#isThreadSafe()
      */
@@ -185,10 +185,10 @@ public class DefaultScriptingExecutor implements ScriptingExecutor, ApplicationC
         }
 
         if (threadSafeCompiledScriptCache == null) {
-            threadSafeCompiledScriptCache = new LRUThreadSafeCompiledScriptCache();
+            threadSafeCompiledScriptCache = new ConcurrentThreadSafeCompiledScriptCache();
         }
         if (nonThreadSafeCopmiledScriptCache == null) {
-            nonThreadSafeCopmiledScriptCache = new LRUNonThreadSafeCompiledScriptCache();
+            nonThreadSafeCopmiledScriptCache = new ConcurrentNonThreadSafeCompiledScriptCache();
         }
     }
 
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2006-2007 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.remoting.scripting.cache;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openspaces.remoting.scripting.LocalScriptExecutor;
+import org.openspaces.remoting.scripting.Script;
+import org.openspaces.remoting.scripting.ScriptCompilationException;
+import org.openspaces.remoting.scripting.ScriptingException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A base class for compiled script caches backed by a {@link java.util.concurrent.ConcurrentHashMap}.
+ *
+ * <p>Looking up a cached value takes no lock. When a value is missing, the first thread creates it while
+ * other threads asking for the same name wait for it, so a script is compiled once no matter how many
+ * threads miss it at the same time. A failed compilation is not cached, the next lookup tries again.
+ *
+ * <p>Eviction is an approximate LRU. A logical clock is advanced on every miss, and a lookup stamps the
+ * entry with the current clock. When the cache grows beyond its size, the entry with the oldest stamp is
+ * evicted. Entries used between the same two misses share a stamp, which keeps lookups free of writes to
+ * shared state in the common case of a stable set of scripts.
+ *
+ * @param <V> the type of the cached values
+ */
+public abstract class AbstractConcurrentCompiledScriptCache<V> implements CompiledScriptCache {
+
+    protected final Log logger = LogFactory.getLog(getClass());
+
+    private final int size;
+
+    private final ConcurrentMap<String, Entry<V>> cache = new ConcurrentHashMap<String, Entry<V>>();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final CompiledScriptCacheStatistics statistics = new CompiledScriptCacheStatistics();
+
+    protected AbstractConcurrentCompiledScriptCache(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Cache size must be positive, was [" + size + "]");
+        }
+        this.size = size;
+    }
+
+    /**
+     * Creates the value cached for the given script.
+     */
+    protected abstract V create(LocalScriptExecutor executor, Script script) throws ScriptCompilationException;
+
+    /**
+     * Closes a value evicted from the cache.
+     */
+    protected abstract void close(V value, LocalScriptExecutor executor);
+
+    public CompiledScriptCacheStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Returns the number of values in the cache, including values still being created.
+     */
+    public int size() {
+        return cache.size();
+    }
+
+    /**
+     * Returns the cached value of the given name, creating it if needed.
+     */
+    protected V getOrCreate(String name, LocalScriptExecutor executor, Script script) throws ScriptCompilationException {
+        Entry<V> entry = cache.get(name);
+        if (entry != null) {
+            V value = entry.value;
+            if (value != null) {
+                statistics.hit();
+                entry.touch(clock.get());
+                return value;
+            }
+        }
+        statistics.miss();
+        if (entry == null) {
+            // stamped before advancing the clock, so entries used after this miss are more recent
+            Entry<V> newEntry = new Entry<V>(clock.getAndIncrement());
+            entry = cache.putIfAbsent(name, newEntry);
+            if (entry == null) {
+                return load(name, newEntry, executor, script);
+            }
+        }
+        return entry.await(name);
+    }
+
+    /**
+     * Returns the cached value of the given name, or <code>null</code> if there is none (or it is still
+     * being created), and marks it as recently used. Does not count as a lookup.
+     */
+    protected V getIfPresent(String name) {
+        Entry<V> entry = cache.get(name);
+        if (entry == null) {
+            return null;
+        }
+        V value = entry.value;
+        if (value != null) {
+            entry.touch(clock.get());
+        }
+        return value;
+    }
+
+    private V load(String name, Entry<V> entry, LocalScriptExecutor executor, Script script) {
+        long start = System.nanoTime();
+        V value;
+        try {
+            value = create(executor, script);
+        } catch (RuntimeException e) {
+            failed(name, entry, start, e);
+            throw e;
+        } catch (Error e) {
+            failed(name, entry, start, e);
+            throw e;
+        }
+        statistics.compiled(System.nanoTime() - start);
+        entry.complete(value);
+        evictIfNeeded(entry, executor);
+        return value;
+    }
+
+    private void failed(String name, Entry<V> entry, long start, Throwable failure) {
+        statistics.compileFailed(System.nanoTime() - start);
+        cache.remove(name, entry);
+        entry.fail(failure);
+    }
+
+    /**
+     * Evicts the least recently used values until the cache fits its size. The just added entry is kept,
+     * its value is about to be handed out.
+     */
+    private void evictIfNeeded(Entry<V> added, LocalScriptExecutor executor) {
+        while (cache.size() > size) {
+            String victimName = null;
+            Entry<V> victim = null;
+            for (Map.Entry<String, Entry<V>> candidate : cache.entrySet()) {
+                Entry<V> entry = candidate.getValue();
+                // values still being created are never evicted, someone is waiting for them
+                if (entry == added || entry.value == null) {
+                    continue;
+                }
+                if (victim == null || entry.accessTime < victim.accessTime) {
+                    victimName = candidate.getKey();
+                    victim = entry;
+                }
+            }
+            if (victim == null) {
+                return;
+            }
+            if (cache.remove(victimName, victim)) {
+                statistics.evicted();
+                try {
+                    close(victim.value, executor);
+                } catch (Exception e) {
+                    logger.debug("Failed to close evicted script [" + victimName + "], ignoring", e);
+                }
+            }
+        }
+    }
+
+    private static final class Entry<V> {
+
+        private final CountDownLatch created = new CountDownLatch(1);
+
+        volatile V value;
+
+        volatile Throwable failure;
+
+        volatile long accessTime;
+
+        Entry(long accessTime) {
+            this.accessTime = accessTime;
+        }
+
+        void touch(long now) {
+            // only write when the clock moved, so hot entries are not written on every lookup
+            if (accessTime != now) {
+                accessTime = now;
+            }
+        }
+
+        void complete(V value) {
+            this.value = value;
+            created.countDown();
+        }
+
+        void fail(Throwable failure) {
+            this.failure = failure;
+            created.countDown();
+        }
+
+        V await(String name) {
+            try {
+                created.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ScriptingException("Interrupted waiting for script [" + name + "] to compile");
+            }
+            if (failure == null) {
+                return value;
+            }
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw new ScriptCompilationException("Failed to compile script [" + name + "]", failure);
+        }
+    }
+}
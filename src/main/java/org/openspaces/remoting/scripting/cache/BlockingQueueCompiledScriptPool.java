@@ -25,30 +25,41 @@ import org.openspaces.remoting.scripting.ScriptingException;
 import java.util.ArrayList;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A {@link java.util.concurrent.BlockingQueue} script pool with a configurable size.
  *
  * <p>Upon initialization the pool compiles "size" scripts and puts it in the queue.
  *
+ * <p>Once closed (for example, when evicted from the cache), threads still waiting for a compiled script
+ * compile their own, and compiled scripts put back to the pool are closed.
+ *
  * @author kimchy
  */
 public class BlockingQueueCompiledScriptPool implements CompiledScriptPool {
 
     private static final Log logger = LogFactory.getLog(BlockingQueueCompiledScriptPool.class);
 
+    private static final long CLOSE_CHECK_INTERVAL = 100;
+
     private int size;
 
     private BlockingQueue<Object> queue;
 
     private LocalScriptExecutor executor;
 
+    private Script script;
+
+    private volatile boolean closed;
+
     public BlockingQueueCompiledScriptPool(int size) {
         this.size = size;
     }
 
     public void init(LocalScriptExecutor executor, Script script) throws ScriptingException {
         this.executor = executor;
+        this.script = script;
         queue = new ArrayBlockingQueue<Object>(size);
         for (int i = 0; i < size; i++) {
             queue.add(executor.compile(script));
@@ -57,25 +68,45 @@ public class BlockingQueueCompiledScriptPool implements CompiledScriptPool {
 
     public Object get() throws ScriptingException {
         try {
-            return queue.take();
+            while (true) {
+                Object compiledScript = queue.poll(CLOSE_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+                if (compiledScript != null) {
+                    return compiledScript;
+                }
+                if (closed) {
+                    return executor.compile(script);
+                }
+            }
         } catch (InterruptedException e) {
             throw new ScriptingException("Interrupted waiting for compiled script pool");
         }
     }
 
     public void put(Object compiledScript) throws ScriptingException {
-        queue.offer(compiledScript);
+        if (closed || !queue.offer(compiledScript)) {
+            closeScript(compiledScript);
+            return;
+        }
+        // the pool might have been closed while putting it back, make sure it is not left unclosed
+        if (closed && queue.remove(compiledScript)) {
+            closeScript(compiledScript);
+        }
     }
 
     public void close() {
+        closed = true;
         ArrayList<Object> compiledScripts = new ArrayList<Object>();
         queue.drainTo(compiledScripts);
         for (Object compiledScript : compiledScripts) {
-            try {
-                executor.close(compiledScript);
-            } catch (Exception e) {
-                logger.debug("Failed to close script [" + compiledScript + "], ignoring", e);
-            }
+            closeScript(compiledScript);
+        }
+    }
+
+    private void closeScript(Object compiledScript) {
+        try {
+            executor.close(compiledScript);
+        } catch (Exception e) {
+            logger.debug("Failed to close script [" + compiledScript + "], ignoring", e);
         }
     }
 }
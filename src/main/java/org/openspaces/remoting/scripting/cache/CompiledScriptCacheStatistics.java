@@ -0,0 +1,120 @@
+/*
+ * Copyright 2006-2007 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.remoting.scripting.cache;
+
+import org.openspaces.core.util.StripedCounter;
+
+/**
+ * Hit, miss, compilation and eviction counters of a concurrent compiled script cache.
+ *
+ * <p>A miss is a lookup that did not find a ready compiled script, including lookups that waited for a
+ * compilation started by another thread. Since compilations are not duplicated, the compile count is
+ * usually lower than the miss count under concurrency.
+ *
+ * @see ConcurrentThreadSafeCompiledScriptCache#getStatistics()
+ * @see ConcurrentNonThreadSafeCompiledScriptCache#getStatistics()
+ */
+public class CompiledScriptCacheStatistics {
+
+    private final StripedCounter hits = new StripedCounter();
+
+    private final StripedCounter misses = new StripedCounter();
+
+    private final StripedCounter compilations = new StripedCounter();
+
+    private final StripedCounter compileFailures = new StripedCounter();
+
+    private final StripedCounter compileTimeNanos = new StripedCounter();
+
+    private final StripedCounter evictions = new StripedCounter();
+
+    void hit() {
+        hits.increment();
+    }
+
+    void miss() {
+        misses.increment();
+    }
+
+    void compiled(long nanos) {
+        compilations.increment();
+        compileTimeNanos.add(nanos);
+    }
+
+    void compileFailed(long nanos) {
+        compileFailures.increment();
+        compileTimeNanos.add(nanos);
+    }
+
+    void evicted() {
+        evictions.increment();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the ratio of lookups served by the cache, or <code>0</code> if there were no lookups.
+     */
+    public double getHitRatio() {
+        long hitCount = getHitCount();
+        long total = hitCount + getMissCount();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * Returns the number of successful compilations.
+     */
+    public long getCompileCount() {
+        return compilations.get();
+    }
+
+    public long getCompileFailureCount() {
+        return compileFailures.get();
+    }
+
+    /**
+     * Returns the time spent compiling, including failed compilations, in nanoseconds.
+     */
+    public long getTotalCompileTimeNanos() {
+        return compileTimeNanos.get();
+    }
+
+    /**
+     * Returns the average time of a compilation (successful or not) in milliseconds.
+     */
+    public double getAverageCompileTime() {
+        long count = getCompileCount() + getCompileFailureCount();
+        return count == 0 ? 0 : getTotalCompileTimeNanos() / 1000000.0 / count;
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "hits[" + getHitCount() + "], misses[" + getMissCount() + "], compilations[" + getCompileCount()
+                + "], compileFailures[" + getCompileFailureCount() + "], averageCompileTime["
+                + getAverageCompileTime() + "ms], evictions[" + getEvictionCount() + "]";
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2006-2007 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.remoting.scripting.cache;
+
+import org.openspaces.remoting.scripting.LocalScriptExecutor;
+import org.openspaces.remoting.scripting.Script;
+import org.openspaces.remoting.scripting.ScriptCompilationException;
+
+/**
+ * A concurrent cache for compiled scripts that are not thread safe. Non thread safe compiled scripts
+ * are scripts that can not be executed by more than one thread at once.
+ *
+ * <p>Same as {@link org.openspaces.remoting.scripting.cache.LRUNonThreadSafeCompiledScriptCache}, the cache
+ * holds a {@link org.openspaces.remoting.scripting.cache.CompiledScriptPool} per script name. Unlike it,
+ * looking up a pool takes no lock, and a missing pool is created (and initialized) once, other threads
+ * executing the same script wait for it instead of creating pools of their own. An evicted pool is closed,
+ * compiled scripts put back after that are closed as well. See
+ * {@link org.openspaces.remoting.scripting.cache.AbstractConcurrentCompiledScriptCache} for the eviction
+ * policy.
+ *
+ * <p>Note, the compilation statistics count pool creations, each compiling as many scripts as the pool
+ * initializes.
+ */
+public class ConcurrentNonThreadSafeCompiledScriptCache extends AbstractConcurrentCompiledScriptCache<CompiledScriptPool> {
+
+    public static final int DEFAULT_CACHE_SIZE = 50;
+
+    private final CompiledScriptPoolFactory compiledScriptPoolFactory;
+
+    public ConcurrentNonThreadSafeCompiledScriptCache() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    public ConcurrentNonThreadSafeCompiledScriptCache(int cacheSize) {
+        this(cacheSize, new BlockingQueueCompiledScriptPoolFactory());
+    }
+
+    public ConcurrentNonThreadSafeCompiledScriptCache(int cacheSize, CompiledScriptPoolFactory compiledScriptPoolFactory) {
+        super(cacheSize);
+        this.compiledScriptPoolFactory = compiledScriptPoolFactory;
+    }
+
+    public Object get(String name, LocalScriptExecutor executor, Script script) throws ScriptCompilationException {
+        return getOrCreate(name, executor, script).get();
+    }
+
+    public void put(String name, Object compiledScript, LocalScriptExecutor executor) {
+        CompiledScriptPool compiledScriptPool = getIfPresent(name);
+        if (compiledScriptPool != null) {
+            compiledScriptPool.put(compiledScript);
+        } else {
+            // the pool was evicted (and closed) while the script was executed
+            executor.close(compiledScript);
+        }
+    }
+
+    @Override
+    protected CompiledScriptPool create(LocalScriptExecutor executor, Script script) throws ScriptCompilationException {
+        CompiledScriptPool compiledScriptPool = compiledScriptPoolFactory.create();
+        compiledScriptPool.init(executor, script);
+        return compiledScriptPool;
+    }
+
+    @Override
+    protected void close(CompiledScriptPool compiledScriptPool, LocalScriptExecutor executor) {
+        compiledScriptPool.close();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2006-2007 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.remoting.scripting.cache;
+
+import org.openspaces.remoting.scripting.LocalScriptExecutor;
+import org.openspaces.remoting.scripting.Script;
+import org.openspaces.remoting.scripting.ScriptCompilationException;
+
+/**
+ * A concurrent cache for compiled scripts that are thread safe. Thread safe compiled scripts are scripts
+ * that can be executed by several threads at the same time.
+ *
+ * <p>Unlike {@link org.openspaces.remoting.scripting.cache.LRUThreadSafeCompiledScriptCache}, lookups
+ * take no lock, and a script missing from the cache is compiled once, other threads executing it at the
+ * same time wait for the compilation instead of compiling it as well. The compiled script is cached as
+ * soon as it is compiled. See {@link org.openspaces.remoting.scripting.cache.AbstractConcurrentCompiledScriptCache}
+ * for the eviction policy.
+ */
+public class ConcurrentThreadSafeCompiledScriptCache extends AbstractConcurrentCompiledScriptCache<Object> {
+
+    public static final int DEFAULT_CACHE_SIZE = 50;
+
+    public ConcurrentThreadSafeCompiledScriptCache() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    public ConcurrentThreadSafeCompiledScriptCache(int cacheSize) {
+        super(cacheSize);
+    }
+
+    public Object get(String name, LocalScriptExecutor executor, Script script) throws ScriptCompilationException {
+        return getOrCreate(name, executor, script);
+    }
+
+    /**
+     * The compiled script is cached as soon as it is compiled by
+     * {@link #get(String, org.openspaces.remoting.scripting.LocalScriptExecutor, org.openspaces.remoting.scripting.Script)},
+     * so putting it back only marks it as recently used. A compiled script evicted while being executed is
+     * not cached again, it was already closed.
+     */
+    public void put(String name, Object compiledScript, LocalScriptExecutor executor) {
+        getIfPresent(name);
+    }
+
+    @Override
+    protected Object create(LocalScriptExecutor executor, Script script) throws ScriptCompilationException {
+        return executor.compile(script);
+    }
+
+    @Override
+    protected void close(Object compiledScript, LocalScriptExecutor executor) {
+        executor.close(compiledScript);
+    }
+}
@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.itest.jpa;
+
+import com.gigaspaces.annotation.pojo.SpaceId;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * The entity used by {@link JpaLargeResultBenchmark}.
+ */
+@Entity
+public class JpaBenchmarkItem {
+
+    private Long id;
+
+    private String name;
+
+    private Integer value;
+
+    public JpaBenchmarkItem() {
+    }
+
+    public JpaBenchmarkItem(Long id, String name, Integer value) {
+        this.id = id;
+        this.name = name;
+        this.value = value;
+    }
+
+    @Id
+    @SpaceId(autoGenerate = false)
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Integer getValue() {
+        return value;
+    }
+
+    public void setValue(Integer value) {
+        this.value = value;
+    }
+}
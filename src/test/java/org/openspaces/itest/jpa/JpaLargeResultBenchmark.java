@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.itest.jpa;
+
+import org.openspaces.core.GigaSpace;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Measures the latency and the heap consumed by JPA queries returning large results through the
+ * OpenJPA store manager: a full scan iterated with and without a fetch batch size (with a fetch batch
+ * size the results are streamed from a space iterator instead of being read at once), a page from the
+ * middle of the results, an ordered page and an aggregation query.
+ *
+ * <p>Not run as part of the test suite. Usage: <code>JpaLargeResultBenchmark [entries] [fetchBatchSize]</code>
+ */
+public class JpaLargeResultBenchmark {
+
+    private static final int WRITE_BATCH = 10000;
+
+    private static final int SAMPLE_INTERVAL = 1000;
+
+    public static void main(String[] args) throws Exception {
+        int entries = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+        int fetchBatchSize = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("org/openspaces/itest/jpa/jpa-benchmark.xml");
+        try {
+            GigaSpace gigaSpace = context.getBean(GigaSpace.class);
+            EntityManagerFactory emf = context.getBean(EntityManagerFactory.class);
+
+            JpaBenchmarkItem[] batch = new JpaBenchmarkItem[WRITE_BATCH];
+            for (int i = 0; i < entries; i += WRITE_BATCH) {
+                int size = Math.min(WRITE_BATCH, entries - i);
+                if (size != batch.length) {
+                    batch = new JpaBenchmarkItem[size];
+                }
+                for (int j = 0; j < size; j++) {
+                    batch[j] = new JpaBenchmarkItem((long) (i + j), "item" + (i + j), (i + j) % 1000);
+                }
+                gigaSpace.writeMultiple(batch);
+            }
+
+            String scan = "SELECT i FROM JpaBenchmarkItem i WHERE i.value >= 0";
+            // warm up
+            run(emf, "warmup", scan, 0, Integer.MAX_VALUE, fetchBatchSize);
+
+            run(emf, "scan", scan, 0, Integer.MAX_VALUE, -1);
+            run(emf, "scan-streamed", scan, 0, Integer.MAX_VALUE, fetchBatchSize);
+            run(emf, "page", scan, entries / 2, 100, -1);
+            run(emf, "ordered-page", "SELECT i FROM JpaBenchmarkItem i WHERE i.value >= 0 ORDER BY i.value",
+                    entries / 2, 100, -1);
+            run(emf, "aggregate", "SELECT COUNT(i), MAX(i.value), AVG(i.value) FROM JpaBenchmarkItem i WHERE i.value >= 0",
+                    0, Integer.MAX_VALUE, -1);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void run(EntityManagerFactory emf, String name, String jpql, int firstResult, int maxResults,
+                            int fetchBatchSize) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            System.gc();
+            long baseline = usedMemory();
+            long peak = baseline;
+
+            long start = System.nanoTime();
+            Query query = em.createQuery(jpql).setFirstResult(firstResult).setMaxResults(maxResults);
+            if (fetchBatchSize > 0) {
+                query.setHint("openjpa.FetchBatchSize", fetchBatchSize);
+            }
+            List<?> results = query.getResultList();
+            long firstResultNanos = -1;
+            int count = 0;
+            for (Iterator<?> iterator = results.iterator(); iterator.hasNext(); ) {
+                iterator.next();
+                if (count == 0) {
+                    firstResultNanos = System.nanoTime() - start;
+                }
+                if (++count % SAMPLE_INTERVAL == 0) {
+                    peak = Math.max(peak, usedMemory());
+                }
+            }
+            long totalNanos = System.nanoTime() - start;
+            peak = Math.max(peak, usedMemory());
+
+            System.out.println(String.format("%-14s %8d results, first result: %9.1f ms, total: %9.1f ms, peak heap growth: %8.1f MB",
+                    name, count, firstResultNanos / 1000000.0, totalNanos / 1000000.0, (peak - baseline) / (1024.0 * 1024)));
+        } finally {
+            em.close();
+        }
+    }
+
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.itest.jpa;
+
+import com.j_spaces.core.client.SQLQuery;
+import com.j_spaces.jdbc.driver.GConnection;
+import org.apache.openjpa.kernel.Broker;
+import org.apache.openjpa.meta.ClassMetaData;
+import org.apache.openjpa.persistence.JPAFacadeHelper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.jpa.StoreManager;
+import org.openspaces.jpa.openjpa.query.SpaceIteratorResultObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies JPA query ranges are applied by the store manager: pages streamed from a space iterator,
+ * read at once, read within a transaction and read as JDBC projections, and aggregation queries
+ * executed by the space aggregation API.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:/org/openspaces/itest/jpa/jpa-benchmark.xml")
+public class JpaQueryRangeTest {
+
+    private static final int ENTRIES = 50;
+
+    private static final String SCAN = "SELECT i FROM JpaBenchmarkItem i WHERE i.value >= 0";
+
+    @Autowired protected GigaSpace gigaSpace;
+    @Autowired protected EntityManagerFactory entityManagerFactory;
+
+    @Before
+    public void setUp() {
+        gigaSpace.clear(null);
+        JpaBenchmarkItem[] items = new JpaBenchmarkItem[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            items[i] = new JpaBenchmarkItem((long) i, "item" + i, i % 10);
+        }
+        gigaSpace.writeMultiple(items);
+    }
+
+    @Test
+    public void testStreamedPage() {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            Query query = em.createQuery(SCAN).setFirstResult(10).setMaxResults(15);
+            query.setHint("openjpa.FetchBatchSize", 4);
+            Set<Long> ids = new HashSet<Long>();
+            for (Object result : query.getResultList()) {
+                ids.add(((JpaBenchmarkItem) result).getId());
+            }
+            assertEquals(15, ids.size());
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test
+    public void testRangeEnd() {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            assertEquals(5, em.createQuery(SCAN).setFirstResult(45).setMaxResults(10).getResultList().size());
+            assertEquals(0, em.createQuery(SCAN).setFirstResult(60).getResultList().size());
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test
+    public void testOrderedPage() {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            List<?> results = em.createQuery(SCAN + " ORDER BY i.id").setFirstResult(10).setMaxResults(5).getResultList();
+            assertEquals(5, results.size());
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(Long.valueOf(10 + i), ((JpaBenchmarkItem) results.get(i)).getId());
+            }
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test
+    public void testPageWithTransaction() {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            assertEquals(8, em.createQuery(SCAN).setFirstResult(42).setMaxResults(20).getResultList().size());
+            em.getTransaction().commit();
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test
+    public void testStreamedExhaustion() {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            Query query = em.createQuery(SCAN);
+            query.setHint("openjpa.FetchBatchSize", 7);
+            int count = 0;
+            for (Iterator<?> iterator = query.getResultList().iterator(); iterator.hasNext(); ) {
+                iterator.next();
+                count++;
+            }
+            assertEquals(ENTRIES, count);
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test
+    public void testIteratorResultObjectProvider() throws Exception {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            Broker broker = JPAFacadeHelper.toBroker(em);
+            StoreManager store = (StoreManager) broker.getStoreManager().getInnermostDelegate();
+            ClassMetaData cm = broker.getConfiguration().getMetaDataRepositoryInstance().getMetaData(
+                    JpaBenchmarkItem.class, null, true);
+            // 25 matching entries, the range skips 3 of them and stops at the 20th
+            SpaceIteratorResultObjectProvider provider = new SpaceIteratorResultObjectProvider(cm,
+                    new SQLQuery<JpaBenchmarkItem>(JpaBenchmarkItem.class, "value < 5"), store, 3, 20, 4);
+            provider.open();
+            assertEquals(17, count(provider));
+            assertFalse(provider.next());
+            provider.reset();
+            assertEquals(17, count(provider));
+            provider.close();
+            provider.close();
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test
+    public void testAggregation() throws Exception {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            Object[] result = (Object[]) em.createQuery("SELECT COUNT(i), MAX(i.value), MIN(i.value), SUM(i.value), AVG(i.value) "
+                    + "FROM JpaBenchmarkItem i WHERE i.value >= 0").getSingleResult();
+            assertEquals(50, ((Number) result[0]).longValue());
+            assertEquals(9, ((Number) result[1]).intValue());
+            assertEquals(0, ((Number) result[2]).intValue());
+            assertEquals(225, ((Number) result[3]).longValue());
+            assertEquals(4.5, ((Number) result[4]).doubleValue(), 0.0001);
+
+            // the results of the JDBC driver, which executed aggregation queries before
+            Connection connection = GConnection.getInstance(gigaSpace.getSpace());
+            try {
+                Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery("SELECT COUNT(*), MAX(value), MIN(value), SUM(value), AVG(value) FROM "
+                        + JpaBenchmarkItem.class.getName() + " WHERE value >= 0");
+                assertTrue(rs.next());
+                for (int i = 0; i < result.length; i++) {
+                    assertEquals(((Number) rs.getObject(i + 1)).doubleValue(), ((Number) result[i]).doubleValue(), 0.0001);
+                }
+            } finally {
+                connection.close();
+            }
+
+            assertEquals(0, em.createQuery("SELECT COUNT(i) FROM JpaBenchmarkItem i").setFirstResult(1).getResultList().size());
+        } finally {
+            em.close();
+        }
+    }
+
+    @Test
+    public void testProjectionRange() {
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            List<?> results = em.createQuery("SELECT i.id FROM JpaBenchmarkItem i WHERE i.value >= 0 ORDER BY i.id")
+                    .setFirstResult(5).setMaxResults(3).getResultList();
+            assertEquals(3, results.size());
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(5L + i, ((Number) results.get(i)).longValue());
+            }
+            assertEquals(4, em.createQuery("SELECT i.name FROM JpaBenchmarkItem i WHERE i.value >= 0")
+                    .setFirstResult(46).setMaxResults(10).getResultList().size());
+        } finally {
+            em.close();
+        }
+    }
+
+    private static int count(SpaceIteratorResultObjectProvider provider) throws Exception {
+        int count = 0;
+        while (provider.next()) {
+            provider.getResultObject();
+            count++;
+        }
+        return count;
+    }
+}
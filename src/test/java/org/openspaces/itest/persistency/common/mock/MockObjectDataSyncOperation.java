@@ -0,0 +1,97 @@
+/*******************************************************************************
+ *
+ * Copyright (c) 2013 GigaSpaces Technologies Ltd. All rights reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ ******************************************************************************/
+package org.openspaces.itest.persistency.common.mock;
+
+import com.gigaspaces.document.SpaceDocument;
+import com.gigaspaces.metadata.SpaceTypeDescriptor;
+import com.gigaspaces.sync.DataSyncOperation;
+import com.gigaspaces.sync.DataSyncOperationType;
+
+/**
+ * A {@link DataSyncOperation} holding a POJO, with an optional document representation (for partial
+ * updates).
+ */
+public class MockObjectDataSyncOperation implements DataSyncOperation
+{
+    private final SpaceTypeDescriptor typeDescriptor;
+    private final Object object;
+    private final SpaceDocument document;
+    private final Object spaceId;
+    private final DataSyncOperationType operationType;
+
+    public MockObjectDataSyncOperation(SpaceTypeDescriptor typeDescriptor, Object object, Object spaceId,
+            DataSyncOperationType operationType) {
+        this(typeDescriptor, object, null, spaceId, operationType);
+    }
+
+    public MockObjectDataSyncOperation(SpaceTypeDescriptor typeDescriptor, Object object, SpaceDocument document,
+            Object spaceId, DataSyncOperationType operationType) {
+        this.typeDescriptor = typeDescriptor;
+        this.object = object;
+        this.document = document;
+        this.spaceId = spaceId;
+        this.operationType = operationType;
+    }
+
+    public String getUid() {
+        return null;
+    }
+
+    public DataSyncOperationType getDataSyncOperationType() {
+        return operationType;
+    }
+
+    public Object getDataAsObject() {
+        return object;
+    }
+
+    public SpaceDocument getDataAsDocument() {
+        return document;
+    }
+
+    public SpaceTypeDescriptor getTypeDescriptor() {
+        return typeDescriptor;
+    }
+
+    public boolean supportsGetTypeDescriptor() {
+        return true;
+    }
+
+    public boolean supportsDataAsObject() {
+        return object != null;
+    }
+
+    public boolean supportsDataAsDocument() {
+        return document != null;
+    }
+
+    @Override
+    public Object getSpaceId() {
+        return spaceId;
+    }
+
+    @Override
+    public boolean supportsGetSpaceId() {
+        return spaceId != null;
+    }
+
+    @Override
+    public String toString() {
+        return operationType + " " + (object != null ? object : document);
+    }
+}
@@ -0,0 +1,173 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.itest.persistency.hibernate.simple;
+
+import com.gigaspaces.document.SpaceDocument;
+import com.gigaspaces.metadata.SpaceTypeDescriptor;
+import com.gigaspaces.metadata.SpaceTypeDescriptorBuilder;
+import com.gigaspaces.sync.DataSyncOperation;
+import com.gigaspaces.sync.DataSyncOperationType;
+import junit.framework.TestCase;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.openspaces.itest.persistency.common.mock.MockObjectDataSyncOperation;
+import org.openspaces.itest.persistency.common.mock.MockOperationsBatchData;
+import org.openspaces.persistency.hibernate.DefaultHibernateSpaceSynchronizationEndpoint;
+import org.openspaces.persistency.hibernate.DefaultHibernateSpaceSynchronizationEndpointConfigurer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Verifies the batched mode of the {@link DefaultHibernateSpaceSynchronizationEndpoint} keeps the outcome
+ * of the operations of each id.
+ */
+public class BatchedHibernateSynchronizationEndpointTests extends TestCase {
+
+    private static final SpaceTypeDescriptor SIMPLE_TYPE = new SpaceTypeDescriptorBuilder(Simple.class.getName())
+            .idProperty("id").create();
+
+    private SessionFactory sessionFactory;
+
+    private DefaultHibernateSpaceSynchronizationEndpoint endpoint;
+
+    private final List<DataSyncOperation> operations = new ArrayList<DataSyncOperation>();
+
+    protected void setUp() throws Exception {
+        Configuration conf = new Configuration().configure("org/openspaces/itest/persistency/hibernate/simple/hibernate.cfg.xml")
+                .setProperty(Environment.HBM2DDL_AUTO, "create")
+                .setProperty(Environment.STATEMENT_BATCH_SIZE, "3");
+        sessionFactory = conf.buildSessionFactory();
+        endpoint = new DefaultHibernateSpaceSynchronizationEndpointConfigurer()
+                .sessionFactory(sessionFactory)
+                .batchSize(3)
+                .create();
+    }
+
+    protected void tearDown() throws Exception {
+        sessionFactory.close();
+    }
+
+    public void testMixedOperations() {
+        save(new Simple(1, "a"));
+        save(new Simple(2, "a"));
+        save(new Simple(3, "a"));
+        remove(new Simple(2, "a"));
+        save(new Simple(1, "b"));
+        save(new Simple(4, "a"));
+        execute();
+
+        assertValue(1, "b");
+        assertValue(2, null);
+        assertValue(3, "a");
+        assertValue(4, "a");
+    }
+
+    public void testRemoveAndWriteAgain() {
+        save(new Simple(1, "a"));
+        execute();
+
+        remove(new Simple(1, "a"));
+        save(new Simple(1, "b"));
+        remove(new Simple(1, "b"));
+        save(new Simple(1, "c"));
+        execute();
+
+        assertValue(1, "c");
+    }
+
+    public void testPartialUpdateBetweenUpdates() {
+        save(new Simple(1, "a"));
+        save(new Simple(2, "a"));
+        partialUpdate(1, "b");
+        partialUpdate(2, "b");
+        save(new Simple(3, "a"));
+        save(new Simple(2, "c"));
+        execute();
+
+        assertValue(1, "b");
+        assertValue(2, "c");
+        assertValue(3, "a");
+    }
+
+    public void testRepeatedPartialUpdatesOfSameId() {
+        save(new Simple(1, "a"));
+        execute();
+
+        partialUpdate(1, "b");
+        partialUpdate(2, "b");
+        partialUpdate(1, "c");
+        execute();
+
+        assertValue(1, "c");
+        assertValue(2, null);
+    }
+
+    public void testRepeatedUpdatesOfSameId() {
+        for (int i = 0; i < 10; i++) {
+            for (int id = 0; id < 5; id++) {
+                save(new Simple(id, "value" + i));
+            }
+        }
+        execute();
+
+        for (int id = 0; id < 5; id++) {
+            assertValue(id, "value9");
+        }
+    }
+
+    private void save(Simple simple) {
+        operations.add(new MockObjectDataSyncOperation(SIMPLE_TYPE, simple, simple.getId(), DataSyncOperationType.UPDATE));
+    }
+
+    private void remove(Simple simple) {
+        operations.add(new MockObjectDataSyncOperation(SIMPLE_TYPE, simple, simple.getId(), DataSyncOperationType.REMOVE));
+    }
+
+    private void partialUpdate(int id, String value) {
+        SpaceDocument document = new SpaceDocument(Simple.class.getName())
+                .setProperty("id", id)
+                .setProperty("value", value);
+        operations.add(new MockObjectDataSyncOperation(SIMPLE_TYPE, null, document, id, DataSyncOperationType.PARTIAL_UPDATE));
+    }
+
+    private void execute() {
+        endpoint.onOperationsBatchSynchronization(new MockOperationsBatchData(operations));
+        operations.clear();
+    }
+
+    private void assertValue(int id, String expected) {
+        Session session = sessionFactory.openSession();
+        try {
+            Transaction tr = session.beginTransaction();
+            Simple simple = (Simple) session.get(Simple.class, id);
+            tr.commit();
+            if (expected == null) {
+                assertNull(simple);
+            } else {
+                assertNotNull("missing [" + id + "]", simple);
+                assertEquals(expected, simple.getValue());
+            }
+        } finally {
+            session.close();
+        }
+    }
+}
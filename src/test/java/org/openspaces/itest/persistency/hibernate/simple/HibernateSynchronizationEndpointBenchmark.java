@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.itest.persistency.hibernate.simple;
+
+import com.gigaspaces.document.SpaceDocument;
+import com.gigaspaces.metadata.SpaceTypeDescriptor;
+import com.gigaspaces.metadata.SpaceTypeDescriptorBuilder;
+import com.gigaspaces.sync.DataSyncOperation;
+import com.gigaspaces.sync.DataSyncOperationType;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.openspaces.itest.persistency.common.mock.MockObjectDataSyncOperation;
+import org.openspaces.itest.persistency.common.mock.MockOperationsBatchData;
+import org.openspaces.persistency.hibernate.DefaultHibernateSpaceSynchronizationEndpoint;
+import org.openspaces.persistency.hibernate.DefaultHibernateSpaceSynchronizationEndpointConfigurer;
+import org.openspaces.persistency.utils.HsqlServerBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Compares the throughput of the {@link DefaultHibernateSpaceSynchronizationEndpoint} with and without
+ * batching, replaying the same operation batches against an in-memory HSQL database served by a
+ * {@link HsqlServerBean} (so each statement pays a network round trip, as with a real database).
+ *
+ * <p>Each batch writes new entries, updates some of them several times, partially updates and removes
+ * some of them.
+ *
+ * <p>Not run as part of the test suite. Usage:
+ * <code>HibernateSynchronizationEndpointBenchmark [batches] [entriesPerBatch] [jdbcBatchSize]</code>
+ */
+public class HibernateSynchronizationEndpointBenchmark {
+
+    private static final int PORT = 9137;
+
+    private static final SpaceTypeDescriptor SIMPLE_TYPE = new SpaceTypeDescriptorBuilder(Simple.class.getName())
+            .idProperty("id").create();
+
+    public static void main(String[] args) throws Exception {
+        int batches = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int entries = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int jdbcBatchSize = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        Properties serverProperties = new Properties();
+        serverProperties.setProperty("server.port", String.valueOf(PORT));
+        serverProperties.setProperty("server.database.0", "mem:benchmark");
+        serverProperties.setProperty("server.dbname.0", "benchmark");
+        serverProperties.setProperty("server.silent", "true");
+        HsqlServerBean server = new HsqlServerBean();
+        server.setServerProperties(serverProperties);
+        server.afterPropertiesSet();
+        try {
+            SessionFactory sessionFactory = new Configuration()
+                    .configure("org/openspaces/itest/persistency/hibernate/simple/hibernate.cfg.xml")
+                    .setProperty(Environment.URL, "jdbc:hsqldb:hsql://localhost:" + PORT + "/benchmark")
+                    .setProperty(Environment.SHOW_SQL, "false")
+                    .setProperty(Environment.HBM2DDL_AUTO, "create")
+                    .setProperty(Environment.STATEMENT_BATCH_SIZE, String.valueOf(jdbcBatchSize))
+                    .buildSessionFactory();
+            try {
+                DefaultHibernateSpaceSynchronizationEndpoint plain = new DefaultHibernateSpaceSynchronizationEndpointConfigurer()
+                        .sessionFactory(sessionFactory).create();
+                DefaultHibernateSpaceSynchronizationEndpoint batched = new DefaultHibernateSpaceSynchronizationEndpointConfigurer()
+                        .sessionFactory(sessionFactory).batchSize(jdbcBatchSize).create();
+
+                // warm up both modes
+                run(plain, batches / 10, entries, 0);
+                run(batched, batches / 10, entries, batches);
+
+                report("plain", batches, entries, run(plain, batches, entries, 2 * batches));
+                report("batched", batches, entries, run(batched, batches, entries, 3 * batches));
+            } finally {
+                sessionFactory.close();
+            }
+        } finally {
+            server.destroy();
+        }
+    }
+
+    private static long run(DefaultHibernateSpaceSynchronizationEndpoint endpoint, int batches, int entries, int firstBatch) {
+        long start = System.nanoTime();
+        for (int b = firstBatch; b < firstBatch + batches; b++) {
+            endpoint.onOperationsBatchSynchronization(new MockOperationsBatchData(createBatch(b, entries)));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static List<DataSyncOperation> createBatch(int batch, int entries) {
+        List<DataSyncOperation> operations = new ArrayList<DataSyncOperation>();
+        int firstId = batch * entries;
+        for (int i = 0; i < entries; i++) {
+            operations.add(save(new Simple(firstId + i, "written"), DataSyncOperationType.WRITE));
+        }
+        // every fifth entry is updated three times
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < entries; i += 5) {
+                operations.add(save(new Simple(firstId + i, "updated" + round), DataSyncOperationType.UPDATE));
+            }
+        }
+        for (int i = 1; i < entries; i += 5) {
+            SpaceDocument document = new SpaceDocument(Simple.class.getName())
+                    .setProperty("id", firstId + i)
+                    .setProperty("value", "partial");
+            operations.add(new MockObjectDataSyncOperation(SIMPLE_TYPE, null, document, firstId + i,
+                    DataSyncOperationType.PARTIAL_UPDATE));
+        }
+        for (int i = 2; i < entries; i += 5) {
+            operations.add(save(new Simple(firstId + i, "written"), DataSyncOperationType.REMOVE));
+        }
+        return operations;
+    }
+
+    private static DataSyncOperation save(Simple simple, DataSyncOperationType operationType) {
+        return new MockObjectDataSyncOperation(SIMPLE_TYPE, simple, simple.getId(), operationType);
+    }
+
+    private static void report(String name, int batches, int entries, long nanos) {
+        double millis = nanos / 1000000.0;
+        System.out.println(String.format("%-8s %6d batches, %6d entries each: %10.1f ms, %8.1f batches/sec",
+                name, batches, entries, millis, batches / (millis / 1000)));
+    }
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.itest.persistency.hibernate.simple;
+
+import com.gigaspaces.datasource.DataIterator;
+import com.j_spaces.core.client.SQLQuery;
+import junit.framework.TestCase;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.cfg.Environment;
+import org.openspaces.persistency.hibernate.iterator.AbstractChunkDataIterator;
+import org.openspaces.persistency.hibernate.iterator.DefaultChunkListDataIterator;
+import org.openspaces.persistency.hibernate.iterator.DefaultChunkScrollableDataIterator;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Verifies chunk iterators over an entity with an integral id iterate over id ranges, and load every
+ * matching row exactly once.
+ */
+public class IdRangeChunkDataIteratorTests extends TestCase {
+
+    private SessionFactory sessionFactory;
+
+    protected void setUp() throws Exception {
+        Configuration conf = new Configuration().configure("org/openspaces/itest/persistency/hibernate/simple/hibernate.cfg.xml")
+                .setProperty(Environment.HBM2DDL_AUTO, "create");
+        sessionFactory = conf.buildSessionFactory();
+        Session session = sessionFactory.openSession();
+        Transaction tr = session.beginTransaction();
+        for (int id = 1; id <= 20; id++) {
+            session.save(new Simple(id, id % 2 == 0 ? "even" : "odd"));
+        }
+        tr.commit();
+        session.close();
+    }
+
+    protected void tearDown() throws Exception {
+        sessionFactory.close();
+    }
+
+    public void testEntityChunks() {
+        AbstractChunkDataIterator iterator = new DefaultChunkScrollableDataIterator(Simple.class.getName(), sessionFactory, 10, true, 6);
+        assertEquals(4, iterator.iterators().length);
+        assertLoaded(iterator, 1, 20, null);
+    }
+
+    public void testSQLQueryChunks() {
+        SQLQuery<Simple> sqlQuery = new SQLQuery<Simple>(Simple.class, "value = ?");
+        sqlQuery.setParameter(1, "even");
+        AbstractChunkDataIterator iterator = new DefaultChunkListDataIterator(sqlQuery, sessionFactory, 10, true, 4);
+        // 10 matching rows with ids 2..20, so 3 ranges of 7 ids each
+        assertEquals(3, iterator.iterators().length);
+        assertLoaded(iterator, 1, 20, "even");
+    }
+
+    public void testNoMatchingRows() {
+        SQLQuery<Simple> sqlQuery = new SQLQuery<Simple>(Simple.class, "value = ?");
+        sqlQuery.setParameter(1, "none");
+        AbstractChunkDataIterator iterator = new DefaultChunkListDataIterator(sqlQuery, sessionFactory, 10, true, 4);
+        assertEquals(0, iterator.iterators().length);
+    }
+
+    private void assertLoaded(AbstractChunkDataIterator chunkIterator, int firstId, int lastId, String value) {
+        Set<Integer> loaded = new HashSet<Integer>();
+        for (DataIterator iterator : chunkIterator.iterators()) {
+            try {
+                while (iterator.hasNext()) {
+                    Simple simple = (Simple) iterator.next();
+                    assertTrue("loaded twice [" + simple.getId() + "]", loaded.add(simple.getId()));
+                }
+            } finally {
+                iterator.close();
+            }
+        }
+        for (int id = firstId; id <= lastId; id++) {
+            boolean expected = value == null || value.equals(id % 2 == 0 ? "even" : "odd");
+            assertEquals("id [" + id + "]", expected, loaded.contains(id));
+        }
+    }
+}
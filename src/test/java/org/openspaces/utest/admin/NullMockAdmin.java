@@ -39,6 +39,7 @@ import org.openspaces.admin.gateway.Gateways;
 import org.openspaces.admin.gsa.GridServiceAgents;
 import org.openspaces.admin.gsc.GridServiceContainers;
 import org.openspaces.admin.gsm.GridServiceManagers;
+import org.openspaces.admin.internal.admin.HostStatisticsCollector;
 import org.openspaces.admin.internal.admin.InternalAdmin;
 import org.openspaces.admin.internal.esm.InternalElasticServiceManager;
 import org.openspaces.admin.internal.gsa.InternalGridServiceAgent;
@@ -314,6 +315,10 @@ public class NullMockAdmin implements InternalAdmin {
         // TODO Auto-generated method stub
         return null;
     }
+
+    public HostStatisticsCollector getStatisticsCollector() {
+        return null;
+    }
         
     @Override
     public void login(SecuredService service) throws SecurityException, RemoteException {
@@ -0,0 +1,124 @@
+/*******************************************************************************
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.openspaces.utest.admin.internal.admin;
+
+import org.openspaces.admin.internal.admin.AdminEventBus;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Simulates thousands of grid components (each being an event listener) emitting statistics events from
+ * several threads, the way the statistics monitors of a large grid do, and compares the previous dispatching
+ * (a global monitor around a submit per event to the shard executor) with {@link AdminEventBus}.
+ *
+ * <p>Not run as part of the test suite. Usage:
+ * <code>AdminEventBusBenchmark [threads] [components] [eventsPerComponent]</code>
+ */
+public class AdminEventBusBenchmark {
+
+    private static final int SHARDS = 10;
+
+    interface Dispatcher {
+        void raise(Object listener, Runnable notifier);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int components = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int eventsPerComponent = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        // warm up
+        run("monitor", newMonitorDispatcher(), threads, components, eventsPerComponent / 10, null);
+        run("bus", null, threads, components, eventsPerComponent / 10, new AdminEventBus(newExecutors()));
+
+        run("monitor", newMonitorDispatcher(), threads, components, eventsPerComponent, null);
+        AdminEventBus bus = new AdminEventBus(newExecutors());
+        run("bus", null, threads, components, eventsPerComponent, bus);
+        System.out.println("bus dispatch latency (micros): " + bus.getDispatchLatency());
+        System.exit(0);
+    }
+
+    private static void run(String name, Dispatcher dispatcher, int threads, final int components, final int eventsPerComponent,
+            final AdminEventBus bus) throws InterruptedException {
+        final Dispatcher target = dispatcher != null ? dispatcher : new Dispatcher() {
+            public void raise(Object listener, Runnable notifier) {
+                bus.raise(listener, notifier);
+            }
+        };
+        final Object[] listeners = new Object[components];
+        for (int i = 0; i < components; i++) {
+            listeners[i] = new Object();
+        }
+        final long totalEvents = (long) components * eventsPerComponent;
+        final AtomicLong received = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch(1);
+        final Runnable notifier = new Runnable() {
+            public void run() {
+                if (received.incrementAndGet() == totalEvents) {
+                    done.countDown();
+                }
+            }
+        };
+        final int componentsPerThread = (components + threads - 1) / threads;
+        Thread[] producers = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            final int from = t * componentsPerThread;
+            final int to = Math.min(components, from + componentsPerThread);
+            producers[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int e = 0; e < eventsPerComponent; e++) {
+                        for (int c = from; c < to; c++) {
+                            target.raise(listeners[c], notifier);
+                        }
+                    }
+                }
+            };
+            producers[t].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        long produced = System.nanoTime() - start;
+        done.await(10, TimeUnit.MINUTES);
+        long delivered = System.nanoTime() - start;
+        System.out.println(name + ": " + totalEvents + " events, " + threads + " threads, raised in "
+                + TimeUnit.NANOSECONDS.toMillis(produced) + "ms, delivered in " + TimeUnit.NANOSECONDS.toMillis(delivered)
+                + "ms (" + (long) (totalEvents / (delivered / 1e9)) + " events/sec)");
+    }
+
+    private static ExecutorService[] newExecutors() {
+        ExecutorService[] executors = new ExecutorService[SHARDS];
+        for (int i = 0; i < SHARDS; i++) {
+            executors[i] = Executors.newSingleThreadExecutor();
+        }
+        return executors;
+    }
+
+    private static Dispatcher newMonitorDispatcher() {
+        final ExecutorService[] executors = newExecutors();
+        return new Dispatcher() {
+            public synchronized void raise(Object listener, Runnable notifier) {
+                executors[Math.abs(listener.hashCode() % executors.length)].submit(notifier);
+            }
+        };
+    }
+}
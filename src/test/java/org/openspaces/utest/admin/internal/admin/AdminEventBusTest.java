@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.openspaces.utest.admin.internal.admin;
+
+import junit.framework.TestCase;
+import org.openspaces.admin.internal.admin.AdminEventBus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class AdminEventBusTest extends TestCase {
+
+    private ExecutorService[] executors;
+
+    @Override
+    protected void setUp() throws Exception {
+        executors = new ExecutorService[4];
+        for (int i = 0; i < executors.length; i++) {
+            executors[i] = Executors.newSingleThreadExecutor();
+        }
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (ExecutorService executor : executors) {
+            executor.shutdownNow();
+        }
+    }
+
+    public void testStagedEventsAreDispatchedOnFlush() throws Exception {
+        AdminEventBus bus = new AdminEventBus(executors);
+        List<String> events = Collections.synchronizedList(new ArrayList<String>());
+        Object listener = new Object();
+        bus.stage(listener, new Add(events, "staged1"));
+        bus.stage(listener, new Add(events, "staged2"));
+        bus.stageFirst(listener, new Add(events, "first1"));
+        bus.stageFirst(listener, new Add(events, "first2"));
+        bus.stageCorrelated(listener, new Add(events, "correlated"));
+        assertEquals(5, bus.getQueueDepth());
+
+        bus.flush();
+        awaitDispatched(bus, listener);
+        assertEquals(4, events.size());
+        // same order as LinkedList.addFirst/add
+        assertEquals("first2", events.get(0));
+        assertEquals("first1", events.get(1));
+        assertEquals("staged1", events.get(2));
+        assertEquals("staged2", events.get(3));
+
+        bus.flushCorrelated();
+        awaitDispatched(bus, listener);
+        assertEquals(5, events.size());
+        assertEquals("correlated", events.get(4));
+        assertEquals(0, bus.getQueueDepth());
+        // including the two markers
+        assertEquals(7, bus.getDispatchedEvents());
+        assertEquals(7, bus.getDispatchLatency().getCount());
+    }
+
+    public void testConcurrentEventsKeepTheOrderOfEachListener() throws Exception {
+        final AdminEventBus bus = new AdminEventBus(executors);
+        int producers = 8;
+        final int eventsPerProducer = 5000;
+        final List<List<Integer>> received = new ArrayList<List<Integer>>();
+        final List<Object> listeners = new ArrayList<Object>();
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            final List<Integer> listenerEvents = new ArrayList<Integer>();
+            final Object listener = new Object();
+            received.add(listenerEvents);
+            listeners.add(listener);
+            threads[p] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < eventsPerProducer; i++) {
+                        final int value = i;
+                        Runnable notifier = new Runnable() {
+                            public void run() {
+                                // executed by a single thread per listener, no need to synchronize
+                                listenerEvents.add(value);
+                            }
+                        };
+                        if (i % 2 == 0) {
+                            bus.raise(listener, notifier);
+                        } else {
+                            bus.stage(listener, notifier);
+                            bus.flush();
+                        }
+                    }
+                }
+            };
+            threads[p].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (Object listener : listeners) {
+            awaitDispatched(bus, listener);
+        }
+
+        assertEquals(0, bus.getQueueDepth());
+        for (List<Integer> listenerEvents : received) {
+            assertEquals(eventsPerProducer, listenerEvents.size());
+            for (int i = 0; i < eventsPerProducer; i++) {
+                assertEquals(i, listenerEvents.get(i).intValue());
+            }
+        }
+    }
+
+    public void testEventsAreDroppedOnceClosed() throws Exception {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        AdminEventBus bus = new AdminEventBus(new Executor[]{new Executor() {
+            public void execute(Runnable command) {
+                // never executes, the events stay pending
+                blocked.countDown();
+            }
+        }});
+        List<String> events = new ArrayList<String>();
+        Object listener = new Object();
+        bus.raise(listener, new Add(events, "raised"));
+        bus.stage(listener, new Add(events, "staged"));
+        assertTrue(blocked.await(1, TimeUnit.SECONDS));
+
+        bus.close();
+        bus.raise(listener, new Add(events, "afterClose"));
+        assertEquals(3, bus.getDroppedEvents());
+        assertEquals(0, bus.getQueueDepth());
+        assertTrue(events.isEmpty());
+    }
+
+    private void awaitDispatched(AdminEventBus bus, Object listener) throws InterruptedException {
+        // the marker is dispatched after all the events of the listener
+        CountDownLatch latch = new CountDownLatch(1);
+        bus.raise(listener, new CountDown(latch));
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+    }
+
+    private static class Add implements Runnable {
+
+        private final List<String> events;
+
+        private final String event;
+
+        Add(List<String> events, String event) {
+            this.events = events;
+            this.event = event;
+        }
+
+        public void run() {
+            events.add(event);
+        }
+    }
+
+    private static class CountDown implements Runnable {
+
+        private final CountDownLatch latch;
+
+        CountDown(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        public void run() {
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.openspaces.utest.admin.internal.admin;
+
+import junit.framework.TestCase;
+import org.openspaces.admin.internal.admin.HostStatisticsCollector;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HostStatisticsCollectorTest extends TestCase {
+
+    private ScheduledExecutorService scheduler;
+
+    private ExecutorService executor;
+
+    @Override
+    protected void setUp() throws Exception {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    public void testSourcesOfHostArePublishedTogether() throws Exception {
+        HostStatisticsCollector collector = new HostStatisticsCollector(scheduler, executor, 10, 10000);
+        final CountDownLatch secondFetched = new CountDownLatch(1);
+        final AtomicInteger publishedBeforeSecondFetch = new AtomicInteger();
+        RecordingSource first = new RecordingSource("vm") {
+            @Override
+            public void publish(String sample) {
+                if (secondFetched.getCount() > 0) {
+                    publishedBeforeSecondFetch.incrementAndGet();
+                }
+                super.publish(sample);
+            }
+        };
+        RecordingSource second = new RecordingSource("space") {
+            @Override
+            public String fetch() throws Exception {
+                secondFetched.countDown();
+                return super.fetch();
+            }
+        };
+        collector.register("host1", first);
+        collector.register("host1", second);
+        collector.register("host2", new RecordingSource("transport"));
+        assertEquals(2, collector.getHostCount());
+
+        collector.start();
+        assertEquals("vm", first.published.poll(5, TimeUnit.SECONDS));
+        assertEquals("space", second.published.poll(5, TimeUnit.SECONDS));
+        collector.stop();
+        assertEquals(0, publishedBeforeSecondFetch.get());
+    }
+
+    public void testSlowHostTimesOutWithoutDelayingOtherHosts() throws Exception {
+        HostStatisticsCollector collector = new HostStatisticsCollector(scheduler, executor, 10, 100);
+        final CountDownLatch release = new CountDownLatch(1);
+        RecordingSource slow = new RecordingSource("slow") {
+            @Override
+            public String fetch() throws Exception {
+                String fetched = super.fetch();
+                release.await();
+                return fetched;
+            }
+        };
+        RecordingSource fast = new RecordingSource("fast");
+        collector.register("slowHost", slow);
+        collector.register("fastHost", fast);
+        collector.start();
+        try {
+            // the fast host keeps being collected while the slow host is stuck
+            for (int i = 0; i < 3; i++) {
+                assertEquals("fast", fast.published.poll(5, TimeUnit.SECONDS));
+            }
+            assertEquals(RecordingSource.NOT_AVAILABLE, slow.published.poll(5, TimeUnit.SECONDS));
+            assertEquals(1, collector.getTimeoutCount());
+            // a single fetch in flight for the stuck host, and a single not available publication
+            assertEquals(1, slow.fetches.get());
+        } finally {
+            release.countDown();
+        }
+        assertEquals("slow", slow.published.poll(5, TimeUnit.SECONDS));
+        collector.stop();
+    }
+
+    public void testCancelledRegistrationIsNotCollected() throws Exception {
+        HostStatisticsCollector collector = new HostStatisticsCollector(scheduler, executor, 10, 10000);
+        RecordingSource source = new RecordingSource("vm");
+        Future<?> registration = collector.register("host", source);
+        collector.start();
+        assertEquals("vm", source.published.poll(5, TimeUnit.SECONDS));
+
+        assertTrue(registration.cancel(false));
+        assertTrue(registration.isCancelled());
+        assertEquals(0, collector.getHostCount());
+        long collections = collector.getCollectionCount();
+        Thread.sleep(100);
+        source.published.clear();
+        Thread.sleep(100);
+        assertTrue(source.published.isEmpty());
+        assertTrue(collector.getCollectionCount() <= collections + 1);
+        collector.stop();
+    }
+
+    private static class RecordingSource implements HostStatisticsCollector.StatisticsSource<String> {
+
+        static final String NOT_AVAILABLE = "NA";
+
+        final String sample;
+
+        final AtomicInteger fetches = new AtomicInteger();
+
+        final BlockingQueue<String> published = new LinkedBlockingQueue<String>();
+
+        RecordingSource(String sample) {
+            this.sample = sample;
+        }
+
+        public String fetch() throws Exception {
+            fetches.incrementAndGet();
+            return sample;
+        }
+
+        public void publish(String sample) {
+            published.add(sample != null ? sample : NOT_AVAILABLE);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.admin.internal.gsm;
+
+import com.gigaspaces.grid.gsm.PUDetails;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.openspaces.admin.internal.gsm.InternalGridServiceManager;
+import org.openspaces.admin.internal.gsm.PUsDetailsSynchronizer;
+import org.openspaces.admin.internal.gsm.PUsDetailsTracker;
+import org.openspaces.admin.pu.ProcessingUnit;
+import org.openspaces.admin.pu.ProcessingUnitType;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.openspaces.utest.admin.internal.gsm.PUsDetailsTrackerTest.puDetails;
+
+/**
+ * Unit Tests for {@link PUsDetailsSynchronizer}
+ * @since 11.0
+ */
+public class PUsDetailsSynchronizerTest extends TestCase {
+
+    @Test
+    public void testChangedProcessingUnits() throws Exception {
+        PUsDetailsSynchronizer synchronizer = new PUsDetailsSynchronizer();
+        MockGsm gsm = new MockGsm("gsm1", puDetails("a", 2, 1), puDetails("b", 1, 0));
+
+        synchronizer.update(gsm.proxy, false);
+        assertEquals(names("a", "b"), synchronizer.endRun());
+        assertEquals(names("a", "b"), synchronizer.getPUsDetails("gsm1").keySet());
+
+        synchronizer.update(gsm.proxy, false);
+        assertEquals(names(), synchronizer.endRun());
+
+        gsm.details = new PUDetails[]{puDetails("b", 4, 0), puDetails("c", 1, 0)};
+        synchronizer.update(gsm.proxy, false);
+        assertEquals(names("a", "b", "c"), synchronizer.endRun());
+        assertEquals(names("b", "c"), synchronizer.getPUsDetails("gsm1").keySet());
+        assertEquals(4, synchronizer.getPUsDetails("gsm1").get("b").getNumberOfInstances());
+        assertEquals(gsm.cursors.get(1).longValue() + 1, gsm.cursors.get(2).longValue());
+    }
+
+    @Test
+    public void testFullSync() throws Exception {
+        PUsDetailsSynchronizer synchronizer = new PUsDetailsSynchronizer();
+        MockGsm gsm = new MockGsm("gsm1", puDetails("a", 2, 1), puDetails("b", 1, 0));
+        synchronizer.update(gsm.proxy, false);
+        synchronizer.endRun();
+
+        gsm.details = new PUDetails[]{puDetails("b", 1, 0)};
+        synchronizer.update(gsm.proxy, true);
+        assertEquals(Long.valueOf(0), gsm.cursors.get(1));
+        // the processing units which were removed are known from the details kept before the full sync
+        assertEquals(names("a", "b"), synchronizer.endRun());
+        assertEquals(names("b"), synchronizer.getPUsDetails("gsm1").keySet());
+    }
+
+    @Test
+    public void testFailedGsmDropsDetails() throws Exception {
+        PUsDetailsSynchronizer synchronizer = new PUsDetailsSynchronizer();
+        MockGsm gsm1 = new MockGsm("gsm1", puDetails("a", 2, 1));
+        MockGsm gsm2 = new MockGsm("gsm2", puDetails("a", 2, 1), puDetails("b", 1, 0));
+        synchronizer.update(gsm1.proxy, false);
+        synchronizer.update(gsm2.proxy, false);
+        assertEquals(names("a", "b"), synchronizer.endRun());
+
+        gsm2.failing = true;
+        synchronizer.update(gsm1.proxy, false);
+        try {
+            synchronizer.update(gsm2.proxy, false);
+            fail("the failure of the grid service manager should be thrown");
+        } catch (RemoteException e) {
+            // expected
+        }
+        assertEquals(names("a", "b"), synchronizer.endRun());
+        assertTrue(synchronizer.getPUsDetails("gsm2").isEmpty());
+        assertEquals(names("a"), synchronizer.getPUsDetails("gsm1").keySet());
+
+        // nothing changes while it keeps failing
+        synchronizer.update(gsm1.proxy, false);
+        try {
+            synchronizer.update(gsm2.proxy, false);
+            fail("the failure of the grid service manager should be thrown");
+        } catch (RemoteException e) {
+            // expected
+        }
+        assertEquals(names(), synchronizer.endRun());
+
+        gsm2.failing = false;
+        synchronizer.update(gsm1.proxy, false);
+        synchronizer.update(gsm2.proxy, false);
+        // the next call after the failure starts with a full sync
+        assertEquals(Long.valueOf(0), gsm2.cursors.get(gsm2.cursors.size() - 1));
+        assertEquals(names("a", "b"), synchronizer.endRun());
+        assertEquals(names("a", "b"), synchronizer.getPUsDetails("gsm2").keySet());
+
+        // grid service managers which are gone drop their details as well
+        assertEquals(names("a", "b"), synchronizer.endRun());
+        assertTrue(synchronizer.getPUsDetails("gsm1").isEmpty());
+        assertTrue(synchronizer.getPUsDetails("gsm2").isEmpty());
+    }
+
+    @Test
+    public void testIsUpdateRequired() {
+        ProcessingUnit stateless = mock(ProcessingUnit.class);
+        when(stateless.getType()).thenReturn(ProcessingUnitType.STATELESS);
+        ProcessingUnit universal = mock(ProcessingUnit.class);
+        when(universal.getType()).thenReturn(ProcessingUnitType.UNIVERSAL);
+
+        // unchanged processing units which are already known are skipped
+        assertFalse(PUsDetailsSynchronizer.isUpdateRequired(stateless, false));
+        assertTrue(PUsDetailsSynchronizer.isUpdateRequired(stateless, true));
+        // processing units which were not added yet are retried
+        assertTrue(PUsDetailsSynchronizer.isUpdateRequired(null, false));
+        // the status of USM processing units depends on their statistics
+        assertTrue(PUsDetailsSynchronizer.isUpdateRequired(universal, false));
+    }
+
+    private static Set<String> names(String... names) {
+        return new HashSet<String>(Arrays.asList(names));
+    }
+
+    /**
+     * A grid service manager proxy computing its deltas with a {@link PUsDetailsTracker}, as the admin does.
+     */
+    private static class MockGsm {
+
+        final InternalGridServiceManager proxy = mock(InternalGridServiceManager.class);
+
+        final PUsDetailsTracker tracker = new PUsDetailsTracker();
+
+        final List<Long> cursors = Collections.synchronizedList(new ArrayList<Long>());
+
+        volatile PUDetails[] details;
+
+        volatile boolean failing;
+
+        MockGsm(String uid, PUDetails... details) throws RemoteException {
+            this.details = details;
+            when(proxy.getUid()).thenReturn(uid);
+            when(proxy.getPUsDetails(anyLong())).thenAnswer(new Answer<PUsDetailsTracker.Delta>() {
+                public PUsDetailsTracker.Delta answer(InvocationOnMock invocation) throws Throwable {
+                    long cursor = (Long) invocation.getArguments()[0];
+                    cursors.add(cursor);
+                    if (failing) {
+                        throw new RemoteException("failed");
+                    }
+                    return tracker.delta(MockGsm.this.details, cursor);
+                }
+            });
+        }
+    }
+}
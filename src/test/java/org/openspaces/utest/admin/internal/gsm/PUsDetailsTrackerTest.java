@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.admin.internal.gsm;
+
+import com.gigaspaces.grid.gsm.PUDetails;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.openspaces.admin.internal.gsm.PUsDetailsTracker;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit Tests for {@link PUsDetailsTracker}
+ * @since 11.0
+ */
+public class PUsDetailsTrackerTest extends TestCase {
+
+    @Test
+    public void testFirstCallIsFullSync() {
+        PUsDetailsTracker tracker = new PUsDetailsTracker();
+        PUDetails[] details = {puDetails("a", 2, 1), puDetails("b", 1, 0)};
+        PUsDetailsTracker.Delta delta = tracker.delta(details, 0);
+        assertTrue(delta.isFullSync());
+        assertEquals(names("a", "b"), names(delta.getChanged()));
+        assertEquals(0, delta.getRemoved().length);
+    }
+
+    @Test
+    public void testWrongCursorIsFullSync() {
+        PUsDetailsTracker tracker = new PUsDetailsTracker();
+        PUDetails[] details = {puDetails("a", 2, 1), puDetails("b", 1, 0)};
+        long cursor = tracker.delta(details, 0).getNextCursor();
+
+        PUsDetailsTracker.Delta delta = tracker.delta(details, cursor + 1);
+        assertTrue(delta.isFullSync());
+        assertEquals(names("a", "b"), names(delta.getChanged()));
+
+        // the response of the call with the last cursor was lost, so its cursor is used again
+        cursor = delta.getNextCursor();
+        tracker.delta(details, cursor);
+        delta = tracker.delta(details, cursor);
+        assertTrue(delta.isFullSync());
+        assertEquals(names("a", "b"), names(delta.getChanged()));
+
+        // a cursor of another grid service manager
+        PUsDetailsTracker otherTracker = new PUsDetailsTracker();
+        long otherCursor = otherTracker.delta(details, 0).getNextCursor();
+        assertTrue(tracker.delta(details, otherCursor).isFullSync());
+    }
+
+    @Test
+    public void testDeltas() {
+        PUsDetailsTracker tracker = new PUsDetailsTracker();
+        PUDetails a = puDetails("a", 2, 1);
+        PUDetails b = puDetails("b", 1, 0);
+        PUDetails c = puDetails("c", 1, 1);
+        long cursor = tracker.delta(new PUDetails[]{a, b, c}, 0).getNextCursor();
+
+        PUsDetailsTracker.Delta delta = tracker.delta(new PUDetails[]{a, b, c}, cursor);
+        assertFalse(delta.isFullSync());
+        assertEquals(0, delta.getChanged().length);
+        assertEquals(0, delta.getRemoved().length);
+
+        // b scaled out, c removed and d added
+        PUDetails d = puDetails("d", 1, 0);
+        delta = tracker.delta(new PUDetails[]{a, puDetails("b", 3, 0), d}, delta.getNextCursor());
+        assertFalse(delta.isFullSync());
+        assertEquals(names("b", "d"), names(delta.getChanged()));
+        assertEquals(names("c"), new HashSet<String>(Arrays.asList(delta.getRemoved())));
+    }
+
+    @Test
+    public void testDetailsAreComparedWithEquals() {
+        PUsDetailsTracker tracker = new PUsDetailsTracker();
+        PUDetails a = puDetails("a", 2, 1);
+        PUDetails b = puDetails("b", 1, 0);
+        long cursor = tracker.delta(new PUDetails[]{a, b}, 0).getNextCursor();
+
+        // details which are not equal are changed, even if the instances, backups, status and managing
+        // status are the same (for example, their bean level properties changed)
+        PUsDetailsTracker.Delta delta = tracker.delta(new PUDetails[]{a, puDetails("b", 1, 0)}, cursor);
+        assertEquals(names("b"), names(delta.getChanged()));
+        assertEquals(0, delta.getRemoved().length);
+    }
+
+    static PUDetails puDetails(String name, int numberOfInstances, int numberOfBackups) {
+        PUDetails details = mock(PUDetails.class);
+        when(details.getName()).thenReturn(name);
+        when(details.isManaging()).thenReturn(true);
+        when(details.getNumberOfInstances()).thenReturn(numberOfInstances);
+        when(details.getNumberOfBackups()).thenReturn(numberOfBackups);
+        return details;
+    }
+
+    private static Set<String> names(String... names) {
+        return new HashSet<String>(Arrays.asList(names));
+    }
+
+    private static Set<String> names(PUDetails[] details) {
+        Set<String> names = new HashSet<String>();
+        for (PUDetails detail : details) {
+            names.add(detail.getName());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.admin.internal.os;
+
+import com.gigaspaces.internal.os.OSStatistics;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.openspaces.admin.internal.os.DefaultOperatingSystemStatistics;
+import org.openspaces.admin.internal.support.StatisticsHistory;
+import org.openspaces.admin.os.OperatingSystemStatistics;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit Tests for {@link DefaultOperatingSystemStatistics}
+ * @since 11.0
+ */
+public class DefaultOperatingSystemStatisticsTest extends TestCase {
+
+    private static final int HISTORY_SIZE = 3;
+
+    private StatisticsHistory history;
+
+    private OperatingSystemStatistics previous;
+
+    @Override
+    protected void setUp() throws Exception {
+        history = null;
+        previous = null;
+    }
+
+    @Test
+    public void testPreviousAfterEviction() {
+        OperatingSystemStatistics[] stats = new OperatingSystemStatistics[10];
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = collect(osStatistics(i, "eth0"));
+        }
+        int last = stats.length - 1;
+
+        // the current statistics and up to historySize + 1 previous ones are kept
+        OperatingSystemStatistics current = stats[last];
+        for (int i = last - 1; i >= last - HISTORY_SIZE - 1; i--) {
+            current = current.getPrevious();
+            assertNotNull(current);
+            assertFalse(current.isNA());
+            assertEquals(i * 1000L, current.getTimestamp());
+            assertEquals(i * 100L, current.getFreePhysicalMemorySizeInBytes());
+            assertEquals(i / 10.0, current.getCpuPerc());
+            assertEquals(i * 2000L, current.getNetworkStats().get("eth0").getRxBytes());
+            assertEquals(i * 3000L, current.getNetworkStats().get("eth0").getTxBytes());
+            if (i > last - HISTORY_SIZE - 1) {
+                // the network statistics chain along with their operating system statistics
+                assertEquals((i - 1) * 2000L, current.getNetworkStats().get("eth0").getPrevious().getRxBytes());
+            }
+        }
+        assertNull(current.getPrevious());
+        assertNull(current.getNetworkStats().get("eth0").getPrevious());
+        assertEquals(HISTORY_SIZE + 2, stats[last].getTimeline().size());
+        assertNull(stats[last - HISTORY_SIZE - 1].getPrevious());
+    }
+
+    @Test
+    public void testPerSecondAfterNA() {
+        OperatingSystemStatistics first = collect(osStatistics(0, "eth0"));
+        assertEquals(-1.0, first.getNetworkStats().get("eth0").getRxBytesPerSecond());
+        OperatingSystemStatistics second = collect(osStatistics(1, "eth0"));
+        assertEquals(2000.0, second.getNetworkStats().get("eth0").getRxBytesPerSecond());
+        assertEquals(3000.0, second.getNetworkStats().get("eth0").getTxBytesPerSecond());
+
+        OSStatistics naStats = mock(OSStatistics.class);
+        when(naStats.isNA()).thenReturn(true);
+        when(naStats.getTimestamp()).thenReturn(-1L);
+        OperatingSystemStatistics na = collect(naStats);
+        assertTrue(na.isNA());
+
+        // the rates are not computed against the statistics before the unavailable ones
+        OperatingSystemStatistics afterNA = collect(osStatistics(5, "eth0"));
+        assertNull(afterNA.getPrevious());
+        assertEquals(-1.0, afterNA.getNetworkStats().get("eth0").getRxBytesPerSecond());
+        assertEquals(-1.0, afterNA.getNetworkStats().get("eth0").getTxPacketsPerSecond());
+
+        OperatingSystemStatistics next = collect(osStatistics(7, "eth0"));
+        assertEquals(5000L, next.getPrevious().getTimestamp());
+        assertNull(next.getPrevious().getPrevious());
+        assertEquals(2000.0, next.getNetworkStats().get("eth0").getRxBytesPerSecond());
+        assertEquals(2.0, next.getNetworkStats().get("eth0").getRxPacketsPerSecond());
+    }
+
+    @Test
+    public void testNetworkInterfacesChange() {
+        collect(osStatistics(0, "eth0"));
+        StatisticsHistory eth0History = history;
+        OperatingSystemStatistics stats = collect(osStatistics(1, "eth0", "eth1"));
+        assertNotSame(eth0History, history);
+        assertNull(stats.getPrevious());
+        assertEquals(-1.0, stats.getNetworkStats().get("eth0").getRxBytesPerSecond());
+
+        stats = collect(osStatistics(2, "eth0", "eth1"));
+        assertEquals(2, stats.getPrevious().getNetworkStats().size());
+        assertEquals(2000.0, stats.getNetworkStats().get("eth1").getRxBytesPerSecond());
+    }
+
+    /**
+     * Collects the given statistics the way the operating system does.
+     */
+    private OperatingSystemStatistics collect(OSStatistics osStats) {
+        history = DefaultOperatingSystemStatistics.getHistory(history, osStats, HISTORY_SIZE);
+        previous = new DefaultOperatingSystemStatistics(osStats, null, previous, history, 0);
+        return previous;
+    }
+
+    private static OSStatistics osStatistics(int i, String... networkInterfaceNames) {
+        OSStatistics stats = mock(OSStatistics.class);
+        when(stats.getTimestamp()).thenReturn(i * 1000L);
+        when(stats.getFreePhysicalMemorySize()).thenReturn(i * 100L);
+        when(stats.getCpuPerc()).thenReturn(i / 10.0);
+        when(stats.getUsedMemoryPerc()).thenReturn(50.0);
+        OSStatistics.OSNetInterfaceStats[] netStats = new OSStatistics.OSNetInterfaceStats[networkInterfaceNames.length];
+        for (int j = 0; j < netStats.length; j++) {
+            netStats[j] = mock(OSStatistics.OSNetInterfaceStats.class);
+            when(netStats[j].getName()).thenReturn(networkInterfaceNames[j]);
+            when(netStats[j].getRxBytes()).thenReturn(i * 2000L);
+            when(netStats[j].getTxBytes()).thenReturn(i * 3000L);
+            when(netStats[j].getRxPackets()).thenReturn(i * 2L);
+            when(netStats[j].getTxPackets()).thenReturn(i * 3L);
+        }
+        when(stats.getNetStats()).thenReturn(netStats);
+        return stats;
+    }
+}
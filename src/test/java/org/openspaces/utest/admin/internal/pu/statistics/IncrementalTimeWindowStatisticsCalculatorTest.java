@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.openspaces.utest.admin.internal.pu.statistics;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.openspaces.admin.internal.pu.DefaultProcessingUnitStatistics;
+import org.openspaces.admin.internal.pu.statistics.IncrementalTimeWindowStatisticsCalculator;
+import org.openspaces.admin.internal.pu.statistics.InternalProcessingUnitStatistics;
+import org.openspaces.admin.internal.pu.statistics.InternalProcessingUnitStatisticsCalculator;
+import org.openspaces.admin.internal.pu.statistics.TimeWindowStatisticsCalculator;
+import org.openspaces.admin.pu.statistics.*;
+import org.openspaces.admin.zone.config.ExactZonesConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit Tests for {@link IncrementalTimeWindowStatisticsCalculator}, comparing its results with the
+ * results of {@link TimeWindowStatisticsCalculator}
+ * @since 11.0
+ */
+public class IncrementalTimeWindowStatisticsCalculatorTest extends TestCase {
+
+    private static final String INSTANCE_UID = "instanceUid";
+    private static final String MONITOR = "monitor";
+    private static final long SAMPLE_INTERVAL_MILLISECONDS = 1000;
+
+    @Test
+    public void testSameResultsAsTimeWindowStatisticsCalculator() {
+        List<ProcessingUnitStatisticsId> statisticsIds = new ArrayList<ProcessingUnitStatisticsId>();
+        for (String metric : Arrays.asList("metric1", "metric2")) {
+            statisticsIds.addAll(statisticsIds(metric, 2, 0, 3));
+            statisticsIds.addAll(statisticsIds(metric, 5, 3, 6));
+            statisticsIds.addAll(statisticsIds(metric, 10, 10, 20));
+        }
+        assertSameResults(statisticsIds, statisticsIds, 10, 0, 300, 1);
+    }
+
+    @Test
+    public void testSameResultsWithJitterAndMissingSamples() {
+        List<ProcessingUnitStatisticsId> statisticsIds = new ArrayList<ProcessingUnitStatisticsId>();
+        statisticsIds.addAll(statisticsIds("metric1", 3, 0, 4));
+        statisticsIds.addAll(statisticsIds("metric1", 5, 2, 10));
+        assertSameResults(statisticsIds, statisticsIds, 10, 900, 500, 2);
+    }
+
+    @Test
+    public void testSameResultsWithSmallHistory() {
+        List<ProcessingUnitStatisticsId> statisticsIds = new ArrayList<ProcessingUnitStatisticsId>();
+        statisticsIds.addAll(statisticsIds("metric1", 10, 5, 20));
+        assertSameResults(statisticsIds, statisticsIds, 3, 0, 100, 3);
+    }
+
+    @Test
+    public void testSameResultsWhenStatisticsIdsChange() {
+        List<ProcessingUnitStatisticsId> statisticsIds = new ArrayList<ProcessingUnitStatisticsId>();
+        statisticsIds.addAll(statisticsIds("metric1", 3, 0, 6));
+        List<ProcessingUnitStatisticsId> otherStatisticsIds = new ArrayList<ProcessingUnitStatisticsId>();
+        otherStatisticsIds.addAll(statisticsIds("metric1", 5, 5, 10));
+        otherStatisticsIds.addAll(statisticsIds("metric2", 3, 0, 6));
+        // the new metric and time window must be calculated from the previous samples
+        assertSameResults(statisticsIds, otherStatisticsIds, 10, 300, 200, 4);
+    }
+
+    @Test
+    public void testThroughput() {
+        IncrementalTimeWindowStatisticsCalculator calculator = new IncrementalTimeWindowStatisticsCalculator(10);
+        ProcessingUnitStatisticsId throughputStatisticsId = statisticsId("metric1",
+                new ThroughputTimeWindowStatisticsConfigurer()
+                .timeWindow(2, TimeUnit.SECONDS)
+                .minimumTimeWindow(2, TimeUnit.SECONDS)
+                .create());
+
+        long now = System.currentTimeMillis();
+        InternalProcessingUnitStatistics lastStatistics = null;
+        for (int i = 0; i < 5; i++) {
+            InternalProcessingUnitStatistics statistics = new DefaultProcessingUnitStatistics(
+                    now + i * SAMPLE_INTERVAL_MILLISECONDS, lastStatistics, 10, calculator);
+            statistics.addStatistics(lastSampleStatisticsId("metric1"), 100L * i);
+            statistics.calculateStatistics(toList(throughputStatisticsId));
+            if (i < 2) {
+                Assert.assertNull(statistics.getStatistics().get(throughputStatisticsId));
+            }
+            else {
+                Assert.assertEquals(100.0, statistics.getStatistics().get(throughputStatisticsId));
+            }
+            lastStatistics = statistics;
+        }
+    }
+
+    /**
+     * Feeds the same samples to both calculators and compares the calculated statistics.
+     * The first half of the samples are calculated with statisticsIds and the second half with otherStatisticsIds.
+     */
+    private void assertSameResults(List<ProcessingUnitStatisticsId> statisticsIds, List<ProcessingUnitStatisticsId> otherStatisticsIds,
+            int historySize, long maxJitterMilliseconds, int numberOfSamples, long seed) {
+
+        Random random = new Random(seed);
+        InternalProcessingUnitStatisticsCalculator expectedCalculator = new TimeWindowStatisticsCalculator();
+        InternalProcessingUnitStatisticsCalculator actualCalculator = new IncrementalTimeWindowStatisticsCalculator(historySize);
+        InternalProcessingUnitStatistics expectedLastStatistics = null;
+        InternalProcessingUnitStatistics actualLastStatistics = null;
+        long timestamp = System.currentTimeMillis();
+        int calculatedStatistics = 0;
+        for (int i = 0; i < numberOfSamples; i++) {
+            timestamp += SAMPLE_INTERVAL_MILLISECONDS + (maxJitterMilliseconds > 0 ? random.nextInt((int) maxJitterMilliseconds) : 0);
+            InternalProcessingUnitStatistics expected = new DefaultProcessingUnitStatistics(timestamp, expectedLastStatistics, historySize);
+            InternalProcessingUnitStatistics actual = new DefaultProcessingUnitStatistics(timestamp, actualLastStatistics, historySize);
+            for (String metric : Arrays.asList("metric1", "metric2")) {
+                // occasionally a sample is missing
+                if (maxJitterMilliseconds == 0 || random.nextInt(20) > 0) {
+                    long value = random.nextInt(1000);
+                    expected.addStatistics(lastSampleStatisticsId(metric), value);
+                    actual.addStatistics(lastSampleStatisticsId(metric), value);
+                }
+            }
+            List<ProcessingUnitStatisticsId> requested = i < numberOfSamples / 2 ? statisticsIds : otherStatisticsIds;
+            expectedCalculator.calculateNewStatistics(expected, requested);
+            actualCalculator.calculateNewStatistics(actual, requested);
+            Assert.assertEquals("sample " + i, expected.getStatistics(), actual.getStatistics());
+            calculatedStatistics += expected.getStatistics().size();
+            expectedLastStatistics = expected;
+            actualLastStatistics = actual;
+        }
+        Assert.assertTrue("no statistics were calculated", calculatedStatistics > 0);
+    }
+
+    private List<ProcessingUnitStatisticsId> statisticsIds(String metric, long timeWindowSeconds,
+            long minimumTimeWindowSeconds, long maximumTimeWindowSeconds) {
+        List<ProcessingUnitStatisticsId> statisticsIds = new ArrayList<ProcessingUnitStatisticsId>();
+        statisticsIds.add(statisticsId(metric, new AverageTimeWindowStatisticsConfigurer()
+                .timeWindow(timeWindowSeconds, TimeUnit.SECONDS)
+                .minimumTimeWindow(minimumTimeWindowSeconds, TimeUnit.SECONDS)
+                .maximumTimeWindow(maximumTimeWindowSeconds, TimeUnit.SECONDS)
+                .create()));
+        statisticsIds.add(statisticsId(metric, new MinimumTimeWindowStatisticsConfigurer()
+                .timeWindow(timeWindowSeconds, TimeUnit.SECONDS)
+                .minimumTimeWindow(minimumTimeWindowSeconds, TimeUnit.SECONDS)
+                .maximumTimeWindow(maximumTimeWindowSeconds, TimeUnit.SECONDS)
+                .create()));
+        statisticsIds.add(statisticsId(metric, new MaximumTimeWindowStatisticsConfigurer()
+                .timeWindow(timeWindowSeconds, TimeUnit.SECONDS)
+                .minimumTimeWindow(minimumTimeWindowSeconds, TimeUnit.SECONDS)
+                .maximumTimeWindow(maximumTimeWindowSeconds, TimeUnit.SECONDS)
+                .create()));
+        statisticsIds.add(statisticsId(metric, new ThroughputTimeWindowStatisticsConfigurer()
+                .timeWindow(timeWindowSeconds, TimeUnit.SECONDS)
+                .minimumTimeWindow(minimumTimeWindowSeconds, TimeUnit.SECONDS)
+                .maximumTimeWindow(maximumTimeWindowSeconds, TimeUnit.SECONDS)
+                .create()));
+        for (int percentile : new int[] {0, 10, 50, 90, 100}) {
+            statisticsIds.add(statisticsId(metric, new PercentileTimeWindowStatisticsConfigurer()
+                    .percentile(percentile)
+                    .timeWindow(timeWindowSeconds, TimeUnit.SECONDS)
+                    .minimumTimeWindow(minimumTimeWindowSeconds, TimeUnit.SECONDS)
+                    .maximumTimeWindow(maximumTimeWindowSeconds, TimeUnit.SECONDS)
+                    .create()));
+        }
+        return statisticsIds;
+    }
+
+    private ProcessingUnitStatisticsId statisticsId(String metric, TimeWindowStatisticsConfig timeWindowStatistics) {
+        return new ProcessingUnitStatisticsIdConfigurer()
+                .metric(metric)
+                .monitor(MONITOR)
+                .instancesStatistics(new SingleInstanceStatisticsConfigurer().instanceUid(INSTANCE_UID).create())
+                .timeWindowStatistics(timeWindowStatistics)
+                .agentZones(new ExactZonesConfig())
+                .create();
+    }
+
+    private ProcessingUnitStatisticsId lastSampleStatisticsId(String metric) {
+        return statisticsId(metric, new LastSampleTimeWindowStatisticsConfig());
+    }
+
+    private List<ProcessingUnitStatisticsId> toList(ProcessingUnitStatisticsId... statisticsIds) {
+        return Arrays.asList(statisticsIds);
+    }
+}
@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.openspaces.utest.admin.internal.pu.statistics;
+
+import org.openspaces.admin.internal.pu.DefaultProcessingUnitStatistics;
+import org.openspaces.admin.internal.pu.statistics.IncrementalTimeWindowStatisticsCalculator;
+import org.openspaces.admin.internal.pu.statistics.InternalProcessingUnitStatistics;
+import org.openspaces.admin.internal.pu.statistics.InternalProcessingUnitStatisticsCalculator;
+import org.openspaces.admin.internal.pu.statistics.TimeWindowStatisticsCalculator;
+import org.openspaces.admin.pu.statistics.*;
+import org.openspaces.admin.zone.config.ExactZonesConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the time {@link TimeWindowStatisticsCalculator} and {@link IncrementalTimeWindowStatisticsCalculator}
+ * spend calculating 1000 time window statistics ids (100 metrics, each with average, minimum, maximum, throughput
+ * and 6 percentiles over a 60 seconds window), sampled every 5 seconds with the default history size.
+ *
+ * <p>Not run as part of the test suite. Usage:
+ * <code>TimeWindowStatisticsBenchmark [samples] [metrics]</code>
+ */
+public class TimeWindowStatisticsBenchmark {
+
+    private static final int HISTORY_SIZE = 120;
+
+    private static final long SAMPLE_INTERVAL_MILLISECONDS = 5000;
+
+    private static final long TIME_WINDOW_SECONDS = 60;
+
+    public static void main(String[] args) {
+        int samples = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int metrics = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+
+        List<ProcessingUnitStatisticsId> rawStatisticsIds = new ArrayList<ProcessingUnitStatisticsId>();
+        List<ProcessingUnitStatisticsId> statisticsIds = new ArrayList<ProcessingUnitStatisticsId>();
+        for (int i = 0; i < metrics; i++) {
+            String metric = "metric" + i;
+            rawStatisticsIds.add(statisticsId(metric, new LastSampleTimeWindowStatisticsConfig()));
+            statisticsIds.add(statisticsId(metric, new AverageTimeWindowStatisticsConfigurer().timeWindow(TIME_WINDOW_SECONDS, TimeUnit.SECONDS).create()));
+            statisticsIds.add(statisticsId(metric, new MinimumTimeWindowStatisticsConfigurer().timeWindow(TIME_WINDOW_SECONDS, TimeUnit.SECONDS).create()));
+            statisticsIds.add(statisticsId(metric, new MaximumTimeWindowStatisticsConfigurer().timeWindow(TIME_WINDOW_SECONDS, TimeUnit.SECONDS).create()));
+            statisticsIds.add(statisticsId(metric, new ThroughputTimeWindowStatisticsConfigurer().timeWindow(TIME_WINDOW_SECONDS, TimeUnit.SECONDS).create()));
+            for (double percentile : new double[] {10, 25, 50, 75, 90, 99}) {
+                statisticsIds.add(statisticsId(metric, new PercentileTimeWindowStatisticsConfigurer()
+                        .percentile(percentile).timeWindow(TIME_WINDOW_SECONDS, TimeUnit.SECONDS).create()));
+            }
+        }
+
+        // warm up both calculators
+        run(new TimeWindowStatisticsCalculator(), rawStatisticsIds, statisticsIds, samples / 5);
+        run(new IncrementalTimeWindowStatisticsCalculator(HISTORY_SIZE), rawStatisticsIds, statisticsIds, samples / 5);
+
+        report("full", statisticsIds.size(), samples,
+                run(new TimeWindowStatisticsCalculator(), rawStatisticsIds, statisticsIds, samples));
+        report("incremental", statisticsIds.size(), samples,
+                run(new IncrementalTimeWindowStatisticsCalculator(HISTORY_SIZE), rawStatisticsIds, statisticsIds, samples));
+    }
+
+    private static long run(InternalProcessingUnitStatisticsCalculator calculator, List<ProcessingUnitStatisticsId> rawStatisticsIds,
+            List<ProcessingUnitStatisticsId> statisticsIds, int samples) {
+        Random random = new Random(1);
+        InternalProcessingUnitStatistics lastStatistics = null;
+        long timestamp = System.currentTimeMillis();
+        long nanos = 0;
+        for (int i = 0; i < samples; i++) {
+            timestamp += SAMPLE_INTERVAL_MILLISECONDS;
+            InternalProcessingUnitStatistics statistics = new DefaultProcessingUnitStatistics(timestamp, lastStatistics, HISTORY_SIZE);
+            for (ProcessingUnitStatisticsId rawStatisticsId : rawStatisticsIds) {
+                statistics.addStatistics(rawStatisticsId, (long) random.nextInt(1000000));
+            }
+            long start = System.nanoTime();
+            calculator.calculateNewStatistics(statistics, statisticsIds);
+            nanos += System.nanoTime() - start;
+            lastStatistics = statistics;
+        }
+        return nanos;
+    }
+
+    private static ProcessingUnitStatisticsId statisticsId(String metric, TimeWindowStatisticsConfig timeWindowStatistics) {
+        return new ProcessingUnitStatisticsIdConfigurer()
+                .metric(metric)
+                .monitor("monitor")
+                .instancesStatistics(new SingleInstanceStatisticsConfigurer().instanceUid("instanceUid").create())
+                .timeWindowStatistics(timeWindowStatistics)
+                .agentZones(new ExactZonesConfig())
+                .create();
+    }
+
+    private static void report(String name, int statisticsIds, int samples, long nanos) {
+        double millis = nanos / 1000000.0;
+        System.out.println(String.format("%-12s %5d statistics ids, %5d samples: %10.1f ms, %8.3f ms/sample",
+                name, statisticsIds, samples, millis, millis / samples));
+    }
+}
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.admin.internal.space;
+
+import com.j_spaces.core.filters.ReplicationStatistics;
+import com.j_spaces.core.filters.StatisticsHolder;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.openspaces.admin.internal.space.DefaultSpaceInstanceStatistics;
+import org.openspaces.admin.internal.support.StatisticsHistory;
+import org.openspaces.admin.space.SpaceInstanceStatistics;
+
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit Tests for {@link DefaultSpaceInstanceStatistics}
+ * @since 11.0
+ */
+public class DefaultSpaceInstanceStatisticsTest extends TestCase {
+
+    private static final int HISTORY_SIZE = 3;
+
+    private StatisticsHistory history;
+
+    private SpaceInstanceStatistics previous;
+
+    @Override
+    protected void setUp() throws Exception {
+        history = DefaultSpaceInstanceStatistics.createHistory(HISTORY_SIZE);
+        previous = null;
+    }
+
+    @Test
+    public void testPreviousAfterEviction() {
+        SpaceInstanceStatistics[] stats = new SpaceInstanceStatistics[10];
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = collect(statisticsHolder(i));
+        }
+        int last = stats.length - 1;
+        assertNotNull(stats[last].getReplicationStatistics());
+
+        // the current statistics and up to historySize + 1 previous ones are kept
+        SpaceInstanceStatistics current = stats[last];
+        for (int i = last - 1; i >= last - HISTORY_SIZE - 1; i--) {
+            assertEquals(i * 1000L, current.getPreviousTimestamp());
+            current = current.getPrevious();
+            assertNotNull(current);
+            assertFalse(current.isNA());
+            assertEquals(i * 1000L, current.getTimestamp());
+            assertEquals(i * 10L, current.getWriteCount());
+            // read and read multiple
+            assertEquals(i * 30L, current.getReadCount());
+            assertEquals(i * 5L, current.getTakeCount());
+            // only the latest statistics keep the replication statistics
+            assertNull(current.getReplicationStatistics());
+        }
+        assertNull(current.getPrevious());
+        assertEquals(-1L, current.getPreviousTimestamp());
+        assertEquals(HISTORY_SIZE + 2, stats[last].getTimelineFromTimestamp(-1).size());
+        assertEquals(3, stats[last].getTimelineFromTimestamp((last - 3) * 1000L).size());
+        assertNull(stats[last - HISTORY_SIZE - 1].getPrevious());
+    }
+
+    @Test
+    public void testPerSecondAfterNA() {
+        SpaceInstanceStatistics first = collect(statisticsHolder(0));
+        assertEquals(-1.0, first.getWritePerSecond());
+        SpaceInstanceStatistics second = collect(statisticsHolder(1));
+        assertEquals(10.0, second.getWritePerSecond());
+        assertEquals(30.0, second.getReadPerSecond());
+
+        SpaceInstanceStatistics na = collect(new StatisticsHolder(new long[]{-1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1}));
+        assertTrue(na.isNA());
+        assertEquals(-1.0, na.getWritePerSecond());
+
+        // the rates are not computed against the statistics before the unavailable ones
+        SpaceInstanceStatistics afterNA = collect(statisticsHolder(4));
+        assertNull(afterNA.getPrevious());
+        assertEquals(-1.0, afterNA.getWritePerSecond());
+        assertEquals(-1.0, afterNA.getTakePerSecond());
+
+        SpaceInstanceStatistics next = collect(statisticsHolder(6));
+        assertEquals(4000L, next.getPreviousTimestamp());
+        assertNull(next.getPrevious().getPrevious());
+        assertEquals(10.0, next.getWritePerSecond());
+        assertEquals(5.0, next.getTakePerSecond());
+        // a previous statistics computes its rates against the one before it, which is gone
+        assertEquals(-1.0, next.getPrevious().getWritePerSecond());
+    }
+
+    /**
+     * Collects the given statistics the way the space instance does.
+     */
+    private SpaceInstanceStatistics collect(StatisticsHolder holder) {
+        previous = new DefaultSpaceInstanceStatistics(holder, previous, history, 0);
+        return previous;
+    }
+
+    private static StatisticsHolder statisticsHolder(int i) {
+        StatisticsHolder holder = mock(StatisticsHolder.class, RETURNS_DEEP_STUBS);
+        when(holder.getOperationsCount()).thenReturn(new long[]{i});
+        when(holder.getTimestamp()).thenReturn(i * 1000L);
+        when(holder.getWriteCount()).thenReturn(i * 10L);
+        when(holder.getReadCount()).thenReturn(i * 20L);
+        when(holder.getReadMultipleCount()).thenReturn(i * 10L);
+        when(holder.getTakeCount()).thenReturn(i * 5L);
+        when(holder.getReplicationStatistics()).thenReturn(mock(ReplicationStatistics.class));
+        return holder;
+    }
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.openspaces.utest.admin.internal.support;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.openspaces.admin.internal.support.StatisticsHistory;
+import org.openspaces.admin.support.StatisticsTimeSeries;
+
+import java.util.Arrays;
+
+/**
+ * Unit Tests for {@link StatisticsHistory}
+ * @since 11.0
+ */
+public class StatisticsHistoryTest extends TestCase {
+
+    private static final String[] LONG_NAMES = {"count", "size"};
+    private static final String[] DOUBLE_NAMES = {"perc"};
+
+    @Test
+    public void testAppendAndRead() {
+        StatisticsHistory history = new StatisticsHistory(LONG_NAMES, DOUBLE_NAMES, 3);
+        long first = append(history, 1);
+        long second = append(history, 2);
+        assertEquals(first + 1, second);
+        assertEquals(2, history.size());
+        assertSample(history, first, 1);
+        assertSample(history, second, 2);
+        assertEquals(2000, history.getTimestamp(second));
+        assertEquals(2 * 10, history.getLongValue(second, 0));
+        assertEquals(2 / 4.0, history.getDoubleValue(second, 0));
+    }
+
+    @Test
+    public void testEvictsOldestWhenFull() {
+        StatisticsHistory history = new StatisticsHistory(LONG_NAMES, DOUBLE_NAMES, 20);
+        long[] sequences = new long[50];
+        for (int i = 0; i < sequences.length; i++) {
+            sequences[i] = append(history, i);
+            assertEquals(Math.min(i + 1, 20), history.size());
+        }
+        for (int i = 0; i < sequences.length; i++) {
+            if (i < 30) {
+                assertFalse(history.contains(sequences[i]));
+                assertFalse(history.read(sequences[i], new long[2], new long[2], new double[1]));
+                assertEquals(-1, history.getTimestamp(sequences[i]));
+            } else {
+                assertSample(history, sequences[i], i);
+            }
+        }
+    }
+
+    @Test
+    public void testSetCapacity() {
+        StatisticsHistory history = new StatisticsHistory(LONG_NAMES, DOUBLE_NAMES, 10);
+        long[] sequences = new long[15];
+        for (int i = 0; i < sequences.length; i++) {
+            sequences[i] = append(history, i);
+        }
+        history.setCapacity(4);
+        assertEquals(4, history.size());
+        assertFalse(history.contains(sequences[10]));
+        for (int i = 11; i < 15; i++) {
+            assertSample(history, sequences[i], i);
+        }
+        history.setCapacity(30);
+        for (int i = 15; i < 40; i++) {
+            append(history, i);
+        }
+        assertEquals(29, history.size());
+        for (int i = 11; i < 15; i++) {
+            assertSample(history, sequences[i], i);
+        }
+    }
+
+    @Test
+    public void testClear() {
+        StatisticsHistory history = new StatisticsHistory(LONG_NAMES, DOUBLE_NAMES, 10);
+        long first = append(history, 1);
+        history.clear();
+        assertEquals(0, history.size());
+        assertFalse(history.contains(first));
+        long second = append(history, 2);
+        assertTrue(second > first);
+        assertFalse(history.contains(second - 1));
+        assertSample(history, second, 2);
+    }
+
+    @Test
+    public void testTimeSeries() {
+        StatisticsHistory history = new StatisticsHistory(LONG_NAMES, DOUBLE_NAMES, 5);
+        for (int i = 0; i < 8; i++) {
+            append(history, i);
+        }
+        StatisticsTimeSeries all = history.getTimeSeries(-1);
+        assertEquals(5, all.size());
+        assertTrue(Arrays.equals(new long[]{3000, 4000, 5000, 6000, 7000}, all.getTimestamps()));
+        assertTrue(Arrays.equals(new long[]{3100, 4100, 5100, 6100, 7100}, all.getAdminTimestamps()));
+        assertTrue(Arrays.equals(new long[]{30, 40, 50, 60, 70}, all.getLongValues("count")));
+        assertTrue(Arrays.equals(new long[]{-3, -4, -5, -6, -7}, all.getLongValues("size")));
+        assertTrue(Arrays.equals(new double[]{3 / 4.0, 4 / 4.0, 5 / 4.0, 6 / 4.0, 7 / 4.0}, all.getDoubleValues("perc")));
+        assertEquals(Arrays.asList(LONG_NAMES), all.getLongStatisticsNames());
+        assertEquals(Arrays.asList(DOUBLE_NAMES), all.getDoubleStatisticsNames());
+
+        StatisticsTimeSeries recent = history.getTimeSeries(5000);
+        assertTrue(Arrays.equals(new long[]{6000, 7000}, recent.getTimestamps()));
+        assertTrue(Arrays.equals(new long[]{60, 70}, recent.getLongValues("count")));
+
+        assertEquals(0, history.getTimeSeries(7000).size());
+        try {
+            all.getLongValues("perc");
+            fail("perc is not an integral statistic");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static long append(StatisticsHistory history, int i) {
+        return history.append(i * 1000L, i * 1000L + 100, new long[]{i * 10L, -i}, new double[]{i / 4.0});
+    }
+
+    private static void assertSample(StatisticsHistory history, long sequence, int i) {
+        long[] times = new long[2];
+        long[] longs = new long[2];
+        double[] doubles = new double[1];
+        assertTrue(history.read(sequence, times, longs, doubles));
+        assertEquals(i * 1000L, times[0]);
+        assertEquals(i * 1000L + 100, times[1]);
+        assertEquals(i * 10L, longs[0]);
+        assertEquals(-i, longs[1]);
+        assertEquals(i / 4.0, doubles[0]);
+    }
+}
@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.admin.internal.transport;
+
+import com.gigaspaces.lrmi.nio.info.NIOStatistics;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.openspaces.admin.internal.support.StatisticsHistory;
+import org.openspaces.admin.internal.transport.DefaultTransportStatistics;
+import org.openspaces.admin.transport.TransportStatistics;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit Tests for {@link DefaultTransportStatistics}
+ * @since 11.0
+ */
+public class DefaultTransportStatisticsTest extends TestCase {
+
+    private static final int HISTORY_SIZE = 3;
+
+    private StatisticsHistory history;
+
+    private TransportStatistics previous;
+
+    @Override
+    protected void setUp() throws Exception {
+        history = DefaultTransportStatistics.createHistory(HISTORY_SIZE);
+        previous = null;
+    }
+
+    @Test
+    public void testPreviousAfterEviction() {
+        TransportStatistics[] stats = new TransportStatistics[10];
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = collect(nioStatistics(i));
+        }
+        int last = stats.length - 1;
+
+        // the current statistics and up to historySize + 1 previous ones are kept
+        TransportStatistics current = stats[last];
+        for (int i = last - 1; i >= last - HISTORY_SIZE - 1; i--) {
+            assertEquals(i * 1000L, current.getPreviousTimestamp());
+            current = current.getPrevious();
+            assertNotNull(current);
+            assertFalse(current.isNA());
+            assertEquals(i * 1000L, current.getTimestamp());
+            assertEquals(i * 50L, current.getCompletedTaskCount());
+            assertEquals(i, current.getActiveThreadsCount());
+            assertEquals(i * 2, current.getQueueSize());
+        }
+        assertNull(current.getPrevious());
+        assertEquals(-1L, current.getPreviousTimestamp());
+        assertEquals(-1.0, current.getCompletedTaskPerSecond());
+        assertNull(stats[last - HISTORY_SIZE - 1].getPrevious());
+    }
+
+    @Test
+    public void testPerSecondAfterNA() {
+        TransportStatistics first = collect(nioStatistics(0));
+        assertEquals(-1.0, first.getCompletedTaskPerSecond());
+        TransportStatistics second = collect(nioStatistics(1));
+        assertEquals(50.0, second.getCompletedTaskPerSecond());
+
+        TransportStatistics na = collect(new NIOStatistics());
+        assertTrue(na.isNA());
+        assertEquals(-1.0, na.getCompletedTaskPerSecond());
+
+        // the rate is not computed against the statistics before the unavailable ones
+        TransportStatistics afterNA = collect(nioStatistics(4));
+        assertNull(afterNA.getPrevious());
+        assertEquals(-1L, afterNA.getPreviousTimestamp());
+        assertEquals(-1.0, afterNA.getCompletedTaskPerSecond());
+
+        TransportStatistics next = collect(nioStatistics(6));
+        assertEquals(4000L, next.getPreviousTimestamp());
+        assertNull(next.getPrevious().getPrevious());
+        assertEquals(50.0, next.getCompletedTaskPerSecond());
+    }
+
+    /**
+     * Collects the given statistics the way the transport does.
+     */
+    private TransportStatistics collect(NIOStatistics nioStats) {
+        previous = new DefaultTransportStatistics(nioStats, previous, null, history, 0);
+        return previous;
+    }
+
+    private static NIOStatistics nioStatistics(int i) {
+        NIOStatistics stats = mock(NIOStatistics.class);
+        when(stats.getTimestamp()).thenReturn(i * 1000L);
+        when(stats.getCompletedTaskCount()).thenReturn(i * 50L);
+        when(stats.getActiveThreadsCount()).thenReturn(i);
+        when(stats.getQueueSize()).thenReturn(i * 2);
+        return stats;
+    }
+}
@@ -0,0 +1,175 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.admin.internal.vm;
+
+import com.gigaspaces.internal.jvm.JVMStatistics;
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.openspaces.admin.internal.support.StatisticsHistory;
+import org.openspaces.admin.internal.vm.DefaultVirtualMachineStatistics;
+import org.openspaces.admin.vm.VirtualMachineStatistics;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit Tests for {@link DefaultVirtualMachineStatistics}
+ * @since 11.0
+ */
+public class DefaultVirtualMachineStatisticsTest extends TestCase {
+
+    private static final long[] TIMESTAMPS = {1000, 2000, 3500, 4000, 6000, 7000, 9500, 10000};
+
+    // the cpu time consumed until each sample, the cpu percentage of an interval is the cpu time
+    // consumed during it divided by its duration
+    private static final long[] CPU_TIMES = {0, 500, 800, 1000, 1100, 1900, 2400, 2450};
+
+    @Test
+    public void testPreviousAfterEviction() {
+        int historySize = 3;
+        VirtualMachineStatistics[] stats = collect(DefaultVirtualMachineStatistics.createHistory(historySize), -1);
+        int last = stats.length - 1;
+
+        // the current statistics and up to historySize + 1 previous ones are kept
+        VirtualMachineStatistics current = stats[last];
+        for (int i = last - 1; i >= last - historySize - 1; i--) {
+            current = current.getPrevious();
+            assertNotNull(current);
+            assertFalse(current.isNA());
+            assertEquals(TIMESTAMPS[i], current.getTimestamp());
+            assertEquals(TIMESTAMPS[i] + 10, current.getAdminTimestamp());
+            assertEquals(i, current.getThreadCount());
+            assertEquals(i * 10L, current.getGcCollectionTime());
+            assertEquals(perc(i, i - 1), current.getCpuPerc(), 0.000001);
+        }
+        assertNull(current.getPrevious());
+        assertEquals(historySize + 2, stats[last].getTimeline().size());
+
+        // statistics which were evicted from the history no longer have previous statistics
+        assertNull(stats[last - historySize - 1].getPrevious());
+        assertNotNull(stats[last - historySize].getPrevious());
+    }
+
+    @Test
+    public void testCpuPercAfterNA() {
+        VirtualMachineStatistics[] stats = collect(DefaultVirtualMachineStatistics.createHistory(10), 3);
+        assertTrue(stats[3].isNA());
+
+        assertEquals(-1.0, stats[4].getCpuPerc());
+        assertEquals(-1.0, stats[4].getGcCollectionPerc());
+        assertNull(stats[4].getPrevious());
+        assertEquals(-1.0, stats[4].getCpuPercAverage(1, TimeUnit.MILLISECONDS));
+
+        assertEquals(perc(5, 4), stats[5].getCpuPerc(), 0.000001);
+        assertEquals(TIMESTAMPS[4], stats[5].getPrevious().getTimestamp());
+        assertNull(stats[5].getPrevious().getPrevious());
+        // the average can not go back further than the unavailable statistics
+        assertEquals(perc(7, 4), stats[7].getCpuPercAverage(TIMESTAMPS[7] - TIMESTAMPS[4], TimeUnit.MILLISECONDS), 0.000001);
+        assertEquals(-1.0, stats[7].getCpuPercAverage(TIMESTAMPS[7] - TIMESTAMPS[4] + 1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testCpuPercAverage() {
+        VirtualMachineStatistics[] stats = collect(DefaultVirtualMachineStatistics.createHistory(10), -1);
+        int last = stats.length - 1;
+        long[] requestedTotalTimes = {1, 500, 501, 1000, 2999, 3000, 4200, 6500, 8999, 9000, 9001};
+        for (long requestedTotalTime : requestedTotalTimes) {
+            assertEquals("requested total time " + requestedTotalTime, oldCpuPercAverage(last, 0, requestedTotalTime),
+                    stats[last].getCpuPercAverage(requestedTotalTime, TimeUnit.MILLISECONDS), 0.000001);
+            assertEquals("requested total time " + requestedTotalTime, oldCpuPercAverage(5, 0, requestedTotalTime),
+                    stats[5].getCpuPercAverage(requestedTotalTime, TimeUnit.MILLISECONDS), 0.000001);
+        }
+        assertEquals(-1.0, stats[0].getCpuPercAverage(1, TimeUnit.SECONDS));
+        assertEquals(perc(last, 0), stats[last].getCpuPercAverage(9, TimeUnit.SECONDS), 0.000001);
+    }
+
+    @Test
+    public void testCpuPercAverageAfterEviction() {
+        int historySize = 3;
+        VirtualMachineStatistics[] stats = collect(DefaultVirtualMachineStatistics.createHistory(historySize), -1);
+        int last = stats.length - 1;
+        int oldest = last - historySize - 1;
+        long[] requestedTotalTimes = {500, 3000, TIMESTAMPS[last] - TIMESTAMPS[oldest], TIMESTAMPS[last] - TIMESTAMPS[oldest] + 1};
+        for (long requestedTotalTime : requestedTotalTimes) {
+            assertEquals("requested total time " + requestedTotalTime, oldCpuPercAverage(last, oldest, requestedTotalTime),
+                    stats[last].getCpuPercAverage(requestedTotalTime, TimeUnit.MILLISECONDS), 0.000001);
+        }
+    }
+
+    /**
+     * Returns the statistics of the samples, the sample at the given index (if any) is unavailable.
+     */
+    private static VirtualMachineStatistics[] collect(StatisticsHistory history, int naIndex) {
+        JVMStatistics[] jvmStats = new JVMStatistics[TIMESTAMPS.length];
+        VirtualMachineStatistics[] stats = new VirtualMachineStatistics[TIMESTAMPS.length];
+        VirtualMachineStatistics previous = null;
+        for (int i = 0; i < TIMESTAMPS.length; i++) {
+            jvmStats[i] = mock(JVMStatistics.class);
+            if (i == naIndex) {
+                when(jvmStats[i].isNA()).thenReturn(true);
+                when(jvmStats[i].getTimestamp()).thenReturn(-1L);
+            } else {
+                when(jvmStats[i].getTimestamp()).thenReturn(TIMESTAMPS[i]);
+                when(jvmStats[i].getThreadCount()).thenReturn(i);
+                when(jvmStats[i].getGcCollectionTime()).thenReturn(i * 10L);
+                if (i > 0) {
+                    when(jvmStats[i].computeCpuPerc(jvmStats[i - 1])).thenReturn(perc(i, i - 1));
+                }
+            }
+            stats[i] = new DefaultVirtualMachineStatistics(jvmStats[i], previous, null, history, 10);
+            previous = stats[i];
+        }
+        return stats;
+    }
+
+    private static double perc(int end, int start) {
+        return (double) (CPU_TIMES[end] - CPU_TIMES[start]) / (TIMESTAMPS[end] - TIMESTAMPS[start]);
+    }
+
+    /**
+     * The average computed before the history was kept in a ring, over the chain of raw samples starting
+     * at the given oldest index.
+     */
+    private static double oldCpuPercAverage(int end, int oldest, long requestedTotalTimeMillis) {
+        int start = end - 1;
+        if (start < oldest) {
+            return -1;
+        }
+        int previousStart = -1;
+        long duration = TIMESTAMPS[end] - TIMESTAMPS[start];
+        long previousDuration = 0;
+        while (duration < requestedTotalTimeMillis) {
+            previousStart = start;
+            previousDuration = duration;
+            start = previousStart - 1;
+            if (start < oldest) {
+                return -1;
+            }
+            duration = TIMESTAMPS[end] - TIMESTAMPS[start];
+        }
+        if (previousDuration == 0) {
+            return perc(end, start);
+        }
+        long timeSlot = duration - previousDuration;
+        double rightWeight = (double) (requestedTotalTimeMillis - previousDuration) / timeSlot;
+        double leftWeight = (double) (duration - requestedTotalTimeMillis) / timeSlot;
+        return rightWeight * perc(end, start) + leftWeight * perc(end, previousStart);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2006-2007 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.utest.core.executor;
+
+import junit.framework.TestCase;
+import org.openspaces.core.executor.juc.CallableBatchTaskAdapter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class CallableBatchTaskAdapterTests extends TestCase {
+
+    public void testResultsAndExceptionsKeepTheOrderOfTheCallables() throws Exception {
+        List<Callable<Integer>> callables = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < 20; i++) {
+            callables.add(new ValueCallable(i));
+        }
+        callables.set(7, new FailingCallable());
+
+        CallableBatchTaskAdapter.Results results = new CallableBatchTaskAdapter(callables, 4).execute();
+
+        assertEquals(20, results.size());
+        for (int i = 0; i < 20; i++) {
+            if (i == 7) {
+                assertNull(results.getResult(i));
+                assertTrue(results.getException(i) instanceof IllegalStateException);
+            } else {
+                assertEquals(i, results.getResult(i));
+                assertNull(results.getException(i));
+            }
+        }
+    }
+
+    public void testCallablesAreExecutedInParallel() throws Exception {
+        CountDownLatch latch = new CountDownLatch(2);
+        List<Callable<Boolean>> callables = new ArrayList<Callable<Boolean>>();
+        callables.add(new CountDownCallable(latch));
+        callables.add(new CountDownCallable(latch));
+
+        CallableBatchTaskAdapter.Results results = new CallableBatchTaskAdapter(callables, 2).execute();
+
+        // each callable only returns true if the other one was executed at the same time
+        assertEquals(Boolean.TRUE, results.getResult(0));
+        assertEquals(Boolean.TRUE, results.getResult(1));
+    }
+
+    public void testHelpersUseTheContextClassLoaderOfTheTask() throws Exception {
+        ClassLoader classLoader = new URLClassLoader(new URL[0]);
+        CountDownLatch latch = new CountDownLatch(2);
+        List<Callable<ClassLoader>> callables = new ArrayList<Callable<ClassLoader>>();
+        callables.add(new ContextClassLoaderCallable(latch));
+        callables.add(new ContextClassLoaderCallable(latch));
+
+        Thread thread = Thread.currentThread();
+        ClassLoader origClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+        CallableBatchTaskAdapter.Results results;
+        try {
+            results = new CallableBatchTaskAdapter(callables, 2).execute();
+        } finally {
+            thread.setContextClassLoader(origClassLoader);
+        }
+
+        // both callables were executed at the same time, so one of them by a helper thread
+        assertSame(classLoader, results.getResult(0));
+        assertSame(classLoader, results.getResult(1));
+    }
+
+    public void testDefaultParallelism() throws Exception {
+        List<Callable<Integer>> callables = new ArrayList<Callable<Integer>>();
+        for (int i = 0; i < 10; i++) {
+            callables.add(new ValueCallable(i));
+        }
+
+        CallableBatchTaskAdapter.Results results = new CallableBatchTaskAdapter(callables,
+                CallableBatchTaskAdapter.DEFAULT_PARALLELISM).execute();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, results.getResult(i));
+        }
+    }
+
+    public void testSerialization() throws Exception {
+        List<Callable<Integer>> callables = new ArrayList<Callable<Integer>>();
+        callables.add(new ValueCallable(1));
+        callables.add(new ValueCallable(2));
+
+        CallableBatchTaskAdapter task = copy(new CallableBatchTaskAdapter(callables, 1));
+        assertEquals(2, task.getObjectsToProcess().length);
+        CallableBatchTaskAdapter.Results results = copy(task.execute());
+        assertEquals(1, results.getResult(0));
+        assertEquals(2, results.getResult(1));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T copy(T obj) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bos);
+        out.writeObject(obj);
+        out.close();
+        return (T) new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray())).readObject();
+    }
+
+    private static class ValueCallable implements Callable<Integer>, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int value;
+
+        ValueCallable(int value) {
+            this.value = value;
+        }
+
+        public Integer call() {
+            return value;
+        }
+    }
+
+    private static class FailingCallable implements Callable<Integer>, Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        public Integer call() {
+            throw new IllegalStateException("failed");
+        }
+    }
+
+    private static class CountDownCallable implements Callable<Boolean> {
+
+        private final CountDownLatch latch;
+
+        CountDownCallable(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        public Boolean call() throws Exception {
+            latch.countDown();
+            return latch.await(10, TimeUnit.SECONDS);
+        }
+    }
+
+    private static class ContextClassLoaderCallable implements Callable<ClassLoader> {
+
+        private final CountDownLatch latch;
+
+        ContextClassLoaderCallable(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        public ClassLoader call() throws Exception {
+            latch.countDown();
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+            return Thread.currentThread().getContextClassLoader();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.core.map;
+
+import com.j_spaces.core.IJSpace;
+import com.j_spaces.map.IMap;
+import org.openspaces.core.map.LeaseLockManager;
+import org.openspaces.core.map.LockHandle;
+import org.openspaces.core.map.LockManager;
+import org.openspaces.core.map.MapConfigurer;
+import org.openspaces.core.space.UrlSpaceConfigurer;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Compares the lock throughput of the transaction based {@link LockManager} with the
+ * {@link LeaseLockManager}, with several threads locking and updating (each on its own key set) keys of
+ * the same map.
+ *
+ * <p>Not run as part of the test suite. Usage:
+ * <code>LockManagerBenchmark [threads] [keysPerThread] [operationsPerThread]</code>
+ */
+public class LockManagerBenchmark {
+
+    private static final long LOCK_TIME_TO_LIVE = 60000;
+
+    private static final long WAITING_FOR_LOCK_TIMEOUT = 10000;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int keys = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int operations = args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+
+        UrlSpaceConfigurer urlSpaceConfigurer = new UrlSpaceConfigurer("/./lockManagerBenchmark")
+                .lookupGroups(System.getProperty("user.name"));
+        try {
+            IJSpace space = urlSpaceConfigurer.space();
+            IMap map = new MapConfigurer(space).createMap();
+            LockManager transactionLocks = new LockManager(map);
+            LockManager leaseLocks = new LeaseLockManager(map);
+
+            // warm up both implementations
+            run(transactionLocks, threads, keys, operations / 10);
+            run(leaseLocks, threads, keys, operations / 10);
+
+            report("lock + putAndUnlock (transaction)", threads, operations, run(transactionLocks, threads, keys, operations));
+            report("lock + putAndUnlock (lease)", threads, operations, run(leaseLocks, threads, keys, operations));
+        } finally {
+            urlSpaceConfigurer.destroy();
+        }
+    }
+
+    private static long run(final LockManager lockManager, int threads, final int keys, final int operations)
+            throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final String prefix = "thread" + t + "-";
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < operations; i++) {
+                            String key = prefix + (i % keys);
+                            LockHandle lockHandle = lockManager.lock(key, LOCK_TIME_TO_LIVE, WAITING_FOR_LOCK_TIMEOUT);
+                            lockManager.putAndUnlock(lockHandle.getKey(), "value" + i);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+            thread.start();
+        }
+        long startTime = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - startTime;
+    }
+
+    private static void report(String name, int threads, int operations, long durationNanos) {
+        long total = (long) threads * operations;
+        System.out.println(name + ": " + total + " locks in " + (durationNanos / 1000000) + "ms, "
+                + (total * 1000000000L / durationNanos) + " locks/sec");
+    }
+}
@@ -114,6 +114,13 @@ public abstract class AbstractMapTests {
         gigaMap.put("1", "value3");
     }
 
+    @Test
+    public void testLockCanNotBeRenewed() {
+        LockHandle lockHandle = gigaMap.lock("1");
+        assertFalse(lockHandle.renew(60000));
+        lockHandle.unlock();
+    }
+
     @Test
     public void testMultiThreadedLockAndUnlock() {
         gigaMap.put("1", "value");
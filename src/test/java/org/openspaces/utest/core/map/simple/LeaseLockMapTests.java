@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.core.map.simple;
+
+import com.j_spaces.map.IMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openspaces.core.GigaMap;
+import org.openspaces.core.SpaceTimeoutException;
+import org.openspaces.core.map.LeaseLockManager;
+import org.openspaces.core.map.LockHandle;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import javax.annotation.Resource;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration("classpath:/org/openspaces/itest/core/map/simple/lease-lock-map.xml")
+public class LeaseLockMapTests {
+
+    @Resource
+    protected IMap map;
+
+    @Resource
+    protected GigaMap gigaMap;
+
+    @Before
+    public void onSetUp() throws Exception {
+        gigaMap.clear(true);
+    }
+
+    @Test
+    public void testLockAndUnlock() {
+        gigaMap.put("1", "value");
+        LockHandle lockHandle = gigaMap.lock("1");
+        assertNull(lockHandle.getTransaction());
+        assertTrue(gigaMap.isLocked("1"));
+        gigaMap.putAndUnlock("1", "value1");
+        assertFalse(gigaMap.isLocked("1"));
+        assertEquals("value1", gigaMap.get("1"));
+    }
+
+    @Test
+    public void testPutAndUnlockReleasesLock() {
+        gigaMap.lock("1");
+        gigaMap.putAndUnlock("1", "value");
+        LeaseLockManager otherOwner = new LeaseLockManager(map);
+        assertFalse(otherOwner.islocked("1"));
+        otherOwner.lock("1", 60000, 0).unlock();
+        assertEquals("value", gigaMap.get("1"));
+    }
+
+    @Test
+    public void testLockedByAnotherOwner() {
+        LeaseLockManager otherOwner = new LeaseLockManager(map);
+        LockHandle lockHandle = otherOwner.lock("1", 60000, 0);
+        assertTrue(gigaMap.isLocked("1"));
+        try {
+            gigaMap.lock("1", 60000, 100);
+            fail();
+        } catch (SpaceTimeoutException e) {
+            // all is well, we are locked
+        }
+        lockHandle.unlock();
+        gigaMap.lock("1", 60000, 100).unlock();
+    }
+
+    @Test
+    public void testFenceIncreases() {
+        LockHandle first = gigaMap.lock("1");
+        first.unlock();
+        LockHandle second = gigaMap.lock("1");
+        assertTrue(second.getFence() > first.getFence());
+        // a stale handle can not renew the newer lock
+        assertFalse(first.renew(60000));
+        assertTrue(second.renew(60000));
+        second.unlock();
+    }
+
+    @Test
+    public void testExpiredLock() throws InterruptedException {
+        gigaMap.lock("1", 100, 0);
+        Thread.sleep(500);
+        assertFalse(new LeaseLockManager(map).islocked("1"));
+        try {
+            gigaMap.putAndUnlock("1", "value");
+            fail();
+        } catch (PessimisticLockingFailureException e) {
+            // the lock expired
+        }
+        assertNull(gigaMap.get("1"));
+    }
+}
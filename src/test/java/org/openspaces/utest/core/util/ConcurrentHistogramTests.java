@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.core.util;
+
+import junit.framework.TestCase;
+import org.openspaces.core.util.ConcurrentHistogram;
+
+public class ConcurrentHistogramTests extends TestCase {
+
+    public void testEmpty() {
+        ConcurrentHistogram histogram = new ConcurrentHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        assertEquals(0.0, histogram.getMean());
+    }
+
+    public void testSmallValuesAreExact() {
+        ConcurrentHistogram histogram = new ConcurrentHistogram();
+        for (int i = 1; i <= 20; i++) {
+            histogram.record(i);
+        }
+        assertEquals(20, histogram.getCount());
+        assertEquals(10, histogram.getValueAtPercentile(50));
+        assertEquals(20, histogram.getValueAtPercentile(100));
+        assertEquals(20, histogram.getMax());
+        assertEquals(10.5, histogram.getMean());
+    }
+
+    public void testPercentilesWithinPrecision() {
+        ConcurrentHistogram histogram = new ConcurrentHistogram();
+        for (int i = 1; i <= 100000; i++) {
+            histogram.record(i);
+        }
+        assertWithinPrecision(50000, histogram.getValueAtPercentile(50));
+        assertWithinPrecision(99000, histogram.getValueAtPercentile(99));
+        assertWithinPrecision(99900, histogram.getValueAtPercentile(99.9));
+        assertEquals(100000, histogram.getValueAtPercentile(100));
+    }
+
+    public void testLargeAndNegativeValues() {
+        ConcurrentHistogram histogram = new ConcurrentHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(0, histogram.getValueAtPercentile(50));
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+    }
+
+    public void testReset() {
+        ConcurrentHistogram histogram = new ConcurrentHistogram();
+        histogram.record(1000);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(50));
+    }
+
+    private static void assertWithinPrecision(long expected, long actual) {
+        assertTrue("expected [" + expected + "] but was [" + actual + "]", actual >= expected && actual <= expected + expected / 32);
+    }
+}
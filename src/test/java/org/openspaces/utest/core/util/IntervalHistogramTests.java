@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.core.util;
+
+import junit.framework.TestCase;
+import org.openspaces.core.util.ConcurrentHistogram;
+import org.openspaces.core.util.IntervalHistogram;
+
+public class IntervalHistogramTests extends TestCase {
+
+    public void testReportsOnlyTheLastInterval() {
+        // every reading completes the interval
+        IntervalHistogram histogram = new IntervalHistogram(0);
+        histogram.record(1000);
+        histogram.record(2000);
+        ConcurrentHistogram interval = histogram.getIntervalHistogram();
+        assertEquals(2, interval.getCount());
+        assertEquals(2000, interval.getMax());
+
+        histogram.record(10);
+        interval = histogram.getIntervalHistogram();
+        assertEquals(1, interval.getCount());
+        assertEquals(10, interval.getMax());
+
+        assertEquals(0, histogram.getIntervalHistogram().getCount());
+    }
+
+    public void testReadingsWithinTheIntervalAreStable() {
+        IntervalHistogram histogram = new IntervalHistogram(Long.MAX_VALUE);
+        histogram.record(1000);
+        // the first interval has not completed yet
+        assertEquals(0, histogram.getIntervalHistogram().getCount());
+        histogram.record(2000);
+        assertEquals(0, histogram.getIntervalHistogram().getCount());
+    }
+}
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.core.util;
+
+import junit.framework.TestCase;
+import org.openspaces.core.util.StripedCounter;
+
+import java.util.concurrent.CountDownLatch;
+
+public class StripedCounterTests extends TestCase {
+
+    public void testAddAndReset() {
+        StripedCounter counter = new StripedCounter(3);
+        counter.increment();
+        counter.add(10);
+        counter.decrement();
+        assertEquals(10, counter.get());
+        counter.reset();
+        assertEquals(0, counter.get());
+    }
+
+    public void testConcurrentUpdates() throws Exception {
+        final StripedCounter counter = new StripedCounter();
+        final int threads = 8;
+        final int updates = 100000;
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < updates; j++) {
+                        counter.add(2);
+                        counter.decrement();
+                    }
+                }
+            };
+            workers[i].start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals((long) threads * updates, counter.get());
+    }
+
+    public void testIllegalStripes() {
+        try {
+            new StripedCounter(0);
+            fail("stripes must be positive");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,330 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.events.notify;
+
+import com.gigaspaces.events.batching.BatchRemoteEvent;
+import com.gigaspaces.metadata.SpaceTypeDescriptor;
+import junit.framework.TestCase;
+import net.jini.core.event.RemoteEvent;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.GigaSpaceTypeManager;
+import org.openspaces.events.SpaceDataBatchEventListener;
+import org.openspaces.events.SpaceDataEventListener;
+import org.openspaces.events.notify.SimpleNotifyEventListenerContainer;
+import org.springframework.transaction.TransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the coalescing, batch listener and dispatch paths of the notify container, without a space.
+ */
+public class NotifyContainerDispatchTests extends TestCase {
+
+    private final List<Event> processed = Collections.synchronizedList(new ArrayList<Event>());
+
+    private final List<List<Event>> batches = Collections.synchronizedList(new ArrayList<List<Event>>());
+
+    private TestContainer container;
+
+    @Override
+    protected void setUp() throws Exception {
+        SpaceTypeDescriptor typeDescriptor = mock(SpaceTypeDescriptor.class);
+        when(typeDescriptor.getIdPropertyName()).thenReturn("id");
+        when(typeDescriptor.getRoutingPropertyName()).thenReturn("routing");
+        GigaSpaceTypeManager typeManager = mock(GigaSpaceTypeManager.class);
+        when(typeManager.getTypeDescriptor(Event.class)).thenReturn(typeDescriptor);
+        GigaSpace gigaSpace = mock(GigaSpace.class);
+        when(gigaSpace.getTypeManager()).thenReturn(typeManager);
+
+        container = new TestContainer();
+        container.setBeanName("test");
+        container.setGigaSpace(gigaSpace);
+        container.setEventListener(new SpaceDataEventListener<Event>() {
+            public void onEvent(Event data, GigaSpace gigaSpace, TransactionStatus txStatus, Object source) {
+                processed.add(data);
+            }
+        });
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        container.stopDispatcher();
+    }
+
+    public void testBatchIsCoalescedById() {
+        container.setCoalesceEventsById(true);
+        container.initialize();
+        Event a1 = new Event("a", 1, 1);
+        Event b1 = new Event("b", 2, 2);
+        Event a2 = new Event("a", 1, 3);
+        Event c1 = new Event("c", 3, 4);
+        container.handleBatch(a1, b1, a2, c1);
+
+        assertEquals(3, processed.size());
+        assertSame(b1, processed.get(0));
+        assertSame(a2, processed.get(1));
+        assertSame(c1, processed.get(2));
+        assertEquals(1, container.getCoalescedEvents());
+    }
+
+    public void testBatchIsNotCoalescedByDefault() {
+        container.initialize();
+        container.handleBatch(new Event("a", 1, 1), new Event("a", 1, 2));
+
+        assertEquals(2, processed.size());
+        assertEquals(0, container.getCoalescedEvents());
+    }
+
+    public void testBatchListenerReceivesWholeBatch() {
+        container.setEventListener(new TestBatchListener());
+        container.initialize();
+        Event a = new Event("a", 1, 1);
+        Event b = new Event("b", 2, 2);
+        container.handleBatch(a, b);
+
+        assertTrue(processed.isEmpty());
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).size());
+        assertSame(a, batches.get(0).get(0));
+        assertSame(b, batches.get(0).get(1));
+        assertEquals(2, container.getProcessedEvents());
+    }
+
+    public void testDispatchedBatchKeepsOrderPerRouting() throws Exception {
+        container.setDispatchWorkers(4);
+        container.setEventListener(new TestBatchListener());
+        container.initialize();
+        container.startDispatcher();
+        Event[] events = new Event[1000];
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new Event("id" + i, i % 10, i);
+        }
+        container.handleBatch(events);
+        container.stopDispatcher();
+
+        List<Event> received = new ArrayList<Event>();
+        for (List<Event> batch : batches) {
+            // each part of the batch is handled by the worker of its routing values
+            for (Event event : batch) {
+                received.add(event);
+            }
+        }
+        assertEquals(events.length, received.size());
+        int[] lastSequence = new int[10];
+        for (int i = 0; i < lastSequence.length; i++) {
+            lastSequence[i] = -1;
+        }
+        synchronized (batches) {
+            for (List<Event> batch : batches) {
+                for (Event event : batch) {
+                    assertTrue(event.getSequence() > lastSequence[event.getRouting()]);
+                    lastSequence[event.getRouting()] = event.getSequence();
+                }
+            }
+        }
+    }
+
+    public void testInterruptedDispatchDoesNotOvertakeQueuedEvents() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        container.setDispatchWorkers(1);
+        container.setDispatchQueueCapacity(1);
+        container.setEventListener(new BlockingListener(release));
+        container.initialize();
+        container.startDispatcher();
+
+        container.handleEvent(new Event("a", 1, 1), null);
+        awaitProcessingStarted();
+        container.handleEvent(new Event("b", 1, 2), null);
+        final boolean[] interruptedAfterDispatch = new boolean[1];
+        Thread delivery = new Thread(new Runnable() {
+            public void run() {
+                container.handleEvent(new Event("c", 1, 3), null);
+                interruptedAfterDispatch[0] = Thread.currentThread().isInterrupted();
+            }
+        });
+        delivery.start();
+        Thread.sleep(100);
+        delivery.interrupt();
+        Thread.sleep(100);
+        assertTrue(delivery.isAlive());
+        assertEquals(1, processed.size());
+
+        release.countDown();
+        delivery.join(5000);
+        assertFalse(delivery.isAlive());
+        assertTrue(interruptedAfterDispatch[0]);
+        container.stopDispatcher();
+        assertSequences(1, 2, 3);
+    }
+
+    public void testDispatchDuringStopDoesNotOvertakeQueuedEvents() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        container.setDispatchWorkers(1);
+        container.setDispatchQueueCapacity(1);
+        container.setEventListener(new BlockingListener(release));
+        container.initialize();
+        container.startDispatcher();
+
+        container.handleEvent(new Event("a", 1, 1), null);
+        awaitProcessingStarted();
+        container.handleEvent(new Event("b", 1, 2), null);
+        Thread delivery = new Thread(new Runnable() {
+            public void run() {
+                container.handleEvent(new Event("c", 1, 3), null);
+            }
+        });
+        delivery.start();
+        Thread stopper = new Thread(new Runnable() {
+            public void run() {
+                container.stopDispatcher();
+            }
+        });
+        Thread.sleep(100);
+        stopper.start();
+        // the dispatcher rejects the pending dispatch once stopped
+        Thread.sleep(300);
+        assertEquals(1, processed.size());
+
+        release.countDown();
+        delivery.join(5000);
+        stopper.join(5000);
+        assertSequences(1, 2, 3);
+    }
+
+    private void awaitProcessingStarted() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (processed.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, processed.size());
+    }
+
+    private void assertSequences(int... sequences) {
+        assertEquals(sequences.length, processed.size());
+        for (int i = 0; i < sequences.length; i++) {
+            assertEquals(sequences[i], processed.get(i).getSequence());
+        }
+    }
+
+    private class TestBatchListener implements SpaceDataBatchEventListener<Event> {
+
+        public void onBatch(List<Event> data, GigaSpace gigaSpace, TransactionStatus txStatus, Object source) {
+            batches.add(new ArrayList<Event>(data));
+        }
+
+        public void onEvent(Event data, GigaSpace gigaSpace, TransactionStatus txStatus, Object source) {
+            processed.add(data);
+        }
+    }
+
+    private class BlockingListener implements SpaceDataEventListener<Event> {
+
+        private final CountDownLatch release;
+
+        BlockingListener(CountDownLatch release) {
+            this.release = release;
+        }
+
+        public void onEvent(Event data, GigaSpace gigaSpace, TransactionStatus txStatus, Object source) {
+            processed.add(data);
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static class TestContainer extends SimpleNotifyEventListenerContainer {
+
+        private final Map<RemoteEvent, Object> eventData = new HashMap<RemoteEvent, Object>();
+
+        @Override
+        public void initialize() {
+            // only the parts needed to handle events, without registering with a space
+            doInitialize();
+        }
+
+        @Override
+        public void startDispatcher() {
+            super.startDispatcher();
+        }
+
+        @Override
+        public void stopDispatcher() {
+            super.stopDispatcher();
+        }
+
+        @Override
+        public void handleEvent(Object eventData, RemoteEvent remoteEvent) {
+            super.handleEvent(eventData, remoteEvent);
+        }
+
+        void handleBatch(Event... events) {
+            RemoteEvent[] remoteEvents = new RemoteEvent[events.length];
+            for (int i = 0; i < events.length; i++) {
+                remoteEvents[i] = new RemoteEvent(this, 0, events[i].getSequence(), null);
+                eventData.put(remoteEvents[i], events[i]);
+            }
+            BatchRemoteEvent batchRemoteEvent = mock(BatchRemoteEvent.class);
+            when(batchRemoteEvent.getEvents()).thenReturn(remoteEvents);
+            invokeListenerWithTransaction(batchRemoteEvent, false, false);
+        }
+
+        @Override
+        protected Object getEventData(RemoteEvent remoteEvent) {
+            return eventData.get(remoteEvent);
+        }
+    }
+
+    public static class Event {
+
+        private final String id;
+
+        private final Integer routing;
+
+        private final int sequence;
+
+        public Event(String id, Integer routing, int sequence) {
+            this.id = id;
+            this.routing = routing;
+            this.sequence = sequence;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public Integer getRouting() {
+            return routing;
+        }
+
+        public int getSequence() {
+            return sequence;
+        }
+    }
+}
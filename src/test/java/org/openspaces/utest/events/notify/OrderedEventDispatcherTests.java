@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.events.notify;
+
+import junit.framework.TestCase;
+import org.openspaces.events.notify.OrderedEventDispatcher;
+import org.openspaces.events.notify.SpaceEventKeyResolver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class OrderedEventDispatcherTests extends TestCase {
+
+    public void testKeepsOrderPerKey() throws Exception {
+        OrderedEventDispatcher dispatcher = new OrderedEventDispatcher("test", 4, 16);
+        final int keys = 10;
+        final int eventsPerKey = 1000;
+        final List<List<Integer>> received = new ArrayList<List<Integer>>();
+        for (int i = 0; i < keys; i++) {
+            received.add(Collections.synchronizedList(new ArrayList<Integer>()));
+        }
+        for (int i = 0; i < eventsPerKey; i++) {
+            for (int key = 0; key < keys; key++) {
+                final int event = i;
+                final List<Integer> keyEvents = received.get(key);
+                dispatcher.dispatch(key, new Runnable() {
+                    public void run() {
+                        keyEvents.add(event);
+                    }
+                });
+            }
+        }
+        dispatcher.shutdown();
+        assertTrue(dispatcher.awaitTermination(10000));
+        for (List<Integer> keyEvents : received) {
+            assertEquals(eventsPerKey, keyEvents.size());
+            for (int i = 0; i < eventsPerKey; i++) {
+                assertEquals(i, keyEvents.get(i).intValue());
+            }
+        }
+    }
+
+    public void testBlocksWhenQueueIsFull() throws Exception {
+        final OrderedEventDispatcher dispatcher = new OrderedEventDispatcher("test", 1, 2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger executed = new AtomicInteger();
+        Runnable blocking = new Runnable() {
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                executed.incrementAndGet();
+            }
+        };
+        Runnable counting = new Runnable() {
+            public void run() {
+                executed.incrementAndGet();
+            }
+        };
+        dispatcher.dispatch("key", blocking);
+        // wait for the worker to pick the blocking task, leaving the queue empty
+        while (dispatcher.getPendingTasks() > 0) {
+            Thread.sleep(1);
+        }
+        dispatcher.dispatch("key", counting);
+        dispatcher.dispatch("key", counting);
+        final CountDownLatch dispatched = new CountDownLatch(1);
+        Thread producer = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    dispatcher.dispatch("key", new Runnable() {
+                        public void run() {
+                            executed.incrementAndGet();
+                        }
+                    });
+                    dispatched.countDown();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        producer.start();
+        assertFalse(dispatched.await(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertTrue(dispatched.await(5000, TimeUnit.MILLISECONDS));
+        dispatcher.shutdown();
+        assertTrue(dispatcher.awaitTermination(5000));
+        assertEquals(4, executed.get());
+    }
+
+    public void testRejectsAfterShutdown() throws Exception {
+        OrderedEventDispatcher dispatcher = new OrderedEventDispatcher("test", 2, 2);
+        dispatcher.shutdown();
+        assertTrue(dispatcher.awaitTermination(5000));
+        try {
+            dispatcher.dispatch("key", new Runnable() {
+                public void run() {
+                }
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    public void testAwaitWorkerTerminationWaitsForQueuedTasks() throws Exception {
+        OrderedEventDispatcher dispatcher = new OrderedEventDispatcher("test", 1, 4);
+        final CountDownLatch release = new CountDownLatch(1);
+        final List<Integer> executed = Collections.synchronizedList(new ArrayList<Integer>());
+        dispatcher.dispatch("key", new Runnable() {
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                executed.add(1);
+            }
+        });
+        dispatcher.dispatch("key", new Runnable() {
+            public void run() {
+                executed.add(2);
+            }
+        });
+        dispatcher.shutdown();
+        assertFalse(dispatcher.awaitWorkerTermination(0, 200));
+        release.countDown();
+        assertTrue(dispatcher.awaitWorkerTermination(0, 5000));
+        assertEquals(2, executed.size());
+        assertEquals(1, executed.get(0).intValue());
+        assertEquals(2, executed.get(1).intValue());
+    }
+
+    public void testSameKeySameWorker() {
+        OrderedEventDispatcher dispatcher = new OrderedEventDispatcher("test", 8, 2);
+        try {
+            assertEquals(0, dispatcher.getWorkerIndex(null));
+            for (int i = 0; i < 100; i++) {
+                int worker = dispatcher.getWorkerIndex("key" + i);
+                assertTrue(worker >= 0 && worker < 8);
+                assertEquals(worker, dispatcher.getWorkerIndex("key" + i));
+            }
+        } finally {
+            dispatcher.shutdown();
+        }
+    }
+
+    public void testIndexesOfLatest() {
+        int[] indexes = SpaceEventKeyResolver.indexesOfLatest(new Object[]{"a", "b", "a", null, "c", "b", null});
+        assertEquals(5, indexes.length);
+        assertEquals(2, indexes[0]);
+        assertEquals(3, indexes[1]);
+        assertEquals(4, indexes[2]);
+        assertEquals(5, indexes[3]);
+        assertEquals(6, indexes[4]);
+
+        indexes = SpaceEventKeyResolver.indexesOfLatest(new Object[]{"a", "b"});
+        assertEquals(2, indexes.length);
+    }
+}
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.events.polling;
+
+import junit.framework.TestCase;
+import org.openspaces.events.polling.AdaptiveBatchSize;
+
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveBatchSizeTests extends TestCase {
+
+    private static final long TARGET = TimeUnit.MILLISECONDS.toNanos(100);
+
+    public void testGrowsWithBacklog() {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(50, 1, 1000, TARGET);
+        // full batches processed fast
+        batchSize.update(50, TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(100, batchSize.getBatchSize());
+        batchSize.update(100, TimeUnit.MILLISECONDS.toNanos(2));
+        assertEquals(200, batchSize.getBatchSize());
+        for (int i = 0; i < 10; i++) {
+            batchSize.update(batchSize.getBatchSize(), TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        assertEquals(1000, batchSize.getBatchSize());
+    }
+
+    public void testDoesNotGrowBeyondLatencyTarget() {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(50, 1, 1000, TARGET);
+        // 1ms per event, so no more than 100 events fit the target
+        batchSize.update(50, TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(100, batchSize.getBatchSize());
+        batchSize.update(100, TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(100, batchSize.getBatchSize());
+    }
+
+    public void testShrinksWhenListenerIsSlow() {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(200, 1, 1000, TARGET);
+        // 5ms per event, 20 events fit the target
+        batchSize.update(200, TimeUnit.MILLISECONDS.toNanos(1000));
+        assertEquals(20, batchSize.getBatchSize());
+        // a single very slow event goes down to the minimum
+        batchSize.update(1, TimeUnit.SECONDS.toNanos(1));
+        assertEquals(1, batchSize.getBatchSize());
+    }
+
+    public void testDecaysWithoutBacklog() {
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(100, 10, 1000, TARGET);
+        batchSize.update(5, TimeUnit.MILLISECONDS.toNanos(1));
+        assertEquals(75, batchSize.getBatchSize());
+        for (int i = 0; i < 20; i++) {
+            batchSize.update(5, TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        assertEquals(10, batchSize.getBatchSize());
+    }
+
+    public void testInitialBatchSizeIsBounded() {
+        assertEquals(500, new AdaptiveBatchSize(2000, 1, 500, TARGET).getBatchSize());
+        assertEquals(10, new AdaptiveBatchSize(1, 10, 500, TARGET).getBatchSize());
+    }
+}
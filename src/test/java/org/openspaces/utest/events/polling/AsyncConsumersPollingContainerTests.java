@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.events.polling;
+
+import com.gigaspaces.async.AsyncFuture;
+import com.gigaspaces.async.AsyncFutureListener;
+import com.gigaspaces.async.internal.DefaultAsyncResult;
+import junit.framework.TestCase;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.events.SpaceDataEventListener;
+import org.openspaces.events.asyncpolling.receive.AsyncOperationHandler;
+import org.openspaces.events.polling.SimplePollingEventListenerContainer;
+import org.openspaces.events.polling.receive.ReceiveOperationHandler;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the polling container running with async consumers against an in memory event queue.
+ */
+public class AsyncConsumersPollingContainerTests extends TestCase {
+
+    private final BlockingQueue<Object> events = new LinkedBlockingQueue<Object>();
+
+    private final List<Object> processed = Collections.synchronizedList(new ArrayList<Object>());
+
+    private final List<Long> receiveTimeouts = Collections.synchronizedList(new ArrayList<Long>());
+
+    private final ExecutorService waitExecutor = Executors.newCachedThreadPool();
+
+    private TestContainer container;
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (container != null) {
+            container.shutdown();
+        }
+        waitExecutor.shutdownNow();
+    }
+
+    public void testAsyncConsumersUseOverriddenHooksWithoutBlocking() throws Exception {
+        container = createContainer(1, 1);
+        container.afterPropertiesSet();
+        for (int i = 0; i < 5; i++) {
+            events.add(i);
+        }
+        awaitProcessed(5);
+
+        assertTrue(container.doReceiveAndExecuteCalls.get() >= 5);
+        assertEquals(0, container.defaultTaskExecutorsCreated.get());
+        for (Long receiveTimeout : new ArrayList<Long>(receiveTimeouts)) {
+            assertEquals(0, receiveTimeout.longValue());
+        }
+    }
+
+    public void testSingleAsyncConsumerKeepsEventOrder() throws Exception {
+        for (int i = 0; i < 100; i++) {
+            events.add(i);
+        }
+        container = createContainer(1, 1);
+        container.afterPropertiesSet();
+        awaitProcessed(100);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, processed.get(i));
+        }
+    }
+
+    public void testShutdownStopsAsyncConsumers() throws Exception {
+        container = createContainer(2, 4);
+        container.afterPropertiesSet();
+        events.add(1);
+        awaitProcessed(1);
+
+        container.shutdown();
+        assertEquals(0, container.getActiveConsumerCount());
+        events.add(2);
+        // longer than the receive timeout, so pending waits complete
+        Thread.sleep(300);
+        assertEquals(1, processed.size());
+        assertEquals(1, events.size());
+        assertEquals(0, container.getScheduledConsumerCount());
+    }
+
+    public void testListenerFailureRollsBackTransaction() throws Exception {
+        final Map<Object, TransactionStatus> statuses = new ConcurrentHashMap<Object, TransactionStatus>();
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any(TransactionDefinition.class))).thenAnswer(new Answer<TransactionStatus>() {
+            public TransactionStatus answer(InvocationOnMock invocation) {
+                return new SimpleTransactionStatus();
+            }
+        });
+        container = createContainer(1, 1);
+        container.setTransactionManager(transactionManager);
+        container.setDisableTransactionValidation(true);
+        container.setEventListener(new SpaceDataEventListener<Object>() {
+            public void onEvent(Object data, GigaSpace gigaSpace, TransactionStatus txStatus, Object source) {
+                statuses.put(data, txStatus);
+                processed.add(data);
+                if ("fail".equals(data)) {
+                    throw new IllegalStateException("listener failure");
+                }
+            }
+        });
+        container.afterPropertiesSet();
+        events.add("fail");
+        events.add("ok");
+        awaitProcessed(2);
+
+        TransactionStatus failed = statuses.get("fail");
+        TransactionStatus succeeded = statuses.get("ok");
+        assertTrue(failed.isRollbackOnly());
+        verify(transactionManager).rollback(failed);
+        verify(transactionManager, never()).commit(failed);
+        verify(transactionManager).commit(succeeded);
+    }
+
+    private TestContainer createContainer(int concurrentConsumers, int maxConcurrentConsumers) {
+        TestContainer container = new TestContainer();
+        container.setBeanName("test");
+        container.setGigaSpace(mock(GigaSpace.class));
+        container.setTemplate(new Object());
+        container.setPerformSnapshot(false);
+        container.setActiveWhenPrimary(false);
+        container.setAsyncConsumers(true);
+        container.setConcurrentConsumers(concurrentConsumers);
+        container.setMaxConcurrentConsumers(maxConcurrentConsumers);
+        container.setReceiveTimeout(100);
+        container.setReceiveOperationHandler(new ReceiveOperationHandler() {
+            public Object receive(Object template, GigaSpace gigaSpace, long receiveTimeout) throws DataAccessException {
+                receiveTimeouts.add(receiveTimeout);
+                try {
+                    return events.poll(receiveTimeout, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+        });
+        container.setAsyncWaitOperationHandler(new AsyncOperationHandler() {
+            public AsyncFuture asyncReceive(Object template, GigaSpace gigaSpace, final long receiveTimeout, final AsyncFutureListener listener) {
+                waitExecutor.execute(new Runnable() {
+                    @SuppressWarnings("unchecked")
+                    public void run() {
+                        long deadline = System.currentTimeMillis() + receiveTimeout;
+                        Object event = events.peek();
+                        while (event == null && System.currentTimeMillis() < deadline) {
+                            try {
+                                Thread.sleep(1);
+                            } catch (InterruptedException e) {
+                                return;
+                            }
+                            event = events.peek();
+                        }
+                        listener.onResult(new DefaultAsyncResult<Object>(event, null));
+                    }
+                });
+                return null;
+            }
+        });
+        container.setEventListener(new SpaceDataEventListener<Object>() {
+            public void onEvent(Object data, GigaSpace gigaSpace, TransactionStatus txStatus, Object source) {
+                processed.add(data);
+            }
+        });
+        return container;
+    }
+
+    private void awaitProcessed(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (processed.size() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, processed.size());
+    }
+
+    private static class TestContainer extends SimplePollingEventListenerContainer {
+
+        private final AtomicInteger doReceiveAndExecuteCalls = new AtomicInteger();
+
+        private final AtomicInteger defaultTaskExecutorsCreated = new AtomicInteger();
+
+        @Override
+        protected boolean doReceiveAndExecute(SpaceDataEventListener eventListener, Object template, TransactionStatus status) {
+            doReceiveAndExecuteCalls.incrementAndGet();
+            return super.doReceiveAndExecute(eventListener, template, status);
+        }
+
+        @Override
+        protected TaskExecutor createDefaultTaskExecutor() {
+            defaultTaskExecutorsCreated.incrementAndGet();
+            return super.createDefaultTaskExecutor();
+        }
+    }
+}
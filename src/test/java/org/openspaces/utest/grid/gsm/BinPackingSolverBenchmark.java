@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.grid.gsm;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openspaces.core.internal.commons.math.fraction.Fraction;
+import org.openspaces.grid.gsm.capacity.CapacityRequirements;
+import org.openspaces.grid.gsm.capacity.CapacityRequirementsPerAgent;
+import org.openspaces.grid.gsm.capacity.CpuCapacityRequirement;
+import org.openspaces.grid.gsm.capacity.MemoryCapacityRequirement;
+import org.openspaces.grid.gsm.machines.BinPackingSolver;
+
+/**
+ * Measures the time {@link BinPackingSolver} takes to scale out a processing unit to all the machines of a large
+ * cluster, to scale it back in to a tenth of the machines, and to pick new machines.
+ *
+ * <p>Not run as part of the test suite. Usage:
+ * <code>BinPackingSolverBenchmark [machines] [containers per machine] [iterations]</code>
+ */
+public class BinPackingSolverBenchmark {
+
+    private static final Log logger = LogFactory.getLog(BinPackingSolverBenchmark.class);
+
+    private static final long CONTAINER_MEMORY_MEGABYTES = 512;
+
+    public static void main(String[] args) {
+        int machines = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int containersPerMachine = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        // warm up
+        run(machines / 10, containersPerMachine, 1);
+        run(machines, containersPerMachine, iterations);
+    }
+
+    private static void run(int machines, int containersPerMachine, int iterations) {
+        long scaleOutNanos = 0;
+        long scaleInNanos = 0;
+        long numberOfMachinesNanos = 0;
+        for (int i = 0; i < iterations; i++) {
+            CapacityRequirementsPerAgent unallocated = new CapacityRequirementsPerAgent();
+            for (int machine = 0; machine < machines; machine++) {
+                unallocated = unallocated.add("agent" + machine, machineCapacity(containersPerMachine));
+            }
+            long totalMemory = machines * containersPerMachine * CONTAINER_MEMORY_MEGABYTES;
+
+            BinPackingSolver solver = newSolver(totalMemory);
+            solver.setAllocatedCapacityForPu(new CapacityRequirementsPerAgent());
+            solver.setUnallocatedCapacity(unallocated);
+            long start = System.nanoTime();
+            solver.solveManualCapacityScaleOut(new CapacityRequirements(
+                    new MemoryCapacityRequirement(totalMemory),
+                    new CpuCapacityRequirement(new Fraction(machines * 2))));
+            scaleOutNanos += System.nanoTime() - start;
+
+            CapacityRequirementsPerAgent allocated = solver.getAllocatedCapacityForPu();
+            solver = newSolver(totalMemory);
+            solver.setAllocatedCapacityForPu(allocated);
+            solver.setUnallocatedCapacity(unallocated.subtract(allocated));
+            start = System.nanoTime();
+            solver.solveManualCapacityScaleIn(new CapacityRequirements(
+                    new MemoryCapacityRequirement(totalMemory / 10 * 9),
+                    new CpuCapacityRequirement(new Fraction(machines * 2 / 10 * 9))));
+            scaleInNanos += System.nanoTime() - start;
+
+            solver = newSolver(totalMemory);
+            solver.setAllocatedCapacityForPu(new CapacityRequirementsPerAgent());
+            solver.setUnallocatedCapacity(unallocated);
+            start = System.nanoTime();
+            solver.solveNumberOfMachines(machines / 2);
+            numberOfMachinesNanos += System.nanoTime() - start;
+        }
+        report("scale out", machines, iterations, scaleOutNanos);
+        report("scale in", machines, iterations, scaleInNanos);
+        report("machines", machines, iterations, numberOfMachinesNanos);
+    }
+
+    private static BinPackingSolver newSolver(long maxMemory) {
+        BinPackingSolver solver = new BinPackingSolver();
+        solver.setLogger(logger);
+        solver.setContainerMemoryCapacityInMB(CONTAINER_MEMORY_MEGABYTES);
+        solver.setMaxAllocatedMemoryCapacityOfPuInMB(maxMemory);
+        solver.setMaxAllocatedMemoryCapacityOfPuPerMachineInMB(maxMemory);
+        solver.setMinimumNumberOfMachines(2);
+        return solver;
+    }
+
+    private static CapacityRequirements machineCapacity(int containers) {
+        return new CapacityRequirements(
+                new CpuCapacityRequirement(new Fraction(4)),
+                new MemoryCapacityRequirement(containers * CONTAINER_MEMORY_MEGABYTES));
+    }
+
+    private static void report(String name, int machines, int iterations, long nanos) {
+        double millis = nanos / 1000000.0;
+        System.out.println(String.format("%-10s %5d machines: %10.1f ms/iteration", name, machines, millis / iterations));
+    }
+}
@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.grid.gsm;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openspaces.core.internal.commons.math.fraction.Fraction;
+import org.openspaces.grid.gsm.capacity.CapacityRequirements;
+import org.openspaces.grid.gsm.capacity.CapacityRequirementsPerAgent;
+import org.openspaces.grid.gsm.capacity.CpuCapacityRequirement;
+import org.openspaces.grid.gsm.capacity.MemoryCapacityRequirement;
+import org.openspaces.grid.gsm.machines.BinPackingSolver;
+
+/**
+ * Runs {@link BinPackingSolver} on random clusters of 1,000 machines of different sizes, and checks properties that
+ * hold for any input: memory is allocated in whole containers, no machine is allocated more than it has or more than
+ * the per machine maximum, allocated and unallocated capacity add up to the machine capacity, the goal is reached,
+ * and the solver completes within a time bound.
+ * 
+ * @see BinPackingSolverBenchmark
+ */
+public class BinPackingSolverPropertiesTest extends TestCase {
+
+    private static final Log logger = LogFactory.getLog(BinPackingSolverPropertiesTest.class);
+
+    private static final int MACHINES = 1000;
+
+    private static final long CONTAINER_MEMORY_MEGABYTES = 512;
+
+    private static final long MAX_SOLVER_MILLIS = 30 * 1000;
+
+    private static final long[] SEEDS = { 1L, 17L };
+
+    public void testScaleOutAndScaleIn() {
+        for (long seed : SEEDS) {
+            Random random = new Random(seed);
+            Map<String, Long> usedMemory = new HashMap<String, Long>();
+            CapacityRequirementsPerAgent physical = randomCluster(random, usedMemory);
+            long physicalMemory = getMemoryInMB(physical.getTotalAllocatedCapacity());
+
+            // scale out to a random goal, up to half of the cluster memory (so the per machine maximum does not limit it).
+            // memory only, spreading cpu cores evenly per container over machines of different sizes
+            // accumulates fractions that overflow (see BinPackingSolverTest for cpu scenarios)
+            long goalMemory = roundToContainer(1 + random.nextInt((int) (physicalMemory / 2)));
+            BinPackingSolver solver = newSolver(physicalMemory);
+            solver.setAllocatedCapacityForPu(new CapacityRequirementsPerAgent());
+            solver.setUnallocatedCapacity(physical);
+            long start = System.currentTimeMillis();
+            solver.solveManualCapacityScaleOut(new CapacityRequirements(new MemoryCapacityRequirement(goalMemory)));
+            assertSolvedInTime("scale out seed=" + seed, start);
+            assertProperties(solver, physical, new CapacityRequirementsPerAgent(), physicalMemory);
+            CapacityRequirementsPerAgent allocated = solver.getAllocatedCapacityForPu();
+            CapacityRequirementsPerAgent unallocated = solver.getUnallocatedCapacity();
+            Assert.assertEquals("seed=" + seed, goalMemory, getMemoryInMB(allocated.getTotalAllocatedCapacity()));
+
+            // scale in by a random number of containers, using the live memory of the machines
+            long allocatedMemory = getMemoryInMB(allocated.getTotalAllocatedCapacity());
+            long memoryToDeallocate = roundToContainer(1 + random.nextInt((int) (allocatedMemory / 2)));
+            solver = newSolver(physicalMemory);
+            solver.setAllocatedCapacityForPu(allocated);
+            solver.setUnallocatedCapacity(unallocated);
+            solver.setUsedMemoryPerAgentInMB(usedMemory);
+            start = System.currentTimeMillis();
+            solver.solveManualCapacityScaleIn(new CapacityRequirements(new MemoryCapacityRequirement(memoryToDeallocate)));
+            assertSolvedInTime("scale in seed=" + seed, start);
+            assertProperties(solver, physical, allocated, physicalMemory);
+            long remainingMemory = getMemoryInMB(solver.getAllocatedCapacityForPu().getTotalAllocatedCapacity());
+            Assert.assertTrue("seed=" + seed, remainingMemory >= allocatedMemory - memoryToDeallocate);
+            Assert.assertTrue("seed=" + seed, remainingMemory <= allocatedMemory);
+        }
+    }
+
+    public void testNumberOfMachines() {
+        for (long seed : SEEDS) {
+            Random random = new Random(seed);
+            CapacityRequirementsPerAgent physical = randomCluster(random, new HashMap<String, Long>());
+            int numberOfMachines = 1 + random.nextInt(MACHINES);
+
+            BinPackingSolver solver = newSolver(getMemoryInMB(physical.getTotalAllocatedCapacity()));
+            solver.setAllocatedCapacityForPu(new CapacityRequirementsPerAgent());
+            solver.setUnallocatedCapacity(physical);
+            long start = System.currentTimeMillis();
+            solver.solveNumberOfMachines(numberOfMachines);
+            assertSolvedInTime("number of machines seed=" + seed, start);
+
+            CapacityRequirementsPerAgent allocated = solver.getAllocatedCapacityResult();
+            Assert.assertEquals("seed=" + seed, numberOfMachines, allocated.getAgentUids().size());
+            for (String agentUid : allocated.getAgentUids()) {
+                Assert.assertEquals(agentUid, CONTAINER_MEMORY_MEGABYTES, getMemoryInMB(allocated.getAgentCapacity(agentUid)));
+                Assert.assertTrue(agentUid, physical.getAgentCapacity(agentUid).greaterOrEquals(allocated.getAgentCapacity(agentUid)));
+            }
+        }
+    }
+
+    /**
+     * Machines of 1 to 8 containers and 2 to 16 CPU cores, with the live memory of a processing unit that
+     * filled a random part of each container.
+     */
+    private static CapacityRequirementsPerAgent randomCluster(Random random, Map<String, Long> usedMemory) {
+        CapacityRequirementsPerAgent physical = new CapacityRequirementsPerAgent();
+        for (int i = 0; i < MACHINES; i++) {
+            String agentUid = "agent" + i;
+            long memory = (1 + random.nextInt(8)) * CONTAINER_MEMORY_MEGABYTES;
+            physical = physical.add(agentUid, new CapacityRequirements(
+                    new MemoryCapacityRequirement(memory),
+                    new CpuCapacityRequirement(new Fraction(2 + random.nextInt(15)))));
+            usedMemory.put(agentUid, (long) (random.nextDouble() * memory));
+        }
+        return physical;
+    }
+
+    private static BinPackingSolver newSolver(long maxMemory) {
+        BinPackingSolver solver = new BinPackingSolver();
+        solver.setLogger(logger);
+        solver.setContainerMemoryCapacityInMB(CONTAINER_MEMORY_MEGABYTES);
+        solver.setMaxAllocatedMemoryCapacityOfPuInMB(maxMemory);
+        solver.setMaxAllocatedMemoryCapacityOfPuPerMachineInMB(maxMemory);
+        solver.setMinimumNumberOfMachines(2);
+        return solver;
+    }
+
+    private static void assertProperties(BinPackingSolver solver, CapacityRequirementsPerAgent physical,
+            CapacityRequirementsPerAgent allocatedBefore, long maxMemory) {
+
+        CapacityRequirementsPerAgent allocated = solver.getAllocatedCapacityForPu();
+        CapacityRequirementsPerAgent unallocated = solver.getUnallocatedCapacity();
+        long totalMemory = getMemoryInMB(allocated.getTotalAllocatedCapacity());
+        Assert.assertTrue(totalMemory <= maxMemory);
+
+        for (String agentUid : allocated.getAgentUids()) {
+            CapacityRequirements agentCapacity = allocated.getAgentCapacity(agentUid);
+            long memory = getMemoryInMB(agentCapacity);
+            Assert.assertEquals(agentUid + " has " + memory + "MB", 0, memory % CONTAINER_MEMORY_MEGABYTES);
+            Assert.assertTrue(agentUid, physical.getAgentCapacity(agentUid).greaterOrEquals(agentCapacity));
+            if (allocated.getAgentUids().size() > 1) {
+                Assert.assertTrue(agentUid + " has " + memory + "MB", memory <= Math.max(CONTAINER_MEMORY_MEGABYTES, (totalMemory + 1) / 2));
+            }
+        }
+
+        // allocated and unallocated capacity add up to the machines capacity
+        for (String agentUid : physical.getAgentUids()) {
+            CapacityRequirements sum = allocated.getAgentCapacityOrZero(agentUid).add(unallocated.getAgentCapacityOrZero(agentUid));
+            Assert.assertEquals(agentUid, physical.getAgentCapacity(agentUid), sum);
+        }
+
+        // the results are the difference between the allocation before and after
+        Assert.assertEquals(allocated, 
+                allocatedBefore.add(solver.getAllocatedCapacityResult()).subtract(solver.getDeallocatedCapacityResult()));
+    }
+
+    private static void assertSolvedInTime(String name, long start) {
+        long millis = System.currentTimeMillis() - start;
+        logger.info(name + " on " + MACHINES + " machines took " + millis + "ms");
+        Assert.assertTrue(name + " took " + millis + "ms", millis <= MAX_SOLVER_MILLIS);
+    }
+
+    private static long roundToContainer(long memory) {
+        return (memory + CONTAINER_MEMORY_MEGABYTES - 1) / CONTAINER_MEMORY_MEGABYTES * CONTAINER_MEMORY_MEGABYTES;
+    }
+
+    private static long getMemoryInMB(CapacityRequirements capacity) {
+        return capacity.getRequirement(new MemoryCapacityRequirement().getType()).getMemoryInMB();
+    }
+}
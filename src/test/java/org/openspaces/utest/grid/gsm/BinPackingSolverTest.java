@@ -1086,6 +1086,65 @@ public class BinPackingSolverTest extends TestCase {
         
     }
     
+    @Test
+    public void testScaleInEvacuatesMachineWithLeastUsedMemory() {
+        
+        BinPackingSolver solver = new BinPackingSolver();
+        solver.setAllocatedCapacityForPu(
+                new CapacityRequirementsPerAgent()
+                .add(AGENT1_UID,cpuMemoryDrive(new Fraction(2), 250, 0))
+                .add(AGENT2_UID,cpuMemoryDrive(new Fraction(2), 250, 0))
+                .add(AGENT3_UID,cpuMemoryDrive(new Fraction(2), 250, 0)));
+        
+        solver.setContainerMemoryCapacityInMB(250);
+        solver.setMaxAllocatedMemoryCapacityOfPuInMB(8*250);
+        solver.setMaxAllocatedMemoryCapacityOfPuPerMachineInMB(1000 * 250);
+        solver.setLogger(logger);
+        solver.setUnallocatedCapacity(new CapacityRequirementsPerAgent());
+        solver.setMinimumNumberOfMachines(1);
+        Map<String, Long> usedMemory = new HashMap<String, Long>();
+        usedMemory.put(AGENT1_UID,200L);
+        usedMemory.put(AGENT2_UID,50L);
+        usedMemory.put(AGENT3_UID,150L);
+        solver.setUsedMemoryPerAgentInMB(usedMemory);
+        
+        solver.solveManualCapacityScaleIn(cpuMemoryDrive(new Fraction(2),250, 0));
+        
+        Assert.assertEquals(cpuMemoryDrive(new Fraction(2),250, 0),solver.getDeallocatedCapacityResult().getTotalAllocatedCapacity());
+        Assert.assertEquals(1, solver.getDeallocatedCapacityResult().getAgentUids().size());
+        Assert.assertEquals(AGENT2_UID,solver.getDeallocatedCapacityResult().getAgentUids().iterator().next());
+    }
+    
+    @Test
+    public void testScaleInRemovesContainerWithLeastUsedMemory() {
+        
+        BinPackingSolver solver = new BinPackingSolver();
+        solver.setAllocatedCapacityForPu(
+                new CapacityRequirementsPerAgent()
+                .add(AGENT1_UID,cpuMemoryDrive(new Fraction(0), 500, 0))
+                .add(AGENT2_UID,cpuMemoryDrive(new Fraction(0), 500, 0))
+                .add(AGENT3_UID,cpuMemoryDrive(new Fraction(0), 500, 0)));
+        
+        solver.setContainerMemoryCapacityInMB(250);
+        solver.setMaxAllocatedMemoryCapacityOfPuInMB(8*250);
+        solver.setMaxAllocatedMemoryCapacityOfPuPerMachineInMB(1000 * 250);
+        solver.setLogger(logger);
+        solver.setUnallocatedCapacity(new CapacityRequirementsPerAgent());
+        solver.setMinimumNumberOfMachines(3);
+        solver.setAllowMoreThanAverageMemoryPerMachine(true);
+        Map<String, Long> usedMemory = new HashMap<String, Long>();
+        usedMemory.put(AGENT1_UID,400L);
+        usedMemory.put(AGENT2_UID,100L);
+        usedMemory.put(AGENT3_UID,300L);
+        solver.setUsedMemoryPerAgentInMB(usedMemory);
+        
+        solver.solveManualCapacityScaleIn(cpuMemoryDrive(new Fraction(0),250, 0));
+        
+        Assert.assertEquals(new CapacityRequirementsPerAgent().add(AGENT2_UID, cpuMemoryDrive(new Fraction(0),250, 0)),
+                solver.getDeallocatedCapacityResult());
+        Assert.assertEquals(0, solver.getAllocatedCapacityResult().getAgentUids().size());
+    }
+    
     @Test
     public void testUndeploy() {
 
@@ -0,0 +1,690 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.grid.gsm;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.openspaces.grid.gsm.rebalancing.RebalancingPlan;
+import org.openspaces.grid.gsm.rebalancing.RebalancingPlan.Move;
+import org.openspaces.grid.gsm.rebalancing.RebalancingPlan.MoveType;
+import org.openspaces.grid.gsm.rebalancing.RebalancingPlanner;
+
+/**
+ * Runs {@link RebalancingPlanner} plans on simulated clusters, checks the constraints of each wave and the
+ * balance of the end state, and measures the number of moves and the convergence time, compared to greedy
+ * relocations of one instance from the most loaded to the least loaded container at a time.
+ */
+public class RebalancingPlannerTest extends TestCase {
+
+    private static final Log logger = LogFactory.getLog(RebalancingPlannerTest.class);
+
+    private static final long INSTANCE_BYTES = 512L * 1024 * 1024;
+
+    // 100MB/s replication bandwidth and 10 seconds to start an instance
+    private static final long BYTES_PER_SECOND = 100L * 1024 * 1024;
+    private static final long MOVE_OVERHEAD_MILLIS = 10 * 1000;
+
+    public void testScaleOutFrom10To40Machines() {
+        Cluster cluster = new Cluster();
+        cluster.addMachines("old", 10, 4, 1, true);
+        cluster.deploy(80, 1, INSTANCE_BYTES);
+        cluster.addMachines("new", 30, 4, 1, true);
+
+        RebalancingPlanner planner = cluster.createPlanner(1);
+        planner.setMaximumNumberOfConcurrentRelocationsPerMachine(2);
+        RebalancingPlan plan = planner.plan();
+
+        Assert.assertTrue(plan.isComplete());
+        Assert.assertEquals(cluster.getMinimumNumberOfRelocations(), plan.getNumberOfRelocations());
+        Simulation simulation = cluster.simulate(plan, 2, 0);
+        cluster.assertBalanced();
+        cluster.assertPrimariesBalanced();
+
+        Simulation greedy = new Cluster(cluster.initial).simulateGreedy(2);
+        logger.info("Scale out from 10 to 40 machines, planned: " + simulation + ", greedy: " + greedy);
+        Assert.assertTrue(simulation.relocations <= greedy.relocations);
+        Assert.assertTrue(simulation.millis <= greedy.millis);
+    }
+
+    public void testScaleInFrom40To10Machines() {
+        Cluster cluster = new Cluster();
+        cluster.addMachines("stay", 10, 4, 1, true);
+        cluster.addMachines("leave", 30, 4, 1, true);
+        cluster.deploy(80, 1, INSTANCE_BYTES);
+        cluster.disapprove("leave");
+
+        RebalancingPlanner planner = cluster.createPlanner(1);
+        planner.setMaximumNumberOfConcurrentRelocationsPerMachine(4);
+        RebalancingPlan plan = planner.plan();
+
+        Assert.assertTrue(plan.isComplete());
+        Assert.assertEquals(cluster.getMinimumNumberOfRelocations(), plan.getNumberOfRelocations());
+        Simulation simulation = cluster.simulate(plan, 4, 0);
+        cluster.assertBalanced();
+        cluster.assertPrimariesBalanced();
+        logger.info("Scale in from 40 to 10 machines, planned: " + simulation);
+    }
+
+    public void testReplicationBytesPerMachine() {
+        Cluster cluster = new Cluster();
+        cluster.addMachines("old", 4, 4, 2, true);
+        cluster.deploy(24, 1, INSTANCE_BYTES);
+        cluster.addMachines("new", 4, 4, 2, true);
+
+        RebalancingPlanner planner = cluster.createPlanner(1);
+        planner.setMaximumNumberOfConcurrentRelocationsPerMachine(10);
+        planner.setMaximumReplicationBytesPerMachine(2 * INSTANCE_BYTES);
+        RebalancingPlan plan = planner.plan();
+
+        Assert.assertTrue(plan.isComplete());
+        Assert.assertEquals(cluster.getMinimumNumberOfRelocations(), plan.getNumberOfRelocations());
+        cluster.simulate(plan, 10, 2 * INSTANCE_BYTES);
+        cluster.assertBalanced();
+    }
+
+    public void testAtMostOneConcurrentRelocation() {
+        Cluster cluster = new Cluster();
+        cluster.addMachines("old", 2, 4, 1, true);
+        cluster.deploy(8, 1, INSTANCE_BYTES);
+        cluster.addMachines("new", 2, 4, 1, true);
+
+        RebalancingPlanner planner = cluster.createPlanner(1);
+        planner.setMaximumNumberOfConcurrentRelocationsPerMachine(4);
+        planner.setAtMostOneConcurrentRelocation(true);
+        RebalancingPlan plan = planner.plan();
+
+        Assert.assertFalse(plan.isEmpty());
+        for (List<Move> wave : plan.getWaves()) {
+            Assert.assertEquals(1, wave.size());
+        }
+        cluster.simulate(plan, 4, 0);
+        cluster.assertBalanced();
+    }
+
+    public void testBalancedDeploymentHasNoMoves() {
+        Cluster cluster = new Cluster();
+        cluster.addMachines("machine", 4, 4, 2, true);
+        cluster.deploy(8, 1, INSTANCE_BYTES);
+
+        RebalancingPlan plan = cluster.createPlanner(1).plan();
+
+        Assert.assertTrue(plan.isEmpty());
+        Assert.assertTrue(plan.isComplete());
+    }
+
+    public void testPrimariesAreRestartedOnMachinesWithTooMany() {
+        Cluster cluster = new Cluster();
+        cluster.addMachines("machine", 2, 4, 1, true);
+        cluster.deploy(8, 1, INSTANCE_BYTES);
+        // all primaries on the first machine
+        for (int instanceId = 1; instanceId <= 8; instanceId++) {
+            String first = cluster.containerOfInstance.get(key(instanceId, 0));
+            String second = cluster.containerOfInstance.get(key(instanceId, 1));
+            boolean swap = !cluster.machineOfContainer.get(first).equals("machine0");
+            cluster.primaries.remove(key(instanceId, swap ? 0 : 1));
+            cluster.primaries.add(key(instanceId, swap ? 1 : 0));
+            Assert.assertFalse(first.equals(second));
+        }
+
+        RebalancingPlanner planner = cluster.createPlanner(1);
+        planner.setMaximumNumberOfConcurrentRelocationsPerMachine(2);
+        RebalancingPlan plan = planner.plan();
+
+        Assert.assertEquals(0, plan.getNumberOfRelocations());
+        Assert.assertEquals(4, plan.getNumberOfRestarts());
+        Assert.assertTrue(plan.isComplete());
+        Simulation simulation = cluster.simulate(plan, 2, 0);
+        Assert.assertEquals(2, simulation.waves);
+        cluster.assertPrimariesBalanced();
+    }
+
+    public void testPrimariesFollowCpuCores() {
+        Cluster cluster = new Cluster();
+        cluster.addMachines("small", 2, 2, 1, true);
+        cluster.addMachines("large", 2, 6, 1, true);
+        cluster.deploy(8, 1, INSTANCE_BYTES);
+
+        RebalancingPlanner planner = cluster.createPlanner(1);
+        planner.setMaximumNumberOfConcurrentRelocationsPerMachine(4);
+        RebalancingPlan plan = planner.plan();
+
+        Assert.assertTrue(plan.isComplete());
+        cluster.simulate(plan, 4, 0);
+        Assert.assertEquals(1, cluster.getNumberOfPrimaries("small0"));
+        Assert.assertEquals(1, cluster.getNumberOfPrimaries("small1"));
+        Assert.assertEquals(3, cluster.getNumberOfPrimaries("large0"));
+        Assert.assertEquals(3, cluster.getNumberOfPrimaries("large1"));
+    }
+
+    public void testMemoryIsBalancedAcrossContainers() {
+        Cluster cluster = new Cluster();
+        cluster.addMachines("machine", 8, 4, 1, true);
+        cluster.deploy(16, 1, INSTANCE_BYTES);
+        // hot routing keys, the first partitions hold four times the data of the others
+        for (int instanceId = 1; instanceId <= 4; instanceId++) {
+            cluster.bytes.put(key(instanceId, 0), 4 * INSTANCE_BYTES);
+            cluster.bytes.put(key(instanceId, 1), 4 * INSTANCE_BYTES);
+        }
+        long average = cluster.getTotalBytes() / 8;
+        Assert.assertTrue(cluster.getMaximumBytesPerContainer() > average * 1.1);
+
+        RebalancingPlanner planner = cluster.createPlanner(1);
+        planner.setMaximumNumberOfConcurrentRelocationsPerMachine(2);
+        Assert.assertTrue("instances are evenly distributed by count", planner.plan().isEmpty());
+
+        planner = cluster.createPlanner(1);
+        planner.setMaximumNumberOfConcurrentRelocationsPerMachine(2);
+        planner.setMemoryImbalanceTolerance(0.1);
+        RebalancingPlan plan = planner.plan();
+
+        Assert.assertTrue(plan.isComplete());
+        Simulation simulation = cluster.simulate(plan, 2, 0);
+        cluster.assertBalanced();
+        cluster.assertPrimariesBalanced();
+        Assert.assertTrue(cluster.getMaximumBytesPerContainer() <= average * 1.1);
+        logger.info("Memory balancing of hot partitions: " + simulation);
+    }
+
+    private static String key(int instanceId, int backupId) {
+        return instanceId + "_" + backupId;
+    }
+
+    private static int instanceIdOf(String key) {
+        return Integer.parseInt(key.substring(0, key.indexOf('_')));
+    }
+
+    private static class Simulation {
+
+        int relocations;
+
+        int restarts;
+
+        int waves;
+
+        long millis;
+
+        @Override
+        public String toString() {
+            return "relocations=" + relocations + " restarts=" + restarts + " waves=" + waves + " seconds=" + millis / 1000;
+        }
+    }
+
+    /**
+     * A deployment of a partitioned processing unit, on machines that host containers.
+     */
+    private static class Cluster {
+
+        final Map<String, String> machineOfContainer = new LinkedHashMap<String, String>();
+
+        final Map<String, Double> cpuCores = new LinkedHashMap<String, Double>();
+
+        final Set<String> approved = new HashSet<String>();
+
+        final Map<String, String> containerOfInstance = new LinkedHashMap<String, String>();
+
+        final Set<String> primaries = new HashSet<String>();
+
+        final Map<String, Long> bytes = new HashMap<String, Long>();
+
+        final Set<String> moved = new HashSet<String>();
+
+        int maxInstancesPerMachine;
+
+        Cluster initial;
+
+        Cluster() {
+        }
+
+        Cluster(Cluster other) {
+            machineOfContainer.putAll(other.machineOfContainer);
+            cpuCores.putAll(other.cpuCores);
+            approved.addAll(other.approved);
+            containerOfInstance.putAll(other.containerOfInstance);
+            primaries.addAll(other.primaries);
+            bytes.putAll(other.bytes);
+            maxInstancesPerMachine = other.maxInstancesPerMachine;
+        }
+
+        void addMachines(String prefix, int numberOfMachines, double cores, int containersPerMachine, boolean approve) {
+            for (int i = 0; i < numberOfMachines; i++) {
+                String machine = prefix + i;
+                cpuCores.put(machine, cores);
+                for (int j = 0; j < containersPerMachine; j++) {
+                    String container = machine + "/gsc" + j;
+                    machineOfContainer.put(container, machine);
+                    if (approve) {
+                        approved.add(container);
+                    }
+                }
+            }
+        }
+
+        void disapprove(String prefix) {
+            for (String container : machineOfContainer.keySet()) {
+                if (container.startsWith(prefix)) {
+                    approved.remove(container);
+                }
+            }
+        }
+
+        /**
+         * Deploys the primaries round robin over the machines, and the backups of each partition on the next
+         * machines.
+         */
+        void deploy(int numberOfPartitions, int numberOfBackups, long instanceBytes) {
+            List<String> containers = new ArrayList<String>(approved.size());
+            for (int gsc = 0; containers.size() < approved.size(); gsc++) {
+                for (String container : machineOfContainer.keySet()) {
+                    if (approved.contains(container) && container.endsWith("/gsc" + gsc)) {
+                        containers.add(container);
+                    }
+                }
+            }
+            for (int instanceId = 1; instanceId <= numberOfPartitions; instanceId++) {
+                for (int backupId = 0; backupId <= numberOfBackups; backupId++) {
+                    String key = key(instanceId, backupId);
+                    containerOfInstance.put(key, containers.get((instanceId - 1 + backupId) % containers.size()));
+                    bytes.put(key, instanceBytes);
+                    if (backupId == 0) {
+                        primaries.add(key);
+                    }
+                }
+            }
+        }
+
+        RebalancingPlanner createPlanner(int maxInstancesPerMachine) {
+            this.maxInstancesPerMachine = maxInstancesPerMachine;
+            this.initial = new Cluster(this);
+            RebalancingPlanner planner = new RebalancingPlanner();
+            planner.setMaxInstancesPerMachine(maxInstancesPerMachine);
+            for (Map.Entry<String, Double> machine : cpuCores.entrySet()) {
+                planner.addMachine(machine.getKey(), machine.getValue());
+            }
+            for (Map.Entry<String, String> container : machineOfContainer.entrySet()) {
+                planner.addContainer(container.getKey(), container.getValue(), approved.contains(container.getKey()));
+            }
+            for (Map.Entry<String, String> instance : containerOfInstance.entrySet()) {
+                String key = instance.getKey();
+                int backupId = Integer.parseInt(key.substring(key.indexOf('_') + 1));
+                planner.addInstance(instanceIdOf(key), backupId, primaries.contains(key), instance.getValue(), bytes.get(key));
+            }
+            return planner;
+        }
+
+        int getNumberOfInstances(String container) {
+            int count = 0;
+            for (String instanceContainer : containerOfInstance.values()) {
+                if (instanceContainer.equals(container)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        long getTotalBytes() {
+            long total = 0;
+            for (String key : containerOfInstance.keySet()) {
+                total += bytes.get(key);
+            }
+            return total;
+        }
+
+        long getMaximumBytesPerContainer() {
+            Map<String, Long> bytesPerContainer = new HashMap<String, Long>();
+            long maximum = 0;
+            for (Map.Entry<String, String> instance : containerOfInstance.entrySet()) {
+                add(bytesPerContainer, instance.getValue(), bytes.get(instance.getKey()));
+                maximum = Math.max(maximum, bytesPerContainer.get(instance.getValue()));
+            }
+            return maximum;
+        }
+
+        int getNumberOfPrimaries(String machine) {
+            int count = 0;
+            for (String primary : primaries) {
+                if (machineOfContainer.get(containerOfInstance.get(primary)).equals(machine)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        int getMaximum() {
+            return (containerOfInstance.size() + approved.size() - 1) / approved.size();
+        }
+
+        int getMinimumNumberOfRelocations() {
+            int relocations = 0;
+            int quotaOfFullest = getMaximum();
+            int containersAtMaximum = containerOfInstance.size() % approved.size();
+            if (containersAtMaximum == 0) {
+                containersAtMaximum = approved.size();
+            }
+            List<Integer> approvedCounts = new ArrayList<Integer>();
+            for (String container : machineOfContainer.keySet()) {
+                int count = getNumberOfInstances(container);
+                if (!approved.contains(container)) {
+                    relocations += count;
+                } else {
+                    approvedCounts.add(count);
+                }
+            }
+            java.util.Collections.sort(approvedCounts, java.util.Collections.reverseOrder());
+            for (int i = 0; i < approvedCounts.size(); i++) {
+                int quota = i < containersAtMaximum ? quotaOfFullest : quotaOfFullest - 1;
+                relocations += Math.max(0, approvedCounts.get(i) - quota);
+            }
+            return relocations;
+        }
+
+        void assertBalanced() {
+            int maximum = getMaximum();
+            int minimum = containerOfInstance.size() / approved.size();
+            for (String container : machineOfContainer.keySet()) {
+                int count = getNumberOfInstances(container);
+                if (approved.contains(container)) {
+                    Assert.assertTrue(container + " has " + count, count >= minimum && count <= maximum);
+                } else {
+                    Assert.assertEquals(0, count);
+                }
+            }
+            assertInstancesPerMachine();
+        }
+
+        void assertPrimariesBalanced() {
+            double totalCores = 0;
+            Set<String> machines = new HashSet<String>();
+            for (String container : approved) {
+                machines.add(machineOfContainer.get(container));
+            }
+            for (String machine : machines) {
+                totalCores += cpuCores.get(machine);
+            }
+            for (String machine : machines) {
+                double share = primaries.size() * cpuCores.get(machine) / totalCores;
+                int count = getNumberOfPrimaries(machine);
+                Assert.assertTrue(machine + " has " + count + " primaries", count >= Math.floor(share) && count <= Math.ceil(share));
+            }
+        }
+
+        void assertInstancesPerMachine() {
+            Map<String, Integer> counts = new HashMap<String, Integer>();
+            for (Map.Entry<String, String> instance : containerOfInstance.entrySet()) {
+                String key = instanceIdOf(instance.getKey()) + "@" + machineOfContainer.get(instance.getValue());
+                Integer count = counts.get(key);
+                counts.put(key, count == null ? 1 : count + 1);
+                Assert.assertTrue(key, maxInstancesPerMachine <= 0 || counts.get(key) <= maxInstancesPerMachine);
+            }
+        }
+
+        /**
+         * Applies the waves of the plan one after the other, checking the constraints of each wave.
+         */
+        Simulation simulate(RebalancingPlan plan, int maxMovesPerMachine, long maxBytesPerMachine) {
+            Simulation simulation = new Simulation();
+            for (List<Move> wave : plan.getWaves()) {
+                Map<String, Integer> movesPerMachine = new HashMap<String, Integer>();
+                Map<String, Long> bytesPerMachine = new HashMap<String, Long>();
+                Map<String, Integer> replicatingMovesPerMachine = new HashMap<String, Integer>();
+                Set<Integer> partitions = new HashSet<Integer>();
+                for (Move move : wave) {
+                    Assert.assertTrue("two moves of partition " + move.getInstanceId() + " in the same wave",
+                            partitions.add(move.getInstanceId()));
+                    Set<String> replicating = new HashSet<String>();
+                    replicating.add(move.getTargetMachineId());
+                    replicating.add(move.getReplicationSourceMachineId());
+                    for (String machine : replicating) {
+                        add(movesPerMachine, machine, 1);
+                        Assert.assertTrue(machine, movesPerMachine.get(machine) <= maxMovesPerMachine);
+                        add(bytesPerMachine, machine, move.getBytes());
+                        add(replicatingMovesPerMachine, machine, 1);
+                        if (maxBytesPerMachine > 0 && replicatingMovesPerMachine.get(machine) > 1) {
+                            Assert.assertTrue(machine, bytesPerMachine.get(machine) <= maxBytesPerMachine);
+                        }
+                    }
+                    apply(move);
+                    if (move.getType() == MoveType.RELOCATE) {
+                        simulation.relocations++;
+                    } else {
+                        simulation.restarts++;
+                    }
+                }
+                assertInstancesPerMachine();
+                simulation.waves++;
+                simulation.millis += getWaveMillis(bytesPerMachine);
+            }
+            return simulation;
+        }
+
+        private void apply(Move move) {
+            String key = key(move.getInstanceId(), move.getBackupId());
+            Assert.assertEquals(move.getSourceContainerId(), containerOfInstance.get(key));
+            if (move.getType() == MoveType.RELOCATE) {
+                Assert.assertTrue(key + " relocated twice", moved.add(key));
+                Assert.assertTrue(approved.contains(move.getTargetContainerId()));
+            }
+            failover(key);
+            containerOfInstance.put(key, move.getTargetContainerId());
+        }
+
+        /**
+         * Promotes the instance of the partition with the lowest backup id, when the primary is stopped.
+         */
+        private void failover(String key) {
+            if (!primaries.remove(key)) {
+                return;
+            }
+            int instanceId = instanceIdOf(key);
+            for (int backupId = 0; ; backupId++) {
+                String other = key(instanceId, backupId);
+                if (!containerOfInstance.containsKey(other)) {
+                    primaries.add(key);
+                    return;
+                }
+                if (!other.equals(key)) {
+                    primaries.add(other);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Relocates one instance at a time from the container with the most instances above the average to the
+         * container with the fewest, then restarts one primary at a time from the machine with the most primaries
+         * above its share, as many as the machines and containers allow in each wave, like the original stages.
+         */
+        Simulation simulateGreedy(int maxMovesPerMachine) {
+            this.maxInstancesPerMachine = 1;
+            Simulation simulation = new Simulation();
+            for (boolean restarts = false; ; ) {
+                Map<String, Integer> movesPerMachine = new HashMap<String, Integer>();
+                Map<String, Long> bytesPerMachine = new HashMap<String, Long>();
+                Set<String> busyContainers = new HashSet<String>();
+                Set<Integer> partitions = new HashSet<Integer>();
+                int moves = 0;
+                while (true) {
+                    String[] move = restarts ? 
+                            nextGreedyRestart(movesPerMachine, busyContainers, partitions, maxMovesPerMachine) :
+                            nextGreedyRelocation(movesPerMachine, busyContainers, partitions, maxMovesPerMachine);
+                    if (move == null) {
+                        break;
+                    }
+                    String key = move[0];
+                    String source = containerOfInstance.get(key);
+                    String replicationSource = getReplicationSourceContainer(key);
+                    for (String container : new String[] { move[1], replicationSource }) {
+                        String machine = machineOfContainer.get(container);
+                        add(movesPerMachine, machine, 1);
+                        add(bytesPerMachine, machine, bytes.get(key));
+                    }
+                    busyContainers.add(source);
+                    busyContainers.add(move[1]);
+                    busyContainers.add(replicationSource);
+                    partitions.add(instanceIdOf(key));
+                    failover(key);
+                    containerOfInstance.put(key, move[1]);
+                    if (restarts) {
+                        simulation.restarts++;
+                    } else {
+                        simulation.relocations++;
+                    }
+                    moves++;
+                }
+                if (moves == 0) {
+                    if (restarts) {
+                        break;
+                    }
+                    restarts = true;
+                    continue;
+                }
+                simulation.waves++;
+                simulation.millis += getWaveMillis(bytesPerMachine);
+            }
+            assertBalanced();
+            assertPrimariesBalanced();
+            return simulation;
+        }
+
+        private String[] nextGreedyRelocation(Map<String, Integer> movesPerMachine, Set<String> busyContainers,
+                Set<Integer> partitions, int maxMovesPerMachine) {
+            int minimum = containerOfInstance.size() / approved.size();
+            int maximum = getMaximum();
+            String target = null;
+            for (String container : machineOfContainer.keySet()) {
+                if (approved.contains(container) && getNumberOfInstances(container) < maximum
+                        && !busyContainers.contains(container) && !isBusy(movesPerMachine, container, maxMovesPerMachine)
+                        && (target == null || getNumberOfInstances(container) < getNumberOfInstances(target))) {
+                    target = container;
+                }
+            }
+            if (target == null) {
+                return null;
+            }
+            String best = null;
+            int bestExcess = 0;
+            for (Map.Entry<String, String> instance : containerOfInstance.entrySet()) {
+                String key = instance.getKey();
+                String source = instance.getValue();
+                int excess = getNumberOfInstances(source) - (approved.contains(source) ? minimum : 0);
+                if (excess <= 0 || busyContainers.contains(source) || partitions.contains(instanceIdOf(key))
+                        || isBusy(movesPerMachine, getReplicationSourceContainer(key), maxMovesPerMachine)
+                        || busyContainers.contains(getReplicationSourceContainer(key))
+                        || hasPartitionOnMachine(key, machineOfContainer.get(target))) {
+                    continue;
+                }
+                // prefer containers with the most excess, and backups
+                excess = 2 * excess + (primaries.contains(key) ? 0 : 1);
+                if (excess > bestExcess) {
+                    best = key;
+                    bestExcess = excess;
+                }
+            }
+            return best == null ? null : new String[] { best, target };
+        }
+
+        private String[] nextGreedyRestart(Map<String, Integer> movesPerMachine, Set<String> busyContainers,
+                Set<Integer> partitions, int maxMovesPerMachine) {
+            Map<String, Integer> targets = getPrimaryTargets();
+            for (String primary : primaries) {
+                String container = containerOfInstance.get(primary);
+                String machine = machineOfContainer.get(container);
+                String backupContainer = getReplicationSourceContainer(primary);
+                String backupMachine = machineOfContainer.get(backupContainer);
+                if (getNumberOfPrimaries(machine) > targets.get(machine)
+                        && getNumberOfPrimaries(backupMachine) < targets.get(backupMachine)
+                        && !partitions.contains(instanceIdOf(primary))
+                        && !busyContainers.contains(container) && !busyContainers.contains(backupContainer)
+                        && !isBusy(movesPerMachine, container, maxMovesPerMachine)
+                        && !isBusy(movesPerMachine, backupContainer, maxMovesPerMachine)) {
+                    return new String[] { primary, container };
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns the container of the primary that replicates to the given instance, once it is relocated.
+         */
+        private String getReplicationSourceContainer(String key) {
+            int instanceId = instanceIdOf(key);
+            for (int backupId = 0; containerOfInstance.containsKey(key(instanceId, backupId)); backupId++) {
+                String other = key(instanceId, backupId);
+                if (!other.equals(key) && (primaries.contains(other) || primaries.contains(key))) {
+                    return containerOfInstance.get(other);
+                }
+            }
+            return containerOfInstance.get(key);
+        }
+
+        private Map<String, Integer> getPrimaryTargets() {
+            Map<String, Integer> targets = new HashMap<String, Integer>();
+            double totalCores = 0;
+            for (String machine : cpuCores.keySet()) {
+                totalCores += cpuCores.get(machine);
+            }
+            for (String machine : cpuCores.keySet()) {
+                targets.put(machine, (int) Math.ceil(primaries.size() * cpuCores.get(machine) / totalCores));
+            }
+            return targets;
+        }
+
+        private boolean isBusy(Map<String, Integer> movesPerMachine, String container, int maxMovesPerMachine) {
+            Integer moves = movesPerMachine.get(machineOfContainer.get(container));
+            return moves != null && moves >= maxMovesPerMachine;
+        }
+
+        private boolean hasPartitionOnMachine(String key, String machine) {
+            int instanceId = instanceIdOf(key);
+            for (Map.Entry<String, String> instance : containerOfInstance.entrySet()) {
+                if (instanceIdOf(instance.getKey()) == instanceId && machineOfContainer.get(instance.getValue()).equals(machine)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static long getWaveMillis(Map<String, Long> bytesPerMachine) {
+            long maxBytes = 0;
+            for (long machineBytes : bytesPerMachine.values()) {
+                maxBytes = Math.max(maxBytes, machineBytes);
+            }
+            return MOVE_OVERHEAD_MILLIS + maxBytes * 1000 / BYTES_PER_SECOND;
+        }
+
+        private static <K> void add(Map<K, Integer> map, K key, int delta) {
+            Integer value = map.get(key);
+            map.put(key, value == null ? delta : value + delta);
+        }
+
+        private static <K> void add(Map<K, Long> map, K key, long delta) {
+            Long value = map.get(key);
+            map.put(key, value == null ? delta : value + delta);
+        }
+    }
+}
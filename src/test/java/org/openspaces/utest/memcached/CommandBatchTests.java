@@ -0,0 +1,233 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.memcached;
+
+import com.gigaspaces.client.WriteModifiers;
+import com.gigaspaces.client.WriteMultipleException.IWriteResult;
+import junit.framework.TestCase;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelEvent;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.MessageEvent;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.WriteMultipleException;
+import org.openspaces.memcached.Key;
+import org.openspaces.memcached.LocalCacheElement;
+import org.openspaces.memcached.MemcachedEntry;
+import org.openspaces.memcached.SpaceCache;
+import org.openspaces.memcached.protocol.CommandBatch;
+import org.openspaces.memcached.protocol.CommandBatchHandler;
+import org.openspaces.memcached.protocol.CommandMessage;
+import org.openspaces.memcached.protocol.MemcachedCommandHandler;
+import org.openspaces.memcached.protocol.Op;
+import org.openspaces.memcached.protocol.ResponseMessage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CommandBatchTests extends TestCase {
+
+    private Channel channel;
+
+    private ChannelHandlerContext context;
+
+    @Override
+    protected void setUp() throws Exception {
+        channel = mock(Channel.class);
+        context = mock(ChannelHandlerContext.class);
+        when(context.getChannel()).thenReturn(channel);
+    }
+
+    public void testBatchIsHandedOverBeforeNonBatchableCommand() throws Exception {
+        CommandBatchHandler handler = new CommandBatchHandler(100, Long.MAX_VALUE / 1000);
+        CommandMessage get = get("a");
+        CommandMessage set = set("b", "1");
+        CommandMessage delete = CommandMessage.command(Op.DELETE);
+        handler.messageReceived(context, messageEvent(get));
+        handler.messageReceived(context, messageEvent(set));
+        handler.messageReceived(context, messageEvent(delete));
+
+        List<Object> messages = upstreamMessages(2);
+        assertTrue(messages.get(0) instanceof CommandBatch);
+        assertEquals(Arrays.asList(get, set), ((CommandBatch) messages.get(0)).getCommands());
+        assertSame(delete, messages.get(1));
+    }
+
+    public void testBatchIsHandedOverWhenFull() throws Exception {
+        CommandBatchHandler handler = new CommandBatchHandler(2, Long.MAX_VALUE / 1000);
+        handler.messageReceived(context, messageEvent(get("a")));
+        handler.messageReceived(context, messageEvent(get("b")));
+        handler.messageReceived(context, messageEvent(get("c")));
+        handler.flush();
+
+        List<Object> messages = upstreamMessages(2);
+        assertEquals(2, ((CommandBatch) messages.get(0)).size());
+        assertTrue(messages.get(1) instanceof CommandMessage);
+    }
+
+    public void testMixedBatchExecutesRunsInOrder() throws Exception {
+        SpaceCache cache = mock(SpaceCache.class);
+        LocalCacheElement a = element("a", "1");
+        LocalCacheElement b = element("b", "2");
+        when(cache.get(2, a.getKey(), b.getKey())).thenReturn(new LocalCacheElement[]{a, null});
+        when(cache.setMultiple(any(LocalCacheElement[].class))).thenReturn(new SpaceCache.StoreResponse[]{
+                SpaceCache.StoreResponse.STORED, SpaceCache.StoreResponse.NOT_STORED});
+        when(cache.get(1, b.getKey())).thenReturn(new LocalCacheElement[]{b});
+
+        CommandMessage getA = get("a");
+        CommandMessage getB = get("b");
+        CommandMessage setC = set("c", "3");
+        CommandMessage setD = set("d", "4");
+        CommandMessage getB2 = get("b");
+        new MemcachedCommandHandler(cache, "1.0", false, 0, null).messageReceived(context,
+                messageEvent(new CommandBatch(Arrays.asList(getA, getB, setC, setD, getB2))));
+
+        InOrder order = inOrder(cache);
+        order.verify(cache).get(2, a.getKey(), b.getKey());
+        ArgumentCaptor<LocalCacheElement[]> sets = ArgumentCaptor.forClass(LocalCacheElement[].class);
+        order.verify(cache).setMultiple(sets.capture());
+        order.verify(cache).get(1, b.getKey());
+        assertEquals(Arrays.asList(setC.element, setD.element), Arrays.asList(sets.getValue()));
+
+        List<Object> messages = upstreamMessages(5);
+        ResponseMessage response = (ResponseMessage) messages.get(0);
+        assertSame(getA, response.cmd);
+        assertSame(a, response.elements[0]);
+        response = (ResponseMessage) messages.get(1);
+        assertSame(getB, response.cmd);
+        assertNull(response.elements[0]);
+        response = (ResponseMessage) messages.get(2);
+        assertSame(setC, response.cmd);
+        assertEquals(SpaceCache.StoreResponse.STORED, response.response);
+        response = (ResponseMessage) messages.get(3);
+        assertSame(setD, response.cmd);
+        assertEquals(SpaceCache.StoreResponse.NOT_STORED, response.response);
+        response = (ResponseMessage) messages.get(4);
+        assertSame(getB2, response.cmd);
+        assertSame(b, response.elements[0]);
+    }
+
+    public void testSetMultiplePartialFailure() {
+        GigaSpace space = mock(GigaSpace.class);
+        IWriteResult written = mock(IWriteResult.class);
+        IWriteResult failed = mock(IWriteResult.class);
+        when(failed.isError()).thenReturn(true);
+        WriteMultipleException error = mock(WriteMultipleException.class);
+        when(error.getResults()).thenReturn(new IWriteResult[]{written, failed, written});
+        doThrow(error).when(space).writeMultiple(any(MemcachedEntry[].class), any(long[].class), eq(WriteModifiers.UPDATE_OR_WRITE));
+
+        SpaceCache cache = new SpaceCache(space);
+        SpaceCache.StoreResponse[] responses = cache.setMultiple(new LocalCacheElement[]{
+                element("a", "1"), element("b", "22"), element("c", "333")});
+
+        assertEquals(Arrays.asList(SpaceCache.StoreResponse.STORED, SpaceCache.StoreResponse.NOT_STORED,
+                SpaceCache.StoreResponse.STORED), Arrays.asList(responses));
+        assertEquals(3, cache.getSetCmds());
+        // only the written keys are tracked
+        assertEquals(2, cache.getCurrentItems());
+        verify(space, times(1)).writeMultiple(any(MemcachedEntry[].class), any(long[].class), eq(WriteModifiers.UPDATE_OR_WRITE));
+    }
+
+    public void testSetMultipleDuplicateKeys() {
+        GigaSpace space = mock(GigaSpace.class);
+        SpaceCache cache = new SpaceCache(space);
+        SpaceCache.StoreResponse[] responses = cache.setMultiple(new LocalCacheElement[]{
+                element("a", "1"), element("b", "22"), element("a", "333"), element("b", "4444"), element("c", "5")});
+
+        assertEquals(Arrays.asList(SpaceCache.StoreResponse.STORED, SpaceCache.StoreResponse.STORED,
+                SpaceCache.StoreResponse.STORED, SpaceCache.StoreResponse.STORED, SpaceCache.StoreResponse.STORED),
+                Arrays.asList(responses));
+        assertEquals(5, cache.getSetCmds());
+        assertEquals(3, cache.getCurrentItems());
+        assertEquals(3 + 1 + 4 + 1 + 1 + 1, cache.getCurrentBytes());
+
+        // only the last value of each key is written
+        ArgumentCaptor<MemcachedEntry[]> entries = ArgumentCaptor.forClass(MemcachedEntry[].class);
+        verify(space).writeMultiple(entries.capture(), any(long[].class), eq(WriteModifiers.UPDATE_OR_WRITE));
+        assertEquals(3, entries.getValue().length);
+        assertEquals("333", new String(entries.getValue()[0].getValue()));
+        assertEquals("4444", new String(entries.getValue()[1].getValue()));
+        assertEquals("5", new String(entries.getValue()[2].getValue()));
+    }
+
+    public void testSetMultipleDuplicateKeyFailure() {
+        GigaSpace space = mock(GigaSpace.class);
+        IWriteResult written = mock(IWriteResult.class);
+        IWriteResult failed = mock(IWriteResult.class);
+        when(failed.isError()).thenReturn(true);
+        WriteMultipleException error = mock(WriteMultipleException.class);
+        when(error.getResults()).thenReturn(new IWriteResult[]{failed, written});
+        doThrow(error).when(space).writeMultiple(any(MemcachedEntry[].class), any(long[].class), eq(WriteModifiers.UPDATE_OR_WRITE));
+
+        SpaceCache cache = new SpaceCache(space);
+        SpaceCache.StoreResponse[] responses = cache.setMultiple(new LocalCacheElement[]{
+                element("a", "1"), element("a", "22"), element("b", "333")});
+
+        // all the elements of a key get the response of its last element
+        assertEquals(Arrays.asList(SpaceCache.StoreResponse.NOT_STORED, SpaceCache.StoreResponse.NOT_STORED,
+                SpaceCache.StoreResponse.STORED), Arrays.asList(responses));
+        assertEquals(1, cache.getCurrentItems());
+    }
+
+    private List<Object> upstreamMessages(int expected) {
+        ArgumentCaptor<ChannelEvent> events = ArgumentCaptor.forClass(ChannelEvent.class);
+        verify(context, times(expected)).sendUpstream(events.capture());
+        List<Object> messages = new ArrayList<Object>();
+        for (ChannelEvent event : events.getAllValues()) {
+            messages.add(((MessageEvent) event).getMessage());
+        }
+        return messages;
+    }
+
+    private MessageEvent messageEvent(Object message) {
+        MessageEvent event = mock(MessageEvent.class);
+        when(event.getMessage()).thenReturn(message);
+        when(event.getChannel()).thenReturn(channel);
+        return event;
+    }
+
+    private static CommandMessage get(String key) {
+        CommandMessage command = CommandMessage.command(Op.GET);
+        command.setKey(key.getBytes());
+        return command;
+    }
+
+    private static CommandMessage set(String key, String value) {
+        CommandMessage command = CommandMessage.command(Op.SET);
+        command.element = element(key, value);
+        return command;
+    }
+
+    private static LocalCacheElement element(String key, String value) {
+        LocalCacheElement element = new LocalCacheElement(new Key(key.getBytes()), 0, 0, 0);
+        element.setData(value.getBytes());
+        return element;
+    }
+}
@@ -0,0 +1,232 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.memcached;
+
+import junit.framework.TestCase;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelEvent;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ExceptionEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.UpstreamMessageEvent;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.openspaces.memcached.protocol.CommandBatch;
+import org.openspaces.memcached.protocol.CommandExecutionHandler;
+import org.openspaces.memcached.protocol.CommandMessage;
+import org.openspaces.memcached.protocol.Op;
+import org.openspaces.memcached.protocol.exceptions.ServerBusyException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CommandExecutionHandlerTests extends TestCase {
+
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    private CommandExecutionHandler handler;
+
+    @Override
+    protected void tearDown() throws Exception {
+        released.countDown();
+        if (handler != null) {
+            handler.releaseExternalResources();
+        }
+    }
+
+    public void testConnectionIsSuspendedAndResumedByItsOwnLimit() throws Exception {
+        handler = new CommandExecutionHandler(1, 1000, 4);
+        Connection connection = new Connection();
+        connection.send(4);
+        verify(connection.channel).setReadable(false);
+        assertEquals(4, handler.getPendingCommands());
+
+        released.countDown();
+        connection.awaitReceived(4);
+        verify(connection.channel, timeout(5000)).setReadable(true);
+        assertEquals(0, handler.getPendingCommands());
+    }
+
+    public void testConnectionIsNotResumedOnEveryExecutedCommand() throws Exception {
+        handler = new CommandExecutionHandler(1, 1000, 4);
+        Connection connection = new Connection();
+        connection.send(4);
+        released.countDown();
+        connection.awaitReceived(4);
+        verify(connection.channel, timeout(5000)).setReadable(true);
+        Thread.sleep(100);
+        verify(connection.channel, times(1)).setReadable(true);
+        verify(connection.channel, times(1)).setReadable(false);
+    }
+
+    public void testGlobalLimitSuspendsAndResumesAllConnections() throws Exception {
+        // high watermark 6, low watermark 4
+        handler = new CommandExecutionHandler(2, 8, 100);
+        Connection first = new Connection();
+        Connection second = new Connection();
+        first.send(4);
+        second.send(2);
+        verify(first.channel, never()).setReadable(false);
+        verify(second.channel, never()).setReadable(false);
+        second.send(1);
+        verify(second.channel).setReadable(false);
+        first.send(1);
+        verify(first.channel).setReadable(false);
+
+        released.countDown();
+        first.awaitReceived(5);
+        second.awaitReceived(3);
+        verify(first.channel, timeout(5000)).setReadable(true);
+        verify(second.channel, timeout(5000)).setReadable(true);
+        assertEquals(0, handler.getRejectedCommands());
+    }
+
+    public void testBatchCountsAsItsCommands() throws Exception {
+        // high watermark 6, low watermark 4
+        handler = new CommandExecutionHandler(1, 8, 4);
+        Connection first = new Connection();
+        Connection second = new Connection();
+        first.sendBatch(4);
+        verify(first.channel).setReadable(false);
+        assertEquals(4, handler.getPendingCommands());
+        second.sendBatch(3);
+        assertEquals(7, handler.getPendingCommands());
+        second.send(1);
+        verify(second.channel).setReadable(false);
+        second.sendBatch(2);
+        assertEquals(2, handler.getRejectedCommands());
+
+        released.countDown();
+        first.awaitReceived(1);
+        second.awaitReceived(3);
+        verify(first.channel, timeout(5000)).setReadable(true);
+        verify(second.channel, timeout(5000)).setReadable(true);
+    }
+
+    public void testCommandsBeyondGlobalLimitAreRejectedInOrder() throws Exception {
+        handler = new CommandExecutionHandler(1, 2, 100);
+        Connection connection = new Connection();
+        connection.send(3);
+        assertEquals(1, handler.getRejectedCommands());
+        assertEquals(2, handler.getPendingCommands());
+
+        released.countDown();
+        connection.awaitReceived(3);
+        assertEquals(0, connection.received.get(0));
+        assertEquals(1, connection.received.get(1));
+        assertTrue(connection.received.get(2) instanceof ServerBusyException);
+        verify(connection.channel, timeout(5000)).setReadable(true);
+    }
+
+    public void testEventsOfConnectionAreExecutedInOrder() throws Exception {
+        handler = new CommandExecutionHandler(4, 100000, 100000);
+        released.countDown();
+        List<Connection> connections = new ArrayList<Connection>();
+        for (int i = 0; i < 8; i++) {
+            connections.add(new Connection());
+        }
+        for (int i = 0; i < 100; i++) {
+            for (Connection connection : connections) {
+                connection.send(1);
+            }
+        }
+        for (Connection connection : connections) {
+            connection.awaitReceived(100);
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, connection.received.get(i));
+            }
+        }
+    }
+
+    private class Connection {
+
+        private final Channel channel = mock(Channel.class);
+
+        private final ChannelHandlerContext context = mock(ChannelHandlerContext.class);
+
+        private final List<Object> received = Collections.synchronizedList(new ArrayList<Object>());
+
+        private int sent;
+
+        Connection() {
+            final AtomicReference<Object> attachment = new AtomicReference<Object>();
+            when(channel.isOpen()).thenReturn(true);
+            when(context.getChannel()).thenReturn(channel);
+            when(context.getAttachment()).thenAnswer(new Answer<Object>() {
+                public Object answer(InvocationOnMock invocation) {
+                    return attachment.get();
+                }
+            });
+            doAnswer(new Answer<Object>() {
+                public Object answer(InvocationOnMock invocation) {
+                    attachment.set(invocation.getArguments()[0]);
+                    return null;
+                }
+            }).when(context).setAttachment(any());
+            doAnswer(new Answer<Object>() {
+                public Object answer(InvocationOnMock invocation) throws Throwable {
+                    // simulates a blocking space call
+                    released.await();
+                    ChannelEvent event = (ChannelEvent) invocation.getArguments()[0];
+                    if (event instanceof ExceptionEvent) {
+                        received.add(((ExceptionEvent) event).getCause());
+                    } else {
+                        received.add(((MessageEvent) event).getMessage());
+                    }
+                    return null;
+                }
+            }).when(context).sendUpstream(any(ChannelEvent.class));
+        }
+
+        void send(int commands) throws Exception {
+            for (int i = 0; i < commands; i++) {
+                handler.handleUpstream(context, new UpstreamMessageEvent(channel, sent++, null));
+            }
+        }
+
+        void sendBatch(int commands) throws Exception {
+            List<CommandMessage> batch = new ArrayList<CommandMessage>();
+            for (int i = 0; i < commands; i++) {
+                batch.add(CommandMessage.command(Op.GET));
+            }
+            handler.handleUpstream(context, new UpstreamMessageEvent(channel, new CommandBatch(batch), null));
+            sent++;
+        }
+
+        void awaitReceived(int expected) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+            while (received.size() < expected && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(expected, received.size());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.memcached;
+
+import junit.framework.TestCase;
+import org.openspaces.memcached.Key;
+import org.openspaces.memcached.LruItemTracker;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class LruItemTrackerTests extends TestCase {
+
+    public void testAccounting() {
+        LruItemTracker tracker = new LruItemTracker();
+        tracker.put(key("k1"), 10);
+        tracker.put(key("k2"), 20);
+        assertEquals(2, tracker.getItems());
+        assertEquals(2 + 10 + 2 + 20, tracker.getBytes());
+
+        // replacing a value only changes the bytes
+        tracker.put(key("k1"), 5);
+        assertEquals(2, tracker.getItems());
+        assertEquals(2 + 5 + 2 + 20, tracker.getBytes());
+
+        tracker.grow(key("k2"), 3);
+        assertEquals(2 + 5 + 2 + 23, tracker.getBytes());
+
+        // unknown items are not accounted
+        tracker.grow(key("k3"), 3);
+        tracker.remove(key("k3"));
+        assertEquals(2, tracker.getItems());
+
+        tracker.remove(key("k1"));
+        assertEquals(1, tracker.getItems());
+        assertEquals(2 + 23, tracker.getBytes());
+
+        tracker.clear();
+        assertEquals(0, tracker.getItems());
+        assertEquals(0, tracker.getBytes());
+    }
+
+    public void testEvictLeastRecentlyUsed() {
+        LruItemTracker tracker = new LruItemTracker();
+        // a single key per segment is not guaranteed, so use many keys and check the touched one survives
+        for (int i = 0; i < 100; i++) {
+            tracker.put(key("key" + i), 10);
+        }
+        tracker.touch(key("key0"));
+        long bytes = tracker.getBytes();
+
+        List<Key> victims = tracker.evict(bytes / 2);
+        assertFalse(victims.isEmpty());
+        assertFalse(victims.contains(key("key0")));
+        assertTrue(bytes - tracker.getBytes() >= bytes / 2);
+        assertEquals(100 - victims.size(), tracker.getItems());
+
+        victims = tracker.evict(Long.MAX_VALUE);
+        assertEquals(0, tracker.getItems());
+        assertEquals(0, tracker.getBytes());
+        assertTrue(victims.contains(key("key0")));
+    }
+
+    public void testEvictInGlobalAccessOrder() {
+        LruItemTracker tracker = new LruItemTracker();
+        for (int i = 0; i < 100; i++) {
+            tracker.put(key("key" + i), 10);
+        }
+        // keys spread over all the segments, touching all but one leaves it the least recently used
+        for (int i = 0; i < 100; i++) {
+            if (i != 42) {
+                tracker.touch(key("key" + i));
+            }
+        }
+        assertEquals(Arrays.asList(key("key42")), tracker.evict(1));
+        assertEquals(Arrays.asList(key("key0"), key("key1"), key("key2")), tracker.evict(3 * (4 + 10)));
+    }
+
+    private static Key key(String key) {
+        return new Key(key.getBytes());
+    }
+}
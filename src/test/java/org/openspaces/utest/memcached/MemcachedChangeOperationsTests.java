@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.memcached;
+
+import com.gigaspaces.server.MutableServerEntry;
+import junit.framework.TestCase;
+import org.mockito.ArgumentCaptor;
+import org.openspaces.memcached.ConcatValueOperation;
+import org.openspaces.memcached.IncrementValueOperation;
+import org.openspaces.memcached.MemcachedEntry;
+
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MemcachedChangeOperationsTests extends TestCase {
+
+    public void testIncrement() {
+        MutableServerEntry entry = entryWithValue("41");
+        Object result = new IncrementValueOperation(1).change(entry);
+        assertEquals(42, result);
+        assertEquals("42", new String(capturedValue(entry)));
+    }
+
+    public void testDecrementUnderflow() {
+        MutableServerEntry entry = entryWithValue("3");
+        Object result = new IncrementValueOperation(-10).change(entry);
+        assertEquals(0, result);
+        assertEquals("0", new String(capturedValue(entry)));
+    }
+
+    public void testAppend() {
+        MutableServerEntry entry = entryWithValue("value");
+        new ConcatValueOperation("append".getBytes(), false).change(entry);
+        assertEquals("valueappend", new String(capturedValue(entry)));
+    }
+
+    public void testPrepend() {
+        MutableServerEntry entry = entryWithValue("value");
+        new ConcatValueOperation("prepend".getBytes(), true).change(entry);
+        assertEquals("prependvalue", new String(capturedValue(entry)));
+    }
+
+    private MutableServerEntry entryWithValue(String value) {
+        MutableServerEntry entry = mock(MutableServerEntry.class);
+        when(entry.getPathValue(MemcachedEntry.VALUE_PROPERTY)).thenReturn(value.getBytes());
+        return entry;
+    }
+
+    private byte[] capturedValue(MutableServerEntry entry) {
+        ArgumentCaptor<Object> argument = ArgumentCaptor.forClass(Object.class);
+        verify(entry).setPathValue(eq(MemcachedEntry.VALUE_PROPERTY), argument.capture());
+        return (byte[]) argument.getValue();
+    }
+}
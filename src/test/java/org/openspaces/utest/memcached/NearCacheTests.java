@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.memcached;
+
+import junit.framework.TestCase;
+import org.openspaces.memcached.Key;
+import org.openspaces.memcached.LocalCacheElement;
+import org.openspaces.memcached.MemcachedEntry;
+import org.openspaces.memcached.NearCache;
+
+public class NearCacheTests extends TestCase {
+
+    public void testPutAndGet() {
+        NearCache nearCache = new NearCache(1024 * 1024, 0);
+        Key key = key("key");
+        nearCache.put(entry(key, "value", 3), nearCache.stamp(key));
+
+        LocalCacheElement element = nearCache.get(key);
+        assertNotNull(element);
+        assertEquals("value", new String(element.getData()));
+        assertEquals(3, element.getCasUnique());
+        assertEquals(1, nearCache.getHits());
+
+        assertNull(nearCache.get(key("other")));
+        assertEquals(1, nearCache.getMisses());
+    }
+
+    public void testInvalidate() {
+        NearCache nearCache = new NearCache(1024 * 1024, 0);
+        Key key = key("key");
+        nearCache.put(entry(key, "value", 1), nearCache.stamp(key));
+        nearCache.invalidate(key);
+        assertNull(nearCache.get(key));
+        assertEquals(0, nearCache.getCurrentBytes());
+    }
+
+    public void testStaleReadIsNotCached() {
+        NearCache nearCache = new NearCache(1024 * 1024, 0);
+        Key key = key("key");
+        long stamp = nearCache.stamp(key);
+        // the entry was changed while it was read from the space
+        nearCache.invalidate(key);
+        nearCache.put(entry(key, "value", 1), stamp);
+        assertNull(nearCache.get(key));
+    }
+
+    public void testTimeToLive() throws Exception {
+        NearCache nearCache = new NearCache(1024 * 1024, 1);
+        Key key = key("key");
+        nearCache.put(entry(key, "value", 1), nearCache.stamp(key));
+        Thread.sleep(10);
+        assertNull(nearCache.get(key));
+    }
+
+    public void testBoundedBytes() {
+        long maxBytes = 16 * 1024;
+        NearCache nearCache = new NearCache(maxBytes, 0);
+        for (int i = 0; i < 1000; i++) {
+            Key key = key("key" + i);
+            nearCache.get(key);
+            nearCache.put(entry(key, "value" + i, 1), nearCache.stamp(key));
+        }
+        assertTrue(nearCache.getCurrentBytes() <= maxBytes);
+
+        // a popular key is admitted by evicting the least recently used one
+        Key popular = key("popular");
+        for (int i = 0; i < 10; i++) {
+            nearCache.get(popular);
+        }
+        nearCache.put(entry(popular, "value", 1), nearCache.stamp(popular));
+        assertNotNull(nearCache.get(popular));
+        assertTrue(nearCache.getEvictions() > 0);
+        assertTrue(nearCache.getCurrentBytes() <= maxBytes);
+    }
+
+    public void testHotKeysSurviveScan() {
+        NearCache nearCache = new NearCache(16 * 1024, 0);
+        Key hot = key("hot");
+        for (int i = 0; i < 10; i++) {
+            nearCache.get(hot);
+        }
+        nearCache.put(entry(hot, "value", 1), nearCache.stamp(hot));
+        for (int i = 0; i < 1000; i++) {
+            Key cold = key("cold" + i);
+            nearCache.get(cold);
+            nearCache.put(entry(cold, "value", 1), nearCache.stamp(cold));
+        }
+        assertNotNull(nearCache.get(hot));
+    }
+
+    public void testRejectedCandidateDoesNotEvict() {
+        // a single segment fits the cold and the hot entry, but not the candidate on top of them
+        NearCache nearCache = new NearCache(16 * 1600, 0);
+        Key cold = key("cold");
+        Key hot = keyInSegmentOf(cold, "hot");
+        Key candidate = keyInSegmentOf(cold, "candidate");
+
+        nearCache.get(cold);
+        nearCache.put(entry(cold, "cold", 1), nearCache.stamp(cold));
+        for (int i = 0; i < 10; i++) {
+            nearCache.get(hot);
+        }
+        nearCache.put(entry(hot, value(500), 1), nearCache.stamp(hot));
+
+        // more popular than the cold entry but not than the hot one, which must be evicted as well
+        for (int i = 0; i < 3; i++) {
+            nearCache.get(candidate);
+        }
+        nearCache.put(entry(candidate, value(1300), 1), nearCache.stamp(candidate));
+
+        assertEquals(0, nearCache.getEvictions());
+        assertNull(nearCache.get(candidate));
+        assertNotNull(nearCache.get(cold));
+        assertNotNull(nearCache.get(hot));
+    }
+
+    private static Key keyInSegmentOf(Key other, String prefix) {
+        for (int i = 0; ; i++) {
+            Key key = key(prefix + i);
+            if (segment(key) == segment(other)) {
+                return key;
+            }
+        }
+    }
+
+    // mirrors the segment selection of the near cache
+    private static int segment(Key key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return h & 15;
+    }
+
+    private static String value(int length) {
+        StringBuilder value = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            value.append('v');
+        }
+        return value.toString();
+    }
+
+    private static Key key(String key) {
+        return new Key(key.getBytes());
+    }
+
+    private static MemcachedEntry entry(Key key, String value, int version) {
+        MemcachedEntry entry = new MemcachedEntry(key, value.getBytes());
+        entry.setVersion(version);
+        return entry;
+    }
+}
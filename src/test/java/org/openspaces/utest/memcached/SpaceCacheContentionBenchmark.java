@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.memcached;
+
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.GigaSpaceConfigurer;
+import org.openspaces.core.SpaceOptimisticLockingFailureException;
+import org.openspaces.core.space.UrlSpaceConfigurer;
+import org.openspaces.memcached.Key;
+import org.openspaces.memcached.LocalCacheElement;
+import org.openspaces.memcached.MemcachedEntry;
+import org.openspaces.memcached.SpaceCache;
+import org.openspaces.memcached.util.BufferUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the change based incr/append path of {@link SpaceCache} with the previous
+ * read + optimistic write retry loop, with several threads hammering a small key set.
+ *
+ * <p>Not run as part of the test suite. Usage:
+ * <code>SpaceCacheContentionBenchmark [threads] [keys] [operationsPerThread]</code>
+ */
+public class SpaceCacheContentionBenchmark {
+
+    interface Operation {
+        void run(Key key);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int keys = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int operations = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+
+        UrlSpaceConfigurer urlSpaceConfigurer = new UrlSpaceConfigurer("/./memcachedContentionBenchmark")
+                .lookupGroups(System.getProperty("user.name"));
+        try {
+            final GigaSpace gigaSpace = new GigaSpaceConfigurer(urlSpaceConfigurer.space()).gigaSpace();
+            final SpaceCache cache = new SpaceCache(gigaSpace);
+            final AtomicLong retries = new AtomicLong();
+
+            Key[] keySet = createKeys(cache, keys);
+            // warm up both paths
+            run(threads, keySet, operations / 10, legacyIncrement(gigaSpace, retries));
+            run(threads, keySet, operations / 10, changeIncrement(cache));
+            retries.set(0);
+
+            report("incr (read + write retry)", threads, operations, run(threads, keySet, operations, legacyIncrement(gigaSpace, retries)), retries.get());
+            report("incr (change)", threads, operations, run(threads, keySet, operations, changeIncrement(cache)), 0);
+
+            keySet = createKeys(cache, keys);
+            retries.set(0);
+            report("append (read + write retry)", threads, operations, run(threads, keySet, operations, legacyAppend(gigaSpace, retries)), retries.get());
+            keySet = createKeys(cache, keys);
+            report("append (change)", threads, operations, run(threads, keySet, operations, changeAppend(cache)), 0);
+        } finally {
+            urlSpaceConfigurer.destroy();
+        }
+    }
+
+    private static Key[] createKeys(SpaceCache cache, int count) {
+        Key[] keys = new Key[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = new Key(("counter" + i).getBytes());
+            LocalCacheElement element = new LocalCacheElement(keys[i], 0, 0, 0);
+            element.setData("0".getBytes());
+            cache.set(element);
+        }
+        return keys;
+    }
+
+    private static long run(int threads, final Key[] keys, final int operations, final Operation operation) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int offset = t;
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < operations; i++) {
+                            operation.run(keys[(i + offset) % keys.length]);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+            thread.start();
+        }
+        long startTime = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - startTime;
+    }
+
+    private static void report(String name, int threads, int operations, long durationNanos, long retries) {
+        long total = (long) threads * operations;
+        System.out.println(name + ": " + total + " ops in " + (durationNanos / 1000000) + "ms, "
+                + (total * 1000000000L / durationNanos) + " ops/sec, retries " + retries);
+    }
+
+    private static Operation changeIncrement(final SpaceCache cache) {
+        return new Operation() {
+            public void run(Key key) {
+                cache.get_add(key, 1);
+            }
+        };
+    }
+
+    private static Operation changeAppend(final SpaceCache cache) {
+        final byte[] data = "x".getBytes();
+        return new Operation() {
+            public void run(Key key) {
+                LocalCacheElement element = new LocalCacheElement(key);
+                element.setData(data);
+                cache.append(element);
+            }
+        };
+    }
+
+    private static Operation legacyIncrement(final GigaSpace space, final AtomicLong retries) {
+        return new Operation() {
+            public void run(Key key) {
+                while (true) {
+                    MemcachedEntry entry = space.readById(MemcachedEntry.class, key);
+                    if (entry == null) {
+                        return;
+                    }
+                    int val = BufferUtils.atoi(entry.getValue()) + 1;
+                    entry.setValue(BufferUtils.itoa(val));
+                    try {
+                        space.write(entry);
+                    } catch (SpaceOptimisticLockingFailureException e) {
+                        retries.incrementAndGet();
+                        continue;
+                    }
+                    return;
+                }
+            }
+        };
+    }
+
+    private static Operation legacyAppend(final GigaSpace space, final AtomicLong retries) {
+        final byte[] data = "x".getBytes();
+        return new Operation() {
+            public void run(Key key) {
+                while (true) {
+                    MemcachedEntry entry = space.readById(MemcachedEntry.class, key);
+                    if (entry == null) {
+                        return;
+                    }
+                    byte[] newData = new byte[entry.getValue().length + data.length];
+                    System.arraycopy(entry.getValue(), 0, newData, 0, entry.getValue().length);
+                    System.arraycopy(data, 0, newData, entry.getValue().length, data.length);
+                    entry.setValue(newData);
+                    try {
+                        space.write(entry);
+                    } catch (SpaceOptimisticLockingFailureException e) {
+                        retries.incrementAndGet();
+                        continue;
+                    }
+                    return;
+                }
+            }
+        };
+    }
+}
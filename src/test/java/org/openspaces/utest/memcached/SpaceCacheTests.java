@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.memcached;
+
+import com.j_spaces.core.client.SQLQuery;
+import junit.framework.TestCase;
+import org.mockito.ArgumentCaptor;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.memcached.Key;
+import org.openspaces.memcached.MemcachedEntry;
+import org.openspaces.memcached.NearCache;
+import org.openspaces.memcached.SpaceCache;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class SpaceCacheTests extends TestCase {
+
+    public void testFlushAllClearsEntriesWithAnyFlags() {
+        GigaSpace space = mock(GigaSpace.class);
+        SpaceCache cache = new SpaceCache(space);
+        cache.entryWritten(entry("key", "value"));
+
+        assertTrue(cache.flush_all());
+
+        ArgumentCaptor<Object> template = ArgumentCaptor.forClass(Object.class);
+        verify(space).clear(template.capture());
+        assertTrue(template.getValue() instanceof SQLQuery);
+        assertEquals("", ((SQLQuery<?>) template.getValue()).getQuery());
+        assertEquals(0, cache.getCurrentItems());
+    }
+
+    public void testTracksEntriesChangedByOthers() {
+        NearCache nearCache = new NearCache(1024 * 1024, 0);
+        SpaceCache cache = new SpaceCache(mock(GigaSpace.class), nearCache);
+        Key key = key("key");
+        nearCache.put(entry("key", "old"), nearCache.stamp(key));
+
+        // written through another gateway sharing the space
+        cache.entryWritten(entry("key", "value"));
+        assertEquals(1, cache.getCurrentItems());
+        assertEquals(3 + 5, cache.getCurrentBytes());
+        assertNull(nearCache.get(key));
+
+        cache.entryWritten(entry("key", "longer value"));
+        assertEquals(1, cache.getCurrentItems());
+        assertEquals(3 + 12, cache.getCurrentBytes());
+
+        // taken or expired
+        cache.entryRemoved(key);
+        assertEquals(0, cache.getCurrentItems());
+        assertEquals(0, cache.getCurrentBytes());
+    }
+
+    private static Key key(String key) {
+        return new Key(key.getBytes());
+    }
+
+    private static MemcachedEntry entry(String key, String value) {
+        return new MemcachedEntry(key(key), value.getBytes());
+    }
+}
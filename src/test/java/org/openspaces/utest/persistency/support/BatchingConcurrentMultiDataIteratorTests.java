@@ -0,0 +1,182 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.persistency.support;
+
+import com.gigaspaces.datasource.DataIterator;
+import junit.framework.TestCase;
+import org.openspaces.persistency.support.BatchingConcurrentMultiDataIterator;
+import org.openspaces.persistency.support.MultiDataIterator;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BatchingConcurrentMultiDataIteratorTests extends TestCase {
+
+    public void testIteratesAllObjects() {
+        DataIterator[] iterators = new DataIterator[8];
+        for (int i = 0; i < iterators.length; i++) {
+            iterators[i] = new RangeDataIterator(i * 10000, 1000 + i * 37);
+        }
+        BatchingConcurrentMultiDataIterator iterator = new BatchingConcurrentMultiDataIterator(iterators, 4, 16, 100);
+        Set<Integer> expected = new HashSet<Integer>();
+        for (int i = 0; i < iterators.length; i++) {
+            for (int j = 0; j < 1000 + i * 37; j++) {
+                expected.add(i * 10000 + j);
+            }
+        }
+        Set<Integer> actual = new HashSet<Integer>();
+        while (iterator.hasNext()) {
+            assertTrue(actual.add((Integer) iterator.next()));
+        }
+        iterator.close();
+        assertEquals(expected, actual);
+
+        BatchingConcurrentMultiDataIterator.IteratorStatistics[] statistics = iterator.getIteratorStatistics();
+        assertEquals(iterators.length, statistics.length);
+        for (int i = 0; i < statistics.length; i++) {
+            assertTrue(statistics[i].isFinished());
+            assertEquals(1000 + i * 37, statistics[i].getObjects());
+            assertTrue(((RangeDataIterator) iterators[i]).closed);
+        }
+    }
+
+    public void testFlattensMultiDataIterators() {
+        final DataIterator[] inner = new DataIterator[]{new RangeDataIterator(0, 10), new RangeDataIterator(10, 10)};
+        MultiDataIterator multi = new BatchingConcurrentMultiDataIterator(inner, 1);
+        BatchingConcurrentMultiDataIterator iterator = new BatchingConcurrentMultiDataIterator(
+                new DataIterator[]{multi, new RangeDataIterator(20, 5)}, 2);
+        assertEquals(3, iterator.iterators().length);
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        iterator.close();
+        assertEquals(25, count);
+    }
+
+    public void testEmpty() {
+        BatchingConcurrentMultiDataIterator iterator = new BatchingConcurrentMultiDataIterator(new DataIterator[0], 2);
+        assertFalse(iterator.hasNext());
+        iterator.close();
+    }
+
+    public void testBoundsBufferedObjects() throws Exception {
+        final AtomicInteger produced = new AtomicInteger();
+        DataIterator[] iterators = new DataIterator[4];
+        for (int i = 0; i < iterators.length; i++) {
+            iterators[i] = new RangeDataIterator(i * 1000, 1000) {
+                @Override
+                public Object next() {
+                    produced.incrementAndGet();
+                    return super.next();
+                }
+            };
+        }
+        BatchingConcurrentMultiDataIterator iterator = new BatchingConcurrentMultiDataIterator(iterators, 4, 10, 50);
+        assertTrue(iterator.hasNext());
+        Thread.sleep(200);
+        // the budget, one batch taken by the consumer and one batch being filled by each producer
+        assertTrue("produced " + produced.get(), produced.get() <= 50 + 10 + iterators.length * 10);
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        iterator.close();
+        assertEquals(4000, count);
+    }
+
+    public void testPropagatesProducerFailure() {
+        DataIterator failing = new RangeDataIterator(0, 100) {
+            @Override
+            public Object next() {
+                Object next = super.next();
+                if (next.equals(50)) {
+                    throw new IllegalStateException("failed");
+                }
+                return next;
+            }
+        };
+        BatchingConcurrentMultiDataIterator iterator = new BatchingConcurrentMultiDataIterator(
+                new DataIterator[]{failing, new RangeDataIterator(1000, 100)}, 2, 8, 64);
+        try {
+            while (iterator.hasNext()) {
+                iterator.next();
+            }
+            fail("expected the producer failure to be thrown");
+        } catch (IllegalStateException e) {
+            assertEquals("failed", e.getMessage());
+        }
+    }
+
+    public void testPropagatesProducerError() {
+        DataIterator failing = new RangeDataIterator(0, 100) {
+            @Override
+            public Object next() {
+                Object next = super.next();
+                if (next.equals(50)) {
+                    throw new OutOfMemoryError("failed");
+                }
+                return next;
+            }
+        };
+        BatchingConcurrentMultiDataIterator iterator = new BatchingConcurrentMultiDataIterator(
+                new DataIterator[]{failing, new RangeDataIterator(1000, 100)}, 2, 8, 64);
+        try {
+            while (iterator.hasNext()) {
+                iterator.next();
+            }
+            fail("expected the producer error to be thrown");
+        } catch (OutOfMemoryError e) {
+            assertEquals("failed", e.getMessage());
+        }
+        assertTrue(((RangeDataIterator) failing).closed);
+    }
+
+    private static class RangeDataIterator implements DataIterator {
+
+        private final int end;
+
+        private int next;
+
+        volatile boolean closed;
+
+        RangeDataIterator(int start, int count) {
+            this.next = start;
+            this.end = start + count;
+        }
+
+        public boolean hasNext() {
+            return next < end;
+        }
+
+        public Object next() {
+            return next++;
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        public void close() {
+            closed = true;
+        }
+    }
+}
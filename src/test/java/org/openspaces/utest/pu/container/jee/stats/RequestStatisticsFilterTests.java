@@ -0,0 +1,155 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.pu.container.jee.stats;
+
+import junit.framework.TestCase;
+import org.openspaces.pu.container.jee.stats.RequestStatisticsFilter;
+import org.openspaces.pu.container.jee.stats.WebRequestsServiceMonitors;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Unit Tests for the high resolution mode of {@link RequestStatisticsFilter}
+ * @since 11.0
+ */
+public class RequestStatisticsFilterTests extends TestCase {
+
+    private RequestStatisticsFilter filter;
+
+    @Override
+    protected void setUp() throws Exception {
+        filter = createFilter("60");
+    }
+
+    public void testStatusCounts() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            doFilter(HttpServletResponse.SC_OK, 0);
+        }
+        doFilter(HttpServletResponse.SC_NOT_FOUND, 0);
+        try {
+            filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), new FilterChain() {
+                public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+                    throw new ServletException("failed");
+                }
+            });
+            fail("the exception of the chain should be thrown");
+        } catch (ServletException e) {
+            // expected
+        }
+
+        WebRequestsServiceMonitors monitors = getMonitors();
+        assertEquals(5, monitors.getTotal());
+        assertEquals(0, monitors.getActive());
+        Map<Integer, Long> statusCounts = monitors.getStatusCounts();
+        assertEquals(3, statusCounts.size());
+        assertEquals(Long.valueOf(3), statusCounts.get(HttpServletResponse.SC_OK));
+        assertEquals(Long.valueOf(1), statusCounts.get(HttpServletResponse.SC_NOT_FOUND));
+        // an exception thrown by the chain is counted as an internal error
+        assertEquals(Long.valueOf(1), statusCounts.get(HttpServletResponse.SC_INTERNAL_SERVER_ERROR));
+    }
+
+    public void testLatencyPercentiles() throws Exception {
+        for (int i = 0; i < 9; i++) {
+            doFilter(HttpServletResponse.SC_OK, 5);
+        }
+        doFilter(HttpServletResponse.SC_OK, 100);
+
+        WebRequestsServiceMonitors monitors = getMonitors();
+        assertTrue(monitors.getLatencyP50() >= 4.5f);
+        assertTrue(monitors.getLatencyP50() < 90f);
+        assertTrue(monitors.getLatencyP99() >= monitors.getLatencyP50());
+        assertTrue(monitors.getLatencyP999() >= monitors.getLatencyP99());
+        assertTrue(monitors.getLatencyMax() >= 95f);
+        assertTrue(monitors.getLatencyMax() < 10000f);
+    }
+
+    public void testAverageRequestsLatency() throws Exception {
+        WebRequestsServiceMonitors previous = getMonitors();
+        for (int i = 0; i < 4; i++) {
+            doFilter(HttpServletResponse.SC_OK, 10);
+        }
+        WebRequestsServiceMonitors monitors = getMonitors();
+        monitors.setPrevious(previous, 1000);
+
+        // the requests are timed in nanoseconds, but the total duration is reported in milliseconds
+        assertTrue(monitors.getTotalDuration() >= 40);
+        assertTrue(monitors.getTotalDuration() < 10000);
+        assertTrue(monitors.getAverageRequestsLatency() >= 10f);
+        assertTrue(monitors.getAverageRequestsLatency() < 2500f);
+        assertEquals(4f, monitors.getRequestsThroughput());
+    }
+
+    public void testLatencyWindowStartedByRequests() throws Exception {
+        filter = createFilter("1");
+        long start = System.currentTimeMillis();
+        doFilter(HttpServletResponse.SC_OK, 200);
+        // the first request of the second window completes the first one
+        sleepUntil(start + 1200);
+        doFilter(HttpServletResponse.SC_OK, 0);
+        sleepUntil(start + 2200);
+
+        // the second window is reported, even though the statistics were not polled during the first one
+        WebRequestsServiceMonitors monitors = getMonitors();
+        assertEquals(2, monitors.getTotal());
+        assertTrue(monitors.getLatencyMax() < 150f);
+    }
+
+    private static RequestStatisticsFilter createFilter(String latencyWindowSeconds) throws ServletException {
+        MockFilterConfig filterConfig = new MockFilterConfig();
+        filterConfig.addInitParameter(RequestStatisticsFilter.HIGH_RESOLUTION_PARAM, "true");
+        filterConfig.addInitParameter(RequestStatisticsFilter.LATENCY_WINDOW_PARAM, latencyWindowSeconds);
+        RequestStatisticsFilter filter = new RequestStatisticsFilter();
+        filter.init(filterConfig);
+        return filter;
+    }
+
+    private void doFilter(final int status, final long durationMillis) throws Exception {
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), new FilterChain() {
+            public void doFilter(ServletRequest request, ServletResponse response) throws IOException, ServletException {
+                if (durationMillis > 0) {
+                    try {
+                        Thread.sleep(durationMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                ((HttpServletResponse) response).setStatus(status);
+            }
+        });
+    }
+
+    private WebRequestsServiceMonitors getMonitors() {
+        return (WebRequestsServiceMonitors) filter.getServicesMonitors()[0];
+    }
+
+    private static void sleepUntil(long timeMillis) throws InterruptedException {
+        long remaining = timeMillis - System.currentTimeMillis();
+        if (remaining > 0) {
+            Thread.sleep(remaining);
+        }
+    }
+}
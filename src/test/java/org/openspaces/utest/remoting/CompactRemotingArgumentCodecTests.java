@@ -0,0 +1,127 @@
+/*
+ * Copyright 2006-2007 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.utest.remoting;
+
+import junit.framework.TestCase;
+import org.openspaces.remoting.CompactRemotingArgumentCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+public class CompactRemotingArgumentCodecTests extends TestCase {
+
+    private final CompactRemotingArgumentCodec codec = new CompactRemotingArgumentCodec();
+
+    public void testPrimitiveWrappers() throws Exception {
+        assertNull(roundTrip(null));
+        assertEquals(Boolean.TRUE, roundTrip(true));
+        assertEquals(Boolean.FALSE, roundTrip(false));
+        assertEquals((byte) -3, roundTrip((byte) -3));
+        assertEquals((short) 1234, roundTrip((short) 1234));
+        assertEquals('x', roundTrip('x'));
+        assertEquals(1.5f, roundTrip(1.5f));
+        assertEquals(-2.25d, roundTrip(-2.25d));
+        for (int value : new int[]{0, 1, -1, 63, -64, 64, 1 << 20, Integer.MAX_VALUE, Integer.MIN_VALUE}) {
+            assertEquals(value, roundTrip(value));
+        }
+        for (long value : new long[]{0, 1, -1, 1L << 40, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertEquals(value, roundTrip(value));
+        }
+    }
+
+    public void testStrings() throws Exception {
+        assertEquals("", roundTrip(""));
+        assertEquals("hello \u05e9\u05dc\u05d5\u05dd", roundTrip("hello \u05e9\u05dc\u05d5\u05dd"));
+        char[] chars = new char[70000];
+        Arrays.fill(chars, '\u20ac');
+        String longString = new String(chars);
+        assertEquals(longString, roundTrip(longString));
+    }
+
+    public void testArrays() throws Exception {
+        assertTrue(Arrays.equals(new byte[]{1, 2, 3}, (byte[]) roundTrip(new byte[]{1, 2, 3})));
+        assertTrue(Arrays.equals(new short[]{1, -2}, (short[]) roundTrip(new short[]{1, -2})));
+        assertTrue(Arrays.equals(new int[]{1, -2, Integer.MAX_VALUE}, (int[]) roundTrip(new int[]{1, -2, Integer.MAX_VALUE})));
+        assertTrue(Arrays.equals(new long[]{1, Long.MIN_VALUE}, (long[]) roundTrip(new long[]{1, Long.MIN_VALUE})));
+        assertTrue(Arrays.equals(new float[]{1.5f}, (float[]) roundTrip(new float[]{1.5f})));
+        assertTrue(Arrays.equals(new double[]{2.5d, -1d}, (double[]) roundTrip(new double[]{2.5d, -1d})));
+        assertTrue(Arrays.equals(new char[]{'a', 'b'}, (char[]) roundTrip(new char[]{'a', 'b'})));
+        assertTrue(Arrays.equals(new boolean[]{true, false}, (boolean[]) roundTrip(new boolean[]{true, false})));
+        assertTrue(Arrays.equals(new String[]{"a", null}, (String[]) roundTrip(new String[]{"a", null})));
+        Object[] objects = (Object[]) roundTrip(new Object[]{1, "a", new int[]{1}, null});
+        assertEquals(4, objects.length);
+        assertEquals(1, objects[0]);
+        assertEquals("a", objects[1]);
+        assertTrue(Arrays.equals(new int[]{1}, (int[]) objects[2]));
+        assertNull(objects[3]);
+    }
+
+    public void testLists() throws Exception {
+        List<Object> list = new ArrayList<Object>();
+        list.add(1L);
+        list.add("a");
+        list.add(new ArrayList<Object>(Arrays.asList("b", 2)));
+        assertEquals(list, roundTrip(list));
+        // other list implementations keep their type
+        List<Object> fixedList = Arrays.<Object>asList("a", "b");
+        Object result = roundTrip(fixedList);
+        assertEquals(fixedList, result);
+        assertEquals(fixedList.getClass(), result.getClass());
+    }
+
+    public void testSerializableFallback() throws Exception {
+        assertEquals(new BigDecimal("1.25"), roundTrip(new BigDecimal("1.25")));
+        assertEquals(new Date(1000), roundTrip(new Date(1000)));
+    }
+
+    public void testCompactEncoding() throws Exception {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(encoded);
+        codec.writeValue(out, 5);
+        codec.writeValue(out, new int[]{1, 2, 3});
+        out.close();
+
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        out = new ObjectOutputStream(serialized);
+        out.writeObject(5);
+        out.writeObject(new int[]{1, 2, 3});
+        out.close();
+
+        assertTrue(encoded.size() * 4 < serialized.size());
+    }
+
+    private Object roundTrip(Object value) throws IOException, ClassNotFoundException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bos);
+        codec.writeValue(out, value);
+        // make sure the value does not consume more than it wrote
+        out.writeInt(42);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        Object result = codec.readValue(in);
+        assertEquals(42, in.readInt());
+        return result;
+    }
+}
@@ -0,0 +1,244 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.remoting;
+
+import junit.framework.TestCase;
+import org.mockito.ArgumentCaptor;
+import org.openspaces.core.GigaSpace;
+import org.openspaces.remoting.EventDrivenSpaceRemotingProxyFactoryBean;
+import org.openspaces.remoting.ExecutorRemotingTask;
+import org.openspaces.remoting.ExecutorSpaceRemotingProxyFactoryBean;
+import org.openspaces.remoting.HashedEventDrivenSpaceRemotingEntry;
+import org.openspaces.remoting.RemotingCodec;
+import org.openspaces.remoting.RemotingUtils;
+import org.openspaces.remoting.SpaceRemotingEntry;
+import org.openspaces.remoting.SpaceRemotingServiceExporter;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.remoting.RemoteLookupFailureException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Invocations of {@link RemotingCodec} annotated interfaces made through async interfaces, serialized and
+ * executed by the exporter.
+ */
+public class CompactRemotingInvocationTests extends TestCase {
+
+    private SpaceRemotingServiceExporter exporter;
+
+    @Override
+    protected void setUp() throws Exception {
+        StaticApplicationContext applicationContext = new StaticApplicationContext();
+        // the service of the previous version of the interface, looked up by name
+        applicationContext.registerSingleton(PreviousVersion.class.getName() + "$Calculator", DefaultCalculator.class);
+        applicationContext.refresh();
+
+        List<Object> services = new ArrayList<Object>();
+        services.add(new DefaultCalculator());
+        exporter = new SpaceRemotingServiceExporter();
+        exporter.setServices(services);
+        exporter.setApplicationContext(applicationContext);
+        exporter.afterPropertiesSet();
+        exporter.onApplicationEvent(new ContextRefreshedEvent(applicationContext));
+    }
+
+    public void testAsyncInterfaceMethodIndex() throws Exception {
+        RemotingUtils.MethodIndex serviceIndex = RemotingUtils.buildMethodIndexForInterface(Calculator.class);
+        RemotingUtils.MethodIndex asyncIndex = RemotingUtils.buildMethodIndexForInterface(CalculatorAsync.class, "async");
+        assertEquals(serviceIndex.getFingerprint(), asyncIndex.getFingerprint());
+        assertEquals(serviceIndex.size(), asyncIndex.size());
+        // the non async method is preferred
+        assertEquals(Calculator.class.getMethod("add", int.class, int.class),
+                asyncIndex.getMethod(asyncIndex.indexOf("add", new Class[]{int.class, int.class})));
+    }
+
+    public void testExecutorTaskRoundTrip() throws Throwable {
+        ExecutorRemotingTask task = roundTrip(executorTask(CalculatorAsync.class, "asyncAdd", new Class[]{int.class, int.class}, 1, 2));
+        RemotingUtils.MethodIndex serviceIndex = RemotingUtils.buildMethodIndexForInterface(Calculator.class);
+        assertEquals(serviceIndex.getFingerprint(), task.getInterfaceFingerprint());
+        assertEquals(serviceIndex.indexOf("add", new Class[]{int.class, int.class}), task.getMethodIndex());
+        // the index replaces the method hash
+        assertNull(task.getMethodHash());
+        assertEquals("add", task.getMethodName());
+        assertTrue(Arrays.equals(new Object[]{1, 2}, task.getArguments()));
+        assertEquals(3, exporter.invokeExecutor(task));
+
+        task = roundTrip(executorTask(CalculatorAsync.class, "asyncAdd", new Class[]{long.class, long.class}, 1L, 2L));
+        assertEquals(3L, exporter.invokeExecutor(task));
+        task = roundTrip(executorTask(CalculatorAsync.class, "asyncDescribe", new Class[]{List.class}, new ArrayList<Object>()));
+        assertEquals("list", exporter.invokeExecutor(task));
+    }
+
+    public void testExecutorTaskFingerprintMismatch() throws Throwable {
+        ExecutorRemotingTask task = roundTrip(executorTask(PreviousVersion.CalculatorAsync.class, "asyncAdd",
+                new Class[]{int.class, int.class}, 1, 2));
+        assertTrue(task.getMethodIndex() >= 0);
+        assertFalse(RemotingUtils.buildMethodIndexForInterface(Calculator.class).getFingerprint() == task.getInterfaceFingerprint());
+        // the index of another version of the interface does not identify the method
+        try {
+            exporter.invokeExecutor(task);
+            fail("expected a lookup failure");
+        } catch (RemoteLookupFailureException e) {
+            // expected
+        }
+    }
+
+    public void testEventDrivenEntryRoundTrip() throws Throwable {
+        HashedEventDrivenSpaceRemotingEntry entry = roundTrip(eventDrivenEntry(CalculatorAsync.class, "asyncAdd",
+                new Class[]{int.class, int.class}, 1, 2));
+        RemotingUtils.MethodIndex serviceIndex = RemotingUtils.buildMethodIndexForInterface(Calculator.class);
+        assertEquals(serviceIndex.getFingerprint(), entry.getInterfaceFingerprint());
+        assertEquals(serviceIndex.indexOf("add", new Class[]{int.class, int.class}), entry.getMethodIndex());
+        assertNull(entry.getMethodHash());
+        assertEquals("add", entry.getMethodName());
+        assertEquals(3, invoke(entry));
+
+        entry = roundTrip(eventDrivenEntry(CalculatorAsync.class, "asyncAdd", new Class[]{long.class, long.class}, 1L, 2L));
+        assertEquals(3L, invoke(entry));
+    }
+
+    public void testEventDrivenEntryFingerprintMismatch() throws Throwable {
+        HashedEventDrivenSpaceRemotingEntry entry = roundTrip(eventDrivenEntry(PreviousVersion.CalculatorAsync.class, "asyncAdd",
+                new Class[]{int.class, int.class}, 1, 2));
+        assertTrue(entry.getMethodIndex() >= 0);
+        try {
+            invoke(entry);
+            fail("expected a lookup failure");
+        } catch (AssertionError e) {
+            assertTrue(e.getCause() instanceof RemoteLookupFailureException);
+        }
+    }
+
+    private ExecutorRemotingTask executorTask(Class<?> serviceInterface, String methodName, Class[] parameterTypes,
+                                              Object... args) throws Exception {
+        GigaSpace gigaSpace = mock(GigaSpace.class);
+        ExecutorSpaceRemotingProxyFactoryBean factoryBean = new ExecutorSpaceRemotingProxyFactoryBean();
+        factoryBean.setGigaSpace(gigaSpace);
+        factoryBean.setServiceInterface(serviceInterface);
+        factoryBean.afterPropertiesSet();
+        serviceInterface.getMethod(methodName, parameterTypes).invoke(factoryBean.getObject(), args);
+
+        ArgumentCaptor<ExecutorRemotingTask> task = ArgumentCaptor.forClass(ExecutorRemotingTask.class);
+        verify(gigaSpace).execute(task.capture(), (Object) any());
+        return task.getValue();
+    }
+
+    private HashedEventDrivenSpaceRemotingEntry eventDrivenEntry(Class<?> serviceInterface, String methodName,
+                                                                 Class[] parameterTypes, Object... args) throws Exception {
+        GigaSpace gigaSpace = mock(GigaSpace.class);
+        EventDrivenSpaceRemotingProxyFactoryBean factoryBean = new EventDrivenSpaceRemotingProxyFactoryBean();
+        factoryBean.setGigaSpace(gigaSpace);
+        factoryBean.setServiceInterface(serviceInterface);
+        factoryBean.afterPropertiesSet();
+        serviceInterface.getMethod(methodName, parameterTypes).invoke(factoryBean.getObject(), args);
+
+        ArgumentCaptor<HashedEventDrivenSpaceRemotingEntry> entry = ArgumentCaptor.forClass(HashedEventDrivenSpaceRemotingEntry.class);
+        verify(gigaSpace).write(entry.capture());
+        return entry.getValue();
+    }
+
+    private Object invoke(HashedEventDrivenSpaceRemotingEntry entry) throws Exception {
+        GigaSpace gigaSpace = mock(GigaSpace.class);
+        exporter.onEvent(entry, gigaSpace, null, null);
+        ArgumentCaptor<SpaceRemotingEntry> result = ArgumentCaptor.forClass(SpaceRemotingEntry.class);
+        verify(gigaSpace).write(result.capture());
+        if (result.getValue().getException() != null) {
+            throw new AssertionError(result.getValue().getException());
+        }
+        return roundTrip(result.getValue()).getResult();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T roundTrip(T value) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bos);
+        out.writeObject(value);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()));
+        return (T) in.readObject();
+    }
+
+    @RemotingCodec
+    public interface Calculator {
+
+        int add(int a, int b);
+
+        long add(long a, long b);
+
+        String describe(List list);
+    }
+
+    @RemotingCodec
+    public interface CalculatorAsync extends Calculator {
+
+        Future<Integer> asyncAdd(int a, int b);
+
+        Future<Long> asyncAdd(long a, long b);
+
+        Future<String> asyncDescribe(List list);
+    }
+
+    public static class PreviousVersion {
+
+        /**
+         * A previous version of {@link CompactRemotingInvocationTests.Calculator}, without the describe method.
+         */
+        @RemotingCodec
+        public interface Calculator {
+
+            int add(int a, int b);
+
+            long add(long a, long b);
+        }
+
+        @RemotingCodec
+        public interface CalculatorAsync extends Calculator {
+
+            Future<Integer> asyncAdd(int a, int b);
+
+            Future<Long> asyncAdd(long a, long b);
+        }
+    }
+
+    public static class DefaultCalculator implements Calculator {
+
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        public long add(long a, long b) {
+            return a + b;
+        }
+
+        public String describe(List list) {
+            return "list";
+        }
+    }
+}
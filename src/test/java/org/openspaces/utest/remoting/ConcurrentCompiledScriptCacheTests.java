@@ -0,0 +1,170 @@
+/*
+ * Copyright 2006-2007 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.openspaces.utest.remoting;
+
+import junit.framework.TestCase;
+import org.openspaces.remoting.scripting.LocalScriptExecutor;
+import org.openspaces.remoting.scripting.Script;
+import org.openspaces.remoting.scripting.ScriptCompilationException;
+import org.openspaces.remoting.scripting.ScriptExecutionException;
+import org.openspaces.remoting.scripting.StaticScript;
+import org.openspaces.remoting.scripting.cache.BlockingQueueCompiledScriptPoolFactory;
+import org.openspaces.remoting.scripting.cache.ConcurrentNonThreadSafeCompiledScriptCache;
+import org.openspaces.remoting.scripting.cache.ConcurrentThreadSafeCompiledScriptCache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ConcurrentCompiledScriptCacheTests extends TestCase {
+
+    public void testConcurrentMissesCompileOnce() throws Exception {
+        final CountingExecutor executor = new CountingExecutor(50);
+        final ConcurrentThreadSafeCompiledScriptCache cache = new ConcurrentThreadSafeCompiledScriptCache();
+        final Script script = new StaticScript("test", "groovy", "1");
+        int threadCount = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Object> results = new CopyOnWriteArrayList<Object>();
+        Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        results.add(cache.get("test", executor, script));
+                    } catch (InterruptedException e) {
+                        // fails on the result count
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(threadCount, results.size());
+        assertEquals(1, executor.compilations.get());
+        for (Object result : results) {
+            assertSame(results.get(0), result);
+        }
+        assertSame(results.get(0), cache.get("test", executor, script));
+        assertEquals(1, cache.getStatistics().getCompileCount());
+        assertEquals(threadCount, cache.getStatistics().getMissCount());
+        assertEquals(1, cache.getStatistics().getHitCount());
+    }
+
+    public void testFailedCompilationIsNotCached() {
+        CountingExecutor executor = new CountingExecutor(0);
+        ConcurrentThreadSafeCompiledScriptCache cache = new ConcurrentThreadSafeCompiledScriptCache();
+        Script script = new StaticScript("test", "groovy", "1");
+        executor.fail = true;
+        try {
+            cache.get("test", executor, script);
+            fail("Compilation should have failed");
+        } catch (ScriptCompilationException e) {
+            // expected
+        }
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getStatistics().getCompileFailureCount());
+
+        executor.fail = false;
+        assertNotNull(cache.get("test", executor, script));
+        assertEquals(1, cache.size());
+    }
+
+    public void testLeastRecentlyUsedIsEvicted() {
+        CountingExecutor executor = new CountingExecutor(0);
+        ConcurrentThreadSafeCompiledScriptCache cache = new ConcurrentThreadSafeCompiledScriptCache(2);
+        Object first = cache.get("first", executor, new StaticScript("first", "groovy", "1"));
+        cache.get("second", executor, new StaticScript("second", "groovy", "2"));
+        // make first more recently used than second
+        cache.get("first", executor, new StaticScript("first", "groovy", "1"));
+        cache.get("third", executor, new StaticScript("third", "groovy", "3"));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, executor.closed.size());
+        assertEquals("second", executor.closed.get(0));
+        assertSame(first, cache.get("first", executor, new StaticScript("first", "groovy", "1")));
+        assertEquals(1, cache.getStatistics().getEvictionCount());
+    }
+
+    public void testNonThreadSafeCacheClosesScriptsOfEvictedPool() {
+        CountingExecutor executor = new CountingExecutor(0);
+        ConcurrentNonThreadSafeCompiledScriptCache cache =
+                new ConcurrentNonThreadSafeCompiledScriptCache(1, new BlockingQueueCompiledScriptPoolFactory(2));
+        Object compiledScript = cache.get("first", executor, new StaticScript("first", "groovy", "1"));
+        assertEquals(2, executor.compilations.get());
+
+        Object second = cache.get("second", executor, new StaticScript("second", "groovy", "2"));
+        // the pool of first was evicted, closing its idle compiled script
+        assertEquals(1, executor.closed.size());
+
+        cache.put("first", compiledScript, executor);
+        assertEquals(2, executor.closed.size());
+
+        cache.put("second", second, executor);
+        assertEquals(2, executor.closed.size());
+        assertNotNull(cache.get("second", executor, new StaticScript("second", "groovy", "2")));
+        assertEquals(4, executor.compilations.get());
+    }
+
+    private static class CountingExecutor implements LocalScriptExecutor<String> {
+
+        final AtomicInteger compilations = new AtomicInteger();
+
+        final List<String> closed = new CopyOnWriteArrayList<String>();
+
+        final long compileTime;
+
+        volatile boolean fail;
+
+        CountingExecutor(long compileTime) {
+            this.compileTime = compileTime;
+        }
+
+        public String compile(Script script) throws ScriptCompilationException {
+            if (fail) {
+                throw new ScriptCompilationException("Failed to compile [" + script.getName() + "]");
+            }
+            try {
+                Thread.sleep(compileTime);
+            } catch (InterruptedException e) {
+                throw new ScriptCompilationException("Interrupted");
+            }
+            compilations.incrementAndGet();
+            // a new string instance per compilation
+            return new String(script.getName());
+        }
+
+        public Object execute(Script script, String compiledScript, Map<String, Object> parameters) throws ScriptExecutionException {
+            return null;
+        }
+
+        public void close(String compiledScript) {
+            closed.add(compiledScript);
+        }
+
+        public boolean isThreadSafe() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.remoting;
+
+import org.openspaces.core.GigaSpace;
+import org.openspaces.core.GigaSpaceFactoryBean;
+import org.openspaces.core.space.UrlSpaceFactoryBean;
+import org.openspaces.remoting.ExecutorRemotingProxyConfigurer;
+import org.openspaces.remoting.ExecutorRemotingTask;
+import org.openspaces.remoting.RemotingUtils;
+import org.openspaces.remoting.SpaceRemotingServiceExporter;
+import org.springframework.beans.factory.support.BeanDefinitionBuilder;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures small payload executor remoting calls against an embedded space: full round trips through an
+ * executor proxy, and the server side dispatch of {@link SpaceRemotingServiceExporter} alone, with and
+ * without a method hash.
+ *
+ * <p>Not run as part of the test suite. Usage:
+ * <code>ExecutorRemotingBenchmark [threads] [invocationsPerThread]</code>
+ */
+public class ExecutorRemotingBenchmark {
+
+    public interface EchoService {
+
+        int echo(int value);
+
+        String echo(String value);
+    }
+
+    public static class DefaultEchoService implements EchoService {
+
+        public int echo(int value) {
+            return value;
+        }
+
+        public String echo(String value) {
+            return value;
+        }
+    }
+
+    interface Invocation {
+        void invoke(int i) throws Throwable;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int invocations = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+
+        List<Object> services = new ArrayList<Object>();
+        services.add(new DefaultEchoService());
+        GenericApplicationContext context = new GenericApplicationContext();
+        context.registerBeanDefinition("space", BeanDefinitionBuilder.rootBeanDefinition(UrlSpaceFactoryBean.class)
+                .addPropertyValue("url", "/./remotingBenchmark")
+                .addPropertyValue("lookupGroups", System.getProperty("user.name")).getBeanDefinition());
+        context.registerBeanDefinition("gigaSpace", BeanDefinitionBuilder.rootBeanDefinition(GigaSpaceFactoryBean.class)
+                .addPropertyReference("space", "space").getBeanDefinition());
+        context.registerBeanDefinition("serviceExporter", BeanDefinitionBuilder.rootBeanDefinition(SpaceRemotingServiceExporter.class)
+                .addPropertyValue("services", services).getBeanDefinition());
+        context.refresh();
+        try {
+            GigaSpace gigaSpace = context.getBean(GigaSpace.class);
+            final SpaceRemotingServiceExporter exporter = context.getBean(SpaceRemotingServiceExporter.class);
+            final EchoService echoService = new ExecutorRemotingProxyConfigurer<EchoService>(gigaSpace, EchoService.class).proxy();
+
+            Map<Method, RemotingUtils.MethodHash> methodHashes = RemotingUtils.buildMethodToHashLookupForInterface(EchoService.class, "async");
+            final RemotingUtils.MethodHash echoIntHash = methodHashes.get(EchoService.class.getMethod("echo", int.class));
+
+            Invocation roundTrip = new Invocation() {
+                public void invoke(int i) {
+                    echoService.echo(i);
+                }
+            };
+            Invocation hashedDispatch = new Invocation() {
+                public void invoke(int i) throws Throwable {
+                    exporter.invokeExecutor(new ExecutorRemotingTask(EchoService.class.getName(), "echo", echoIntHash, new Object[]{i}));
+                }
+            };
+            Invocation overloadedDispatch = new Invocation() {
+                public void invoke(int i) throws Throwable {
+                    exporter.invokeExecutor(new ExecutorRemotingTask(EchoService.class.getName(), "echo", null, new Object[]{"value"}));
+                }
+            };
+
+            // warm up
+            run(threads, invocations / 10, roundTrip);
+            run(threads, invocations / 10, hashedDispatch);
+            run(threads, invocations / 10, overloadedDispatch);
+
+            report("round trip (executor proxy)", threads, invocations, run(threads, invocations, roundTrip));
+            report("exporter dispatch (method hash)", threads, invocations, run(threads, invocations, hashedDispatch));
+            report("exporter dispatch (overloaded method name)", threads, invocations, run(threads, invocations, overloadedDispatch));
+        } finally {
+            context.close();
+        }
+    }
+
+    private static long run(int threads, final int invocations, final Invocation invocation) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread thread = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < invocations; i++) {
+                            invocation.invoke(i);
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (Throwable t) {
+                        t.printStackTrace();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+            thread.start();
+        }
+        long startTime = System.nanoTime();
+        start.countDown();
+        done.await();
+        return System.nanoTime() - startTime;
+    }
+
+    private static void report(String name, int threads, int invocations, long durationNanos) {
+        long total = (long) threads * invocations;
+        System.out.println(name + ": " + total + " invocations in " + (durationNanos / 1000000) + "ms, "
+                + (total * 1000000000L / durationNanos) + " invocations/sec, "
+                + (durationNanos / 1000 * threads / total) + "us per invocation");
+    }
+}
@@ -23,6 +23,7 @@ import org.openspaces.remoting.RemotingUtils.MethodHash;
 
 import java.lang.reflect.Method;
 import java.util.Map;
+import java.util.concurrent.Future;
 
 /**
  * GS-8294: Methods of a Remoting Service interface are not included when it extends from another interface
@@ -72,6 +73,32 @@ public class RemotingUtilsTests extends TestCase {
         assertEquals(2 +1, mapD.values().size());
     }
     
+    public void testBuildMethodIndexForInterface() throws Exception {
+        RemotingUtils.MethodIndex indexB = RemotingUtils.buildMethodIndexForInterface(B.class);
+        assertEquals(2 +1, indexB.size());
+        // sorted by signature, so the index does not depend on the order of the methods returned by reflection
+        assertEquals(0, indexB.indexOf("a", new Class[]{String.class}));
+        assertEquals(1, indexB.indexOf("b", new Class[]{String.class}));
+        assertEquals(2, indexB.indexOf("toString", new Class[0]));
+        assertEquals(-1, indexB.indexOf("c", new Class[]{String.class}));
+        assertEquals(B.class.getMethod("b", String.class), indexB.getMethod(1));
+
+        // same methods, same fingerprint
+        assertEquals(indexB.getFingerprint(), RemotingUtils.buildMethodIndexForInterface(C.class).getFingerprint());
+        assertEquals(indexB.getFingerprint(), RemotingUtils.buildMethodIndexForInterface(D.class).getFingerprint());
+        assertFalse(indexB.getFingerprint() == RemotingUtils.buildMethodIndexForInterface(A.class).getFingerprint());
+    }
+
+    public void testMethodIndexLookup() throws Exception {
+        RemotingUtils.MethodIndex index = RemotingUtils.buildMethodIndexForInterface(E.class);
+        Map<Method, Integer> lookup = index.buildMethodLookup(E.class, "async");
+        int eIndex = index.indexOf("e", new Class[]{int.class});
+        assertEquals(eIndex, lookup.get(E.class.getMethod("e", int.class)).intValue());
+        // async methods are mapped to their non async counterpart
+        assertEquals(eIndex, lookup.get(E.class.getMethod("asyncE", int.class)).intValue());
+        assertEquals(index.indexOf("toString", new Class[0]), lookup.get(Object.class.getMethod("toString")).intValue());
+    }
+
     public interface A {
         String a(String s);
     }
@@ -87,4 +114,10 @@ public class RemotingUtilsTests extends TestCase {
         @Override
         public String toString();
     }
+
+    public interface E {
+        String e(int i);
+
+        Future<String> asyncE(int i);
+    }
 }
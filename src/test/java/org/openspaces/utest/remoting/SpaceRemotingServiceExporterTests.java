@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * 
+ * Copyright (c) 2012 GigaSpaces Technologies Ltd. All rights reserved
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *  
+ ******************************************************************************/
+package org.openspaces.utest.remoting;
+
+import junit.framework.TestCase;
+import org.openspaces.remoting.ExecutorRemotingTask;
+import org.openspaces.remoting.RemotingServiceMonitors;
+import org.openspaces.remoting.RemotingUtils;
+import org.openspaces.remoting.RemotingUtils.MethodHash;
+import org.openspaces.remoting.SpaceRemotingServiceExporter;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.remoting.RemoteLookupFailureException;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SpaceRemotingServiceExporterTests extends TestCase {
+
+    private SpaceRemotingServiceExporter exporter;
+
+    private Map<Method, MethodHash> methodHashes;
+
+    @Override
+    protected void setUp() throws Exception {
+        StaticApplicationContext applicationContext = new StaticApplicationContext();
+        applicationContext.registerSingleton("calculatorBean", DefaultCalculator.class);
+        applicationContext.refresh();
+
+        List<Object> services = new ArrayList<Object>();
+        services.add(new DefaultCalculator());
+        exporter = new SpaceRemotingServiceExporter();
+        exporter.setServices(services);
+        exporter.setApplicationContext(applicationContext);
+        exporter.afterPropertiesSet();
+        exporter.onApplicationEvent(new ContextRefreshedEvent(applicationContext));
+
+        methodHashes = RemotingUtils.buildMethodToHashLookupForInterface(Calculator.class, "async");
+    }
+
+    public void testHashedInvocation() throws Throwable {
+        assertEquals(3, invoke(Calculator.class.getName(), "add", hash("add", int.class, int.class), 1, 2));
+        assertEquals("list", invoke(Calculator.class.getName(), "describe", hash("describe", List.class), new ArrayList<Object>()));
+        assertEquals("map", invoke(Calculator.class.getName(), "describe", hash("describe", Map.class), new HashMap<Object, Object>()));
+    }
+
+    public void testInvocationWithoutHash() throws Throwable {
+        assertEquals(3, invoke(Calculator.class.getName(), "add", null, 1, 2));
+        assertEquals(3, invoke(Calculator.class.getName(), "add", null, 1, 2));
+    }
+
+    public void testAsyncInterfaceLookup() throws Throwable {
+        assertEquals(3, invoke(Calculator.class.getName() + SpaceRemotingServiceExporter.DEFAULT_ASYNC_INTERFACE_SUFFIX, "add",
+                hash("add", int.class, int.class), 1, 2));
+    }
+
+    public void testBeanNameLookup() throws Throwable {
+        assertEquals(3, invoke("calculatorBean", "add", hash("add", int.class, int.class), 1, 2));
+        assertEquals(3, invoke("calculatorBean", "add", null, 1, 2));
+    }
+
+    public void testUnknownLookup() throws Throwable {
+        try {
+            invoke("unknown", "add", null, 1, 2);
+            fail();
+        } catch (RemoteLookupFailureException e) {
+            // expected
+        }
+        try {
+            invoke(Calculator.class.getName(), "subtract", null, 1, 2);
+            fail();
+        } catch (RemoteLookupFailureException e) {
+            // expected
+        }
+    }
+
+    public void testStatistics() throws Throwable {
+        invoke(Calculator.class.getName(), "add", hash("add", int.class, int.class), 1, 2);
+        invoke(Calculator.class.getName(), "add", null, 1, 2);
+        try {
+            invoke(Calculator.class.getName(), "fail", hash("fail"));
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        RemotingServiceMonitors monitors = (RemotingServiceMonitors) exporter.getServicesMonitors()[0];
+        assertEquals(2, monitors.getProcessed());
+        assertEquals(1, monitors.getFailed());
+    }
+
+    private MethodHash hash(String methodName, Class<?>... parameterTypes) throws NoSuchMethodException {
+        return methodHashes.get(Calculator.class.getMethod(methodName, parameterTypes));
+    }
+
+    private Object invoke(String lookupName, String methodName, MethodHash methodHash, Object... args) throws Throwable {
+        return exporter.invokeExecutor(new ExecutorRemotingTask(lookupName, methodName, methodHash, args));
+    }
+
+    public interface Calculator {
+
+        int add(int a, int b);
+
+        String describe(List list);
+
+        String describe(Map map);
+
+        void fail();
+    }
+
+    public static class DefaultCalculator implements Calculator {
+
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        public String describe(List list) {
+            return "list";
+        }
+
+        public String describe(Map map) {
+            return "map";
+        }
+
+        public void fail() {
+            throw new IllegalStateException("fail");
+        }
+    }
+}